@@ -0,0 +1,134 @@
+package aim4.bench;
+
+import aim4.driver.aim.coordinator.ArrivalEstimationException;
+import aim4.driver.aim.coordinator.ArrivalEstimationResult;
+import aim4.driver.aim.coordinator.MaxAccelReservationCheck;
+import aim4.driver.aim.coordinator.ReservationCheckException;
+import aim4.driver.aim.coordinator.VelocityFirstArrivalEstimation;
+import aim4.sim.SimulationContext;
+import aim4.vehicle.AccelSchedule;
+import aim4.vehicle.VehicleSpec;
+import aim4.vehicle.VehicleSpecDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link VelocityFirstArrivalEstimation#estimate} and
+ * {@link MaxAccelReservationCheck#check} of the AIM coordinator, with the
+ * distances, velocities and arrival times of vehicles approaching an
+ * intersection on a 25 m/s road.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrivalEstimationBenchmark {
+
+    /**
+     * The number of distinct inputs, which are used in turn.
+     */
+    private static final int INPUTS = 1024;
+
+    /**
+     * The speed limit of the road.
+     */
+    private static final double SPEED_LIMIT = 25.0;
+
+    private double[] v1;
+    private double[] dTotal;
+    private double[] vEndMax;
+    private double[] accel;
+    private double[] decel;
+    private double[] timeEnd;
+    private double[] vEnd;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(Fixtures.SEED);
+        VehicleSpec[] specs = new SimulationContext(Fixtures.SEED).call(() -> {
+            VehicleSpec[] s = new VehicleSpec[VehicleSpecDatabase.getNumOfSpec()];
+            for (int i = 0; i < s.length; i++) {
+                s[i] = VehicleSpecDatabase.getVehicleSpecById(i);
+            }
+            return s;
+        });
+        v1 = new double[INPUTS];
+        dTotal = new double[INPUTS];
+        vEndMax = new double[INPUTS];
+        accel = new double[INPUTS];
+        decel = new double[INPUTS];
+        timeEnd = new double[INPUTS];
+        vEnd = new double[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            VehicleSpec spec = specs[random.nextInt(specs.length)];
+            v1[i] = random.nextDouble() * SPEED_LIMIT;
+            dTotal[i] = 5.0 + random.nextDouble() * 145.0;
+            vEndMax[i] = 5.0 + random.nextDouble() * (SPEED_LIMIT - 5.0);
+            accel[i] = spec.getMaxAcceleration();
+            decel[i] = spec.getMaxDeceleration();
+            // the reservation checks are for arrivals no earlier than the
+            // estimated ones, as the intersection manager proposes them
+            ArrivalEstimationResult estimate = estimate(i);
+            if (estimate != null) {
+                timeEnd[i] = estimate.getArrivalTime() + random.nextDouble() * 3.0;
+                vEnd[i] = estimate.getArrivalVelocity() * random.nextDouble();
+            } else {
+                timeEnd[i] = dTotal[i] / SPEED_LIMIT;
+                vEnd[i] = 0.0;
+            }
+        }
+    }
+
+    @Benchmark
+    public ArrivalEstimationResult estimate() {
+        int i = next;
+        next = (next + 1) % INPUTS;
+        return estimate(i);
+    }
+
+    @Benchmark
+    public AccelSchedule check() {
+        int i = next;
+        next = (next + 1) % INPUTS;
+        try {
+            return MaxAccelReservationCheck.check(0.0, v1[i], timeEnd[i], vEnd[i],
+                    dTotal[i], SPEED_LIMIT, accel[i], decel[i]);
+        } catch (ReservationCheckException e) {
+            return null;
+        }
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Estimate the arrival of the vehicle of an input.
+     *
+     * @param i  the index of the input
+     * @return the estimate; <code>null</code> if there is none
+     */
+    private ArrivalEstimationResult estimate(int i) {
+        try {
+            return VelocityFirstArrivalEstimation.estimate(0.0, v1[i], dTotal[i],
+                    SPEED_LIMIT, vEndMax[i], accel[i], decel[i]);
+        } catch (ArrivalEstimationException e) {
+            return null;
+        }
+    }
+}
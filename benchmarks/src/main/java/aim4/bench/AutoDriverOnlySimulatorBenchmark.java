@@ -0,0 +1,58 @@
+package aim4.bench;
+
+import aim4.config.SimConfig;
+import aim4.sim.simulator.aim.AutoDriverOnlySimulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a full {@link AutoDriverOnlySimulator#step} of a 3x3 AIM grid
+ * with a given number of active vehicles.  The simulator is rebuilt before
+ * every iteration, so that every iteration measures the same steps of the
+ * same simulation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutoDriverOnlySimulatorBenchmark {
+
+    /**
+     * The number of active vehicles when the measurement starts.
+     */
+    @Param({"50", "200", "500"})
+    public int activeVehicles;
+
+    /**
+     * Whether the per-vehicle phases of a step run in parallel.
+     */
+    @Param({"false"})
+    public boolean parallelStep;
+
+    private AutoDriverOnlySimulator sim;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        sim = Fixtures.warmAimSimulator(activeVehicles);
+        sim.setIsParallelStepEnabled(parallelStep);
+    }
+
+    @Benchmark
+    public AutoDriverOnlySimulator.AutoDriverOnlySimStepResult step() {
+        return sim.step(SimConfig.TIME_STEP);
+    }
+}
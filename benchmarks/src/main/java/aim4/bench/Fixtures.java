@@ -0,0 +1,257 @@
+package aim4.bench;
+
+import aim4.config.Constants.TurnDirection;
+import aim4.config.SimConfig;
+import aim4.im.aim.Intersection;
+import aim4.im.aim.v2i.V2IManager;
+import aim4.im.aim.v2i.reservation.ReservationGridManager;
+import aim4.map.lane.Lane;
+import aim4.msg.aim.v2i.Request.VehicleSpecForRequestMsg;
+import aim4.sim.SimulationContext;
+import aim4.sim.Simulator;
+import aim4.sim.setup.merge.S2SSimSetup;
+import aim4.sim.setup.merge.enums.ProtocolType;
+import aim4.sim.setup.rim.BasicSimSetup;
+import aim4.sim.simulator.aim.AutoDriverOnlySimulator;
+import aim4.sim.simulator.merge.V2IMergeSimulator;
+import aim4.vehicle.VehicleSpec;
+import aim4.vehicle.VehicleSpecDatabase;
+import aim4.vehicle.VehicleUtil;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The fixtures shared by the benchmarks.  Every fixture is built in its own
+ * {@link SimulationContext} seeded with {@link #SEED}, so that a benchmark
+ * measures the same simulation in every fork and in every release.  Changing
+ * a fixture invalidates the results recorded so far.
+ */
+public final class Fixtures {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /**
+     * The seed of every fixture.
+     */
+    public static final long SEED = 20170601L;
+
+    /**
+     * The number of columns and rows of the AIM grid of the simulator
+     * benchmarks.
+     */
+    public static final int AIM_GRID_SIZE = 3;
+
+    /**
+     * The number of lanes per road of the AIM maps.
+     */
+    public static final int AIM_LANES_PER_ROAD = 3;
+
+    /**
+     * The traffic level of the simulator benchmarks, which is high enough for
+     * 500 vehicles to be active after about a minute of simulated time.
+     */
+    public static final double AIM_STEP_TRAFFIC_LEVEL = 0.5;
+
+    /**
+     * The simulated time after which a fixture gives up reaching the
+     * requested number of active vehicles.
+     */
+    public static final double MAX_WARM_UP_TIME = 600.0;
+
+    /**
+     * The length of the vehicles whose footprints are looked up in the tiled
+     * areas.
+     */
+    private static final double VEHICLE_LENGTH = 4.8;
+
+    /**
+     * The width of the vehicles whose footprints are looked up in the tiled
+     * areas.
+     */
+    private static final double VEHICLE_WIDTH = 1.8;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    private Fixtures() {
+        // this class cannot be instantiated
+    }
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Create a simulator of an AIM grid in which all vehicles are autonomous.
+     *
+     * @param context       the context of the simulation
+     * @param gridSize      the number of columns and rows
+     * @param trafficLevel  the traffic level
+     * @return the simulator
+     */
+    public static AutoDriverOnlySimulator aimSimulator(SimulationContext context,
+                                                       int gridSize,
+                                                       double trafficLevel) {
+        aim4.sim.setup.aim.AutoDriverOnlySimSetup simSetup =
+                new aim4.sim.setup.aim.AutoDriverOnlySimSetup(
+                        gridSize, gridSize, 4, 25.0, AIM_LANES_PER_ROAD,
+                        1, 150, trafficLevel, 1.0);
+        simSetup.setUniformRandomTraffic(trafficLevel);
+        return (AutoDriverOnlySimulator) simSetup.getSimulator(context);
+    }
+
+    /**
+     * Create a simulator of the AIM grid of the simulator benchmarks and step
+     * it until the given number of vehicles are active.
+     *
+     * @param activeVehicles  the number of active vehicles
+     * @return the simulator
+     * @throws IllegalStateException  if the number of active vehicles is not
+     *                                reached within {@link #MAX_WARM_UP_TIME}
+     */
+    public static AutoDriverOnlySimulator warmAimSimulator(int activeVehicles) {
+        AutoDriverOnlySimulator sim = aimSimulator(new SimulationContext(SEED),
+                AIM_GRID_SIZE, AIM_STEP_TRAFFIC_LEVEL);
+        while (sim.getActiveVehicles().size() < activeVehicles) {
+            if (sim.getSimulationTime() > MAX_WARM_UP_TIME) {
+                throw new IllegalStateException("Only " + sim.getActiveVehicles().size()
+                        + " vehicles are active after " + MAX_WARM_UP_TIME + " s");
+            }
+            sim.step(SimConfig.TIME_STEP);
+        }
+        return sim;
+    }
+
+    /**
+     * Create a simulator of a single roundabout with the RIM protocol.
+     *
+     * @param context       the context of the simulation
+     * @param trafficLevel  the traffic level
+     * @return the simulator
+     */
+    public static aim4.sim.simulator.rim.AutoDriverOnlySimulator rimSimulator(
+            SimulationContext context, double trafficLevel) {
+        aim4.sim.setup.rim.AutoDriverOnlySimSetup simSetup =
+                new aim4.sim.setup.rim.AutoDriverOnlySimSetup(new BasicSimSetup(
+                        1, 1, 30.0, 20.0, 4, 3.014, 15, 10, 1, 1, 150, trafficLevel, 1.0));
+        simSetup.setUniformRandomTraffic(trafficLevel);
+        return (aim4.sim.simulator.rim.AutoDriverOnlySimulator) simSetup.getSimulator(context);
+    }
+
+    /**
+     * Create a simulator of a single-to-single merge with the default
+     * layout of the GUI.
+     *
+     * @param context   the context of the simulation
+     * @param protocol  the merge protocol
+     * @return the simulator
+     */
+    public static V2IMergeSimulator mergeSimulator(SimulationContext context,
+                                                   ProtocolType protocol) {
+        S2SSimSetup simSetup = new S2SSimSetup(protocol,
+                S2SSimSetup.DEFAULT_TRAFFIC_LEVEL,
+                S2SSimSetup.DEFAULT_TARGET_LANE_SPEED_LIMIT,
+                S2SSimSetup.DEFAULT_MERGING_LANE_SPEED_LIMIT,
+                S2SSimSetup.DEFAULT_TARGET_LEAD_IN_DISTANCE,
+                S2SSimSetup.DEFAULT_TARGET_LEAD_OUT_DISTANCE,
+                S2SSimSetup.DEFAULT_MERGE_LEAD_IN_DISTANCE,
+                S2SSimSetup.DEFAULT_MERGING_ANGLE,
+                null, null);
+        return (V2IMergeSimulator) simSetup.getSimulator(context);
+    }
+
+    /**
+     * Step a simulator until the given simulation time.
+     *
+     * @param sim   the simulator
+     * @param time  the simulation time
+     */
+    public static void stepUntil(Simulator sim, double time) {
+        while (sim.getSimulationTime() < time) {
+            sim.step(SimConfig.TIME_STEP);
+        }
+    }
+
+    /**
+     * Create the queries of vehicles arriving at an AIM intersection within
+     * a few seconds of the current time of its reservation grid, with every
+     * turn that is allowed.  Must be called with the context of the
+     * simulation bound.
+     *
+     * @param im      the intersection manager
+     * @param now     the current time
+     * @param count   the number of queries
+     * @param random  the random number generator
+     * @return the queries
+     */
+    public static List<ReservationGridManager.Query> aimQueries(V2IManager im,
+                                                                double now,
+                                                                int count,
+                                                                Random random) {
+        Intersection intersection = im.getIntersection();
+        List<Lane[]> turns = new ArrayList<Lane[]>();
+        for (Lane arrivalLane : intersection.getEntryLanes()) {
+            for (Lane departureLane : intersection.getExitLanes()) {
+                if (intersection.calcTurnDirection(arrivalLane, departureLane)
+                        != TurnDirection.U_TURN) {
+                    turns.add(new Lane[]{arrivalLane, departureLane});
+                }
+            }
+        }
+        List<ReservationGridManager.Query> queries =
+                new ArrayList<ReservationGridManager.Query>(count);
+        for (int i = 0; i < count; i++) {
+            Lane[] turn = turns.get(random.nextInt(turns.size()));
+            VehicleSpec spec = VehicleSpecDatabase.getVehicleSpecById(
+                    random.nextInt(VehicleSpecDatabase.getNumOfSpec()));
+            double maxTurnVelocity =
+                    VehicleUtil.maxTurnVelocity(spec, turn[0], turn[1], im);
+            queries.add(new ReservationGridManager.Query(
+                    -1 - i,
+                    now + 1.0 + random.nextDouble() * 4.0,
+                    random.nextDouble() * maxTurnVelocity,
+                    turn[0].getId(),
+                    turn[1].getId(),
+                    new VehicleSpecForRequestMsg(spec),
+                    maxTurnVelocity,
+                    true));
+        }
+        return queries;
+    }
+
+    /**
+     * Create the corners of vehicles placed uniformly at random, with random
+     * headings, in a rectangle.
+     *
+     * @param bounds  the rectangle
+     * @param count   the number of vehicles
+     * @param random  the random number generator
+     * @return the four corners of each vehicle
+     */
+    public static Point2D[][] vehicleCorners(Rectangle2D bounds, int count,
+                                             Random random) {
+        Point2D[][] corners = new Point2D[count][];
+        for (int i = 0; i < count; i++) {
+            AffineTransform transform = AffineTransform.getTranslateInstance(
+                    bounds.getMinX() + random.nextDouble() * bounds.getWidth(),
+                    bounds.getMinY() + random.nextDouble() * bounds.getHeight());
+            transform.rotate(random.nextDouble() * 2 * Math.PI);
+            Point2D[] local = new Point2D[]{
+                    new Point2D.Double(0, -VEHICLE_WIDTH / 2),
+                    new Point2D.Double(-VEHICLE_LENGTH, -VEHICLE_WIDTH / 2),
+                    new Point2D.Double(-VEHICLE_LENGTH, VEHICLE_WIDTH / 2),
+                    new Point2D.Double(0, VEHICLE_WIDTH / 2)};
+            corners[i] = new Point2D[local.length];
+            transform.transform(local, 0, corners[i], 0, local.length);
+        }
+        return corners;
+    }
+}
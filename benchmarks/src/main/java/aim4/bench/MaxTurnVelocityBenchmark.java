@@ -0,0 +1,125 @@
+package aim4.bench;
+
+import aim4.config.Constants.TurnDirection;
+import aim4.im.aim.Intersection;
+import aim4.im.aim.IntersectionManager;
+import aim4.map.lane.Lane;
+import aim4.sim.SimulationContext;
+import aim4.sim.simulator.aim.AutoDriverOnlySimulator;
+import aim4.vehicle.MaxTurnVelocityTable;
+import aim4.vehicle.VehicleSpec;
+import aim4.vehicle.VehicleSpecDatabase;
+import aim4.vehicle.VehicleUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link VehicleUtil#maxTurnVelocity} for the turns of every
+ * vehicle specification through a three-lane AIM intersection.  The cold
+ * benchmark clears the memos before every call, so that it measures the
+ * internal simulations; the warm benchmark measures the memo lookup, and
+ * the table benchmark the lookup in the {@link MaxTurnVelocityTable} that
+ * the simulator computes for its map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaxTurnVelocityBenchmark {
+
+    private SimulationContext context;
+    private IntersectionManager im;
+    private MaxTurnVelocityTable table;
+    private List<VehicleSpec> specs;
+    private List<Lane> arrivalLanes;
+    private List<Lane> departureLanes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SimulationContext(Fixtures.SEED);
+        AutoDriverOnlySimulator sim = Fixtures.aimSimulator(context, 1, 0.0);
+        im = sim.getMap().getIntersectionManagers().get(0);
+        // the cold and warm benchmarks measure the memos, not the table
+        table = im.getMaxTurnVelocityTable();
+        im.setMaxTurnVelocityTable(null);
+        Intersection intersection = im.getIntersection();
+        specs = new ArrayList<VehicleSpec>();
+        arrivalLanes = new ArrayList<Lane>();
+        departureLanes = new ArrayList<Lane>();
+        context.run(() -> {
+            for (int i = 0; i < VehicleSpecDatabase.getNumOfSpec(); i++) {
+                for (Lane arrivalLane : intersection.getEntryLanes()) {
+                    for (Lane departureLane : intersection.getExitLanes()) {
+                        if (intersection.calcTurnDirection(arrivalLane, departureLane)
+                                != TurnDirection.U_TURN) {
+                            specs.add(VehicleSpecDatabase.getVehicleSpecById(i));
+                            arrivalLanes.add(arrivalLane);
+                            departureLanes.add(departureLane);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    @Setup(Level.Iteration)
+    public void warmMemos() {
+        for (int i = 0; i < specs.size(); i++) {
+            maxTurnVelocity(i);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double cold() {
+        VehicleUtil.clearMaxTurnVelocityMemos();
+        return maxTurnVelocity(nextTurn());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public double warm() {
+        int i = nextTurn();
+        // the memo lookup does not need the context
+        return VehicleUtil.maxTurnVelocity(specs.get(i), arrivalLanes.get(i),
+                departureLanes.get(i), im);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public double table() {
+        int i = nextTurn();
+        return table.get(specs.get(i), arrivalLanes.get(i),
+                departureLanes.get(i), im.getId());
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    private int nextTurn() {
+        int i = next;
+        next = (next + 1) % specs.size();
+        return i;
+    }
+
+    private double maxTurnVelocity(int i) {
+        return context.call(() -> VehicleUtil.maxTurnVelocity(specs.get(i),
+                arrivalLanes.get(i), departureLanes.get(i), im));
+    }
+}
@@ -0,0 +1,225 @@
+package aim4.bench;
+
+import aim4.im.aim.v2i.V2IManager;
+import aim4.im.aim.v2i.reservation.ReservationArray;
+import aim4.im.aim.v2i.reservation.ReservationGridManager;
+import aim4.sim.SimulationContext;
+import aim4.sim.simulator.aim.AutoDriverOnlySimulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link ReservationArray#reserve}, {@link ReservationArray#cancel}
+ * and {@link ReservationArray#cleanUp}.  The reservations are the footprints
+ * of real plans of an AIM intersection, packed one after another as tightly
+ * as the array allows, which is what a busy intersection looks like.  Since
+ * every operation changes the array, the operations are measured in pairs
+ * that keep the array in a steady state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationArrayBenchmark {
+
+    /**
+     * The number of distinct footprints.
+     */
+    private static final int FOOTPRINTS = 64;
+
+    /**
+     * The number of reservations in the schedule, which is replayed over
+     * and over at later times.
+     */
+    private static final int SCHEDULE = 1024;
+
+    /**
+     * The number of reservations that are in the array, besides the
+     * measured one.
+     */
+    @Param({"0", "20", "100"})
+    public int reservations;
+
+    private List<Footprint> footprints;
+    private int numOfTiles;
+    /** The discrete times at which the reservations of the schedule start */
+    private int[] starts;
+    /** The discrete time between two replays of the schedule */
+    private int period;
+    private ReservationArray array;
+    /** The index of the next reservation */
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimulationContext context = new SimulationContext(Fixtures.SEED);
+        AutoDriverOnlySimulator sim = Fixtures.aimSimulator(context, 1, 0.0);
+        V2IManager im = (V2IManager) sim.getMap().getIntersectionManagers().get(0);
+        ReservationGridManager manager = im.getReservationGridManager();
+        numOfTiles = manager.getTiledArea().getNumberOfTiles();
+        footprints = new ArrayList<Footprint>(FOOTPRINTS);
+        for (ReservationGridManager.Query q : context.call(() -> Fixtures.aimQueries(
+                im, 0.0, 2 * FOOTPRINTS, new Random(Fixtures.SEED)))) {
+            ReservationGridManager.Plan plan = context.call(() -> manager.query(q));
+            if (plan != null && footprints.size() < FOOTPRINTS) {
+                footprints.add(new Footprint(plan.getWorkingList()));
+            }
+        }
+
+        // pack the footprints greedily
+        ReservationArray scratch = new ReservationArray(numOfTiles);
+        starts = new int[SCHEDULE];
+        int dt = 0;
+        int end = 0;
+        for (int i = 0; i < SCHEDULE; i++) {
+            Footprint footprint = footprints.get(i % FOOTPRINTS);
+            footprint.moveTo(dt);
+            while (!scratch.reserve(i, footprint.tiles)) {
+                footprint.moveTo(++dt);
+            }
+            starts[i] = dt;
+            end = Math.max(end, dt + footprint.duration);
+            scratch.cleanUp(dt);
+        }
+        period = end + 1;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpArray() {
+        array = new ReservationArray(numOfTiles);
+        for (next = 0; next < reservations; next++) {
+            array.reserve(next, moveTo(next));
+        }
+    }
+
+    /**
+     * Make the next reservation of the schedule and cancel it.
+     *
+     * @return whether the reservation succeeded
+     */
+    @Benchmark
+    public boolean reserveThenCancel() {
+        boolean reserved = array.reserve(next, moveTo(next));
+        array.cancel(next);
+        return reserved;
+    }
+
+    /**
+     * Make the next reservation of the schedule and clean up the time before
+     * the start of the oldest reservation that is kept.
+     *
+     * @return whether the reservation succeeded
+     */
+    @Benchmark
+    public boolean reserveThenCleanUp() {
+        boolean reserved = array.reserve(next, moveTo(next));
+        next++;
+        array.cleanUp(startOf(next - reservations));
+        return reserved;
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the start of a reservation of the replayed schedule.
+     *
+     * @param i  the index of the reservation
+     * @return the discrete time at which the reservation starts
+     */
+    private int startOf(int i) {
+        return starts[i % SCHEDULE] + (i / SCHEDULE) * period;
+    }
+
+    /**
+     * Move the footprint of a reservation of the replayed schedule to its
+     * start.
+     *
+     * @param i  the index of the reservation
+     * @return the time-tiles of the reservation
+     */
+    private List<FootprintTile> moveTo(int i) {
+        Footprint footprint = footprints.get(i % FOOTPRINTS);
+        footprint.moveTo(startOf(i));
+        return footprint.tiles;
+    }
+
+    /////////////////////////////////
+    // NESTED CLASSES
+    /////////////////////////////////
+
+    /**
+     * The time-tiles of a plan, which can be moved in time without
+     * allocating new time-tiles in the measured code.
+     */
+    private static class Footprint {
+        /** The shift of the discrete times of the time-tiles */
+        private final int[] shift = new int[1];
+        /** The time-tiles, whose first discrete time is the shift */
+        private final List<FootprintTile> tiles;
+        /** The number of discrete times from the first time-tile to the last */
+        private final int duration;
+
+        /**
+         * Create the footprint of the working list of a plan.
+         *
+         * @param workingList  the working list
+         */
+        Footprint(List<? extends ReservationArray.TimeTile> workingList) {
+            int start = workingList.get(0).getDiscreteTime();
+            int last = start;
+            tiles = new ArrayList<FootprintTile>(workingList.size());
+            for (ReservationArray.TimeTile tt : workingList) {
+                tiles.add(new FootprintTile(tt.getDiscreteTime() - start,
+                                            tt.getTileId(), shift));
+                last = Math.max(last, tt.getDiscreteTime());
+            }
+            duration = last - start;
+        }
+
+        /**
+         * Move the footprint so that it starts at the given discrete time.
+         *
+         * @param dt  the discrete time
+         */
+        void moveTo(int dt) {
+            shift[0] = dt;
+        }
+    }
+
+    /**
+     * A time-tile of a footprint, relative to the shift of the footprint.
+     */
+    private static class FootprintTile extends ReservationArray.TimeTile {
+        /** The shift of the footprint */
+        private final int[] shift;
+
+        FootprintTile(int dt, int tid, int[] shift) {
+            super(dt, tid);
+            this.shift = shift;
+        }
+
+        @Override
+        public int getDiscreteTime() {
+            return shift[0] + super.getDiscreteTime();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package aim4.bench;
+
+import aim4.im.aim.v2i.V2IManager;
+import aim4.im.aim.v2i.reservation.ReservationGridManager;
+import aim4.sim.SimulationContext;
+import aim4.sim.simulator.aim.AutoDriverOnlySimulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link ReservationGridManager#query} on the grid of a single
+ * AIM intersection that has been warmed up by a simulation.  The occupancy of
+ * the grid is set by the traffic level of the simulation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationGridManagerBenchmark {
+
+    /**
+     * The number of distinct queries, which are issued in turn.
+     */
+    private static final int QUERIES = 256;
+
+    /**
+     * The simulated time before the grid is queried.
+     */
+    private static final double WARM_UP_TIME = 60.0;
+
+    /**
+     * The traffic level of the simulation that fills the grid.
+     */
+    @Param({"0.0", "0.2", "0.5"})
+    public double trafficLevel;
+
+    /**
+     * Whether the footprints of the internal simulations are cached.
+     */
+    @Param({"false", "true"})
+    public boolean footprintCache;
+
+    private SimulationContext context;
+    private ReservationGridManager manager;
+    private List<ReservationGridManager.Query> queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SimulationContext(Fixtures.SEED);
+        aim4.sim.setup.aim.AutoDriverOnlySimSetup simSetup =
+                new aim4.sim.setup.aim.AutoDriverOnlySimSetup(
+                        1, 1, 4, 25.0, Fixtures.AIM_LANES_PER_ROAD,
+                        1, 150, trafficLevel, 1.0);
+        simSetup.setUniformRandomTraffic(trafficLevel);
+        simSetup.setIsFootprintCacheEnabled(footprintCache);
+        AutoDriverOnlySimulator sim =
+                (AutoDriverOnlySimulator) simSetup.getSimulator(context);
+        Fixtures.stepUntil(sim, WARM_UP_TIME);
+        V2IManager im = (V2IManager) sim.getMap().getIntersectionManagers().get(0);
+        manager = im.getReservationGridManager();
+        queries = context.call(() -> Fixtures.aimQueries(im,
+                sim.getSimulationTime(), QUERIES, new Random(Fixtures.SEED)));
+        // fill the footprint cache, if any, before measuring
+        for (ReservationGridManager.Query q : queries) {
+            context.call(() -> manager.query(q));
+        }
+    }
+
+    @Benchmark
+    public ReservationGridManager.Plan query() {
+        ReservationGridManager.Query q = queries.get(next);
+        next = (next + 1) % QUERIES;
+        return context.call(() -> manager.query(q));
+    }
+}
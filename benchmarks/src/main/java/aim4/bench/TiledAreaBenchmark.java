@@ -0,0 +1,106 @@
+package aim4.bench;
+
+import aim4.im.aim.v2i.V2IManager;
+import aim4.sim.SimulationContext;
+import aim4.sim.simulator.aim.AutoDriverOnlySimulator;
+import aim4.util.TiledArea;
+import aim4.util.TiledRimArea;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link TiledArea#findOccupiedTiles} and
+ * {@link TiledRimArea#findOccupiedTiles} with vehicles placed at random in
+ * the tiled areas of an AIM intersection and of a roundabout.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TiledAreaBenchmark {
+
+    /**
+     * The number of distinct vehicles, which are looked up in turn.
+     */
+    private static final int VEHICLES = 1024;
+
+    private TiledArea tiledArea;
+    private Point2D[][] aimCorners;
+    private Shape[] aimShapes;
+    private int[] tileIds;
+    private TiledRimArea tiledRimArea;
+    private Point2D[][] rimCorners;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AutoDriverOnlySimulator aimSim =
+                Fixtures.aimSimulator(new SimulationContext(Fixtures.SEED), 1, 0.0);
+        V2IManager aimIm = (V2IManager) aimSim.getMap().getIntersectionManagers().get(0);
+        tiledArea = aimIm.getReservationGridManager().getTiledArea();
+        aimCorners = Fixtures.vehicleCorners(tiledArea.getArea().getBounds2D(),
+                VEHICLES, new Random(Fixtures.SEED));
+        aimShapes = new Shape[VEHICLES];
+        for (int i = 0; i < VEHICLES; i++) {
+            Path2D path = new Path2D.Double();
+            path.moveTo(aimCorners[i][0].getX(), aimCorners[i][0].getY());
+            for (int j = 1; j < aimCorners[i].length; j++) {
+                path.lineTo(aimCorners[i][j].getX(), aimCorners[i][j].getY());
+            }
+            path.closePath();
+            aimShapes[i] = path;
+        }
+        tileIds = new int[tiledArea.getNumberOfTiles()];
+
+        aim4.sim.simulator.rim.AutoDriverOnlySimulator rimSim =
+                Fixtures.rimSimulator(new SimulationContext(Fixtures.SEED), 0.0);
+        aim4.im.rim.v2i.V2IManager rimIm = (aim4.im.rim.v2i.V2IManager)
+                rimSim.getMap().getIntersectionManagers().get(0);
+        tiledRimArea = rimIm.getReservationGridManager().getTiledRimArea();
+        Rectangle2D rimBounds = tiledRimArea.getTileById(0).getArea().getBounds2D();
+        for (TiledRimArea.Tile tile : tiledRimArea.getAllTilesById()) {
+            rimBounds.add(tile.getArea().getBounds2D());
+        }
+        rimCorners = Fixtures.vehicleCorners(rimBounds, VEHICLES, new Random(Fixtures.SEED));
+    }
+
+    @Benchmark
+    public List<TiledArea.Tile> tiledAreaShape() {
+        Shape shape = aimShapes[next];
+        next = (next + 1) % VEHICLES;
+        return tiledArea.findOccupiedTiles(shape);
+    }
+
+    @Benchmark
+    public int tiledAreaCorners() {
+        Point2D[] corners = aimCorners[next];
+        next = (next + 1) % VEHICLES;
+        return tiledArea.findOccupiedTiles(corners, tileIds);
+    }
+
+    @Benchmark
+    public List<TiledRimArea.Tile> tiledRimArea() {
+        Point2D[] corners = rimCorners[next];
+        next = (next + 1) % VEHICLES;
+        return tiledRimArea.findOccupiedTiles(corners);
+    }
+}
@@ -0,0 +1,59 @@
+package aim4.bench;
+
+import aim4.config.SimConfig;
+import aim4.sim.SimulationContext;
+import aim4.sim.setup.merge.enums.ProtocolType;
+import aim4.sim.simulator.merge.CoreMergeSimulator;
+import aim4.sim.simulator.merge.V2IMergeSimulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a full {@link V2IMergeSimulator#step} of the default
+ * single-to-single merge of the GUI, for each merge protocol.  The simulator
+ * is rebuilt and warmed up before every iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class V2IMergeSimulatorBenchmark {
+
+    /**
+     * The simulated time before the measurement.
+     */
+    private static final double WARM_UP_TIME = 60.0;
+
+    /**
+     * The merge protocol.
+     */
+    @Param({"AIM_GRID", "AIM_NO_GRID", "QUEUE"})
+    public ProtocolType protocol;
+
+    private V2IMergeSimulator sim;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        sim = Fixtures.mergeSimulator(new SimulationContext(Fixtures.SEED), protocol);
+        Fixtures.stepUntil(sim, WARM_UP_TIME);
+    }
+
+    @Benchmark
+    public CoreMergeSimulator.CoreMergeSimStepResult step() {
+        return sim.step(SimConfig.TIME_STEP);
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * This package contains the JMH benchmarks of the hot paths of the
+ * simulator, and the fixtures they share.
+ */
+package aim4.bench;
@@ -0,0 +1,79 @@
+package aim4.cli;
+
+import aim4.map.SpawnSchedule;
+import org.json.simple.parser.ParseException;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts JSON spawn schedules to the binary format of
+ * {@link SpawnSchedule}.  Each schedule <code>name.json</code> gets a sibling
+ * <code>name.bin</code>, which the simulators then read instead of the
+ * JSON file for as long as it is not older than the JSON file.
+ * <p>
+ * Usage:
+ * <pre>
+ *   java aim4.cli.ConvertSchedules &lt;file or directory&gt;...
+ * </pre>
+ * Every JSON file under a directory is converted.
+ */
+public class ConvertSchedules {
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * The main function of the converter.
+     *
+     * @param args  the files and directories to convert
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: ConvertSchedules <file or directory>...");
+            System.exit(1);
+        }
+        try {
+            int count = 0;
+            for (String arg : args) {
+                count += convert(new File(arg));
+            }
+            System.out.println("Converted " + count + " schedules");
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (ParseException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Convert a JSON schedule, or every JSON schedule under a directory.
+     *
+     * @param file  the schedule or the directory
+     * @return the number of converted schedules
+     * @throws IOException     if a schedule cannot be read or written
+     * @throws ParseException  if a schedule is not valid JSON
+     */
+    public static int convert(File file) throws IOException, ParseException {
+        if (file.isDirectory()) {
+            int count = 0;
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    if (child.isDirectory() || child.getName().endsWith(".json")) {
+                        count += convert(child);
+                    }
+                }
+            }
+            return count;
+        }
+        if (!file.isFile()) {
+            throw new IOException("No such schedule: " + file);
+        }
+        SpawnSchedule.read(file).writeBinary(SpawnSchedule.getBinaryFile(file));
+        return 1;
+    }
+}
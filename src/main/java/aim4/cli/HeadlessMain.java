@@ -0,0 +1,279 @@
+package aim4.cli;
+
+import aim4.config.SimConfig;
+import aim4.sim.MetricsRecorder;
+import aim4.sim.SimulationContext;
+import aim4.sim.Simulator;
+import aim4.sim.results.BinaryResultWriter;
+import aim4.sim.results.ResultSinks;
+import aim4.sim.results.ResultStats;
+import aim4.sim.setup.SimSetup;
+import aim4.sim.setup.merge.enums.ProtocolType;
+import aim4.sim.snapshot.SimSnapshot;
+import aim4.sim.trace.TraceRecorder;
+import aim4.util.Util;
+import aim4.vehicle.MaxTurnVelocityTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The main class to run a simulation without the GUI.  The simulator is
+ * stepped in a tight loop, with no screen updates and no AWT toolkit, and
+ * the throughput is printed when the simulation ends.
+ * <p>
+ * Usage:
+ * <pre>
+ *   java aim4.cli.HeadlessMain [--properties=&lt;file&gt;] [key=value]...
+ * </pre>
+ * Besides the options of the setup (see {@link SimSetups}), the options are
+ * <ul>
+ * <li><code>time</code>: the simulation time in seconds (default 1800)</li>
+ * <li><code>steps</code>: the number of steps, which overrides
+ *     <code>time</code></li>
+ * <li><code>seed</code>: the seed of the random number generator</li>
+ * <li><code>output</code>: the file the results CSV is written to</li>
+ * <li><code>results</code>: the file the result of each vehicle is streamed
+ *     to as it completes, as CSV if its name ends with <code>.csv</code> and
+ *     in the binary format of {@link BinaryResultWriter} if it ends with
+ *     <code>.bin</code>, gzipped if <code>.gz</code> follows; the results
+ *     are then not kept in memory, so it cannot be given with
+ *     <code>output</code>, and it is not supported by <code>cpm</code></li>
+ * <li><code>progress</code>: the interval of simulation time between
+ *     progress reports, in seconds (default 0: no reports)</li>
+ * <li><code>metrics</code>: the file the performance metrics are written to,
+ *     as JSON lines if its name ends with <code>.json</code> and as CSV
+ *     otherwise (see {@link aim4.sim.SimMetrics})</li>
+ * <li><code>metricsInterval</code>: the interval of simulation time between
+ *     two snapshots of the metrics, in seconds (default 60)</li>
+ * <li><code>snapshot</code>: the file the state of the simulator is saved to
+ *     at the end (see {@link SimSnapshot}); it cannot be given with
+ *     <code>results</code> or <code>trace</code>, and it is not supported by
+ *     <code>cpm</code>, <code>rim-optimal</code> and the merge protocols
+ *     other than <code>AIM_GRID</code>, <code>TEST_MERGE</code> and
+ *     <code>TEST_TARGET</code></li>
+ * <li><code>restore</code>: a file the state of the simulator is restored
+ *     from instead of creating it from the options of the setup; the
+ *     simulation then continues for the given time or steps</li>
+ * <li><code>trace</code>: the trace the vehicles and the messages are
+ *     recorded to at every step, which is replayed by the GUI (see
+ *     {@link TraceRecorder}); it is not supported by <code>cpm</code></li>
+ * <li><code>traceSegmentSize</code>: the size of the segments of the trace,
+ *     in MB (default 64)</li>
+ * <li><code>traceSegments</code>: the number of segments of the trace that
+ *     are kept, the oldest being deleted (default 0: all of them)</li>
+ * <li><code>turnTables</code>: the directory the maximum turn velocities of
+ *     the map are saved to, and loaded from by later simulations of the same
+ *     map; without it they are computed when they are first needed (see
+ *     {@link MaxTurnVelocityTable})</li>
+ * </ul>
+ */
+public class HeadlessMain {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The merge protocols whose simulators can be saved */
+    private static final List<String> SNAPSHOT_PROTOCOLS = Arrays.asList(
+        ProtocolType.AIM_GRID.name(), ProtocolType.TEST_MERGE.name(),
+        ProtocolType.TEST_TARGET.name());
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * The main function of the headless simulator.
+     *
+     * @param args  the command-line arguments
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        try {
+            run(SimOptions.parse(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(
+                "Usage: HeadlessMain [--properties=<file>] [key=value]...");
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run the simulation described by the options.
+     *
+     * @param options  the options
+     * @return the simulator at the end of the simulation
+     * @throws IOException  if the results cannot be written
+     */
+    public static Simulator run(SimOptions options) throws IOException {
+        double time = options.getDouble("time", 1800);
+        long steps = options.getLong("steps", (long) Math.ceil(time / SimConfig.TIME_STEP));
+        long seed = options.getLong("seed", Util.randSeed);
+        File output = options.getFile("output");
+        File results = options.getFile("results");
+        double progress = options.getDouble("progress", 0);
+        File metrics = options.getFile("metrics");
+        double metricsInterval = options.getDouble("metricsInterval", 60);
+        File snapshot = options.getFile("snapshot");
+        File restore = options.getFile("restore");
+        File trace = options.getFile("trace");
+        int traceSegmentSize = options.getInt("traceSegmentSize",
+                                              TraceRecorder.DEFAULT_SEGMENT_SIZE >> 20);
+        int traceSegments = options.getInt("traceSegments", 0);
+        File turnTables = options.getFile("turnTables");
+        if (output != null && results != null) {
+            throw new IllegalArgumentException(
+                "output and results cannot be given together: "
+                + "the streamed results are not kept for the output");
+        }
+        if (restore == null && options.getString("type", "aim").equals("cpm")) {
+            if (results != null) {
+                throw new IllegalArgumentException(
+                    "results is not supported by the cpm simulation");
+            }
+            if (trace != null) {
+                throw new IllegalArgumentException(
+                    "trace is not supported by the cpm simulation");
+            }
+        }
+        if (snapshot != null) {
+            if (results != null) {
+                throw new IllegalArgumentException(
+                    "snapshot and results cannot be given together: "
+                    + "a snapshot needs the results in memory");
+            }
+            if (trace != null) {
+                throw new IllegalArgumentException(
+                    "snapshot and trace cannot be given together: "
+                    + "a traced simulation cannot be saved");
+            }
+            if (restore == null) {
+                checkSnapshotSupported(options);
+            }
+        }
+        SimSetup simSetup = restore == null ? SimSetups.create(options) : null;
+        options.checkAllUsed();
+
+        Simulator sim;
+        List<String> setup;
+        if (restore == null) {
+            SimulationContext context = new SimulationContext(seed);
+            context.setTurnTablesDirectory(turnTables);
+            sim = simSetup.getSimulator(context);
+            setup = options.toArguments();
+        } else {
+            SimSnapshot saved = SimSnapshot.load(restore);
+            setup = saved.getSetup();
+            seed = saved.getSeed();
+            sim = saved.restore(SimSetups.create(
+                SimOptions.parse(setup.toArray(new String[setup.size()]))), turnTables);
+            System.out.printf("Restored the simulation at %.1f s from %s\n",
+                              sim.getSimulationTime(), restore);
+        }
+        ResultStats resultStats = null;
+        if (results != null) {
+            resultStats = new ResultStats(ResultSinks.open(results));
+            sim.setResultSink(resultStats);
+        }
+        TraceRecorder traceRecorder = null;
+        if (trace != null) {
+            traceRecorder = new TraceRecorder(trace, Util.concatenate(options.toArguments(), "\n"),
+                                              traceSegmentSize << 20, traceSegments);
+            sim.setTraceRecorder(traceRecorder);
+        }
+        MetricsRecorder metricsRecorder =
+            metrics == null ? null : new MetricsRecorder(metrics, metricsInterval);
+        double nextReportTime = progress;
+        long startTime = System.nanoTime();
+        for (long step = 0; step < steps; step++) {
+            sim.step(SimConfig.TIME_STEP);
+            if (metricsRecorder != null) {
+                metricsRecorder.afterStep(sim);
+            }
+            if (progress > 0 && sim.getSimulationTime() >= nextReportTime) {
+                System.err.printf("%.1f s: %d vehicles completed\n",
+                                  sim.getSimulationTime(),
+                                  sim.getNumCompletedVehicles());
+                nextReportTime += progress;
+            }
+        }
+        double elapsed = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.printf("Simulated %.1f s in %d steps and %.3f s: "
+                          + "%.1f steps/s, %.1f times real time\n",
+                          sim.getSimulationTime(), steps, elapsed,
+                          steps / elapsed, sim.getSimulationTime() / elapsed);
+        System.out.printf("%d vehicles completed\n", sim.getNumCompletedVehicles());
+        if (output != null) {
+            Files.write(output.toPath(),
+                        Collections.singletonList(sim.produceResultsCSV()),
+                        Charset.forName("UTF-8"));
+            System.out.println("Results written to " + output);
+        }
+        if (resultStats != null) {
+            resultStats.close();
+            System.out.printf("Throughput %.4f vehicles/s, journey time "
+                              + "%.2f s on average and %.2f s at most\n",
+                              resultStats.getThroughput(),
+                              resultStats.getAverageJourneyTime(),
+                              resultStats.getMaxJourneyTime());
+            if (resultStats.getDelayedVehicles() > 0) {
+                System.out.printf("Delay %.2f s on average and %.2f s at most\n",
+                                  resultStats.getAverageDelay(),
+                                  resultStats.getMaxDelay());
+            }
+            System.out.println("Results streamed to " + results);
+            sim.setResultSink(null);
+        }
+        if (traceRecorder != null) {
+            traceRecorder.close();
+            System.out.println("Trace recorded to " + trace);
+            sim.setTraceRecorder(null);
+        }
+        if (metricsRecorder != null) {
+            metricsRecorder.finish(sim);
+            System.out.println("Metrics written to " + metrics);
+        }
+        if (snapshot != null) {
+            SimSnapshot.take(sim, setup, seed).save(snapshot);
+            System.out.println("Snapshot written to " + snapshot);
+        }
+        return sim;
+    }
+
+    /////////////////////////////////
+    // PRIVATE STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Check that the simulation described by the options can be saved, so
+     * that it fails before it runs rather than at the end.
+     *
+     * @param options  the options
+     * @throws IllegalArgumentException  if the simulation cannot be saved
+     */
+    private static void checkSnapshotSupported(SimOptions options) {
+        String type = options.getString("type", "aim");
+        if (type.equals("cpm") || type.equals("rim-optimal")) {
+            throw new IllegalArgumentException(
+                "snapshot is not supported by the " + type + " simulation");
+        }
+        if (type.equals("merge")) {
+            String protocol = options.getString("protocol", ProtocolType.AIM_GRID.name());
+            if (!SNAPSHOT_PROTOCOLS.contains(protocol)) {
+                throw new IllegalArgumentException(
+                    "snapshot is not supported by the merge protocol " + protocol);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package aim4.cli;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The options of a headless simulation, read from properties files and
+ * <code>key=value</code> command-line arguments.  Every option that is read
+ * is remembered, so that options nobody asked for, which are usually
+ * misspelt, can be reported.
+ */
+public class SimOptions {
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /**
+     * The options.
+     */
+    private final Properties properties = new Properties();
+
+    /**
+     * The names of the options that have been read.
+     */
+    private final Set<String> used = new HashSet<String>();
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Parse command-line arguments.  An argument is either a
+     * <code>key=value</code> option or <code>--properties=&lt;file&gt;</code>,
+     * which reads the options in a properties file.  Later arguments override
+     * earlier ones.
+     *
+     * @param args  the command-line arguments
+     * @return the options
+     * @throws IOException               if a properties file cannot be read
+     * @throws IllegalArgumentException  if an argument is malformed
+     */
+    public static SimOptions parse(String[] args) throws IOException {
+        SimOptions options = new SimOptions();
+        for (String arg : args) {
+            if (arg.startsWith("--properties=")) {
+                try (Reader reader = new FileReader(arg.substring("--properties=".length()))) {
+                    options.properties.load(reader);
+                }
+            } else {
+                int i = arg.indexOf('=');
+                if (i <= 0) {
+                    throw new IllegalArgumentException("Malformed argument: " + arg);
+                }
+                options.properties.setProperty(arg.substring(0, i).trim(),
+                                               arg.substring(i + 1).trim());
+            }
+        }
+        return options;
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Set an option.
+     *
+     * @param key    the name of the option
+     * @param value  the value of the option
+     */
+    public void set(String key, String value) {
+        properties.setProperty(key, value);
+    }
+
+    /**
+     * Get a string option.
+     *
+     * @param key           the name of the option
+     * @param defaultValue  the value if the option is not set
+     * @return the value of the option
+     */
+    public String getString(String key, String defaultValue) {
+        used.add(key);
+        return properties.getProperty(key, defaultValue);
+    }
+
+    /**
+     * Get a numerical option.
+     *
+     * @param key           the name of the option
+     * @param defaultValue  the value if the option is not set
+     * @return the value of the option
+     * @throws IllegalArgumentException  if the value is not a number
+     */
+    public double getDouble(String key, double defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not a number: " + value);
+        }
+    }
+
+    /**
+     * Get an integer option.
+     *
+     * @param key           the name of the option
+     * @param defaultValue  the value if the option is not set
+     * @return the value of the option
+     * @throws IllegalArgumentException  if the value is not an integer
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not an integer: " + value);
+        }
+    }
+
+    /**
+     * Get a long integer option.
+     *
+     * @param key           the name of the option
+     * @param defaultValue  the value if the option is not set
+     * @return the value of the option
+     * @throws IllegalArgumentException  if the value is not an integer
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not an integer: " + value);
+        }
+    }
+
+    /**
+     * Get a boolean option.
+     *
+     * @param key           the name of the option
+     * @param defaultValue  the value if the option is not set
+     * @return the value of the option
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Get a file option.
+     *
+     * @param key  the name of the option
+     * @return the file; <code>null</code> if the option is not set
+     */
+    public File getFile(String key) {
+        String value = getString(key, null);
+        return value == null || value.isEmpty() ? null : new File(value);
+    }
+
+    /**
+     * Get the options as <code>key=value</code> arguments, in the order of
+     * their names, so that {@link #parse(String[])} gives them back.
+     *
+     * @return the arguments
+     */
+    public List<String> toArguments() {
+        List<String> args = new ArrayList<String>();
+        for (String key : new TreeSet<String>(properties.stringPropertyNames())) {
+            args.add(key + "=" + properties.getProperty(key));
+        }
+        return args;
+    }
+
+    /**
+     * Check that every option has been read.
+     *
+     * @throws IllegalArgumentException  if some options have not been read
+     */
+    public void checkAllUsed() {
+        Set<String> unknown = new TreeSet<String>(properties.stringPropertyNames());
+        unknown.removeAll(used);
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + unknown);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package aim4.cli;
+
+import aim4.map.cpm.CPMMapUtil.SpawnSpecType;
+import aim4.sim.setup.SimSetup;
+import aim4.sim.setup.cpm.BasicCPMSimSetup;
+import aim4.sim.setup.cpm.CPMAutoDriverSimSetup;
+import aim4.sim.setup.merge.S2SSimSetup;
+import aim4.sim.setup.merge.enums.ProtocolType;
+import aim4.sim.setup.rim.BasicSimSetup;
+import aim4.sim.setup.rim.RIMOptimalSimSetup;
+import javafx.util.Pair;
+
+import java.io.File;
+
+/**
+ * Builds simulation setups from options.  The default of every option is
+ * the default of the corresponding field of the GUI.
+ * <p>
+ * The option <code>type</code> selects the setup:
+ * <ul>
+ * <li><code>aim</code>: an AIM grid in which all vehicles are autonomous.
+ *     Options: <code>columns</code>, <code>rows</code>,
+ *     <code>laneWidth</code>, <code>speedLimit</code>,
+ *     <code>lanesPerRoad</code>, <code>medianSize</code>,
+ *     <code>distanceBetween</code>, <code>trafficLevel</code>,
+ *     <code>stopDistance</code>, <code>schedule</code>,
+ *     <code>parallelStep</code>, <code>parallelQuery</code>,
+ *     <code>footprintCache</code>, <code>congestionRouting</code>,
+ *     <code>counterProposals</code> and <code>prePlanning</code>, which
+ *     requires <code>footprintCache</code>.</li>
+ * <li><code>rim</code> and <code>rim-optimal</code>: a grid of roundabouts
+ *     with the RIM protocol, or with the optimal policy.  Options:
+ *     <code>columns</code>, <code>rows</code>,
+ *     <code>roundaboutDiameter</code>, <code>entranceExitRadius</code>,
+ *     <code>splitFactor</code>, <code>laneWidth</code>,
+ *     <code>speedLimit</code>, <code>roundaboutSpeedLimit</code>,
+ *     <code>lanesPerRoad</code>, <code>medianSize</code>,
+ *     <code>distanceBetween</code>, <code>trafficLevel</code>,
+ *     <code>stopDistance</code>, <code>schedule</code>,
+ *     <code>trafficVolume</code> and, for <code>rim</code> only,
+ *     <code>parallelStep</code>.</li>
+ * <li><code>merge</code>: a single-to-single merge.  Options:
+ *     <code>protocol</code>, <code>trafficLevel</code>,
+ *     <code>targetSpeedLimit</code>, <code>mergeSpeedLimit</code>,
+ *     <code>targetLeadIn</code>, <code>targetLeadOut</code>,
+ *     <code>mergeLeadIn</code>, <code>mergeAngle</code>,
+ *     <code>targetSchedule</code> and <code>mergeSchedule</code>.</li>
+ * <li><code>cpm</code>: a car park.  Options: <code>speedLimit</code>,
+ *     <code>trafficLevel</code>, <code>laneWidth</code>,
+ *     <code>parkingLanes</code>, <code>parkingLength</code>,
+ *     <code>accessLength</code>, <code>spawnSpecType</code> and
+ *     <code>csvFile</code>.</li>
+ * </ul>
+ */
+public class SimSetups {
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    private SimSetups() {
+        // this class cannot be instantiated
+    }
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Build the simulation setup described by the options.
+     *
+     * @param options  the options
+     * @return the simulation setup
+     * @throws IllegalArgumentException  if an option is invalid
+     */
+    public static SimSetup create(SimOptions options) {
+        String type = options.getString("type", "aim");
+        switch (type) {
+            case "aim":
+                return createAIMSetup(options);
+            case "rim":
+            case "rim-optimal":
+                return createRIMSetup(options, type.equals("rim-optimal"));
+            case "merge":
+                return createMergeSetup(options);
+            case "cpm":
+                return createCPMSetup(options);
+            default:
+                throw new IllegalArgumentException("Unknown simulation type: " + type);
+        }
+    }
+
+    /////////////////////////////////
+    // PRIVATE STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Build the setup of an AIM grid.
+     *
+     * @param options  the options
+     * @return the simulation setup
+     */
+    private static SimSetup createAIMSetup(SimOptions options) {
+        boolean isFootprintCacheEnabled = options.getBoolean("footprintCache", false);
+        boolean isPrePlanningEnabled = options.getBoolean("prePlanning", false);
+        if (isPrePlanningEnabled && !isFootprintCacheEnabled) {
+            throw new IllegalArgumentException("prePlanning requires footprintCache=true");
+        }
+        aim4.sim.setup.aim.AutoDriverOnlySimSetup simSetup =
+                new aim4.sim.setup.aim.AutoDriverOnlySimSetup(
+                        options.getInt("columns", 1),
+                        options.getInt("rows", 1),
+                        options.getDouble("laneWidth", 4),
+                        options.getDouble("speedLimit", 25.0),
+                        options.getInt("lanesPerRoad", 3),
+                        options.getDouble("medianSize", 1),
+                        options.getDouble("distanceBetween", 150),
+                        options.getDouble("trafficLevel", 0.28),
+                        options.getDouble("stopDistance", 1.0));
+        simSetup.setUniformRandomTraffic(options.getDouble("trafficLevel", 0.28));
+        simSetup.setUploadTrafficSchedule(options.getFile("schedule"));
+        simSetup.setIsParallelStepEnabled(options.getBoolean("parallelStep", false));
+        simSetup.setIsParallelQueryEnabled(options.getBoolean("parallelQuery", false));
+        simSetup.setIsFootprintCacheEnabled(isFootprintCacheEnabled);
+        simSetup.setIsCongestionRoutingEnabled(options.getBoolean("congestionRouting", false));
+        simSetup.setIsCounterProposalEnabled(options.getBoolean("counterProposals", false));
+        simSetup.setIsPrePlanningEnabled(isPrePlanningEnabled);
+        return simSetup;
+    }
+
+    /**
+     * Build the setup of a grid of roundabouts.
+     *
+     * @param options  the options
+     * @param optimal  whether the roundabouts use the optimal policy
+     * @return the simulation setup
+     */
+    private static SimSetup createRIMSetup(SimOptions options, boolean optimal) {
+        double trafficLevel = options.getDouble("trafficLevel", 0.28);
+        BasicSimSetup basicSimSetup = new BasicSimSetup(
+                options.getInt("columns", 1),
+                options.getInt("rows", 1),
+                options.getDouble("roundaboutDiameter", 30.0),
+                options.getDouble("entranceExitRadius", 20.0),
+                options.getInt("splitFactor", 4),
+                options.getDouble("laneWidth", 3.014),
+                options.getDouble("speedLimit", 15),
+                options.getDouble("roundaboutSpeedLimit", 10),
+                options.getInt("lanesPerRoad", 1),
+                options.getDouble("medianSize", 1),
+                options.getDouble("distanceBetween", 150),
+                trafficLevel,
+                options.getDouble("stopDistance", 1.0));
+        File schedule = options.getFile("schedule");
+        String trafficVolume = options.getString("trafficVolume", null);
+        if (optimal) {
+            RIMOptimalSimSetup simSetup = new RIMOptimalSimSetup(basicSimSetup);
+            if (trafficVolume != null) {
+                simSetup.setTrafficVolume(trafficVolume);
+            } else {
+                simSetup.setUniformRandomTraffic(trafficLevel);
+            }
+            simSetup.setUploadTrafficSchedule(schedule);
+            return simSetup;
+        } else {
+            aim4.sim.setup.rim.AutoDriverOnlySimSetup simSetup =
+                    new aim4.sim.setup.rim.AutoDriverOnlySimSetup(basicSimSetup);
+            if (trafficVolume != null) {
+                simSetup.setTrafficVolume(trafficVolume);
+            } else {
+                simSetup.setUniformRandomTraffic(trafficLevel);
+            }
+            simSetup.setUploadTrafficSchedule(schedule);
+            simSetup.setIsParallelStepEnabled(options.getBoolean("parallelStep", false));
+            return simSetup;
+        }
+    }
+
+    /**
+     * Build the setup of a single-to-single merge.
+     *
+     * @param options  the options
+     * @return the simulation setup
+     */
+    private static SimSetup createMergeSetup(SimOptions options) {
+        return new S2SSimSetup(
+                ProtocolType.valueOf(options.getString("protocol", ProtocolType.AIM_GRID.name())),
+                options.getDouble("trafficLevel", S2SSimSetup.DEFAULT_TRAFFIC_LEVEL),
+                options.getDouble("targetSpeedLimit", S2SSimSetup.DEFAULT_TARGET_LANE_SPEED_LIMIT),
+                options.getDouble("mergeSpeedLimit", S2SSimSetup.DEFAULT_MERGING_LANE_SPEED_LIMIT),
+                options.getDouble("targetLeadIn", S2SSimSetup.DEFAULT_TARGET_LEAD_IN_DISTANCE),
+                options.getDouble("targetLeadOut", S2SSimSetup.DEFAULT_TARGET_LEAD_OUT_DISTANCE),
+                options.getDouble("mergeLeadIn", S2SSimSetup.DEFAULT_MERGE_LEAD_IN_DISTANCE),
+                options.getDouble("mergeAngle", S2SSimSetup.DEFAULT_MERGING_ANGLE),
+                options.getFile("targetSchedule"),
+                options.getFile("mergeSchedule"));
+    }
+
+    /**
+     * Build the setup of a car park.
+     *
+     * @param options  the options
+     * @return the simulation setup
+     */
+    private static SimSetup createCPMSetup(SimOptions options) {
+        String csvFile = options.getString("csvFile", null);
+        return new CPMAutoDriverSimSetup(new BasicCPMSimSetup(
+                options.getDouble("speedLimit", 5.0),
+                options.getDouble("trafficLevel", 0.28),
+                options.getDouble("laneWidth", 2.0),
+                options.getInt("parkingLanes", 1),
+                options.getDouble("parkingLength", 50.0),
+                options.getDouble("accessLength", 1.0),
+                SpawnSpecType.valueOf(options.getString("spawnSpecType", "SINGLE")),
+                new Pair<Boolean, String>(csvFile != null, csvFile == null ? "" : csvFile)));
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * This package contains the command-line driver, which runs simulations
+ * without the GUI.
+ */
+package aim4.cli;
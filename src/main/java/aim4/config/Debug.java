@@ -31,10 +31,9 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package aim4.config;
 
 import aim4.gui.ViewerDebugView;
-import aim4.map.BasicAIMIntersectionMap;
-import aim4.map.BasicRIMIntersectionMap;
 
 import java.awt.*;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -45,16 +44,6 @@ import java.util.Map;
  */
 public class Debug {
 
-  /**
-   * A global variable referring to the global aim map.
-   */
-  public static BasicAIMIntersectionMap currentAimMap;
-
-  /**
-   * A global variable referring to the global rim map.
-   */
-  public static BasicRIMIntersectionMap currentRimMap;
-
   /**
    * A global variable referring to the GUI object.
    */
@@ -341,10 +330,11 @@ public class Debug {
   /////////////////////////////////
 
   /**
-   * A mapping from vehicle's VINs to the color of the vehicles.
+   * A mapping from vehicle's VINs to the color of the vehicles.  It is
+   * synchronized because intersection managers may act concurrently.
    */
   private static Map<Integer,Color> vinToVehicleColor =
-    new HashMap<Integer,Color>();
+    Collections.synchronizedMap(new HashMap<Integer,Color>());
 
   /**
    * Get the color of a vehicle.
@@ -31,13 +31,19 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package aim4.driver;
 
 import java.awt.Color;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
 import aim4.config.Debug;
 import aim4.config.DebugPoint;
+import aim4.map.BasicMap;
 import aim4.map.lane.Lane;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.GeomMath;
 import aim4.vehicle.AutoVehicleDriverModel;
 import aim4.vehicle.VehicleDriverModel;
@@ -161,5 +167,59 @@ public abstract class BasicDriver implements Driver {
     currentlyOccupiedLanes.add(lane);
   }
 
+  // snapshots
+
+  /**
+   * Save the state of the driver.  The lanes are saved as references (see
+   * {@link References}).
+   *
+   * @param map  the map
+   * @return the state of the driver
+   * @throws NotSerializableException  if the driver, or a part of it, does
+   *                                   not support snapshots
+   */
+  public StateRecord saveState(BasicMap map) throws NotSerializableException {
+    StateRecord state = new StateRecord(BasicDriver.class.getName(), 1);
+    state.putString("currentLane", References.refOf(map, currentLane));
+    // empty if no lane has been set
+    String[] occupiedLanes = new String[currentlyOccupiedLanes == null ?
+                                        0 : currentlyOccupiedLanes.size()];
+    if (currentlyOccupiedLanes != null) {
+      int i = 0;
+      for(Lane lane : currentlyOccupiedLanes) {
+        occupiedLanes[i++] = References.refOf(map, lane);
+      }
+    }
+    state.putStrings("currentlyOccupiedLanes", occupiedLanes);
+    return state;
+  }
+
+  /**
+   * Restore the state of the driver.
+   *
+   * @param state  the state saved by {@link #saveState(BasicMap)}
+   * @param map    the map
+   * @throws IOException  if the state is not the state of this driver, or
+   *                      has missing or unknown fields
+   */
+  public void restoreState(StateRecord state, BasicMap map)
+      throws IOException {
+    state.check(BasicDriver.class.getName(), 1);
+    currentLane = References.getLane(map, state.getString("currentLane"));
+    String[] occupiedLanes = state.getStrings("currentlyOccupiedLanes");
+    if (occupiedLanes.length == 0) {
+      currentlyOccupiedLanes = null;
+    } else {
+      currentlyOccupiedLanes = new HashSet<Lane>(1);
+      for(String laneRef : occupiedLanes) {
+        Lane lane = References.getLane(map, laneRef);
+        if (lane == null) {
+          throw new StreamCorruptedException("Malformed occupied lanes");
+        }
+        currentlyOccupiedLanes.add(lane);
+      }
+    }
+    state.checkAllRead();
+  }
 
 }
@@ -30,8 +30,8 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.driver;
 
-import aim4.config.Debug;
 import aim4.map.rim.RimIntersectionMap;
+import aim4.sim.SimulationContext;
 import aim4.vehicle.VehicleDriverModel;
 
 /**
@@ -102,7 +102,7 @@ public class DriverUtil {
     // TODO: should remove this function
     // Whichever's smaller - speed limit or max velocity of the vehicle
     return Math.min(vehicle.getSpec().getMaxVelocity(),
-            ((RimIntersectionMap) Debug.currentRimMap).getMaximumRoundaboutSpeedLimit());
+            ((RimIntersectionMap) SimulationContext.current().getRimMap()).getMaximumRoundaboutSpeedLimit());
   }
 
 
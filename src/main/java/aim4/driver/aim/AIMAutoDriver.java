@@ -37,10 +37,17 @@ import aim4.driver.aim.coordinator.NoIntersectionCoordinator;
 import aim4.driver.aim.coordinator.V2ICoordinator;
 import aim4.im.aim.IntersectionManager;
 import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.BasicMap;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.AutoVehicleDriverModel;
 import aim4.vehicle.aim.AIMAutoVehicleDriverModel;
 
+import java.awt.Shape;
 import java.awt.geom.Area;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
 
 /**
  * An agent that drives a {@link AutoVehicleDriverModel} while coordinating with
@@ -249,6 +256,61 @@ public class AIMAutoDriver extends AIMDriver
     return memoInCurrentIntersection;
   }
 
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The current intersection manager is saved by its ID, and the
+   * coordinator by its own state.
+   */
+  @Override
+  public StateRecord saveState(BasicMap map) throws NotSerializableException {
+    StateRecord state = new StateRecord(AIMAutoDriver.class.getName(), 1);
+    state.putRecord("aimDriver", super.saveState(map));
+    state.putInt("currentIM", currentIM == null ? -1 : currentIM.getId());
+    if (coordinator == null) {
+      state.putRecord("coordinator", null);
+    } else if (coordinator instanceof V2ICoordinator) {
+      state.putRecord("coordinator",
+          ((V2ICoordinator) coordinator).saveState());
+    } else if (coordinator instanceof NoIntersectionCoordinator) {
+      state.putRecord("coordinator",
+          ((NoIntersectionCoordinator) coordinator).saveState());
+    } else {
+      throw new NotSerializableException(coordinator.getClass().getName());
+    }
+    return state;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void restoreState(StateRecord state, BasicMap map) throws IOException {
+    state.check(AIMAutoDriver.class.getName(), 1);
+    super.restoreState(state.getRecord("aimDriver"), map);
+    currentIM = References.get(basicAIMIntersectionMap.getImRegistry(),
+        state.getInt("currentIM"), "intersection manager");
+    StateRecord coordinatorState = state.getRecordOrNull("coordinator");
+    if (coordinatorState == null) {
+      coordinator = null;
+    } else if (coordinatorState.getType().equals(
+        V2ICoordinator.class.getName())) {
+      coordinator = V2ICoordinator.fromState(coordinatorState, vehicle,
+          this, basicAIMIntersectionMap);
+    } else if (coordinatorState.getType().equals(
+        NoIntersectionCoordinator.class.getName())) {
+      coordinator = NoIntersectionCoordinator.fromState(coordinatorState,
+          vehicle, this);
+    } else {
+      throw new InvalidClassException(coordinatorState.getType(),
+          "not a coordinator");
+    }
+    clearMemoizationCaches();
+    state.checkAllRead();
+  }
+
 
   /////////////////////////////////
   // PRIVATE METHODS
@@ -269,10 +331,15 @@ public class AIMAutoDriver extends AIMDriver
     if(area.contains(v.gaugePosition()) || area.contains(v.gaugePointAtRear())){
       return true;
     } else {
+      Shape vehicleShape = v.gaugeShape();
+      // Shapes whose bounding boxes do not overlap cannot intersect
+      if (!vehicleShape.getBounds2D().intersects(area.getBounds2D())) {
+        return false;
+      }
       // We actually have to check to see if the Area of the
       // Vehicle and the Area of the IntersectionManager have a nonempty
       // intersection
-      Area vehicleArea = new Area(v.gaugeShape());
+      Area vehicleArea = new Area(vehicleShape);
       // Important that it is in this order, as it is destructive to the caller
       vehicleArea.intersect(area);
       return !vehicleArea.isEmpty();
@@ -280,9 +347,10 @@ public class AIMAutoDriver extends AIMDriver
   }
 
   /**
-   * Clear any caches we are using to memoize methods
+   * Clear any caches we are using to memoize methods, so that they are
+   * computed again from the current position of the vehicle
    */
-  private void clearMemoizationCaches() {
+  public void clearMemoizationCaches() {
     memoNextIntersectionManager = null;
     memoInCurrentIntersection = null;
     memoDistanceToNextIntersection = null;
@@ -2,8 +2,16 @@ package aim4.driver.aim;
 
 import aim4.driver.BasicDriver;
 import aim4.im.aim.IntersectionManager;
+import aim4.map.BasicMap;
 import aim4.map.Road;
+import aim4.map.SpawnPoint;
 import aim4.map.aim.AIMSpawnPoint;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 
 /**
  * Created by Callum on 15/11/2016.
@@ -69,6 +77,41 @@ public abstract class AIMDriver extends BasicDriver implements AIMDriverSimModel
         this.destination = destination;
     }
 
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The spawn point and the destination are saved by their indices in the
+     * map.
+     */
+    @Override
+    public StateRecord saveState(BasicMap map) throws NotSerializableException {
+        StateRecord state = new StateRecord(AIMDriver.class.getName(), 1);
+        state.putRecord("driver", super.saveState(map));
+        state.putInt("spawnPoint", References.indexOf(map.getSpawnPoints(), spawnPoint));
+        state.putInt("destination", References.indexOf(map.getRoads(), destination));
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state, BasicMap map) throws IOException {
+        state.check(AIMDriver.class.getName(), 1);
+        super.restoreState(state.getRecord("driver"), map);
+        SpawnPoint sp = References.get(map.getSpawnPoints(),
+                state.getInt("spawnPoint"), "spawn point");
+        if (sp != null && !(sp instanceof AIMSpawnPoint)) {
+            throw new StreamCorruptedException("Unknown spawn point "
+                    + state.getInt("spawnPoint"));
+        }
+        spawnPoint = (AIMSpawnPoint) sp;
+        destination = References.get(map.getRoads(), state.getInt("destination"), "road");
+        state.checkAllRead();
+    }
+
     /////////////////////////////////
     // PROTECTED METHODS
     /////////////////////////////////
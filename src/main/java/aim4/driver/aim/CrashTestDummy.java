@@ -30,14 +30,16 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.driver.aim;
 
-import aim4.config.Debug;
 import aim4.driver.BasicDriver;
 import aim4.driver.DriverUtil;
 import aim4.driver.aim.pilot.V2IPilot;
+import aim4.map.Road;
 import aim4.map.lane.Lane;
+import aim4.sim.SimulationContext;
 import aim4.vehicle.VehicleDriverModel;
 
 import java.awt.geom.Point2D;
+import java.util.Map;
 
 /**
  * A driver agent that only steers and changes lanes when appropriate.
@@ -54,6 +56,12 @@ public class CrashTestDummy extends BasicDriver {
   /** The Lane in which the vehicle should exit the intersection. */
   private Lane departureLane;
 
+  /**
+   * A mapping from lanes to the roads they belong to; null if the roads are
+   * looked up in the current map.
+   */
+  private Map<Lane,Road> laneToRoad;
+
 
   /////////////////////////////////
   // CLASS CONSTRUCTORS
@@ -71,9 +79,28 @@ public class CrashTestDummy extends BasicDriver {
    */
   public CrashTestDummy(VehicleDriverModel vehicle,
                         Lane arrivalLane, Lane departureLane) {
+    this(vehicle, arrivalLane, departureLane, null);
+  }
+
+  /**
+   * Construct a new CrashTestDummy to pilot the simulated vehicle across
+   * an intersection, looking up the roads of the lanes in the given mapping
+   * instead of the current map.
+   *
+   * @param vehicle       the simulated vehicle to pilot
+   * @param arrivalLane   the Lane in which the vehicle should enter the
+   *                      intersection
+   * @param departureLane the Lane in which the vehicle should depart the
+   *                      intersection
+   * @param laneToRoad    a mapping from lanes to the roads they belong to
+   */
+  public CrashTestDummy(VehicleDriverModel vehicle,
+                        Lane arrivalLane, Lane departureLane,
+                        Map<Lane,Road> laneToRoad) {
     this.vehicle = vehicle;
     setCurrentLane(arrivalLane);
     this.departureLane = departureLane;
+    this.laneToRoad = laneToRoad;
   }
 
   /////////////////////////////////
@@ -90,7 +117,7 @@ public class CrashTestDummy extends BasicDriver {
     // If we're not already in the departure lane
     if(getCurrentLane() != departureLane) {
       // If we're changing to a different Road
-      if(Debug.currentAimMap.getRoad(getCurrentLane()) != Debug.currentAimMap.getRoad(departureLane)) {
+      if(getRoad(getCurrentLane()) != getRoad(departureLane)) {
         // If we're close enough...
         if(departureLane.nearestDistance(getVehicle().gaugePosition()) <
            calculateTraversingLaneChangeDistance()) {
@@ -119,6 +146,20 @@ public class CrashTestDummy extends BasicDriver {
   // actually we don't need this because we will eventually remove this
   // class
 
+  /**
+   * Get the road of a lane.
+   *
+   * @param lane  the lane
+   * @return the road to which the lane belongs
+   */
+  private Road getRoad(Lane lane) {
+    if (laneToRoad != null) {
+      return laneToRoad.get(lane);
+    } else {
+      return SimulationContext.current().getAimMap().getRoad(lane);
+    }
+  }
+
   /**
    * Turn the wheels to follow the current lane, using the
    * <code>DEFAULT_LEAD_TIME</code>. This involves first projecting
@@ -33,8 +33,11 @@ package aim4.driver.aim.coordinator;
 import aim4.driver.Coordinator;
 import aim4.driver.aim.AIMAutoDriver;
 import aim4.driver.aim.pilot.V2IPilot;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.aim.AIMAutoVehicleDriverModel;
 
+import java.io.IOException;
+
 /**
  * The coordinator when there is no intersection.
  */
@@ -89,4 +92,33 @@ public class NoIntersectionCoordinator implements Coordinator {
     return false;
   }
 
+  // snapshots
+
+  /**
+   * Save the state of the coordinator.  The coordinator has no state of its
+   * own; the record only tells its type.
+   *
+   * @return the state of the coordinator
+   */
+  public StateRecord saveState() {
+    return new StateRecord(NoIntersectionCoordinator.class.getName(), 1);
+  }
+
+  /**
+   * Restore a coordinator saved by {@link #saveState()}.
+   *
+   * @param state    the state of the coordinator
+   * @param vehicle  the Vehicle to coordinate
+   * @param driver   the driver
+   * @return the coordinator
+   * @throws IOException  if the state is not the state of a coordinator
+   */
+  public static NoIntersectionCoordinator fromState(
+      StateRecord state, AIMAutoVehicleDriverModel vehicle,
+      AIMAutoDriver driver) throws IOException {
+    state.check(NoIntersectionCoordinator.class.getName(), 1);
+    state.checkAllRead();
+    return new NoIntersectionCoordinator(vehicle, driver);
+  }
+
 }
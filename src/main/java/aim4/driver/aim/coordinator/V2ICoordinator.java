@@ -38,6 +38,8 @@ import aim4.driver.DriverUtil;
 import aim4.driver.aim.AIMAutoDriver;
 import aim4.driver.aim.AutoDriverCoordinatorView;
 import aim4.driver.aim.navigator.BasicNavigator;
+import aim4.driver.aim.navigator.CongestionAwareNavigator;
+import aim4.driver.aim.navigator.CongestionRouter;
 import aim4.driver.aim.navigator.Navigator;
 import aim4.driver.aim.pilot.V2IPilot;
 import aim4.im.aim.IntersectionManager;
@@ -52,14 +54,22 @@ import aim4.msg.aim.v2i.Away;
 import aim4.msg.aim.v2i.Cancel;
 import aim4.msg.aim.v2i.Done;
 import aim4.msg.aim.v2i.Request;
+import aim4.sim.SimulationContext;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.Util;
 import aim4.vehicle.AccelSchedule;
 import aim4.vehicle.AutoVehicleDriverModel;
 import aim4.vehicle.VehicleUtil;
 import aim4.vehicle.aim.AIMAutoVehicleDriverModel;
 
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 
@@ -106,6 +116,20 @@ public class V2ICoordinator implements Coordinator {
    */
   private static final double MINIMUM_FUTURE_RESERVATION_TIME = 0.1;
 
+  /**
+   * The amount of time, in seconds, before the earliest arrival time sent by
+   * the IM in a reject message at which the vehicle sends its next request.
+   * {@value} seconds.
+   */
+  private static final double EARLIEST_ARRIVAL_LEAD_TIME = 1.0;
+
+  /**
+   * The number of bisection steps used to find the highest arrival velocity
+   * with which the vehicle can arrive at the earliest arrival time sent by
+   * the IM.  Set at {@value}.
+   */
+  private static final int ARRIVAL_VELOCITY_SEARCH_STEPS = 8;
+
   /**
    * The maximum number of Lanes from each Road that the Coordinator will
    * include in its request message when it approaches an intersection.
@@ -485,6 +509,44 @@ public class V2ICoordinator implements Coordinator {
       return isLaneChangeSuccessful;
     }
 
+    // snapshots
+
+    /**
+     * Save the state of the controller.
+     *
+     * @return the state of the controller
+     */
+    public StateRecord saveState() {
+      StateRecord s =
+        new StateRecord(LaneChangeController.class.getName(), 1);
+      s.putString("state", state == null ? null : state.name());
+      s.putString("turnDirection",
+                  turnDirection == null ? null : turnDirection.name());
+      s.putBoolean("hasBegun", hasBegun);
+      s.putBoolean("shouldChangeLane", shouldChangeLane);
+      s.putDouble("initiateTimeLimit", initiateTimeLimit);
+      s.putBoolean("isLaneChangeSuccessful", isLaneChangeSuccessful);
+      return s;
+    }
+
+    /**
+     * Restore the state of the controller.
+     *
+     * @param s  the state saved by {@link #saveState()}
+     * @throws IOException  if the state is not the state of a controller
+     */
+    public void restoreState(StateRecord s) throws IOException {
+      s.check(LaneChangeController.class.getName(), 1);
+      state = References.valueOf(State.class, s.getString("state"));
+      turnDirection =
+        References.valueOf(TurnDirection.class, s.getString("turnDirection"));
+      hasBegun = s.getBoolean("hasBegun");
+      shouldChangeLane = s.getBoolean("shouldChangeLane");
+      initiateTimeLimit = s.getDouble("initiateTimeLimit");
+      isLaneChangeSuccessful = s.getBoolean("isLaneChangeSuccessful");
+      s.checkAllRead();
+    }
+
 
     /////////////////////////////////
     // PRIVATE FIELDS
@@ -501,7 +563,7 @@ public class V2ICoordinator implements Coordinator {
     private TurnDirection getTurnDirection(Navigator navigator) {
       IntersectionManager im = driver.nextIntersectionManager();
       Lane currentLane = driver.getCurrentLane();
-      Road currentRoad = Debug.currentAimMap.getRoad(currentLane);
+      Road currentRoad = SimulationContext.current().getAimMap().getRoad(currentLane);
       Road departureRoad =
         navigator.navigate(currentRoad, im, driver.getDestination());
       Lane departureLane = departureRoad.getIndexLane();
@@ -704,14 +766,21 @@ public class V2ICoordinator implements Coordinator {
     // CONSTRUCTORS
     /////////////////////////////////
 
+    /**
+     * Create an empty reservation parameter object; used by
+     * {@link #fromState(StateRecord, BasicAIMIntersectionMap)}.
+     */
+    private ReservationParameter() {
+    }
+
     /**
      * Create a reservation parameter object
      */
     public ReservationParameter(Confirm msg) {
       this.arrivalLane =
-        Debug.currentAimMap.getLaneRegistry().get(msg.getArrivalLaneID());
+        SimulationContext.current().getAimMap().getLaneRegistry().get(msg.getArrivalLaneID());
       this.departureLane =
-        Debug.currentAimMap.getLaneRegistry().get(msg.getDepartureLaneID());
+        SimulationContext.current().getAimMap().getLaneRegistry().get(msg.getDepartureLaneID());
 //      this.arrivalLane = LaneRegistry.getLaneFromId(msg.getArrivalLaneID());
 //      this.departureLane = LaneRegistry.getLaneFromId(msg.getDepartureLaneID());
       this.arrivalTime = msg.getArrivalTime();
@@ -823,6 +892,78 @@ public class V2ICoordinator implements Coordinator {
       return accelerationProfile;
     }
 
+    // snapshots
+
+    /**
+     * Save the state of the reservation parameter.  The acceleration profile
+     * is saved as it is now, after the pilot consumed a part of it.
+     *
+     * @return the state of the reservation parameter
+     */
+    public StateRecord toState() {
+      StateRecord state =
+        new StateRecord(ReservationParameter.class.getName(), 1);
+      state.putInt("arrivalLane", References.idOf(arrivalLane));
+      state.putInt("departureLane", References.idOf(departureLane));
+      state.putDouble("arrivalTime", arrivalTime);
+      state.putDouble("earlyError", earlyError);
+      state.putDouble("lateError", lateError);
+      state.putDouble("arrivalVelocity", arrivalVelocity);
+      state.putDouble("aczDistance", aczDistance);
+      // the acceleration profile as pairs of accelerations and durations
+      state.putBoolean("hasAccelerationProfile", accelerationProfile != null);
+      double[] pairs = new double[accelerationProfile == null ?
+                                  0 : 2 * accelerationProfile.size()];
+      if (accelerationProfile != null) {
+        int i = 0;
+        for(double[] pair : accelerationProfile) {
+          pairs[i++] = pair[0];
+          pairs[i++] = pair[1];
+        }
+      }
+      state.putDoubles("accelerationProfile", pairs);
+      return state;
+    }
+
+    /**
+     * Restore a reservation parameter saved by {@link #toState()}.
+     *
+     * @param state  the state of the reservation parameter
+     * @param map    the map
+     * @return the reservation parameter
+     * @throws IOException  if the state is not the state of a reservation
+     *                      parameter
+     */
+    public static ReservationParameter fromState(StateRecord state,
+                                                 BasicAIMIntersectionMap map)
+        throws IOException {
+      state.check(ReservationParameter.class.getName(), 1);
+      ReservationParameter rp = new ReservationParameter();
+      rp.arrivalLane = References.get(map.getLaneRegistry(),
+                                      state.getInt("arrivalLane"), "lane");
+      rp.departureLane = References.get(map.getLaneRegistry(),
+                                        state.getInt("departureLane"), "lane");
+      rp.arrivalTime = state.getDouble("arrivalTime");
+      rp.earlyError = state.getDouble("earlyError");
+      rp.lateError = state.getDouble("lateError");
+      rp.arrivalVelocity = state.getDouble("arrivalVelocity");
+      rp.aczDistance = state.getDouble("aczDistance");
+      boolean hasAccelerationProfile =
+        state.getBoolean("hasAccelerationProfile");
+      double[] pairs = state.getDoubles("accelerationProfile");
+      if (pairs.length % 2 != 0 || (!hasAccelerationProfile && pairs.length > 0)) {
+        throw new StreamCorruptedException("Malformed acceleration profile");
+      }
+      if (hasAccelerationProfile) {
+        rp.accelerationProfile = new LinkedList<double[]>();
+        for(int i = 0; i < pairs.length; i += 2) {
+          rp.accelerationProfile.add(new double[] { pairs[i], pairs[i + 1] });
+        }
+      }
+      state.checkAllRead();
+      return rp;
+    }
+
   }
 
   /////////////////////////////////
@@ -889,6 +1030,13 @@ public class V2ICoordinator implements Coordinator {
    */
   private double nextAllowedSendingRequestTime;
 
+  /**
+   * The earliest arrival time at which the IntersectionManager found the
+   * intersection clear when it rejected the last request; NaN if it did not
+   * tell.  The next request also proposes to arrive at this time.
+   */
+  private double earliestArrivalTime = Double.NaN;
+
   /**
    * The next time at which the vehicle is allowed to consider lane changing.
    */
@@ -916,16 +1064,7 @@ public class V2ICoordinator implements Coordinator {
   public V2ICoordinator(AIMAutoVehicleDriverModel vehicle,
                         AIMAutoDriver driver,
                         BasicAIMIntersectionMap basicAIMIntersectionMap) {
-    this.vehicle = vehicle;
-    this.driver = driver;
-    this.pilot = new V2IPilot(vehicle, driver);
-    this.navigator = new BasicNavigator(vehicle.getSpec(), basicAIMIntersectionMap);
-
-    isDebugging = Debug.isTargetVIN(vehicle.getVIN());
-
-    lcController = new LaneChangeController(vehicle, driver, pilot, navigator);
-
-    initStateHandlers();
+    this(vehicle, driver, createNavigator(vehicle, basicAIMIntersectionMap));
 
     assert (driver.nextIntersectionManager() != null);
 
@@ -945,6 +1084,49 @@ public class V2ICoordinator implements Coordinator {
     setState(State.V2I_PLANNING);
   }
 
+  /**
+   * Create a coordinator with its agents but without its initial state.
+   *
+   * @param vehicle    the Vehicle to coordinate
+   * @param driver     the driver
+   * @param navigator  the navigator
+   */
+  private V2ICoordinator(AIMAutoVehicleDriverModel vehicle,
+                         AIMAutoDriver driver,
+                         Navigator navigator) {
+    this.vehicle = vehicle;
+    this.driver = driver;
+    this.pilot = new V2IPilot(vehicle, driver);
+    this.navigator = navigator;
+
+    isDebugging = Debug.isTargetVIN(vehicle.getVIN());
+
+    lcController = new LaneChangeController(vehicle, driver, pilot, navigator);
+
+    initStateHandlers();
+  }
+
+  /**
+   * Create the navigator of a vehicle; the navigator takes congestion into
+   * account if the map has a congestion router.
+   *
+   * @param vehicle                  the vehicle
+   * @param basicAIMIntersectionMap  the map
+   * @return the navigator
+   */
+  private static Navigator createNavigator(
+      AIMAutoVehicleDriverModel vehicle,
+      BasicAIMIntersectionMap basicAIMIntersectionMap) {
+    CongestionRouter router = basicAIMIntersectionMap.getCongestionRouter();
+    if (router != null) {
+      return new CongestionAwareNavigator(vehicle.getSpec(),
+                                          basicAIMIntersectionMap,
+                                          router);
+    } else {
+      return new BasicNavigator(vehicle.getSpec(), basicAIMIntersectionMap);
+    }
+  }
+
 
   /////////////////////////////////
   // PUBLIC METHODS
@@ -1048,6 +1230,101 @@ public class V2ICoordinator implements Coordinator {
     }
   }
 
+  /**
+   * Get the proposals of the request the vehicle is about to send, if it is
+   * going to prepare a request the next time it acts, without changing the
+   * state of the vehicle or of the coordinator.  The proposals are the ones
+   * the vehicle would send if it acted now.
+   *
+   * @return the proposals; null if the vehicle is not going to prepare a
+   *         request or has no proposal
+   */
+  public List<Request.Proposal> previewProposals() {
+    if ((state != State.V2I_PLANNING
+         && state != State.V2I_DEFAULT_DRIVING_BEHAVIOR)
+        || vehicle.gaugeTime() < nextAllowedSendingRequestTime) {
+      return null;
+    }
+    if (SimConfig.MUST_STOP_BEFORE_INTERSECTION &&
+        driver.distanceToNextIntersection() >
+        V2IPilot.DEFAULT_STOP_DISTANCE_BEFORE_INTERSECTION +
+        SimConfig.ADDITIONAL_STOP_DIST_BEFORE_INTERSECTION) {
+      return null;
+    }
+    return ((V2IPreparingReservationStateHandler)
+            stateHandlers.get(State.V2I_PREPARING_RESERVATION))
+           .previewProposals();
+  }
+
+  // snapshots
+
+  /**
+   * Save the state of the coordinator.
+   *
+   * @return the state of the coordinator
+   * @throws NotSerializableException  if the navigator does not support
+   *                                   snapshots
+   */
+  public StateRecord saveState() throws NotSerializableException {
+    StateRecord s = new StateRecord(V2ICoordinator.class.getName(), 1);
+    if (!(navigator instanceof Restorable)) {
+      throw new NotSerializableException(navigator.getClass().getName());
+    }
+    s.putRecord("navigator", ((Restorable) navigator).saveState());
+    s.putRecord("lcController", lcController.saveState());
+    s.putString("state", state.name());
+    s.putDouble("lastStateChangeTime", lastStateChangeTime);
+    s.putRecord("rparameter",
+                rparameter == null ? null : rparameter.toState());
+    s.putInt("latestReservationNumber", latestReservationNumber);
+    s.putInt("nextRequestId", nextRequestId);
+    s.putDouble("nextAllowedSendingRequestTime",
+                nextAllowedSendingRequestTime);
+    s.putDouble("earliestArrivalTime", earliestArrivalTime);
+    s.putDouble("nextAllowedConsideringLaneChangeTime",
+                nextAllowedConsideringLaneChangeTime);
+    return s;
+  }
+
+  /**
+   * Restore a coordinator saved by {@link #saveState()}.
+   *
+   * @param s                        the state of the coordinator
+   * @param vehicle                  the Vehicle to coordinate
+   * @param driver                   the driver
+   * @param basicAIMIntersectionMap  the map
+   * @return the coordinator
+   * @throws IOException  if the state is not the state of a coordinator
+   */
+  public static V2ICoordinator fromState(
+      StateRecord s, AIMAutoVehicleDriverModel vehicle, AIMAutoDriver driver,
+      BasicAIMIntersectionMap basicAIMIntersectionMap) throws IOException {
+    s.check(V2ICoordinator.class.getName(), 1);
+    V2ICoordinator coordinator = new V2ICoordinator(
+      vehicle, driver, createNavigator(vehicle, basicAIMIntersectionMap));
+    ((Restorable) coordinator.navigator).restoreState(
+      s.getRecord("navigator"));
+    coordinator.lcController.restoreState(s.getRecord("lcController"));
+    coordinator.state = References.valueOf(State.class, s.getString("state"));
+    if (coordinator.state == null) {
+      throw new StreamCorruptedException("Missing field " + s.getType()
+                                         + ".state");
+    }
+    coordinator.lastStateChangeTime = s.getDouble("lastStateChangeTime");
+    StateRecord rparameterState = s.getRecordOrNull("rparameter");
+    coordinator.rparameter = rparameterState == null ? null :
+      ReservationParameter.fromState(rparameterState, basicAIMIntersectionMap);
+    coordinator.latestReservationNumber = s.getInt("latestReservationNumber");
+    coordinator.nextRequestId = s.getInt("nextRequestId");
+    coordinator.nextAllowedSendingRequestTime =
+      s.getDouble("nextAllowedSendingRequestTime");
+    coordinator.earliestArrivalTime = s.getDouble("earliestArrivalTime");
+    coordinator.nextAllowedConsideringLaneChangeTime =
+      s.getDouble("nextAllowedConsideringLaneChangeTime");
+    s.checkAllRead();
+    return coordinator;
+  }
+
 
   // debug
 
@@ -1243,6 +1520,13 @@ public class V2ICoordinator implements Coordinator {
     nextAllowedSendingRequestTime =
       Math.max(msg.getNextAllowedCommunication(),
                vehicle.gaugeTime() + SENDING_REQUEST_DELAY);
+    earliestArrivalTime = msg.getEarliestArrivalTime();
+    if (!Double.isNaN(earliestArrivalTime)) {
+      // no point in asking again long before the intersection is clear
+      nextAllowedSendingRequestTime =
+        Math.max(nextAllowedSendingRequestTime,
+                 earliestArrivalTime - EARLIEST_ARRIVAL_LEAD_TIME);
+    }
     vehicle.removeAccelSchedule();
     setState(State.V2I_PLANNING);
   }
@@ -1384,10 +1668,15 @@ public class V2ICoordinator implements Coordinator {
      * velocity.
      *
      * @param maxArrivalVelocity   the maximum desired arrival velocity
+     * @param estimateToStop       the acceleration schedule the vehicle
+     *                             follows until the reply arrives; null if
+     *                             there is none
      *
      * @return the estimated arrival parameters at the intersection
      */
-    private ArrivalEstimationResult estimateArrival(double maxArrivalVelocity) {
+    private ArrivalEstimationResult estimateArrival(
+                                              double maxArrivalVelocity,
+                                              AccelSchedule estimateToStop) {
       // The basic parameters
       double time1 = vehicle.gaugeTime();
       double v1 = vehicle.gaugeVelocity();
@@ -1401,7 +1690,6 @@ public class V2ICoordinator implements Coordinator {
       // If the im reply time heuristic is used.
       if (Debug.IS_EXPECTED_IM_REPLY_TIME_CONSIDERED) {
         // If an acceleration schedule exists,
-        AccelSchedule estimateToStop = vehicle.getAccelSchedule();
         if (estimateToStop != null) {
           // update the initial time, velocity, and distance to
           // take the expected reply time into account
@@ -1491,15 +1779,95 @@ public class V2ICoordinator implements Coordinator {
       return result;
     }
 
+    /**
+     * Find the highest arrival velocity, up to a maximum, with which the
+     * vehicle can arrive at the intersection at a given time.  The check is
+     * the one done when the confirm message arrives, so the vehicle is
+     * assumed to keep following its acceleration schedule until then.
+     *
+     * @param arrivalTime         the arrival time
+     * @param maxArrivalVelocity  the maximum arrival velocity
+     * @param accelSchedule       the acceleration schedule of the vehicle;
+     *                            null if there is none
+     *
+     * @return the highest feasible arrival velocity; NaN if the vehicle
+     *         cannot arrive at the intersection at the arrival time
+     */
+    private double findArrivalVelocity(double arrivalTime,
+                                       double maxArrivalVelocity,
+                                       AccelSchedule accelSchedule) {
+      double time1 = vehicle.gaugeTime();
+      double v1 = vehicle.gaugeVelocity();
+      double dTotal = driver.distanceToNextIntersection();
+      if (accelSchedule != null) {
+        double vd[] =
+          accelSchedule.calcFinalDistanceAndVelocity(time1, v1, time1
+            + MAX_EXPECTED_IM_REPLY_TIME);
+        if (vd[0] <= dTotal) {
+          time1 += MAX_EXPECTED_IM_REPLY_TIME;
+          v1 = Util.isDoubleZero(vd[1]) ? 0.0 : vd[1];
+          dTotal -= vd[0];
+        }
+      }
+      if (canArrive(time1, v1, dTotal, arrivalTime, maxArrivalVelocity)) {
+        return maxArrivalVelocity;
+      }
+      if (!canArrive(time1, v1, dTotal, arrivalTime, 0.0)) {
+        return Double.NaN;
+      }
+      double lo = 0.0;
+      double hi = maxArrivalVelocity;
+      for(int i = 0; i < ARRIVAL_VELOCITY_SEARCH_STEPS; i++) {
+        double v = (lo + hi) / 2.0;
+        if (canArrive(time1, v1, dTotal, arrivalTime, v)) {
+          lo = v;
+        } else {
+          hi = v;
+        }
+      }
+      return lo;
+    }
+
+    /**
+     * Check whether the vehicle can arrive at the intersection at a given
+     * time and velocity.
+     *
+     * @param time1            the initial time
+     * @param v1               the initial velocity
+     * @param dTotal           the distance to the intersection
+     * @param arrivalTime      the arrival time
+     * @param arrivalVelocity  the arrival velocity
+     *
+     * @return whether there is an acceleration schedule for the arrival
+     */
+    private boolean canArrive(double time1, double v1, double dTotal,
+                              double arrivalTime, double arrivalVelocity) {
+      try {
+        return MaxAccelReservationCheck.check(
+                 time1, v1,
+                 arrivalTime, arrivalVelocity,
+                 dTotal,
+                 DriverUtil.calculateMaxFeasibleVelocity(vehicle),
+                 vehicle.getSpec().getMaxAcceleration(),
+                 vehicle.getSpec().getMaxDeceleration()) != null;
+      } catch(ReservationCheckException e) {
+        return false;
+      }
+    }
+
     /**
      * Establish the parameters by which the vehicle can traverse the upcoming
      * intersection.  This is used to prepare parameters for both V2I and V2V
      * intersections.
      *
+     * @param accelSchedule  the acceleration schedule the vehicle follows
+     *                       until the reply arrives; null if there is none
+     *
      * @return the parameters by which the vehicle can traverse the upcoming
      *         intersection; null if there is no proposal
      */
-    private List<Request.Proposal> prepareProposals() {
+    private List<Request.Proposal> prepareProposals(
+                                     AccelSchedule accelSchedule) {
       // First establish which departure lanes we are going to try for
       List<Lane> departureLanes = getDepartureLanes();
       int n = departureLanes.size();
@@ -1535,11 +1903,30 @@ public class V2ICoordinator implements Coordinator {
 
       for (int i = 0; i < n; i++) {
         ArrivalEstimationResult result =
-          estimateArrival(maximumVelocities.get(i));
+          estimateArrival(maximumVelocities.get(i), accelSchedule);
         arrivalVelocities.add(result.getArrivalVelocity());
         // Make sure our arrival time is at least a certain amount
         arrivalTimes.add(Math.max(result.getArrivalTime(), minArrivalTime));
       }
+      // If the IM told us when the intersection is clear, also propose to
+      // arrive then, after the other proposals.
+      if (!Double.isNaN(earliestArrivalTime)) {
+        for (int i = 0; i < n; i++) {
+          if (arrivalTimes.get(i) < earliestArrivalTime) {
+            double v = findArrivalVelocity(earliestArrivalTime,
+                                           arrivalVelocities.get(i),
+                                           accelSchedule);
+            if (!Double.isNaN(v)) {
+              arrivalLanes.add(arrivalLanes.get(i));
+              departureLanes.add(departureLanes.get(i));
+              maximumVelocities.add(maximumVelocities.get(i));
+              arrivalVelocities.add(v);
+              arrivalTimes.add(earliestArrivalTime);
+            }
+          }
+        }
+        n = arrivalTimes.size();
+      }
       boolean isStoppedAtIntersection = false;
       if (Util.isDoubleZero(Math.round(vehicle.getDriver().distanceToNextIntersection()) - V2IPilot.DEFAULT_STOP_DISTANCE_BEFORE_INTERSECTION) &&
               Util.isDoubleZero(vehicle.gaugeVelocity())){
@@ -1578,6 +1965,19 @@ public class V2ICoordinator implements Coordinator {
       }
     }
 
+    /**
+     * Prepare the proposals the vehicle would send if it prepared a request
+     * now, without changing the state of the vehicle or of the coordinator.
+     *
+     * @return the proposals; null if the vehicle would not send a request
+     */
+    private List<Request.Proposal> previewProposals() {
+      if (!isLaneClearToIntersection()) {
+        return null;
+      }
+      return prepareProposals(decelToStopAtIntersection());
+    }
+
     /**
      * Get a prioritized list of Lanes to try as departure Lanes in the
      * next reservation request. This method attempts to estimate the minimum
@@ -1590,7 +1990,7 @@ public class V2ICoordinator implements Coordinator {
       List<Lane> departureLanes =
         new ArrayList<Lane>(MAX_LANES_TO_TRY_PER_ROAD);
       Road departureRoad =
-        navigator.navigate(Debug.currentAimMap.getRoad(driver.getCurrentLane()),
+        navigator.navigate(SimulationContext.current().getAimMap().getRoad(driver.getCurrentLane()),
                            driver.getCurrentIM(),
                            driver.getDestination());
       // Let's just take the highest priority Lane from each Road
@@ -1647,7 +2047,10 @@ public class V2ICoordinator implements Coordinator {
 
       List<Request.Proposal> proposals = null;
       if (isLaneClearToIntersection()) {
-        proposals = prepareProposals();
+        proposals = prepareProposals(vehicle.getAccelSchedule());
+        // The earliest arrival time is only good for the request right
+        // after the rejection
+        earliestArrivalTime = Double.NaN;
         if (isDebugging && proposals == null) {
           System.err.printf("At time %.2f, vin %d failed to prepare " +
                             "a proposal: no feasible proposal.\n",
@@ -30,21 +30,27 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.driver.aim.navigator;
 
-import aim4.config.Debug;
 import aim4.im.aim.IntersectionManager;
 import aim4.map.BasicAIMIntersectionMap;
 import aim4.map.Road;
+import aim4.sim.SimulationContext;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.Util;
 import aim4.vehicle.VehicleSpec;
 import aim4.vehicle.VehicleUtil;
 
 import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.*;
 
 /**
  * A base class for an agent that chooses which way a vehicle should go.
  */
-public class BasicNavigator implements Navigator {
+public class BasicNavigator implements Navigator, Restorable {
 
   /////////////////////////////////
   // NESTED CLASSES
@@ -197,7 +203,7 @@ public class BasicNavigator implements Navigator {
      * @return the road of the last node
      */
     public Road getLastRoad() {
-      return Debug.currentAimMap.getRoad(path.get(path.size() - 1));
+      return SimulationContext.current().getAimMap().getRoad(path.get(path.size() - 1));
     }
 
     /**
@@ -255,12 +261,66 @@ public class BasicNavigator implements Navigator {
 
   /**
    * {@inheritDoc}
+   * <p>
+   * The road is looked up in the route table of the map; the A* search is
+   * only done if the map has no route table or if the route is not in it.
    */
   @Override
   public Road navigate(Road current, IntersectionManager im, Road destination) {
+    RouteTable routeTable = basicAIMIntersectionMap.getRouteTable();
+    if (routeTable != null) {
+      Road road = routeTable.nextRoad(vehicleSpec, current, im, destination);
+      if (road != null) {
+        return road;
+      }
+    }
     return fastestPath(current, im, destination);
   }
 
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The cache of the fastest roads is saved since it depends on the order of
+   * the searches.
+   */
+  @Override
+  public StateRecord saveState() throws NotSerializableException {
+    StateRecord state = new StateRecord(BasicNavigator.class.getName(), 1);
+    // the cache as quadruples of the key and the index of the road
+    int[] entries = new int[4 * fastestMap.size()];
+    int i = 0;
+    for(Map.Entry<List<Integer>, Road> e : fastestMap.entrySet()) {
+      entries[i++] = e.getKey().get(0);
+      entries[i++] = e.getKey().get(1);
+      entries[i++] = e.getKey().get(2);
+      entries[i++] =
+        References.indexOf(basicAIMIntersectionMap.getRoads(), e.getValue());
+    }
+    state.putInts("fastestMap", entries);
+    return state;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void restoreState(StateRecord state) throws IOException {
+    state.check(BasicNavigator.class.getName(), 1);
+    int[] entries = state.getInts("fastestMap");
+    if (entries.length % 4 != 0) {
+      throw new StreamCorruptedException("Malformed fastest map");
+    }
+    fastestMap.clear();
+    for(int i = 0; i < entries.length; i += 4) {
+      fastestMap.put(Arrays.asList(entries[i], entries[i + 1], entries[i + 2]),
+                     References.get(basicAIMIntersectionMap.getRoads(),
+                                    entries[i + 3], "road"));
+    }
+    state.checkAllRead();
+  }
+
 
   /////////////////////////////////
   // PRIVATE METHODS
@@ -289,7 +349,7 @@ public class BasicNavigator implements Navigator {
         List<Integer> currKey =
           Arrays.asList(path.get(i-1), pathIMs.get(i-1),
                         destinationRoad.getIndexLane().getId());
-        fastestMap.put(currKey, Debug.currentAimMap.getRoad(path.get(i)));
+        fastestMap.put(currKey, SimulationContext.current().getAimMap().getRoad(path.get(i)));
       }
     }
     return fastestMap.get(key);
@@ -0,0 +1,60 @@
+package aim4.driver.aim.navigator;
+
+import aim4.im.aim.IntersectionManager;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.Road;
+import aim4.vehicle.VehicleSpec;
+
+/**
+ * A navigator that avoids busy intersections.  Each time the vehicle
+ * approaches an intersection, the road out of it is chosen again on the
+ * fastest route given the current delays of the intersections, as
+ * estimated by the {@link CongestionRouter} of the map.
+ */
+public class CongestionAwareNavigator extends BasicNavigator {
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The vehicle for which this agent is navigating */
+    private final VehicleSpec vehicleSpec;
+
+    /** The router of the map */
+    private final CongestionRouter router;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Construct a new navigator for the given vehicle specification.
+     *
+     * @param vehicleSpec              the vehicle's specification
+     * @param basicAIMIntersectionMap  the map object
+     * @param router                   the router of the map
+     */
+    public CongestionAwareNavigator(VehicleSpec vehicleSpec,
+                                    BasicAIMIntersectionMap basicAIMIntersectionMap,
+                                    CongestionRouter router) {
+        super(vehicleSpec, basicAIMIntersectionMap);
+        this.vehicleSpec = vehicleSpec;
+        this.router = router;
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The free-flow route of the {@link BasicNavigator} is taken if the
+     * router has no route.
+     */
+    @Override
+    public Road navigate(Road current, IntersectionManager im, Road destination) {
+        Road road = router.nextRoad(vehicleSpec, current, im, destination);
+        return road != null ? road : super.navigate(current, im, destination);
+    }
+}
@@ -0,0 +1,292 @@
+package aim4.driver.aim.navigator;
+
+import aim4.im.AdmissionControlZone;
+import aim4.im.aim.IntersectionManager;
+import aim4.im.aim.v2i.V2IManager;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.Road;
+import aim4.map.lane.Lane;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
+import aim4.vehicle.VehicleSpec;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The fastest routes through an AIM map given how busy its intersections
+ * are.  Every few seconds of simulation time, the router estimates the
+ * delay of crossing each intersection from two cheap signals: the fraction
+ * of the reservation grid that is already reserved over the next few
+ * seconds, and how full the admission control zones of the exit lanes are.
+ * The delays are added to the free-flow times of the turns of the road
+ * graph.
+ * <p>
+ * The times to a destination are searched once, when a vehicle first needs
+ * them, and are then updated incrementally: when a vehicle asks for a route
+ * after the delays have changed, only the states whose fastest route
+ * crosses an intersection that got busier are searched again, and the
+ * intersections that got quieter spread their gain to the states before
+ * them.  The router is shared by the navigators of all the vehicles of the
+ * map.
+ */
+public final class CongestionRouter implements Restorable {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The default interval of simulation time between two refreshes of the load */
+    public static final double DEFAULT_REFRESH_INTERVAL = 5.0;
+
+    /** The default length of the period over which the reservations are counted */
+    public static final double DEFAULT_HORIZON = 5.0;
+
+    /** The smallest change of the delay of an intersection that is taken into account */
+    private static final double MIN_DELAY_CHANGE = 0.1;
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The road graph of the map */
+    private final RoadGraph graph;
+    /** The interval of simulation time between two refreshes of the load */
+    private final double refreshInterval;
+    /** The length of the period over which the reservations are counted */
+    private final double horizon;
+    /** The delay of crossing each intersection */
+    private final double[] delays;
+    /** The simulation time of the next refresh */
+    private double nextRefreshTime = 0.0;
+    /**
+     * The times from every state to each destination, by vehicle
+     * specification and destination road; null if they are not searched yet
+     */
+    private final double[][] times;
+    /** The delays with which each array of times was last updated */
+    private final double[][] timeDelays;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a router for a map.
+     *
+     * @param map              the map
+     * @param refreshInterval  the interval of simulation time between two
+     *                         refreshes of the load
+     * @param horizon          the length of the period over which the
+     *                         reservations are counted
+     */
+    public CongestionRouter(BasicAIMIntersectionMap map, double refreshInterval,
+                            double horizon) {
+        this.graph = new RoadGraph(map);
+        this.refreshInterval = refreshInterval;
+        this.horizon = horizon;
+        this.delays = new double[graph.getNumOfIms()];
+        this.times = new double[graph.getNumOfSpecs() * graph.getNumOfRoads()][];
+        this.timeDelays = new double[times.length][];
+    }
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Create a router with the default intervals and give it to a map, so
+     * that the vehicles of the map avoid busy intersections.  Nothing is
+     * done if the map already has a router.
+     *
+     * @param map  the map
+     */
+    public static void install(BasicAIMIntersectionMap map) {
+        if (map.getCongestionRouter() == null) {
+            map.setCongestionRouter(new CongestionRouter(map,
+                    DEFAULT_REFRESH_INTERVAL, DEFAULT_HORIZON));
+        }
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Estimate the delays of the intersections again if the refresh interval
+     * has elapsed.  The simulator calls this method at the beginning of each
+     * time step.
+     *
+     * @param currentTime  the current simulation time
+     */
+    public synchronized void refresh(double currentTime) {
+        if (currentTime < nextRefreshTime) {
+            return;
+        }
+        nextRefreshTime = currentTime + refreshInterval;
+        for (int i = 0; i < delays.length; i++) {
+            double delay = estimateDelay(graph.getIntersectionManager(i),
+                                         currentTime);
+            if (Math.abs(delay - delays[i]) >= MIN_DELAY_CHANGE) {
+                delays[i] = delay;
+            }
+        }
+    }
+
+    /**
+     * Get the estimated delay of crossing an intersection.
+     *
+     * @param im  the intersection manager
+     * @return the delay in seconds; 0 if the intersection is not in the map
+     */
+    public synchronized double getDelay(IntersectionManager im) {
+        int i = graph.imIndex(im);
+        return i < 0 ? 0.0 : delays[i];
+    }
+
+    /**
+     * Get the road to take out of an intersection on the fastest route to a
+     * destination given the current delays.
+     *
+     * @param spec         the vehicle specification
+     * @param current      the road on which the vehicle is traveling
+     * @param im           the intersection manager the vehicle is
+     *                     approaching
+     * @param destination  the road on which the vehicle would ultimately like
+     *                     to end up
+     * @return the road to take; null if the destination cannot be reached,
+     *         or if the vehicle specification, a road or the intersection
+     *         is not in the map of the router
+     */
+    public synchronized Road nextRoad(VehicleSpec spec, Road current,
+                                      IntersectionManager im,
+                                      Road destination) {
+        int s = graph.specIndex(spec);
+        int r = graph.roadIndex(current);
+        int d = graph.roadIndex(destination);
+        int i = graph.imIndex(im);
+        if (s < 0 || r < 0 || d < 0 || i < 0) {
+            return null;
+        }
+        int k = s * graph.getNumOfRoads() + d;
+        if (times[k] == null) {
+            times[k] = new double[graph.getNumOfStates()];
+            graph.computeTimes(s, d, delays, times[k]);
+            timeDelays[k] = delays.clone();
+        } else if (!Arrays.equals(timeDelays[k], delays)) {
+            graph.updateTimes(s, d, timeDelays[k], delays, times[k]);
+            System.arraycopy(delays, 0, timeDelays[k], 0, delays.length);
+        }
+        int next = graph.nextRoad(s, d, i * graph.getNumOfRoads() + r, delays,
+                                  times[k]);
+        return next == RoadGraph.NO_ROAD ? null : graph.getRoad(next);
+    }
+
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The times that have been searched are saved as they are, since the
+     * incremental updates do not necessarily give the same bits as a new
+     * search.
+     */
+    @Override
+    public synchronized StateRecord saveState() {
+        StateRecord state = new StateRecord(CongestionRouter.class.getName(), 1);
+        state.putDoubles("delays", delays);
+        state.putDouble("nextRefreshTime", nextRefreshTime);
+        List<Integer> keys = new ArrayList<Integer>();
+        for (int k = 0; k < times.length; k++) {
+            if (times[k] != null) {
+                keys.add(k);
+            }
+        }
+        int numOfStates = graph.getNumOfStates();
+        int[] timeKeys = new int[keys.size()];
+        double[] allTimes = new double[keys.size() * numOfStates];
+        double[] allTimeDelays = new double[keys.size() * delays.length];
+        for (int i = 0; i < timeKeys.length; i++) {
+            int k = keys.get(i);
+            timeKeys[i] = k;
+            System.arraycopy(times[k], 0, allTimes, i * numOfStates, numOfStates);
+            System.arraycopy(timeDelays[k], 0, allTimeDelays, i * delays.length,
+                             delays.length);
+        }
+        state.putInts("timeKeys", timeKeys);
+        state.putDoubles("times", allTimes);
+        state.putDoubles("timeDelays", allTimeDelays);
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void restoreState(StateRecord state) throws IOException {
+        state.check(CongestionRouter.class.getName(), 1);
+        double[] newDelays = state.getDoubles("delays");
+        int[] timeKeys = state.getInts("timeKeys");
+        double[] allTimes = state.getDoubles("times");
+        double[] allTimeDelays = state.getDoubles("timeDelays");
+        int numOfStates = graph.getNumOfStates();
+        if (newDelays.length != delays.length
+                || allTimes.length != timeKeys.length * numOfStates
+                || allTimeDelays.length != timeKeys.length * delays.length) {
+            throw new StreamCorruptedException("Malformed route times");
+        }
+        System.arraycopy(newDelays, 0, delays, 0, delays.length);
+        nextRefreshTime = state.getDouble("nextRefreshTime");
+        Arrays.fill(times, null);
+        Arrays.fill(timeDelays, null);
+        for (int i = 0; i < timeKeys.length; i++) {
+            int k = timeKeys[i];
+            if (k < 0 || k >= times.length || times[k] != null) {
+                throw new StreamCorruptedException("Malformed route times");
+            }
+            times[k] = Arrays.copyOfRange(allTimes, i * numOfStates,
+                                          (i + 1) * numOfStates);
+            timeDelays[k] = Arrays.copyOfRange(allTimeDelays, i * delays.length,
+                                               (i + 1) * delays.length);
+        }
+        state.checkAllRead();
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Estimate the delay of crossing an intersection: the horizon, weighted
+     * by the fraction of the reservation grid reserved over the horizon and
+     * by how full the admission control zones of the exit lanes are.
+     *
+     * @param im           the intersection manager
+     * @param currentTime  the current simulation time
+     * @return the delay in seconds
+     */
+    private double estimateDelay(IntersectionManager im, double currentTime) {
+        if (!(im instanceof V2IManager)) {
+            return 0.0;
+        }
+        V2IManager v2im = (V2IManager) im;
+        double reserved = v2im.getReservationGrid().calcReservedFraction(
+                currentTime, currentTime + horizon);
+        double queued = 0.0;
+        int numOfZones = 0;
+        for (Lane lane : im.getIntersection().getExitLanes()) {
+            AdmissionControlZone acz = v2im.getACZ(lane.getId());
+            if (acz != null && acz.getMaxSize() > 0) {
+                queued += acz.getCurrentSize() / acz.getMaxSize();
+                numOfZones++;
+            }
+        }
+        if (numOfZones > 0) {
+            queued /= numOfZones;
+        }
+        return horizon * (reserved + queued);
+    }
+}
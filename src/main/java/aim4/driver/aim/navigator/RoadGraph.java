@@ -0,0 +1,480 @@
+package aim4.driver.aim.navigator;
+
+import aim4.im.aim.IntersectionManager;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.Road;
+import aim4.map.lane.Lane;
+import aim4.util.Util;
+import aim4.vehicle.VehicleSpec;
+import aim4.vehicle.VehicleSpecDatabase;
+import aim4.vehicle.VehicleUtil;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The road graph of an AIM map, on which the fastest routes are searched.
+ * A state is a road on which a vehicle is about to cross an intersection:
+ * the state of the road r before the intersection i is
+ * <code>i * numOfRoads + r</code>.  Crossing the intersection onto a road
+ * leads either to the state of the road before its next intersection, or
+ * out of the map.  The time of a turn depends on the vehicle specification,
+ * and a delay can be added to the time of crossing each intersection.
+ * <p>
+ * The times to a destination are searched backwards from the destination,
+ * so that one search gives the fastest routes from every state.
+ */
+final class RoadGraph {
+
+    /////////////////////////////////
+    // NESTED CLASSES
+    /////////////////////////////////
+
+    /**
+     * A state with its time to the destination.
+     */
+    private static final class Entry implements Comparable<Entry> {
+        /** The state */
+        private final int state;
+        /** The time from the state to the destination */
+        private final double time;
+
+        private Entry(int state, double time) {
+            this.state = state;
+            this.time = time;
+        }
+
+        @Override
+        public int compareTo(Entry e) {
+            return Double.compare(time, e.time);
+        }
+    }
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The next road of the states from which the destination is not reached */
+    static final int NO_ROAD = -1;
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The vehicle specifications, indexed by their IDs */
+    private final VehicleSpec[] specs;
+    /** The roads of the map */
+    private final Road[] roads;
+    /** The index of each road, by the ID of its index lane; -1 if none */
+    private final int[] roadIndices;
+    /** The intersection managers of the map */
+    private final IntersectionManager[] ims;
+    /** The index of each intersection manager, by its ID; -1 if none */
+    private final int[] imIndices;
+    /** The roads taken by the turns out of each state, by specification */
+    private final int[][][] turnRoads;
+    /**
+     * The states the turns out of each state lead to, by specification; -1
+     * for the turns that leave the map
+     */
+    private final int[][][] turnStates;
+    /** The times of the turns out of each state, by specification */
+    private final double[][][] turnTimes;
+    /** The states with a turn to each state, by specification */
+    private final int[][][] predecessors;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create the road graph of a map for all the vehicle specifications.
+     *
+     * @param map  the map
+     */
+    RoadGraph(BasicAIMIntersectionMap map) {
+        List<Road> mapRoads = map.getRoads();
+        List<IntersectionManager> mapIms = map.getIntersectionManagers();
+        specs = new VehicleSpec[VehicleSpecDatabase.getNumOfSpec()];
+        for (int i = 0; i < specs.length; i++) {
+            specs[i] = VehicleSpecDatabase.getVehicleSpecById(i);
+        }
+        roads = mapRoads.toArray(new Road[mapRoads.size()]);
+        int maxLaneId = -1;
+        for (Road road : roads) {
+            maxLaneId = Math.max(maxLaneId, road.getIndexLane().getId());
+        }
+        roadIndices = new int[maxLaneId + 1];
+        Arrays.fill(roadIndices, -1);
+        for (int r = 0; r < roads.length; r++) {
+            roadIndices[roads[r].getIndexLane().getId()] = r;
+        }
+        ims = mapIms.toArray(new IntersectionManager[mapIms.size()]);
+        int maxImId = -1;
+        for (IntersectionManager im : ims) {
+            maxImId = Math.max(maxImId, im.getId());
+        }
+        imIndices = new int[maxImId + 1];
+        Arrays.fill(imIndices, -1);
+        for (int i = 0; i < ims.length; i++) {
+            imIndices[ims[i].getId()] = i;
+        }
+        turnRoads = new int[specs.length][][];
+        turnStates = new int[specs.length][][];
+        turnTimes = new double[specs.length][][];
+        predecessors = new int[specs.length][][];
+        for (int s = 0; s < specs.length; s++) {
+            addTurns(s);
+        }
+    }
+
+    /////////////////////////////////
+    // PACKAGE METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the number of vehicle specifications.
+     *
+     * @return the number of vehicle specifications
+     */
+    int getNumOfSpecs() {
+        return specs.length;
+    }
+
+    /**
+     * Get the number of roads.
+     *
+     * @return the number of roads
+     */
+    int getNumOfRoads() {
+        return roads.length;
+    }
+
+    /**
+     * Get the number of intersection managers.
+     *
+     * @return the number of intersection managers
+     */
+    int getNumOfIms() {
+        return ims.length;
+    }
+
+    /**
+     * Get the number of states.
+     *
+     * @return the number of states
+     */
+    int getNumOfStates() {
+        return ims.length * roads.length;
+    }
+
+    /**
+     * Get a road.
+     *
+     * @param r  the index of the road
+     * @return the road
+     */
+    Road getRoad(int r) {
+        return roads[r];
+    }
+
+    /**
+     * Get an intersection manager.
+     *
+     * @param i  the index of the intersection manager
+     * @return the intersection manager
+     */
+    IntersectionManager getIntersectionManager(int i) {
+        return ims[i];
+    }
+
+    /**
+     * Get the index of a vehicle specification.
+     *
+     * @param spec  the vehicle specification
+     * @return the index of the vehicle specification; -1 if it is not in the
+     *         graph
+     */
+    int specIndex(VehicleSpec spec) {
+        for (int s = 0; s < specs.length; s++) {
+            if (specs[s] == spec) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the index of a road.
+     *
+     * @param road  the road
+     * @return the index of the road; -1 if it is not in the graph
+     */
+    int roadIndex(Road road) {
+        int id = road.getIndexLane().getId();
+        return id < roadIndices.length ? roadIndices[id] : -1;
+    }
+
+    /**
+     * Get the index of an intersection manager.
+     *
+     * @param im  the intersection manager
+     * @return the index of the intersection manager; -1 if it is not in the
+     *         graph
+     */
+    int imIndex(IntersectionManager im) {
+        int id = im.getId();
+        return id < imIndices.length ? imIndices[id] : -1;
+    }
+
+    /**
+     * Compute the times from every state to a destination.
+     *
+     * @param s       the index of the vehicle specification
+     * @param d       the index of the destination road
+     * @param delays  the delays of crossing the intersections; null if there
+     *                is none
+     * @param times   the times to fill
+     */
+    void computeTimes(int s, int d, double[] delays, double[] times) {
+        Arrays.fill(times, Double.POSITIVE_INFINITY);
+        PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+        // the sources are the states from which a turn leaves the map on the
+        // destination
+        for (int state = 0; state < times.length; state++) {
+            double time = bestTime(s, d, state, delays, times);
+            if (time < times[state]) {
+                times[state] = time;
+                queue.add(new Entry(state, time));
+            }
+        }
+        propagate(s, delays, times, queue);
+    }
+
+    /**
+     * Update the times from every state to a destination after the delays
+     * of crossing some intersections have changed.  The states whose fastest
+     * route crosses an intersection whose delay has increased are searched
+     * again, from the states around them; the decreases of the delays are
+     * spread from the intersections whose delay has decreased.  The other
+     * times are kept.
+     *
+     * @param s          the index of the vehicle specification
+     * @param d          the index of the destination road
+     * @param oldDelays  the delays with which the times were computed
+     * @param delays     the new delays
+     * @param times      the times to update
+     */
+    void updateTimes(int s, int d, double[] oldDelays, double[] delays,
+                     double[] times) {
+        int numOfRoads = roads.length;
+        // 0: unknown, 1: the route is kept, 2: the route must be searched
+        byte[] affected = new byte[times.length];
+        int[] chain = new int[times.length];
+        for (int state = 0; state < times.length; state++) {
+            int n = 0;
+            int next = state;
+            while (next >= 0 && affected[next] == 0 && n < chain.length) {
+                chain[n++] = next;
+                int i = next / numOfRoads;
+                if (delays[i] > oldDelays[i]) {
+                    break;
+                }
+                next = nextState(s, d, next, oldDelays, times);
+            }
+            byte mark = next >= 0 && (affected[next] == 2 || n == chain.length
+                    || delays[next / numOfRoads] > oldDelays[next / numOfRoads])
+                    ? (byte) 2 : (byte) 1;
+            for (int j = 0; j < n; j++) {
+                affected[chain[j]] = mark;
+            }
+        }
+        for (int state = 0; state < times.length; state++) {
+            if (affected[state] == 2) {
+                times[state] = Double.POSITIVE_INFINITY;
+            }
+        }
+        PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+        for (int state = 0; state < times.length; state++) {
+            int i = state / numOfRoads;
+            if (affected[state] == 2 || delays[i] < oldDelays[i]) {
+                double time = bestTime(s, d, state, delays, times);
+                if (time < times[state]) {
+                    times[state] = time;
+                    queue.add(new Entry(state, time));
+                }
+            }
+        }
+        propagate(s, delays, times, queue);
+    }
+
+    /**
+     * Get the next road of a state on a fastest route to a destination.
+     * Among equally fast routes, the vehicle keeps going straight as long as
+     * it can.
+     *
+     * @param s       the index of the vehicle specification
+     * @param d       the index of the destination road
+     * @param state   the state
+     * @param delays  the delays of crossing the intersections; null if there
+     *                is none
+     * @param times   the times from every state to the destination
+     * @return the index of the next road; {@link #NO_ROAD} if the
+     *         destination cannot be reached
+     */
+    int nextRoad(int s, int d, int state, double[] delays, double[] times) {
+        int t = bestTurn(s, d, state, delays, times);
+        return t < 0 ? NO_ROAD : turnRoads[s][state][t];
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Add the turns of a vehicle specification.
+     *
+     * @param s  the index of the vehicle specification
+     */
+    private void addTurns(int s) {
+        VehicleSpec spec = specs[s];
+        int numOfRoads = roads.length;
+        int numOfStates = getNumOfStates();
+        turnRoads[s] = new int[numOfStates][0];
+        turnStates[s] = new int[numOfStates][0];
+        turnTimes[s] = new double[numOfStates][0];
+        predecessors[s] = new int[numOfStates][0];
+        for (int i = 0; i < ims.length; i++) {
+            IntersectionManager im = ims[i];
+            List<Road> exitRoads = im.getIntersection().getExitRoads();
+            for (Road road : im.getIntersection().getEntryRoads()) {
+                int state = i * numOfRoads + roadIndex(road);
+                int[] roadsOut = new int[exitRoads.size()];
+                int[] statesOut = new int[exitRoads.size()];
+                double[] timesOut = new double[exitRoads.size()];
+                int n = 0;
+                for (Road exit : exitRoads) {
+                    // don't come out the way we went in
+                    if (exit == road.getDual()) {
+                        continue;
+                    }
+                    double maxTurnVelocity = VehicleUtil.maxTurnVelocity(spec,
+                            road.getIndexLane(), exit.getIndexLane(), im);
+                    if (Util.isDoubleZero(maxTurnVelocity)) {
+                        continue;
+                    }
+                    Lane lane = exit.getIndexLane();
+                    double time = im.traversalDistance(road, exit) / maxTurnVelocity;
+                    IntersectionManager nextIM = lane.getLaneIM().nextIntersectionManager(im);
+                    int next = -1;
+                    if (nextIM != null) {
+                        time += lane.getLaneIM().timeToNextIntersectionManager(im,
+                                spec.getMaxVelocity());
+                        next = imIndex(nextIM) * numOfRoads + roadIndex(exit);
+                        int[] p = Arrays.copyOf(predecessors[s][next],
+                                                predecessors[s][next].length + 1);
+                        p[p.length - 1] = state;
+                        predecessors[s][next] = p;
+                    } else {
+                        time += lane.getLaneIM().remainingDistanceFromLastIntersection()
+                                / Math.min(lane.getSpeedLimit(), spec.getMaxVelocity());
+                    }
+                    roadsOut[n] = roadIndex(exit);
+                    statesOut[n] = next;
+                    timesOut[n] = time;
+                    n++;
+                }
+                turnRoads[s][state] = Arrays.copyOf(roadsOut, n);
+                turnStates[s][state] = Arrays.copyOf(statesOut, n);
+                turnTimes[s][state] = Arrays.copyOf(timesOut, n);
+            }
+        }
+    }
+
+    /**
+     * Spread the times of the queued states to the states with turns to
+     * them.
+     */
+    private void propagate(int s, double[] delays, double[] times,
+                           PriorityQueue<Entry> queue) {
+        while (!queue.isEmpty()) {
+            Entry e = queue.poll();
+            if (e.time > times[e.state]) {
+                continue;
+            }
+            for (int p : predecessors[s][e.state]) {
+                double delay = delays == null ? 0 : delays[p / roads.length];
+                for (int t = 0; t < turnStates[s][p].length; t++) {
+                    if (turnStates[s][p][t] == e.state) {
+                        double time = turnTimes[s][p][t] + delay + e.time;
+                        if (time < times[p]) {
+                            times[p] = time;
+                            queue.add(new Entry(p, time));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the time to a destination through a turn.
+     */
+    private double turnTime(int s, int d, int state, int t, double[] delays,
+                            double[] times) {
+        int next = turnStates[s][state][t];
+        double time = turnTimes[s][state][t]
+                + (delays == null ? 0 : delays[state / roads.length]);
+        if (next < 0) {
+            return turnRoads[s][state][t] == d ? time : Double.POSITIVE_INFINITY;
+        } else {
+            return time + times[next];
+        }
+    }
+
+    /**
+     * Get the shortest time to a destination through the turns of a state.
+     */
+    private double bestTime(int s, int d, int state, double[] delays,
+                            double[] times) {
+        int t = bestTurn(s, d, state, delays, times);
+        return t < 0 ? Double.POSITIVE_INFINITY
+                     : turnTime(s, d, state, t, delays, times);
+    }
+
+    /**
+     * Get the state after the best turn of a state; -1 if the best turn
+     * leaves the map or there is none.
+     */
+    private int nextState(int s, int d, int state, double[] delays,
+                          double[] times) {
+        int t = bestTurn(s, d, state, delays, times);
+        return t < 0 ? -1 : turnStates[s][state][t];
+    }
+
+    /**
+     * Get the index of the turn of a state on a fastest route to a
+     * destination, going straight among equally fast turns.
+     *
+     * @return the index of the turn; -1 if the destination cannot be reached
+     */
+    private int bestTurn(int s, int d, int state, double[] delays,
+                         double[] times) {
+        int best = -1;
+        double bestTime = Double.POSITIVE_INFINITY;
+        boolean bestIsStraight = false;
+        for (int t = 0; t < turnRoads[s][state].length; t++) {
+            double time = turnTime(s, d, state, t, delays, times);
+            boolean isStraight = turnRoads[s][state][t] == state % roads.length;
+            if (isStraight ? Util.isDoubleEqualOrLess(time, bestTime)
+                           : time < bestTime && !(bestIsStraight
+                                   && Util.isDoubleEqual(time, bestTime))) {
+                best = t;
+                bestTime = time;
+                bestIsStraight = isStraight;
+            }
+        }
+        return best;
+    }
+}
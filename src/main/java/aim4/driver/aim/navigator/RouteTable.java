@@ -0,0 +1,111 @@
+package aim4.driver.aim.navigator;
+
+import aim4.im.aim.IntersectionManager;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.Road;
+import aim4.vehicle.VehicleSpec;
+
+/**
+ * The fastest routes through an AIM map for every vehicle specification.
+ * For each vehicle specification, each road, each intersection along the
+ * road and each destination road, the table holds the road to take out of
+ * the intersection on the fastest route to the destination.  The table is
+ * computed once per map, when the simulator is created, by a Dijkstra search
+ * from every destination backwards over the road graph, and it never
+ * changes, so that the navigators of all the vehicles share it.
+ * <p>
+ * The table agrees with the A* search of {@link BasicNavigator} except when
+ * the destination is the reverse of the current road.  Reversing takes a
+ * loop around a block, the loops on either side are equally fast, and the
+ * two searches break the tie apart.  No vehicle ever gets there, since a
+ * vehicle is never sent to the reverse of the road it spawns on.
+ */
+public final class RouteTable {
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The road graph of the map */
+    private final RoadGraph graph;
+    /**
+     * The index of the next road, by vehicle specification, intersection,
+     * road and destination road; {@link RoadGraph#NO_ROAD} if there is none
+     */
+    private final int[] nextRoads;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Compute the routes of a map.
+     *
+     * @param map  the map
+     */
+    private RouteTable(BasicAIMIntersectionMap map) {
+        graph = new RoadGraph(map);
+        int numOfRoads = graph.getNumOfRoads();
+        int numOfStates = graph.getNumOfStates();
+        nextRoads = new int[graph.getNumOfSpecs() * numOfStates * numOfRoads];
+        double[] times = new double[numOfStates];
+        for (int s = 0; s < graph.getNumOfSpecs(); s++) {
+            for (int d = 0; d < numOfRoads; d++) {
+                graph.computeTimes(s, d, null, times);
+                for (int state = 0; state < numOfStates; state++) {
+                    nextRoads[(s * numOfStates + state) * numOfRoads + d] =
+                            graph.nextRoad(s, d, state, null, times);
+                }
+            }
+        }
+    }
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Compute the routes of a map and give them to the map.  Nothing is done
+     * if the map already has routes.
+     *
+     * @param map  the map
+     */
+    public static void install(BasicAIMIntersectionMap map) {
+        if (map.getRouteTable() == null) {
+            map.setRouteTable(new RouteTable(map));
+        }
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the road to take out of an intersection on the fastest route to a
+     * destination.
+     *
+     * @param spec         the vehicle specification
+     * @param current      the road on which the vehicle is traveling
+     * @param im           the intersection manager the vehicle is
+     *                     approaching
+     * @param destination  the road on which the vehicle would ultimately like
+     *                     to end up
+     * @return the road to take; null if the destination cannot be reached,
+     *         or if the vehicle specification, a road or the intersection
+     *         is not in the table
+     */
+    public Road nextRoad(VehicleSpec spec, Road current, IntersectionManager im,
+                         Road destination) {
+        int s = graph.specIndex(spec);
+        int r = graph.roadIndex(current);
+        int d = graph.roadIndex(destination);
+        int i = graph.imIndex(im);
+        if (s < 0 || r < 0 || d < 0 || i < 0) {
+            return null;
+        }
+        int numOfRoads = graph.getNumOfRoads();
+        int state = i * numOfRoads + r;
+        int next = nextRoads[(s * graph.getNumOfStates() + state) * numOfRoads + d];
+        return next == RoadGraph.NO_ROAD ? null : graph.getRoad(next);
+    }
+}
@@ -36,6 +36,7 @@ import aim4.driver.BasicPilot;
 import aim4.driver.DriverUtil;
 import aim4.driver.aim.AIMAutoDriver;
 import aim4.driver.aim.coordinator.V2ICoordinator.ReservationParameter;
+import aim4.sim.SimulationContext;
 import aim4.vehicle.AutoVehicleDriverModel;
 import aim4.vehicle.VehicleUtil;
 import aim4.vehicle.aim.AIMAutoVehicleDriverModel;
@@ -133,8 +134,8 @@ public class V2IPilot extends BasicPilot {
     // If we're not already in the departure lane
     if (driver.getCurrentLane() != rp.getDepartureLane()) {
       // If we're changing to a different Roadf
-      if (Debug.currentAimMap.getRoad(driver.getCurrentLane()) !=
-        Debug.currentAimMap.getRoad(rp.getDepartureLane())) {
+      if (SimulationContext.current().getAimMap().getRoad(driver.getCurrentLane()) !=
+        SimulationContext.current().getAimMap().getRoad(rp.getDepartureLane())) {
         // Find out how far from it we are
         double distToLane =
           rp.getDepartureLane().nearestDistance(vehicle.gaugePosition());
@@ -3,11 +3,18 @@ package aim4.driver.merge;
 import aim4.driver.AutoDriver;
 import aim4.driver.merge.coordinator.MergeAutoCoordinator;
 import aim4.driver.merge.coordinator.MergeCoordinator;
+import aim4.driver.merge.coordinator.MergeV2IAutoCoordinator;
+import aim4.map.BasicMap;
 import aim4.map.connections.MergeConnection;
 import aim4.map.merge.MergeMap;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.merge.MergeAutoVehicleDriverModel;
 
 import java.awt.geom.Area;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 
 /**
  * Created by Callum on 14/03/2017.
@@ -119,4 +126,79 @@ public class MergeAutoDriver extends MergeDriver implements AutoDriver {
         memoDistanceToNextMerge = null;
         memoDistanceFromPrevMerge = null;
     }
+
+    // SNAPSHOTS //
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The memoized distances are saved too, since this driver does not clear
+     * them when it acts.
+     */
+    @Override
+    public StateRecord saveState(BasicMap map) throws NotSerializableException {
+        StateRecord state = new StateRecord(MergeAutoDriver.class.getName(), 1);
+        state.putRecord("mergeDriver", super.saveState(map));
+        state.putDoubles("memoDistanceToNextMerge", toArray(memoDistanceToNextMerge));
+        state.putDoubles("memoDistanceFromPrevMerge", toArray(memoDistanceFromPrevMerge));
+        if (coordinator == null) {
+            state.putRecord("coordinator", null);
+        } else if (coordinator instanceof MergeAutoCoordinator) {
+            state.putRecord("coordinator", ((MergeAutoCoordinator) coordinator).saveState());
+        } else if (coordinator instanceof MergeV2IAutoCoordinator) {
+            state.putRecord("coordinator", ((MergeV2IAutoCoordinator) coordinator).saveState());
+        } else {
+            throw new NotSerializableException(coordinator.getClass().getName());
+        }
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state, BasicMap map) throws IOException {
+        state.check(MergeAutoDriver.class.getName(), 1);
+        super.restoreState(state.getRecord("mergeDriver"), map);
+        memoDistanceToNextMerge = fromArray(state.getDoubles("memoDistanceToNextMerge"));
+        memoDistanceFromPrevMerge = fromArray(state.getDoubles("memoDistanceFromPrevMerge"));
+        StateRecord coordinatorState = state.getRecordOrNull("coordinator");
+        coordinator = coordinatorState == null ? null : restoreCoordinator(coordinatorState);
+        state.checkAllRead();
+    }
+
+    /**
+     * Restore a coordinator saved by {@link #saveState(BasicMap)}.
+     *
+     * @param s  the state of the coordinator
+     * @return the coordinator
+     * @throws IOException  if the state is not the state of a coordinator of
+     *                      this driver
+     */
+    protected MergeCoordinator restoreCoordinator(StateRecord s) throws IOException {
+        if (s.getType().equals(MergeAutoCoordinator.class.getName())) {
+            return MergeAutoCoordinator.fromState(s, vehicle, this, map);
+        } else {
+            throw new InvalidClassException(s.getType(), "not a coordinator");
+        }
+    }
+
+    /**
+     * Convert a memoized distance to an array which is empty if the distance
+     * has not been computed.
+     */
+    private static double[] toArray(Double memo) {
+        return memo == null ? new double[0] : new double[] { memo };
+    }
+
+    /**
+     * Convert an array created by {@link #toArray(Double)} back to a
+     * memoized distance.
+     */
+    private static Double fromArray(double[] memo) throws StreamCorruptedException {
+        if (memo.length > 1) {
+            throw new StreamCorruptedException("Malformed memoized distance");
+        }
+        return memo.length == 0 ? null : memo[0];
+    }
 }
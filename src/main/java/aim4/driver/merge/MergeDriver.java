@@ -1,8 +1,16 @@
 package aim4.driver.merge;
 
 import aim4.driver.BasicDriver;
+import aim4.map.BasicMap;
+import aim4.map.SpawnPoint;
 import aim4.map.connections.MergeConnection;
 import aim4.map.merge.MergeSpawnPoint;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 
 /**
  * Created by Callum on 14/03/2017.
@@ -17,4 +25,36 @@ public abstract class MergeDriver extends BasicDriver implements MergeDriverSimM
     public void setSpawnPoint(MergeSpawnPoint spawnPoint) {
         this.spawnPoint = spawnPoint;
     }
+
+    // SNAPSHOTS //
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The spawn point is saved by its index in the map.
+     */
+    @Override
+    public StateRecord saveState(BasicMap map) throws NotSerializableException {
+        StateRecord state = new StateRecord(MergeDriver.class.getName(), 1);
+        state.putRecord("driver", super.saveState(map));
+        state.putInt("spawnPoint", References.indexOf(map.getSpawnPoints(), spawnPoint));
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state, BasicMap map) throws IOException {
+        state.check(MergeDriver.class.getName(), 1);
+        super.restoreState(state.getRecord("driver"), map);
+        SpawnPoint sp = References.get(map.getSpawnPoints(),
+                state.getInt("spawnPoint"), "spawn point");
+        if (sp != null && !(sp instanceof MergeSpawnPoint)) {
+            throw new StreamCorruptedException("Unknown spawn point "
+                    + state.getInt("spawnPoint"));
+        }
+        spawnPoint = (MergeSpawnPoint) sp;
+        state.checkAllRead();
+    }
 }
@@ -1,15 +1,21 @@
 package aim4.driver.merge;
 
 import aim4.driver.merge.coordinator.MergeAutoCoordinator;
+import aim4.driver.merge.coordinator.MergeCoordinator;
 import aim4.driver.merge.coordinator.MergeQueueCoordinator;
 import aim4.driver.merge.coordinator.MergeV2IAutoCoordinator;
 import aim4.im.merge.MergeManager;
+import aim4.map.BasicMap;
 import aim4.map.merge.MergeMap;
 import aim4.sim.setup.merge.enums.ProtocolType;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.AutoVehicleDriverModel;
 import aim4.vehicle.merge.MergeV2IAutoVehicleDriverModel;
 
 import java.awt.geom.Area;
+import java.io.IOException;
+import java.io.NotSerializableException;
 
 /**
  * Created by Callum on 13/04/2017.
@@ -70,6 +76,50 @@ public class MergeV2IAutoDriver extends MergeAutoDriver {
         return coordinator.getStateString();
     }
 
+    // SNAPSHOTS
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The current merge manager is saved by its ID.  The protocol is the one
+     * given to the constructor by the simulator.
+     */
+    @Override
+    public StateRecord saveState(BasicMap map) throws NotSerializableException {
+        StateRecord state = new StateRecord(MergeV2IAutoDriver.class.getName(), 1);
+        state.putRecord("autoDriver", super.saveState(map));
+        state.putInt("currentMM", currentMM == null ? -1 : currentMM.getId());
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state, BasicMap map) throws IOException {
+        state.check(MergeV2IAutoDriver.class.getName(), 1);
+        super.restoreState(state.getRecord("autoDriver"), map);
+        currentMM = References.get(this.map.getMMRegistry(), state.getInt("currentMM"),
+                "merge manager");
+        // not saved, since act() clears them before they are used
+        memoNextMergeManager = null;
+        memoInCurrentMerge = null;
+        state.checkAllRead();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected MergeCoordinator restoreCoordinator(StateRecord s) throws IOException {
+        if (s.getType().equals(MergeV2IAutoCoordinator.class.getName())) {
+            return MergeV2IAutoCoordinator.fromState(
+                    s, (MergeV2IAutoVehicleDriverModel) vehicle, this, map);
+        } else {
+            return super.restoreCoordinator(s);
+        }
+    }
+
     // MM
     /** Find the next MergeManager that the Vehicle will need to
     * interact with, in this Lane.
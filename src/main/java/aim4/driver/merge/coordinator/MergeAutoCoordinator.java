@@ -9,10 +9,14 @@ import aim4.map.connections.MergeConnection;
 import aim4.map.lane.Lane;
 import aim4.map.merge.MergeMap;
 import aim4.map.merge.RoadNames;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.AccelSchedule;
 import aim4.vehicle.VehicleUtil;
 import aim4.vehicle.merge.MergeAutoVehicleDriverModel;
 
+import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.util.EnumMap;
 
 /**
@@ -173,6 +177,44 @@ public class MergeAutoCoordinator extends MergeCoordinator {
         return state == State.TERMINAL_STATE;
     }
 
+    //SNAPSHOTS//
+    /**
+     * Save the state of this coordinator.
+     *
+     * @return the state of the coordinator
+     */
+    public StateRecord saveState() {
+        StateRecord s = new StateRecord(MergeAutoCoordinator.class.getName(), 1);
+        s.putString("state", state.name());
+        s.putDouble("lastStateChangeTime", lastStateChangeTime);
+        return s;
+    }
+
+    /**
+     * Restore a coordinator saved by {@link #saveState()}.
+     *
+     * @param s        the state of the coordinator
+     * @param vehicle  the Vehicle to coordinate
+     * @param driver   the driver
+     * @param map      the map
+     * @return the coordinator
+     * @throws IOException  if the state is not the state of a coordinator
+     */
+    public static MergeAutoCoordinator fromState(StateRecord s,
+                                                 MergeAutoVehicleDriverModel vehicle,
+                                                 MergeAutoDriver driver,
+                                                 MergeMap map) throws IOException {
+        s.check(MergeAutoCoordinator.class.getName(), 1);
+        MergeAutoCoordinator coordinator = new MergeAutoCoordinator(vehicle, driver, map);
+        coordinator.state = References.valueOf(State.class, s.getString("state"));
+        if (coordinator.state == null) {
+            throw new StreamCorruptedException("Missing field " + s.getType() + ".state");
+        }
+        coordinator.lastStateChangeTime = s.getDouble("lastStateChangeTime");
+        s.checkAllRead();
+        return coordinator;
+    }
+
     // ACCEL //
     private AccelSchedule calculateAccelProfileToArriveAtMergeAtSafeSpeed() {
         MergeManager mergeManager = driver.getCurrentLane().getLaneMM().firstMergeManager();
@@ -17,12 +17,16 @@ import aim4.msg.merge.v2i.Away;
 import aim4.msg.merge.v2i.Cancel;
 import aim4.msg.merge.v2i.Done;
 import aim4.msg.merge.v2i.Request;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.Util;
 import aim4.vehicle.AccelSchedule;
 import aim4.vehicle.VehicleUtil;
 import aim4.vehicle.merge.MergeV2IAutoVehicleDriverModel;
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
+import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
@@ -152,6 +156,19 @@ public class MergeV2IAutoCoordinator extends MergeCoordinator {
     public MergeV2IAutoCoordinator(MergeV2IAutoVehicleDriverModel vehicle,
                                    MergeV2IAutoDriver driver,
                                    MergeMap map) {
+        this(vehicle, driver, map, State.PLANNING);
+
+        assert(driver.nextMergeManager() != null);
+    }
+
+    /**
+     * Create a coordinator in the given state.  The vehicle of a restored
+     * coordinator may have passed its merge manager already.
+     */
+    private MergeV2IAutoCoordinator(MergeV2IAutoVehicleDriverModel vehicle,
+                                    MergeV2IAutoDriver driver,
+                                    MergeMap map,
+                                    State initialState) {
         this.vehicle = vehicle;
         this.driver = driver;
         this.map = map;
@@ -159,8 +176,6 @@ public class MergeV2IAutoCoordinator extends MergeCoordinator {
 
         initStateHandlers();
 
-        assert(driver.nextMergeManager() != null);
-
         // We don't have a reservation yet
         rparameter = null;
         // We should be allowed to transmit now
@@ -172,7 +187,7 @@ public class MergeV2IAutoCoordinator extends MergeCoordinator {
         nextRequestId = 0;
 
         // Set the intial state
-        setState(State.PLANNING);
+        setState(initialState);
     }
 
     // ACTIONS //
@@ -248,6 +263,55 @@ public class MergeV2IAutoCoordinator extends MergeCoordinator {
         return state == State.AWAITING_RESPONSE;
     }
 
+    // SNAPSHOTS //
+    /**
+     * Save the state of this coordinator.
+     *
+     * @return the state of the coordinator
+     */
+    public StateRecord saveState() {
+        StateRecord s = new StateRecord(MergeV2IAutoCoordinator.class.getName(), 1);
+        s.putString("state", state.name());
+        s.putDouble("lastStateChangeTime", lastStateChangeTime);
+        s.putRecord("rparameter", rparameter == null ? null : rparameter.toState());
+        s.putInt("latestReservationNumber", latestReservationNumber);
+        s.putInt("nextRequestId", nextRequestId);
+        s.putDouble("nextAllowedSendingRequestTime", nextAllowedSendingRequestTime);
+        return s;
+    }
+
+    /**
+     * Restore a coordinator saved by {@link #saveState()}.
+     *
+     * @param s        the state of the coordinator
+     * @param vehicle  the Vehicle to coordinate
+     * @param driver   the driver
+     * @param map      the map
+     * @return the coordinator
+     * @throws IOException  if the state is not the state of a coordinator
+     */
+    public static MergeV2IAutoCoordinator fromState(StateRecord s,
+                                                    MergeV2IAutoVehicleDriverModel vehicle,
+                                                    MergeV2IAutoDriver driver,
+                                                    MergeMap map) throws IOException {
+        s.check(MergeV2IAutoCoordinator.class.getName(), 1);
+        State state = References.valueOf(State.class, s.getString("state"));
+        if (state == null) {
+            throw new StreamCorruptedException("Missing field " + s.getType() + ".state");
+        }
+        MergeV2IAutoCoordinator coordinator =
+                new MergeV2IAutoCoordinator(vehicle, driver, map, state);
+        coordinator.lastStateChangeTime = s.getDouble("lastStateChangeTime");
+        StateRecord rparameterState = s.getRecordOrNull("rparameter");
+        coordinator.rparameter = rparameterState == null ? null :
+                ReservationParameter.fromState(rparameterState, map);
+        coordinator.latestReservationNumber = s.getInt("latestReservationNumber");
+        coordinator.nextRequestId = s.getInt("nextRequestId");
+        coordinator.nextAllowedSendingRequestTime = s.getDouble("nextAllowedSendingRequestTime");
+        s.checkAllRead();
+        return coordinator;
+    }
+
     // FOR PILOT //
     /** Get the confirm message for this driver agent's reservation
      *
@@ -7,7 +7,12 @@ package aim4.driver.merge.coordinator;
 import aim4.map.lane.Lane;
 import aim4.map.merge.MergeMap;
 import aim4.msg.merge.i2v.Confirm;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
 
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.LinkedList;
 import java.util.Queue;
 
 /**
@@ -65,6 +70,13 @@ public class ReservationParameter {
     // CONSTRUCTORS
     /////////////////////////////////
 
+    /**
+     * Create an empty reservation parameter object; used by
+     * {@link #fromState(StateRecord, MergeMap)}.
+     */
+    private ReservationParameter() {
+    }
+
     /**
      * Create a reservation parameter object
      */
@@ -180,4 +192,73 @@ public class ReservationParameter {
         return accelerationProfile;
     }
 
-}
\ No newline at end of file
+    /////////////////////////////////
+    // SNAPSHOTS
+    /////////////////////////////////
+
+    /**
+     * Save this reservation parameter.
+     *
+     * @return the state of the reservation parameter
+     */
+    public StateRecord toState() {
+        StateRecord state = new StateRecord(ReservationParameter.class.getName(), 1);
+        state.putInt("arrivalLane", References.idOf(arrivalLane));
+        state.putInt("departureLane", References.idOf(departureLane));
+        state.putDouble("arrivalTime", arrivalTime);
+        state.putDouble("earlyError", earlyError);
+        state.putDouble("lateError", lateError);
+        state.putDouble("arrivalVelocity", arrivalVelocity);
+        state.putDouble("aczDistance", aczDistance);
+        // the acceleration profile as pairs of accelerations and durations
+        state.putBoolean("hasAccelerationProfile", accelerationProfile != null);
+        double[] pairs = new double[accelerationProfile == null ?
+                0 : 2 * accelerationProfile.size()];
+        if (accelerationProfile != null) {
+            int i = 0;
+            for(double[] pair : accelerationProfile) {
+                pairs[i++] = pair[0];
+                pairs[i++] = pair[1];
+            }
+        }
+        state.putDoubles("accelerationProfile", pairs);
+        return state;
+    }
+
+    /**
+     * Restore a reservation parameter saved by {@link #toState()}.
+     *
+     * @param state  the state of the reservation parameter
+     * @param map    the map
+     * @return the reservation parameter
+     * @throws IOException  if the state is not the state of a reservation
+     *                      parameter
+     */
+    public static ReservationParameter fromState(StateRecord state, MergeMap map)
+            throws IOException {
+        state.check(ReservationParameter.class.getName(), 1);
+        ReservationParameter rp = new ReservationParameter();
+        rp.arrivalLane = References.get(map.getLaneRegistry(),
+                state.getInt("arrivalLane"), "lane");
+        rp.departureLane = References.get(map.getLaneRegistry(),
+                state.getInt("departureLane"), "lane");
+        rp.arrivalTime = state.getDouble("arrivalTime");
+        rp.earlyError = state.getDouble("earlyError");
+        rp.lateError = state.getDouble("lateError");
+        rp.arrivalVelocity = state.getDouble("arrivalVelocity");
+        rp.aczDistance = state.getDouble("aczDistance");
+        boolean hasAccelerationProfile = state.getBoolean("hasAccelerationProfile");
+        double[] pairs = state.getDoubles("accelerationProfile");
+        if (pairs.length % 2 != 0 || (!hasAccelerationProfile && pairs.length > 0)) {
+            throw new StreamCorruptedException("Malformed acceleration profile");
+        }
+        if (hasAccelerationProfile) {
+            rp.accelerationProfile = new LinkedList<double[]>();
+            for(int i = 0; i < pairs.length; i += 2) {
+                rp.accelerationProfile.add(new double[] { pairs[i], pairs[i + 1] });
+            }
+        }
+        state.checkAllRead();
+        return rp;
+    }
+}
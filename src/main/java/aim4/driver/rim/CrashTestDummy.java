@@ -6,12 +6,11 @@ import aim4.map.lane.ArcSegmentLane;
 import aim4.map.lane.Lane;
 import aim4.map.lane.LineSegmentLane;
 import aim4.map.rim.RimIntersectionMap;
+import aim4.sim.SimulationContext;
 import aim4.vehicle.VehicleDriverModel;
 
 import java.awt.geom.Point2D;
 
-import static aim4.config.Debug.currentRimMap;
-
 /**
  * A driver agent that only steers and changes lanes when appropriate.
  */
@@ -67,7 +66,7 @@ public class CrashTestDummy extends BasicDriver {
 
         isFinalLane = getCurrentLane() == departureLane;
 
-        Road currentRoad = ((RimIntersectionMap) currentRimMap).getRoadByDecompositionLane(getCurrentLane());
+        Road currentRoad = ((RimIntersectionMap) SimulationContext.current().getRimMap()).getRoadByDecompositionLane(getCurrentLane());
         int laneIndex = currentRoad.findLaneIndex(getCurrentLane());
         
         if (getCurrentLane() instanceof LineSegmentLane && departureLane instanceof ArcSegmentLane) {
@@ -90,7 +89,7 @@ public class CrashTestDummy extends BasicDriver {
                 double remainingDistanceAlongCurrentLane = getCurrentLane().remainingDistanceAlongLane(vehicle.gaugePosition());
                 if (remainingDistanceAlongCurrentLane < 0.001) {
                     // Check if need to change roads
-                    Road departureRoad = ((RimIntersectionMap) currentRimMap).getRoadByDecompositionLane(departureLane);
+                    Road departureRoad = ((RimIntersectionMap) SimulationContext.current().getRimMap()).getRoadByDecompositionLane(departureLane);
 
                     // Means we may have to change the road
                     ArcSegmentLane firstExitDepartureLane = ((ArcSegmentLane) departureRoad.getExitMergingLane(laneIndex));
@@ -7,10 +7,16 @@ import aim4.driver.rim.coordinator.NoIntersectionCoordinator;
 import aim4.driver.rim.coordinator.V2ICoordinator;
 import aim4.im.rim.IntersectionManager;
 import aim4.map.BasicRIMIntersectionMap;
+import aim4.map.BasicMap;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.AutoVehicleDriverModel;
 import aim4.vehicle.rim.RIMAutoVehicleDriverModel;
 
 import java.awt.geom.Area;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
 
 /**
  * An agent that drives a {@link AutoVehicleDriverModel} while coordinating with
@@ -214,6 +220,61 @@ public class RIMAutoDriver extends RIMDriver implements AutoDriverCoordinatorVie
         return memoInCurrentIntersection;
     }
 
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The current intersection manager is saved by its ID, and the
+     * coordinator by its own state.
+     */
+    @Override
+    public StateRecord saveState(BasicMap map) throws NotSerializableException {
+        StateRecord state = new StateRecord(RIMAutoDriver.class.getName(), 1);
+        state.putRecord("rimDriver", super.saveState(map));
+        state.putInt("currentRIM", currentRIM == null ? -1 : currentRIM.getId());
+        if (coordinator == null) {
+            state.putRecord("coordinator", null);
+        } else if (coordinator instanceof V2ICoordinator) {
+            state.putRecord("coordinator",
+                    ((V2ICoordinator) coordinator).saveState());
+        } else if (coordinator instanceof NoIntersectionCoordinator) {
+            state.putRecord("coordinator",
+                    ((NoIntersectionCoordinator) coordinator).saveState());
+        } else {
+            throw new NotSerializableException(coordinator.getClass().getName());
+        }
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state, BasicMap map) throws IOException {
+        state.check(RIMAutoDriver.class.getName(), 1);
+        super.restoreState(state.getRecord("rimDriver"), map);
+        currentRIM = References.get(basicRIMIntersectionMap.getImRegistry(),
+                state.getInt("currentRIM"), "intersection manager");
+        StateRecord coordinatorState = state.getRecordOrNull("coordinator");
+        if (coordinatorState == null) {
+            coordinator = null;
+        } else if (coordinatorState.getType().equals(
+                V2ICoordinator.class.getName())) {
+            coordinator = V2ICoordinator.fromState(coordinatorState, vehicle,
+                    this, basicRIMIntersectionMap);
+        } else if (coordinatorState.getType().equals(
+                NoIntersectionCoordinator.class.getName())) {
+            coordinator = NoIntersectionCoordinator.fromState(coordinatorState,
+                    vehicle, this);
+        } else {
+            throw new InvalidClassException(coordinatorState.getType(),
+                    "not a coordinator");
+        }
+        clearMemoizationCaches();
+        state.checkAllRead();
+    }
+
 
     /////////////////////////////////
     // PRIVATE METHODS
@@ -2,8 +2,16 @@ package aim4.driver.rim;
 
 import aim4.driver.BasicDriver;
 import aim4.im.rim.IntersectionManager;
+import aim4.map.BasicMap;
 import aim4.map.Road;
+import aim4.map.SpawnPoint;
 import aim4.map.rim.RIMSpawnPoint;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 
 public abstract class RIMDriver extends BasicDriver implements RIMDriverSimModel {
     /////////////////////////////////
@@ -66,6 +74,41 @@ public abstract class RIMDriver extends BasicDriver implements RIMDriverSimModel
         this.destination = destination;
     }
 
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The spawn point and the destination are saved by their indices in the
+     * map.
+     */
+    @Override
+    public StateRecord saveState(BasicMap map) throws NotSerializableException {
+        StateRecord state = new StateRecord(RIMDriver.class.getName(), 1);
+        state.putRecord("driver", super.saveState(map));
+        state.putInt("spawnPoint", References.indexOf(map.getSpawnPoints(), spawnPoint));
+        state.putInt("destination", References.indexOf(map.getRoads(), destination));
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state, BasicMap map) throws IOException {
+        state.check(RIMDriver.class.getName(), 1);
+        super.restoreState(state.getRecord("driver"), map);
+        SpawnPoint sp = References.get(map.getSpawnPoints(),
+                state.getInt("spawnPoint"), "spawn point");
+        if (sp != null && !(sp instanceof RIMSpawnPoint)) {
+            throw new StreamCorruptedException("Unknown spawn point "
+                    + state.getInt("spawnPoint"));
+        }
+        spawnPoint = (RIMSpawnPoint) sp;
+        destination = References.get(map.getRoads(), state.getInt("destination"), "road");
+        state.checkAllRead();
+    }
+
     /////////////////////////////////
     // PROTECTED METHODS
     /////////////////////////////////
@@ -3,8 +3,11 @@ package aim4.driver.rim.coordinator;
 import aim4.driver.Coordinator;
 import aim4.driver.rim.RIMAutoDriver;
 import aim4.driver.rim.pilot.V2IPilot;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.rim.RIMAutoVehicleDriverModel;
 
+import java.io.IOException;
+
 /**
  * The coordinator when there is no intersection.
  */
@@ -57,4 +60,33 @@ public class NoIntersectionCoordinator implements Coordinator{
     public boolean isTerminated() {
         return false;
     }
+
+    // snapshots
+
+    /**
+     * Save the state of the coordinator.  The coordinator has no state of its
+     * own; the record only tells its type.
+     *
+     * @return the state of the coordinator
+     */
+    public StateRecord saveState() {
+        return new StateRecord(NoIntersectionCoordinator.class.getName(), 1);
+    }
+
+    /**
+     * Restore a coordinator saved by {@link #saveState()}.
+     *
+     * @param state    the state of the coordinator
+     * @param vehicle  the Vehicle to coordinate
+     * @param driver   the driver
+     * @return the coordinator
+     * @throws IOException  if the state is not the state of a coordinator
+     */
+    public static NoIntersectionCoordinator fromState(
+            StateRecord state, RIMAutoVehicleDriverModel vehicle,
+            RIMAutoDriver driver) throws IOException {
+        state.check(NoIntersectionCoordinator.class.getName(), 1);
+        state.checkAllRead();
+        return new NoIntersectionCoordinator(vehicle, driver);
+    }
 }
@@ -22,14 +22,20 @@ import aim4.msg.rim.v2i.Away;
 import aim4.msg.rim.v2i.Cancel;
 import aim4.msg.rim.v2i.Done;
 import aim4.msg.rim.v2i.Request;
+import aim4.sim.SimulationContext;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.Util;
 import aim4.vehicle.AccelSchedule;
 import aim4.vehicle.AutoVehicleDriverModel;
 import aim4.vehicle.VehicleUtil;
 import aim4.vehicle.rim.RIMAutoVehicleDriverModel;
 
+import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 
@@ -257,14 +263,21 @@ public class V2ICoordinator implements Coordinator{
         // CONSTRUCTORS
         /////////////////////////////////
 
+        /**
+         * Create an empty reservation parameter object; used by
+         * {@link #fromState(StateRecord, BasicRIMIntersectionMap)}.
+         */
+        private ReservationParameter() {
+        }
+
         /**
          * Create a reservation parameter object
          */
         public ReservationParameter(Confirm msg) {
             this.arrivalLane =
-                    Debug.currentRimMap.getLaneRegistry().get(msg.getArrivalLaneID());
+                    SimulationContext.current().getRimMap().getLaneRegistry().get(msg.getArrivalLaneID());
             this.departureLane =
-                    Debug.currentRimMap.getLaneRegistry().get(msg.getDepartureLaneID());
+                    SimulationContext.current().getRimMap().getLaneRegistry().get(msg.getDepartureLaneID());
             this.arrivalTime = msg.getArrivalTime();
             this.earlyError = msg.getEarlyError();
             this.lateError = msg.getLateError();
@@ -374,6 +387,78 @@ public class V2ICoordinator implements Coordinator{
             return accelerationProfile;
         }
 
+        // snapshots
+
+        /**
+         * Save the state of the reservation parameter.  The acceleration
+         * profile is saved as it is now, after the pilot consumed a part of it.
+         *
+         * @return the state of the reservation parameter
+         */
+        public StateRecord toState() {
+            StateRecord state =
+                    new StateRecord(ReservationParameter.class.getName(), 1);
+            state.putInt("arrivalLane", References.idOf(arrivalLane));
+            state.putInt("departureLane", References.idOf(departureLane));
+            state.putDouble("arrivalTime", arrivalTime);
+            state.putDouble("earlyError", earlyError);
+            state.putDouble("lateError", lateError);
+            state.putDouble("arrivalVelocity", arrivalVelocity);
+            state.putDouble("aczDistance", aczDistance);
+            // the acceleration profile as pairs of accelerations and durations
+            state.putBoolean("hasAccelerationProfile", accelerationProfile != null);
+            double[] pairs = new double[accelerationProfile == null ?
+                    0 : 2 * accelerationProfile.size()];
+            if (accelerationProfile != null) {
+                int i = 0;
+                for (double[] pair : accelerationProfile) {
+                    pairs[i++] = pair[0];
+                    pairs[i++] = pair[1];
+                }
+            }
+            state.putDoubles("accelerationProfile", pairs);
+            return state;
+        }
+
+        /**
+         * Restore a reservation parameter saved by {@link #toState()}.
+         *
+         * @param state  the state of the reservation parameter
+         * @param map    the map
+         * @return the reservation parameter
+         * @throws IOException  if the state is not the state of a reservation
+         *                      parameter
+         */
+        public static ReservationParameter fromState(StateRecord state,
+                                                     BasicRIMIntersectionMap map)
+                throws IOException {
+            state.check(ReservationParameter.class.getName(), 1);
+            ReservationParameter rp = new ReservationParameter();
+            rp.arrivalLane = References.get(map.getLaneRegistry(),
+                    state.getInt("arrivalLane"), "lane");
+            rp.departureLane = References.get(map.getLaneRegistry(),
+                    state.getInt("departureLane"), "lane");
+            rp.arrivalTime = state.getDouble("arrivalTime");
+            rp.earlyError = state.getDouble("earlyError");
+            rp.lateError = state.getDouble("lateError");
+            rp.arrivalVelocity = state.getDouble("arrivalVelocity");
+            rp.aczDistance = state.getDouble("aczDistance");
+            boolean hasAccelerationProfile =
+                    state.getBoolean("hasAccelerationProfile");
+            double[] pairs = state.getDoubles("accelerationProfile");
+            if (pairs.length % 2 != 0 || (!hasAccelerationProfile && pairs.length > 0)) {
+                throw new StreamCorruptedException("Malformed acceleration profile");
+            }
+            if (hasAccelerationProfile) {
+                rp.accelerationProfile = new LinkedList<double[]>();
+                for (int i = 0; i < pairs.length; i += 2) {
+                    rp.accelerationProfile.add(new double[] { pairs[i], pairs[i + 1] });
+                }
+            }
+            state.checkAllRead();
+            return rp;
+        }
+
     }
 
     /////////////////////////////////
@@ -464,14 +549,8 @@ public class V2ICoordinator implements Coordinator{
     public V2ICoordinator(RIMAutoVehicleDriverModel vehicle,
                           RIMAutoDriver driver,
                           BasicRIMIntersectionMap basicRIMIntersectionMap) {
-        this.vehicle = vehicle;
-        this.driver = driver;
-        this.pilot = new V2IPilot(vehicle, driver);
-        this.navigator = new BasicNavigator(vehicle.getSpec(), basicRIMIntersectionMap);
-
-        isDebugging = Debug.isTargetVIN(vehicle.getVIN());
-
-        initStateHandlers();
+        this(vehicle, driver,
+                new BasicNavigator(vehicle.getSpec(), basicRIMIntersectionMap));
 
         assert (driver.nextIntersectionManager() != null);
 
@@ -491,6 +570,26 @@ public class V2ICoordinator implements Coordinator{
         setState(State.V2I_PLANNING);
     }
 
+    /**
+     * Create a coordinator with its agents but without its initial state.
+     *
+     * @param vehicle    the Vehicle to coordinate
+     * @param driver     the driver
+     * @param navigator  the navigator
+     */
+    private V2ICoordinator(RIMAutoVehicleDriverModel vehicle,
+                           RIMAutoDriver driver,
+                           Navigator navigator) {
+        this.vehicle = vehicle;
+        this.driver = driver;
+        this.pilot = new V2IPilot(vehicle, driver);
+        this.navigator = navigator;
+
+        isDebugging = Debug.isTargetVIN(vehicle.getVIN());
+
+        initStateHandlers();
+    }
+
 
     /////////////////////////////////
     // PUBLIC METHODS
@@ -594,6 +693,63 @@ public class V2ICoordinator implements Coordinator{
         }
     }
 
+    // snapshots
+
+    /**
+     * Save the state of the coordinator.  The navigator has no state.
+     *
+     * @return the state of the coordinator
+     */
+    public StateRecord saveState() {
+        StateRecord s = new StateRecord(V2ICoordinator.class.getName(), 1);
+        s.putString("state", state.name());
+        s.putDouble("lastStateChangeTime", lastStateChangeTime);
+        s.putRecord("rparameter",
+                rparameter == null ? null : rparameter.toState());
+        s.putInt("latestReservationNumber", latestReservationNumber);
+        s.putInt("nextRequestId", nextRequestId);
+        s.putDouble("nextAllowedSendingRequestTime",
+                nextAllowedSendingRequestTime);
+        s.putDouble("nextAllowedConsideringLaneChangeTime",
+                nextAllowedConsideringLaneChangeTime);
+        return s;
+    }
+
+    /**
+     * Restore a coordinator saved by {@link #saveState()}.
+     *
+     * @param s                        the state of the coordinator
+     * @param vehicle                  the Vehicle to coordinate
+     * @param driver                   the driver
+     * @param basicRIMIntersectionMap  the map
+     * @return the coordinator
+     * @throws IOException  if the state is not the state of a coordinator
+     */
+    public static V2ICoordinator fromState(
+            StateRecord s, RIMAutoVehicleDriverModel vehicle, RIMAutoDriver driver,
+            BasicRIMIntersectionMap basicRIMIntersectionMap) throws IOException {
+        s.check(V2ICoordinator.class.getName(), 1);
+        V2ICoordinator coordinator = new V2ICoordinator(vehicle, driver,
+                new BasicNavigator(vehicle.getSpec(), basicRIMIntersectionMap));
+        coordinator.state = References.valueOf(State.class, s.getString("state"));
+        if (coordinator.state == null) {
+            throw new StreamCorruptedException("Missing field " + s.getType()
+                    + ".state");
+        }
+        coordinator.lastStateChangeTime = s.getDouble("lastStateChangeTime");
+        StateRecord rparameterState = s.getRecordOrNull("rparameter");
+        coordinator.rparameter = rparameterState == null ? null :
+                ReservationParameter.fromState(rparameterState, basicRIMIntersectionMap);
+        coordinator.latestReservationNumber = s.getInt("latestReservationNumber");
+        coordinator.nextRequestId = s.getInt("nextRequestId");
+        coordinator.nextAllowedSendingRequestTime =
+                s.getDouble("nextAllowedSendingRequestTime");
+        coordinator.nextAllowedConsideringLaneChangeTime =
+                s.getDouble("nextAllowedConsideringLaneChangeTime");
+        s.checkAllRead();
+        return coordinator;
+    }
+
 
     // debug
 
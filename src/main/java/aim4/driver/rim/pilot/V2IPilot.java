@@ -9,6 +9,7 @@ import aim4.map.lane.ArcSegmentLane;
 import aim4.map.lane.Lane;
 import aim4.map.lane.LineSegmentLane;
 import aim4.map.rim.RimIntersectionMap;
+import aim4.sim.SimulationContext;
 import aim4.vehicle.AutoVehicleDriverModel;
 import aim4.vehicle.VehicleUtil;
 import aim4.vehicle.rim.RIMAutoVehicleDriverModel;
@@ -17,8 +18,6 @@ import java.awt.geom.Point2D;
 import java.util.Iterator;
 import java.util.Queue;
 
-import static aim4.config.Debug.currentRimMap;
-
 /**
  * An agent that pilots a {@link AutoVehicleDriverModel} autonomously. This agent
  * attempts to emulate the behavior of a real-world autonomous driver agent in
@@ -104,7 +103,7 @@ public class V2IPilot {
     public void takeSteeringActionForTraversing(ReservationParameter rp) {
         LineSegmentLane departureLineLane;
 
-        Road currentRoad = ((RimIntersectionMap) currentRimMap).getRoadByDecompositionLane(driver.getCurrentLane());
+        Road currentRoad = ((RimIntersectionMap) SimulationContext.current().getRimMap()).getRoadByDecompositionLane(driver.getCurrentLane());
         int laneIndex = currentRoad.findLaneIndex(driver.getCurrentLane());
         
         boolean isFinalLane = driver.getCurrentLane() == rp.getDepartureLane();
@@ -129,7 +128,7 @@ public class V2IPilot {
                 double remainingDistanceAlongCurrentLane = driver.getCurrentLane().remainingDistanceAlongLane(vehicle.gaugePosition());
                 if (remainingDistanceAlongCurrentLane < 0.001) {
                     // Check if need to change roads
-                    Road departureRoad = ((RimIntersectionMap) currentRimMap).getRoadByDecompositionLane(rp.getDepartureLane());
+                    Road departureRoad = ((RimIntersectionMap) SimulationContext.current().getRimMap()).getRoadByDecompositionLane(rp.getDepartureLane());
 
                     // Means we may have to change the road
                     ArcSegmentLane firstExitDepartureLane = ((ArcSegmentLane) departureRoad.getExitMergingLane(laneIndex));
@@ -36,6 +36,7 @@ import javax.swing.event.ChangeListener;
 
 import aim4.gui.statuspanel.ConsolePanel;
 import aim4.gui.statuspanel.AdminControlPanel;
+import aim4.gui.statuspanel.ProfilePanel;
 import aim4.gui.statuspanel.SimControlPanel;
 import aim4.gui.statuspanel.StatPanel;
 import aim4.gui.statuspanel.SystemPanel;
@@ -57,6 +58,8 @@ public class StatusPanelContainer extends JTabbedPane
   SimControlPanel controlPanel;
   /** The statistic panel */
   StatPanel statPanel;
+  /** The profile panel */
+  ProfilePanel profilePanel;
   /** The system panel */
   SystemPanel systemPanel;
   /** The console panel */
@@ -80,6 +83,8 @@ public class StatusPanelContainer extends JTabbedPane
     add("Simulation", controlPanel);
     statPanel = new StatPanel(viewer);
     add("Statistics", statPanel);
+    profilePanel = new ProfilePanel(viewer);
+    add("Profile", profilePanel);
     systemPanel = new SystemPanel();
     add("System", systemPanel);
     consolePanel = new ConsolePanel();
@@ -118,6 +123,7 @@ public class StatusPanelContainer extends JTabbedPane
   public void clear() {
     controlPanel.clear();
     statPanel.clear();
+    profilePanel.clear();
     systemPanel.clear();
     consolePanel.clear();
     vehicleInfoPanel.clear();
@@ -31,8 +31,13 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package aim4.gui;
 
 import aim4.config.Debug;
+import aim4.gui.screen.FrameRecorder;
 import aim4.gui.viewer.*;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.BasicMap;
+import aim4.map.BasicRIMIntersectionMap;
 import aim4.sim.Simulator;
+import aim4.sim.trace.TraceReader;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
@@ -136,6 +141,12 @@ public class Viewer extends JFrame implements ActionListener, ItemListener, KeyL
     private JMenuItem startRecordingMenuItem;
     /** Menu item for deactivating recording. */
     private JMenuItem stopRecordingMenuItem;
+    /** Menu item "Replay Trace..." */
+    private JMenuItem startReplayMenuItem;
+    /** Menu item "Export Replay Frames..." */
+    private JMenuItem exportReplayMenuItem;
+    /** Menu item "Stop Replay" */
+    private JMenuItem stopReplayMenuItem;
     /** Menu item for starting the UDP listener */
     private JMenuItem startUdpListenerMenuItem;
     /** Menu item for stopping the UDP listener */
@@ -301,6 +312,19 @@ public class Viewer extends JFrame implements ActionListener, ItemListener, KeyL
         stopRecordingMenuItem = new JMenuItem("Stop");
         stopRecordingMenuItem.addActionListener(this);
         menu.add(stopRecordingMenuItem);
+        menu.addSeparator();
+        // Recording->Replay Trace
+        startReplayMenuItem = new JMenuItem("Replay Trace...");
+        startReplayMenuItem.addActionListener(this);
+        menu.add(startReplayMenuItem);
+        // Recording->Export Replay Frames
+        exportReplayMenuItem = new JMenuItem("Export Replay Frames...");
+        exportReplayMenuItem.addActionListener(this);
+        menu.add(exportReplayMenuItem);
+        // Recording->Stop Replay
+        stopReplayMenuItem = new JMenuItem("Stop Replay");
+        stopReplayMenuItem.addActionListener(this);
+        menu.add(stopReplayMenuItem);
 
         // UDP
         menu = new JMenu("UDP");
@@ -425,6 +449,9 @@ public class Viewer extends JFrame implements ActionListener, ItemListener, KeyL
         resetButtonMenuItem();
         startRecordingMenuItem.setEnabled(true);
         stopRecordingMenuItem.setEnabled(false);
+        startReplayMenuItem.setEnabled(true);
+        exportReplayMenuItem.setEnabled(false);
+        stopReplayMenuItem.setEnabled(false);
         startUdpListenerMenuItem.setEnabled(false);
         stopUdpListenerMenuItem.setEnabled(false);
         showSimulationTimeMenuItem.setSelected(IS_SHOW_SIMULATION_TIME);
@@ -592,6 +619,104 @@ public class Viewer extends JFrame implements ActionListener, ItemListener, KeyL
         tabbedPane.setEnabled(true);
     }
 
+    /**
+     * Start recording the frames of the simulation as PNG images in a
+     * directory or as an MJPEG file, as chosen by the user.
+     */
+    private void startRecording() {
+        Object[] formats = {"PNG Images", "MJPEG Video"};
+        int choice = JOptionPane.showOptionDialog(this,
+                "Record the frames as", "Start Recording",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE,
+                null, formats, formats[0]);
+        if (choice < 0) {
+            return;
+        }
+        FrameRecorder.Format format =
+                choice == 0 ? FrameRecorder.Format.PNG : FrameRecorder.Format.MJPEG;
+        JFileChooser chooser = new JFileChooser();
+        int returnVal;
+        if (format == FrameRecorder.Format.PNG) {
+            chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            returnVal = chooser.showDialog(this, "Choose Directory");
+        } else {
+            chooser.setFileFilter(new FileNameExtensionFilter("MJPEG Files", "mjpeg"));
+            returnVal = chooser.showSaveDialog(this);
+        }
+        if (returnVal == JFileChooser.APPROVE_OPTION) {
+            try {
+                selectedViewer.startRecording(chooser.getSelectedFile(), format);
+            } catch (IOException ioe) {
+                JOptionPane.showMessageDialog(this, ioe.getMessage(),
+                        "Cannot start recording", JOptionPane.ERROR_MESSAGE);
+            }
+            if (selectedViewer.isRecording()) {
+                startRecordingMenuItem.setEnabled(false);
+                stopRecordingMenuItem.setEnabled(true);
+            }
+        }
+    }
+
+    /**
+     * Start replaying a trace chosen by the user in the AIM or RIM viewer,
+     * according to the map of the trace.
+     */
+    private void startReplay() {
+        JFileChooser chooser = new JFileChooser();
+        int returnVal = chooser.showDialog(this, "Replay");
+        if (returnVal != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        // a segment of the trace may be chosen instead of the trace
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0 && name.substring(dot + 1).matches("\\d+")) {
+            file = new File(file.getParentFile(), name.substring(0, dot));
+        }
+        try {
+            TraceReader trace = new TraceReader(file);
+            if (trace.getNumOfFrames() == 0) {
+                throw new IOException("The trace has no frame");
+            }
+            BasicMap map = SimViewer.createReplayMap(trace);
+            SimViewer viewer;
+            if (map instanceof BasicAIMIntersectionMap) {
+                viewer = aimViewer;
+            } else if (map instanceof BasicRIMIntersectionMap) {
+                viewer = rimViewer;
+            } else {
+                throw new IOException("Traces of this simulation cannot be replayed");
+            }
+            tabbedPane.setSelectedComponent(viewer);
+            selectedViewer.startReplay(trace, map);
+        } catch (IOException ioe) {
+            JOptionPane.showMessageDialog(this, ioe.getMessage(),
+                    "Cannot replay the trace", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        tabbedPane.setEnabled(false);
+        startButton.setEnabled(false);
+        startMenuItem.setEnabled(false);
+        startReplayMenuItem.setEnabled(false);
+        exportReplayMenuItem.setEnabled(true);
+        stopReplayMenuItem.setEnabled(true);
+        selectedViewer.requestScreenFocusInWindow();
+    }
+
+    /**
+     * Stop replaying the trace.
+     */
+    private void stopReplay() {
+        selectedViewer.stopReplay();
+        tabbedPane.setEnabled(true);
+        startButton.setEnabled(true);
+        startMenuItem.setEnabled(true);
+        startReplayMenuItem.setEnabled(true);
+        exportReplayMenuItem.setEnabled(false);
+        stopReplayMenuItem.setEnabled(false);
+    }
+
     public void startUdpListening() {
         assert startUdpListenerMenuItem.isEnabled();
 
@@ -723,28 +848,38 @@ public class Viewer extends JFrame implements ActionListener, ItemListener, KeyL
         }
         else if (e.getSource() == startRecordingMenuItem) {
             if (!selectedViewer.isRecording()) {
+                startRecording();
+            }
+        } else if (e.getSource() == stopRecordingMenuItem) {
+            if (selectedViewer.isRecording()) {
+                try {
+                    selectedViewer.stopRecording();
+                } catch (IOException ioe) {
+                    JOptionPane.showMessageDialog(this, ioe.getMessage(),
+                            "Cannot save the recording", JOptionPane.ERROR_MESSAGE);
+                }
+                startRecordingMenuItem.setEnabled(true);
+                stopRecordingMenuItem.setEnabled(false);
+            }
+        } else if (e.getSource() == startReplayMenuItem) {
+            startReplay();
+        } else if (e.getSource() == exportReplayMenuItem) {
+            if (selectedViewer.isReplaying()) {
                 JFileChooser chooser = new JFileChooser();
                 chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
                 int returnVal = chooser.showDialog(this, "Choose Directory");
                 if (returnVal == JFileChooser.APPROVE_OPTION) {
                     try {
-                        selectedViewer.setImageDir(chooser.getSelectedFile().getCanonicalPath());
-                        selectedViewer.setRecording(true);
+                        selectedViewer.exportReplayFrames(
+                                chooser.getSelectedFile().getCanonicalPath(), 1);
                     } catch (IOException ioe) {
                         // nothing
                     }
-                    if (selectedViewer.isRecording()) {
-                        startRecordingMenuItem.setEnabled(false);
-                        stopRecordingMenuItem.setEnabled(true);
-                    }
                 }
             }
-        } else if (e.getSource() == stopRecordingMenuItem) {
-            if (selectedViewer.isRecording()) {
-                selectedViewer.setRecording(false);
-                selectedViewer.setImageCounter(0);
-                startRecordingMenuItem.setEnabled(true);
-                stopRecordingMenuItem.setEnabled(false);
+        } else if (e.getSource() == stopReplayMenuItem) {
+            if (selectedViewer.isReplaying()) {
+                stopReplay();
             }
         } else if (e.getSource() == startUdpListenerMenuItem) {
             startUdpListening();
@@ -806,7 +941,36 @@ public class Viewer extends JFrame implements ActionListener, ItemListener, KeyL
      */
     @Override
     public void keyPressed(KeyEvent e) {
-        if (!selectedViewer.isSimThreadNull()) {
+        if (selectedViewer.isReplaying()) {
+            switch (e.getKeyCode()) {
+                case KeyEvent.VK_LEFT:
+                    selectedViewer.stepReplay(-1);
+                    break;
+                case KeyEvent.VK_RIGHT:
+                    selectedViewer.stepReplay(1);
+                    break;
+                case KeyEvent.VK_PAGE_UP:
+                    selectedViewer.seekReplay(-10.0);
+                    break;
+                case KeyEvent.VK_PAGE_DOWN:
+                    selectedViewer.seekReplay(10.0);
+                    break;
+                case KeyEvent.VK_HOME:
+                    selectedViewer.showReplayFrame(0);
+                    break;
+                case KeyEvent.VK_END:
+                    selectedViewer.showReplayFrame(Integer.MAX_VALUE);
+                    break;
+                case KeyEvent.VK_SPACE:
+                    selectedViewer.toggleReplay();
+                    break;
+                case KeyEvent.VK_ESCAPE:
+                    stopReplay();
+                    break;
+                default:
+                    // do nothing
+            }
+        } else if (!selectedViewer.isSimThreadNull()) {
             switch (e.getKeyCode()) {
                 case KeyEvent.VK_ENTER:
                     startButtonHandler();
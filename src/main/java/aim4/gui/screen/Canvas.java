@@ -38,7 +38,10 @@ import aim4.map.BasicMap;
 import aim4.map.DataCollectionLine;
 import aim4.map.Road;
 import aim4.map.lane.Lane;
+import aim4.msg.aim.i2v.I2VMessage;
+import aim4.msg.aim.v2i.V2IMessage;
 import aim4.sim.Simulator;
+import aim4.sim.trace.TraceFrame;
 import aim4.util.Util;
 import aim4.vehicle.VehicleSimModel;
 
@@ -51,8 +54,10 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The Canvas is the visual area on which the Layout, IntersectionManagers,
@@ -189,6 +194,14 @@ public abstract class Canvas extends JPanel implements ComponentListener,
     protected static final Color TRACK_COLOR = Color.RED;
     /** The stroke of the track */
     protected static final Stroke TRACK_STROKE = new BasicStroke(0.3f);
+    // Replayed messages
+    /** The color of replayed vehicles that have just sent a request */
+    private static final Color REPLAY_REQUEST_COLOR =
+            Color.blue.brighter().brighter().brighter();
+    /** The color of replayed vehicles that have just been confirmed */
+    private static final Color REPLAY_CONFIRM_COLOR = Color.WHITE;
+    /** The color of replayed vehicles that have just been rejected */
+    private static final Color REPLAY_REJECT_COLOR = Color.RED;
     /////////////////////////////////
     // PRIVATE FIELDS
     /////////////////////////////////
@@ -244,6 +257,11 @@ public abstract class Canvas extends JPanel implements ComponentListener,
      * Whether to show the VIN numbers
      */
     protected boolean isShowVin;
+    /**
+     * The frame of a trace drawn instead of the simulator; null if no trace
+     * is replayed
+     */
+    private TraceFrame replayFrame;
 
 
     /////////////////////////////////
@@ -618,7 +636,11 @@ public abstract class Canvas extends JPanel implements ComponentListener,
         paintEntireBuffer(displayBuffer, BACKGROUND_COLOR);
         // draw the map
         drawImageOnBuffer(displayBuffer, getMapImageTable(scaleIndex));
-        // Get the simulator
+        // draw the replayed frame, if any, since there is no simulator then
+        if (replayFrame != null) {
+            drawReplayFrame(displayBuffer, replayFrame);
+            repaint();
+        }
     }
 
     /**
@@ -777,6 +799,83 @@ public abstract class Canvas extends JPanel implements ComponentListener,
      */
     protected abstract void drawTracks(Graphics2D buffer);
 
+    /**
+     * Draw the vehicles of a frame of a trace.  The vehicles that sent a
+     * request, were confirmed or were rejected in the step of the frame are
+     * colored accordingly.
+     *
+     * @param buffer  the display buffer
+     * @param frame   the frame
+     */
+    private void drawReplayFrame(Graphics2D buffer, TraceFrame frame) {
+        Map<Integer, Color> messageColors = new HashMap<Integer, Color>();
+        for (int i = 0; i < frame.getNumOfMessages(); i++) {
+            if (frame.getMessageKind(i) == TraceFrame.V2I) {
+                if (frame.getMessageType(i) == V2IMessage.Type.REQUEST.ordinal()) {
+                    messageColors.put(frame.getMessageVin(i), REPLAY_REQUEST_COLOR);
+                }
+            } else if (frame.getMessageType(i) == I2VMessage.Type.CONFIRM.ordinal()) {
+                messageColors.put(frame.getMessageVin(i), REPLAY_CONFIRM_COLOR);
+            } else if (frame.getMessageType(i) == I2VMessage.Type.REJECT.ordinal()) {
+                messageColors.put(frame.getMessageVin(i), REPLAY_REJECT_COLOR);
+            }
+        }
+        buffer.setStroke(VEHICLE_STROKE);
+        for (int i = 0; i < frame.getNumOfVehicles(); i++) {
+            int vin = frame.getVin(i);
+            if (Debug.getTargetVIN() == vin) {
+                buffer.setPaint(VEHICLE_SELECTED_COLOR);
+            } else if (Debug.getVehicleColor(vin) != null) {
+                buffer.setPaint(Debug.getVehicleColor(vin));
+            } else if (messageColors.containsKey(vin)) {
+                buffer.setPaint(messageColors.get(vin));
+            } else {
+                buffer.setPaint(VEHICLE_COLOR);
+            }
+            buffer.fill(getReplayVehicleShape(frame, i));
+        }
+        if (isShowVin) {
+            buffer.setColor(VEHICLE_INFO_STRING_COLOR);
+            buffer.setFont(VEHICLE_INFO_STRING_FONT);
+            for (int i = 0; i < frame.getNumOfVehicles(); i++) {
+                Rectangle2D bounds = getReplayVehicleShape(frame, i).getBounds2D();
+                buffer.drawString(Integer.toString(frame.getVin(i)),
+                        (float) bounds.getCenterX(),
+                        (float) bounds.getCenterY());
+            }
+        }
+        if (isShowSimulationTime) {
+            drawSimulationTime(buffer, frame.getTime());
+        }
+    }
+
+    /**
+     * Get the shape of a vehicle of a frame of a trace: a rectangle behind
+     * the middle of its front.
+     *
+     * @param frame  the frame
+     * @param i      the index of the vehicle
+     * @return the shape of the vehicle
+     */
+    public static Shape getReplayVehicleShape(TraceFrame frame, int i) {
+        double x = frame.getX(i);
+        double y = frame.getY(i);
+        double heading = frame.getHeading(i);
+        double length = frame.getLength(i);
+        double halfWidth = frame.getWidth(i) / 2;
+        double dx = length * Math.cos(heading);
+        double dy = length * Math.sin(heading);
+        double wx = halfWidth * Math.cos(heading + Math.PI / 2);
+        double wy = halfWidth * Math.sin(heading + Math.PI / 2);
+        Path2D.Double shape = new Path2D.Double();
+        shape.moveTo(x + wx, y + wy);
+        shape.lineTo(x + wx - dx, y + wy - dy);
+        shape.lineTo(x - wx - dx, y - wy - dy);
+        shape.lineTo(x - wx, y - wy);
+        shape.closePath();
+        return shape;
+    }
+
     /////////////////////////////////
     // PUBLIC METHODS
     /////////////////////////////////
@@ -954,6 +1053,15 @@ public abstract class Canvas extends JPanel implements ComponentListener,
         isShowVin = b;
     }
 
+    /**
+     * Set the frame of a trace that is drawn instead of the simulator.
+     *
+     * @param frame  the frame; null to draw the simulator again
+     */
+    public void setReplayFrame(TraceFrame frame) {
+        replayFrame = frame;
+    }
+
     /**
      * Save the screen to a file in PNG format.
      *
@@ -971,6 +1079,17 @@ public abstract class Canvas extends JPanel implements ComponentListener,
         }
     }
 
+    /**
+     * Record the image on the canvas.  The image is copied at once and
+     * encoded by the recorder in the background.
+     *
+     * @param recorder  the frame recorder
+     * @return whether the image is recorded; false if it is dropped
+     */
+    public synchronized boolean recordFrame(FrameRecorder recorder) {
+        return displayImage != null && recorder.record(displayImage);
+    }
+
     /**
      * Convert the position on screen to the position on the map.
      *
@@ -0,0 +1,325 @@
+package aim4.gui.screen;
+
+import aim4.config.Constants;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.NumberFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Records the frames shown on a canvas without making the simulation wait
+ * for them to be encoded.  A frame is copied into an image taken from a
+ * small pool and queued; a background thread encodes the queued frames and
+ * returns their images to the pool.  When all the images of the pool are
+ * queued, the next frame is either dropped or waited for, according to the
+ * {@link OverflowPolicy}.
+ * <p>
+ * The frames are encoded either as numbered PNG images in a directory, or
+ * as a single MJPEG file: the JPEG images of the frames one after the other,
+ * which video tools read as a motion JPEG stream (for instance
+ * <code>ffmpeg -f mjpeg -i frames.mjpeg frames.mp4</code>).
+ */
+public class FrameRecorder implements Closeable {
+
+    /////////////////////////////////
+    // NESTED CLASSES
+    /////////////////////////////////
+
+    /**
+     * The format of the recorded frames.
+     */
+    public enum Format {
+        /** Numbered PNG images in a directory */
+        PNG,
+        /** JPEG images appended to a single MJPEG file */
+        MJPEG,
+    }
+
+    /**
+     * What to do with a frame when the encoder is behind.
+     */
+    public enum OverflowPolicy {
+        /** Drop the frame, so that the simulation never waits */
+        DROP,
+        /** Wait until a queued frame is encoded, so that no frame is lost */
+        BLOCK,
+    }
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The default number of frames that can wait to be encoded */
+    public static final int DEFAULT_QUEUE_CAPACITY = 8;
+
+    /** The quality of the JPEG images of an MJPEG file */
+    private static final float JPEG_QUALITY = 0.9f;
+
+    /** The frame that tells the encoder to stop */
+    private static final BufferedImage END_OF_FRAMES =
+            new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The directory of the PNG images, or the MJPEG file */
+    private final File output;
+    /** The format of the frames */
+    private final Format format;
+    /** The format of the numbers of the PNG images */
+    private final NumberFormat leadingZeroes =
+            (NumberFormat) Constants.LEADING_ZEROES.clone();
+    /** What to do with a frame when the encoder is behind */
+    private final OverflowPolicy policy;
+    /** The images that are free to be copied into */
+    private final BlockingQueue<BufferedImage> pool;
+    /** The frames waiting to be encoded */
+    private final BlockingQueue<BufferedImage> queue;
+    /** The encoder thread */
+    private final Thread encoder;
+    /** The MJPEG file; null if the frames are PNG images */
+    private final OutputStream mjpegStream;
+    /** The JPEG writer of the MJPEG file; null if the frames are PNG images */
+    private final ImageWriter jpegWriter;
+    /** The number of frames encoded */
+    private volatile int numOfEncodedFrames;
+    /** The number of frames dropped */
+    private int numOfDroppedFrames;
+    /** The first error of the encoder; null if there is none */
+    private volatile IOException failure;
+    /** Whether the recorder is closed */
+    private volatile boolean closed;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a recorder and start its encoder thread.
+     *
+     * @param output         the directory of the PNG images, which must
+     *                       exist, or the MJPEG file
+     * @param format         the format of the frames
+     * @param policy         what to do with a frame when the encoder is
+     *                       behind
+     * @param queueCapacity  the number of frames that can wait to be encoded
+     * @throws IOException  if the MJPEG file cannot be created
+     */
+    public FrameRecorder(File output, Format format, OverflowPolicy policy,
+                         int queueCapacity) throws IOException {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.output = output;
+        this.format = format;
+        this.policy = policy;
+        this.pool = new ArrayBlockingQueue<BufferedImage>(queueCapacity);
+        // room for the end of the frames
+        this.queue = new ArrayBlockingQueue<BufferedImage>(queueCapacity + 1);
+        for (int i = 0; i < queueCapacity; i++) {
+            // the images are allocated at the size of the first frame
+            pool.add(END_OF_FRAMES);
+        }
+        if (format == Format.MJPEG) {
+            mjpegStream = new BufferedOutputStream(new FileOutputStream(output));
+            jpegWriter = ImageIO.getImageWritersByFormatName("jpeg").next();
+        } else {
+            mjpegStream = null;
+            jpegWriter = null;
+        }
+        encoder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                encodeFrames();
+            }
+        }, "AIM4 Frame Encoder Thread");
+        encoder.setDaemon(true);
+        encoder.start();
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Record a frame.  The frame is copied at once, so the image can be
+     * drawn on again as soon as this method returns.
+     *
+     * @param frame  the frame
+     * @return whether the frame is recorded; false if it is dropped or the
+     *         recorder is closed
+     */
+    public boolean record(Image frame) {
+        if (closed) {
+            return false;
+        }
+        BufferedImage image = pool.poll();
+        if (image == null) {
+            if (policy == OverflowPolicy.DROP || failure != null) {
+                numOfDroppedFrames++;
+                return false;
+            }
+            try {
+                image = pool.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                numOfDroppedFrames++;
+                return false;
+            }
+        }
+        int width = frame.getWidth(null);
+        int height = frame.getHeight(null);
+        if (image.getWidth() != width || image.getHeight() != height
+                || image == END_OF_FRAMES) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        Graphics g = image.getGraphics();
+        g.drawImage(frame, 0, 0, null);
+        g.dispose();
+        queue.add(image);
+        return true;
+    }
+
+    /**
+     * Get the number of frames encoded so far.
+     *
+     * @return the number of frames encoded
+     */
+    public int getNumOfEncodedFrames() {
+        return numOfEncodedFrames;
+    }
+
+    /**
+     * Get the number of frames dropped so far.
+     *
+     * @return the number of frames dropped
+     */
+    public int getNumOfDroppedFrames() {
+        return numOfDroppedFrames;
+    }
+
+    /**
+     * Get the directory of the PNG images, or the MJPEG file.
+     *
+     * @return the output of the recorder
+     */
+    public File getOutput() {
+        return output;
+    }
+
+    /**
+     * Encode the frames still queued and stop the encoder thread.
+     *
+     * @throws IOException  if a frame could not be encoded
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(END_OF_FRAMES);
+        boolean interrupted = false;
+        while (encoder.isAlive()) {
+            try {
+                encoder.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (mjpegStream != null) {
+            jpegWriter.dispose();
+            mjpegStream.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Encode the queued frames until the end of the frames.
+     */
+    private void encodeFrames() {
+        while (true) {
+            BufferedImage image;
+            try {
+                image = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (image == END_OF_FRAMES) {
+                return;
+            }
+            if (failure == null) {
+                try {
+                    if (format == Format.PNG) {
+                        File file = new File(output,
+                                leadingZeroes.format(numOfEncodedFrames) + ".png");
+                        if (!ImageIO.write(image, "png", file)) {
+                            throw new IOException("No PNG writer is found");
+                        }
+                    } else {
+                        writeJpeg(image);
+                    }
+                    numOfEncodedFrames++;
+                } catch (IOException e) {
+                    System.err.println("Error: " + e);
+                    failure = e;
+                }
+            }
+            pool.add(image);
+        }
+    }
+
+    /**
+     * Append the JPEG image of a frame to the MJPEG file.
+     */
+    private void writeJpeg(BufferedImage image) throws IOException {
+        // the image output stream must not close the MJPEG file
+        ImageOutputStream out = new MemoryCacheImageOutputStream(
+                new FilterOutputStream(mjpegStream) {
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                });
+        try {
+            ImageWriteParam param = jpegWriter.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            jpegWriter.setOutput(out);
+            jpegWriter.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package aim4.gui.statuspanel;
+
+import javax.swing.GroupLayout;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+
+import aim4.config.Constants;
+import aim4.gui.StatusPanelInterface;
+import aim4.gui.Viewer;
+import aim4.gui.component.FormattedLabel;
+import aim4.im.RequestStats;
+import aim4.sim.SimMetrics;
+import aim4.sim.Simulator;
+
+/**
+ * The profile panel, which shows the wall-clock time spent in each phase of
+ * the simulation steps and the request statistics of the intersection
+ * managers.
+ */
+public class ProfilePanel extends JPanel
+                          implements StatusPanelInterface {
+
+  private static final long serialVersionUID = 1L;
+
+  // ///////////////////////////////
+  // PRIVATE FIELDS
+  // ///////////////////////////////
+
+  /** The text area showing the metrics */
+  private JTextArea textArea;
+
+  /** The viewer object */
+  private Viewer viewer;
+
+  // ///////////////////////////////
+  // CONSTRUCTORS
+  // ///////////////////////////////
+
+  /**
+   * Create a profile panel.
+   *
+   * @param viewer  the viewer object
+   */
+  public ProfilePanel(Viewer viewer) {
+    this.viewer = viewer;
+    textArea = new JTextArea();
+    textArea.setEditable(false);
+    textArea.setFont(FormattedLabel.FONT);
+    JScrollPane outputPane = new JScrollPane(textArea);
+
+    // layout
+    GroupLayout layout = new GroupLayout(this);
+    setLayout(layout);
+    layout.setAutoCreateGaps(false);
+    layout.setAutoCreateContainerGaps(false);
+
+    layout.setHorizontalGroup(layout
+      .createParallelGroup(GroupLayout.Alignment.LEADING)
+      .addComponent(outputPane));
+
+    layout.setVerticalGroup(layout.createSequentialGroup()
+      .addComponent(outputPane));
+  }
+
+  // ///////////////////////////////
+  // PUBLIC METHODS
+  // ///////////////////////////////
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void update() {
+    Simulator sim = viewer.getSelectedSimulator();
+    if (sim != null) {
+      textArea.setText(format(new SimMetrics(sim)));
+    } else {
+      clear();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clear() {
+    textArea.setText("");
+  }
+
+  // ///////////////////////////////
+  // PRIVATE METHODS
+  // ///////////////////////////////
+
+  /**
+   * Format the metrics as a table of the phases followed by a table of the
+   * intersection managers.
+   *
+   * @param metrics  the metrics
+   * @return the formatted metrics
+   */
+  private static String format(SimMetrics metrics) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%-22s %8s %10s %10s %10s\n",
+                            "Phase", "Steps", "Avg (ms)", "Max (ms)",
+                            "Total (s)"));
+    for (SimMetrics.PhaseMetrics p : metrics.getPhases()) {
+      sb.append(String.format("%-22s %8d %10.3f %10.3f %10.2f\n",
+                              p.getPhase(), p.getCount(),
+                              p.getAverageTime() * 1000,
+                              p.getMaxTime() * 1000,
+                              p.getTotalTime()));
+    }
+    if (!metrics.getManagers().isEmpty()) {
+      sb.append(String.format("\n%-4s %8s %8s %8s %7s %10s %10s %9s %9s\n",
+                              "IM", "Requests", "Accepted", "Rejected",
+                              "Accept%", "Avg Q (ms)", "P99 Q (ms)",
+                              "In (kB)", "Out (kB)"));
+      for (SimMetrics.ManagerMetrics m : metrics.getManagers()) {
+        RequestStats stats = m.getRequestStats();
+        if (stats != null) {
+          sb.append(String.format("%-4d %8d %8d %8d %7.1f %10.3f %10.3f",
+                                  m.getId(),
+                                  stats.getRequests(),
+                                  stats.getAccepted(),
+                                  stats.getRejected(),
+                                  stats.getAcceptRate() * 100,
+                                  stats.getAverageLatency() * 1000,
+                                  stats.getLatencyPercentile(0.99) * 1000));
+        } else {
+          sb.append(String.format("%-4d %8s %8s %8s %7s %10s %10s",
+                                  m.getId(), "-", "-", "-", "-", "-", "-"));
+        }
+        double kBReceived =
+          ((double) m.getBitsReceived()) / Constants.BITS_PER_KB;
+        double kBTransmitted =
+          ((double) m.getBitsTransmitted()) / Constants.BITS_PER_KB;
+        sb.append(String.format(" %9.1f %9.1f\n", kBReceived, kBTransmitted));
+      }
+    }
+    return sb.toString();
+  }
+}
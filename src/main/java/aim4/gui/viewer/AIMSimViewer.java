@@ -141,7 +141,9 @@ public class AIMSimViewer extends SimViewer {
         // TODO: may be move this function to canvas.
         // right click
         if (e.getButton() == MouseEvent.BUTTON1) {
-            if (sim != null) {
+            if (isReplaying()) {
+                selectReplayVehicle(canvas.getMapPosition(e.getX(), e.getY()));
+            } else if (sim != null) {
                 assert sim instanceof AIMSimulator;
                 Point2D leftClickPoint = canvas.getMapPosition(e.getX(), e.getY());
                 // See if we hit any vehicles
@@ -1,6 +1,7 @@
 package aim4.gui.viewer;
 
-import aim4.config.Constants;
+import aim4.cli.SimOptions;
+import aim4.cli.SimSetups;
 import aim4.config.Debug;
 import aim4.config.SimConfig;
 import aim4.gui.StatusPanelContainer;
@@ -9,17 +10,30 @@ import aim4.gui.ViewerCardType;
 import aim4.gui.ViewerDebugView;
 import aim4.gui.frame.VehicleInfoFrame;
 import aim4.gui.screen.Canvas;
+import aim4.gui.screen.FrameRecorder;
 import aim4.gui.screen.SimScreen;
 import aim4.gui.screen.StatScreen;
 import aim4.gui.setuppanel.SimSetupPanel;
+import aim4.map.BasicMap;
+import aim4.sim.SimulationContext;
 import aim4.sim.Simulator;
 import aim4.sim.setup.SimFactory;
 import aim4.sim.setup.SimSetup;
+import aim4.sim.snapshot.SimSnapshot;
+import aim4.sim.trace.TraceFrame;
+import aim4.sim.trace.TraceReader;
 import aim4.util.Util;
 
 import javax.swing.*;
+import javax.swing.Timer;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseListener;
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * Created by Callum on 09/11/2016.
@@ -113,19 +127,27 @@ public abstract class SimViewer extends JPanel implements
     // ///////////////////////////////
     // RECORDING COMPONENTS
     // ///////////////////////////////
-    // TODO: reset imageCounter after reset the simulator
     /**
-     * Whether or not to save the screen during simulation
+     * The recorder of the frames shown during simulation; null if the
+     * frames are not recorded
      */
-    private boolean recording;
+    private volatile FrameRecorder frameRecorder;
+
+    // ///////////////////////////////
+    // REPLAY COMPONENTS
+    // ///////////////////////////////
+    /**
+     * The trace being replayed; null if no trace is replayed
+     */
+    private TraceReader replayTrace;
     /**
-     * Image's directino
+     * The index of the frame of the trace on screen
      */
-    private String imageDir;
+    private int replayFrameIndex;
     /**
-     * The number of generated images
+     * The timer that plays the trace
      */
-    private int imageCounter;
+    private Timer replayTimer;
 
     // ///////////////////////////////
     // CLASS CONSTRUCTORS
@@ -146,9 +168,7 @@ public abstract class SimViewer extends JPanel implements
                 Math.min(DEFAULT_TARGET_FRAME_RATE, SimConfig.CYCLES_PER_SECOND);
         this.nextFrameTime = 0; // undefined yet.
 
-        this.recording = false;
-        this.imageDir = null;
-        this.imageCounter = 0;
+        this.frameRecorder = null;
 
         this.liveViewSupported = liveViewSupported;
         if(liveViewSupported) {
@@ -466,11 +486,9 @@ public abstract class SimViewer extends JPanel implements
      * Save a screenshot
      */
     private void saveScreenShot() {
-        if (recording && imageDir != null) {
-            String outFileName =
-                    imageDir + "/" + Constants.LEADING_ZEROES.format(imageCounter++)
-                            + ".png";
-            canvas.saveScreenShot(outFileName);
+        FrameRecorder recorder = frameRecorder;
+        if (recorder != null) {
+            canvas.recordFrame(recorder);
         }
     }
 
@@ -555,7 +573,7 @@ public abstract class SimViewer extends JPanel implements
      * @return A boolean indicating whether the SimViewer is recording
      */
     public boolean isRecording() {
-        return recording;
+        return frameRecorder != null;
     }
 
     /**
@@ -575,27 +593,40 @@ public abstract class SimViewer extends JPanel implements
     }
 
     /**
-     * Sets the boolean indicating whether the SimViewer is recording
-     * @param recording A boolean indicating whether the SimViewer is recording
+     * Start recording the frames shown during simulation.  The frames are
+     * encoded in the background; a frame is dropped rather than making the
+     * simulation wait when the encoder is behind.
+     * @param output The directory of the PNG images, or the MJPEG file
+     * @param format The format of the frames
+     * @throws IOException If the MJPEG file cannot be created
      */
-    public void setRecording(boolean recording) {
-        this.recording = recording;
+    public void startRecording(File output, FrameRecorder.Format format)
+            throws IOException {
+        assert frameRecorder == null;
+        frameRecorder = new FrameRecorder(output, format,
+                FrameRecorder.OverflowPolicy.DROP,
+                FrameRecorder.DEFAULT_QUEUE_CAPACITY);
     }
 
     /**
-     * Sets the image directory name where the recorded frames are stored
-     * @param imageDir The directory where recorded frames are stored
+     * Stop recording, once the frames still queued are encoded
+     * @throws IOException If a frame could not be encoded
      */
-    public void setImageDir(String imageDir) {
-        this.imageDir = imageDir;
+    public void stopRecording() throws IOException {
+        FrameRecorder recorder = frameRecorder;
+        frameRecorder = null;
+        recorder.close();
+        System.err.printf("Recorded %d frames (%d dropped) to %s\n",
+                recorder.getNumOfEncodedFrames(),
+                recorder.getNumOfDroppedFrames(), recorder.getOutput());
     }
 
     /**
-     * Sets the number of generated images
-     * @param imageCounter The number of generated images
+     * Is the SimViewer currently replaying a trace
+     * @return A boolean indicating whether a trace is replayed
      */
-    public void setImageCounter(int imageCounter) {
-        this.imageCounter = imageCounter;
+    public boolean isReplaying() {
+        return replayTrace != null;
     }
 
     // ///////////////////////////////
@@ -755,6 +786,199 @@ public abstract class SimViewer extends JPanel implements
 
     protected abstract void runBeforeCreatingSimulator();
 
+    // ///////////////////////////////
+    // REPLAY CONTROLS
+    // ///////////////////////////////
+
+    /**
+     * Create the map of a trace recorded by the headless simulator.  The map
+     * is rebuilt from the options recorded in the trace, or restored from the
+     * snapshot the recorded simulation started from.
+     *
+     * @param trace  the trace
+     * @return the map
+     * @throws IOException  if the snapshot the simulation started from
+     *                      cannot be read
+     */
+    public static BasicMap createReplayMap(TraceReader trace) throws IOException {
+        SimOptions options = SimOptions.parse(trace.getDescription().split("\n"));
+        File restore = options.getFile("restore");
+        if (restore != null) {
+            SimSnapshot saved = SimSnapshot.load(restore);
+            List<String> setup = saved.getSetup();
+            return saved.restore(SimSetups.create(
+                    SimOptions.parse(setup.toArray(new String[setup.size()])))).getMap();
+        } else {
+            SimSetup simSetup = SimSetups.create(options);
+            return simSetup.getSimulator(
+                    new SimulationContext(options.getLong("seed", Util.randSeed))).getMap();
+        }
+    }
+
+    /**
+     * Start replaying a trace.
+     *
+     * @param trace  the trace
+     * @param map    the map of the trace
+     */
+    public void startReplay(TraceReader trace, BasicMap map) {
+        assert sim == null && replayTrace == null && trace.getNumOfFrames() > 0;
+        if (!liveViewSupported) {
+            throw new NoCanvasException();
+        }
+        replayTrace = trace;
+        canvas.initWithGivenMap(map);
+        showCard(ViewerCardType.SCREEN);
+        showReplayFrame(0);
+    }
+
+    /**
+     * Stop replaying the trace.
+     */
+    public void stopReplay() {
+        assert replayTrace != null;
+        pauseReplay();
+        replayTrace.close();
+        replayTrace = null;
+        canvas.setReplayFrame(null);
+        canvas.cleanUp();
+        showCard(ViewerCardType.SIM_SETUP_PANEL);
+    }
+
+    /**
+     * Show a frame of the trace.  The messages of the target vehicle in the
+     * step of the frame are printed.
+     *
+     * @param index  the index of the frame, which is clamped to the frames
+     *               of the trace
+     */
+    public void showReplayFrame(int index) {
+        replayFrameIndex =
+                Math.max(0, Math.min(index, replayTrace.getNumOfFrames() - 1));
+        TraceFrame frame = replayTrace.readFrame(replayFrameIndex);
+        for (int i = 0; i < frame.getNumOfMessages(); i++) {
+            if (frame.getMessageVin(i) == Debug.getTargetVIN()) {
+                System.err.printf("%.2f: %s\n", frame.getTime(), frame.describeMessage(i));
+            }
+        }
+        canvas.setReplayFrame(frame);
+        canvas.update();
+    }
+
+    /**
+     * Move through the trace by a number of frames.
+     *
+     * @param frames  the number of frames; negative to go back
+     */
+    public void stepReplay(int frames) {
+        showReplayFrame(replayFrameIndex + frames);
+    }
+
+    /**
+     * Move through the trace by an amount of simulation time.
+     *
+     * @param time  the amount of simulation time; negative to go back
+     */
+    public void seekReplay(double time) {
+        double target = replayTrace.getFrameTime(replayFrameIndex) + time;
+        showReplayFrame(replayTrace.findFrame(target + SimConfig.TIME_STEP / 2));
+    }
+
+    /**
+     * Play the trace at the target simulation speed and frame rate, or pause
+     * it if it is being played.
+     */
+    public void toggleReplay() {
+        if (replayTimer != null) {
+            pauseReplay();
+        } else {
+            double frameRate = targetFrameRate > 0 ? targetFrameRate : DEFAULT_TARGET_FRAME_RATE;
+            final double timePerFrame = Math.max(targetSimSpeed, 0.1) / frameRate;
+            replayTimer = new Timer((int) (1000 / frameRate), new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    seekReplay(timePerFrame);
+                    if (replayFrameIndex == replayTrace.getNumOfFrames() - 1) {
+                        pauseReplay();
+                    }
+                }
+            });
+            replayTimer.start();
+        }
+    }
+
+    /**
+     * Select the replayed vehicle at a position on the map as the target
+     * vehicle, or unselect the target vehicle if it is clicked again or if
+     * there is no vehicle there.
+     *
+     * @param p  the position on the map
+     */
+    protected void selectReplayVehicle(Point2D p) {
+        TraceFrame frame = replayTrace.readFrame(replayFrameIndex);
+        int targetVIN = Debug.getTargetVIN();
+        Debug.removeTargetVIN();
+        for (int i = 0; i < frame.getNumOfVehicles(); i++) {
+            if (Canvas.getReplayVehicleShape(frame, i).contains(p)) {
+                if (frame.getVin(i) != targetVIN) {
+                    Debug.setTargetVIN(frame.getVin(i));
+                    System.err.printf("%.2f: vehicle %d at (%.2f, %.2f), %.2f m/s\n",
+                            frame.getTime(), frame.getVin(i), frame.getX(i),
+                            frame.getY(i), frame.getVelocity(i));
+                }
+                break;
+            }
+        }
+        canvas.update();
+    }
+
+    /**
+     * Pause the trace if it is being played.
+     */
+    private void pauseReplay() {
+        if (replayTimer != null) {
+            replayTimer.stop();
+            replayTimer = null;
+        }
+    }
+
+    /**
+     * Save a screenshot of every frame of the trace in a directory, as fast
+     * as the frames can be drawn.  The frames are saved in the background,
+     * without dropping any, and the frame that was on screen is shown again
+     * at the end.
+     *
+     * @param imageDir  the directory
+     * @param every     the number of steps between two saved frames
+     */
+    public void exportReplayFrames(final String imageDir, final int every) {
+        pauseReplay();
+        final int shownIndex = replayFrameIndex;
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                FrameRecorder recorder = null;
+                try {
+                    recorder = new FrameRecorder(new File(imageDir),
+                            FrameRecorder.Format.PNG,
+                            FrameRecorder.OverflowPolicy.BLOCK,
+                            FrameRecorder.DEFAULT_QUEUE_CAPACITY);
+                    for (int i = 0; i < replayTrace.getNumOfFrames(); i += every) {
+                        canvas.setReplayFrame(replayTrace.readFrame(i));
+                        canvas.update();
+                        canvas.recordFrame(recorder);
+                    }
+                    recorder.close();
+                    System.err.printf("Saved %d frames in %s\n",
+                            recorder.getNumOfEncodedFrames(), imageDir);
+                } catch (IOException ioe) {
+                    System.err.println("Error: " + ioe);
+                }
+                showReplayFrame(shownIndex);
+            }
+        }, "AIM4 Replay Export Thread").start();
+    }
+
     protected abstract void runBeforeResettingSimulator();
 
     /**
@@ -30,16 +30,21 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.im;
 
+import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.util.HashMap;
 import java.util.Map;
 
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
+
 /**
  * This is a data structure to manage the admission control zone,
  * the area after an intersection in one lane.  It essentially holds
  * a limited length's worth of vehicles and will only admit vehicles
  * if there is enough room.
  */
-public class AdmissionControlZone {
+public class AdmissionControlZone implements Restorable {
 
   /////////////////////////////////
   // CONSTANTS
@@ -176,4 +181,49 @@ public class AdmissionControlZone {
     }
   }
 
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public StateRecord saveState() {
+    StateRecord state =
+      new StateRecord(AdmissionControlZone.class.getName(), 1);
+    state.putDouble("maxSize", maxSize);
+    // the occupied length is saved as it is, not summed up again
+    state.putDouble("currentSize", currentSize);
+    int[] vins = new int[vinToReservationLength.size()];
+    double[] lengths = new double[vins.length];
+    int i = 0;
+    for(Map.Entry<Integer, Double> e : vinToReservationLength.entrySet()) {
+      vins[i] = e.getKey();
+      lengths[i] = e.getValue();
+      i++;
+    }
+    state.putInts("vins", vins);
+    state.putDoubles("reservationLengths", lengths);
+    return state;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void restoreState(StateRecord state) throws IOException {
+    state.check(AdmissionControlZone.class.getName(), 1);
+    maxSize = state.getDouble("maxSize");
+    currentSize = state.getDouble("currentSize");
+    int[] vins = state.getInts("vins");
+    double[] lengths = state.getDoubles("reservationLengths");
+    if (vins.length != lengths.length) {
+      throw new StreamCorruptedException("Malformed reservation lengths");
+    }
+    vinToReservationLength.clear();
+    for(int i = 0; i < vins.length; i++) {
+      vinToReservationLength.put(vins[i], lengths[i]);
+    }
+    state.checkAllRead();
+  }
+
 }
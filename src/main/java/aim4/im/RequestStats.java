@@ -0,0 +1,276 @@
+package aim4.im;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
+
+/**
+ * The statistics of the reservation requests processed by the policy of an
+ * intersection manager: the number of requests, how many of them have been
+ * accepted or rejected, and a histogram of the time taken to find a
+ * reservation for a request.
+ * <p>
+ * The latencies are recorded in buckets of powers of two microseconds:
+ * bucket 0 counts the latencies below 2 microseconds, bucket <i>i</i> the
+ * latencies from 2<sup><i>i</i></sup> to 2<sup><i>i</i>+1</sup>
+ * microseconds, and the last bucket every longer latency.
+ */
+public class RequestStats implements Restorable {
+
+  /////////////////////////////////
+  // CONSTANTS
+  /////////////////////////////////
+
+  /**
+   * The number of buckets of the latency histogram.  The last bucket starts
+   * at about 1 second.
+   */
+  public static final int NUM_OF_LATENCY_BUCKETS = 21;
+
+  /////////////////////////////////
+  // PRIVATE FIELDS
+  /////////////////////////////////
+
+  /** The number of requests */
+  private long requests;
+  /** The number of accepted requests */
+  private long accepted;
+  /** The number of rejected requests */
+  private long rejected;
+  /** The number of rejections for each reason */
+  private final Map<String, Long> rejectReasons = new TreeMap<String, Long>();
+  /** The number of queries in each bucket of the latency histogram */
+  private final long[] latencyHistogram = new long[NUM_OF_LATENCY_BUCKETS];
+  /** The number of queries */
+  private long queries;
+  /** The total latency of the queries, in nanoseconds */
+  private long totalLatency;
+
+  /////////////////////////////////
+  // PUBLIC METHODS
+  /////////////////////////////////
+
+  // recording
+
+  /**
+   * Record a request.
+   */
+  public synchronized void recordRequest() {
+    requests++;
+  }
+
+  /**
+   * Record that a request has been accepted.
+   */
+  public synchronized void recordAccept() {
+    accepted++;
+  }
+
+  /**
+   * Record that a request has been rejected.
+   *
+   * @param reason  the reason of the rejection
+   */
+  public synchronized void recordReject(Object reason) {
+    rejected++;
+    String key = String.valueOf(reason);
+    Long count = rejectReasons.get(key);
+    rejectReasons.put(key, count == null ? 1L : count + 1L);
+  }
+
+  /**
+   * Record the time taken to find a reservation for a request.
+   *
+   * @param nanos  the latency, in nanoseconds
+   */
+  public synchronized void recordQuery(long nanos) {
+    queries++;
+    totalLatency += nanos;
+    latencyHistogram[bucketOf(nanos)]++;
+  }
+
+  // retrieval
+
+  /**
+   * Get the number of requests.
+   *
+   * @return the number of requests
+   */
+  public synchronized long getRequests() {
+    return requests;
+  }
+
+  /**
+   * Get the number of accepted requests.
+   *
+   * @return the number of accepted requests
+   */
+  public synchronized long getAccepted() {
+    return accepted;
+  }
+
+  /**
+   * Get the number of rejected requests.
+   *
+   * @return the number of rejected requests
+   */
+  public synchronized long getRejected() {
+    return rejected;
+  }
+
+  /**
+   * Get the fraction of the answered requests that have been accepted.
+   *
+   * @return the acceptance rate; 0 if no request has been answered
+   */
+  public synchronized double getAcceptRate() {
+    long answered = accepted + rejected;
+    return answered == 0 ? 0.0 : ((double) accepted) / answered;
+  }
+
+  /**
+   * Get the number of rejections for each reason.
+   *
+   * @return a copy of the map from the reasons to the number of rejections
+   */
+  public synchronized Map<String, Long> getRejectReasons() {
+    return new TreeMap<String, Long>(rejectReasons);
+  }
+
+  /**
+   * Get the number of queries.
+   *
+   * @return the number of queries
+   */
+  public synchronized long getQueries() {
+    return queries;
+  }
+
+  /**
+   * Get the average latency of the queries.
+   *
+   * @return the average latency, in seconds; 0 if there is no query
+   */
+  public synchronized double getAverageLatency() {
+    return queries == 0 ? 0.0 : totalLatency / 1e9 / queries;
+  }
+
+  /**
+   * Get the latency histogram.
+   *
+   * @return a copy of the number of queries in each bucket
+   */
+  public synchronized long[] getLatencyHistogram() {
+    return latencyHistogram.clone();
+  }
+
+  /**
+   * Get an upper bound of a percentile of the latencies.
+   *
+   * @param p  the percentile, between 0 and 1
+   * @return the upper end of the bucket that contains the percentile, in
+   *         seconds; 0 if there is no query
+   */
+  public synchronized double getLatencyPercentile(double p) {
+    if (queries == 0) {
+      return 0.0;
+    }
+    long rank = (long) Math.ceil(p * queries);
+    long seen = 0;
+    for (int i = 0; i < NUM_OF_LATENCY_BUCKETS - 1; i++) {
+      seen += latencyHistogram[i];
+      if (seen >= rank) {
+        return getBucketUpperBound(i);
+      }
+    }
+    return Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Get the upper end of a bucket of the latency histogram.
+   *
+   * @param bucket  the index of the bucket
+   * @return the upper end of the bucket, in seconds
+   */
+  public static double getBucketUpperBound(int bucket) {
+    if (bucket >= NUM_OF_LATENCY_BUCKETS - 1) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return (2L << bucket) / 1e6;
+  }
+
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized StateRecord saveState() {
+    StateRecord state = new StateRecord(RequestStats.class.getName(), 1);
+    state.putLong("requests", requests);
+    state.putLong("accepted", accepted);
+    state.putLong("rejected", rejected);
+    String[] reasons = new String[rejectReasons.size()];
+    long[] counts = new long[reasons.length];
+    int i = 0;
+    for (Map.Entry<String, Long> e : rejectReasons.entrySet()) {
+      reasons[i] = e.getKey();
+      counts[i] = e.getValue();
+      i++;
+    }
+    state.putStrings("rejectReasons", reasons);
+    state.putLongs("rejectCounts", counts);
+    state.putLongs("latencyHistogram", latencyHistogram);
+    state.putLong("queries", queries);
+    state.putLong("totalLatency", totalLatency);
+    return state;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void restoreState(StateRecord state) throws IOException {
+    state.check(RequestStats.class.getName(), 1);
+    requests = state.getLong("requests");
+    accepted = state.getLong("accepted");
+    rejected = state.getLong("rejected");
+    String[] reasons = state.getStrings("rejectReasons");
+    long[] counts = state.getLongs("rejectCounts");
+    if (reasons.length != counts.length) {
+      throw new StreamCorruptedException("Malformed reject reasons");
+    }
+    rejectReasons.clear();
+    for (int i = 0; i < reasons.length; i++) {
+      rejectReasons.put(reasons[i], counts[i]);
+    }
+    long[] histogram = state.getLongs("latencyHistogram");
+    if (histogram.length != NUM_OF_LATENCY_BUCKETS) {
+      throw new StreamCorruptedException("Malformed latency histogram");
+    }
+    System.arraycopy(histogram, 0, latencyHistogram, 0, histogram.length);
+    queries = state.getLong("queries");
+    totalLatency = state.getLong("totalLatency");
+    state.checkAllRead();
+  }
+
+  /////////////////////////////////
+  // PRIVATE METHODS
+  /////////////////////////////////
+
+  /**
+   * Get the bucket of the latency histogram of a latency.
+   *
+   * @param nanos  the latency, in nanoseconds
+   * @return the index of the bucket
+   */
+  private static int bucketOf(long nanos) {
+    long micros = nanos / 1000;
+    int bucket = micros < 2 ? 0 : 63 - Long.numberOfLeadingZeros(micros);
+    return Math.min(bucket, NUM_OF_LATENCY_BUCKETS - 1);
+  }
+}
@@ -39,6 +39,7 @@ import aim4.map.Road;
 import aim4.map.lane.Lane;
 import aim4.util.Registry;
 import aim4.util.Util;
+import aim4.vehicle.MaxTurnVelocityTable;
 import aim4.vehicle.aim.AIMVehicleSimModel;
 
 /**
@@ -65,6 +66,11 @@ public class IntersectionManager {
    * The path model of the intersection.
    */
   private TrackModel trackModel;
+  /**
+   * The maximum turn velocities through the intersections of the map; null
+   * if they have not been computed.
+   */
+  private MaxTurnVelocityTable maxTurnVelocityTable;
 
 
   /////////////////////////////////
@@ -124,6 +130,25 @@ public class IntersectionManager {
     return id;
   }
 
+  /**
+   * Get the maximum turn velocities through the intersections of the map.
+   *
+   * @return the table of the maximum turn velocities; null if it has not
+   *         been computed
+   */
+  public MaxTurnVelocityTable getMaxTurnVelocityTable() {
+    return maxTurnVelocityTable;
+  }
+
+  /**
+   * Set the maximum turn velocities through the intersections of the map.
+   *
+   * @param maxTurnVelocityTable  the table of the maximum turn velocities
+   */
+  public void setMaxTurnVelocityTable(MaxTurnVelocityTable maxTurnVelocityTable) {
+    this.maxTurnVelocityTable = maxTurnVelocityTable;
+  }
+
   /**
    * Get the current time.
    *
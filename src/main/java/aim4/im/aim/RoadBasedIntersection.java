@@ -31,13 +31,15 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package aim4.im.aim;
 
 import aim4.config.Constants.TurnDirection;
-import aim4.config.Debug;
 import aim4.map.Road;
 import aim4.map.lane.Lane;
 import aim4.map.track.WayPoint;
+import aim4.sim.SimulationContext;
+import aim4.util.ConvexDecomposition;
 import aim4.util.GeomMath;
 import aim4.util.Util;
 
+import java.awt.Shape;
 import java.awt.geom.*;
 import java.util.*;
 
@@ -79,6 +81,11 @@ public class RoadBasedIntersection implements Intersection {
    */
   private Area areaPlus;
 
+  /**
+   * The decomposition of areaPlus into the convex shapes of the lanes.
+   */
+  private ConvexDecomposition areaPlusDecomposition;
+
   /**
    * The smallest rectangle that contains this intersection.
    */
@@ -314,6 +321,7 @@ public class RoadBasedIntersection implements Intersection {
     this.area = new Area(); // This is the "official" area
     this.areaPlus = new Area();  // This is a slightly enlarged version
                                  // of the area
+    List<Shape> areaPlusPieces = new ArrayList<Shape>(lanes.size());
     // For each lane managed by this intersection manager...
     for(Lane lane : lanes) {
       // Lane might start or end inside the intersection
@@ -345,12 +353,17 @@ public class RoadBasedIntersection implements Intersection {
       }
       // Add the area between its true entry point and its exit point
       this.area.add(new Area(lane.getShape(entryFrac, exitFrac)));
-      this.areaPlus.add(new Area(lane.getShape(entryFrac - AREA_PLUS_OFFSET,
-                                               exitFrac + AREA_PLUS_OFFSET)));
+      Shape areaPlusPiece = lane.getShape(entryFrac - AREA_PLUS_OFFSET,
+                                          exitFrac + AREA_PLUS_OFFSET);
+      this.areaPlus.add(new Area(areaPlusPiece));
+      areaPlusPieces.add(areaPlusPiece);
     }
     // Fill in any of the holes
     area = GeomMath.filledArea(area);
     areaPlus = GeomMath.filledArea(areaPlus);
+    // The lane shapes are convex, so unless filling in the holes changed
+    // areaPlus they make up a convex decomposition of it
+    areaPlusDecomposition = new ConvexDecomposition(areaPlus, areaPlusPieces);
   }
 
   /**
@@ -471,6 +484,14 @@ public class RoadBasedIntersection implements Intersection {
     return areaPlus;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ConvexDecomposition getAreaPlusDecomposition() {
+    return areaPlusDecomposition;
+  }
+
   /**
    * Get the centroid of the intersection manager.
    *
@@ -516,8 +537,8 @@ public class RoadBasedIntersection implements Intersection {
    */
   private void calcEntryRoads() {
     for(Lane lane : getEntryLanes()) {
-      if (!entryRoads.contains(Debug.currentAimMap.getRoad(lane))) {
-        entryRoads.add(Debug.currentAimMap.getRoad(lane));
+      if (!entryRoads.contains(SimulationContext.current().getAimMap().getRoad(lane))) {
+        entryRoads.add(SimulationContext.current().getAimMap().getRoad(lane));
       }
     }
   }
@@ -581,8 +602,8 @@ public class RoadBasedIntersection implements Intersection {
 
   private void calcExitRoads() {
     for(Lane lane : getExitLanes()) {
-      if (!exitRoads.contains(Debug.currentAimMap.getRoad(lane))) {
-        exitRoads.add(Debug.currentAimMap.getRoad(lane));
+      if (!exitRoads.contains(SimulationContext.current().getAimMap().getRoad(lane))) {
+        exitRoads.add(SimulationContext.current().getAimMap().getRoad(lane));
       }
     }
   }
@@ -641,8 +662,8 @@ public class RoadBasedIntersection implements Intersection {
    */
   @Override
   public TurnDirection calcTurnDirection(Lane currentLane, Lane departureLane) {
-    Road currentRoad = Debug.currentAimMap.getRoad(currentLane);
-    Road departureRoad = Debug.currentAimMap.getRoad(departureLane);
+    Road currentRoad = SimulationContext.current().getAimMap().getRoad(currentLane);
+    Road departureRoad = SimulationContext.current().getAimMap().getRoad(departureLane);
     if(departureRoad == currentRoad) {
       return TurnDirection.STRAIGHT;
     } else if(departureRoad == currentRoad.getDual()) {
@@ -30,14 +30,15 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.im.aim;
 
-import aim4.config.Debug;
 import aim4.map.Road;
 import aim4.map.lane.Lane;
+import aim4.sim.SimulationContext;
 import aim4.util.GeomMath;
 
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -130,10 +131,10 @@ public class RoadBasedTrackModel implements TrackModel {
 
   /**
    * Memoization cache for {@link #traversalDistance(Road arrival, Road
-   * departure)}.
+   * departure)}.  It is filled by drivers that may act concurrently.
    */
   private Map<List<Integer>, Double> memoTraversalDistance =
-    new HashMap<List<Integer>, Double>();
+    new ConcurrentHashMap<List<Integer>, Double>();
 
   // TODO: remove this variable
   /**
@@ -406,8 +407,8 @@ public class RoadBasedTrackModel implements TrackModel {
   @Override
   public double traversalDistance(int arrivalID, int departureID) {
     List<Integer> key = Arrays.asList(arrivalID, departureID);
-    Lane arrival = Debug.currentAimMap.getLaneRegistry().get(arrivalID);
-    Lane departure = Debug.currentAimMap.getLaneRegistry().get(departureID);
+    Lane arrival = SimulationContext.current().getAimMap().getLaneRegistry().get(arrivalID);
+    Lane departure = SimulationContext.current().getAimMap().getLaneRegistry().get(departureID);
     return traversalDistance(arrival, departure);
   }
 
@@ -34,11 +34,15 @@ import aim4.im.aim.v2i.policy.BasePolicyCallback;
 import aim4.msg.aim.i2v.Reject;
 import aim4.msg.aim.v2i.Request;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
 
 /**
  * The all stop request handler
  */
-public class AllStopRequestHandler implements RequestHandler {
+public class AllStopRequestHandler implements RequestHandler, Restorable {
 
   /////////////////////////////////
   // PRIVATE FIELDS
@@ -94,4 +98,25 @@ public class AllStopRequestHandler implements RequestHandler {
     return null;
   }
 
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The handler has no state of its own.
+   */
+  @Override
+  public StateRecord saveState() {
+    return new StateRecord(AllStopRequestHandler.class.getName(), 1);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void restoreState(StateRecord state) throws IOException {
+    state.check(AllStopRequestHandler.class.getName(), 1);
+    state.checkAllRead();
+  }
+
 }
@@ -31,6 +31,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package aim4.im.aim.v2i.RequestHandler;
 
 import aim4.config.TrafficSignal;
+import java.io.IOException;
 import java.util.List;
 
 import aim4.im.aim.v2i.policy.BasePolicy;
@@ -40,6 +41,8 @@ import aim4.im.aim.v2i.policy.BasePolicy.ReserveParam;
 import aim4.msg.aim.i2v.Reject;
 import aim4.msg.aim.v2i.Request;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 
 
 // see http://ops.fhwa.dot.gov/publications/fhwahop06006/chapter_7.htm
@@ -48,7 +51,7 @@ import aim4.sim.StatCollector;
  * The approximate 4-Phases traffic signal request handler.
  */
 public class Approx4PhasesTrafficSignalRequestHandler implements
-    TrafficSignalRequestHandler {
+    TrafficSignalRequestHandler, Restorable {
 
   /////////////////////////////////
   // CONSTANTS
@@ -180,6 +183,33 @@ public class Approx4PhasesTrafficSignalRequestHandler implements
     return null;
   }
 
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The signals only depend on the current time of the policy and on the
+   * durations of the lights.
+   */
+  @Override
+  public StateRecord saveState() {
+    StateRecord state = new StateRecord(Approx4PhasesTrafficSignalRequestHandler.class.getName(), 1);
+    state.putDouble("greenLightDuration", greenLightDuration);
+    state.putDouble("yellowLightDuration", yellowLightDuration);
+    return state;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void restoreState(StateRecord state) throws IOException {
+    state.check(Approx4PhasesTrafficSignalRequestHandler.class.getName(), 1);
+    greenLightDuration = state.getDouble("greenLightDuration");
+    yellowLightDuration = state.getDouble("yellowLightDuration");
+    state.checkAllRead();
+  }
+
   /**
    * {@inheritDoc}
    */
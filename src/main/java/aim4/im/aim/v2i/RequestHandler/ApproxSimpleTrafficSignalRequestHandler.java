@@ -30,7 +30,6 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.im.aim.v2i.RequestHandler;
 
-import aim4.config.Debug;
 import aim4.config.TrafficSignal;
 import aim4.im.aim.v2i.policy.BasePolicy;
 import aim4.im.aim.v2i.policy.BasePolicy.ProposalFilterResult;
@@ -39,15 +38,19 @@ import aim4.im.aim.v2i.policy.BasePolicyCallback;
 import aim4.map.Road;
 import aim4.msg.aim.i2v.Reject;
 import aim4.msg.aim.v2i.Request;
+import aim4.sim.SimulationContext;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
  * The approximate traffic signal request handler.
  */
 public class ApproxSimpleTrafficSignalRequestHandler implements
-    TrafficSignalRequestHandler {
+    TrafficSignalRequestHandler, Restorable {
 
   /////////////////////////////////
   // CONSTANTS
@@ -173,12 +176,39 @@ public class ApproxSimpleTrafficSignalRequestHandler implements
     return null;
   }
 
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The signals only depend on the current time of the policy and on the
+   * durations of the lights.
+   */
+  @Override
+  public StateRecord saveState() {
+    StateRecord state = new StateRecord(ApproxSimpleTrafficSignalRequestHandler.class.getName(), 1);
+    state.putDouble("greenLightDuration", greenLightDuration);
+    state.putDouble("yellowLightDuration", yellowLightDuration);
+    return state;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void restoreState(StateRecord state) throws IOException {
+    state.check(ApproxSimpleTrafficSignalRequestHandler.class.getName(), 1);
+    greenLightDuration = state.getDouble("greenLightDuration");
+    yellowLightDuration = state.getDouble("yellowLightDuration");
+    state.checkAllRead();
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public TrafficSignal getSignal(int laneId) {
-    Road road = Debug.currentAimMap.getRoad(laneId);
+    Road road = SimulationContext.current().getAimMap().getRoad(laneId);
 
     double period = greenLightDuration + yellowLightDuration;
     int id = (int) Math.floor(basePolicy.getCurrentTime() / period);
@@ -224,7 +254,7 @@ public class ApproxSimpleTrafficSignalRequestHandler implements
    * @return whether the vehicle can enter the intersection
    */
   private boolean canEnterFromLane(int laneId) {
-    Road road = Debug.currentAimMap.getRoad(laneId);
+    Road road = SimulationContext.current().getAimMap().getRoad(laneId);
 
     double period = greenLightDuration + yellowLightDuration;
     int id = (int) Math.floor(basePolicy.getCurrentTime() / period);
@@ -30,7 +30,6 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.im.aim.v2i.RequestHandler;
 
-import aim4.config.Debug;
 import aim4.im.aim.v2i.policy.BasePolicy;
 import aim4.im.aim.v2i.policy.BasePolicy.ProposalFilterResult;
 import aim4.im.aim.v2i.policy.BasePolicy.ReserveParam;
@@ -39,6 +38,7 @@ import aim4.im.aim.v2i.policy.ExtendedBasePolicyCallback;
 import aim4.map.Road;
 import aim4.msg.aim.i2v.Reject;
 import aim4.msg.aim.v2i.Request;
+import aim4.sim.SimulationContext;
 import aim4.sim.StatCollector;
 
 import java.util.Iterator;
@@ -213,7 +213,7 @@ public class ApproxStopSignRequestHandler implements RequestHandler {
    * @return whether the vehicle can enter the intersection
    */
   private boolean canEnterFromLane(int laneId) {
-    Road road = Debug.currentAimMap.getRoad(laneId);
+    Road road = SimulationContext.current().getAimMap().getRoad(laneId);
     String roadName = road.getName();
 
     if (nextRoadName != null) {
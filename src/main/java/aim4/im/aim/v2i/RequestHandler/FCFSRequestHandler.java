@@ -37,11 +37,15 @@ import aim4.im.aim.v2i.policy.BasePolicyCallback;
 import aim4.msg.aim.i2v.Reject;
 import aim4.msg.aim.v2i.Request;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
 
 /**
  * The "First Come, First Served" request handler.
  */
-public class FCFSRequestHandler implements RequestHandler {
+public class FCFSRequestHandler implements RequestHandler, Restorable {
 
   /////////////////////////////////
   // PRIVATE FIELDS
@@ -112,8 +116,12 @@ public class FCFSRequestHandler implements RequestHandler {
       if (reserveParam != null) {
         basePolicy.sendConfirmMsg(msg.getRequestId(), reserveParam);
       } else {
+        // tell the vehicle how long it has to wait for the intersection
+        // to be clear, if the search is enabled
         basePolicy.sendRejectMsg(vin, msg.getRequestId(),
-                Reject.Reason.NO_CLEAR_PATH);
+                Reject.Reason.NO_CLEAR_PATH,
+                basePolicy.findEarliestArrivalTime(msg,
+                        filterResult.getProposals()));
       }
     }
   }
@@ -128,4 +136,25 @@ public class FCFSRequestHandler implements RequestHandler {
     return null;
   }
 
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The handler has no state of its own.
+   */
+  @Override
+  public StateRecord saveState() {
+    return new StateRecord(FCFSRequestHandler.class.getName(), 1);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void restoreState(StateRecord state) throws IOException {
+    state.check(FCFSRequestHandler.class.getName(), 1);
+    state.checkAllRead();
+  }
+
 }
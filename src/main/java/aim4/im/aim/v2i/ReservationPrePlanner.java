@@ -0,0 +1,178 @@
+package aim4.im.aim.v2i;
+
+import aim4.im.aim.v2i.policy.BasePolicy;
+import aim4.im.aim.v2i.reservation.ReservationGridManager;
+import aim4.msg.aim.v2i.Request;
+import aim4.sim.SimulationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A planner that prepares the reservations of the vehicles approaching an
+ * intersection before their requests arrive.  When a vehicle within the
+ * lookahead distance of the intersection is about to send a request, the
+ * simulator gives the proposals of the request to the planner, and the
+ * planner runs the internal simulations of the proposals on the executor of
+ * the simulation, filling the footprint cache of the reservation grid
+ * manager.  When the request arrives, its queries then only have to probe
+ * the current reservation grid.
+ * <p>
+ * The footprints are pure functions of the proposals, so a request whose
+ * footprints are not ready, or that was not anticipated at all, gets
+ * exactly the same answer; it is only slower.
+ */
+public final class ReservationPrePlanner {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The default distance to the intersection within which requests are anticipated */
+    public static final double DEFAULT_LOOKAHEAD_DISTANCE = 200.0;
+
+    /**
+     * The maximum number of anticipated requests waiting for a thread of an
+     * executor.  When the queue is full, the oldest request is dropped: it
+     * is the closest to being sent, so it is the least likely to be ready
+     * in time anyway.
+     */
+    private static final int EXECUTOR_QUEUE_CAPACITY = 256;
+
+    /** The time after which an idle thread of an executor ends, in seconds */
+    private static final long EXECUTOR_KEEP_ALIVE_TIME = 1;
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Create an executor for the planners of a simulation.  It leaves one
+     * core to the simulation, and its threads are daemons of the lowest
+     * priority, so that they only use idle cores.  Its queue is bounded and
+     * drops the oldest request when it is full; a dropped request is only
+     * slower when it arrives.  The threads end when they are idle, so the
+     * executor does not outlive the simulation that owns it.
+     *
+     * @return the executor
+     */
+    public static ExecutorService createExecutor() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads, threads, EXECUTOR_KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(EXECUTOR_QUEUE_CAPACITY),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "ReservationPrePlanner");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }
+            },
+            new ThreadPoolExecutor.DiscardOldestPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The manager of the reservation grid of the intersection */
+    private final ReservationGridManager reservationGridManager;
+    /** The distance to the intersection within which requests are anticipated */
+    private final double lookaheadDistance;
+    /** The number of requests anticipated */
+    private final AtomicInteger numOfAnticipatedRequests = new AtomicInteger();
+    /** The number of footprints computed in the background */
+    private final AtomicInteger numOfPrecomputedFootprints = new AtomicInteger();
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a planner for an intersection.
+     *
+     * @param reservationGridManager  the manager of the reservation grid of
+     *                                the intersection
+     * @param lookaheadDistance       the distance to the intersection within
+     *                                which requests are anticipated
+     */
+    public ReservationPrePlanner(ReservationGridManager reservationGridManager,
+                                 double lookaheadDistance) {
+        this.reservationGridManager = reservationGridManager;
+        this.lookaheadDistance = lookaheadDistance;
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the distance to the intersection within which requests are
+     * anticipated.
+     *
+     * @return the lookahead distance in meters
+     */
+    public double getLookaheadDistance() {
+        return lookaheadDistance;
+    }
+
+    /**
+     * Prepare the request a vehicle is about to send: compute in the
+     * background the footprints of its proposals that are not cached yet.
+     *
+     * @param executor   the executor of the simulation, which computes the
+     *                   footprints
+     * @param vin        the VIN of the vehicle
+     * @param spec       the specification of the vehicle
+     * @param proposals  the proposals of the request
+     */
+    public void anticipate(Executor executor, int vin,
+                           Request.VehicleSpecForRequestMsg spec,
+                           List<Request.Proposal> proposals) {
+        numOfAnticipatedRequests.incrementAndGet();
+        final List<ReservationGridManager.Query> queries =
+            new ArrayList<ReservationGridManager.Query>(proposals.size());
+        for (Request.Proposal proposal : proposals) {
+            queries.add(BasePolicy.createGridQuery(vin, spec, proposal));
+        }
+        // The simulations run on the threads of the executor, so bind them to
+        // the context of the simulation of the vehicle
+        final SimulationContext context = SimulationContext.current();
+        executor.execute(() -> context.run(() -> {
+            for (ReservationGridManager.Query query : queries) {
+                if (reservationGridManager.precomputeFootprint(query)) {
+                    numOfPrecomputedFootprints.incrementAndGet();
+                }
+            }
+        }));
+    }
+
+    /**
+     * Get the number of requests anticipated so far.
+     *
+     * @return the number of requests anticipated
+     */
+    public int getNumOfAnticipatedRequests() {
+        return numOfAnticipatedRequests.get();
+    }
+
+    /**
+     * Get the number of footprints computed in the background so far.
+     *
+     * @return the number of footprints computed in the background
+     */
+    public int getNumOfPrecomputedFootprints() {
+        return numOfPrecomputedFootprints.get();
+    }
+}
@@ -33,6 +33,7 @@ package aim4.im.aim.v2i;
 import aim4.config.Debug;
 import aim4.im.AczManager;
 import aim4.im.AdmissionControlZone;
+import aim4.im.RequestStats;
 import aim4.im.aim.Intersection;
 import aim4.im.aim.IntersectionManager;
 import aim4.im.aim.TrackModel;
@@ -43,14 +44,24 @@ import aim4.map.lane.Lane;
 import aim4.msg.aim.i2v.I2VMessage;
 import aim4.msg.aim.v2i.V2IMessage;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.Registry;
 import aim4.util.TiledArea;
 
 import java.awt.*;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.NotSerializableException;
 import java.io.PrintStream;
+import java.io.StreamCorruptedException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An intersection manager that takes requests from vehicles and coordinates
@@ -59,7 +70,7 @@ import java.util.List;
  * control {@link Policy}.
  */
 public class V2IManager extends IntersectionManager
-                        implements V2IManagerCallback {
+                        implements V2IManagerCallback, Restorable {
 
   /////////////////////////////////
   // CONSTANTS
@@ -87,6 +98,13 @@ public class V2IManager extends IntersectionManager
    * a debug shape.
    */
   private static final double ACZ_DISTANCE_SHAPE_LENGTH = 1; // meter
+  /**
+   * The maximum number of queries waiting for a thread of the query
+   * executor.  When the queue is full, the policy runs the query itself.
+   */
+  private static final int QUERY_QUEUE_CAPACITY = 64;
+  /** The time after which an idle thread of the query executor ends, in seconds */
+  private static final long QUERY_KEEP_ALIVE_TIME = 1;
 
 
   /////////////////////////////////
@@ -113,6 +131,10 @@ public class V2IManager extends IntersectionManager
   private int bitsReceived;
   /** The number of bits this IntersectionManager has transmitted. */
   private int bitsTransmitted;
+  /** The number of messages this IntersectionManager has received. */
+  private int messagesReceived;
+  /** The number of messages this IntersectionManager has transmitted. */
+  private int messagesTransmitted;
 
 
   // intersection
@@ -129,6 +151,16 @@ public class V2IManager extends IntersectionManager
    * The manager for the reservation grid
    */
   private ReservationGridManager reservationGridManager;
+  /**
+   * The planner of the reservations of the approaching vehicles; null if
+   * the reservations are not planned ahead
+   */
+  private ReservationPrePlanner prePlanner;
+  /**
+   * The executor that runs the queries of the proposals of a request
+   * concurrently; null if the queries run one after another
+   */
+  private ExecutorService queryExecutor;
 
   // aczs
 
@@ -177,6 +209,13 @@ public class V2IManager extends IntersectionManager
                                                              intersection,
                                                              tiledArea,
                                                              reservationGrid);
+    if (config.getIsPrePlanningEnabled()) {
+      this.prePlanner = new ReservationPrePlanner(
+        reservationGridManager, ReservationPrePlanner.DEFAULT_LOOKAHEAD_DISTANCE);
+    }
+    if (config.getIsParallelQueryEnabled()) {
+      this.queryExecutor = createQueryExecutor();
+    }
     // Set up the AdmissionControlZones for the exit lanes
     for(Lane l : getIntersection().getExitLanes()) {
       // This controls how much "length" of vehicles is allowed in at once
@@ -304,6 +343,7 @@ public class V2IManager extends IntersectionManager
     inbox.add(msg);
     // And count the bits.
     bitsReceived += msg.getSize();
+    messagesReceived++;
   }
 
   /**
@@ -324,6 +364,34 @@ public class V2IManager extends IntersectionManager
     return bitsTransmitted;
   }
 
+  /**
+   * Get the number of messages this IntersectionManager has received.
+   *
+   * @return the number of messages this IntersectionManager has received
+   */
+  public int getMessagesReceived() {
+    return messagesReceived;
+  }
+
+  /**
+   * Get the number of messages this IntersectionManager has transmitted.
+   *
+   * @return the number of messages this IntersectionManager has transmitted
+   */
+  public int getMessagesTransmitted() {
+    return messagesTransmitted;
+  }
+
+  /**
+   * Get the statistics of the reservation requests kept by the policy.
+   *
+   * @return the statistics of the reservation requests; null if the policy
+   *         does not keep them
+   */
+  public RequestStats getRequestStats() {
+    return policy.getRequestStats();
+  }
+
 
   /////////////////////////////////
   // PUBLIC METHODS
@@ -352,6 +420,23 @@ public class V2IManager extends IntersectionManager
     return reservationGridManager;
   }
 
+  /**
+   * Get the planner of the reservations of the approaching vehicles.
+   *
+   * @return the planner; null if the reservations are not planned ahead
+   */
+  public ReservationPrePlanner getPrePlanner() {
+    return prePlanner;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ExecutorService getQueryExecutor() {
+    return queryExecutor;
+  }
+
   /**
    * Get the Admission Control Zone of a given lane.
    *
@@ -386,6 +471,104 @@ public class V2IManager extends IntersectionManager
     }
     outbox.add(msg);
     bitsTransmitted += msg.getSize();
+    messagesTransmitted++;
+  }
+
+
+  /////////////////////////////////
+  // PUBLIC METHODS
+  /////////////////////////////////
+
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The reservation pre-planner and the maximum turn velocities are not
+   * saved; they only cache values that can be computed again.
+   */
+  @Override
+  public StateRecord saveState() throws NotSerializableException {
+    if (!(policy instanceof Restorable)) {
+      throw new NotSerializableException(policy.getClass().getName());
+    }
+    StateRecord state = new StateRecord(V2IManager.class.getName(), 1);
+    state.putDouble("currentTime", currentTime);
+    state.putRecord("policy", ((Restorable) policy).saveState());
+    state.putDouble("transmissionPower", transmissionPower);
+    List<StateRecord> inboxStates = new ArrayList<StateRecord>(inbox.size());
+    for (V2IMessage msg : inbox) {
+      inboxStates.add(msg.toState());
+    }
+    state.putRecords("inbox", inboxStates);
+    List<StateRecord> outboxStates =
+      new ArrayList<StateRecord>(outbox.size());
+    for (I2VMessage msg : outbox) {
+      outboxStates.add(msg.toState());
+    }
+    state.putRecords("outbox", outboxStates);
+    state.putInt("bitsReceived", bitsReceived);
+    state.putInt("bitsTransmitted", bitsTransmitted);
+    state.putInt("messagesReceived", messagesReceived);
+    state.putInt("messagesTransmitted", messagesTransmitted);
+    state.putRecord("reservationGrid", reservationGrid.saveState());
+    state.putRecord("reservationGridManager",
+                    reservationGridManager.saveState());
+    int[] aczLaneIds = new int[aczs.size()];
+    List<StateRecord> aczStates = new ArrayList<StateRecord>(aczs.size());
+    int i = 0;
+    for (Map.Entry<Integer,AdmissionControlZone> e : aczs.entrySet()) {
+      aczLaneIds[i++] = e.getKey();
+      aczStates.add(e.getValue().saveState());
+    }
+    state.putInts("aczLaneIds", aczLaneIds);
+    state.putRecords("aczs", aczStates);
+    return state;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void restoreState(StateRecord state) throws IOException {
+    state.check(V2IManager.class.getName(), 1);
+    if (!(policy instanceof Restorable)) {
+      throw new NotSerializableException(policy.getClass().getName());
+    }
+    currentTime = state.getDouble("currentTime");
+    ((Restorable) policy).restoreState(state.getRecord("policy"));
+    transmissionPower = state.getDouble("transmissionPower");
+    inbox.clear();
+    for (StateRecord s : state.getRecords("inbox")) {
+      inbox.add(V2IMessage.fromState(s));
+    }
+    outbox.clear();
+    for (StateRecord s : state.getRecords("outbox")) {
+      outbox.add(I2VMessage.fromState(s));
+    }
+    bitsReceived = state.getInt("bitsReceived");
+    bitsTransmitted = state.getInt("bitsTransmitted");
+    messagesReceived = state.getInt("messagesReceived");
+    messagesTransmitted = state.getInt("messagesTransmitted");
+    reservationGrid.restoreState(state.getRecord("reservationGrid"));
+    reservationGridManager.restoreState(
+      state.getRecord("reservationGridManager"));
+    int[] aczLaneIds = state.getInts("aczLaneIds");
+    List<StateRecord> aczStates = state.getRecords("aczs");
+    if (aczLaneIds.length != aczs.size()
+        || aczStates.size() != aczs.size()) {
+      throw new StreamCorruptedException("Malformed admission control zones");
+    }
+    Set<Integer> restoredLaneIds = new HashSet<Integer>();
+    for (int i = 0; i < aczLaneIds.length; i++) {
+      AdmissionControlZone acz = aczs.get(aczLaneIds[i]);
+      if (acz == null || !restoredLaneIds.add(aczLaneIds[i])) {
+        throw new StreamCorruptedException(
+          "Unknown admission control zone " + aczLaneIds[i]);
+      }
+      acz.restoreState(aczStates.get(i));
+    }
+    state.checkAllRead();
   }
 
 
@@ -485,4 +668,34 @@ public class V2IManager extends IntersectionManager
   }
 
 
+  /////////////////////////////////
+  // PRIVATE STATIC METHODS
+  /////////////////////////////////
+
+  /**
+   * Create the executor of the queries of this intersection manager.  The
+   * policy waits for its queries, so the executor has a thread per core;
+   * its queue is bounded and the policy runs a query itself when the queue
+   * is full.  The threads are daemons that end when they are idle, so the
+   * executor does not outlive the simulation that owns the manager.
+   *
+   * @return the executor
+   */
+  private static ExecutorService createQueryExecutor() {
+    int threads = Runtime.getRuntime().availableProcessors();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+      threads, threads, QUERY_KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<Runnable>(QUERY_QUEUE_CAPACITY),
+      new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "V2IManager-query");
+          t.setDaemon(true);
+          return t;
+        }
+      },
+      new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
 }
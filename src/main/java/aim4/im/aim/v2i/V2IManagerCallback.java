@@ -38,6 +38,8 @@ import aim4.im.aim.v2i.reservation.ReservationGrid;
 import aim4.im.aim.v2i.reservation.ReservationGridManager;
 import aim4.msg.aim.i2v.I2VMessage;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * An interface of the methods of V2IManager that are available for
  * the policies.
@@ -90,6 +92,14 @@ public interface V2IManagerCallback {
    */
   ReservationGridManager getReservationGridManager();
 
+  /**
+   * Get the executor that runs the queries of the proposals of a request
+   * concurrently.
+   *
+   * @return the executor; null if the queries run one after another
+   */
+  ExecutorService getQueryExecutor();
+
   /**
    * Get the Admission Control Zone of a given lane.
    *
@@ -30,11 +30,11 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.im.aim.v2i.batch;
 
-import aim4.config.Debug;
 import aim4.im.aim.TrackModel;
 import aim4.im.aim.v2i.RequestHandler.BatchModeRequestHandler.IndexedProposal;
 import aim4.map.Road;
 import aim4.msg.aim.v2i.Request.Proposal;
+import aim4.sim.SimulationContext;
 
 import java.util.*;
 
@@ -202,7 +202,7 @@ public class RoadBasedReordering implements ReorderingStrategy {
 
     for(IndexedProposal iProposal : iProposals) {
       int laneId = iProposal.getProposal().getArrivalLaneID();
-      Road road = Debug.currentAimMap.getRoad(laneId);
+      Road road = SimulationContext.current().getAimMap().getRoad(laneId);
       if (partition.containsKey(road)) {
         partition.get(road).add(iProposal);
       } else {
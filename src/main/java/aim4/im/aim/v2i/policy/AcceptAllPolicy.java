@@ -1,12 +1,17 @@
 package aim4.im.aim.v2i.policy;
 
+import aim4.im.RequestStats;
 import aim4.im.aim.v2i.V2IManagerCallback;
 import aim4.msg.aim.i2v.Confirm;
 import aim4.msg.aim.v2i.Request;
 import aim4.msg.aim.v2i.V2IMessage;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 
-public class AcceptAllPolicy implements Policy{
+import java.io.IOException;
+
+public class AcceptAllPolicy implements Policy, Restorable {
     /////////////////////////////////
     // CONSTANTS
     /////////////////////////////////
@@ -99,4 +104,33 @@ public class AcceptAllPolicy implements Policy{
     public StatCollector<AllStopPolicy> getStatCollector() {
         return null;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RequestStats getRequestStats() {
+        return null;
+    }
+
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The policy has no state of its own.
+     */
+    @Override
+    public StateRecord saveState() {
+        return new StateRecord(AcceptAllPolicy.class.getName(), 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(AcceptAllPolicy.class.getName(), 1);
+        state.checkAllRead();
+    }
 }
@@ -30,6 +30,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.im.aim.v2i.policy;
 
+import aim4.im.RequestStats;
 import aim4.im.aim.v2i.V2IManagerCallback;
 import aim4.msg.aim.i2v.Reject;
 import aim4.msg.aim.v2i.Request;
@@ -113,5 +114,13 @@ public class AllStopPolicy implements Policy {
     return null;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public RequestStats getRequestStats() {
+    return null;
+  }
+
 
 }
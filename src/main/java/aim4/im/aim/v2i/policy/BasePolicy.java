@@ -32,6 +32,7 @@ package aim4.im.aim.v2i.policy;
 
 import aim4.config.Debug;
 import aim4.im.AczManager;
+import aim4.im.RequestStats;
 import aim4.im.aim.TrackModel;
 import aim4.im.aim.v2i.RequestHandler.RequestHandler;
 import aim4.im.aim.v2i.V2IManager;
@@ -44,17 +45,27 @@ import aim4.msg.aim.i2v.Reject;
 import aim4.msg.aim.i2v.Reject.Reason;
 import aim4.msg.aim.v2i.*;
 import aim4.msg.aim.v2i.Request.Proposal;
+import aim4.sim.SimulationContext;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.HashMapRegistry;
-import aim4.util.Registry;
 import aim4.vehicle.VehicleUtil;
 
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * The base policy.
  */
-public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
+public final class BasePolicy implements Policy, ExtendedBasePolicyCallback,
+                                         Restorable {
 
   /////////////////////////////////
   // CONSTANTS
@@ -80,7 +91,6 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
   }
 
 
-
   /////////////////////////////////
   // NESTED CLASSES
   /////////////////////////////////
@@ -341,6 +351,29 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
     return new ProposalFilterResult(myProposals);
   }
 
+  /**
+   * Create the reservation grid query of a proposal of a vehicle.
+   *
+   * @param vin       the VIN of the vehicle
+   * @param spec      the specification of the vehicle
+   * @param proposal  the proposal
+   *
+   * @return the reservation grid query
+   */
+  public static ReservationGridManager.Query createGridQuery(
+                                     int vin,
+                                     Request.VehicleSpecForRequestMsg spec,
+                                     Request.Proposal proposal) {
+    return new ReservationGridManager.Query(vin,
+                                            proposal.getArrivalTime(),
+                                            proposal.getArrivalVelocity(),
+                                            proposal.getArrivalLaneID(),
+                                            proposal.getDepartureLaneID(),
+                                            spec,
+                                            proposal.getMaximumTurnVelocity(),
+                                            true);
+  }
+
 
 
   /////////////////////////////////
@@ -360,7 +393,7 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
   /**
    * The confirm message registry
    */
-  private Registry<ReservationRecord> reservationRecordRegistry =
+  private HashMapRegistry<ReservationRecord> reservationRecordRegistry =
     new HashMapRegistry<ReservationRecord>();
 
   /**
@@ -374,6 +407,11 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
    */
   private StatCollector<BasePolicy> statCollector;
 
+  /**
+   * The statistics of the reservation requests
+   */
+  private final RequestStats requestStats = new RequestStats();
+
   /**
    * The statistic collector
    */
@@ -502,6 +540,7 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
                     .getDepartureLaneID()).getMaxSize(),
                   reserveParam.getGridPlan().getAccelerationProfile());
     im.sendI2VMessage(confirmMsg);
+    requestStats.recordAccept();
 
     // bookkeeping
     ReservationRecord r =
@@ -523,12 +562,23 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
    */
   @Override
   public void sendRejectMsg(int vin, int latestRequestId, Reject.Reason reason){
+    sendRejectMsg(vin, latestRequestId, reason, Double.NaN);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void sendRejectMsg(int vin, int latestRequestId, Reject.Reason reason,
+                            double earliestArrivalTime) {
     im.sendI2VMessage(new Reject(im.getId(),
                                  vin,
                                  latestRequestId,
                                  im.getCurrentTime(), // can re-send request
                                                       // immediately
-                                 reason));
+                                 reason,
+                                 earliestArrivalTime));
+    requestStats.recordReject(reason);
   }
 
   /**
@@ -537,25 +587,31 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
   @Override
   public ReserveParam findReserveParam(Request msg,
                                        List<Request.Proposal> proposals) {
+    long queryStart = System.nanoTime();
     int vin = msg.getVin();
 
+    // Run the internal simulations of all proposals at once if allowed;
+    // the proposals are still tried in order below.
+    List<ReservationGridManager.Plan> gridPlans = null;
+    ExecutorService queryExecutor = im.getQueryExecutor();
+    if (proposals.size() > 1 && queryExecutor != null) {
+      gridPlans = queryInParallel(queryExecutor, msg, proposals);
+    }
+
     // Okay, now let's actually try some of these proposals
     Request.Proposal successfulProposal = null;
     ReservationGridManager.Plan gridPlan = null;
     AczManager aczManager = null;
     AczManager.Plan aczPlan = null;
 
+    int i = 0;
     for(Request.Proposal proposal : proposals) {
-      ReservationGridManager.Query gridQuery =
-        new ReservationGridManager.Query(vin,
-                                         proposal.getArrivalTime(),
-                                         proposal.getArrivalVelocity(),
-                                         proposal.getArrivalLaneID(),
-                                         proposal.getDepartureLaneID(),
-                                         msg.getSpec(),
-                                         proposal.getMaximumTurnVelocity(),
-                                         true);
-      gridPlan = im.getReservationGridManager().query(gridQuery);
+      if (gridPlans != null) {
+        gridPlan = gridPlans.get(i++);
+      } else {
+        gridPlan =
+          im.getReservationGridManager().query(createGridQuery(msg, proposal));
+      }
       if (gridPlan != null) {
         double stopDist =
           VehicleUtil.calcDistanceToStop(gridPlan.getExitVelocity(),
@@ -583,6 +639,7 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
         }
       }
     }
+    requestStats.recordQuery(System.nanoTime() - queryStart);
 
     if (successfulProposal != null) {
       return new ReserveParam(vin, successfulProposal, gridPlan, aczManager,
@@ -592,6 +649,42 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The reservation grid is searched for each proposal up to the maximum
+   * future reservation time, keeping the arrival velocity of the proposal,
+   * and the earliest time over all proposals is returned.  Nothing is
+   * returned if a proposal already finds the grid clear at its own arrival
+   * time, since then the grid is not what rejected it.
+   */
+  @Override
+  public double findEarliestArrivalTime(Request msg,
+                                        List<Request.Proposal> proposals) {
+    ReservationGridManager gridManager = im.getReservationGridManager();
+    if (!gridManager.getConfig().getIsCounterProposalEnabled()) {
+      return Double.NaN;
+    }
+    double latestArrivalTime =
+      im.getCurrentTime() + V2IManager.MAXIMUM_FUTURE_RESERVATION_TIME;
+    double earliestArrivalTime = Double.NaN;
+    for(Request.Proposal proposal : proposals) {
+      double t =
+        gridManager.findEarliestArrivalTime(createGridQuery(msg, proposal),
+                                            latestArrivalTime);
+      if (Double.isNaN(t)) {
+        continue;
+      }
+      if (t <= proposal.getArrivalTime()) {
+        return Double.NaN;
+      }
+      if (Double.isNaN(earliestArrivalTime) || t < earliestArrivalTime) {
+        earliestArrivalTime = t;
+      }
+    }
+    return earliestArrivalTime;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -629,6 +722,7 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
   @Override
   public void processV2IMessage(V2IMessage msg) {
     if (msg instanceof Request) {
+      requestStats.recordRequest();
       requestHandler.processRequestMsg((Request)msg);
     } else if (msg instanceof Cancel) {
       processCancelMsg((Cancel) msg);
@@ -732,6 +826,14 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
     return statCollector;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public RequestStats getRequestStats() {
+    return requestStats;
+  }
+
   // TODO: remove this function later.
 
   /**
@@ -749,5 +851,179 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback {
     return policyType;
   }
 
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The request handler must support snapshots, and there must be no
+   * statistic collector.
+   */
+  @Override
+  public StateRecord saveState() throws NotSerializableException {
+    if (!(requestHandler instanceof Restorable)) {
+      throw new NotSerializableException(requestHandler.getClass().getName());
+    }
+    if (statCollector != null) {
+      throw new NotSerializableException(statCollector.getClass().getName());
+    }
+    StateRecord state = new StateRecord(BasePolicy.class.getName(), 1);
+    state.putRecord("requestHandler",
+                    ((Restorable) requestHandler).saveState());
+    // the reservation records as parallel arrays
+    Map<Integer,ReservationRecord> records =
+      reservationRecordRegistry.getObjects();
+    List<Integer> nullIds = new ArrayList<Integer>();
+    List<ReservationRecord> nonNullRecords = new ArrayList<ReservationRecord>();
+    List<Integer> nonNullIds = new ArrayList<Integer>();
+    for(Map.Entry<Integer,ReservationRecord> e : records.entrySet()) {
+      if (e.getValue() == null) {
+        nullIds.add(e.getKey());
+      } else {
+        nonNullIds.add(e.getKey());
+        nonNullRecords.add(e.getValue());
+      }
+    }
+    int[] ids = new int[nonNullIds.size()];
+    int[] vins = new int[ids.length];
+    int[] aczLaneIds = new int[ids.length];
+    for(int i = 0; i < ids.length; i++) {
+      ids[i] = nonNullIds.get(i);
+      vins[i] = nonNullRecords.get(i).getVin();
+      aczLaneIds[i] = nonNullRecords.get(i).getAczLaneId();
+    }
+    int[] pendingIds = new int[nullIds.size()];
+    for(int i = 0; i < pendingIds.length; i++) {
+      pendingIds[i] = nullIds.get(i);
+    }
+    state.putInt("nextReservationId", reservationRecordRegistry.getNextId());
+    state.putInts("reservationIds", ids);
+    state.putInts("reservationVins", vins);
+    state.putInts("reservationAczLaneIds", aczLaneIds);
+    state.putInts("pendingReservationIds", pendingIds);
+    int[] vinKeys = new int[vinToReservationId.size()];
+    int[] reservationIds = new int[vinKeys.length];
+    int i = 0;
+    for(Map.Entry<Integer,Integer> e : vinToReservationId.entrySet()) {
+      vinKeys[i] = e.getKey();
+      reservationIds[i] = e.getValue();
+      i++;
+    }
+    state.putInts("vins", vinKeys);
+    state.putInts("vinReservationIds", reservationIds);
+    state.putRecord("requestStats", requestStats.saveState());
+    return state;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void restoreState(StateRecord state) throws IOException {
+    state.check(BasePolicy.class.getName(), 1);
+    if (!(requestHandler instanceof Restorable)) {
+      throw new NotSerializableException(requestHandler.getClass().getName());
+    }
+    ((Restorable) requestHandler).restoreState(
+      state.getRecord("requestHandler"));
+    int nextId = state.getInt("nextReservationId");
+    int[] ids = state.getInts("reservationIds");
+    int[] vins = state.getInts("reservationVins");
+    int[] aczLaneIds = state.getInts("reservationAczLaneIds");
+    int[] pendingIds = state.getInts("pendingReservationIds");
+    if (vins.length != ids.length || aczLaneIds.length != ids.length) {
+      throw new StreamCorruptedException("Malformed reservation records");
+    }
+    Map<Integer,ReservationRecord> records =
+      new HashMap<Integer,ReservationRecord>();
+    for(int i = 0; i < ids.length; i++) {
+      records.put(ids[i], new ReservationRecord(vins[i], aczLaneIds[i]));
+    }
+    for(int id : pendingIds) {
+      records.put(id, null);
+    }
+    try {
+      reservationRecordRegistry.restore(nextId, records);
+    } catch(IllegalArgumentException e) {
+      throw new StreamCorruptedException(e.getMessage());
+    }
+    int[] vinKeys = state.getInts("vins");
+    int[] reservationIds = state.getInts("vinReservationIds");
+    if (reservationIds.length != vinKeys.length) {
+      throw new StreamCorruptedException("Malformed reservation IDs");
+    }
+    vinToReservationId.clear();
+    for(int i = 0; i < vinKeys.length; i++) {
+      vinToReservationId.put(vinKeys[i], reservationIds[i]);
+    }
+    requestStats.restoreState(state.getRecord("requestStats"));
+    state.checkAllRead();
+  }
+
+  /////////////////////////////////
+  // PRIVATE METHODS
+  /////////////////////////////////
+
+  /**
+   * Create the reservation grid query of a proposal.
+   *
+   * @param msg       the request message
+   * @param proposal  the proposal
+   *
+   * @return the reservation grid query
+   */
+  private static ReservationGridManager.Query createGridQuery(
+                                                Request msg,
+                                                Request.Proposal proposal) {
+    return createGridQuery(msg.getVin(), msg.getSpec(), proposal);
+  }
 
+  /**
+   * Query the reservation grid manager for all proposals concurrently.
+   * The reservation grid is not modified while the queries run.
+   *
+   * @param queryExecutor  the executor of the queries
+   * @param msg            the request message
+   * @param proposals      the proposals
+   *
+   * @return the reservation plans in the order of the proposals; a plan is
+   *         null if the query of its proposal failed
+   */
+  private List<ReservationGridManager.Plan> queryInParallel(
+                                          ExecutorService queryExecutor,
+                                          Request msg,
+                                          List<Request.Proposal> proposals) {
+    final ReservationGridManager gridManager = im.getReservationGridManager();
+    // The queries run on the threads of the executor, so bind them to the
+    // context of the simulation the request belongs to
+    final SimulationContext context = SimulationContext.current();
+    List<Future<ReservationGridManager.Plan>> futures =
+      new ArrayList<Future<ReservationGridManager.Plan>>(proposals.size());
+    for(Request.Proposal proposal : proposals) {
+      final ReservationGridManager.Query gridQuery =
+        createGridQuery(msg, proposal);
+      futures.add(queryExecutor.submit(
+        new Callable<ReservationGridManager.Plan>() {
+          @Override
+          public ReservationGridManager.Plan call() {
+            return context.call(() -> gridManager.query(gridQuery));
+          }
+        }));
+    }
+    List<ReservationGridManager.Plan> gridPlans =
+      new ArrayList<ReservationGridManager.Plan>(proposals.size());
+    try {
+      for(Future<ReservationGridManager.Plan> future : futures) {
+        gridPlans.add(future.get());
+      }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while querying the " +
+                                 "reservation grid", e);
+    } catch(ExecutionException e) {
+      throw new RuntimeException("Failed to query the reservation grid",
+                                 e.getCause());
+    }
+    return gridPlans;
+  }
 }
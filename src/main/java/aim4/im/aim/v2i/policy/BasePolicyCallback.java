@@ -59,6 +59,19 @@ public interface BasePolicyCallback {
    */
   void sendRejectMsg(int vin, int latestRequestId, Reject.Reason reason);
 
+  /**
+   * Send a reject message with the earliest arrival time at which the
+   * intersection is clear.
+   *
+   * @param vin                  the VIN
+   * @param latestRequestId      the latest request id of the vehicle
+   * @param reason               the reason of rejection
+   * @param earliestArrivalTime  the earliest arrival time at which the
+   *                             intersection is clear; NaN if there is none
+   */
+  void sendRejectMsg(int vin, int latestRequestId, Reject.Reason reason,
+                     double earliestArrivalTime);
+
   /**
    * Compute the reservation parameter given the request message and a
    * set of proposals.
@@ -69,6 +82,18 @@ public interface BasePolicyCallback {
    */
   ReserveParam findReserveParam(Request msg, List<Request.Proposal> proposals);
 
+  /**
+   * Search forward in time for the earliest arrival time at which one of
+   * the proposals of a rejected request would find the intersection clear.
+   *
+   * @param msg        the request message
+   * @param proposals  the set of proposals
+   * @return the earliest arrival time; NaN if the search is disabled or
+   *         does not help the vehicle
+   */
+  double findEarliestArrivalTime(Request msg,
+                                 List<Request.Proposal> proposals);
+
   /**
    * Get the current time
    *
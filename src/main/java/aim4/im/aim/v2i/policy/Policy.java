@@ -30,6 +30,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.im.aim.v2i.policy;
 
+import aim4.im.RequestStats;
 import aim4.im.aim.v2i.V2IManagerCallback;
 import aim4.msg.aim.v2i.V2IMessage;
 import aim4.sim.StatCollector;
@@ -69,4 +70,12 @@ public interface Policy {
    */
   StatCollector<?> getStatCollector();
 
+  /**
+   * Get the statistics of the reservation requests.
+   *
+   * @return the statistics of the reservation requests; null if the policy
+   *         does not keep them
+   */
+  RequestStats getRequestStats();
+
 }
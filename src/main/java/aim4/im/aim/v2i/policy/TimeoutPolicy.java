@@ -33,7 +33,9 @@ package aim4.im.aim.v2i.policy;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
+import aim4.im.RequestStats;
 import aim4.im.aim.Intersection;
 import aim4.im.aim.TrackModel;
 import aim4.im.aim.v2i.V2IManager;
@@ -172,7 +174,8 @@ public class TimeoutPolicy implements Policy, V2IManagerCallback {
                                    rejectMsg.getVin(),
                                    rejectMsg.getRequestId(),
                                    nextComm, // the new nextAllowedComm
-                                   rejectMsg.getReason()));
+                                   rejectMsg.getReason(),
+                                   rejectMsg.getEarliestArrivalTime()));
     }
   }
 
@@ -216,6 +219,14 @@ public class TimeoutPolicy implements Policy, V2IManagerCallback {
     return im.getReservationGridManager();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ExecutorService getQueryExecutor() {
+    return im.getQueryExecutor();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -322,6 +333,14 @@ public class TimeoutPolicy implements Policy, V2IManagerCallback {
     return policy.getStatCollector();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public RequestStats getRequestStats() {
+    return policy.getRequestStats();
+  }
+
 
   /**
    * {@inheritDoc}
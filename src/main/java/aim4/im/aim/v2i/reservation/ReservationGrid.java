@@ -283,4 +283,22 @@ public class ReservationGrid extends ReservationArray {
     return super.getVinOfReservedTilesAtTime(calcDiscreteTime(time));
   }
 
+  /**
+   * Get the fraction of the time-tiles reserved in a period of time, a
+   * cheap measure of how busy the intersection is going to be.
+   *
+   * @param startTime  the start of the period
+   * @param endTime    the end of the period
+   * @return the fraction of the time-tiles of the period that are reserved
+   */
+  public double calcReservedFraction(double startTime, double endTime) {
+    int fromDt = calcDiscreteTime(startTime);
+    int toDt = calcDiscreteTime(endTime);
+    if (toDt < fromDt) {
+      return 0.0;
+    }
+    return (double) countReservedTimeTiles(fromDt, toDt)
+           / ((toDt - fromDt + 1) * (double) getNumberOfTiles());
+  }
+
 }
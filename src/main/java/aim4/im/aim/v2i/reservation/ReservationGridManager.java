@@ -31,29 +31,37 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package aim4.im.aim.v2i.reservation;
 
 import aim4.config.Constants;
-import aim4.config.Debug;
 import aim4.driver.Driver;
 import aim4.driver.aim.CrashTestDummy;
 import aim4.im.ReservationManager;
 import aim4.im.aim.Intersection;
 import aim4.im.aim.v2i.reservation.ReservationGrid.TimeTile;
+import aim4.map.Road;
 import aim4.map.lane.Lane;
 import aim4.msg.aim.v2i.Request;
 import aim4.msg.aim.v2i.Request.VehicleSpecForRequestMsg;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
+import aim4.util.ConvexDecomposition;
+import aim4.util.GeomMath;
 import aim4.util.TiledArea;
-import aim4.util.TiledArea.Tile;
 import aim4.vehicle.VehicleSpec;
 import aim4.vehicle.VehicleUtil;
 import aim4.vehicle.aim.AIMBasicAutoVehicle;
 
 import java.awt.*;
-import java.awt.geom.Area;
+import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
 import java.io.PrintStream;
+import java.io.StreamCorruptedException;
 import java.util.*;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The reservation grid manager.
@@ -61,7 +69,37 @@ import java.util.Queue;
 public class ReservationGridManager implements
         ReservationManager<ReservationGridManager.Query,
                                ReservationGridManager.Plan,
-                               Integer> {
+                               Integer>,
+        Restorable {
+
+  /////////////////////////////////
+  // CONSTANTS
+  /////////////////////////////////
+
+  /**
+   * The width of the arrival velocity buckets of the footprint cache, in
+   * meters per second.
+   */
+  private static final double FOOTPRINT_VELOCITY_RESOLUTION = 0.1;
+
+  /**
+   * The number of buckets into which the arrival time within a grid time
+   * step is divided by the footprint cache.
+   */
+  private static final int FOOTPRINT_PHASE_BUCKETS = 10;
+
+  /**
+   * The padding added around the test vehicles of the footprints of the
+   * footprint cache, in meters.  The test vehicles of a bucket do not quite
+   * follow the same path, since how they steer depends on their velocity.
+   */
+  private static final double FOOTPRINT_PADDING = 0.1;
+
+  /**
+   * The maximum total number of occupied tiles of the footprints in the
+   * footprint cache.  The cache is emptied when it would hold more.
+   */
+  private static final int FOOTPRINT_CACHE_MAX_TILES = 2000000;
 
   /////////////////////////////////
   // NESTED CLASSES
@@ -99,6 +137,26 @@ public class ReservationGridManager implements
      * The granularity.
      */
     private double granularity;
+    /**
+     * Whether or not the footprints of the internal simulations are cached.
+     */
+    private boolean isFootprintCacheEnabled;
+    /**
+     * Whether or not the queries of the proposals of a request are run
+     * concurrently.
+     */
+    private boolean isParallelQueryEnabled;
+    /**
+     * Whether or not the earliest feasible arrival time is sent back when a
+     * request is rejected.
+     */
+    private boolean isCounterProposalEnabled;
+    /**
+     * Whether or not the footprints of the approaching vehicles are
+     * computed in the background before their requests arrive.  The
+     * footprints are put in the footprint cache, so this requires it.
+     */
+    private boolean isPrePlanningEnabled;
 
     /**
      * Create a configuration object.
@@ -118,6 +176,127 @@ public class ReservationGridManager implements
                   double edgeTileTimeBufferSize,
                   boolean isEdgeTileTimeBufferEnabled,
                   double granularity) {
+      this(timeStep, gridTimeStep, staticBufferSize,
+           internalTileTimeBufferSize, edgeTileTimeBufferSize,
+           isEdgeTileTimeBufferEnabled, granularity, false);
+    }
+
+    /**
+     * Create a configuration object.
+     *
+     * @param timeStep
+     * @param gridTimeStep
+     * @param staticBufferSize
+     * @param internalTileTimeBufferSize
+     * @param edgeTileTimeBufferSize
+     * @param isEdgeTileTimeBufferEnabled
+     * @param granularity
+     * @param isFootprintCacheEnabled
+     */
+    public Config(double timeStep,
+                  double gridTimeStep,
+                  double staticBufferSize,
+                  double internalTileTimeBufferSize,
+                  double edgeTileTimeBufferSize,
+                  boolean isEdgeTileTimeBufferEnabled,
+                  double granularity,
+                  boolean isFootprintCacheEnabled) {
+      this(timeStep, gridTimeStep, staticBufferSize,
+           internalTileTimeBufferSize, edgeTileTimeBufferSize,
+           isEdgeTileTimeBufferEnabled, granularity, isFootprintCacheEnabled,
+           false);
+    }
+
+    /**
+     * Create a configuration object.
+     *
+     * @param timeStep
+     * @param gridTimeStep
+     * @param staticBufferSize
+     * @param internalTileTimeBufferSize
+     * @param edgeTileTimeBufferSize
+     * @param isEdgeTileTimeBufferEnabled
+     * @param granularity
+     * @param isFootprintCacheEnabled
+     * @param isParallelQueryEnabled
+     */
+    public Config(double timeStep,
+                  double gridTimeStep,
+                  double staticBufferSize,
+                  double internalTileTimeBufferSize,
+                  double edgeTileTimeBufferSize,
+                  boolean isEdgeTileTimeBufferEnabled,
+                  double granularity,
+                  boolean isFootprintCacheEnabled,
+                  boolean isParallelQueryEnabled) {
+      this(timeStep, gridTimeStep, staticBufferSize,
+           internalTileTimeBufferSize, edgeTileTimeBufferSize,
+           isEdgeTileTimeBufferEnabled, granularity, isFootprintCacheEnabled,
+           isParallelQueryEnabled, false);
+    }
+
+    /**
+     * Create a configuration object.
+     *
+     * @param timeStep
+     * @param gridTimeStep
+     * @param staticBufferSize
+     * @param internalTileTimeBufferSize
+     * @param edgeTileTimeBufferSize
+     * @param isEdgeTileTimeBufferEnabled
+     * @param granularity
+     * @param isFootprintCacheEnabled
+     * @param isParallelQueryEnabled
+     * @param isCounterProposalEnabled
+     */
+    public Config(double timeStep,
+                  double gridTimeStep,
+                  double staticBufferSize,
+                  double internalTileTimeBufferSize,
+                  double edgeTileTimeBufferSize,
+                  boolean isEdgeTileTimeBufferEnabled,
+                  double granularity,
+                  boolean isFootprintCacheEnabled,
+                  boolean isParallelQueryEnabled,
+                  boolean isCounterProposalEnabled) {
+      this(timeStep, gridTimeStep, staticBufferSize,
+           internalTileTimeBufferSize, edgeTileTimeBufferSize,
+           isEdgeTileTimeBufferEnabled, granularity, isFootprintCacheEnabled,
+           isParallelQueryEnabled, isCounterProposalEnabled, false);
+    }
+
+    /**
+     * Create a configuration object.
+     *
+     * @param timeStep
+     * @param gridTimeStep
+     * @param staticBufferSize
+     * @param internalTileTimeBufferSize
+     * @param edgeTileTimeBufferSize
+     * @param isEdgeTileTimeBufferEnabled
+     * @param granularity
+     * @param isFootprintCacheEnabled
+     * @param isParallelQueryEnabled
+     * @param isCounterProposalEnabled
+     * @param isPrePlanningEnabled
+     * @throws IllegalArgumentException  if the reservations are planned
+     *                                   ahead without the footprint cache
+     */
+    public Config(double timeStep,
+                  double gridTimeStep,
+                  double staticBufferSize,
+                  double internalTileTimeBufferSize,
+                  double edgeTileTimeBufferSize,
+                  boolean isEdgeTileTimeBufferEnabled,
+                  double granularity,
+                  boolean isFootprintCacheEnabled,
+                  boolean isParallelQueryEnabled,
+                  boolean isCounterProposalEnabled,
+                  boolean isPrePlanningEnabled) {
+      if (isPrePlanningEnabled && !isFootprintCacheEnabled) {
+        throw new IllegalArgumentException(
+          "Planning the reservations ahead requires the footprint cache");
+      }
       this.timeStep = timeStep;
       this.gridTimeStep = gridTimeStep;
       this.staticBufferSize = staticBufferSize;
@@ -125,6 +304,10 @@ public class ReservationGridManager implements
       this.edgeTileTimeBufferSize = edgeTileTimeBufferSize;
       this.isEdgeTileTimeBufferEnabled = isEdgeTileTimeBufferEnabled;
       this.granularity = granularity;
+      this.isFootprintCacheEnabled = isFootprintCacheEnabled;
+      this.isParallelQueryEnabled = isParallelQueryEnabled;
+      this.isCounterProposalEnabled = isCounterProposalEnabled;
+      this.isPrePlanningEnabled = isPrePlanningEnabled;
     }
 
     /**
@@ -189,6 +372,48 @@ public class ReservationGridManager implements
     public double getGranularity() {
       return granularity;
     }
+
+    /**
+     * Get whether the footprints of the internal simulations are cached.
+     *
+     * @return whether the footprints of the internal simulations are cached
+     */
+    public boolean getIsFootprintCacheEnabled() {
+      return isFootprintCacheEnabled;
+    }
+
+    /**
+     * Get whether the queries of the proposals of a request are run
+     * concurrently.
+     *
+     * @return whether the queries of the proposals of a request are run
+     *         concurrently
+     */
+    public boolean getIsParallelQueryEnabled() {
+      return isParallelQueryEnabled;
+    }
+
+    /**
+     * Get whether the earliest feasible arrival time is sent back when a
+     * request is rejected.
+     *
+     * @return whether the earliest feasible arrival time is sent back when
+     *         a request is rejected
+     */
+    public boolean getIsCounterProposalEnabled() {
+      return isCounterProposalEnabled;
+    }
+
+    /**
+     * Get whether the footprints of the approaching vehicles are computed
+     * in the background before their requests arrive.
+     *
+     * @return whether the footprints of the approaching vehicles are
+     *         computed in the background before their requests arrive
+     */
+    public boolean getIsPrePlanningEnabled() {
+      return isPrePlanningEnabled;
+    }
   }
 
   /**
@@ -397,7 +622,8 @@ public class ReservationGridManager implements
    * The statistic collector for VIN history.
    */
   public static class VinHistoryStatCollector
-                  implements StatCollector<ReservationGridManager> {
+                  implements StatCollector<ReservationGridManager>,
+                             Restorable {
     /**
      * A list of the VINs of all reserved tiles at every time step.
      */
@@ -449,6 +675,178 @@ public class ReservationGridManager implements
       }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StateRecord saveState() {
+      StateRecord state =
+        new StateRecord(VinHistoryStatCollector.class.getName(), 1);
+      double[] times = new double[vinHistoryTime.size()];
+      int[] counts = new int[times.length];
+      List<Integer> vins = new ArrayList<Integer>();
+      int i = 0;
+      for (double time : vinHistoryTime) {
+        Set<Integer> s = vinHistory.get(time);
+        times[i] = time;
+        counts[i] = s.size();
+        vins.addAll(s);
+        i++;
+      }
+      int[] allVins = new int[vins.size()];
+      for (i = 0; i < allVins.length; i++) {
+        allVins[i] = vins.get(i);
+      }
+      state.putDoubles("vinHistoryTime", times);
+      // the VINs at each time, concatenated
+      state.putInts("vinCounts", counts);
+      state.putInts("vins", allVins);
+      return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+      state.check(VinHistoryStatCollector.class.getName(), 1);
+      double[] times = state.getDoubles("vinHistoryTime");
+      int[] counts = state.getInts("vinCounts");
+      int[] vins = state.getInts("vins");
+      if (counts.length != times.length) {
+        throw new StreamCorruptedException("Malformed VIN history");
+      }
+      vinHistoryTime.clear();
+      vinHistory.clear();
+      int k = 0;
+      for (int i = 0; i < times.length; i++) {
+        if (counts[i] < 0 || k + counts[i] > vins.length) {
+          throw new StreamCorruptedException("Malformed VIN history");
+        }
+        Set<Integer> s = new HashSet<Integer>();
+        for (int j = 0; j < counts[i]; j++) {
+          s.add(vins[k++]);
+        }
+        vinHistoryTime.add(times[i]);
+        vinHistory.put(times[i], s);
+      }
+      if (k != vins.length) {
+        throw new StreamCorruptedException("Malformed VIN history");
+      }
+      state.checkAllRead();
+    }
+
+  }
+
+  /**
+   * The key of a footprint in the footprint cache.
+   */
+  private static class FootprintKey {
+    /** The ID of the arrival lane */
+    private final int arrivalLaneId;
+    /** The ID of the departure lane */
+    private final int departureLaneId;
+    /** The parameters of the vehicle specification */
+    private final double[] spec;
+    /** The maximum turn velocity */
+    private final double maxTurnVelocity;
+    /** The bucket of the arrival velocity */
+    private final long velocityBucket;
+    /** The bucket of the arrival time within a grid time step */
+    private final int phaseBucket;
+    /** Whether the acceleration is allowed */
+    private final boolean accelerating;
+
+    /**
+     * Create the key of a footprint.
+     *
+     * @param q               the query
+     * @param velocityBucket  the bucket of the arrival velocity
+     * @param phaseBucket     the bucket of the arrival time within a grid
+     *                        time step
+     */
+    FootprintKey(Query q, long velocityBucket, int phaseBucket) {
+      VehicleSpecForRequestMsg s = q.getSpec();
+      this.arrivalLaneId = q.getArrivalLaneId();
+      this.departureLaneId = q.getDepartureLaneId();
+      this.spec = new double[] {
+        s.getMaxAcceleration(), s.getMaxDeceleration(), s.getMinVelocity(),
+        s.getLength(), s.getWidth(), s.getFrontAxleDisplacement(),
+        s.getRearAxleDisplacement(), s.getMaxSteeringAngle(),
+        s.getMaxTurnPerSecond() };
+      this.maxTurnVelocity = q.getMaxTurnVelocity();
+      this.velocityBucket = velocityBucket;
+      this.phaseBucket = phaseBucket;
+      this.accelerating = q.isAccelerating();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof FootprintKey)) {
+        return false;
+      }
+      FootprintKey k = (FootprintKey)obj;
+      return arrivalLaneId == k.arrivalLaneId
+          && departureLaneId == k.departureLaneId
+          && velocityBucket == k.velocityBucket
+          && phaseBucket == k.phaseBucket
+          && accelerating == k.accelerating
+          && Double.compare(maxTurnVelocity, k.maxTurnVelocity) == 0
+          && Arrays.equals(spec, k.spec);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+      int h = arrivalLaneId;
+      h = 31 * h + departureLaneId;
+      h = 31 * h + (int)(velocityBucket ^ (velocityBucket >>> 32));
+      h = 31 * h + phaseBucket;
+      h = 31 * h + (accelerating ? 1 : 0);
+      long bits = Double.doubleToLongBits(maxTurnVelocity);
+      h = 31 * h + (int)(bits ^ (bits >>> 32));
+      h = 31 * h + Arrays.hashCode(spec);
+      return h;
+    }
+  }
+
+  /**
+   * The footprint of an internal simulation: the tiles occupied by the test
+   * vehicle at each discrete time relative to the discrete arrival time.
+   * The time buffers of the tiles are added when the footprint is probed.
+   */
+  private static class Footprint {
+    /** The discrete time offsets of the occupied tiles */
+    private final int[] dtOffsets;
+    /** The IDs of the occupied tiles */
+    private final int[] tileIds;
+    /** The discrete time offset at which the vehicle exits */
+    private final int exitOffset;
+    /** The highest exit velocity of the arrivals of the footprint */
+    private final double exitVelocity;
+
+    /**
+     * Create a footprint.
+     *
+     * @param dtOffsets     the discrete time offsets of the occupied tiles
+     * @param tileIds       the IDs of the occupied tiles
+     * @param exitOffset    the discrete time offset at which the vehicle
+     *                      exits
+     * @param exitVelocity  the highest exit velocity of the arrivals of the
+     *                      footprint
+     */
+    Footprint(int[] dtOffsets, int[] tileIds, int exitOffset,
+              double exitVelocity) {
+      this.dtOffsets = dtOffsets;
+      this.tileIds = tileIds;
+      this.exitOffset = exitOffset;
+      this.exitVelocity = exitVelocity;
+    }
   }
 
 
@@ -487,6 +885,14 @@ public class ReservationGridManager implements
    * The intersection
    */
   private Intersection intersection;
+  /**
+   * A mapping from lane IDs to the lanes of the intersection
+   */
+  private Map<Integer,Lane> idToLane = new HashMap<Integer,Lane>();
+  /**
+   * A mapping from the lanes of the intersection to their roads
+   */
+  private Map<Lane,Road> laneToRoad = new HashMap<Lane,Road>();
   /**
    * The tiled area of the intersection
    */
@@ -499,6 +905,16 @@ public class ReservationGridManager implements
    * The statistic collector
    */
   private StatCollector<ReservationGridManager> statCollector;
+  /**
+   * The cached footprints of the internal simulations; null if the cache
+   * is disabled. Queries may run concurrently, so the map is concurrent.
+   */
+  private Map<FootprintKey,Footprint> footprintCache;
+  /**
+   * The total number of occupied tiles of the footprints in the footprint
+   * cache
+   */
+  private AtomicInteger footprintCacheTiles = new AtomicInteger();
 
 
   /////////////////////////////////
@@ -547,6 +963,21 @@ public class ReservationGridManager implements
     this.tiledArea = tiledArea;
     this.reservationGrid = reservationGrid;
     this.statCollector = new VinHistoryStatCollector();
+    if (config.getIsFootprintCacheEnabled()) {
+      this.footprintCache =
+        new ConcurrentHashMap<FootprintKey,Footprint>();
+    }
+    // Resolve the lanes here so that query() does not depend on the
+    // current map
+    for(Road road : intersection.getRoads()) {
+      for(Lane lane : road.getLanes()) {
+        idToLane.put(lane.getId(), lane);
+        laneToRoad.put(lane, road);
+      }
+    }
+    // Area caches its bounds lazily; compute them before any concurrent
+    // query reads the area
+    intersection.getAreaPlus().getBounds2D();
   }
 
 
@@ -592,14 +1023,50 @@ public class ReservationGridManager implements
     return statCollector;
   }
 
-  /////////////////////////////////
-  // PUBLIC METHODS
-  /////////////////////////////////
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The footprint cache is not saved: the footprints are pure functions of
+   * their keys, so they are only computed again.
+   */
+  @Override
+  public StateRecord saveState() throws NotSerializableException {
+    StateRecord state =
+      new StateRecord(ReservationGridManager.class.getName(), 1);
+    state.putDouble("currentTime", currentTime);
+    if (statCollector != null && !(statCollector instanceof Restorable)) {
+      throw new NotSerializableException(statCollector.getClass().getName());
+    }
+    state.putRecord("statCollector", statCollector == null ?
+                    null : ((Restorable) statCollector).saveState());
+    return state;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void restoreState(StateRecord state) throws IOException {
+    state.check(ReservationGridManager.class.getName(), 1);
+    currentTime = state.getDouble("currentTime");
+    StateRecord collectorState = state.getRecordOrNull("statCollector");
+    if ((collectorState == null) != (statCollector == null)) {
+      throw new StreamCorruptedException("Statistic collector mismatch");
+    }
+    if (collectorState != null) {
+      ((Restorable) statCollector).restoreState(collectorState);
+    }
+    state.checkAllRead();
+  }
 
   /**
    * Find a set of space-time tile for a particular traversal proposal in
    * a request message.  This attempt can be either with attempting to
    * setMaxAccelWithMaxTargetVelocity to maximum velocity or with a constant velocity.
+   * A query does not modify the reservation grid, so several queries can
+   * run concurrently as long as no reservation is made in the meantime.
    * @param q  the query object
    *
    * @return a set of space-time tiles on the trajectory and
@@ -608,12 +1075,13 @@ public class ReservationGridManager implements
    */
   @Override
   public Plan query(Query q) {
+    if (footprintCache != null) {
+      return queryByFootprint(q);
+    }
 
     // Position the Vehicle to be ready to start the simulation
-    Lane arrivalLane =
-      Debug.currentAimMap.getLaneRegistry().get(q.getArrivalLaneId());
-    Lane departureLane =
-      Debug.currentAimMap.getLaneRegistry().get(q.getDepartureLaneId());
+    Lane arrivalLane = idToLane.get(q.getArrivalLaneId());
+    Lane departureLane = idToLane.get(q.getDepartureLaneId());
 
     // Create a test vehicle to use in the internal simulation
     AIMBasicAutoVehicle testVehicle =
@@ -623,7 +1091,8 @@ public class ReservationGridManager implements
                         arrivalLane);
 
     // Create a dummy driver to steer it
-    Driver dummy = new CrashTestDummy(testVehicle, arrivalLane, departureLane);
+    Driver dummy = new CrashTestDummy(testVehicle, arrivalLane, departureLane,
+                                      laneToRoad);
 
     // assign the drive to the vehicle
     // testVehicle.setDriver(dummy);  // TODO fix this later.
@@ -658,6 +1127,44 @@ public class ReservationGridManager implements
     }
   }
 
+  /**
+   * Find the earliest arrival time, no earlier than the arrival time of a
+   * query, at which the trajectory of the query does not hit any reserved
+   * tile.  The internal simulation is run only once; the tiles it occupies
+   * are then shifted forward one grid time step at a time, so the arrival
+   * times tried are the arrival time of the query plus a whole number of
+   * grid time steps.  Like a query, the search does not modify the
+   * reservation grid.
+   *
+   * @param q                  the query object
+   * @param latestArrivalTime  the latest arrival time to try
+   *
+   * @return the earliest arrival time at which the reservation would be
+   *         successful; NaN if there is none up to the latest arrival time
+   */
+  public double findEarliestArrivalTime(Query q, double latestArrivalTime) {
+    Footprint footprint;
+    if (footprintCache != null) {
+      footprint = getFootprint(q);
+    } else {
+      double remainingTime =
+        reservationGrid.calcRemainingTime(q.getArrivalTime());
+      footprint =
+        simulateFootprint(q,
+                          q.getArrivalVelocity(), remainingTime,
+                          q.getArrivalVelocity(), remainingTime);
+    }
+    int arrivalIntTime = reservationGrid.calcDiscreteTime(q.getArrivalTime());
+    int latestIntTime = reservationGrid.calcDiscreteTime(latestArrivalTime);
+    for(int dt = arrivalIntTime; dt <= latestIntTime; dt++) {
+      if (isClear(footprint, dt)) {
+        return q.getArrivalTime()
+               + (dt - arrivalIntTime) * reservationGrid.getGridTimeStep();
+      }
+    }
+    return Double.NaN;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -677,10 +1184,264 @@ public class ReservationGridManager implements
   }
 
 
+  /**
+   * Compute the footprint of a query and put it in the footprint cache, if
+   * it is not there yet, so that the query itself only has to probe the
+   * reservation grid.  Like a query, this does not modify the reservation
+   * grid, so it can run concurrently with the queries.
+   *
+   * @param q  the query object
+   * @return whether the footprint was computed; false if it was already
+   *         cached or if the footprint cache is disabled
+   */
+  public boolean precomputeFootprint(Query q) {
+    if (footprintCache == null) {
+      return false;
+    }
+    FootprintKey key = createFootprintKey(q);
+    if (footprintCache.containsKey(key)) {
+      return false;
+    }
+    cacheFootprint(key, simulateFootprint(q, key));
+    return true;
+  }
+
+  /**
+   * Get the number of footprints in the footprint cache.
+   *
+   * @return the number of cached footprints; zero if the cache is disabled
+   */
+  public int getFootprintCacheSize() {
+    return footprintCache == null ? 0 : footprintCache.size();
+  }
+
+
   /////////////////////////////////
-  // PRIVATE FIELDS
+  // PRIVATE METHODS
   /////////////////////////////////
 
+  /**
+   * Answer a query by shifting the cached footprint of the query to the
+   * arrival time and probing the reservation grid.  The footprint is
+   * computed by an internal simulation the first time it is needed.
+   *
+   * @param q  the query object
+   * @return the plan; null if the trajectory hits some reserved tiles
+   */
+  private Plan queryByFootprint(Query q) {
+    Footprint footprint = getFootprint(q);
+
+    int arrivalIntTime = reservationGrid.calcDiscreteTime(q.getArrivalTime());
+    if (!isClear(footprint, arrivalIntTime)) {
+      return null; // Failure! Just bail!
+    }
+    List<TimeTile> workingList = new ArrayList<TimeTile>();
+    for(int i = 0; i < footprint.dtOffsets.length; i++) {
+      int tileId = footprint.tileIds[i];
+      int buffer = calcTileTimeBufferSteps(tileId);
+      int dt = arrivalIntTime + footprint.dtOffsets[i];
+      for(int t = dt - buffer; t <= dt + buffer; t++) {
+        workingList.add(reservationGrid.new TimeTile(t, tileId));
+      }
+    }
+
+    double exitTime = workingList.get(workingList.size()-1).getTime();
+
+    Queue<double[]> accelerationProfile =
+      calcAccelerationProfile(q.getArrivalTime(),
+                              q.getArrivalVelocity(),
+                              q.getMaxTurnVelocity(),
+                              q.getSpec().getMaxAcceleration(),
+                              reservationGrid.calcTime(
+                                arrivalIntTime + footprint.exitOffset),
+                              q.isAccelerating());
+
+    return new Plan(q.getVin(),
+                    exitTime,
+                    footprint.exitVelocity,
+                    workingList,
+                    accelerationProfile);
+  }
+
+  /**
+   * Get the cached footprint of a query.  The footprint is computed by an
+   * internal simulation the first time it is needed.
+   *
+   * @param q  the query object
+   * @return the footprint of the query
+   */
+  private Footprint getFootprint(Query q) {
+    FootprintKey key = createFootprintKey(q);
+    Footprint footprint = footprintCache.get(key);
+    if (footprint == null) {
+      footprint = simulateFootprint(q, key);
+      cacheFootprint(key, footprint);
+    }
+    return footprint;
+  }
+
+  /**
+   * Create the key of the footprint of a query.
+   *
+   * @param q  the query object
+   * @return the key of the footprint of the query
+   */
+  private FootprintKey createFootprintKey(Query q) {
+    double remainingTime = reservationGrid.calcRemainingTime(q.getArrivalTime());
+    long velocityBucket =
+      (long)Math.floor(q.getArrivalVelocity() / FOOTPRINT_VELOCITY_RESOLUTION);
+    int phaseBucket = Math.min(FOOTPRINT_PHASE_BUCKETS - 1,
+      (int)(remainingTime / reservationGrid.getGridTimeStep()
+            * FOOTPRINT_PHASE_BUCKETS));
+    return new FootprintKey(q, velocityBucket, phaseBucket);
+  }
+
+  /**
+   * Run the internal simulation of a query for the whole range of arrival
+   * velocities and arrival times of the buckets of a footprint key, so that
+   * the footprint covers the trajectories of all the queries of the key.
+   *
+   * @param q    the query object
+   * @param key  the key of the footprint of the query
+   * @return the footprint of the simulation
+   */
+  private Footprint simulateFootprint(Query q, FootprintKey key) {
+    double phaseLength =
+      reservationGrid.getGridTimeStep() / FOOTPRINT_PHASE_BUCKETS;
+    return simulateFootprint(q,
+      key.velocityBucket * FOOTPRINT_VELOCITY_RESOLUTION,
+      key.phaseBucket * phaseLength,
+      (key.velocityBucket + 1) * FOOTPRINT_VELOCITY_RESOLUTION,
+      (key.phaseBucket + 1) * phaseLength);
+  }
+
+  /**
+   * Put a footprint in the footprint cache, emptying the cache first if
+   * it would hold too many occupied tiles.
+   *
+   * @param key        the key of the footprint
+   * @param footprint  the footprint
+   */
+  private void cacheFootprint(FootprintKey key, Footprint footprint) {
+    int n = footprint.dtOffsets.length;
+    if (footprintCacheTiles.addAndGet(n) > FOOTPRINT_CACHE_MAX_TILES) {
+      footprintCache.clear();
+      footprintCacheTiles.set(n);
+    }
+    footprintCache.put(key, footprint);
+  }
+
+  /**
+   * Whether a footprint, shifted to a discrete arrival time, does not hit
+   * any reserved tile, including the time buffers of the tiles.
+   *
+   * @param footprint       the footprint
+   * @param arrivalIntTime  the discrete arrival time
+   * @return whether the footprint does not hit any reserved tile
+   */
+  private boolean isClear(Footprint footprint, int arrivalIntTime) {
+    for(int i = 0; i < footprint.dtOffsets.length; i++) {
+      int tileId = footprint.tileIds[i];
+      int buffer = calcTileTimeBufferSteps(tileId);
+      int dt = arrivalIntTime + footprint.dtOffsets[i];
+      for(int t = dt - buffer; t <= dt + buffer; t++) {
+        if (reservationGrid.isReserved(t, tileId)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Run the internal simulation of a query without looking at the
+   * reservation grid and record the tiles occupied by the test vehicle.
+   * Given a range of arrival velocities and arrival times, two test
+   * vehicles are driven side by side: a slow one, which arrives at the
+   * lowest velocity and makes the shortest first step, and a fast one,
+   * which arrives at the highest velocity and makes the longest first step.
+   * A vehicle arriving in the range is between the two at every time step,
+   * so the tiles occupied by the convex hull of the two vehicles, padded
+   * by {@link #FOOTPRINT_PADDING}, are recorded.
+   *
+   * @param q                   the query object
+   * @param minArrivalVelocity  the lowest arrival velocity
+   * @param minRemainingTime    the shortest remaining time in the grid time
+   *                            step of the arrival time
+   * @param maxArrivalVelocity  the highest arrival velocity
+   * @param maxRemainingTime    the longest remaining time in the grid time
+   *                            step of the arrival time
+   * @return the footprint of the simulation
+   */
+  private Footprint simulateFootprint(Query q,
+                                      double minArrivalVelocity,
+                                      double minRemainingTime,
+                                      double maxArrivalVelocity,
+                                      double maxRemainingTime) {
+    Lane arrivalLane = idToLane.get(q.getArrivalLaneId());
+    Lane departureLane = idToLane.get(q.getDepartureLaneId());
+    AIMBasicAutoVehicle slowVehicle =
+      createTestVehicle(q.getSpec(),
+                        minArrivalVelocity,
+                        q.getMaxTurnVelocity(),
+                        arrivalLane);
+    Driver slowDummy = new CrashTestDummy(slowVehicle, arrivalLane,
+                                          departureLane, laneToRoad);
+    // No fast vehicle if the range is a single arrival
+    AIMBasicAutoVehicle fastVehicle = null;
+    Driver fastDummy = null;
+    if (minArrivalVelocity != maxArrivalVelocity
+        || minRemainingTime != maxRemainingTime) {
+      fastVehicle = createTestVehicle(q.getSpec(),
+                                      maxArrivalVelocity,
+                                      q.getMaxTurnVelocity(),
+                                      arrivalLane);
+      fastDummy = new CrashTestDummy(fastVehicle, arrivalLane,
+                                     departureLane, laneToRoad);
+    }
+
+    ConvexDecomposition areaPlus = intersection.getAreaPlusDecomposition();
+    List<int[]> timeTiles = new ArrayList<int[]>();
+    int[] occupied = new int[tiledArea.getNumberOfTiles()];
+    int currentOffset = 0;
+    double slowDuration = minRemainingTime;
+    double fastDuration = maxRemainingTime;
+    while(VehicleUtil.intersects(slowVehicle, areaPlus)
+          || (fastVehicle != null
+              && VehicleUtil.intersects(fastVehicle, areaPlus))) {
+      moveTestVehicle(slowVehicle, slowDummy, slowDuration,
+                      q.isAccelerating());
+      currentOffset++;
+      int occupiedNum;
+      if (fastVehicle == null) {
+        occupiedNum = findOccupiedTiles(slowVehicle, occupied);
+      } else {
+        moveTestVehicle(fastVehicle, fastDummy, fastDuration,
+                        q.isAccelerating());
+        occupiedNum = findOccupiedTiles(slowVehicle, fastVehicle, occupied);
+      }
+      for(int i = 0; i < occupiedNum; i++) {
+        timeTiles.add(new int[] { currentOffset, occupied[i] });
+      }
+      slowDuration = reservationGrid.getGridTimeStep();
+      fastDuration = reservationGrid.getGridTimeStep();
+    }
+
+    int[] dtOffsets = new int[timeTiles.size()];
+    int[] tileIds = new int[timeTiles.size()];
+    for(int i = 0; i < dtOffsets.length; i++) {
+      dtOffsets[i] = timeTiles.get(i)[0];
+      tileIds[i] = timeTiles.get(i)[1];
+    }
+    // The highest exit velocity, since it is used to bound the stopping
+    // distance after the intersection
+    double exitVelocity = slowVehicle.gaugeVelocity();
+    if (fastVehicle != null) {
+      exitVelocity = Math.max(exitVelocity, fastVehicle.gaugeVelocity());
+    }
+    return new Footprint(dtOffsets, tileIds, currentOffset, exitVelocity);
+  }
+
   /**
    * Create a test vehicle to use in the internal simulation.
    *
@@ -788,10 +1549,10 @@ public class ReservationGridManager implements
                                       double arrivalTime,
                                       boolean accelerating) {
     // The area of the intersection
-    Area areaPlus = intersection.getAreaPlus();
+    ConvexDecomposition areaPlus = intersection.getAreaPlusDecomposition();
     // The following must be true because the test vehicle
     // starts at the entry point of the intersection.
-    assert areaPlus.contains(testVehicle.getPointAtMiddleFront(
+    assert areaPlus.getArea().contains(testVehicle.getPointAtMiddleFront(
              Constants.DOUBLE_EQUAL_PRECISION));
 
     // The list of tile-times that will make up this reservation
@@ -802,31 +1563,24 @@ public class ReservationGridManager implements
     int currentIntTime = reservationGrid.calcDiscreteTime(arrivalTime);
     // The duration in the current time interval
     double currentDuration = reservationGrid.calcRemainingTime(arrivalTime);
+    // The buffer for the IDs of the occupied tiles
+    int[] occupied = new int[tiledArea.getNumberOfTiles()];
 
     // drive the test vehicle until it leaves the intersection
     while(VehicleUtil.intersects(testVehicle, areaPlus)) {
       moveTestVehicle(testVehicle, dummy, currentDuration, accelerating);
       // Find out which tiles are occupied by the vehicle
       currentIntTime++;  // Record that we've moved forward one time step
-      List<Tile> occupied =
-        tiledArea.findOccupiedTiles(testVehicle.getShape(staticBufferSize));
+      int occupiedNum = findOccupiedTiles(testVehicle, occupied);
 
       // Make sure none of these tiles are reserved by someone else already
-      for(Tile tile : occupied) {
-
-        // Figure out how large of a time buffer to use, based on whether or
-        // not this is an edge tile
-        int buffer;
-        if (isEdgeTileTimeBufferEnabled && tile.isEdgeTile()) {
-          buffer = edgeTileTimeBufferSteps;
-        } else {
-          buffer = internalTileTimeBufferSteps;
-        }
-        int tileId = tile.getId();
+      for(int i = 0; i < occupiedNum; i++) {
+        int tileId = occupied[i];
+        int buffer = calcTileTimeBufferSteps(tileId);
         for(int t = currentIntTime - buffer; t <= currentIntTime + buffer; t++){
           // If the tile is already reserved and it isn't by us, we've failed
           if (!reservationGrid.isReserved(t, tileId)) {
-            workingList.add(reservationGrid.new TimeTile(t, tile.getId()));
+            workingList.add(reservationGrid.new TimeTile(t, tileId));
           } else {
             return null; // Failure! Just bail!
           }
@@ -840,6 +1594,66 @@ public class ReservationGridManager implements
                                                .calcTime(currentIntTime));
   }
 
+  /**
+   * Find the tiles occupied by the test vehicle, including the static
+   * buffer.
+   *
+   * @param testVehicle  the test vehicle
+   * @param occupied     the buffer for the IDs of the occupied tiles
+   * @return the number of occupied tiles
+   */
+  private int findOccupiedTiles(AIMBasicAutoVehicle testVehicle,
+                                int[] occupied) {
+    return tiledArea.findOccupiedTiles(
+      testVehicle.getSpec().getCornerPoints(staticBufferSize,
+                                            testVehicle.getPosition(),
+                                            testVehicle.getHeading()),
+      occupied);
+  }
+
+  /**
+   * Find the tiles occupied by the convex hull of two test vehicles,
+   * including the static buffer and the padding of the footprints.
+   *
+   * @param vehicle1  the first test vehicle
+   * @param vehicle2  the second test vehicle
+   * @param occupied  the buffer for the IDs of the occupied tiles
+   * @return the number of occupied tiles
+   */
+  private int findOccupiedTiles(AIMBasicAutoVehicle vehicle1,
+                                AIMBasicAutoVehicle vehicle2,
+                                int[] occupied) {
+    Point2D[] corners1 =
+      vehicle1.getSpec().getCornerPoints(staticBufferSize + FOOTPRINT_PADDING,
+                                         vehicle1.getPosition(),
+                                         vehicle1.getHeading());
+    Point2D[] corners2 =
+      vehicle2.getSpec().getCornerPoints(staticBufferSize + FOOTPRINT_PADDING,
+                                         vehicle2.getPosition(),
+                                         vehicle2.getHeading());
+    Point2D[] corners = Arrays.copyOf(corners1,
+                                      corners1.length + corners2.length);
+    System.arraycopy(corners2, 0, corners, corners1.length, corners2.length);
+    return tiledArea.findOccupiedTiles(GeomMath.convexHull(corners),
+                                       occupied);
+  }
+
+  /**
+   * Figure out how large of a time buffer to use, based on whether or
+   * not the tile is an edge tile.
+   *
+   * @param tileId  the ID of the tile
+   * @return the size of the time buffer in grid time steps
+   */
+  private int calcTileTimeBufferSteps(int tileId) {
+    if (isEdgeTileTimeBufferEnabled &&
+        tiledArea.getTileById(tileId).isEdgeTile()) {
+      return edgeTileTimeBufferSteps;
+    } else {
+      return internalTileTimeBufferSteps;
+    }
+  }
+
   /**
    * Advance the test vehicle by one time step
    *
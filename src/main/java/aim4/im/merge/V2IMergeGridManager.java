@@ -11,15 +11,21 @@ import aim4.map.lane.Lane;
 import aim4.map.merge.MergeMap;
 import aim4.msg.merge.i2v.I2VMergeMessage;
 import aim4.msg.merge.v2i.V2IMergeMessage;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.Registry;
 import aim4.util.TiledArea;
 
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.*;
 
 /**
  * Created by Callum on 17/04/2017.
  */
-public class V2IMergeGridManager extends BasicMergeManager implements V2IMergeGridManagerCallback, V2IEnabledMergeManager {
+public class V2IMergeGridManager extends BasicMergeManager
+        implements V2IMergeGridManagerCallback, V2IEnabledMergeManager, Restorable {
     //CONSTANTS//
     /**
      * The maximum amount of time, in seconds, in the future, for which the
@@ -257,4 +263,83 @@ public class V2IMergeGridManager extends BasicMergeManager implements V2IMergeGr
         outbox.add(msg);
     }
 
+    //SNAPSHOTS
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The merge policy must support snapshots.  The tiled area and the ACZ
+     * managers are not saved; they only cache values that can be computed
+     * again.
+     */
+    @Override
+    public StateRecord saveState() throws NotSerializableException {
+        if (!(mergePolicy instanceof Restorable)) {
+            throw new NotSerializableException(mergePolicy.getClass().getName());
+        }
+        StateRecord state = new StateRecord(V2IMergeGridManager.class.getName(), 1);
+        state.putDouble("currentTime", currentTime);
+        state.putRecord("mergePolicy", ((Restorable) mergePolicy).saveState());
+        state.putDouble("transmissionPower", transmissionPower);
+        List<StateRecord> inboxStates = new ArrayList<StateRecord>(inbox.size());
+        for (V2IMergeMessage msg : inbox) {
+            inboxStates.add(msg.toState());
+        }
+        state.putRecords("inbox", inboxStates);
+        List<StateRecord> outboxStates = new ArrayList<StateRecord>(outbox.size());
+        for (I2VMergeMessage msg : outbox) {
+            outboxStates.add(msg.toState());
+        }
+        state.putRecords("outbox", outboxStates);
+        state.putRecord("reservationMergeGrid", reservationMergeGrid.saveState());
+        state.putRecord("reservationMergeGridManager", reservationMergeGridManager.saveState());
+        int[] aczLaneIds = new int[aczs.size()];
+        List<StateRecord> aczStates = new ArrayList<StateRecord>(aczs.size());
+        int i = 0;
+        for (Map.Entry<Integer,AdmissionControlZone> e : aczs.entrySet()) {
+            aczLaneIds[i++] = e.getKey();
+            aczStates.add(e.getValue().saveState());
+        }
+        state.putInts("aczLaneIds", aczLaneIds);
+        state.putRecords("aczs", aczStates);
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(V2IMergeGridManager.class.getName(), 1);
+        if (!(mergePolicy instanceof Restorable)) {
+            throw new NotSerializableException(mergePolicy.getClass().getName());
+        }
+        currentTime = state.getDouble("currentTime");
+        ((Restorable) mergePolicy).restoreState(state.getRecord("mergePolicy"));
+        transmissionPower = state.getDouble("transmissionPower");
+        inbox.clear();
+        for (StateRecord s : state.getRecords("inbox")) {
+            inbox.add(V2IMergeMessage.fromState(s));
+        }
+        outbox.clear();
+        for (StateRecord s : state.getRecords("outbox")) {
+            outbox.add(I2VMergeMessage.fromState(s));
+        }
+        reservationMergeGrid.restoreState(state.getRecord("reservationMergeGrid"));
+        reservationMergeGridManager.restoreState(state.getRecord("reservationMergeGridManager"));
+        int[] aczLaneIds = state.getInts("aczLaneIds");
+        List<StateRecord> aczStates = state.getRecords("aczs");
+        if (aczLaneIds.length != aczs.size() || aczStates.size() != aczs.size()) {
+            throw new StreamCorruptedException("Malformed admission control zones");
+        }
+        Set<Integer> restoredLaneIds = new HashSet<Integer>();
+        for (int i = 0; i < aczLaneIds.length; i++) {
+            AdmissionControlZone acz = aczs.get(aczLaneIds[i]);
+            if (acz == null || !restoredLaneIds.add(aczLaneIds[i])) {
+                throw new StreamCorruptedException(
+                        "Unknown admission control zone " + aczLaneIds[i]);
+            }
+            acz.restoreState(aczStates.get(i));
+        }
+        state.checkAllRead();
+    }
 }
@@ -7,16 +7,21 @@ import aim4.im.merge.reservation.grid.ReservationMergeGridManager;
 import aim4.msg.merge.i2v.Confirm;
 import aim4.msg.merge.i2v.Reject;
 import aim4.msg.merge.v2i.*;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.HashMapRegistry;
 import aim4.util.Registry;
 import aim4.vehicle.VehicleUtil;
 
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.*;
 
 /**
  * Created by Callum on 13/04/2017.
  */
-public class BaseMergeGridPolicy implements MergeGridPolicy, BaseMergeGridPolicyCallback {
+public class BaseMergeGridPolicy implements MergeGridPolicy, BaseMergeGridPolicyCallback, Restorable {
     // CONSTANTS //
     /**
      * The maximum amount of time, in seconds, to let a vehicle arrive early.
@@ -272,7 +277,7 @@ public class BaseMergeGridPolicy implements MergeGridPolicy, BaseMergeGridPolicy
     /**
      * The confirm message registry
      */
-    private Registry<ReservationRecord> reservationRecordRegistry =
+    private HashMapRegistry<ReservationRecord> reservationRecordRegistry =
             new HashMapRegistry<ReservationRecord>();
     /**
      * A mapping from VIN numbers to reservation Id
@@ -559,5 +564,100 @@ public class BaseMergeGridPolicy implements MergeGridPolicy, BaseMergeGridPolicy
         return vinToReservationId.containsKey(vin);
     }
 
+    // SNAPSHOTS //
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The request handler must support snapshots.
+     */
+    @Override
+    public StateRecord saveState() throws NotSerializableException {
+        if (!(requestHandler instanceof Restorable)) {
+            throw new NotSerializableException(requestHandler.getClass().getName());
+        }
+        StateRecord state = new StateRecord(BaseMergeGridPolicy.class.getName(), 1);
+        state.putRecord("requestHandler", ((Restorable) requestHandler).saveState());
+        // the reservation records as parallel arrays
+        List<Integer> nullIds = new ArrayList<Integer>();
+        List<Integer> nonNullIds = new ArrayList<Integer>();
+        List<ReservationRecord> nonNullRecords = new ArrayList<ReservationRecord>();
+        for(Map.Entry<Integer,ReservationRecord> e : reservationRecordRegistry.getObjects().entrySet()) {
+            if (e.getValue() == null) {
+                nullIds.add(e.getKey());
+            } else {
+                nonNullIds.add(e.getKey());
+                nonNullRecords.add(e.getValue());
+            }
+        }
+        int[] ids = new int[nonNullIds.size()];
+        int[] vins = new int[ids.length];
+        int[] aczLaneIds = new int[ids.length];
+        for(int i = 0; i < ids.length; i++) {
+            ids[i] = nonNullIds.get(i);
+            vins[i] = nonNullRecords.get(i).getVin();
+            aczLaneIds[i] = nonNullRecords.get(i).getAczLaneId();
+        }
+        int[] pendingIds = new int[nullIds.size()];
+        for(int i = 0; i < pendingIds.length; i++) {
+            pendingIds[i] = nullIds.get(i);
+        }
+        state.putInt("nextReservationId", reservationRecordRegistry.getNextId());
+        state.putInts("reservationIds", ids);
+        state.putInts("reservationVins", vins);
+        state.putInts("reservationAczLaneIds", aczLaneIds);
+        state.putInts("pendingReservationIds", pendingIds);
+        int[] vinKeys = new int[vinToReservationId.size()];
+        int[] reservationIds = new int[vinKeys.length];
+        int i = 0;
+        for(Map.Entry<Integer,Integer> e : vinToReservationId.entrySet()) {
+            vinKeys[i] = e.getKey();
+            reservationIds[i] = e.getValue();
+            i++;
+        }
+        state.putInts("vins", vinKeys);
+        state.putInts("vinReservationIds", reservationIds);
+        return state;
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(BaseMergeGridPolicy.class.getName(), 1);
+        if (!(requestHandler instanceof Restorable)) {
+            throw new NotSerializableException(requestHandler.getClass().getName());
+        }
+        ((Restorable) requestHandler).restoreState(state.getRecord("requestHandler"));
+        int nextId = state.getInt("nextReservationId");
+        int[] ids = state.getInts("reservationIds");
+        int[] vins = state.getInts("reservationVins");
+        int[] aczLaneIds = state.getInts("reservationAczLaneIds");
+        int[] pendingIds = state.getInts("pendingReservationIds");
+        if (vins.length != ids.length || aczLaneIds.length != ids.length) {
+            throw new StreamCorruptedException("Malformed reservation records");
+        }
+        Map<Integer,ReservationRecord> records = new HashMap<Integer,ReservationRecord>();
+        for(int i = 0; i < ids.length; i++) {
+            records.put(ids[i], new ReservationRecord(vins[i], aczLaneIds[i]));
+        }
+        for(int id : pendingIds) {
+            records.put(id, null);
+        }
+        try {
+            reservationRecordRegistry.restore(nextId, records);
+        } catch(IllegalArgumentException e) {
+            throw new StreamCorruptedException(e.getMessage());
+        }
+        int[] vinKeys = state.getInts("vins");
+        int[] reservationIds = state.getInts("vinReservationIds");
+        if (reservationIds.length != vinKeys.length) {
+            throw new StreamCorruptedException("Malformed reservation IDs");
+        }
+        vinToReservationId.clear();
+        for(int i = 0; i < vinKeys.length; i++) {
+            vinToReservationId.put(vinKeys[i], reservationIds[i]);
+        }
+        state.checkAllRead();
+    }
 }
@@ -2,14 +2,17 @@ package aim4.im.merge.policy.grid;
 
 import aim4.msg.merge.i2v.Reject;
 import aim4.msg.merge.v2i.Request;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.Queue;
 
 /**
  * Created by Callum on 17/04/2017.
  */
-public class FCFSMergeGridRequestHandler implements MergeGridRequestHandler {
+public class FCFSMergeGridRequestHandler implements MergeGridRequestHandler, Restorable {
     // PRIVATE FIELDS //
     Queue<Integer> vinQueue = new LinkedList<Integer>();
 
@@ -82,4 +85,35 @@ public class FCFSMergeGridRequestHandler implements MergeGridRequestHandler {
             }
         }
     }
+
+    // SNAPSHOTS //
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The queue of VINs is saved in order.
+     */
+    @Override
+    public StateRecord saveState() {
+        StateRecord state = new StateRecord(FCFSMergeGridRequestHandler.class.getName(), 1);
+        int[] vins = new int[vinQueue.size()];
+        int i = 0;
+        for(int vin : vinQueue) {
+            vins[i++] = vin;
+        }
+        state.putInts("vinQueue", vins);
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(FCFSMergeGridRequestHandler.class.getName(), 1);
+        vinQueue.clear();
+        for(int vin : state.getInts("vinQueue")) {
+            vinQueue.add(vin);
+        }
+        state.checkAllRead();
+    }
 }
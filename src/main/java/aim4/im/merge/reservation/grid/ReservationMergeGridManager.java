@@ -8,12 +8,15 @@ import aim4.map.connections.MergeConnection;
 import aim4.map.lane.Lane;
 import aim4.map.merge.MergeMap;
 import aim4.msg.merge.v2i.Request;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.TiledArea;
 import aim4.vehicle.VehicleSpec;
 import aim4.vehicle.VehicleUtil;
 import aim4.vehicle.merge.MergeBasicAutoVehicle;
 
 import java.awt.geom.Area;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,7 +32,8 @@ import java.util.Queue;
 public class ReservationMergeGridManager implements
         ReservationManager<ReservationMergeGridManager.Query,
                 ReservationMergeGridManager.Plan,
-                Integer> {
+                Integer>,
+        Restorable {
     /////////////////////////////////
     // NESTED CLASSES
     /////////////////////////////////
@@ -475,6 +479,28 @@ public class ReservationMergeGridManager implements
         currentTime += timeStep;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The reservation grid is saved by the merge manager that owns it.
+     */
+    @Override
+    public StateRecord saveState() {
+        StateRecord state = new StateRecord(ReservationMergeGridManager.class.getName(), 1);
+        state.putDouble("currentTime", currentTime);
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(ReservationMergeGridManager.class.getName(), 1);
+        currentTime = state.getDouble("currentTime");
+        state.checkAllRead();
+    }
+
     /**
      * Get the configuration.
      *
@@ -700,31 +726,36 @@ public class ReservationMergeGridManager implements
         int currentIntTime = reservationGrid.calcDiscreteTime(arrivalTime);
         // The duration in the current time interval
         double currentDuration = reservationGrid.calcRemainingTime(arrivalTime);
+        // The buffer for the IDs of the occupied tiles
+        int[] occupied = new int[tiledArea.getNumberOfTiles()];
 
         // drive the test vehicle until it leaves the merge
         while(VehicleUtil.intersectsHighPrecision(testVehicle, areaPlus)) {
             moveTestVehicle(testVehicle, dummy, currentDuration, accelerating);
             // Find out which tiles are occupied by the vehicle
             currentIntTime++;  // Record that we've moved forward one time step
-            List<TiledArea.Tile> occupied =
-                    tiledArea.findOccupiedTiles(testVehicle.getShape(staticBufferSize));
+            int occupiedNum = tiledArea.findOccupiedTiles(
+                    testVehicle.getSpec().getCornerPoints(staticBufferSize,
+                                                          testVehicle.getPosition(),
+                                                          testVehicle.getHeading()),
+                    occupied);
 
             // Make sure none of these tiles are reserved by someone else already
-            for(TiledArea.Tile tile : occupied) {
+            for(int i = 0; i < occupiedNum; i++) {
+                int tileId = occupied[i];
 
                 // Figure out how large of a time buffer to use, based on whether or
                 // not this is an edge tile
                 int buffer;
-                if (isEdgeTileTimeBufferEnabled && tile.isEdgeTile()) {
+                if (isEdgeTileTimeBufferEnabled && tiledArea.getTileById(tileId).isEdgeTile()) {
                     buffer = edgeTileTimeBufferSteps;
                 } else {
                     buffer = internalTileTimeBufferSteps;
                 }
-                int tileId = tile.getId();
                 for(int t = currentIntTime - buffer; t <= currentIntTime + buffer; t++){
                     // If the tile is already reserved and it isn't by us, we've failed
                     if (!reservationGrid.isReserved(t, tileId)) {
-                        workingList.add(reservationGrid.new TimeTile(t, tile.getId()));
+                        workingList.add(reservationGrid.new TimeTile(t, tileId));
                     } else {
                         return null; // Failure! Just bail!
                     }
@@ -1,12 +1,12 @@
 package aim4.im.rim;
 
 import aim4.config.Constants;
-import aim4.config.Debug;
 import aim4.map.Road;
 import aim4.map.lane.ArcSegmentLane;
 import aim4.map.lane.Lane;
 import aim4.map.lane.LineSegmentLane;
 import aim4.map.track.WayPoint;
+import aim4.sim.SimulationContext;
 import aim4.util.GeomMath;
 import aim4.util.Util;
 
@@ -360,16 +360,16 @@ public class RoadBasedIntersection implements Intersection {
      */
     private void calcEntryRoads() {
         for(Lane lane : getEntryLanes()) {
-            if (!entryRoads.contains(Debug.currentRimMap.getRoad(lane))) {
-                entryRoads.add(Debug.currentRimMap.getRoad(lane));
+            if (!entryRoads.contains(SimulationContext.current().getRimMap().getRoad(lane))) {
+                entryRoads.add(SimulationContext.current().getRimMap().getRoad(lane));
             }
         }
     }
 
     private void calcExitRoads() {
         for(Lane lane : getExitLanes()) {
-            if (!exitRoads.contains(Debug.currentRimMap.getRoad(lane))) {
-                exitRoads.add(Debug.currentRimMap.getRoad(lane));
+            if (!exitRoads.contains(SimulationContext.current().getRimMap().getRoad(lane))) {
+                exitRoads.add(SimulationContext.current().getRimMap().getRoad(lane));
             }
         }
     }
@@ -720,8 +720,8 @@ public class RoadBasedIntersection implements Intersection {
      */
     @Override
     public Constants.TurnDirection calcTurnDirection(Lane currentLane, Lane departureLane) {
-        Road currentRoad = Debug.currentRimMap.getRoad(currentLane);
-        Road departureRoad = Debug.currentRimMap.getRoad(departureLane);
+        Road currentRoad = SimulationContext.current().getRimMap().getRoad(currentLane);
+        Road departureRoad = SimulationContext.current().getRimMap().getRoad(departureLane);
         if(departureRoad == currentRoad) {
             return Constants.TurnDirection.STRAIGHT;
         } else if(departureRoad == currentRoad.getDual()) {
@@ -5,6 +5,7 @@ import aim4.map.lane.ArcSegmentLane;
 import aim4.map.lane.Lane;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A track model for road based intersections
@@ -38,10 +39,11 @@ public class RoadBasedTrackModel implements TrackModel {
 
     /**
      * Memoization cache for {@link #traversalDistance(Road arrival, Road
-     * departure)}.
+     * departure)}.  It is filled by drivers and by the computation of the
+     * maximum turn velocities, which may run concurrently.
      */
     private Map<List<Integer>, Double> memoTraversalDistance =
-            new HashMap<List<Integer>, Double>();
+            new ConcurrentHashMap<List<Integer>, Double>();
 
 
     /////////////////////////////////
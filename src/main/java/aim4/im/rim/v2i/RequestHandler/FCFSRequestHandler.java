@@ -7,11 +7,15 @@ import aim4.im.rim.v2i.policy.BasePolicyCallback;
 import aim4.msg.rim.i2v.Reject;
 import aim4.msg.rim.v2i.Request;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
 
 /**
  * The "First Come, First Served" request handler.
  */
-public class FCFSRequestHandler implements RequestHandler{
+public class FCFSRequestHandler implements RequestHandler, Restorable {
     /////////////////////////////////
     // PRIVATE FIELDS
     /////////////////////////////////
@@ -97,4 +101,25 @@ public class FCFSRequestHandler implements RequestHandler{
         return null;
     }
 
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The handler has no state of its own.
+     */
+    @Override
+    public StateRecord saveState() {
+        return new StateRecord(FCFSRequestHandler.class.getName(), 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(FCFSRequestHandler.class.getName(), 1);
+        state.checkAllRead();
+    }
+
 }
@@ -3,6 +3,7 @@ package aim4.im.rim.v2i;
 import aim4.config.Debug;
 import aim4.im.AczManager;
 import aim4.im.AdmissionControlZone;
+import aim4.im.RequestStats;
 import aim4.im.rim.Intersection;
 import aim4.im.rim.IntersectionManager;
 import aim4.im.rim.TrackModel;
@@ -13,12 +14,17 @@ import aim4.map.lane.Lane;
 import aim4.msg.rim.i2v.I2VMessage;
 import aim4.msg.rim.v2i.V2IMessage;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.Registry;
 import aim4.util.TiledRimArea;
 
 import java.awt.*;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.NotSerializableException;
 import java.io.PrintStream;
+import java.io.StreamCorruptedException;
 import java.util.*;
 import java.util.List;
 
@@ -28,7 +34,7 @@ import java.util.List;
  * collisions.  The V2IManager makes its decisions using an intersection
  * control {@link Policy}.
  */
-public class V2IManager extends IntersectionManager implements V2IManagerCallback{
+public class V2IManager extends IntersectionManager implements V2IManagerCallback, Restorable {
 
     /////////////////////////////////
     // CONSTANTS
@@ -79,6 +85,10 @@ public class V2IManager extends IntersectionManager implements V2IManagerCallbac
     private int bitsReceived;
     /** The number of bits this IntersectionManager has transmitted. */
     private int bitsTransmitted;
+    /** The number of messages this IntersectionManager has received. */
+    private int messagesReceived;
+    /** The number of messages this IntersectionManager has transmitted. */
+    private int messagesTransmitted;
 
 
     // intersection
@@ -266,6 +276,7 @@ public class V2IManager extends IntersectionManager implements V2IManagerCallbac
         inbox.add(msg);
         // And count the bits.
         bitsReceived += msg.getSize();
+        messagesReceived++;
     }
 
     /**
@@ -286,6 +297,34 @@ public class V2IManager extends IntersectionManager implements V2IManagerCallbac
         return bitsTransmitted;
     }
 
+    /**
+     * Get the number of messages this IntersectionManager has received.
+     *
+     * @return the number of messages this IntersectionManager has received
+     */
+    public int getMessagesReceived() {
+        return messagesReceived;
+    }
+
+    /**
+     * Get the number of messages this IntersectionManager has transmitted.
+     *
+     * @return the number of messages this IntersectionManager has transmitted
+     */
+    public int getMessagesTransmitted() {
+        return messagesTransmitted;
+    }
+
+    /**
+     * Get the statistics of the reservation requests kept by the policy.
+     *
+     * @return the statistics of the reservation requests; null if the policy
+     *         does not keep them
+     */
+    public RequestStats getRequestStats() {
+        return policy.getRequestStats();
+    }
+
     /////////////////////////////////
     // PUBLIC METHODS
     /////////////////////////////////
@@ -347,6 +386,96 @@ public class V2IManager extends IntersectionManager implements V2IManagerCallbac
         }
         outbox.add(msg);
         bitsTransmitted += msg.getSize();
+        messagesTransmitted++;
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StateRecord saveState() throws NotSerializableException {
+        if (!(policy instanceof Restorable)) {
+            throw new NotSerializableException(policy.getClass().getName());
+        }
+        StateRecord state = new StateRecord(V2IManager.class.getName(), 1);
+        state.putDouble("currentTime", currentTime);
+        state.putRecord("policy", ((Restorable) policy).saveState());
+        state.putDouble("transmissionPower", transmissionPower);
+        List<StateRecord> inboxStates = new ArrayList<StateRecord>(inbox.size());
+        for (V2IMessage msg : inbox) {
+            inboxStates.add(msg.toState());
+        }
+        state.putRecords("inbox", inboxStates);
+        List<StateRecord> outboxStates = new ArrayList<StateRecord>(outbox.size());
+        for (I2VMessage msg : outbox) {
+            outboxStates.add(msg.toState());
+        }
+        state.putRecords("outbox", outboxStates);
+        state.putInt("bitsReceived", bitsReceived);
+        state.putInt("bitsTransmitted", bitsTransmitted);
+        state.putInt("messagesReceived", messagesReceived);
+        state.putInt("messagesTransmitted", messagesTransmitted);
+        state.putRecord("reservationGrid", reservationGrid.saveState());
+        state.putRecord("reservationGridManager", reservationGridManager.saveState());
+        int[] aczLaneIds = new int[aczs.size()];
+        List<StateRecord> aczStates = new ArrayList<StateRecord>(aczs.size());
+        int i = 0;
+        for (Map.Entry<Integer,AdmissionControlZone> e : aczs.entrySet()) {
+            aczLaneIds[i++] = e.getKey();
+            aczStates.add(e.getValue().saveState());
+        }
+        state.putInts("aczLaneIds", aczLaneIds);
+        state.putRecords("aczs", aczStates);
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(V2IManager.class.getName(), 1);
+        if (!(policy instanceof Restorable)) {
+            throw new NotSerializableException(policy.getClass().getName());
+        }
+        currentTime = state.getDouble("currentTime");
+        ((Restorable) policy).restoreState(state.getRecord("policy"));
+        transmissionPower = state.getDouble("transmissionPower");
+        inbox.clear();
+        for (StateRecord s : state.getRecords("inbox")) {
+            inbox.add(V2IMessage.fromState(s));
+        }
+        outbox.clear();
+        for (StateRecord s : state.getRecords("outbox")) {
+            outbox.add(I2VMessage.fromState(s));
+        }
+        bitsReceived = state.getInt("bitsReceived");
+        bitsTransmitted = state.getInt("bitsTransmitted");
+        messagesReceived = state.getInt("messagesReceived");
+        messagesTransmitted = state.getInt("messagesTransmitted");
+        reservationGrid.restoreState(state.getRecord("reservationGrid"));
+        reservationGridManager.restoreState(state.getRecord("reservationGridManager"));
+        int[] aczLaneIds = state.getInts("aczLaneIds");
+        List<StateRecord> aczStates = state.getRecords("aczs");
+        if (aczLaneIds.length != aczs.size() || aczStates.size() != aczs.size()) {
+            throw new StreamCorruptedException("Malformed admission control zones");
+        }
+        Set<Integer> restoredLaneIds = new HashSet<Integer>();
+        for (int i = 0; i < aczLaneIds.length; i++) {
+            AdmissionControlZone acz = aczs.get(aczLaneIds[i]);
+            if (acz == null || !restoredLaneIds.add(aczLaneIds[i])) {
+                throw new StreamCorruptedException(
+                        "Unknown admission control zone " + aczLaneIds[i]);
+            }
+            acz.restoreState(aczStates.get(i));
+        }
+        state.checkAllRead();
     }
 
 
@@ -1,5 +1,6 @@
 package aim4.im.rim.v2i.policy;
 
+import aim4.im.RequestStats;
 import aim4.im.aim.v2i.policy.AllStopPolicy;
 import aim4.im.rim.v2i.V2IManagerCallback;
 import aim4.msg.rim.i2v.Confirm;
@@ -7,11 +8,15 @@ import aim4.msg.rim.v2i.Request;
 import aim4.msg.rim.v2i.Request.Proposal;
 import aim4.msg.rim.v2i.V2IMessage;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
 
 /**
  * The policy used for the no protocol intersection in which all requests are accepted.
  */
-public class AcceptAllPolicy implements Policy{
+public class AcceptAllPolicy implements Policy, Restorable {
     /////////////////////////////////
     // CONSTANTS
     /////////////////////////////////
@@ -104,4 +109,33 @@ public class AcceptAllPolicy implements Policy{
     public StatCollector<AllStopPolicy> getStatCollector() {
         return null;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RequestStats getRequestStats() {
+        return null;
+    }
+
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The policy has no state of its own.
+     */
+    @Override
+    public StateRecord saveState() {
+        return new StateRecord(AcceptAllPolicy.class.getName(), 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(AcceptAllPolicy.class.getName(), 1);
+        state.checkAllRead();
+    }
 }
@@ -2,6 +2,7 @@ package aim4.im.rim.v2i.policy;
 
 import aim4.config.Debug;
 import aim4.im.AczManager;
+import aim4.im.RequestStats;
 import aim4.im.rim.TrackModel;
 import aim4.im.rim.v2i.RequestHandler.RequestHandler;
 import aim4.im.rim.v2i.V2IManager;
@@ -15,16 +16,20 @@ import aim4.msg.rim.i2v.Reject.Reason;
 import aim4.msg.rim.v2i.*;
 import aim4.msg.rim.v2i.Request.Proposal;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.HashMapRegistry;
-import aim4.util.Registry;
 import aim4.vehicle.VehicleUtil;
 
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.*;
 
 /**
  * The base policy.
  */
-public final class BasePolicy implements Policy, ExtendedBasePolicyCallback{
+public final class BasePolicy implements Policy, ExtendedBasePolicyCallback, Restorable {
     /////////////////////////////////
     // CONSTANTS
     /////////////////////////////////
@@ -324,7 +329,7 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback{
     /**
      * The confirm message registry
      */
-    private Registry<ReservationRecord> reservationRecordRegistry =
+    private HashMapRegistry<ReservationRecord> reservationRecordRegistry =
             new HashMapRegistry<ReservationRecord>();
 
     /**
@@ -338,6 +343,11 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback{
      */
     private StatCollector<BasePolicy> statCollector;
 
+    /**
+     * The statistics of the reservation requests
+     */
+    private final RequestStats requestStats = new RequestStats();
+
     /**
      * The statistic collector
      */
@@ -461,6 +471,7 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback{
                                 .getDepartureLaneID()).getMaxSize(),
                         reserveParam.getGridPlan().getAccelerationProfile());
         im.sendI2VMessage(confirmMsg);
+        requestStats.recordAccept();
 
         // bookkeeping
         ReservationRecord r =
@@ -488,6 +499,7 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback{
                 im.getCurrentTime(), // can re-send request
                 // immediately
                 reason));
+        requestStats.recordReject(reason);
     }
 
     /**
@@ -496,6 +508,7 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback{
     @Override
     public ReserveParam findReserveParam(Request msg,
                                          List<Request.Proposal> proposals) {
+        long queryStart = System.nanoTime();
         int vin = msg.getVin();
 
         // Okay, now let's actually try some of these proposals
@@ -541,6 +554,7 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback{
                 }
             }
         }
+        requestStats.recordQuery(System.nanoTime() - queryStart);
 
         if (successfulProposal != null) {
             return new ReserveParam(vin, successfulProposal, gridPlan, aczManager,
@@ -587,6 +601,7 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback{
     @Override
     public void processV2IMessage(V2IMessage msg) {
         if (msg instanceof Request) {
+            requestStats.recordRequest();
             requestHandler.processRequestMsg((Request)msg);
         } else if (msg instanceof Cancel) {
             processCancelMsg((Cancel) msg);
@@ -690,6 +705,14 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback{
         return statCollector;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RequestStats getRequestStats() {
+        return requestStats;
+    }
+
     // TODO: remove this function later.
 
     /**
@@ -706,4 +729,113 @@ public final class BasePolicy implements Policy, ExtendedBasePolicyCallback{
     public PolicyType getPolicyType() {
         return policyType;
     }
+
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The request handler must support snapshots, and there must be no
+     * statistic collector.
+     */
+    @Override
+    public StateRecord saveState() throws NotSerializableException {
+        if (!(requestHandler instanceof Restorable)) {
+            throw new NotSerializableException(requestHandler.getClass().getName());
+        }
+        if (statCollector != null) {
+            throw new NotSerializableException(statCollector.getClass().getName());
+        }
+        StateRecord state = new StateRecord(BasePolicy.class.getName(), 1);
+        state.putRecord("requestHandler",
+                ((Restorable) requestHandler).saveState());
+        // the reservation records as parallel arrays
+        Map<Integer,ReservationRecord> records =
+                reservationRecordRegistry.getObjects();
+        List<Integer> nullIds = new ArrayList<Integer>();
+        List<ReservationRecord> nonNullRecords = new ArrayList<ReservationRecord>();
+        List<Integer> nonNullIds = new ArrayList<Integer>();
+        for(Map.Entry<Integer,ReservationRecord> e : records.entrySet()) {
+            if (e.getValue() == null) {
+                nullIds.add(e.getKey());
+            } else {
+                nonNullIds.add(e.getKey());
+                nonNullRecords.add(e.getValue());
+            }
+        }
+        int[] ids = new int[nonNullIds.size()];
+        int[] vins = new int[ids.length];
+        int[] aczLaneIds = new int[ids.length];
+        for(int i = 0; i < ids.length; i++) {
+            ids[i] = nonNullIds.get(i);
+            vins[i] = nonNullRecords.get(i).getVin();
+            aczLaneIds[i] = nonNullRecords.get(i).getAczLaneId();
+        }
+        int[] pendingIds = new int[nullIds.size()];
+        for(int i = 0; i < pendingIds.length; i++) {
+            pendingIds[i] = nullIds.get(i);
+        }
+        state.putInt("nextReservationId", reservationRecordRegistry.getNextId());
+        state.putInts("reservationIds", ids);
+        state.putInts("reservationVins", vins);
+        state.putInts("reservationAczLaneIds", aczLaneIds);
+        state.putInts("pendingReservationIds", pendingIds);
+        int[] vinKeys = new int[vinToReservationId.size()];
+        int[] reservationIds = new int[vinKeys.length];
+        int i = 0;
+        for(Map.Entry<Integer,Integer> e : vinToReservationId.entrySet()) {
+            vinKeys[i] = e.getKey();
+            reservationIds[i] = e.getValue();
+            i++;
+        }
+        state.putInts("vins", vinKeys);
+        state.putInts("vinReservationIds", reservationIds);
+        state.putRecord("requestStats", requestStats.saveState());
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(BasePolicy.class.getName(), 1);
+        if (!(requestHandler instanceof Restorable)) {
+            throw new NotSerializableException(requestHandler.getClass().getName());
+        }
+        ((Restorable) requestHandler).restoreState(
+                state.getRecord("requestHandler"));
+        int nextId = state.getInt("nextReservationId");
+        int[] ids = state.getInts("reservationIds");
+        int[] vins = state.getInts("reservationVins");
+        int[] aczLaneIds = state.getInts("reservationAczLaneIds");
+        int[] pendingIds = state.getInts("pendingReservationIds");
+        if (vins.length != ids.length || aczLaneIds.length != ids.length) {
+            throw new StreamCorruptedException("Malformed reservation records");
+        }
+        Map<Integer,ReservationRecord> records =
+                new HashMap<Integer,ReservationRecord>();
+        for(int i = 0; i < ids.length; i++) {
+            records.put(ids[i], new ReservationRecord(vins[i], aczLaneIds[i]));
+        }
+        for(int id : pendingIds) {
+            records.put(id, null);
+        }
+        try {
+            reservationRecordRegistry.restore(nextId, records);
+        } catch(IllegalArgumentException e) {
+            throw new StreamCorruptedException(e.getMessage());
+        }
+        int[] vinKeys = state.getInts("vins");
+        int[] reservationIds = state.getInts("vinReservationIds");
+        if (reservationIds.length != vinKeys.length) {
+            throw new StreamCorruptedException("Malformed reservation IDs");
+        }
+        vinToReservationId.clear();
+        for(int i = 0; i < vinKeys.length; i++) {
+            vinToReservationId.put(vinKeys[i], reservationIds[i]);
+        }
+        requestStats.restoreState(state.getRecord("requestStats"));
+        state.checkAllRead();
+    }
 }
@@ -1,5 +1,6 @@
 package aim4.im.rim.v2i.policy;
 
+import aim4.im.RequestStats;
 import aim4.im.rim.v2i.V2IManagerCallback;
 import aim4.msg.rim.v2i.V2IMessage;
 import aim4.sim.StatCollector;
@@ -37,4 +38,12 @@ public interface Policy {
      * @return the statistic collector
      */
     StatCollector<?> getStatCollector();
+
+    /**
+     * Get the statistics of the reservation requests.
+     *
+     * @return the statistics of the reservation requests; null if the policy
+     *         does not keep them
+     */
+    RequestStats getRequestStats();
 }
@@ -1,17 +1,36 @@
 package aim4.im.rim.v2i.reservation;
 
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.util.*;
 
 /**
- * The Reservation Array.
+ * The Reservation Array.  The time-tiles are stored in a ring buffer of
+ * primitive tile slices indexed by the discrete time modulo the capacity of
+ * the ring; the ring grows whenever the reserved time window becomes longer
+ * than its capacity.
  */
-public class ReservationArray {
+public class ReservationArray implements Restorable {
     /////////////////////////////////
     // CONSTANTS
     /////////////////////////////////
 
     private static final boolean SHOULD_CHECK_CONSISTENCY = false;
 
+    /**
+     * The initial number of discrete times held by the ring buffer.  It must
+     * be a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The initial number of time-tiles held by a reservation record.
+     */
+    private static final int INITIAL_RECORD_SIZE = 64;
+
     /////////////////////////////////
     // PUBLIC NESTED CLASSES
     /////////////////////////////////
@@ -79,6 +98,67 @@ public class ReservationArray {
         }
     }
 
+
+    /////////////////////////////////
+    // PRIVATE NESTED CLASSES
+    /////////////////////////////////
+
+    /**
+     * The time-tiles reserved by a reservation ID, stored as two parallel
+     * arrays of discrete times and tile IDs.
+     */
+    private static class ReservationRecord {
+        /** The discrete times of the time-tiles */
+        private int[] times = new int[INITIAL_RECORD_SIZE];
+        /** The tile IDs of the time-tiles */
+        private int[] tids = new int[INITIAL_RECORD_SIZE];
+        /** The number of time-tiles in the record */
+        private int size = 0;
+        /** The last discrete time in the record */
+        private int lastTime = Integer.MIN_VALUE;
+
+        /**
+         * Add a time-tile to the record.
+         *
+         * @param dt   the discrete time
+         * @param tid  the tile ID
+         */
+        void add(int dt, int tid) {
+            if (size == times.length) {
+                int[] newTimes = new int[size * 2];
+                int[] newTids = new int[size * 2];
+                System.arraycopy(times, 0, newTimes, 0, size);
+                System.arraycopy(tids, 0, newTids, 0, size);
+                times = newTimes;
+                tids = newTids;
+            }
+            times[size] = dt;
+            tids[size] = tid;
+            size++;
+            if (dt > lastTime) {
+                lastTime = dt;
+            }
+        }
+
+        /**
+         * Remove all time-tiles before a given discrete time.
+         *
+         * @param dt  the discrete time
+         */
+        void removeBefore(int dt) {
+            int j = 0;
+            for(int i=0; i<size; i++) {
+                if (times[i] >= dt) {
+                    times[j] = times[i];
+                    tids[j] = tids[i];
+                    j++;
+                }
+            }
+            size = j;
+        }
+    }
+
+
     /////////////////////////////////
     // PRIVATE FIELDS
     /////////////////////////////////
@@ -89,23 +169,42 @@ public class ReservationArray {
     private final int numOfTiles;
 
     /**
-     * The grid table, a mapping from discrete times to grids.
+     * The ring buffer of grids.  The grid of discrete time dt is stored at
+     * index dt modulo the length of the buffer; a null entry means no grid has
+     * been allocated for that discrete time.
+     */
+    private int[][] grids;
+
+    /**
+     * The mask for converting a discrete time into an index of the ring
+     * buffer.
      */
-    private NavigableMap<Integer, int[]> grids;
+    private int mask;
 
     /**
-     * A mapping from discrete times to mappings from reservation IDs to
-     * the tile IDs that is reserved by the vehicle at the time.
+     * The first discrete time that has a grid in the ring buffer.
      */
-    private NavigableMap<Integer,Map<Integer,Set<Integer>>> timeToRidToTid;
+    private int firstTime;
 
     /**
-     * A mapping from reservation IDs to mappings from discrete times to
-     * the tile IDs that is reserved by the vehicle at the time.
+     * The last discrete time that has a grid in the ring buffer; smaller than
+     * firstTime if the ring buffer is empty.
      */
-    private Map<Integer,NavigableMap<Integer,Set<Integer>>> ridToTimeToTid;
+    private int lastTime;
 
-    ////////////////////////////////
+    /**
+     * The grids that have been cleaned up and can be reused.
+     */
+    private Deque<int[]> freeGrids;
+
+    /**
+     * A mapping from reservation IDs to the time-tiles that are reserved by
+     * the vehicle.
+     */
+    private Map<Integer,ReservationRecord> ridToRecord;
+
+
+    /////////////////////////////////
     // CLASS CONSTRUCTORS
     /////////////////////////////////
 
@@ -116,9 +215,12 @@ public class ReservationArray {
      */
     public ReservationArray(int numOfTiles) {
         this.numOfTiles = numOfTiles;
-        grids = new TreeMap<Integer, int[]>();
-        timeToRidToTid = new TreeMap<Integer,Map<Integer,Set<Integer>>>();
-        ridToTimeToTid = new HashMap<Integer,NavigableMap<Integer,Set<Integer>>>();
+        grids = new int[INITIAL_CAPACITY][];
+        mask = INITIAL_CAPACITY - 1;
+        firstTime = 0;
+        lastTime = -1;
+        freeGrids = new ArrayDeque<int[]>();
+        ridToRecord = new HashMap<Integer,ReservationRecord>();
     }
 
 
@@ -140,11 +242,8 @@ public class ReservationArray {
      * @param tid  the tile ID
      */
     public boolean isReserved(int dt, int tid) {
-        if (grids.containsKey(dt)) {
-            return grids.get(dt)[tid] >= 0;
-        } else {
-            return false;
-        }
+        int[] grid = getGrid(dt);
+        return grid != null && grid[tid] >= 0;
     }
 
     /**
@@ -155,8 +254,9 @@ public class ReservationArray {
      * @return the reservation ID; -1 if the reservation ID does not exist
      */
     public int getReservationId(int dt, int tid) {
-        if (grids.containsKey(dt)) {
-            return grids.get(dt)[tid];
+        int[] grid = getGrid(dt);
+        if (grid != null) {
+            return grid[tid];
         } else {
             return -1;
         }
@@ -169,7 +269,7 @@ public class ReservationArray {
      * @return whether the reservation ID exists
      */
     public boolean hasReservation(int rid) {
-        return ridToTimeToTid.containsKey(rid);
+        return ridToRecord.containsKey(rid);
     }
 
     /**
@@ -179,10 +279,10 @@ public class ReservationArray {
      *         -1 if there is currently no reservation.
      */
     public int getLastReservedDiscreteTime() {
-        try {
-            return grids.lastKey();
-        } catch(NoSuchElementException e) {
+        if (isEmpty()) {
             return -1;
+        } else {
+            return lastTime;
         }
     }
 
@@ -194,12 +294,9 @@ public class ReservationArray {
      *         less than zero if the reservation id does not exist
      */
     public int getLastReservedDiscreteTime(int rid) {
-        if (ridToTimeToTid.containsKey(rid)) {
-            try {
-                return ridToTimeToTid.get(rid).lastKey();
-            } catch(NoSuchElementException e) {
-                return -1;
-            }
+        ReservationRecord record = ridToRecord.get(rid);
+        if (record != null && record.size > 0) {
+            return record.lastTime;
         } else {
             return -1;
         }
@@ -217,62 +314,32 @@ public class ReservationArray {
     public boolean reserve(int rid, Collection<? extends TimeTile> workingList) {
         // check to see if any time-tile is reserved in the past
         for(TimeTile tt : workingList) {
-            int dt = tt.getDiscreteTime();
-            if (grids.containsKey(dt) && grids.get(dt)[tt.getTileId()] >= 0) {
+            if (isReserved(tt.getDiscreteTime(), tt.getTileId())) {
                 return false; // the time-tile has been reserved.
             }
         }
 
         // actually make the reservation
-        int timeBegin = 0;
-        try {
-            timeBegin = grids.firstKey();
-        } catch(NoSuchElementException e) {
-            // It means the grid is empty. All time-tiles are acceptable.
-        }
+        int timeBegin = isEmpty() ? 0 : firstTime;
 
+        ReservationRecord record = ridToRecord.get(rid);
         for(TimeTile tt : workingList) {
             int dt = tt.getDiscreteTime();
             int tid = tt.getTileId();
 
             if (dt >= timeBegin) {
-                // update grids;
-                int[] grid = grids.get(dt);
+                // update grids
+                int[] grid = getGrid(dt);
                 if (grid == null) {
-                    grid = new int[numOfTiles];
-                    for(int i=0; i<numOfTiles; i++) { // initialize the grid
-                        grid[i] = -1;
-                    }
-                    grids.put(dt, grid);
+                    grid = allocateGrid(dt);
                 }
                 grid[tid] = rid;
-
-                // update timeToRidToTid
-                Map<Integer,Set<Integer>> ridToTid = timeToRidToTid.get(dt);
-                if (ridToTid == null) {
-                    ridToTid = new HashMap<Integer,Set<Integer>>();
-                    timeToRidToTid.put(dt, ridToTid);
-                }
-                Set<Integer> tidSet = ridToTid.get(rid);
-                if (tidSet == null) {
-                    tidSet = new HashSet<Integer>();
-                    ridToTid.put(rid, tidSet);
-                }
-                tidSet.add(tid);
-
-                // update ridToTimeToTid
-                NavigableMap<Integer,Set<Integer>> timeToTid =
-                        ridToTimeToTid.get(rid);
-                if (timeToTid == null) {
-                    timeToTid = new TreeMap<Integer,Set<Integer>>();
-                    ridToTimeToTid.put(rid, timeToTid);
+                // update the reservation record
+                if (record == null) {
+                    record = new ReservationRecord();
+                    ridToRecord.put(rid, record);
                 }
-                tidSet = timeToTid.get(dt);
-                if (tidSet == null) {
-                    tidSet = new HashSet<Integer>();
-                    timeToTid.put(dt, tidSet);
-                }
-                tidSet.add(tid);
+                record.add(dt, tid);
             }  // else ignore timetile that is before timeBegin
         }
         assert (!SHOULD_CHECK_CONSISTENCY) || checkConsistency();
@@ -286,20 +353,13 @@ public class ReservationArray {
      * @return whether the cancellation is successful
      */
     public boolean cancel(int rid) {
-        // remove elements in ridToTimeToTid
-        NavigableMap<Integer,Set<Integer>> timeToTid = ridToTimeToTid.remove(rid);
-        if (timeToTid != null) {
-            for(int dt : timeToTid.keySet()) {
-                // remove elements in timeToRidToTid
-                if (timeToRidToTid.containsKey(dt)) {
-                    timeToRidToTid.get(dt).remove(rid);
-                }
-                // remove time-tiles in grids
-                if (grids.containsKey(dt)) {
-                    int[] grid = grids.get(dt);
-                    for(int tid : timeToTid.get(dt)) {
-                        grid[tid] = -1;
-                    }
+        ReservationRecord record = ridToRecord.remove(rid);
+        if (record != null) {
+            // remove time-tiles in grids
+            for(int i=0; i<record.size; i++) {
+                int[] grid = getGrid(record.times[i]);
+                if (grid != null) {
+                    grid[record.tids[i]] = -1;
                 }
             }
             assert (!SHOULD_CHECK_CONSISTENCY) || checkConsistency();
@@ -315,34 +375,31 @@ public class ReservationArray {
      * @param dt  the discrete time before which the reservations will be removed.
      */
     public void cleanUp(int dt) {
-        // clean up grids and timeToRidToTid
-        try {
-            while(grids.firstKey() < dt) {
-                int dt1 = grids.firstKey();
-                grids.remove(dt1);
-                timeToRidToTid.remove(dt1);
+        // clean up grids
+        if (!isEmpty() && firstTime < dt) {
+            int end = Math.min(lastTime, dt - 1);
+            for(int t = firstTime; t <= end; t++) {
+                releaseGrid(t);
             }
-        } catch(NoSuchElementException e) {
-            // do nothing
-        }
-
-        List<Integer> removeRid = new LinkedList<Integer>();
-        for(int rid : ridToTimeToTid.keySet()){
-            NavigableMap<Integer,Set<Integer>> timeToTid = ridToTimeToTid.get(rid);
-            try {
-                while(timeToTid.firstKey() < dt) {
-                    timeToTid.remove(timeToTid.firstKey());
+            if (lastTime < dt) {
+                firstTime = 0;
+                lastTime = -1;
+            } else {
+                firstTime = dt;
+                while(grids[firstTime & mask] == null) {
+                    firstTime++;
                 }
-            } catch(NoSuchElementException e) {
-                // do nothing
-            }
-            if (timeToTid.isEmpty()) {
-                removeRid.add(rid);
             }
         }
 
-        for(int rid : removeRid) {
-            ridToTimeToTid.remove(rid);
+        // clean up the reservation records
+        Iterator<ReservationRecord> iter = ridToRecord.values().iterator();
+        while(iter.hasNext()) {
+            ReservationRecord record = iter.next();
+            record.removeBefore(dt);
+            if (record.size == 0) {
+                iter.remove();
+            }
         }
 
         assert (!SHOULD_CHECK_CONSISTENCY) || checkConsistency();
@@ -355,16 +412,16 @@ public class ReservationArray {
      * @return the list of tile IDs that are reserved at the given discrete time.
      */
     public List<Integer> getReservedTilesAtTime(int dt) {
-        Map<Integer,Set<Integer>> ridToTid = timeToRidToTid.get(dt);
-        if (ridToTid != null) {
-            List<Integer> dts = new LinkedList<Integer>();
-            for(int rid : ridToTid.keySet()) {
-                dts.addAll(ridToTid.get(rid));
+        List<Integer> tids = new ArrayList<Integer>();
+        int[] grid = getGrid(dt);
+        if (grid != null) {
+            for(int tid=0; tid < numOfTiles; tid++) {
+                if (grid[tid] >= 0) {
+                    tids.add(tid);
+                }
             }
-            return dts;
-        } else {
-            return new LinkedList<Integer>(); // return an empty list
         }
+        return tids;
     }
 
     /**
@@ -374,11 +431,239 @@ public class ReservationArray {
      * @return a set of reservation IDs.
      */
     public Set<Integer> getVinOfReservedTilesAtTime(int dt) {
-        Map<Integer,Set<Integer>> ridToTid = timeToRidToTid.get(dt);
-        if (ridToTid != null) {
-            return Collections.unmodifiableSet(ridToTid.keySet());
+        Set<Integer> rids = new HashSet<Integer>();
+        int[] grid = getGrid(dt);
+        if (grid != null) {
+            for(int tid=0; tid < numOfTiles; tid++) {
+                if (grid[tid] >= 0) {
+                    rids.add(grid[tid]);
+                }
+            }
+        }
+        return rids;
+    }
+
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The discrete times that have a grid are saved, since the first time
+     * only moves past the times without a grid; the grids themselves are
+     * rebuilt from the reservation records.
+     */
+    @Override
+    public StateRecord saveState() {
+        StateRecord state = new StateRecord(ReservationArray.class.getName(), 1);
+        state.putInt("numOfTiles", numOfTiles);
+        state.putInt("firstTime", firstTime);
+        state.putInt("lastTime", lastTime);
+        List<Integer> gridTimes = new ArrayList<Integer>();
+        for(int dt = firstTime; dt <= lastTime; dt++) {
+            if (grids[dt & mask] != null) {
+                gridTimes.add(dt);
+            }
+        }
+        state.putInts("gridTimes", toArray(gridTimes));
+        // the records as parallel arrays; the time-tiles of the records are
+        // concatenated
+        int[] rids = new int[ridToRecord.size()];
+        int[] sizes = new int[rids.length];
+        int[] lastTimes = new int[rids.length];
+        List<Integer> times = new ArrayList<Integer>();
+        List<Integer> tids = new ArrayList<Integer>();
+        int i = 0;
+        for(Map.Entry<Integer,ReservationRecord> e : ridToRecord.entrySet()) {
+            ReservationRecord record = e.getValue();
+            rids[i] = e.getKey();
+            sizes[i] = record.size;
+            lastTimes[i] = record.lastTime;
+            for(int j=0; j<record.size; j++) {
+                times.add(record.times[j]);
+                tids.add(record.tids[j]);
+            }
+            i++;
+        }
+        state.putInts("rids", rids);
+        state.putInts("recordSizes", sizes);
+        state.putInts("recordLastTimes", lastTimes);
+        state.putInts("recordTimes", toArray(times));
+        state.putInts("recordTileIds", toArray(tids));
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(ReservationArray.class.getName(), 1);
+        if (state.getInt("numOfTiles") != numOfTiles) {
+            throw new StreamCorruptedException("Number of tiles mismatch");
+        }
+        int newFirstTime = state.getInt("firstTime");
+        int newLastTime = state.getInt("lastTime");
+        int[] gridTimes = state.getInts("gridTimes");
+        int[] rids = state.getInts("rids");
+        int[] sizes = state.getInts("recordSizes");
+        int[] lastTimes = state.getInts("recordLastTimes");
+        int[] times = state.getInts("recordTimes");
+        int[] tids = state.getInts("recordTileIds");
+        if (sizes.length != rids.length || lastTimes.length != rids.length
+                || tids.length != times.length) {
+            throw new StreamCorruptedException("Malformed reservation records");
+        }
+        // the grids
+        grids = new int[INITIAL_CAPACITY][];
+        mask = INITIAL_CAPACITY - 1;
+        freeGrids.clear();
+        firstTime = 0;
+        lastTime = -1;
+        if (newFirstTime <= newLastTime) {
+            firstTime = newFirstTime;
+            lastTime = newFirstTime;
+            ensureCapacity(newLastTime - newFirstTime + 1);
+            lastTime = newLastTime;
+        }
+        for(int dt : gridTimes) {
+            if (dt < firstTime || dt > lastTime || grids[dt & mask] != null) {
+                throw new StreamCorruptedException("Malformed grid time " + dt);
+            }
+            int[] grid = new int[numOfTiles];
+            Arrays.fill(grid, -1);
+            grids[dt & mask] = grid;
+        }
+        // the records, which fill the grids; a record may hold a time-tile
+        // more than once
+        ridToRecord.clear();
+        int k = 0;
+        for(int i = 0; i < rids.length; i++) {
+            if (sizes[i] < 0 || k + sizes[i] > times.length) {
+                throw new StreamCorruptedException("Malformed reservation records");
+            }
+            ReservationRecord record = new ReservationRecord();
+            for(int j = 0; j < sizes[i]; j++, k++) {
+                int[] grid = getGrid(times[k]);
+                if (grid == null || tids[k] < 0 || tids[k] >= numOfTiles
+                        || (grid[tids[k]] != -1 && grid[tids[k]] != rids[i])) {
+                    throw new StreamCorruptedException("Malformed time-tile ("
+                            + times[k] + "," + tids[k] + ")");
+                }
+                grid[tids[k]] = rids[i];
+                record.add(times[k], tids[k]);
+            }
+            record.lastTime = lastTimes[i];
+            ridToRecord.put(rids[i], record);
+        }
+        if (k != times.length) {
+            throw new StreamCorruptedException("Malformed reservation records");
+        }
+        state.checkAllRead();
+    }
+
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Convert a list of integers to an array.
+     *
+     * @param list  the list
+     * @return the array
+     */
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for(int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Whether the ring buffer holds no grid.
+     *
+     * @return whether the ring buffer holds no grid
+     */
+    private boolean isEmpty() {
+        return lastTime < firstTime;
+    }
+
+    /**
+     * Get the grid of a given discrete time.
+     *
+     * @param dt  the discrete time
+     * @return the grid; null if no grid has been allocated for the time
+     */
+    private int[] getGrid(int dt) {
+        if (dt < firstTime || dt > lastTime) {
+            return null;
         } else {
-            return new HashSet<Integer>(); // return an empty list
+            return grids[dt & mask];
+        }
+    }
+
+    /**
+     * Allocate a grid for a given discrete time, growing the ring buffer
+     * if necessary.
+     *
+     * @param dt  the discrete time
+     * @return the grid with no reserved tile
+     */
+    private int[] allocateGrid(int dt) {
+        if (isEmpty()) {
+            firstTime = dt;
+            lastTime = dt;
+        } else {
+            int newFirstTime = Math.min(firstTime, dt);
+            int newLastTime = Math.max(lastTime, dt);
+            ensureCapacity(newLastTime - newFirstTime + 1);
+            firstTime = newFirstTime;
+            lastTime = newLastTime;
+        }
+        int[] grid = freeGrids.poll();
+        if (grid == null) {
+            grid = new int[numOfTiles];
+        }
+        for(int i=0; i<numOfTiles; i++) { // initialize the grid
+            grid[i] = -1;
+        }
+        grids[dt & mask] = grid;
+        return grid;
+    }
+
+    /**
+     * Release the grid of a given discrete time for reuse.
+     *
+     * @param dt  the discrete time
+     */
+    private void releaseGrid(int dt) {
+        int[] grid = grids[dt & mask];
+        if (grid != null) {
+            grids[dt & mask] = null;
+            freeGrids.push(grid);
+        }
+    }
+
+    /**
+     * Make sure the ring buffer can hold a given number of consecutive
+     * discrete times.
+     *
+     * @param span  the number of consecutive discrete times
+     */
+    private void ensureCapacity(int span) {
+        if (span > grids.length) {
+            int capacity = grids.length;
+            while(capacity < span) {
+                capacity *= 2;
+            }
+            int[][] newGrids = new int[capacity][];
+            int newMask = capacity - 1;
+            for(int t = firstTime; t <= lastTime; t++) {
+                newGrids[t & newMask] = grids[t & mask];
+            }
+            grids = newGrids;
+            mask = newMask;
         }
     }
 
@@ -391,51 +676,38 @@ public class ReservationArray {
      * Check whether the array are consistent
      */
     private boolean checkConsistency() {
-        for(int dt : grids.keySet()) {
-            int[] tids = grids.get(dt);
+        int count = 0;
+        for(int dt = firstTime; dt <= lastTime; dt++) {
+            int[] grid = grids[dt & mask];
+            if (grid == null) {
+                continue;
+            }
             for(int tid=0; tid < numOfTiles; tid++) {
-                int rid = tids[tid];
+                int rid = grid[tid];
                 if (rid >= 0) {
-                    assert timeToRidToTid.get(dt) != null;
-                    assert timeToRidToTid.get(dt).get(rid) != null;
-                    if (!timeToRidToTid.get(dt).get(rid).contains(tid)) {
-                        throw new RuntimeException("ReservationArray::checkConsistency():" +
-                                "grids > timeToRidToTid");
-                    }
-                    assert ridToTimeToTid.get(rid) != null;
-                    assert ridToTimeToTid.get(rid).get(dt) != null;
-                    if (!ridToTimeToTid.get(rid).get(dt).contains(tid)) {
+                    count++;
+                    if (!ridToRecord.containsKey(rid)) {
                         throw new RuntimeException("ReservationArray::checkConsistency():" +
-                                "grids > ridToTimeToTid");
+                                "grids > ridToRecord");
                     }
                 }
             }
         }
 
-        for(int dt : timeToRidToTid.keySet()) {
-            Map<Integer,Set<Integer>> ridToTid = timeToRidToTid.get(dt);
-            for(int rid : ridToTid.keySet()) {
-                for(int tid : ridToTid.get(rid)) {
-                    if (grids.get(dt)[tid] != rid) {
-                        throw new RuntimeException("ReservationArray::checkConsistency():" +
-                                "timeToRidToTid > grids");
-
-                    }
+        Set<Long> timeTiles = new HashSet<Long>();
+        for(Map.Entry<Integer,ReservationRecord> e : ridToRecord.entrySet()) {
+            ReservationRecord record = e.getValue();
+            for(int i=0; i<record.size; i++) {
+                if (getReservationId(record.times[i], record.tids[i]) != e.getKey()) {
+                    throw new RuntimeException("ReservationArray::checkConsistency():" +
+                            "ridToRecord > grids");
                 }
+                timeTiles.add((((long)record.times[i]) << 32) | record.tids[i]);
             }
         }
-
-        for(int rid : ridToTimeToTid.keySet()) {
-            NavigableMap<Integer,Set<Integer>> timeToTid = ridToTimeToTid.get(rid);
-            for(int dt : timeToTid.keySet()) {
-                for(int tid : timeToTid.get(dt)) {
-                    if (grids.get(dt)[tid] != rid) {
-                        throw new RuntimeException("ReservationArray::checkConsistency():" +
-                                "ridToTimeToTid > grids");
-
-                    }
-                }
-            }
+        if (timeTiles.size() != count) {
+            throw new RuntimeException("ReservationArray::checkConsistency():" +
+                    "grids != ridToRecord");
         }
         return true;
     }
@@ -2,7 +2,6 @@ package aim4.im.rim.v2i.reservation;
 
 
 import aim4.config.Constants;
-import aim4.config.Debug;
 import aim4.driver.Driver;
 import aim4.driver.rim.CrashTestDummy;
 import aim4.im.ReservationManager;
@@ -10,7 +9,10 @@ import aim4.im.rim.Intersection;
 import aim4.map.lane.ArcSegmentLane;
 import aim4.msg.rim.v2i.Request;
 import aim4.msg.rim.v2i.Request.VehicleSpecForRequestMsg;
+import aim4.sim.SimulationContext;
 import aim4.sim.StatCollector;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.TiledRimArea;
 import aim4.util.TiledRimArea.Tile;
 import aim4.vehicle.VehicleSpec;
@@ -19,7 +21,10 @@ import aim4.vehicle.rim.RIMBasicAutoVehicle;
 
 import java.awt.*;
 import java.awt.geom.Area;
+import java.io.IOException;
+import java.io.NotSerializableException;
 import java.io.PrintStream;
+import java.io.StreamCorruptedException;
 import java.util.*;
 import java.util.List;
 import java.util.Queue;
@@ -32,7 +37,8 @@ import static org.junit.Assert.assertEquals;
 public class ReservationGridManager implements
         ReservationManager<ReservationGridManager.Query,
                         ReservationGridManager.Plan,
-                        Integer> {
+                        Integer>,
+        Restorable {
     /////////////////////////////////
     // NESTED CLASSES
     /////////////////////////////////
@@ -335,7 +341,7 @@ public class ReservationGridManager implements
      * The statistic collector for VIN history.
      */
     public static class VinHistoryStatCollector
-            implements StatCollector<ReservationGridManager> {
+            implements StatCollector<ReservationGridManager>, Restorable {
         /**
          * A list of the VINs of all reserved tiles at every time step.
          */
@@ -387,6 +393,67 @@ public class ReservationGridManager implements
             }
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public StateRecord saveState() {
+            StateRecord state =
+                    new StateRecord(VinHistoryStatCollector.class.getName(), 1);
+            double[] times = new double[vinHistoryTime.size()];
+            int[] counts = new int[times.length];
+            List<Integer> vins = new ArrayList<Integer>();
+            int i = 0;
+            for (double time : vinHistoryTime) {
+                Set<Integer> s = vinHistory.get(time);
+                times[i] = time;
+                counts[i] = s.size();
+                vins.addAll(s);
+                i++;
+            }
+            int[] allVins = new int[vins.size()];
+            for (i = 0; i < allVins.length; i++) {
+                allVins[i] = vins.get(i);
+            }
+            state.putDoubles("vinHistoryTime", times);
+            // the VINs at each time, concatenated
+            state.putInts("vinCounts", counts);
+            state.putInts("vins", allVins);
+            return state;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restoreState(StateRecord state) throws IOException {
+            state.check(VinHistoryStatCollector.class.getName(), 1);
+            double[] times = state.getDoubles("vinHistoryTime");
+            int[] counts = state.getInts("vinCounts");
+            int[] vins = state.getInts("vins");
+            if (counts.length != times.length) {
+                throw new StreamCorruptedException("Malformed VIN history");
+            }
+            vinHistoryTime.clear();
+            vinHistory.clear();
+            int k = 0;
+            for (int i = 0; i < times.length; i++) {
+                if (counts[i] < 0 || k + counts[i] > vins.length) {
+                    throw new StreamCorruptedException("Malformed VIN history");
+                }
+                Set<Integer> s = new HashSet<Integer>();
+                for (int j = 0; j < counts[i]; j++) {
+                    s.add(vins[k++]);
+                }
+                vinHistoryTime.add(times[i]);
+                vinHistory.put(times[i], s);
+            }
+            if (k != vins.length) {
+                throw new StreamCorruptedException("Malformed VIN history");
+            }
+            state.checkAllRead();
+        }
+
     }
 
     /////////////////////////////////
@@ -515,6 +582,41 @@ public class ReservationGridManager implements
         return statCollector;
     }
 
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StateRecord saveState() throws NotSerializableException {
+        StateRecord state =
+                new StateRecord(ReservationGridManager.class.getName(), 1);
+        state.putDouble("currentTime", currentTime);
+        if (statCollector != null && !(statCollector instanceof Restorable)) {
+            throw new NotSerializableException(statCollector.getClass().getName());
+        }
+        state.putRecord("statCollector", statCollector == null ?
+                null : ((Restorable) statCollector).saveState());
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(ReservationGridManager.class.getName(), 1);
+        currentTime = state.getDouble("currentTime");
+        StateRecord collectorState = state.getRecordOrNull("statCollector");
+        if ((collectorState == null) != (statCollector == null)) {
+            throw new StreamCorruptedException("Statistic collector mismatch");
+        }
+        if (collectorState != null) {
+            ((Restorable) statCollector).restoreState(collectorState);
+        }
+        state.checkAllRead();
+    }
+
     /////////////////////////////////
     // PUBLIC METHODS
     /////////////////////////////////
@@ -533,8 +635,8 @@ public class ReservationGridManager implements
     public Plan query(Query q) {
 
         // Position the Vehicle to be ready to start the simulation
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(q.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(q.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(q.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(q.getDepartureLaneId());
 
         // Create a test vehicle to use in the internal simulation
         RIMBasicAutoVehicle testVehicle =
@@ -30,6 +30,8 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.map;
 
+import aim4.driver.aim.navigator.CongestionRouter;
+import aim4.driver.aim.navigator.RouteTable;
 import aim4.im.aim.IntersectionManager;
 import aim4.map.aim.AIMSpawnPoint;
 import aim4.util.Registry;
@@ -79,5 +81,34 @@ public interface BasicAIMIntersectionMap extends BasicMap {
    */
   List<AIMSpawnPoint> getSpawnPoints();
 
+  /**
+   * Get the fastest routes through this Layout.
+   *
+   * @return the fastest routes; null if they are not computed
+   */
+  RouteTable getRouteTable();
+
+  /**
+   * Set the fastest routes through this Layout.
+   *
+   * @param routeTable  the fastest routes
+   */
+  void setRouteTable(RouteTable routeTable);
+
+  /**
+   * Get the router that routes the vehicles around busy intersections.
+   *
+   * @return the router; null if the vehicles take the fastest free-flow
+   *         routes
+   */
+  CongestionRouter getCongestionRouter();
+
+  /**
+   * Set the router that routes the vehicles around busy intersections.
+   *
+   * @param congestionRouter  the router; null if the vehicles take the
+   *                          fastest free-flow routes
+   */
+  void setCongestionRouter(CongestionRouter congestionRouter);
 
 }
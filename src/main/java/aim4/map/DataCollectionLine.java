@@ -33,19 +33,24 @@ package aim4.map;
 import java.awt.Shape;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.VehicleSimModel;
 import aim4.vehicle.aim.AIMVehicleSimModel;
 
 /**
  * The data collection line.
  */
-public class DataCollectionLine {
+public class DataCollectionLine implements Restorable {
 
   /////////////////////////////////
   // CONSTANTS
@@ -180,4 +185,74 @@ public class DataCollectionLine {
     return vinToTime.get(vin);
   }
 
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Subclasses may keep more data, so only this class supports snapshots.
+   */
+  @Override
+  public StateRecord saveState() throws NotSerializableException {
+    if (getClass() != DataCollectionLine.class) {
+      throw new NotSerializableException(getClass().getName());
+    }
+    StateRecord state =
+      new StateRecord(DataCollectionLine.class.getName(), 1);
+    int[] vins = new int[vinToTime.size()];
+    int[] counts = new int[vins.length];
+    List<Double> allTimes = new LinkedList<Double>();
+    int i = 0;
+    for(Map.Entry<Integer,List<Double>> e : vinToTime.entrySet()) {
+      vins[i] = e.getKey();
+      counts[i] = e.getValue().size();
+      allTimes.addAll(e.getValue());
+      i++;
+    }
+    double[] times = new double[allTimes.size()];
+    i = 0;
+    for(double time : allTimes) {
+      times[i++] = time;
+    }
+    state.putInts("vins", vins);
+    // the times of each VIN, concatenated
+    state.putInts("timeCounts", counts);
+    state.putDoubles("times", times);
+    return state;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void restoreState(StateRecord state) throws IOException {
+    state.check(DataCollectionLine.class.getName(), 1);
+    if (getClass() != DataCollectionLine.class) {
+      throw new NotSerializableException(getClass().getName());
+    }
+    int[] vins = state.getInts("vins");
+    int[] counts = state.getInts("timeCounts");
+    double[] times = state.getDoubles("times");
+    if (counts.length != vins.length) {
+      throw new StreamCorruptedException("Malformed crossing times");
+    }
+    vinToTime.clear();
+    int k = 0;
+    for(int i = 0; i < vins.length; i++) {
+      if (counts[i] <= 0 || k + counts[i] > times.length
+          || vinToTime.containsKey(vins[i])) {
+        throw new StreamCorruptedException("Malformed crossing times");
+      }
+      List<Double> vinTimes = new LinkedList<Double>();
+      for(int j = 0; j < counts[i]; j++) {
+        vinTimes.add(times[k++]);
+      }
+      vinToTime.put(vins[i], vinTimes);
+    }
+    if (k != times.length) {
+      throw new StreamCorruptedException("Malformed crossing times");
+    }
+    state.checkAllRead();
+  }
+
 }
@@ -0,0 +1,517 @@
+package aim4.map;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A spawn schedule: the times at which vehicles of given specifications are
+ * spawned, and, for intersection maps, the road and lane on which each
+ * vehicle arrives and the road it leaves by.
+ * <p>
+ * A schedule is read once and partitioned by arrival road and lane into
+ * arrays of spawn times sorted in time order, so that a spawn point only
+ * has to look at its own {@link Partition}.  Loaded schedules are cached,
+ * so the spawn points of a map, and the runs of a sweep, share one copy of
+ * each file.
+ * <p>
+ * Schedules are JSON arrays of objects with the fields
+ * <code>specName</code> and <code>spawnTime</code>, and optionally
+ * <code>arrivalRoadName</code>, <code>laneIndex</code> and
+ * <code>destinationRoadName</code>.  They can be converted with
+ * {@link #writeBinary(File)} to a compact binary format, which is read much
+ * faster.  When a JSON schedule is loaded and a binary schedule with the
+ * same name but the extension {@value #BINARY_EXTENSION} is at least as
+ * recent, the binary schedule is read instead.
+ */
+public final class SpawnSchedule {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The extension of binary schedules */
+    public static final String BINARY_EXTENSION = ".bin";
+
+    /** The first four bytes of a binary schedule: "AVSS" */
+    private static final int MAGIC = 0x41565353;
+
+    /** The version of the binary format */
+    private static final int VERSION = 1;
+
+    /** The maximum number of schedules kept in the cache */
+    private static final int MAX_CACHED_SCHEDULES = 64;
+
+    /////////////////////////////////
+    // NESTED CLASSES
+    /////////////////////////////////
+
+    /**
+     * The spawns of a schedule on one arrival lane, in time order.
+     */
+    public static final class Partition {
+        /** The spawn times */
+        private final double[] spawnTimes;
+        /** The indices of the specification names of the spawns */
+        private final int[] specIds;
+        /** The indices of the destination road names of the spawns; -1 if none */
+        private final int[] destinationIds;
+        /** The schedule */
+        private final SpawnSchedule schedule;
+
+        private Partition(SpawnSchedule schedule, int[] entries) {
+            this.schedule = schedule;
+            spawnTimes = new double[entries.length];
+            specIds = new int[entries.length];
+            destinationIds = new int[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                spawnTimes[i] = schedule.spawnTimes[entries[i]];
+                specIds[i] = schedule.specIds[entries[i]];
+                destinationIds[i] = schedule.destinationIds[entries[i]];
+            }
+        }
+
+        /**
+         * Get the number of spawns.
+         *
+         * @return the number of spawns
+         */
+        public int size() {
+            return spawnTimes.length;
+        }
+
+        /**
+         * Get the time of a spawn.
+         *
+         * @param i  the index of the spawn
+         * @return the time of the spawn
+         */
+        public double getSpawnTime(int i) {
+            return spawnTimes[i];
+        }
+
+        /**
+         * Get the name of the vehicle specification of a spawn.
+         *
+         * @param i  the index of the spawn
+         * @return the name of the vehicle specification
+         */
+        public String getSpecName(int i) {
+            return schedule.specNames[specIds[i]];
+        }
+
+        /**
+         * Get the index of the destination road of a spawn among the road
+         * names of the schedule.
+         *
+         * @param i  the index of the spawn
+         * @return the index of the destination road name; -1 if the spawn
+         *         has no destination road
+         * @see SpawnSchedule#getRoadNames()
+         */
+        public int getDestinationId(int i) {
+            return destinationIds[i];
+        }
+    }
+
+    /**
+     * A cached schedule and the state of the file it was read from.
+     */
+    private static final class CacheEntry {
+        final SpawnSchedule schedule;
+        final long lastModified;
+        final long length;
+
+        CacheEntry(SpawnSchedule schedule, File file) {
+            this.schedule = schedule;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        boolean isCurrent(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
+
+    /////////////////////////////////
+    // PRIVATE STATIC FIELDS
+    /////////////////////////////////
+
+    /** The cache of loaded schedules, by canonical path, least recently used first */
+    private static final Map<String, CacheEntry> cache =
+            new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                    return size() > MAX_CACHED_SCHEDULES;
+                }
+            };
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The distinct names of the vehicle specifications */
+    private final String[] specNames;
+    /** The distinct names of the arrival and destination roads */
+    private final String[] roadNames;
+    /** The spawn times of the entries, in file order */
+    private final double[] spawnTimes;
+    /** The indices of the specification names of the entries */
+    private final int[] specIds;
+    /** The indices of the arrival road names of the entries; -1 if none */
+    private final int[] arrivalIds;
+    /** The arrival lane indices of the entries; -1 if none */
+    private final int[] laneIndices;
+    /** The indices of the destination road names of the entries; -1 if none */
+    private final int[] destinationIds;
+    /** All the entries, in time order */
+    private final Partition all;
+    /** The entries of each arrival road and lane, keyed by {@link #key} */
+    private final Map<Long, Partition> partitions = new HashMap<Long, Partition>();
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    private SpawnSchedule(String[] specNames, String[] roadNames,
+                          double[] spawnTimes, int[] specIds, int[] arrivalIds,
+                          int[] laneIndices, int[] destinationIds) {
+        this.specNames = specNames;
+        this.roadNames = roadNames;
+        this.spawnTimes = spawnTimes;
+        this.specIds = specIds;
+        this.arrivalIds = arrivalIds;
+        this.laneIndices = laneIndices;
+        this.destinationIds = destinationIds;
+
+        // sort the entries stably by time and split them by arrival lane
+        Integer[] order = new Integer[spawnTimes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(spawnTimes[a], spawnTimes[b]);
+            }
+        });
+        int[] sorted = new int[order.length];
+        Map<Long, List<Integer>> byLane = new LinkedHashMap<Long, List<Integer>>();
+        for (int i = 0; i < order.length; i++) {
+            int entry = order[i];
+            sorted[i] = entry;
+            Long key = key(arrivalIds[entry], laneIndices[entry]);
+            List<Integer> entries = byLane.get(key);
+            if (entries == null) {
+                entries = new ArrayList<Integer>();
+                byLane.put(key, entries);
+            }
+            entries.add(entry);
+        }
+        all = new Partition(this, sorted);
+        for (Map.Entry<Long, List<Integer>> e : byLane.entrySet()) {
+            int[] entries = new int[e.getValue().size()];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = e.getValue().get(i);
+            }
+            partitions.put(e.getKey(), new Partition(this, entries));
+        }
+    }
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Load a schedule, either JSON or binary.  The schedule is read only if
+     * it is not in the cache or the file has changed since it was read.
+     *
+     * @param file  the file of the schedule
+     * @return the schedule
+     * @throws IOException     if the file cannot be read
+     * @throws ParseException  if a JSON schedule cannot be parsed
+     */
+    public static SpawnSchedule load(File file) throws IOException, ParseException {
+        String path = file.getCanonicalPath();
+        synchronized (cache) {
+            CacheEntry entry = cache.get(path);
+            if (entry != null && entry.isCurrent(file)) {
+                return entry.schedule;
+            }
+        }
+        // read outside of the lock so that runs in parallel do not wait
+        // for each other
+        SpawnSchedule schedule = read(file);
+        synchronized (cache) {
+            cache.put(path, new CacheEntry(schedule, file));
+        }
+        return schedule;
+    }
+
+    /**
+     * Read a schedule without the cache.
+     *
+     * @param file  the file of the schedule
+     * @return the schedule
+     * @throws IOException     if the file cannot be read
+     * @throws ParseException  if a JSON schedule cannot be parsed
+     */
+    public static SpawnSchedule read(File file) throws IOException, ParseException {
+        if (isBinary(file)) {
+            return readBinary(file);
+        }
+        File binary = getBinaryFile(file);
+        if (binary.isFile() && binary.lastModified() >= file.lastModified()
+                && isBinary(binary)) {
+            return readBinary(binary);
+        }
+        return readJson(file);
+    }
+
+    /**
+     * Get the binary schedule that goes with a JSON schedule.
+     *
+     * @param jsonFile  the JSON schedule
+     * @return the file with the same name and the extension
+     *         {@value #BINARY_EXTENSION} instead of <code>.json</code>
+     */
+    public static File getBinaryFile(File jsonFile) {
+        String name = jsonFile.getName();
+        if (name.endsWith(".json")) {
+            name = name.substring(0, name.length() - ".json".length());
+        }
+        return new File(jsonFile.getParentFile(), name + BINARY_EXTENSION);
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get all the spawns of the schedule, whatever their arrival lanes.
+     *
+     * @return all the spawns, in time order
+     */
+    public Partition getAll() {
+        return all;
+    }
+
+    /**
+     * Get the spawns on an arrival lane.
+     *
+     * @param arrivalRoadName  the name of the arrival road
+     * @param laneIndex        the index of the lane in the road
+     * @return the spawns on the lane, in time order
+     */
+    public Partition getPartition(String arrivalRoadName, int laneIndex) {
+        int arrivalId = Arrays.asList(roadNames).indexOf(arrivalRoadName);
+        if (arrivalId < 0) {
+            return new Partition(this, new int[0]);
+        }
+        Partition partition = partitions.get(key(arrivalId, laneIndex));
+        return partition == null ? new Partition(this, new int[0]) : partition;
+    }
+
+    /**
+     * Get the distinct names of the roads of the schedule, which the
+     * destination indices of the partitions refer to.
+     *
+     * @return a copy of the names of the roads
+     */
+    public String[] getRoadNames() {
+        return roadNames.clone();
+    }
+
+    /**
+     * Get the number of spawns.
+     *
+     * @return the number of spawns
+     */
+    public int size() {
+        return spawnTimes.length;
+    }
+
+    /**
+     * Write the schedule in the binary format.  The entries are written in
+     * the order of the file they were read from.
+     *
+     * @param file  the file
+     * @throws IOException  if the file cannot be written
+     */
+    public void writeBinary(File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            writeNames(out, specNames);
+            writeNames(out, roadNames);
+            out.writeInt(spawnTimes.length);
+            for (int i = 0; i < spawnTimes.length; i++) {
+                out.writeDouble(spawnTimes[i]);
+                out.writeShort(specIds[i]);
+                out.writeShort(arrivalIds[i]);
+                out.writeShort(laneIndices[i]);
+                out.writeShort(destinationIds[i]);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the key of the partition of an arrival road and lane.
+     */
+    private static Long key(int arrivalId, int laneIndex) {
+        return (((long) arrivalId) << 32) | (laneIndex & 0xffffffffL);
+    }
+
+    /**
+     * Whether a file is a binary schedule.
+     */
+    private static boolean isBinary(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            return file.length() >= 4 && in.readInt() == MAGIC;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Read a binary schedule.
+     */
+    private static SpawnSchedule readBinary(File file) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a binary schedule: " + file);
+            }
+            int version = in.readShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version
+                        + " of the binary schedule " + file);
+            }
+            String[] specNames = readNames(in);
+            String[] roadNames = readNames(in);
+            int n = in.readInt();
+            double[] spawnTimes = new double[n];
+            int[] specIds = new int[n];
+            int[] arrivalIds = new int[n];
+            int[] laneIndices = new int[n];
+            int[] destinationIds = new int[n];
+            for (int i = 0; i < n; i++) {
+                spawnTimes[i] = in.readDouble();
+                specIds[i] = in.readShort();
+                arrivalIds[i] = in.readShort();
+                laneIndices[i] = in.readShort();
+                destinationIds[i] = in.readShort();
+            }
+            return new SpawnSchedule(specNames, roadNames, spawnTimes, specIds,
+                    arrivalIds, laneIndices, destinationIds);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Read a JSON schedule.
+     */
+    private static SpawnSchedule readJson(File file) throws IOException, ParseException {
+        JSONArray jsonSchedule;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), Charset.forName("UTF-8")));
+        try {
+            jsonSchedule = (JSONArray) new JSONParser().parse(reader);
+        } finally {
+            reader.close();
+        }
+
+        Map<String, Integer> specIdOf = new LinkedHashMap<String, Integer>();
+        Map<String, Integer> roadIdOf = new LinkedHashMap<String, Integer>();
+        int n = jsonSchedule.size();
+        double[] spawnTimes = new double[n];
+        int[] specIds = new int[n];
+        int[] arrivalIds = new int[n];
+        int[] laneIndices = new int[n];
+        int[] destinationIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            JSONObject jsonSpawn = (JSONObject) jsonSchedule.get(i);
+            spawnTimes[i] = ((Number) jsonSpawn.get("spawnTime")).doubleValue();
+            specIds[i] = idOf(specIdOf, (String) jsonSpawn.get("specName"));
+            arrivalIds[i] = idOf(roadIdOf, (String) jsonSpawn.get("arrivalRoadName"));
+            destinationIds[i] =
+                    idOf(roadIdOf, (String) jsonSpawn.get("destinationRoadName"));
+            Object laneIndex = jsonSpawn.get("laneIndex");
+            if (laneIndex == null) {
+                laneIndices[i] = -1;
+            } else if (laneIndex instanceof Number) {
+                laneIndices[i] = ((Number) laneIndex).intValue();
+            } else {
+                laneIndices[i] = Integer.parseInt((String) laneIndex);
+            }
+        }
+        return new SpawnSchedule(specIdOf.keySet().toArray(new String[0]),
+                roadIdOf.keySet().toArray(new String[0]),
+                spawnTimes, specIds, arrivalIds, laneIndices, destinationIds);
+    }
+
+    /**
+     * Get the index of a name, adding it to the names if it is new.
+     *
+     * @return the index of the name; -1 if the name is null
+     */
+    private static int idOf(Map<String, Integer> ids, String name) {
+        if (name == null) {
+            return -1;
+        }
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = ids.size();
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    private static void writeNames(DataOutputStream out, String[] names) throws IOException {
+        out.writeShort(names.length);
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+    private static String[] readNames(DataInputStream in) throws IOException {
+        String[] names = new String[in.readShort()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = in.readUTF();
+        }
+        return names;
+    }
+}
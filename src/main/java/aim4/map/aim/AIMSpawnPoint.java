@@ -32,17 +32,22 @@ package aim4.map.aim;
 
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.List;
 
 import aim4.map.Road;
 import aim4.map.SpawnPoint;
 import aim4.map.lane.Lane;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.VehicleSpec;
 
 /**
  * A spawn point for AIM simulations.
  */
-public class AIMSpawnPoint extends SpawnPoint {
+public class AIMSpawnPoint extends SpawnPoint implements Restorable {
 
     /////////////////////////////////
     // NESTED CLASSES
@@ -177,4 +182,43 @@ public class AIMSpawnPoint extends SpawnPoint {
         this.vehicleSpecChooser = vehicleSpecChooser;
     }
 
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The vehicle spec chooser must support snapshots.
+     */
+    @Override
+    public StateRecord saveState() throws NotSerializableException {
+        if (vehicleSpecChooser != null && !(vehicleSpecChooser instanceof Restorable)) {
+            throw new NotSerializableException(vehicleSpecChooser.getClass().getName());
+        }
+        StateRecord state = new StateRecord(AIMSpawnPoint.class.getName(), 1);
+        state.putDouble("currentTime", currentTime);
+        state.putRecord("vehicleSpecChooser", vehicleSpecChooser == null ?
+                null : ((Restorable) vehicleSpecChooser).saveState());
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(AIMSpawnPoint.class.getName(), 1);
+        currentTime = state.getDouble("currentTime");
+        StateRecord chooserState = state.getRecordOrNull("vehicleSpecChooser");
+        if ((chooserState == null) != (vehicleSpecChooser == null)) {
+            throw new StreamCorruptedException("Vehicle spec chooser mismatch");
+        }
+        if (chooserState != null) {
+            if (!(vehicleSpecChooser instanceof Restorable)) {
+                throw new NotSerializableException(vehicleSpecChooser.getClass().getName());
+            }
+            ((Restorable) vehicleSpecChooser).restoreState(chooserState);
+        }
+        state.checkAllRead();
+    }
+
 }
@@ -30,13 +30,15 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.map.aim;
 
-import aim4.config.Debug;
+import aim4.driver.aim.navigator.CongestionRouter;
+import aim4.driver.aim.navigator.RouteTable;
 import aim4.im.aim.IntersectionManager;
 import aim4.map.BasicAIMIntersectionMap;
 import aim4.map.DataCollectionLine;
 import aim4.map.Road;
 import aim4.map.lane.Lane;
 import aim4.map.lane.LineSegmentLane;
+import aim4.sim.SimulationContext;
 import aim4.util.ArrayListRegistry;
 import aim4.util.GeomMath;
 import aim4.util.Registry;
@@ -104,6 +106,10 @@ public class GridAIMIntersectionMap implements BasicAIMIntersectionMap {
             new ArrayListRegistry<IntersectionManager>();
     /** A mapping form lanes to roads they belong */
     private Map<Lane,Road> laneToRoad = new HashMap<Lane,Road>();
+    /** The fastest routes through the map */
+    private volatile RouteTable routeTable;
+    /** The router around busy intersections; null if there is none */
+    private volatile CongestionRouter congestionRouter;
 
     /////////////////////////////////
     // CLASS CONSTRUCTORS
@@ -375,7 +381,7 @@ public class GridAIMIntersectionMap implements BasicAIMIntersectionMap {
         spawnPoints.addAll(horizontalSpawnPoints);
         spawnPoints.addAll(verticalSpawnPoints);
 
-        Debug.currentAimMap = this;
+        SimulationContext.current().setAimMap(this);
     }
 
     /**
@@ -397,7 +403,7 @@ public class GridAIMIntersectionMap implements BasicAIMIntersectionMap {
 
         spawnPoints.addAll(horizontalSpawnPoints);
 
-        Debug.currentAimMap = this;
+        SimulationContext.current().setAimMap(this);
     }
 
     /**
@@ -597,6 +603,38 @@ public class GridAIMIntersectionMap implements BasicAIMIntersectionMap {
         return imRegistry;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RouteTable getRouteTable() {
+        return routeTable;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setRouteTable(RouteTable routeTable) {
+        this.routeTable = routeTable;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CongestionRouter getCongestionRouter() {
+        return congestionRouter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCongestionRouter(CongestionRouter congestionRouter) {
+        this.congestionRouter = congestionRouter;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -30,7 +30,6 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.map.aim;
 
-import aim4.config.Debug;
 import aim4.config.SimConfig;
 import aim4.config.TrafficSignalPhase;
 import aim4.im.aim.RoadBasedIntersection;
@@ -45,25 +44,25 @@ import aim4.im.aim.v2i.reservation.ReservationGridManager;
 import aim4.map.BasicAIMIntersectionMap;
 import aim4.map.BasicMap;
 import aim4.map.Road;
+import aim4.map.SpawnSchedule;
 import aim4.map.aim.AIMSpawnPoint.AIMSpawnSpec;
 import aim4.map.aim.AIMSpawnPoint.AIMSpawnSpecGenerator;
 import aim4.map.aim.destination.*;
 import aim4.map.lane.Lane;
+import aim4.sim.SimulationContext;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.Util;
 import aim4.vehicle.VehicleSpec;
 import aim4.vehicle.VehicleSpecDatabase;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 
 /**
  * The utility class for GridAIMIntersectionMap.
@@ -78,17 +77,42 @@ public class GridMapUtil {
      * The null spawn spec generator that generates nothing.
      */
     public static AIMSpawnSpecGenerator nullSpawnSpecGenerator =
-            new AIMSpawnSpecGenerator() {
-                @Override
-                public List<AIMSpawnSpec> act(AIMSpawnPoint spawnPoint, double timeStep) {
-                    return new ArrayList<AIMSpawnSpec>();
-                }
-            };
+            new NullSpawnSpecGenerator();
+
+    /**
+     * The spawn spec generator that generates nothing.
+     */
+    private static class NullSpawnSpecGenerator implements AIMSpawnSpecGenerator, Restorable {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<AIMSpawnSpec> act(AIMSpawnPoint spawnPoint, double timeStep) {
+            return new ArrayList<AIMSpawnSpec>();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public StateRecord saveState() {
+            return new StateRecord(NullSpawnSpecGenerator.class.getName(), 1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restoreState(StateRecord state) throws IOException {
+            state.check(NullSpawnSpecGenerator.class.getName(), 1);
+            state.checkAllRead();
+        }
+    }
 
     /**
      * The uniform distributed spawn spec generator.
      */
-    public static class UniformSpawnSpecGenerator implements AIMSpawnSpecGenerator {
+    public static class UniformSpawnSpecGenerator implements AIMSpawnSpecGenerator, Restorable {
         /** The proportion of each spec */
         private List<Double> proportion;
         /** The destination selector */
@@ -127,7 +151,7 @@ public class GridMapUtil {
             double initTime = spawnPoint.getCurrentTime();
             for(double time = initTime; time < initTime + timeStep;
                 time += SimConfig.SPAWN_TIME_STEP) {
-                if (Util.random.nextDouble() < prob) {
+                if (SimulationContext.current().getRandom().nextDouble() < prob) {
                     int i = Util.randomIndex(proportion);
                     VehicleSpec vehicleSpec = VehicleSpecDatabase.getVehicleSpecById(i);
                     Road destinationRoad =
@@ -142,12 +166,31 @@ public class GridMapUtil {
 
             return result;
         }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The generator has no state of its own; the random numbers come from the simulation context.
+         */
+        @Override
+        public StateRecord saveState() {
+            return new StateRecord(UniformSpawnSpecGenerator.class.getName(), 1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restoreState(StateRecord state) throws IOException {
+            state.check(UniformSpawnSpecGenerator.class.getName(), 1);
+            state.checkAllRead();
+        }
     }
 
     /**
      * The spawn spec generator that generates only one spec.
      */
-    public static class OneSpawnSpecGenerator implements AIMSpawnSpecGenerator {
+    public static class OneSpawnSpecGenerator implements AIMSpawnSpecGenerator, Restorable {
         /** The vehicle specification */
         private VehicleSpec vehicleSpec;
         /** The destination selector */
@@ -183,7 +226,7 @@ public class GridMapUtil {
             double initTime = spawnPoint.getCurrentTime();
             for(double time = initTime; time < initTime + timeStep;
                 time += SimConfig.SPAWN_TIME_STEP) {
-                if (Util.random.nextDouble() < prob) {
+                if (SimulationContext.current().getRandom().nextDouble() < prob) {
                     Road destinationRoad =
                             destinationSelector.selectDestination(spawnPoint.getLane());
 
@@ -195,13 +238,32 @@ public class GridMapUtil {
 
             return result;
         }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The generator has no state of its own; the random numbers come from the simulation context.
+         */
+        @Override
+        public StateRecord saveState() {
+            return new StateRecord(OneSpawnSpecGenerator.class.getName(), 1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restoreState(StateRecord state) throws IOException {
+            state.check(OneSpawnSpecGenerator.class.getName(), 1);
+            state.checkAllRead();
+        }
     }
 
     /**
      * The spec generator that generates just one vehicle in the entire
      * simulation.
      */
-    public static class OnlyOneSpawnSpecGenerator implements AIMSpawnSpecGenerator {
+    public static class OnlyOneSpawnSpecGenerator implements AIMSpawnSpecGenerator, Restorable {
         /** The vehicle specification */
         private VehicleSpec vehicleSpec;
         /** The destination road */
@@ -250,12 +312,32 @@ public class GridMapUtil {
             }
             return result;
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public StateRecord saveState() {
+            StateRecord state = new StateRecord(OnlyOneSpawnSpecGenerator.class.getName(), 1);
+            state.putBoolean("isDone", isDone);
+            return state;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restoreState(StateRecord state) throws IOException {
+            state.check(OnlyOneSpawnSpecGenerator.class.getName(), 1);
+            isDone = state.getBoolean("isDone");
+            state.checkAllRead();
+        }
     }
 
     /**
      * The spawn spec generator that enumerates spawn spec.
      */
-    public static class EnumerateSpawnSpecGenerator implements AIMSpawnSpecGenerator{
+    public static class EnumerateSpawnSpecGenerator implements AIMSpawnSpecGenerator, Restorable {
         /** The list of destination roads */
         private List<Road> destinationRoads;
         /** The vehicle spec ID */
@@ -281,7 +363,7 @@ public class GridMapUtil {
                                            double spawnPeriod) {
             this.destinationRoads = new ArrayList<Road>(destinationRoads.size());
             for(Road road : destinationRoads) {
-                if (Debug.currentAimMap.getRoad(spawnPoint.getLane()).getDual() != road) {
+                if (SimulationContext.current().getAimMap().getRoad(spawnPoint.getLane()).getDual() != road) {
                     this.destinationRoads.add(road);
                 }
             }
@@ -316,119 +398,146 @@ public class GridMapUtil {
             } // else wait until next spawn time
             return result;
         }
-    }
-
-    /**
-     * The uniform distributed spawn spec generator.
-     */
-    public static class JsonScheduleSpawnSpecGenerator implements AIMSpawnSpecGenerator {
-        // NESTED CLASSES //
-        public static class ScheduledSpawn {
-            private String specName;
-            private Double spawnTime;
-            private String arrivalRoadName;
-            private String destinationRoadName;
-
-            public ScheduledSpawn(String specName, Double spawnTime) {
-                this.specName = specName;
-                this.spawnTime = spawnTime;
-            }
-
-            public ScheduledSpawn(String specName, Double spawnTime, String arrivalRoadName, String destinationRoadName) {
-                this.specName = specName;
-                this.spawnTime = spawnTime;
-                this.arrivalRoadName = arrivalRoadName;
-                this.destinationRoadName = destinationRoadName;
-            }
-
-            public String getSpecName() {
-                return specName;
-            }
 
-            public double getSpawnTime() {
-                return spawnTime;
-            }
-
-            public String getArrivalRoadName() { return arrivalRoadName; }
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public StateRecord saveState() {
+            StateRecord state = new StateRecord(EnumerateSpawnSpecGenerator.class.getName(), 1);
+            state.putInt("vehicleSpecId", vehicleSpecId);
+            state.putInt("destinationRoadId", destinationRoadId);
+            state.putDouble("nextSpawnTime", nextSpawnTime);
+            return state;
+        }
 
-            public String getDestinationRoadName() { return destinationRoadName; }
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restoreState(StateRecord state) throws IOException {
+            state.check(EnumerateSpawnSpecGenerator.class.getName(), 1);
+            vehicleSpecId = state.getInt("vehicleSpecId");
+            destinationRoadId = state.getInt("destinationRoadId");
+            nextSpawnTime = state.getDouble("nextSpawnTime");
+            state.checkAllRead();
         }
+    }
 
+    /**
+     * The spawn spec generator of a spawn schedule.  The schedule is loaded
+     * once for all spawn points, and each spawn point walks through the
+     * spawns of its own lane.
+     */
+    public static class JsonScheduleSpawnSpecGenerator implements AIMSpawnSpecGenerator, Restorable {
         // PRIVATE FIELDS //
-        Queue<ScheduledSpawn> schedule;
-        Road destinationRoad;
+        /** The spawns of the spawn point, in time order */
+        private final SpawnSchedule.Partition schedule;
+        /** The names of the roads of the schedule */
+        private final String[] roadNames;
+        /** The destination roads by road name index, resolved when first needed */
+        private final Road[] destinationRoads;
+        /** The destination road of the spawns which have none in the schedule */
+        private final Road destinationRoad;
+        /** The index of the next spawn */
+        private int next;
 
         // CONSTRUCTOR //
+        /**
+         * Create a generator of all the spawns of a schedule, which all go
+         * to the same road.
+         *
+         * @param jsonFile         the schedule
+         * @param destinationRoad  the destination road
+         */
         public JsonScheduleSpawnSpecGenerator(File jsonFile, Road destinationRoad) throws IOException, ParseException {
-            this.schedule = processJson(jsonFile);
+            SpawnSchedule spawnSchedule = SpawnSchedule.load(jsonFile);
+            this.schedule = spawnSchedule.getAll();
+            this.roadNames = spawnSchedule.getRoadNames();
+            this.destinationRoads = new Road[roadNames.length];
             this.destinationRoad = destinationRoad;
         }
 
+        /**
+         * Create a generator of the spawns of a schedule on the lane of a
+         * spawn point.
+         *
+         * @param jsonFile          the schedule
+         * @param spawnPointLaneId  the ID of the lane of the spawn point
+         */
         public JsonScheduleSpawnSpecGenerator(File jsonFile, int spawnPointLaneId) throws IOException, ParseException {
-            this.schedule = processJson(jsonFile, spawnPointLaneId);
-        }
-
-        private Queue<ScheduledSpawn> processJson(File jsonFile) throws IOException, ParseException {
-            JSONParser parser = new JSONParser();
-
-            Object array = parser.parse(new FileReader(jsonFile));
-            JSONArray jsonSchedule = (JSONArray) array;
-
-            Queue<ScheduledSpawn> schedule = new LinkedList<ScheduledSpawn>();
-            for(Object spawnObj : jsonSchedule) {
-                JSONObject jsonSpawn = (JSONObject) spawnObj;
-                String specName = (String) jsonSpawn.get("specName");
-                Double spawnTime = (Double) jsonSpawn.get("spawnTime");
-
-                schedule.add(new ScheduledSpawn(specName, spawnTime));
-            }
-            return schedule;
-        }
-
-        private Queue<ScheduledSpawn> processJson(File jsonFile, int spawnPointLaneId) throws IOException, ParseException {
-            JSONParser parser = new JSONParser();
-
-            Object array = parser.parse(new FileReader(jsonFile));
-            JSONArray jsonSchedule = (JSONArray) array;
-
-            Queue<ScheduledSpawn> schedule = new LinkedList<ScheduledSpawn>();
-            for(Object spawnObj : jsonSchedule) {
-                JSONObject jsonSpawn = (JSONObject) spawnObj;
-                String specName = (String) jsonSpawn.get("specName");
-                Double spawnTime = (Double) jsonSpawn.get("spawnTime");
-                String spawnArrivalRoadName = (String) jsonSpawn.get("arrivalRoadName");
-                String spawnDestinationRoadName = (String) jsonSpawn.get("destinationRoadName");
-                int laneIndex = Integer.parseInt((String) jsonSpawn.get("laneIndex"));
-                Lane spawnPointLane = Debug.currentAimMap.getRoad(spawnPointLaneId).getLaneFromId(spawnPointLaneId);
-                if (Debug.currentAimMap.getRoad(spawnPointLaneId).getName().compareTo(spawnArrivalRoadName) == 0) {
-                	if (Debug.currentAimMap.getRoad(spawnPointLaneId).getLanes().indexOf(spawnPointLane) == laneIndex) {
-                		schedule.add(new ScheduledSpawn(specName, spawnTime, spawnArrivalRoadName, spawnDestinationRoadName));	
-                	}
-                }
-            }
-            return schedule;
+            SpawnSchedule spawnSchedule = SpawnSchedule.load(jsonFile);
+            Road road = SimulationContext.current().getAimMap().getRoad(spawnPointLaneId);
+            Lane spawnPointLane = road.getLaneFromId(spawnPointLaneId);
+            this.schedule = spawnSchedule.getPartition(road.getName(),
+                                                       road.getLanes().indexOf(spawnPointLane));
+            this.roadNames = spawnSchedule.getRoadNames();
+            this.destinationRoads = new Road[roadNames.length];
+            this.destinationRoad = null;
         }
 
         // ACTION //
         @Override
         public List<AIMSpawnSpec> act(AIMSpawnPoint spawnPoint, double timestep) {
             double initTime = spawnPoint.getCurrentTime();
+            if (next >= schedule.size() || schedule.getSpawnTime(next) >= initTime + timestep) {
+                return Collections.emptyList();
+            }
             List<AIMSpawnSpec> specs = new ArrayList<AIMSpawnSpec>();
+            // at most one vehicle is spawned in each spawn time step
             for (double time = initTime; time < initTime + timestep; time += SimConfig.SPAWN_TIME_STEP) {
-                if(!schedule.isEmpty()) {
-                    if (time > schedule.peek().getSpawnTime() &&
-                            Debug.currentAimMap.getRoad(spawnPoint.getLane().getId()).getName().compareTo(schedule.peek().getArrivalRoadName()) == 0) {
-                        Road destinationRoad = ((GridAIMIntersectionMap)Debug.currentAimMap).getRoadByName(schedule.peek().getDestinationRoadName());
-                        specs.add(new AIMSpawnSpec(
-                                spawnPoint.getCurrentTime(),
-                                VehicleSpecDatabase.getVehicleSpecByName(schedule.poll().getSpecName()),
-                                destinationRoad
-                        ));
-                    }
+                if (next < schedule.size() && time > schedule.getSpawnTime(next)) {
+                    specs.add(new AIMSpawnSpec(
+                            spawnPoint.getCurrentTime(),
+                            VehicleSpecDatabase.getVehicleSpecByName(schedule.getSpecName(next)),
+                            getDestinationRoad(schedule.getDestinationId(next))
+                    ));
+                    next++;
                 }
             }
             return specs;
         }
+
+        /**
+         * Get the destination road of a spawn.
+         *
+         * @param destinationId  the index of the name of the road in the
+         *                       schedule; -1 if the spawn has none
+         * @return the destination road
+         */
+        private Road getDestinationRoad(int destinationId) {
+            if (destinationId < 0) {
+                return destinationRoad;
+            }
+            if (destinationRoads[destinationId] == null) {
+                destinationRoads[destinationId] =
+                        ((GridAIMIntersectionMap) SimulationContext.current().getAimMap())
+                                .getRoadByName(roadNames[destinationId]);
+            }
+            return destinationRoads[destinationId];
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The destination roads are only a cache of the roads of the schedule.
+         */
+        @Override
+        public StateRecord saveState() {
+            StateRecord state = new StateRecord(JsonScheduleSpawnSpecGenerator.class.getName(), 1);
+            state.putInt("next", next);
+            return state;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restoreState(StateRecord state) throws IOException {
+            state.check(JsonScheduleSpawnSpecGenerator.class.getName(), 1);
+            next = state.getInt("next");
+            state.checkAllRead();
+        }
     }
 
     public static class SingleSpawnSpecGenerator implements AIMSpawnSpecGenerator {
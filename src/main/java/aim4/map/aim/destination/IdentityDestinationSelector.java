@@ -30,9 +30,9 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.map.aim.destination;
 
-import aim4.config.Debug;
 import aim4.map.Road;
 import aim4.map.lane.Lane;
+import aim4.sim.SimulationContext;
 
 /**
  * The IdentityDestinationSelector always chooses the Vehicle's current Road
@@ -60,6 +60,6 @@ public class IdentityDestinationSelector implements DestinationSelector {
    */
   @Override
   public Road selectDestination(Lane currentLane) {
-    return Debug.currentAimMap.getRoad(currentLane);
+    return SimulationContext.current().getAimMap().getRoad(currentLane);
   }
 }
@@ -30,11 +30,10 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.map.aim.destination;
 
-import aim4.config.Debug;
 import aim4.map.BasicAIMIntersectionMap;
 import aim4.map.Road;
 import aim4.map.lane.Lane;
-import aim4.util.Util;
+import aim4.sim.SimulationContext;
 
 import java.util.List;
 
@@ -77,12 +76,12 @@ public class RandomDestinationSelector implements DestinationSelector {
    */
   @Override
   public Road selectDestination(Lane currentLane) {
-    Road currentRoad = Debug.currentAimMap.getRoad(currentLane);
+    Road currentRoad = SimulationContext.current().getAimMap().getRoad(currentLane);
     Road dest =
-      destinationRoads.get(Util.random.nextInt(destinationRoads.size()));
+      destinationRoads.get(SimulationContext.current().getRandom().nextInt(destinationRoads.size()));
     while(dest.getDual() == currentRoad) {
       dest =
-        destinationRoads.get(Util.random.nextInt(destinationRoads.size()));
+        destinationRoads.get(SimulationContext.current().getRandom().nextInt(destinationRoads.size()));
     }
     return dest;
   }
@@ -30,12 +30,11 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.map.aim.destination;
 
-import aim4.config.Debug;
 import aim4.map.BasicAIMIntersectionMap;
 import aim4.map.Road;
 import aim4.map.aim.AIMSpawnPoint;
 import aim4.map.lane.Lane;
-import aim4.util.Util;
+import aim4.sim.SimulationContext;
 
 import java.util.HashMap;
 import java.util.List;
@@ -103,9 +102,9 @@ public class RatioDestinationSelector implements DestinationSelector {
    */
   @Override
   public Road selectDestination(Lane currentLane) {
-    Road currentRoad = Debug.currentAimMap.getRoad(currentLane);
+    Road currentRoad = SimulationContext.current().getAimMap().getRoad(currentLane);
     int laneId = currentLane.getId();
-    double prob = Util.random.nextDouble();
+    double prob = SimulationContext.current().getRandom().nextDouble();
     if (prob < leftTurnProb.get(laneId)) {
       return trafficVolume.getLeftTurnRoad(currentRoad);
     } else if (prob >= 1.0 - rightTurnProb.get(laneId)) {
@@ -30,10 +30,10 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.map.aim.destination;
 
-import aim4.config.Debug;
 import aim4.map.BasicAIMIntersectionMap;
 import aim4.map.Road;
 import aim4.map.lane.Lane;
+import aim4.sim.SimulationContext;
 
 import java.util.List;
 
@@ -77,7 +77,7 @@ public class TurnBasedDestinationSelector implements DestinationSelector {
    */
   @Override
   public Road selectDestination(Lane currentLane) {
-    Road currentRoad = Debug.currentAimMap.getRoad(currentLane);
+    Road currentRoad = SimulationContext.current().getAimMap().getRoad(currentLane);
 
     boolean hasLeft = currentLane.hasLeftNeighbor();
     boolean hasRight = currentLane.hasRightNeighbor();
@@ -3,6 +3,7 @@ package aim4.map.cpm;
 import aim4.config.SimConfig;
 import aim4.map.cpm.CPMSpawnPoint.*;
 import aim4.map.lane.Lane;
+import aim4.sim.SimulationContext;
 import aim4.util.Util;
 import aim4.vehicle.VehicleSpec;
 import aim4.vehicle.VehicleSpecDatabase;
@@ -79,7 +80,7 @@ public class CPMMapUtil {
                 double initTime = spawnPoint.getCurrentTime();
                 for(double time = initTime; time < initTime + timeStep;
                     time += SimConfig.SPAWN_TIME_STEP) {
-                    if (Util.random.nextDouble() < spawnProbability) {
+                    if (SimulationContext.current().getRandom().nextDouble() < spawnProbability) {
                         double parkingTime = generateParkingTime();
                         result.add(new CPMSpawnSpec(spawnPoint.getCurrentTime(),vehicleSpec, parkingTime));
                         numberOfSpawnedVehicles += 1;
@@ -123,7 +124,7 @@ public class CPMMapUtil {
             double initTime = spawnPoint.getCurrentTime();
             for(double time = initTime; time < initTime + timeStep;
                 time += SimConfig.SPAWN_TIME_STEP) {
-                if (Util.random.nextDouble() < spawnProbability) {
+                if (SimulationContext.current().getRandom().nextDouble() < spawnProbability) {
                     double parkingTime = generateParkingTime();
                     result.add(new CPMSpawnSpec(spawnPoint.getCurrentTime(),vehicleSpec, parkingTime));
                     System.out.println("Vehicle spawned!");
@@ -330,7 +331,7 @@ public class CPMMapUtil {
                 double initTime = spawnPoint.getCurrentTime();
                 for(double time = initTime; time < initTime + timeStep;
                     time += SimConfig.SPAWN_TIME_STEP) {
-                    if (Util.random.nextDouble() < spawnProbability) {
+                    if (SimulationContext.current().getRandom().nextDouble() < spawnProbability) {
                         int i = Util.randomIndex(proportion);
                         VehicleSpec vehicleSpec = VehicleSpecDatabase.getVehicleSpecById(i);
                         double parkingTime = generateParkingTime();
@@ -385,7 +386,7 @@ public class CPMMapUtil {
             double initTime = spawnPoint.getCurrentTime();
             for(double time = initTime; time < initTime + timeStep;
                 time += SimConfig.SPAWN_TIME_STEP) {
-                if (Util.random.nextDouble() < spawnProbability) {
+                if (SimulationContext.current().getRandom().nextDouble() < spawnProbability) {
                     int i = Util.randomIndex(proportion);
                     VehicleSpec vehicleSpec = VehicleSpecDatabase.getVehicleSpecById(i);
                     double parkingTime = generateParkingTime();
@@ -595,7 +596,7 @@ public class CPMMapUtil {
                 double initTime = spawnPoint.getCurrentTime();
                 for(double time = initTime; time < initTime + timeStep;
                     time += SimConfig.SPAWN_TIME_STEP) {
-                    if (Util.random.nextDouble() < spawnProbability) {
+                    if (SimulationContext.current().getRandom().nextDouble() < spawnProbability) {
                         double parkingTime = generateParkingTime();
                         result.add(new CPMSpawnSpec(spawnPoint.getCurrentTime(),vehicleSpec, parkingTime));
                         System.out.println("Vehicle spawned!");
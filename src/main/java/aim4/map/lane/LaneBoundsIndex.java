@@ -0,0 +1,206 @@
+package aim4.map.lane;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A uniform grid over the bounding boxes of a fixed set of lanes.  It finds
+ * the lanes whose bounding boxes intersect a given rectangle without testing
+ * every lane of the map.  The lanes never move, so the grid is built once.
+ */
+public class LaneBoundsIndex {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /**
+     * The default width and height of a grid cell, in meters.
+     */
+    public static final double DEFAULT_CELL_SIZE = 10.0;
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /**
+     * The indexed lanes, in the order in which they were given.
+     */
+    private final List<Lane> lanes;
+
+    /**
+     * The bounding box of each lane.
+     */
+    private final Rectangle2D[] laneBounds;
+
+    /**
+     * The x-coordinate of the left edge of the grid.
+     */
+    private final double minX;
+
+    /**
+     * The y-coordinate of the bottom edge of the grid.
+     */
+    private final double minY;
+
+    /**
+     * The width and height of a grid cell.
+     */
+    private final double cellSize;
+
+    /**
+     * The number of columns of the grid.
+     */
+    private final int columns;
+
+    /**
+     * The number of rows of the grid.
+     */
+    private final int rows;
+
+    /**
+     * The indices of the lanes whose bounding boxes overlap each cell, in
+     * ascending order.  The cells are stored row by row.
+     */
+    private final int[][] cells;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create an index of the bounding boxes of the given lanes with the
+     * default cell size.
+     *
+     * @param lanes  the lanes
+     */
+    public LaneBoundsIndex(Collection<? extends Lane> lanes) {
+        this(lanes, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Create an index of the bounding boxes of the given lanes.
+     *
+     * @param lanes     the lanes
+     * @param cellSize  the width and height of a grid cell, in meters
+     */
+    public LaneBoundsIndex(Collection<? extends Lane> lanes, double cellSize) {
+        if (cellSize <= 0.0) {
+            throw new IllegalArgumentException("Cell size must be positive: " +
+                                               cellSize);
+        }
+        this.lanes = new ArrayList<Lane>(lanes);
+        this.cellSize = cellSize;
+        laneBounds = new Rectangle2D[this.lanes.size()];
+        Rectangle2D allBounds = null;
+        for (int i = 0; i < laneBounds.length; i++) {
+            laneBounds[i] = this.lanes.get(i).getShape().getBounds2D();
+            if (allBounds == null) {
+                allBounds = (Rectangle2D) laneBounds[i].clone();
+            } else {
+                allBounds.add(laneBounds[i]);
+            }
+        }
+        if (allBounds == null) {
+            allBounds = new Rectangle2D.Double();
+        }
+        minX = allBounds.getMinX();
+        minY = allBounds.getMinY();
+        columns = Math.max(1, (int) Math.ceil(allBounds.getWidth() / cellSize));
+        rows = Math.max(1, (int) Math.ceil(allBounds.getHeight() / cellSize));
+
+        List<List<Integer>> cellLists = new ArrayList<List<Integer>>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            cellLists.add(new ArrayList<Integer>());
+        }
+        for (int i = 0; i < laneBounds.length; i++) {
+            for (int row = getRow(laneBounds[i].getMinY());
+                 row <= getRow(laneBounds[i].getMaxY()); row++) {
+                for (int column = getColumn(laneBounds[i].getMinX());
+                     column <= getColumn(laneBounds[i].getMaxX()); column++) {
+                    cellLists.get(row * columns + column).add(i);
+                }
+            }
+        }
+        cells = new int[columns * rows][];
+        for (int i = 0; i < cells.length; i++) {
+            List<Integer> cellList = cellLists.get(i);
+            cells[i] = new int[cellList.size()];
+            for (int j = 0; j < cells[i].length; j++) {
+                cells[i][j] = cellList.get(j);
+            }
+        }
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the indexed lanes.
+     *
+     * @return the indexed lanes, in the order in which they were given
+     */
+    public List<Lane> getLanes() {
+        return Collections.unmodifiableList(lanes);
+    }
+
+    /**
+     * Find the lanes whose bounding boxes intersect the given rectangle, as
+     * decided by {@link Rectangle2D#intersects(Rectangle2D)}.
+     *
+     * @param rect  the rectangle
+     * @return the lanes whose bounding boxes intersect the rectangle, in the
+     *         order in which they were given
+     */
+    public List<Lane> findIntersectingLanes(Rectangle2D rect) {
+        BitSet candidates = new BitSet(laneBounds.length);
+        for (int row = getRow(rect.getMinY()); row <= getRow(rect.getMaxY()); row++) {
+            for (int column = getColumn(rect.getMinX());
+                 column <= getColumn(rect.getMaxX()); column++) {
+                for (int i : cells[row * columns + column]) {
+                    candidates.set(i);
+                }
+            }
+        }
+        List<Lane> result = new ArrayList<Lane>(candidates.cardinality());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (laneBounds[i].intersects(rect)) {
+                result.add(lanes.get(i));
+            }
+        }
+        return result;
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the column of the grid containing the given x-coordinate.
+     * Coordinates outside of the grid are clamped to the nearest column.
+     *
+     * @param x  the x-coordinate
+     * @return the column
+     */
+    private int getColumn(double x) {
+        int column = (int) Math.floor((x - minX) / cellSize);
+        return Math.min(Math.max(column, 0), columns - 1);
+    }
+
+    /**
+     * Get the row of the grid containing the given y-coordinate.
+     * Coordinates outside of the grid are clamped to the nearest row.
+     *
+     * @param y  the y-coordinate
+     * @return the row
+     */
+    private int getRow(double y) {
+        int row = (int) Math.floor((y - minY) / cellSize);
+        return Math.min(Math.max(row, 0), rows - 1);
+    }
+}
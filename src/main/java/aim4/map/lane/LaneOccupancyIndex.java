@@ -0,0 +1,193 @@
+package aim4.map.lane;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The vehicles on each lane, sorted by their distance along the lane.  The
+ * lists are updated one vehicle at a time whenever a vehicle moves, instead of
+ * being rebuilt from all the vehicles at every time step.
+ * <p>
+ * Lanes that run into one another share a list: the vehicles on a lane are
+ * kept in the list of the first lane of the chain of next lanes it belongs
+ * to.
+ *
+ * @param <V>  the type of the vehicles
+ */
+public class LaneOccupancyIndex<V> {
+
+    /////////////////////////////////
+    // NESTED CLASSES
+    /////////////////////////////////
+
+    /**
+     * A position at which a vehicle is recorded.
+     */
+    private static class Entry<V> {
+        /** The list in which the vehicle is recorded */
+        final TreeMap<Double,V> vehicleList;
+        /** The distance along the lane at which the vehicle is recorded */
+        final double distance;
+
+        Entry(TreeMap<Double,V> vehicleList, double distance) {
+            this.vehicleList = vehicleList;
+            this.distance = distance;
+        }
+    }
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /**
+     * A mapping from each lane to the first lane of its chain of next lanes.
+     */
+    private final Map<Lane,Lane> laneToFirstLane;
+
+    /**
+     * A mapping from the first lanes of the chains of next lanes to the lists
+     * of vehicles on those lanes, sorted by their distance along the lanes.
+     */
+    private final Map<Lane,TreeMap<Double,V>> vehicleLists;
+
+    /**
+     * A read-only view of the lists of vehicles.
+     */
+    private final Map<Lane,SortedMap<Double,V>> vehicleListsView;
+
+    /**
+     * The positions at which each vehicle is recorded.
+     */
+    private final Map<V,List<Entry<V>>> vehicleToEntries;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create an empty index for the given lanes.
+     *
+     * @param lanes  the lanes
+     */
+    public LaneOccupancyIndex(Collection<? extends Lane> lanes) {
+        laneToFirstLane = new HashMap<Lane,Lane>();
+        for(Lane lane : lanes) {
+            laneToFirstLane.put(lane, lane);
+        }
+        // Merge the chains of next lanes in the same way as the lists of
+        // vehicles used to be consolidated.
+        Set<Lane> mergedLanes = new HashSet<Lane>();
+        for(Lane lane : lanes) {
+            if(!mergedLanes.contains(lane)) {
+                Lane currLane = lane;
+                while(currLane.hasNextLane()) {
+                    currLane = currLane.getNextLane();
+                    mergedLanes.add(currLane);
+                    for(Map.Entry<Lane,Lane> e : laneToFirstLane.entrySet()) {
+                        if(e.getValue() == currLane) {
+                            e.setValue(lane);
+                        }
+                    }
+                }
+            }
+        }
+        vehicleLists = new HashMap<Lane,TreeMap<Double,V>>();
+        Map<Lane,SortedMap<Double,V>> view = new HashMap<Lane,SortedMap<Double,V>>();
+        for(Lane lane : lanes) {
+            if(!mergedLanes.contains(lane)) {
+                TreeMap<Double,V> vehicleList = new TreeMap<Double,V>();
+                vehicleLists.put(lane, vehicleList);
+                view.put(lane, Collections.unmodifiableSortedMap(vehicleList));
+            }
+        }
+        vehicleListsView = Collections.unmodifiableMap(view);
+        vehicleToEntries = new HashMap<V,List<Entry<V>>>();
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the lists of vehicles.  The lists are live views that change as
+     * vehicles are added, moved and removed.
+     *
+     * @return a mapping from the first lanes of the chains of next lanes to
+     *         the lists of vehicles on those lanes, sorted by their distance
+     *         along the lanes
+     */
+    public Map<Lane,SortedMap<Double,V>> getVehicleLists() {
+        return vehicleListsView;
+    }
+
+    /**
+     * Get the list of vehicles on the chain of next lanes a lane belongs to.
+     *
+     * @param lane  the lane
+     * @return the list of vehicles sorted by their distance along the lanes;
+     *         <code>null</code> if the lane is not indexed
+     */
+    public SortedMap<Double,V> getVehicleList(Lane lane) {
+        Lane firstLane = laneToFirstLane.get(lane);
+        return firstLane == null ? null : vehicleListsView.get(firstLane);
+    }
+
+    /**
+     * Record a vehicle at a distance along a lane.  A vehicle recorded
+     * earlier at the same distance on the same chain of lanes is replaced.
+     *
+     * @param vehicle   the vehicle
+     * @param lane      the lane
+     * @param distance  the distance of the vehicle along the lane
+     */
+    public void put(V vehicle, Lane lane, double distance) {
+        TreeMap<Double,V> vehicleList = vehicleLists.get(laneToFirstLane.get(lane));
+        vehicleList.put(distance, vehicle);
+        List<Entry<V>> entries = vehicleToEntries.get(vehicle);
+        if (entries == null) {
+            entries = new ArrayList<Entry<V>>(2);
+            vehicleToEntries.put(vehicle, entries);
+        }
+        entries.add(new Entry<V>(vehicleList, distance));
+    }
+
+    /**
+     * Remove all the records of a vehicle.  This must be called before a
+     * moved vehicle is recorded at its new positions.
+     *
+     * @param vehicle  the vehicle
+     */
+    public void remove(V vehicle) {
+        List<Entry<V>> entries = vehicleToEntries.remove(vehicle);
+        if (entries != null) {
+            for(Entry<V> entry : entries) {
+                entry.vehicleList.remove(entry.distance, vehicle);
+            }
+        }
+    }
+
+    /**
+     * Remove the records of all the vehicles that are not in the given set.
+     *
+     * @param vehicles  the vehicles to keep
+     */
+    public void retainAll(Set<?> vehicles) {
+        List<V> removedVehicles = new ArrayList<V>();
+        for(V vehicle : vehicleToEntries.keySet()) {
+            if (!vehicles.contains(vehicle)) {
+                removedVehicles.add(vehicle);
+            }
+        }
+        for(V vehicle : removedVehicles) {
+            remove(vehicle);
+        }
+    }
+}
@@ -10,12 +10,16 @@ import aim4.im.merge.policy.nogrid.BaseMergePolicy;
 import aim4.im.merge.policy.nogrid.FCFSMergeRequestHandler;
 import aim4.im.merge.reservation.grid.ReservationMergeGridManager;
 import aim4.im.merge.reservation.nogrid.ReservationMergeManager;
+import aim4.map.SpawnSchedule;
 import aim4.map.connections.MergeConnection;
 import aim4.map.merge.MergeSpawnPoint.MergeSpawnSpec;
 import aim4.map.merge.MergeSpawnPoint.MergeSpawnSpecGenerator;
+import aim4.sim.SimulationContext;
 import aim4.sim.setup.merge.enums.ProtocolType;
 import aim4.sim.simulator.merge.helper.SensorInputHelper;
 import aim4.sim.simulator.merge.helper.SpawnHelper;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.Util;
 import aim4.vehicle.VehicleSpec;
 import aim4.vehicle.VehicleSpecDatabase;
@@ -23,11 +27,9 @@ import aim4.vehicle.merge.MergeVehicleSimModel;
 import com.sun.scenario.effect.Merge;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
 
@@ -138,12 +140,23 @@ public class MergeMapUtil {
     }
 
     // SPAWN SPEC GENERATORS //
-    public static class NoSpawnSpecGenerator implements MergeSpawnSpecGenerator {
+    public static class NoSpawnSpecGenerator implements MergeSpawnSpecGenerator, Restorable {
 
         @Override
         public List<MergeSpawnSpec> act(MergeSpawnPoint spawnPoint, double timestep) {
             return new ArrayList<MergeSpawnSpec>();
         }
+
+        @Override
+        public StateRecord saveState() {
+            return new StateRecord(NoSpawnSpecGenerator.class.getName(), 1);
+        }
+
+        @Override
+        public void restoreState(StateRecord state) throws IOException {
+            state.check(NoSpawnSpecGenerator.class.getName(), 1);
+            state.checkAllRead();
+        }
     }
 
     public static class SingleSpawnSpecGenerator implements MergeSpawnSpecGenerator {
@@ -199,7 +212,7 @@ public class MergeMapUtil {
         }
     }
 
-    public static class UniformSpawnSpecGenerator implements MergeSpawnSpecGenerator {
+    public static class UniformSpawnSpecGenerator implements MergeSpawnSpecGenerator, Restorable {
         /** The proportion of each spec */
         private List<Double> proportion;
         /** probability of generating a vehicle in each spawn time step */
@@ -229,7 +242,7 @@ public class MergeMapUtil {
 
             double initTime = spawnPoint.getCurrentTime();
             for(double time = initTime; time < initTime + timestep; time += SimConfig.SPAWN_TIME_STEP) {
-                if (Util.random.nextDouble() < prob) {
+                if (SimulationContext.current().getRandom().nextDouble() < prob) {
                     int i = Util.randomIndex(proportion);
                     VehicleSpec vehicleSpec = VehicleSpecDatabase.getVehicleSpecById(i);
                     result.add(new MergeSpawnSpec(spawnPoint.getCurrentTime(),
@@ -239,70 +252,72 @@ public class MergeMapUtil {
 
             return result;
         }
-    }
-
-    public static class JsonScheduleSpawnSpecGenerator implements MergeSpawnSpecGenerator {
-        // NESTED CLASSES //
-        public static class ScheduledSpawn {
-            private String specName;
-            private Double spawnTime;
 
-            public ScheduledSpawn(String specName, Double spawnTime) {
-                this.specName = specName;
-                this.spawnTime = spawnTime;
-            }
-
-            public String getSpecName() {
-                return specName;
-            }
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Only the random number generator of the simulation context changes
+         * as the generator acts, and the context is saved by the simulator.
+         */
+        @Override
+        public StateRecord saveState() {
+            return new StateRecord(UniformSpawnSpecGenerator.class.getName(), 1);
+        }
 
-            public double getSpawnTime() {
-                return spawnTime;
-            }
+        @Override
+        public void restoreState(StateRecord state) throws IOException {
+            state.check(UniformSpawnSpecGenerator.class.getName(), 1);
+            state.checkAllRead();
         }
+    }
 
+    public static class JsonScheduleSpawnSpecGenerator implements MergeSpawnSpecGenerator, Restorable {
         // PRIVATE FIELDS //
-        Queue<ScheduledSpawn> schedule;
+        /** The spawns, in time order */
+        private final SpawnSchedule.Partition schedule;
+        /** The index of the next spawn */
+        private int next;
 
         // CONSTRUCTOR //
         public JsonScheduleSpawnSpecGenerator(File jsonFile) throws IOException, ParseException {
-            this.schedule = processJson(jsonFile);
-        }
-
-        private Queue<ScheduledSpawn> processJson(File jsonFile) throws IOException, ParseException {
-            JSONParser parser = new JSONParser();
-
-            Object array = parser.parse(new FileReader(jsonFile));
-            JSONArray jsonSchedule = (JSONArray) array;
-
-            Queue<ScheduledSpawn> schedule = new LinkedList<ScheduledSpawn>();
-            for(Object spawnObj : jsonSchedule) {
-                JSONObject jsonSpawn = (JSONObject) spawnObj;
-                String specName = (String) jsonSpawn.get("specName");
-                Double spawnTime = (Double) jsonSpawn.get("spawnTime");
-
-                schedule.add(new ScheduledSpawn(specName, spawnTime));
-            }
-            return schedule;
+            this.schedule = SpawnSchedule.load(jsonFile).getAll();
         }
 
         // ACTION //
         @Override
         public List<MergeSpawnSpec> act(MergeSpawnPoint spawnPoint, double timestep) {
             double initTime = spawnPoint.getCurrentTime();
+            if (next >= schedule.size() || schedule.getSpawnTime(next) >= initTime + timestep) {
+                return Collections.emptyList();
+            }
             List<MergeSpawnSpec> specs = new ArrayList<MergeSpawnSpec>();
+            // at most one vehicle is spawned in each spawn time step
             for (double time = initTime; time < initTime + timestep; time += SimConfig.SPAWN_TIME_STEP) {
-                if(!schedule.isEmpty()) {
-                    if (time > schedule.peek().getSpawnTime()) {
-                        specs.add(new MergeSpawnSpec(
-                                spawnPoint.getCurrentTime(),
-                                VehicleSpecDatabase.getVehicleSpecByName(schedule.poll().getSpecName())
-                        ));
-                    }
+                if (next < schedule.size() && time > schedule.getSpawnTime(next)) {
+                    specs.add(new MergeSpawnSpec(
+                            spawnPoint.getCurrentTime(),
+                            VehicleSpecDatabase.getVehicleSpecByName(schedule.getSpecName(next))
+                    ));
+                    next++;
                 }
             }
             return specs;
         }
+
+        // SNAPSHOTS //
+        @Override
+        public StateRecord saveState() {
+            StateRecord state = new StateRecord(JsonScheduleSpawnSpecGenerator.class.getName(), 1);
+            state.putInt("next", next);
+            return state;
+        }
+
+        @Override
+        public void restoreState(StateRecord state) throws IOException {
+            state.check(JsonScheduleSpawnSpecGenerator.class.getName(), 1);
+            next = state.getInt("next");
+            state.checkAllRead();
+        }
     }
 
     // SPAWN SCHEDULE GENERATOR //
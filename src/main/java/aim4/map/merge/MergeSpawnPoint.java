@@ -2,16 +2,21 @@ package aim4.map.merge;
 
 import aim4.map.SpawnPoint;
 import aim4.map.lane.Lane;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.VehicleSpec;
 
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.List;
 
 /**
  * Created by Callum on 13/03/2017.
  */
-public class MergeSpawnPoint extends SpawnPoint {
+public class MergeSpawnPoint extends SpawnPoint implements Restorable {
     private MergeSpawnSpecGenerator vehicleSpecChooser;
 
     /**
@@ -56,4 +61,41 @@ public class MergeSpawnPoint extends SpawnPoint {
     public void setVehicleSpecChooser(MergeSpawnSpecGenerator vehicleSpecChooser) {
         this.vehicleSpecChooser = vehicleSpecChooser;
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The vehicle spec chooser must support snapshots.
+     */
+    @Override
+    public StateRecord saveState() throws NotSerializableException {
+        if (vehicleSpecChooser != null && !(vehicleSpecChooser instanceof Restorable)) {
+            throw new NotSerializableException(vehicleSpecChooser.getClass().getName());
+        }
+        StateRecord state = new StateRecord(MergeSpawnPoint.class.getName(), 1);
+        state.putDouble("currentTime", currentTime);
+        state.putRecord("vehicleSpecChooser", vehicleSpecChooser == null ?
+                null : ((Restorable) vehicleSpecChooser).saveState());
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state) throws IOException {
+        state.check(MergeSpawnPoint.class.getName(), 1);
+        currentTime = state.getDouble("currentTime");
+        StateRecord chooserState = state.getRecordOrNull("vehicleSpecChooser");
+        if ((chooserState == null) != (vehicleSpecChooser == null)) {
+            throw new StreamCorruptedException("Vehicle spec chooser mismatch");
+        }
+        if (chooserState != null) {
+            if (!(vehicleSpecChooser instanceof Restorable)) {
+                throw new NotSerializableException(vehicleSpecChooser.getClass().getName());
+            }
+            ((Restorable) vehicleSpecChooser).restoreState(chooserState);
+        }
+        state.checkAllRead();
+    }
 }
@@ -1,6 +1,5 @@
 package aim4.map.rim;
 
-import aim4.config.Debug;
 import aim4.im.rim.IntersectionManager;
 import aim4.map.BasicRIMIntersectionMap;
 import aim4.map.DataCollectionLine;
@@ -8,6 +7,7 @@ import aim4.map.Road;
 import aim4.map.lane.ArcSegmentLane;
 import aim4.map.lane.Lane;
 import aim4.map.lane.LineSegmentLane;
+import aim4.sim.SimulationContext;
 import aim4.util.ArrayListRegistry;
 import aim4.util.GeomMath;
 import aim4.util.Registry;
@@ -1536,7 +1536,7 @@ public class RimIntersectionMap implements BasicRIMIntersectionMap {
         spawnPoints.addAll(horizontalSpawnPoints);
         spawnPoints.addAll(verticalSpawnPoints);
 
-        Debug.currentRimMap = this;
+        SimulationContext.current().setRimMap(this);
     }
 
     /**
@@ -1558,7 +1558,7 @@ public class RimIntersectionMap implements BasicRIMIntersectionMap {
 
         spawnPoints.addAll(horizontalSpawnPoints);
 
-        Debug.currentRimMap = this;
+        SimulationContext.current().setRimMap(this);
     }
 
     /**
@@ -1,7 +1,6 @@
 package aim4.map.rim;
 
 import aim4.config.Constants;
-import aim4.config.Debug;
 import aim4.config.SimConfig;
 import aim4.driver.rim.RIMAutoDriver;
 import aim4.im.rim.RoadBasedIntersection;
@@ -12,8 +11,12 @@ import aim4.im.rim.v2i.policy.AcceptAllPolicy;
 import aim4.im.rim.v2i.policy.BasePolicy;
 import aim4.im.rim.v2i.reservation.ReservationGridManager;
 import aim4.map.Road;
+import aim4.map.SpawnSchedule;
 import aim4.map.lane.Lane;
 import aim4.map.rim.destination.*;
+import aim4.sim.SimulationContext;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
 import aim4.sim.simulator.rim.helper.SensorInputHelper;
 import aim4.sim.simulator.rim.helper.SpawnHelper;
 import aim4.util.Util;
@@ -22,11 +25,9 @@ import aim4.vehicle.VehicleSpecDatabase;
 import aim4.vehicle.rim.RIMVehicleSimModel;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
@@ -118,7 +119,7 @@ public class RimMapUtil {
     /**
      * The uniform distributed spawn spec generator.
      */
-    public static class UniformSpawnSpecGenerator implements RIMSpawnPoint.RIMSpawnSpecGenerator {
+    public static class UniformSpawnSpecGenerator implements RIMSpawnPoint.RIMSpawnSpecGenerator, Restorable {
         /** The proportion of each spec */
         private List<Double> proportion;
         /** The destination selector */
@@ -152,7 +153,7 @@ public class RimMapUtil {
             double initTime = spawnPoint.getCurrentTime();
             for(double time = initTime; time < initTime + timeStep;
                 time += SimConfig.SPAWN_TIME_STEP) {
-                if (Util.random.nextDouble() < prob) {
+                if (SimulationContext.current().getRandom().nextDouble() < prob) {
                     int i = Util.randomIndex(proportion);
                     VehicleSpec vehicleSpec = VehicleSpecDatabase.getVehicleSpecById(i);
                     Road destinationRoad = destinationSelector.selectDestination(spawnPoint.getLane());
@@ -167,6 +168,25 @@ public class RimMapUtil {
 
             return result;
         }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The generator has no state of its own; the random numbers come from the simulation context.
+         */
+        @Override
+        public StateRecord saveState() {
+            return new StateRecord(UniformSpawnSpecGenerator.class.getName(), 1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restoreState(StateRecord state) throws IOException {
+            state.check(UniformSpawnSpecGenerator.class.getName(), 1);
+            state.checkAllRead();
+        }
     }
 
     /**
@@ -222,84 +242,97 @@ public class RimMapUtil {
     }
 
     /**
-     * The uniform distributed spawn spec generator.
+     * The spawn spec generator of a spawn schedule.  The schedule is loaded
+     * once for all spawn points, and each spawn point walks through the
+     * spawns of its own lane.
      */
-    public static class JsonScheduleSpawnSpecGenerator implements RIMSpawnPoint.RIMSpawnSpecGenerator {
-        // NESTED CLASSES //
-        public static class ScheduledSpawn {
-            private String specName;
-            private Double spawnTime;
-            private String arrivalRoadName;
-            private String destinationRoadName;
-
-
-            public ScheduledSpawn(String specName, Double spawnTime, String arrivalRoadName, String destinationRoadName) {
-                this.specName = specName;
-                this.spawnTime = spawnTime;
-                this.arrivalRoadName = arrivalRoadName;
-                this.destinationRoadName = destinationRoadName;
-            }
-
-            public String getSpecName() { return specName; }
-
-            public double getSpawnTime() { return spawnTime; }
-
-            public String getArrivalRoadName() { return arrivalRoadName; }
-
-            public String getDestinationRoadName() { return destinationRoadName; }
-        }
-
+    public static class JsonScheduleSpawnSpecGenerator implements RIMSpawnPoint.RIMSpawnSpecGenerator, Restorable {
         // PRIVATE FIELDS //
-        Queue<RimMapUtil.JsonScheduleSpawnSpecGenerator.ScheduledSpawn> schedule;
+        /** The spawns of the spawn point, in time order */
+        private final SpawnSchedule.Partition schedule;
+        /** The names of the roads of the schedule */
+        private final String[] roadNames;
+        /** The destination roads by road name index, resolved when first needed */
+        private final Road[] destinationRoads;
+        /** The index of the next spawn */
+        private int next;
 
         // CONSTRUCTOR //
+        /**
+         * Create a generator of the spawns of a schedule on the lane of a
+         * spawn point.
+         *
+         * @param jsonFile          the schedule
+         * @param spawnPointLaneId  the ID of the lane of the spawn point
+         */
         public JsonScheduleSpawnSpecGenerator(File jsonFile, int spawnPointLaneId) throws IOException, ParseException {
-            this.schedule = processJson(jsonFile, spawnPointLaneId);
-        }
-
-        private Queue<ScheduledSpawn> processJson(File jsonFile, int spawnPointLaneId) throws IOException, ParseException {
-            JSONParser parser = new JSONParser();
-
-            Object array = parser.parse(new FileReader(jsonFile));
-            JSONArray jsonSchedule = (JSONArray) array;
-
-            Queue<ScheduledSpawn> schedule = new LinkedList<ScheduledSpawn>();
-            for(Object spawnObj : jsonSchedule) {
-                JSONObject jsonSpawn = (JSONObject) spawnObj;
-                String specName = (String) jsonSpawn.get("specName");
-                Double spawnTime = (Double) jsonSpawn.get("spawnTime");
-                String spawnArrivalRoadName = (String) jsonSpawn.get("arrivalRoadName");
-                String spawnDestinationRoadName = (String) jsonSpawn.get("destinationRoadName");
-                int laneIndex = Integer.parseInt((String) jsonSpawn.get("laneIndex"));
-                if (Debug.currentRimMap.getRoad(spawnPointLaneId).getName().compareTo(spawnArrivalRoadName) == 0) {
-                	if(Debug.currentRimMap.getRoad(spawnPointLaneId).getLaneIndexFromLane(spawnPointLaneId) == laneIndex) {
-                		schedule.add(new ScheduledSpawn(specName, spawnTime, spawnArrivalRoadName, spawnDestinationRoadName));	
-                	}
-                }
-            }
-            return schedule;
+            SpawnSchedule spawnSchedule = SpawnSchedule.load(jsonFile);
+            Road road = SimulationContext.current().getRimMap().getRoad(spawnPointLaneId);
+            this.schedule = spawnSchedule.getPartition(road.getName(),
+                                                       road.getLaneIndexFromLane(spawnPointLaneId));
+            this.roadNames = spawnSchedule.getRoadNames();
+            this.destinationRoads = new Road[roadNames.length];
         }
 
         // ACTION //
         @Override
         public List<RIMSpawnPoint.RIMSpawnSpec> act(RIMSpawnPoint spawnPoint, double timestep) {
             double initTime = spawnPoint.getCurrentTime();
+            if (next >= schedule.size() || schedule.getSpawnTime(next) >= initTime + timestep) {
+                return Collections.emptyList();
+            }
             List<RIMSpawnPoint.RIMSpawnSpec> specs = new ArrayList<RIMSpawnPoint.RIMSpawnSpec>();
+            // at most one vehicle is spawned in each spawn time step
             for (double time = initTime; time < initTime + timestep; time += SimConfig.SPAWN_TIME_STEP) {
-                if(!schedule.isEmpty()) {
-                    if (time > schedule.peek().getSpawnTime() &&
-                    Debug.currentRimMap.getRoad(spawnPoint.getLane().getId()).getName().compareTo(schedule.peek().getArrivalRoadName()) == 0) {
-                        Road destinationRoad = ((RimIntersectionMap) Debug.currentRimMap).getRoadByName(schedule.peek().getDestinationRoadName());
-                        specs.add(new RIMSpawnPoint.RIMSpawnSpec(
-                                spawnPoint.getCurrentTime(),
-                                VehicleSpecDatabase.getVehicleSpecByName(schedule.poll().getSpecName()),
-                                destinationRoad
-                        ));
-                    }
+                if (next < schedule.size() && time > schedule.getSpawnTime(next)) {
+                    specs.add(new RIMSpawnPoint.RIMSpawnSpec(
+                            spawnPoint.getCurrentTime(),
+                            VehicleSpecDatabase.getVehicleSpecByName(schedule.getSpecName(next)),
+                            getDestinationRoad(schedule.getDestinationId(next))
+                    ));
+                    next++;
                 }
             }
             return specs;
         }
+
+        /**
+         * Get the destination road of a spawn.
+         *
+         * @param destinationId  the index of the name of the road in the
+         *                       schedule
+         * @return the destination road
+         */
+        private Road getDestinationRoad(int destinationId) {
+            if (destinationRoads[destinationId] == null) {
+                destinationRoads[destinationId] =
+                        ((RimIntersectionMap) SimulationContext.current().getRimMap())
+                                .getRoadByName(roadNames[destinationId]);
+            }
+            return destinationRoads[destinationId];
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The destination roads are only a cache of the roads of the schedule.
+         */
+        @Override
+        public StateRecord saveState() {
+            StateRecord state = new StateRecord(JsonScheduleSpawnSpecGenerator.class.getName(), 1);
+            state.putInt("next", next);
+            return state;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restoreState(StateRecord state) throws IOException {
+            state.check(JsonScheduleSpawnSpecGenerator.class.getName(), 1);
+            next = state.getInt("next");
+            state.checkAllRead();
+        }
     }
 
     public static void setJSONScheduleSpawnSpecGenerator(RimIntersectionMap map, File uploadedTrafficSchedule) {
@@ -481,10 +514,10 @@ public class RimMapUtil {
                     JSONObject scheduledSpawn = new JSONObject();
                     scheduledSpawn.put("specName", vSpec.getName());
                     scheduledSpawn.put("spawnTime", currentTime);
-                    scheduledSpawn.put("arrivalRoadName",Debug.currentRimMap.getRoad(rimVehicleSimModel.getDriver().getCurrentLane().getId()).getName());
+                    scheduledSpawn.put("arrivalRoadName",SimulationContext.current().getRimMap().getRoad(rimVehicleSimModel.getDriver().getCurrentLane().getId()).getName());
                     scheduledSpawn.put("destinationRoadName", ((RIMAutoDriver) rimVehicleSimModel.getDriver()).getDestination().getName());
                     scheduledSpawn.put("laneIndex", 
-                    		Debug.currentRimMap.getRoad(rimVehicleSimModel.getDriver().getCurrentLane().getId())
+                    		SimulationContext.current().getRimMap().getRoad(rimVehicleSimModel.getDriver().getCurrentLane().getId())
                     									.getLaneIndexFromLane(rimVehicleSimModel.getDriver().getCurrentLane()));
                     schedule.add(scheduledSpawn);
                 }
@@ -543,7 +576,7 @@ public class RimMapUtil {
                     JSONObject scheduledSpawn = new JSONObject();
                     scheduledSpawn.put("specName", vSpec.getName());
                     scheduledSpawn.put("spawnTime", currentTime);
-                    scheduledSpawn.put("arrivalRoadName",Debug.currentRimMap.getRoad(rimVehicleSimModel.getDriver().getCurrentLane().getId()).getName());
+                    scheduledSpawn.put("arrivalRoadName",SimulationContext.current().getRimMap().getRoad(rimVehicleSimModel.getDriver().getCurrentLane().getId()).getName());
                     scheduledSpawn.put("destinationRoadName", ((RIMAutoDriver) rimVehicleSimModel.getDriver()).getDestination().getName());
                     schedule.add(scheduledSpawn);
                 }
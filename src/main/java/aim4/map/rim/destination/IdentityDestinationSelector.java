@@ -1,8 +1,8 @@
 package aim4.map.rim.destination;
 
-import aim4.config.Debug;
 import aim4.map.Road;
 import aim4.map.lane.Lane;
+import aim4.sim.SimulationContext;
 
 /**
  * The IdentityDestinationSelector always chooses the Vehicle's current Road
@@ -29,6 +29,6 @@ public class IdentityDestinationSelector implements DestinationSelector{
      */
     @Override
     public Road selectDestination(Lane currentLane) {
-        return Debug.currentRimMap.getRoad(currentLane);
+        return SimulationContext.current().getRimMap().getRoad(currentLane);
     }
 }
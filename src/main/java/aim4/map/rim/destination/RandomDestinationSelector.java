@@ -1,10 +1,9 @@
 package aim4.map.rim.destination;
 
-import aim4.config.Debug;
 import aim4.map.BasicRIMIntersectionMap;
 import aim4.map.Road;
 import aim4.map.lane.Lane;
-import aim4.util.Util;
+import aim4.sim.SimulationContext;
 
 import java.util.HashMap;
 import java.util.List;
@@ -82,7 +81,7 @@ public class RandomDestinationSelector implements DestinationSelector {
         
         Road dest;
         
-        Road currentRoad = Debug.currentRimMap.getRoad(currentLane);
+        Road currentRoad = SimulationContext.current().getRimMap().getRoad(currentLane);
         
         dest = getDest(currentRoad, currentLane);
         while(dest.getDual() == currentRoad) {
@@ -93,7 +92,7 @@ public class RandomDestinationSelector implements DestinationSelector {
     
     private Road getDest(Road currentRoad, Lane currentLane) {
     	if (currentRoad.getLaneIndexFromLane(currentLane) == 1) {
-        	int random = Util.random.nextInt(2);
+        	int random = SimulationContext.current().getRandom().nextInt(2);
         	if (random == 1) {
         		return currentRoad;
         	}
@@ -102,7 +101,7 @@ public class RandomDestinationSelector implements DestinationSelector {
         	}
         }
         else {
-        	return destinationRoads.get(Util.random.nextInt(destinationRoads.size()));
+        	return destinationRoads.get(SimulationContext.current().getRandom().nextInt(destinationRoads.size()));
         }
     }
     
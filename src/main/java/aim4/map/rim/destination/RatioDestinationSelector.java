@@ -1,11 +1,10 @@
 package aim4.map.rim.destination;
 
-import aim4.config.Debug;
 import aim4.map.BasicRIMIntersectionMap;
 import aim4.map.Road;
 import aim4.map.lane.Lane;
 import aim4.map.rim.RIMSpawnPoint;
-import aim4.util.Util;
+import aim4.sim.SimulationContext;
 
 import java.util.HashMap;
 import java.util.List;
@@ -72,9 +71,9 @@ public class RatioDestinationSelector implements DestinationSelector{
      */
     @Override
     public Road selectDestination(Lane currentLane) {
-        Road currentRoad = Debug.currentRimMap.getRoad(currentLane);
+        Road currentRoad = SimulationContext.current().getRimMap().getRoad(currentLane);
         int laneId = currentLane.getId();
-        double prob = Util.random.nextDouble();
+        double prob = SimulationContext.current().getRandom().nextDouble();
         if (prob < leftTurnProb.get(laneId)) {
             return trafficVolume.getLeftTurnRoad(currentRoad);
         } else if (prob >= 1.0 - rightTurnProb.get(laneId)) {
@@ -2,10 +2,10 @@ package aim4.map.rim.destination;
 
 //TODO: Need to fix this class to avoid hard-coding
 
-import aim4.config.Debug;
 import aim4.map.BasicRIMIntersectionMap;
 import aim4.map.Road;
 import aim4.map.lane.Lane;
+import aim4.sim.SimulationContext;
 
 import java.util.List;
 
@@ -45,7 +45,7 @@ public class TurnBasedDestinationSelector implements DestinationSelector{
      */
     @Override
     public Road selectDestination(Lane currentLane) {
-        Road currentRoad = Debug.currentRimMap.getRoad(currentLane);
+        Road currentRoad = SimulationContext.current().getRimMap().getRoad(currentLane);
 
         boolean hasLeft = currentLane.hasLeftNeighbor();
         boolean hasRight = currentLane.hasRightNeighbor();
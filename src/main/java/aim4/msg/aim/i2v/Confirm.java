@@ -31,7 +31,11 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package aim4.msg.aim.i2v;
 
 import aim4.config.Constants;
+import aim4.sim.snapshot.StateRecord;
 
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.LinkedList;
 import java.util.Queue;
 
 /**
@@ -281,6 +285,75 @@ public class Confirm extends I2VMessage {
     return accProfile;
   }
 
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public StateRecord toState() {
+    StateRecord state = new StateRecord(Confirm.class.getName(), 1);
+    state.putInt("vin", getVin());
+    state.putInt("imId", getImId());
+    state.putInt("reservationId", reservationId);
+    state.putInt("requestId", requestId);
+    state.putDouble("arrivalTime", arrivalTime);
+    state.putDouble("earlyError", earlyError);
+    state.putDouble("lateError", lateError);
+    state.putDouble("arrivalVelocity", arrivalVelocity);
+    state.putInt("arrivalLaneID", arrivalLaneID);
+    state.putInt("departureLaneID", departureLaneID);
+    state.putDouble("aczDistance", aczDistance);
+    // the acceleration profile as pairs of accelerations and durations
+    state.putBoolean("hasAccProfile", accProfile != null);
+    double[] pairs = new double[accProfile == null ? 0 : 2 * accProfile.size()];
+    if (accProfile != null) {
+      int i = 0;
+      for(double[] pair : accProfile) {
+        pairs[i++] = pair[0];
+        pairs[i++] = pair[1];
+      }
+    }
+    state.putDoubles("accProfile", pairs);
+    return state;
+  }
+
+  /**
+   * Restore a message saved by {@link #toState()}.
+   *
+   * @param state  the state of the message
+   * @return the message
+   * @throws IOException  if the state is not the state of this message
+   */
+  public static Confirm fromState(StateRecord state) throws IOException {
+    state.check(Confirm.class.getName(), 1);
+    boolean hasAccProfile = state.getBoolean("hasAccProfile");
+    double[] pairs = state.getDoubles("accProfile");
+    if (pairs.length % 2 != 0 || (!hasAccProfile && pairs.length > 0)) {
+      throw new StreamCorruptedException("Malformed acceleration profile");
+    }
+    Queue<double[]> accProfile = null;
+    if (hasAccProfile) {
+      accProfile = new LinkedList<double[]>();
+      for(int i = 0; i < pairs.length; i += 2) {
+        accProfile.add(new double[] { pairs[i], pairs[i + 1] });
+      }
+    }
+    Confirm msg = new Confirm(state.getInt("imId"), state.getInt("vin"),
+                              state.getInt("reservationId"),
+                              state.getInt("requestId"),
+                              state.getDouble("arrivalTime"),
+                              state.getDouble("earlyError"),
+                              state.getDouble("lateError"),
+                              state.getDouble("arrivalVelocity"),
+                              state.getInt("arrivalLaneID"),
+                              state.getInt("departureLaneID"),
+                              state.getDouble("aczDistance"),
+                              accProfile);
+    state.checkAllRead();
+    return msg;
+  }
+
   /////////////////////////////////
   // PUBLIC METHODS
   /////////////////////////////////
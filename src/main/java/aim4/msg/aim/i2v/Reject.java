@@ -31,6 +31,10 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package aim4.msg.aim.i2v;
 
 import aim4.config.Constants;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
 
 /**
  * Message sent from an Intersection Manager to a Vehicle to reject a
@@ -109,6 +113,13 @@ public class Reject extends I2VMessage {
    */
   private Reason reason;
 
+  /**
+   * The earliest arrival time at which the intersection manager found the
+   * intersection clear for one of the proposals of the request; NaN if
+   * there is none.
+   */
+  private double earliestArrivalTime;
+
 
   /////////////////////////////////
   // CLASS CONSTRUCTORS
@@ -133,13 +144,46 @@ public class Reject extends I2VMessage {
                 int requestId,
                 double nextAllowedCommunication,
                 Reason reason) {
+    this(sourceID, destinationID, requestId, nextAllowedCommunication, reason,
+         Double.NaN);
+  }
+
+  /**
+   * Constructor with specific reason for rejection, limit on when the next
+   * acceptable transmission is, and the earliest arrival time at which the
+   * intersection is clear.  The earliest arrival time is only sent if it is
+   * not NaN.
+   *
+   * @param sourceID                 the ID number of the IntersectionManager
+   *                                 sending this message
+   * @param destinationID            the ID number of the Vehicle to which
+   *                                 this message is being sent
+   * @param requestId                the request id of the request message
+   *                                 this reject message corresponds to
+   * @param nextAllowedCommunication the time after which communication will
+   *                                 accepted by the IntersectionManager
+   * @param reason                   the reason this Reject message is being
+   *                                 sent
+   * @param earliestArrivalTime      the earliest arrival time at which the
+   *                                 intersection is clear for one of the
+   *                                 proposals; NaN if there is none
+   */
+  public Reject(int sourceID, int destinationID,
+                int requestId,
+                double nextAllowedCommunication,
+                Reason reason,
+                double earliestArrivalTime) {
     // Set the source and destination
     super(sourceID, destinationID);
     this.requestId = requestId;
     this.nextAllowedCommunication = nextAllowedCommunication;
     this.reason = reason;
+    this.earliestArrivalTime = earliestArrivalTime;
     messageType = Type.REJECT;
     size += Constants.ENUM_SIZE + Constants.DOUBLE_SIZE;
+    if (hasEarliestArrivalTime()) {
+      size += Constants.DOUBLE_SIZE;
+    }
   }
 
   /////////////////////////////////
@@ -176,6 +220,63 @@ public class Reject extends I2VMessage {
     return reason;
   }
 
+  /**
+   * Whether the intersection manager sent the earliest arrival time at which
+   * the intersection is clear.
+   *
+   * @return whether the earliest arrival time is sent
+   */
+  public boolean hasEarliestArrivalTime() {
+    return !Double.isNaN(earliestArrivalTime);
+  }
+
+  /**
+   * Get the earliest arrival time at which the intersection manager found
+   * the intersection clear for one of the proposals of the request.  No
+   * proposal of the request can arrive earlier.
+   *
+   * @return the earliest arrival time; NaN if there is none
+   */
+  public double getEarliestArrivalTime() {
+    return earliestArrivalTime;
+  }
+
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public StateRecord toState() {
+    StateRecord state = new StateRecord(Reject.class.getName(), 1);
+    state.putInt("vin", getVin());
+    state.putInt("imId", getImId());
+    state.putInt("requestId", requestId);
+    state.putDouble("nextAllowedCommunication", nextAllowedCommunication);
+    state.putString("reason", reason == null ? null : reason.name());
+    state.putDouble("earliestArrivalTime", earliestArrivalTime);
+    return state;
+  }
+
+  /**
+   * Restore a message saved by {@link #toState()}.
+   *
+   * @param state  the state of the message
+   * @return the message
+   * @throws IOException  if the state is not the state of this message
+   */
+  public static Reject fromState(StateRecord state) throws IOException {
+    state.check(Reject.class.getName(), 1);
+    Reject msg = new Reject(state.getInt("imId"), state.getInt("vin"),
+                            state.getInt("requestId"),
+                            state.getDouble("nextAllowedCommunication"),
+                            References.valueOf(Reason.class,
+                                               state.getString("reason")),
+                            state.getDouble("earliestArrivalTime"));
+    state.checkAllRead();
+    return msg;
+  }
+
   /////////////////////////////////
   // PUBLIC METHODS
   /////////////////////////////////
@@ -189,6 +290,9 @@ public class Reject extends I2VMessage {
            + ", requestID=" + requestId
            + ", nextcomm:" + String.format("%.2f", nextAllowedCommunication)
            + ", reason:" + reason
+           + (hasEarliestArrivalTime()
+              ? ", earliest:" + String.format("%.2f", earliestArrivalTime)
+              : "")
            + ")";
   }
 
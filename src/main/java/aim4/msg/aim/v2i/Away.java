@@ -31,6 +31,9 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package aim4.msg.aim.v2i;
 
 import aim4.config.Constants;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
 
 /**
  * Message sent from a Vehicle to an Intersection Manager to inform it that it
@@ -83,6 +86,35 @@ public class Away extends V2IMessage {
   // DEBUG
   /////////////////////////////////
 
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public StateRecord toState() {
+    StateRecord state = new StateRecord(Away.class.getName(), 1);
+    state.putInt("vin", getVin());
+    state.putInt("imId", getImId());
+    state.putInt("reservationID", reservationID);
+    return state;
+  }
+
+  /**
+   * Restore a message saved by {@link #toState()}.
+   *
+   * @param state  the state of the message
+   * @return the message
+   * @throws IOException  if the state is not the state of this message
+   */
+  public static Away fromState(StateRecord state) throws IOException {
+    state.check(Away.class.getName(), 1);
+    Away msg = new Away(state.getInt("vin"), state.getInt("imId"),
+                        state.getInt("reservationID"));
+    state.checkAllRead();
+    return msg;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -31,6 +31,9 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package aim4.msg.aim.v2i;
 
 import aim4.config.Constants;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
 
 /**
  * Message sent from a Vehicle to an Intersection Manager to
@@ -79,6 +82,35 @@ public class Cancel extends V2IMessage {
     return reservationID;
   }
 
+  // snapshots
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public StateRecord toState() {
+    StateRecord state = new StateRecord(Cancel.class.getName(), 1);
+    state.putInt("vin", getVin());
+    state.putInt("imId", getImId());
+    state.putInt("reservationID", reservationID);
+    return state;
+  }
+
+  /**
+   * Restore a message saved by {@link #toState()}.
+   *
+   * @param state  the state of the message
+   * @return the message
+   * @throws IOException  if the state is not the state of this message
+   */
+  public static Cancel fromState(StateRecord state) throws IOException {
+    state.check(Cancel.class.getName(), 1);
+    Cancel msg = new Cancel(state.getInt("vin"), state.getInt("imId"),
+                            state.getInt("reservationID"));
+    state.checkAllRead();
+    return msg;
+  }
+
   /////////////////////////////////
   // DEBUG
   /////////////////////////////////
@@ -31,6 +31,10 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package aim4.msg.aim.v2i;
 
 import aim4.config.Constants;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
 
 /**
  * A message sent from a Vehicle to an Intersection Manager.
@@ -164,4 +168,34 @@ public abstract class V2IMessage {
   public int getSize() {
     return size;
   }
+
+  // snapshots
+
+  /**
+   * Save this message.
+   *
+   * @return the state of this message
+   */
+  public abstract StateRecord toState();
+
+  /**
+   * Restore a message saved by {@link #toState()}.
+   *
+   * @param state  the state of the message
+   * @return the message
+   * @throws IOException  if the state is not the state of a message
+   */
+  public static V2IMessage fromState(StateRecord state) throws IOException {
+    if (state.getType().equals(Request.class.getName())) {
+      return Request.fromState(state);
+    } else if (state.getType().equals(Cancel.class.getName())) {
+      return Cancel.fromState(state);
+    } else if (state.getType().equals(Done.class.getName())) {
+      return Done.fromState(state);
+    } else if (state.getType().equals(Away.class.getName())) {
+      return Away.fromState(state);
+    } else {
+      throw new InvalidClassException(state.getType(), "not a V2I message");
+    }
+  }
 }
@@ -1,5 +1,11 @@
 package aim4.msg.merge.i2v;
 
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+
 /**
  * Created by Callum on 13/04/2017.
  */
@@ -100,4 +106,35 @@ public class I2VMergeMessage {
     public Type getMessageType() {
         return messageType;
     }
+
+    // SNAPSHOTS //
+
+    /**
+     * Save this message.  Only the messages of the grid protocol support
+     * snapshots.
+     *
+     * @return the state of this message
+     * @throws NotSerializableException  if the message does not support
+     *                                   snapshots
+     */
+    public StateRecord toState() throws NotSerializableException {
+        throw new NotSerializableException(getClass().getName());
+    }
+
+    /**
+     * Restore a message saved by {@link #toState()}.
+     *
+     * @param state  the state of the message
+     * @return the message
+     * @throws IOException  if the state is not the state of a message
+     */
+    public static I2VMergeMessage fromState(StateRecord state) throws IOException {
+        if (state.getType().equals(Confirm.class.getName())) {
+            return Confirm.fromState(state);
+        } else if (state.getType().equals(Reject.class.getName())) {
+            return Reject.fromState(state);
+        } else {
+            throw new InvalidClassException(state.getType(), "not an I2V merge message");
+        }
+    }
 }
@@ -1,5 +1,10 @@
 package aim4.msg.merge.i2v;
 
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+
 /**
  * Created by Callum on 13/04/2017.
  */
@@ -134,4 +139,37 @@ public class Reject extends I2VMergeMessage {
     public Reason getReason() {
         return reason;
     }
+
+    // SNAPSHOTS //
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StateRecord toState() {
+        StateRecord state = new StateRecord(Reject.class.getName(), 1);
+        state.putInt("vin", getVin());
+        state.putInt("mmID", getMMID());
+        state.putInt("requestId", requestId);
+        state.putDouble("nextAllowedCommunication", nextAllowedCommunication);
+        state.putString("reason", reason == null ? null : reason.name());
+        return state;
+    }
+
+    /**
+     * Restore a message saved by {@link #toState()}.
+     *
+     * @param state  the state of the message
+     * @return the message
+     * @throws IOException  if the state is not the state of this message
+     */
+    public static Reject fromState(StateRecord state) throws IOException {
+        state.check(Reject.class.getName(), 1);
+        Reject msg = new Reject(state.getInt("mmID"), state.getInt("vin"),
+                state.getInt("requestId"),
+                state.getDouble("nextAllowedCommunication"),
+                References.valueOf(Reason.class, state.getString("reason")));
+        state.checkAllRead();
+        return msg;
+    }
 }
@@ -1,5 +1,9 @@
 package aim4.msg.merge.v2i;
 
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+
 /**
  * Created by Callum on 13/04/2017.
  */
@@ -41,4 +45,33 @@ public class Cancel extends V2IMergeMessage {
     public int getReservationID() {
         return reservationID;
     }
+
+    // SNAPSHOTS //
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StateRecord toState() {
+        StateRecord state = new StateRecord(Cancel.class.getName(), 1);
+        state.putInt("vin", getVin());
+        state.putInt("mmID", getMMID());
+        state.putInt("reservationID", reservationID);
+        return state;
+    }
+
+    /**
+     * Restore a message saved by {@link #toState()}.
+     *
+     * @param state  the state of the message
+     * @return the message
+     * @throws IOException  if the state is not the state of this message
+     */
+    public static Cancel fromState(StateRecord state) throws IOException {
+        state.check(Cancel.class.getName(), 1);
+        Cancel msg = new Cancel(state.getInt("vin"), state.getInt("mmID"),
+                state.getInt("reservationID"));
+        state.checkAllRead();
+        return msg;
+    }
 }
@@ -1,5 +1,9 @@
 package aim4.msg.merge.v2i;
 
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+
 /**
  * Created by Callum on 13/04/2017.
  */
@@ -43,4 +47,33 @@ public class Done extends V2IMergeMessage {
     public int getReservationID() {
         return reservationID;
     }
+
+    // SNAPSHOTS //
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StateRecord toState() {
+        StateRecord state = new StateRecord(Done.class.getName(), 1);
+        state.putInt("vin", getVin());
+        state.putInt("mmID", getMMID());
+        state.putInt("reservationID", reservationID);
+        return state;
+    }
+
+    /**
+     * Restore a message saved by {@link #toState()}.
+     *
+     * @param state  the state of the message
+     * @return the message
+     * @throws IOException  if the state is not the state of this message
+     */
+    public static Done fromState(StateRecord state) throws IOException {
+        state.check(Done.class.getName(), 1);
+        Done msg = new Done(state.getInt("vin"), state.getInt("mmID"),
+                state.getInt("reservationID"));
+        state.checkAllRead();
+        return msg;
+    }
 }
@@ -1,5 +1,11 @@
 package aim4.msg.merge.v2i;
 
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+
 /**
  * Created by Callum on 13/04/2017.
  */
@@ -131,4 +137,39 @@ public class V2IMergeMessage {
     public Type getMessageType() {
         return messageType;
     }
+
+    // SNAPSHOTS //
+
+    /**
+     * Save this message.  Only the messages of the grid protocol support
+     * snapshots.
+     *
+     * @return the state of this message
+     * @throws NotSerializableException  if the message does not support
+     *                                   snapshots
+     */
+    public StateRecord toState() throws NotSerializableException {
+        throw new NotSerializableException(getClass().getName());
+    }
+
+    /**
+     * Restore a message saved by {@link #toState()}.
+     *
+     * @param state  the state of the message
+     * @return the message
+     * @throws IOException  if the state is not the state of a message
+     */
+    public static V2IMergeMessage fromState(StateRecord state) throws IOException {
+        if (state.getType().equals(Request.class.getName())) {
+            return Request.fromState(state);
+        } else if (state.getType().equals(Cancel.class.getName())) {
+            return Cancel.fromState(state);
+        } else if (state.getType().equals(Done.class.getName())) {
+            return Done.fromState(state);
+        } else if (state.getType().equals(Away.class.getName())) {
+            return Away.fromState(state);
+        } else {
+            throw new InvalidClassException(state.getType(), "not a V2I merge message");
+        }
+    }
 }
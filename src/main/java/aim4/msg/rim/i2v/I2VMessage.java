@@ -1,6 +1,10 @@
 package aim4.msg.rim.i2v;
 
 import aim4.config.Constants;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
 
 /**
  * A message sent from a RIM Intersection Manager to a Vehicle.
@@ -123,4 +127,30 @@ public abstract class I2VMessage {
     public int getSize() {
         return size;
     }
+
+    // snapshots
+
+    /**
+     * Save this message.
+     *
+     * @return the state of this message
+     */
+    public abstract StateRecord toState();
+
+    /**
+     * Restore a message saved by {@link #toState()}.
+     *
+     * @param state  the state of the message
+     * @return the message
+     * @throws IOException  if the state is not the state of a message
+     */
+    public static I2VMessage fromState(StateRecord state) throws IOException {
+        if (state.getType().equals(Confirm.class.getName())) {
+            return Confirm.fromState(state);
+        } else if (state.getType().equals(Reject.class.getName())) {
+            return Reject.fromState(state);
+        } else {
+            throw new InvalidClassException(state.getType(), "not an I2V message");
+        }
+    }
 }
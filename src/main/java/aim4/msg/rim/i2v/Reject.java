@@ -1,6 +1,10 @@
 package aim4.msg.rim.i2v;
 
 import aim4.config.Constants;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
 
 /**
  * Message sent from a RIM Intersection Manager to a Vehicle to reject a
@@ -145,6 +149,40 @@ public class Reject extends I2VMessage{
         return reason;
     }
 
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StateRecord toState() {
+        StateRecord state = new StateRecord(Reject.class.getName(), 1);
+        state.putInt("vin", getVin());
+        state.putInt("imId", getImId());
+        state.putInt("requestId", requestId);
+        state.putDouble("nextAllowedCommunication", nextAllowedCommunication);
+        state.putString("reason", reason == null ? null : reason.name());
+        return state;
+    }
+
+    /**
+     * Restore a message saved by {@link #toState()}.
+     *
+     * @param state  the state of the message
+     * @return the message
+     * @throws IOException  if the state is not the state of this message
+     */
+    public static Reject fromState(StateRecord state) throws IOException {
+        state.check(Reject.class.getName(), 1);
+        Reject msg = new Reject(state.getInt("imId"), state.getInt("vin"),
+                                state.getInt("requestId"),
+                                state.getDouble("nextAllowedCommunication"),
+                                References.valueOf(Reason.class,
+                                                   state.getString("reason")));
+        state.checkAllRead();
+        return msg;
+    }
+
     /////////////////////////////////
     // PUBLIC METHODS
     /////////////////////////////////
@@ -1,8 +1,12 @@
 package aim4.msg.rim.v2i;
 
 import aim4.config.Constants;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.VehicleSpec;
 
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -468,6 +472,81 @@ public class Request extends V2IMessage{
     }
 
 
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StateRecord toState() {
+        StateRecord state = new StateRecord(Request.class.getName(), 1);
+        state.putInt("vin", getVin());
+        state.putInt("imId", getImId());
+        state.putInt("requestId", requestId);
+        StateRecord s =
+            new StateRecord(VehicleSpecForRequestMsg.class.getName(), 1);
+        s.putDouble("maxAcceleration", spec.getMaxAcceleration());
+        s.putDouble("maxDeceleration", spec.getMaxDeceleration());
+        s.putDouble("minVelocity", spec.getMinVelocity());
+        s.putDouble("length", spec.getLength());
+        s.putDouble("width", spec.getWidth());
+        s.putDouble("frontAxleDisplacement", spec.getFrontAxleDisplacement());
+        s.putDouble("rearAxleDisplacement", spec.getRearAxleDisplacement());
+        s.putDouble("maxSteeringAngle", spec.getMaxSteeringAngle());
+        s.putDouble("maxTurnPerSecond", spec.getMaxTurnPerSecond());
+        state.putRecord("spec", s);
+        List<StateRecord> ps = new ArrayList<StateRecord>(proposals.size());
+        for (Proposal p : proposals) {
+            StateRecord ps1 = new StateRecord(Proposal.class.getName(), 1);
+            ps1.putInt("arrivalLaneID", p.getArrivalLaneID());
+            ps1.putInt("departureLaneID", p.getDepartureLaneID());
+            ps1.putDouble("arrivalTime", p.getArrivalTime());
+            ps1.putDouble("arrivalVelocity", p.getArrivalVelocity());
+            ps1.putDouble("maximumTurnVelocity", p.getMaximumTurnVelocity());
+            ps1.putBoolean("isStoppedAtIntersection", p.isStoppedAtIntersection());
+            ps.add(ps1);
+        }
+        state.putRecords("proposals", ps);
+        return state;
+    }
+
+    /**
+     * Restore a message saved by {@link #toState()}.
+     *
+     * @param state  the state of the message
+     * @return the message
+     * @throws IOException  if the state is not the state of this message
+     */
+    public static Request fromState(StateRecord state) throws IOException {
+        state.check(Request.class.getName(), 1);
+        StateRecord s = state.getRecord("spec");
+        s.check(VehicleSpecForRequestMsg.class.getName(), 1);
+        VehicleSpecForRequestMsg spec = new VehicleSpecForRequestMsg(
+            s.getDouble("maxAcceleration"), s.getDouble("maxDeceleration"),
+            s.getDouble("minVelocity"), s.getDouble("length"), s.getDouble("width"),
+            s.getDouble("frontAxleDisplacement"), s.getDouble("rearAxleDisplacement"),
+            s.getDouble("maxSteeringAngle"), s.getDouble("maxTurnPerSecond"));
+        s.checkAllRead();
+        List<Proposal> proposals = new LinkedList<Proposal>();
+        for (StateRecord p : state.getRecords("proposals")) {
+            p.check(Proposal.class.getName(), 1);
+            proposals.add(new Proposal(p.getInt("arrivalLaneID"),
+                                       p.getInt("departureLaneID"),
+                                       p.getDouble("arrivalTime"),
+                                       p.getDouble("arrivalVelocity"),
+                                       p.getDouble("maximumTurnVelocity"),
+                                       p.getBoolean("isStoppedAtIntersection")));
+            p.checkAllRead();
+        }
+        if (proposals.isEmpty()) {
+            throw new StreamCorruptedException("A request without proposals");
+        }
+        Request msg = new Request(state.getInt("vin"), state.getInt("imId"),
+                                  state.getInt("requestId"), spec, proposals);
+        state.checkAllRead();
+        return msg;
+    }
+
     /////////////////////////////////
     // DEBUG
     /////////////////////////////////
@@ -140,4 +140,14 @@ public class DoubleGauge {
     double v = noiseFunction.apply(recValue);
     value = Util.constrain(v, minValue, maxValue);
   }
+
+  /**
+   * Restores a value read from the gauge, without noise and without
+   * constraining it again.
+   *
+   * @param savedValue the value returned by {@link #read()}
+   */
+  public void restore(double savedValue) {
+    value = savedValue;
+  }
 }
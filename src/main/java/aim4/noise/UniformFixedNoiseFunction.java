@@ -30,7 +30,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.noise;
 
-import aim4.util.Util;
+import aim4.sim.SimulationContext;
 
 /**
  * NoiseFunction that adds noise uniformly within a fixed proportion of the
@@ -59,6 +59,6 @@ public class UniformFixedNoiseFunction implements NoiseFunction {
    */
   @Override
   public double apply(double trueValue) {
-    return trueValue + (Util.random.nextDouble() * range * 2) - range;
+    return trueValue + (SimulationContext.current().getRandom().nextDouble() * range * 2) - range;
   }
 }
@@ -30,7 +30,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.noise;
 
-import aim4.util.Util;
+import aim4.sim.SimulationContext;
 
 /**
  * NoiseFunction that adds noise uniformly within a fixed proportion of the
@@ -61,6 +61,6 @@ public class UniformProportionalNoiseFunction implements NoiseFunction {
   @Override
   public double apply(double trueValue) {
     double range = 2 * trueValue * proportion;
-    return trueValue + (Util.random.nextDouble() * range) - range/2;
+    return trueValue + (SimulationContext.current().getRandom().nextDouble() * range) - range/2;
   }
 }
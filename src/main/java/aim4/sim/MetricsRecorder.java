@@ -0,0 +1,128 @@
+package aim4.sim;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Writes snapshots of the {@link SimMetrics} of a simulator to a file at a
+ * regular interval of simulation time.  A file whose name ends with
+ * <code>.json</code> gets one JSON object per line; any other file gets CSV
+ * rows of the form {@link SimMetrics#CSV_HEADER}.  Since the metrics are
+ * cumulative, the last snapshot holds the totals of the whole simulation.
+ */
+public class MetricsRecorder implements Closeable {
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The writer of the file */
+    private final PrintWriter out;
+    /** Whether the snapshots are written as JSON */
+    private final boolean json;
+    /** The interval of simulation time between two snapshots, in seconds */
+    private final double interval;
+    /** The simulation time of the next snapshot */
+    private double nextTime;
+    /** The simulation time of the last snapshot */
+    private double lastTime = Double.NaN;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a recorder that writes the snapshots to a file.
+     *
+     * @param file      the file
+     * @param interval  the interval of simulation time between two snapshots,
+     *                  in seconds
+     * @throws IOException  if the file cannot be opened
+     */
+    public MetricsRecorder(File file, double interval) throws IOException {
+        if (interval <= 0) {
+            throw new IllegalArgumentException(
+                "The interval of the metrics must be positive: " + interval);
+        }
+        this.out = new PrintWriter(new OutputStreamWriter(
+            new FileOutputStream(file), Charset.forName("UTF-8")));
+        this.json = file.getName().endsWith(".json");
+        this.interval = interval;
+        this.nextTime = interval;
+        if (!json) {
+            out.println(SimMetrics.CSV_HEADER);
+        }
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Write a snapshot of the metrics of a simulator if the interval has
+     * elapsed since the last one.  It should be called after every step.
+     *
+     * @param sim  the simulator
+     */
+    public void afterStep(Simulator sim) {
+        if (sim.getSimulationTime() >= nextTime) {
+            write(sim);
+            while (nextTime <= sim.getSimulationTime()) {
+                nextTime += interval;
+            }
+        }
+    }
+
+    /**
+     * Write a final snapshot of the metrics of a simulator, unless one has
+     * already been written at the current simulation time, and close the
+     * file.
+     *
+     * @param sim  the simulator
+     * @throws IOException  if the snapshots could not be written
+     */
+    public void finish(Simulator sim) throws IOException {
+        if (sim.getSimulationTime() != lastTime) {
+            write(sim);
+        }
+        close();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+        if (out.checkError()) {
+            throw new IOException("Could not write the metrics");
+        }
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Write a snapshot of the metrics of a simulator.
+     *
+     * @param sim  the simulator
+     */
+    private void write(Simulator sim) {
+        SimMetrics metrics = new SimMetrics(sim);
+        if (json) {
+            out.println(metrics.toJSON().toJSONString());
+        } else {
+            for (String row : metrics.toCsvRows()) {
+                out.println(row);
+            }
+        }
+        out.flush();
+        lastTime = sim.getSimulationTime();
+    }
+}
@@ -0,0 +1,339 @@
+package aim4.sim;
+
+import aim4.im.RequestStats;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.BasicMap;
+import aim4.map.BasicRIMIntersectionMap;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A snapshot of the performance metrics of a simulator: the time spent in
+ * each phase of the steps, and for every V2I intersection manager the
+ * statistics of the reservation requests and of the messages.
+ * <p>
+ * A snapshot can be written as a JSON object or as CSV rows of the form
+ * <code>time,source,metric,value</code>, where the source is
+ * <code>phase</code>, <code>sim</code> or <code>im&lt;id&gt;</code>.
+ */
+public class SimMetrics {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The header of the CSV rows */
+    public static final String CSV_HEADER = "time,source,metric,value";
+
+    /////////////////////////////////
+    // NESTED CLASSES
+    /////////////////////////////////
+
+    /**
+     * The metrics of a phase of the steps.
+     */
+    public static class PhaseMetrics {
+        /** The name of the phase */
+        private final String phase;
+        /** The number of times the phase has been timed */
+        private final int count;
+        /** The total time, in seconds */
+        private final double totalTime;
+        /** The longest time, in seconds */
+        private final double maxTime;
+
+        private PhaseMetrics(StepPhaseTimer timer, String phase) {
+            this.phase = phase;
+            this.count = timer.getCount(phase);
+            this.totalTime = timer.getTotalTime(phase);
+            this.maxTime = timer.getMaxTime(phase);
+        }
+
+        /** @return the name of the phase */
+        public String getPhase() {
+            return phase;
+        }
+
+        /** @return the number of times the phase has been timed */
+        public int getCount() {
+            return count;
+        }
+
+        /** @return the total time, in seconds */
+        public double getTotalTime() {
+            return totalTime;
+        }
+
+        /** @return the average time, in seconds */
+        public double getAverageTime() {
+            return count == 0 ? 0.0 : totalTime / count;
+        }
+
+        /** @return the longest time, in seconds */
+        public double getMaxTime() {
+            return maxTime;
+        }
+    }
+
+    /**
+     * The metrics of an intersection manager.
+     */
+    public static class ManagerMetrics {
+        /** The ID of the intersection manager */
+        private final int id;
+        /** The number of messages received */
+        private final int messagesReceived;
+        /** The number of messages transmitted */
+        private final int messagesTransmitted;
+        /** The number of bits received */
+        private final int bitsReceived;
+        /** The number of bits transmitted */
+        private final int bitsTransmitted;
+        /** The statistics of the requests; null if the policy keeps none */
+        private final RequestStats requestStats;
+
+        private ManagerMetrics(int id,
+                               int messagesReceived, int messagesTransmitted,
+                               int bitsReceived, int bitsTransmitted,
+                               RequestStats requestStats) {
+            this.id = id;
+            this.messagesReceived = messagesReceived;
+            this.messagesTransmitted = messagesTransmitted;
+            this.bitsReceived = bitsReceived;
+            this.bitsTransmitted = bitsTransmitted;
+            this.requestStats = requestStats;
+        }
+
+        /** @return the ID of the intersection manager */
+        public int getId() {
+            return id;
+        }
+
+        /** @return the number of messages received */
+        public int getMessagesReceived() {
+            return messagesReceived;
+        }
+
+        /** @return the number of messages transmitted */
+        public int getMessagesTransmitted() {
+            return messagesTransmitted;
+        }
+
+        /** @return the number of bits received */
+        public int getBitsReceived() {
+            return bitsReceived;
+        }
+
+        /** @return the number of bits transmitted */
+        public int getBitsTransmitted() {
+            return bitsTransmitted;
+        }
+
+        /**
+         * Get the statistics of the requests.  They are the live statistics
+         * of the policy, not a copy.
+         *
+         * @return the statistics of the requests; null if the policy of the
+         *         intersection manager keeps none
+         */
+        public RequestStats getRequestStats() {
+            return requestStats;
+        }
+
+        /**
+         * Get the metrics as name-value pairs.
+         *
+         * @return the metrics, in a fixed order
+         */
+        private Map<String, Object> values() {
+            Map<String, Object> values = new LinkedHashMap<String, Object>();
+            values.put("messagesReceived", messagesReceived);
+            values.put("messagesTransmitted", messagesTransmitted);
+            values.put("bitsReceived", bitsReceived);
+            values.put("bitsTransmitted", bitsTransmitted);
+            if (requestStats != null) {
+                values.put("requests", requestStats.getRequests());
+                values.put("accepted", requestStats.getAccepted());
+                values.put("rejected", requestStats.getRejected());
+                values.put("acceptRate", requestStats.getAcceptRate());
+                values.put("queries", requestStats.getQueries());
+                values.put("avgQueryLatency", requestStats.getAverageLatency());
+                values.put("p50QueryLatency",
+                           requestStats.getLatencyPercentile(0.5));
+                values.put("p99QueryLatency",
+                           requestStats.getLatencyPercentile(0.99));
+            }
+            return values;
+        }
+    }
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The simulation time of the snapshot */
+    private final double simulationTime;
+    /** The number of completed vehicles */
+    private final int numOfCompletedVehicles;
+    /** The metrics of the phases, in the order in which they were timed */
+    private final List<PhaseMetrics> phases;
+    /** The metrics of the V2I intersection managers */
+    private final List<ManagerMetrics> managers;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Take a snapshot of the metrics of a simulator.  It should not be called
+     * while the simulator is stepping.
+     *
+     * @param sim  the simulator
+     */
+    public SimMetrics(Simulator sim) {
+        simulationTime = sim.getSimulationTime();
+        numOfCompletedVehicles = sim.getNumCompletedVehicles();
+        StepPhaseTimer timer = sim.getStepPhaseTimer();
+        phases = new ArrayList<PhaseMetrics>();
+        for (String phase : timer.getPhases()) {
+            phases.add(new PhaseMetrics(timer, phase));
+        }
+        managers = collectManagers(sim.getMap());
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /** @return the simulation time of the snapshot */
+    public double getSimulationTime() {
+        return simulationTime;
+    }
+
+    /** @return the number of completed vehicles */
+    public int getNumCompletedVehicles() {
+        return numOfCompletedVehicles;
+    }
+
+    /** @return the metrics of the phases, in the order in which they were timed */
+    public List<PhaseMetrics> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    /** @return the metrics of the V2I intersection managers */
+    public List<ManagerMetrics> getManagers() {
+        return Collections.unmodifiableList(managers);
+    }
+
+    /**
+     * Get the snapshot as CSV rows, without the header.
+     *
+     * @return the CSV rows
+     */
+    public List<String> toCsvRows() {
+        List<String> rows = new ArrayList<String>();
+        rows.add(csvRow("sim", "completedVehicles", numOfCompletedVehicles));
+        for (PhaseMetrics p : phases) {
+            rows.add(csvRow("phase", p.getPhase() + ".count", p.getCount()));
+            rows.add(csvRow("phase", p.getPhase() + ".totalTime", p.getTotalTime()));
+            rows.add(csvRow("phase", p.getPhase() + ".maxTime", p.getMaxTime()));
+        }
+        for (ManagerMetrics m : managers) {
+            for (Map.Entry<String, Object> e : m.values().entrySet()) {
+                rows.add(csvRow("im" + m.getId(), e.getKey(), e.getValue()));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Get the snapshot as a JSON object.
+     *
+     * @return the JSON object
+     */
+    @SuppressWarnings("unchecked")
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        json.put("time", simulationTime);
+        json.put("completedVehicles", numOfCompletedVehicles);
+        JSONObject phasesJson = new JSONObject();
+        for (PhaseMetrics p : phases) {
+            JSONObject phaseJson = new JSONObject();
+            phaseJson.put("count", p.getCount());
+            phaseJson.put("totalTime", p.getTotalTime());
+            phaseJson.put("maxTime", p.getMaxTime());
+            phasesJson.put(p.getPhase(), phaseJson);
+        }
+        json.put("phases", phasesJson);
+        JSONArray managersJson = new JSONArray();
+        for (ManagerMetrics m : managers) {
+            JSONObject managerJson = new JSONObject();
+            managerJson.put("id", m.getId());
+            managerJson.putAll(m.values());
+            RequestStats stats = m.getRequestStats();
+            if (stats != null) {
+                JSONArray histogram = new JSONArray();
+                for (long count : stats.getLatencyHistogram()) {
+                    histogram.add(count);
+                }
+                managerJson.put("queryLatencyHistogram", histogram);
+                managerJson.put("rejectReasons",
+                                new JSONObject(stats.getRejectReasons()));
+            }
+            managersJson.add(managerJson);
+        }
+        json.put("intersectionManagers", managersJson);
+        return json;
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Create a CSV row of this snapshot.
+     */
+    private String csvRow(String source, String metric, Object value) {
+        return simulationTime + "," + source + "," + metric + "," + value;
+    }
+
+    /**
+     * Collect the metrics of the V2I intersection managers of a map.
+     *
+     * @param map  the map
+     * @return the metrics of the V2I intersection managers
+     */
+    private static List<ManagerMetrics> collectManagers(BasicMap map) {
+        List<ManagerMetrics> managers = new ArrayList<ManagerMetrics>();
+        if (map instanceof BasicAIMIntersectionMap) {
+            for (aim4.im.aim.IntersectionManager im :
+                    ((BasicAIMIntersectionMap) map).getIntersectionManagers()) {
+                if (im instanceof aim4.im.aim.v2i.V2IManager) {
+                    aim4.im.aim.v2i.V2IManager v2i = (aim4.im.aim.v2i.V2IManager) im;
+                    managers.add(new ManagerMetrics(v2i.getId(),
+                            v2i.getMessagesReceived(), v2i.getMessagesTransmitted(),
+                            v2i.getBitsReceived(), v2i.getBitsTransmitted(),
+                            v2i.getRequestStats()));
+                }
+            }
+        } else if (map instanceof BasicRIMIntersectionMap) {
+            for (aim4.im.rim.IntersectionManager im :
+                    ((BasicRIMIntersectionMap) map).getIntersectionManagers()) {
+                if (im instanceof aim4.im.rim.v2i.V2IManager) {
+                    aim4.im.rim.v2i.V2IManager v2i = (aim4.im.rim.v2i.V2IManager) im;
+                    managers.add(new ManagerMetrics(v2i.getId(),
+                            v2i.getMessagesReceived(), v2i.getMessagesTransmitted(),
+                            v2i.getBitsReceived(), v2i.getBitsTransmitted(),
+                            v2i.getRequestStats()));
+                }
+            }
+        }
+        return managers;
+    }
+}
@@ -0,0 +1,321 @@
+package aim4.sim;
+
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.BasicMap;
+import aim4.map.BasicRIMIntersectionMap;
+import aim4.sim.snapshot.StateRecord;
+import aim4.util.RestorableRandom;
+import aim4.util.Util;
+import aim4.vehicle.VehicleSpecDatabase;
+import aim4.vehicle.VinRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * The state that is global to a simulation: the current map, the VIN
+ * registry, the vehicle specifications and the random number generator.
+ * <p>
+ * Code that runs as part of a simulation reaches this state through
+ * {@link #current()}, which returns the context bound to the current thread,
+ * or the default context if none is bound.  A program that runs a single
+ * simulation, such as the GUI, never needs to bind a context.  Several
+ * simulations can run concurrently in one JVM if each of them is created and
+ * stepped in a context of its own:
+ * <pre>
+ *   SimulationContext context = new SimulationContext(seed);
+ *   Simulator sim = simSetup.getSimulator(context);
+ *   sim.step(timeStep);  // the simulator binds its context while stepping
+ * </pre>
+ */
+public class SimulationContext {
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /**
+     * The context used when no context is bound to the current thread.  It
+     * holds the predefined vehicle specifications themselves.
+     */
+    private static final SimulationContext DEFAULT =
+        new SimulationContext(new Random(Util.randSeed),
+                              VehicleSpecDatabase.getPredefinedDatabase());
+
+    /**
+     * The context bound to each thread.
+     */
+    private static final ThreadLocal<SimulationContext> boundContext =
+        new ThreadLocal<SimulationContext>();
+
+    /**
+     * The current AIM map.
+     */
+    private volatile BasicAIMIntersectionMap aimMap;
+
+    /**
+     * The current RIM map.
+     */
+    private volatile BasicRIMIntersectionMap rimMap;
+
+    /**
+     * The directory of the saved maximum turn velocities of the maps.
+     */
+    private volatile File turnTablesDirectory;
+
+    /**
+     * The registry that issues VINs to the vehicles of the simulation.
+     */
+    private final VinRegistry.Registry vinRegistry;
+
+    /**
+     * The vehicle specifications of the simulation.
+     */
+    private final VehicleSpecDatabase.Database vehicleSpecDatabase;
+
+    /**
+     * The random number generator of the simulation.
+     */
+    private final Random random;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a context with an empty VIN registry, the predefined vehicle
+     * specifications and a random number generator with the given seed.
+     *
+     * @param seed  the seed of the random number generator
+     */
+    public SimulationContext(long seed) {
+        this(new RestorableRandom(seed),
+             new VehicleSpecDatabase.Database(
+                 VehicleSpecDatabase.getPredefinedDatabase()));
+    }
+
+    /**
+     * Create a context.
+     *
+     * @param random               the random number generator
+     * @param vehicleSpecDatabase  the vehicle specifications
+     */
+    private SimulationContext(Random random,
+                              VehicleSpecDatabase.Database vehicleSpecDatabase) {
+        this.random = random;
+        this.vehicleSpecDatabase = vehicleSpecDatabase;
+        this.vinRegistry = new VinRegistry.Registry();
+    }
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the context of the simulation that runs on the current thread.
+     *
+     * @return the context bound to the current thread; the default context if
+     *         none is bound
+     */
+    public static SimulationContext current() {
+        SimulationContext context = boundContext.get();
+        return context == null ? DEFAULT : context;
+    }
+
+    /**
+     * Get the default context, which is used when no context is bound to the
+     * current thread.
+     *
+     * @return the default context
+     */
+    public static SimulationContext getDefault() {
+        return DEFAULT;
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Run a task with this context bound to the current thread.  The context
+     * that was bound before is restored afterwards.
+     *
+     * @param task  the task
+     */
+    public void run(Runnable task) {
+        SimulationContext previous = boundContext.get();
+        boundContext.set(this);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Run a task that returns a value with this context bound to the current
+     * thread.  The context that was bound before is restored afterwards.
+     *
+     * @param task  the task
+     * @param <T>   the type of the value
+     * @return the value returned by the task
+     */
+    public <T> T call(Supplier<T> task) {
+        SimulationContext previous = boundContext.get();
+        boundContext.set(this);
+        try {
+            return task.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Get the current AIM map.
+     *
+     * @return the current AIM map; <code>null</code> if there is none
+     */
+    public BasicAIMIntersectionMap getAimMap() {
+        return aimMap;
+    }
+
+    /**
+     * Set the current AIM map.
+     *
+     * @param aimMap  the AIM map
+     */
+    public void setAimMap(BasicAIMIntersectionMap aimMap) {
+        this.aimMap = aimMap;
+    }
+
+    /**
+     * Get the current RIM map.
+     *
+     * @return the current RIM map; <code>null</code> if there is none
+     */
+    public BasicRIMIntersectionMap getRimMap() {
+        return rimMap;
+    }
+
+    /**
+     * Set the current RIM map.
+     *
+     * @param rimMap  the RIM map
+     */
+    public void setRimMap(BasicRIMIntersectionMap rimMap) {
+        this.rimMap = rimMap;
+    }
+
+    /**
+     * Get the directory in which the simulators of this context save the
+     * maximum turn velocities of their maps, and from which they load them.
+     *
+     * @return the directory; <code>null</code> if they are not saved
+     */
+    public File getTurnTablesDirectory() {
+        return turnTablesDirectory;
+    }
+
+    /**
+     * Set the directory in which the simulators of this context save the
+     * maximum turn velocities of their maps.  It must be set before the
+     * simulators are created.
+     *
+     * @param dir  the directory; <code>null</code> if they are not saved
+     */
+    public void setTurnTablesDirectory(File dir) {
+        this.turnTablesDirectory = dir;
+    }
+
+    /**
+     * Get the registry that issues VINs to the vehicles of the simulation.
+     * It is normally used through the static methods of {@link VinRegistry}.
+     *
+     * @return the VIN registry
+     */
+    public VinRegistry.Registry getVinRegistry() {
+        return vinRegistry;
+    }
+
+    /**
+     * Get the vehicle specifications of the simulation.  They are normally
+     * used through the static methods of {@link VehicleSpecDatabase}.
+     *
+     * @return the vehicle specifications
+     */
+    public VehicleSpecDatabase.Database getVehicleSpecDatabase() {
+        return vehicleSpecDatabase;
+    }
+
+    /**
+     * Get the random number generator of the simulation.
+     *
+     * @return the random number generator
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Save the state of this context: the state of the random number
+     * generator and of the VIN registry.
+     *
+     * @param map  the map of the simulation
+     * @return the state of this context
+     * @throws NotSerializableException  if the random number generator does
+     *                                   not support snapshots
+     */
+    public StateRecord saveState(BasicMap map) throws NotSerializableException {
+        if (!(random instanceof RestorableRandom)) {
+            throw new NotSerializableException(random.getClass().getName());
+        }
+        RestorableRandom r = (RestorableRandom) random;
+        StateRecord state = new StateRecord(SimulationContext.class.getName(), 1);
+        state.putLong("random", r.getState());
+        state.putDouble("nextNextGaussian", r.getNextNextGaussian());
+        state.putBoolean("haveNextNextGaussian", r.hasNextNextGaussian());
+        state.putRecord("vinRegistry", vinRegistry.saveState(map));
+        return state;
+    }
+
+    /**
+     * Restore the state of this context.
+     *
+     * @param state  the state saved by {@link #saveState(BasicMap)}
+     * @param map    the map of the simulation
+     * @throws IOException  if the state is not the state of a context, or the
+     *                      random number generator does not support
+     *                      snapshots
+     */
+    public void restoreState(StateRecord state, BasicMap map) throws IOException {
+        state.check(SimulationContext.class.getName(), 1);
+        if (!(random instanceof RestorableRandom)) {
+            throw new NotSerializableException(random.getClass().getName());
+        }
+        ((RestorableRandom) random).setState(state.getLong("random"),
+                                             state.getDouble("nextNextGaussian"),
+                                             state.getBoolean("haveNextNextGaussian"));
+        vinRegistry.restoreState(state.getRecord("vinRegistry"), map);
+        state.checkAllRead();
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Bind a context to the current thread again.
+     *
+     * @param previous  the context bound before; <code>null</code> if none
+     */
+    private static void restore(SimulationContext previous) {
+        if (previous == null) {
+            boundContext.remove();
+        } else {
+            boundContext.set(previous);
+        }
+    }
+}
@@ -31,7 +31,9 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package aim4.sim;
 
 import aim4.map.BasicMap;
+import aim4.sim.results.ResultSink;
 import aim4.sim.results.SimulatorResult;
+import aim4.sim.trace.TraceRecorder;
 import aim4.vehicle.VehicleSimModel;
 
 /**
@@ -106,4 +108,34 @@ public interface Simulator {
      * @return SimulatorResult A results object for this simulator.
      */
     SimulatorResult produceResult();
+
+    /**
+     * Get the timer of the phases of the steps, which records the wall-clock
+     * time spent in each phase of every step.
+     *
+     * @return the timer of the phases of the steps
+     */
+    StepPhaseTimer getStepPhaseTimer();
+
+    /**
+     * Set the sink that receives the result of each vehicle as soon as it
+     * completes.  While a sink is set, the results are not kept in memory,
+     * so they are missing from {@link #produceResult()} and
+     * {@link #produceResultsCSV()}.
+     *
+     * @param resultSink  the sink; null to keep the results in memory
+     * @throws UnsupportedOperationException  if the simulator does not
+     *                                        stream its results
+     */
+    void setResultSink(ResultSink resultSink);
+
+    /**
+     * Set the recorder of the trace of the simulation, which records the
+     * vehicles and the messages at the end of every step.
+     *
+     * @param traceRecorder  the recorder; null to stop recording
+     * @throws UnsupportedOperationException  if the simulator does not
+     *                                        record traces
+     */
+    void setTraceRecorder(TraceRecorder traceRecorder);
 }
@@ -0,0 +1,182 @@
+package aim4.sim;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulates the wall-clock time spent in the phases of the simulation
+ * steps.  A phase is timed with
+ * <pre>
+ *   long start = timer.start();
+ *   ...
+ *   timer.stop("phase", start);
+ * </pre>
+ * Since {@link #stop(String, long)} returns the time at which the phase
+ * stopped, consecutive phases can be timed with
+ * <pre>
+ *   long start = timer.start();
+ *   spawnVehicles(timeStep);
+ *   start = timer.stop(StepPhaseTimer.SPAWN, start);
+ *   provideSensorInput();
+ *   start = timer.stop(StepPhaseTimer.SENSOR, start);
+ * </pre>
+ */
+public class StepPhaseTimer {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The phase in which new vehicles are spawned */
+    public static final String SPAWN = "spawn";
+    /** The phase in which the vehicles are given their sensor input */
+    public static final String SENSOR = "sensor";
+    /** The phase in which the drivers act */
+    public static final String DRIVERS = "drivers";
+    /** The phase in which the intersection and merge managers act */
+    public static final String INTERSECTION_MANAGERS = "intersectionManagers";
+    /** The phase in which the messages are delivered */
+    public static final String COMMUNICATION = "communication";
+    /** The phase in which the vehicles move */
+    public static final String MOVE = "move";
+    /** The phase in which the vehicles are checked for collisions */
+    public static final String COLLISION = "collision";
+    /** The phase in which the completed vehicles are removed */
+    public static final String CLEAN_UP = "cleanUp";
+
+    /////////////////////////////////
+    // NESTED CLASSES
+    /////////////////////////////////
+
+    /**
+     * The times recorded for a phase.
+     */
+    private static class Phase {
+        /** The total time, in nanoseconds */
+        long totalTime;
+        /** The longest time, in nanoseconds */
+        long maxTime;
+        /** The number of times the phase has been timed */
+        int count;
+    }
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /**
+     * The times recorded for each phase, in the order in which the phases
+     * were first timed.
+     */
+    private final Map<String, Phase> phases = new LinkedHashMap<String, Phase>();
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Start timing a phase.
+     *
+     * @return the start time to pass to {@link #stop(String, long)}
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Stop timing a phase and add the elapsed time to its total.
+     *
+     * @param phase      the name of the phase
+     * @param startTime  the time returned by {@link #start()}
+     * @return the stop time, which can be used as the start time of the next
+     *         phase
+     */
+    public long stop(String phase, long startTime) {
+        long stopTime = System.nanoTime();
+        long elapsed = stopTime - startTime;
+        synchronized (this) {
+            Phase p = phases.get(phase);
+            if (p == null) {
+                p = new Phase();
+                phases.put(phase, p);
+            }
+            p.totalTime += elapsed;
+            p.maxTime = Math.max(p.maxTime, elapsed);
+            p.count++;
+        }
+        return stopTime;
+    }
+
+    /**
+     * Get the names of the phases that have been timed.
+     *
+     * @return the names of the phases, in the order in which they were first
+     *         timed
+     */
+    public synchronized List<String> getPhases() {
+        return new ArrayList<String>(phases.keySet());
+    }
+
+    /**
+     * Get the total time spent in a phase.
+     *
+     * @param phase  the name of the phase
+     * @return the total time, in seconds
+     */
+    public synchronized double getTotalTime(String phase) {
+        return getTotalNanos(phase) / 1e9;
+    }
+
+    /**
+     * Get the total time spent in a phase.
+     *
+     * @param phase  the name of the phase
+     * @return the total time, in nanoseconds
+     */
+    public synchronized long getTotalNanos(String phase) {
+        Phase p = phases.get(phase);
+        return p == null ? 0L : p.totalTime;
+    }
+
+    /**
+     * Get the longest time spent in a phase in one step.
+     *
+     * @param phase  the name of the phase
+     * @return the longest time, in seconds
+     */
+    public synchronized double getMaxTime(String phase) {
+        Phase p = phases.get(phase);
+        return p == null ? 0.0 : p.maxTime / 1e9;
+    }
+
+    /**
+     * Get the number of times a phase has been timed.
+     *
+     * @param phase  the name of the phase
+     * @return the number of times the phase has been timed
+     */
+    public synchronized int getCount(String phase) {
+        Phase p = phases.get(phase);
+        return p == null ? 0 : p.count;
+    }
+
+    /**
+     * Get the average time spent in a phase.
+     *
+     * @param phase  the name of the phase
+     * @return the average time, in seconds; 0 if the phase has not been timed
+     */
+    public synchronized double getAverageTime(String phase) {
+        int count = getCount(phase);
+        return count == 0 ? 0.0 : getTotalTime(phase) / count;
+    }
+
+    /**
+     * Forget all the recorded times.
+     */
+    public synchronized void reset() {
+        phases.clear();
+    }
+}
@@ -0,0 +1,41 @@
+package aim4.sim.batch;
+
+import aim4.config.SimConfig;
+import aim4.sim.Simulator;
+
+/**
+ * The simulations performed by each run of a sweep.  The batch runner calls
+ * an experiment from several threads at once, each time in a simulation
+ * context of its own, so an experiment must not keep state between runs.
+ */
+public interface BatchExperiment {
+
+    /**
+     * Get the header of the global statistics produced by each run.
+     *
+     * @return the CSV header
+     */
+    String getGlobalStatsCSVHeader();
+
+    /**
+     * Perform a run.
+     *
+     * @param cell       the run
+     * @param timeLimit  the simulation time after which the run fails if it
+     *                   has not finished
+     * @return the result of the run
+     */
+    BatchRunResult run(SweepCell cell, double timeLimit);
+
+    /**
+     * Step a simulator until it reaches the given simulation time.
+     *
+     * @param sim        the simulator
+     * @param timeLimit  the simulation time
+     */
+    static void stepUntil(Simulator sim, double timeLimit) {
+        while (sim.getSimulationTime() < timeLimit) {
+            sim.step(SimConfig.TIME_STEP);
+        }
+    }
+}
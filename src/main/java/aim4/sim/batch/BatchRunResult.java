@@ -0,0 +1,91 @@
+package aim4.sim.batch;
+
+/**
+ * The result of a run of a sweep.
+ */
+public class BatchRunResult {
+
+    /**
+     * The result of a run that did not finish within the time limit.
+     */
+    private static final BatchRunResult FAILED = new BatchRunResult(null, null);
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /**
+     * The per-vehicle results of the run.
+     */
+    private final String runCSV;
+
+    /**
+     * The global statistics of the run.
+     */
+    private final String globalStatsCSV;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    private BatchRunResult(String runCSV, String globalStatsCSV) {
+        this.runCSV = runCSV;
+        this.globalStatsCSV = globalStatsCSV;
+    }
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the result of a run that finished.
+     *
+     * @param runCSV          the per-vehicle results of the run
+     * @param globalStatsCSV  the global statistics of the run, in the columns
+     *                        of {@link BatchExperiment#getGlobalStatsCSVHeader()}
+     * @return the result
+     */
+    public static BatchRunResult completed(String runCSV, String globalStatsCSV) {
+        return new BatchRunResult(runCSV, globalStatsCSV);
+    }
+
+    /**
+     * Get the result of a run that did not finish within the time limit.
+     *
+     * @return the result
+     */
+    public static BatchRunResult failed() {
+        return FAILED;
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Whether the run finished within the time limit.
+     *
+     * @return whether the run finished
+     */
+    public boolean isCompleted() {
+        return globalStatsCSV != null;
+    }
+
+    /**
+     * Get the per-vehicle results of the run.
+     *
+     * @return the per-vehicle results; <code>null</code> if the run failed
+     */
+    public String getRunCSV() {
+        return runCSV;
+    }
+
+    /**
+     * Get the global statistics of the run.
+     *
+     * @return the global statistics; <code>null</code> if the run failed
+     */
+    public String getGlobalStatsCSV() {
+        return globalStatsCSV;
+    }
+}
@@ -0,0 +1,543 @@
+package aim4.sim.batch;
+
+import aim4.sim.SimulationContext;
+import aim4.vehicle.MaxTurnVelocityTable;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executes the runs of a sweep on a bounded pool of worker threads.  Every
+ * run is simulated in a simulation context of its own.
+ * <p>
+ * The per-vehicle results of each run are written to
+ * <code>&lt;results&gt;/&lt;TEST_TYPE&gt;/&lt;params&gt;/&lt;TEST_TYPE&gt;_&lt;params&gt;_&lt;run&gt;.csv</code>
+ * as soon as the run finishes.  The global statistics of the run are then
+ * appended as a row of <code>&lt;results&gt;/GLOBAL_RESULTS/&lt;TEST_TYPE&gt;.csv</code>,
+ * and once all the repetitions of a point of the grid have finished, a row
+ * holding their means is appended as well.  A row of the global results is
+ * the record that a run is complete: if the runner is started again after a
+ * crash, it skips the runs that already have a row.
+ * <p>
+ * If a directory of turn tables is set, the maximum turn velocities of the
+ * maps of the runs are saved there and loaded from there (see
+ * {@link MaxTurnVelocityTable}).
+ */
+public class BatchRunner {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /**
+     * The directory of the global results, inside the results directory.
+     */
+    public static final String GLOBAL_RESULTS_DIRECTORY = "GLOBAL_RESULTS";
+
+    /**
+     * The value of the run column of the rows holding the means of a point.
+     */
+    public static final String MEAN_ROW_INDICATOR = "MEAN ROW";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /////////////////////////////////
+    // NESTED CLASSES
+    /////////////////////////////////
+
+    /**
+     * The progress of a point of the grid.
+     */
+    private static class PointProgress {
+        /**
+         * The repetitions that have finished, successfully or not.
+         */
+        private final TreeSet<Integer> runs = new TreeSet<Integer>();
+        /**
+         * The global statistics of the repetitions that completed.
+         */
+        private final List<String> globalStats = new ArrayList<String>();
+        /**
+         * Whether the row of the means has been written.
+         */
+        private boolean meanWritten;
+    }
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /**
+     * The sweep.
+     */
+    private final SweepSpec spec;
+
+    /**
+     * The experiment that performs each run.
+     */
+    private final BatchExperiment experiment;
+
+    /**
+     * The results directory.
+     */
+    private final Path resultsDirectory;
+
+    /**
+     * The number of worker threads.
+     */
+    private final int workers;
+
+    /**
+     * The progress of each point of the grid, by parameter columns.
+     */
+    private final Map<String, PointProgress> progress =
+        new HashMap<String, PointProgress>();
+
+    /**
+     * The writer of the global results while the sweep is running.
+     */
+    private BufferedWriter globalResults;
+
+    /**
+     * The directory of the turn tables; null if they are not saved.
+     */
+    private File turnTablesDirectory;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a runner for a sweep with the experiment named by the sweep.
+     *
+     * @param spec              the sweep
+     * @param resultsDirectory  the results directory
+     * @param workers           the number of worker threads
+     */
+    public BatchRunner(SweepSpec spec, File resultsDirectory, int workers) {
+        this(spec, spec.getExperimentType().create(), resultsDirectory, workers);
+    }
+
+    /**
+     * Create a runner for a sweep.
+     *
+     * @param spec              the sweep
+     * @param experiment        the experiment that performs each run
+     * @param resultsDirectory  the results directory
+     * @param workers           the number of worker threads
+     */
+    public BatchRunner(SweepSpec spec, BatchExperiment experiment,
+                       File resultsDirectory, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException(
+                "The number of workers must be positive: " + workers);
+        }
+        this.spec = spec;
+        this.experiment = experiment;
+        this.resultsDirectory = resultsDirectory.toPath();
+        this.workers = workers;
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the file of the global results of the sweep.
+     *
+     * @return the file of the global results
+     */
+    public Path getGlobalResultsFile() {
+        return resultsDirectory.resolve(GLOBAL_RESULTS_DIRECTORY)
+                               .resolve(spec.getTestType() + ".csv");
+    }
+
+    /**
+     * Get the file of the per-vehicle results of a run.
+     *
+     * @param cell  the run
+     * @return the file of the per-vehicle results
+     */
+    public Path getRunResultsFile(SweepCell cell) {
+        return resultsDirectory.resolve(spec.getTestType())
+                               .resolve(cell.getParameterString())
+                               .resolve(cell + ".csv");
+    }
+
+    /**
+     * Get the header of the global results: the parameter names, the run
+     * number and the global statistics of the experiment.
+     *
+     * @return the header of the global results
+     */
+    public String getGlobalResultsHeader() {
+        StringBuilder sb = new StringBuilder();
+        for (String name : spec.getParameterNames()) {
+            sb.append(name);
+            sb.append(',');
+        }
+        sb.append("Run");
+        sb.append(',');
+        sb.append(experiment.getGlobalStatsCSVHeader());
+        return sb.toString();
+    }
+
+    /**
+     * Set the directory the maximum turn velocities of the maps of the runs
+     * are saved to, and loaded from.
+     *
+     * @param dir  the directory; null if they are not saved
+     */
+    public void setTurnTablesDirectory(File dir) {
+        turnTablesDirectory = dir;
+    }
+
+    /**
+     * Execute the runs of the sweep that have not been completed yet.
+     *
+     * @return the number of runs executed
+     * @throws IOException  if the results cannot be read or written
+     * @throws IllegalStateException  if a run throws an exception; the runs
+     *                                completed so far are kept
+     */
+    public int run() throws IOException {
+        progress.clear();
+        Path globalResultsFile = getGlobalResultsFile();
+        Files.createDirectories(globalResultsFile.getParent());
+        if (Files.exists(globalResultsFile)) {
+            readGlobalResults(globalResultsFile);
+        } else {
+            Files.write(globalResultsFile,
+                        Collections.singletonList(getGlobalResultsHeader()), UTF8);
+        }
+
+        List<SweepCell> pending = new ArrayList<SweepCell>();
+        for (SweepCell cell : spec.getCells()) {
+            PointProgress point = progress.get(cell.getParameterColumns());
+            if (point == null || !point.runs.contains(cell.getRun())) {
+                pending.add(cell);
+            }
+        }
+
+        globalResults = Files.newBufferedWriter(globalResultsFile, UTF8,
+                                                StandardOpenOption.APPEND);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            // points whose means were not written before a crash
+            for (Map.Entry<String, PointProgress> entry : progress.entrySet()) {
+                writeMeanRowIfComplete(entry.getKey(), entry.getValue());
+            }
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (final SweepCell cell : pending) {
+                futures.add(executor.submit(() -> {
+                    runCell(cell);
+                    return null;
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    executor.shutdownNow();
+                    throw new IllegalStateException(
+                        "Run " + pending.get(i) + " failed", e.getCause());
+                } catch (InterruptedException e) {
+                    executor.shutdownNow();
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted", e);
+                }
+            }
+        } finally {
+            executor.shutdown();
+            synchronized (this) {
+                globalResults.close();
+                globalResults = null;
+            }
+        }
+        return pending.size();
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Perform a run and record its results.
+     *
+     * @param cell  the run
+     * @throws IOException  if the results cannot be written
+     */
+    private void runCell(final SweepCell cell) throws IOException {
+        SimulationContext context = new SimulationContext(cell.getSeed());
+        context.setTurnTablesDirectory(turnTablesDirectory);
+        BatchRunResult result =
+            context.call(() -> experiment.run(cell, spec.getTimeLimit()));
+        if (result.isCompleted()) {
+            writeAtomically(getRunResultsFile(cell), result.getRunCSV());
+        }
+        recordResult(cell, result.isCompleted()
+            ? result.getGlobalStatsCSV()
+            : "FAILED TO COMPLETE AFTER " + spec.getTimeLimit() + " SECONDS",
+            result.isCompleted());
+    }
+
+    /**
+     * Append the row of a run to the global results, followed by the means of
+     * its point if it is the last repetition of the point to finish.
+     *
+     * @param cell        the run
+     * @param row         the global statistics or the failure message
+     * @param completed   whether the run completed
+     * @throws IOException  if the global results cannot be written
+     */
+    private synchronized void recordResult(SweepCell cell, String row,
+                                           boolean completed)
+            throws IOException {
+        if (globalResults == null) {
+            return;  // the sweep has been aborted
+        }
+        String parameterColumns = cell.getParameterColumns();
+        writeRow(parameterColumns, Integer.toString(cell.getRun()), row);
+        PointProgress point = getProgress(parameterColumns);
+        point.runs.add(cell.getRun());
+        if (completed) {
+            point.globalStats.add(row);
+        }
+        writeMeanRowIfComplete(parameterColumns, point);
+    }
+
+    /**
+     * Append the means of a point to the global results if all its
+     * repetitions have finished and the means have not been written.
+     *
+     * @param parameterColumns  the parameter columns of the point
+     * @param point             the progress of the point
+     * @throws IOException  if the global results cannot be written
+     */
+    private synchronized void writeMeanRowIfComplete(String parameterColumns,
+                                                     PointProgress point)
+            throws IOException {
+        if (point.meanWritten || point.runs.size() < spec.getRepetitions()) {
+            return;
+        }
+        writeRow(parameterColumns, MEAN_ROW_INDICATOR, produceMeanRow(point.globalStats));
+        point.meanWritten = true;
+    }
+
+    /**
+     * Append a row to the global results and flush it.
+     *
+     * @param parameterColumns  the parameter columns
+     * @param run               the run column
+     * @param row               the remaining columns
+     * @throws IOException  if the global results cannot be written
+     */
+    private void writeRow(String parameterColumns, String run, String row)
+            throws IOException {
+        if (!parameterColumns.isEmpty()) {
+            globalResults.write(parameterColumns);
+            globalResults.write(',');
+        }
+        globalResults.write(run);
+        globalResults.write(',');
+        globalResults.write(row);
+        globalResults.newLine();
+        globalResults.flush();
+    }
+
+    /**
+     * Produce the means of the columns of the global statistics.
+     *
+     * @param globalStats  the global statistics of the completed runs
+     * @return the means; a column with no numerical values is left empty
+     */
+    private static String produceMeanRow(List<String> globalStats) {
+        if (globalStats.isEmpty()) {
+            return "All results failed to complete";
+        }
+        List<double[]> totals = new ArrayList<double[]>();  // {sum, count}
+        for (String row : globalStats) {
+            String[] columns = row.split(",", -1);
+            for (int i = 0; i < columns.length; i++) {
+                if (totals.size() <= i) {
+                    totals.add(new double[2]);
+                }
+                try {
+                    totals.get(i)[0] += Double.parseDouble(columns[i]);
+                    totals.get(i)[1]++;
+                } catch (NumberFormatException e) {
+                    // not a number
+                }
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < totals.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            if (totals.get(i)[1] > 0) {
+                sb.append(totals.get(i)[0] / totals.get(i)[1]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Restore the progress of the sweep from its global results.  A partial
+     * last row, left by a crash while it was being written, is removed.
+     *
+     * @param file  the file of the global results
+     * @throws IOException  if the file cannot be read, or was written for a
+     *                      different sweep
+     */
+    private void readGlobalResults(Path file) throws IOException {
+        truncatePartialRow(file);
+        List<String> lines = Files.readAllLines(file, UTF8);
+        if (lines.isEmpty() || !lines.get(0).equals(getGlobalResultsHeader())) {
+            throw new IOException(file + " holds the results of a different sweep");
+        }
+        int parameterCount = spec.getParameterNames().size();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] columns = line.split(",", -1);
+            if (columns.length <= parameterCount) {
+                throw new IOException("Malformed row in " + file + ": " + line);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < parameterCount; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(columns[i]);
+            }
+            PointProgress point = getProgress(sb.toString());
+            String run = columns[parameterCount];
+            String row = line.substring(sb.length() + (parameterCount > 0 ? 1 : 0)
+                                        + run.length() + 1);
+            if (run.equals(MEAN_ROW_INDICATOR)) {
+                point.meanWritten = true;
+            } else {
+                try {
+                    point.runs.add(Integer.parseInt(run));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed row in " + file + ": " + line, e);
+                }
+                if (!row.startsWith("FAILED")) {
+                    point.globalStats.add(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the characters after the last line break of a file.
+     *
+     * @param file  the file
+     * @throws IOException  if the file cannot be read or written
+     */
+    private static void truncatePartialRow(Path file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            long length = raf.length();
+            long end = length;
+            while (end > 0) {
+                raf.seek(end - 1);
+                if (raf.read() == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < length) {
+                raf.setLength(end);
+            }
+        }
+    }
+
+    /**
+     * Get the progress of a point, creating it if necessary.
+     *
+     * @param parameterColumns  the parameter columns of the point
+     * @return the progress of the point
+     */
+    private PointProgress getProgress(String parameterColumns) {
+        PointProgress point = progress.get(parameterColumns);
+        if (point == null) {
+            point = new PointProgress();
+            progress.put(parameterColumns, point);
+        }
+        return point;
+    }
+
+    /**
+     * Write a file so that it either has the whole content or does not
+     * change, even if the program is killed.
+     *
+     * @param file     the file
+     * @param content  the content
+     * @throws IOException  if the file cannot be written
+     */
+    private static void writeAtomically(Path file, String content)
+            throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, Collections.singletonList(content), UTF8);
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /////////////////////////////////
+    // MAIN
+    /////////////////////////////////
+
+    /**
+     * Run a sweep.
+     * <p>
+     * Usage: <code>BatchRunner &lt;sweep.json&gt; [resultsDirectory] [workers] [turnTables]</code>
+     *
+     * @param args  the arguments
+     * @throws IOException  if the sweep or the results cannot be read or
+     *                      written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 4) {
+            System.err.println(
+                "Usage: BatchRunner <sweep.json> [resultsDirectory] [workers] [turnTables]");
+            System.exit(1);
+        }
+        SweepSpec spec = SweepSpec.load(new File(args[0]));
+        File resultsDirectory = new File(args.length > 1 ? args[1] : "results");
+        int workers = args.length > 2
+            ? Integer.parseInt(args[2])
+            : Runtime.getRuntime().availableProcessors();
+        BatchRunner runner = new BatchRunner(spec, resultsDirectory, workers);
+        if (args.length > 3) {
+            runner.setTurnTablesDirectory(new File(args[3]));
+        }
+        int runs = runner.run();
+        System.out.println("Executed " + runs + " runs of " + spec.getTestType()
+                           + "; results in " + runner.getGlobalResultsFile());
+    }
+}
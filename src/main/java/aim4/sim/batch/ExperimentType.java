@@ -0,0 +1,37 @@
+package aim4.sim.batch;
+
+/**
+ * The experiments a sweep can run.
+ */
+public enum ExperimentType {
+    /**
+     * A single-to-single merge with a merge protocol.
+     */
+    S2S_MERGE,
+    /**
+     * An AIM intersection that mimics a merge.
+     */
+    AIM_MERGE_MIMIC,
+    /**
+     * A roundabout with the RIM protocol against the optimal roundabout.
+     */
+    RIM_VS_RIM_OPTIMAL;
+
+    /**
+     * Create the experiment.
+     *
+     * @return the experiment
+     */
+    public BatchExperiment create() {
+        switch (this) {
+            case S2S_MERGE:
+                return new S2SMergeExperiment();
+            case AIM_MERGE_MIMIC:
+                return new MergeMimicExperiment();
+            case RIM_VS_RIM_OPTIMAL:
+                return new RimVsRimOptimalExperiment();
+            default:
+                throw new RuntimeException("Unknown experiment type: " + this);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package aim4.sim.batch;
+
+import aim4.sim.results.MergeResult;
+import aim4.sim.setup.aim.MergeMimicSimSetup;
+import aim4.sim.simulator.aim.AIMSimulator;
+
+/**
+ * Runs an AIM intersection that mimics a merge.  A run fails if some vehicle
+ * has not left the map by the time limit.
+ * <p>
+ * Parameters and settings: <code>speedLimit</code> and <code>leadIn</code>.
+ * Schedules: <code>targetSchedule</code> and <code>mergeSchedule</code>.
+ */
+public class MergeMimicExperiment implements BatchExperiment {
+
+    @Override
+    public String getGlobalStatsCSVHeader() {
+        return MergeResult.produceGlobalStatsCSVHeader();
+    }
+
+    @Override
+    public BatchRunResult run(SweepCell cell, double timeLimit) {
+        MergeMimicSimSetup simSetup = new MergeMimicSimSetup(
+                cell.getSchedule("mergeSchedule"),
+                cell.getSchedule("targetSchedule"),
+                cell.getDouble("speedLimit"),
+                cell.getDouble("leadIn")
+        );
+        AIMSimulator sim = simSetup.getSimulator();
+        BatchExperiment.stepUntil(sim, timeLimit);
+        if (!sim.getActiveVehicles().isEmpty())
+            return BatchRunResult.failed();
+        return BatchRunResult.completed(
+                sim.produceResultsCSV(),
+                sim.produceMergeResult().produceGlobalStatsCSV());
+    }
+}
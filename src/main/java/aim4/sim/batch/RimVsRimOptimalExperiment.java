@@ -0,0 +1,94 @@
+package aim4.sim.batch;
+
+import aim4.sim.results.Result;
+import aim4.sim.setup.rim.AutoDriverOnlySimSetup;
+import aim4.sim.setup.rim.BasicSimSetup;
+import aim4.sim.setup.rim.RIMOptimalSimSetup;
+import aim4.sim.simulator.rim.AutoDriverOnlySimulator;
+import aim4.sim.simulator.rim.RIMOptimalSimulator;
+
+import java.io.File;
+
+/**
+ * Runs a roundabout with the RIM protocol and the optimal roundabout on the
+ * same traffic schedule, both until the time limit, and compares them.  A
+ * run never fails.
+ * <p>
+ * Parameters and settings: <code>roundaboutDiameter</code>,
+ * <code>laneSpeedLimit</code>, <code>roundaboutSpeedLimit</code>,
+ * <code>lanesPerRoad</code> and <code>stopDistance</code>.  Schedule:
+ * <code>trafficSchedule</code>.
+ */
+public class RimVsRimOptimalExperiment implements BatchExperiment {
+
+    private static final String RIM_PROTOCOL = "RIM";
+    private static final String RIM_OPTIMAL_PROTOCOL = "RIM-Optimal";
+    private static final double ENTRANCE_EXIT_RADIUS = 20.0;
+    private static final int SPLIT_FACTOR = 8;
+    private static final double LANE_WIDTH = 3.014;
+    private static final double MEDIAN_SIZE = 1;
+    private static final double DISTANCE_BETWEEN = 150;
+    private static final double TRAFFIC_LEVEL = 0.28;
+
+    @Override
+    public String getGlobalStatsCSVHeader() {
+        return "Average Delay," + Result.produceRIMVsRIMOptimalStatsCSVHeader(
+                RIM_PROTOCOL, RIM_OPTIMAL_PROTOCOL);
+    }
+
+    @Override
+    public BatchRunResult run(SweepCell cell, double timeLimit) {
+        File trafficSchedule = cell.getSchedule("trafficSchedule");
+
+        AutoDriverOnlySimSetup rimSimSetup = new AutoDriverOnlySimSetup(createBasicSimSetup(cell));
+        rimSimSetup.setUploadTrafficSchedule(trafficSchedule);
+        AutoDriverOnlySimulator rimSim = (AutoDriverOnlySimulator) rimSimSetup.getSimulator();
+        BatchExperiment.stepUntil(rimSim, timeLimit);
+        Result rimResult = rimSim.produceResult();
+
+        RIMOptimalSimSetup optimalSimSetup = new RIMOptimalSimSetup(createBasicSimSetup(cell));
+        optimalSimSetup.setUploadTrafficSchedule(trafficSchedule);
+        RIMOptimalSimulator optimalSim = (RIMOptimalSimulator) optimalSimSetup.getSimulator();
+        BatchExperiment.stepUntil(optimalSim, timeLimit);
+        Result optimalResult = optimalSim.produceResult();
+
+        Result combinedResult = new Result(null);
+        String runCSV = combinedResult.produceRIMVsRIMOptimalCSVString(
+                RIM_PROTOCOL,
+                rimResult,
+                rimSim.getNumOfVehiclesWhichCouldNotBeSpawned(),
+                rimSim.getNumOfVehiclesSpawned(),
+                RIM_OPTIMAL_PROTOCOL,
+                optimalResult,
+                optimalSim.getNoOfVehiclesWhichCouldNotBeSpawned(),
+                optimalSim.getNumOfVehiclesSpawned());
+        String globalStatsCSV =
+                Result.calculateAverageDelay(rimResult.getVehicleResults(), rimResult, optimalResult)
+                + ',' + combinedResult.produceRIMVsRIMOptimalGlobalStatsCSV(
+                        rimResult,
+                        rimSim.getNumOfVehiclesWhichCouldNotBeSpawned(),
+                        rimSim.getNumOfVehiclesSpawned(),
+                        optimalResult,
+                        optimalSim.getNoOfVehiclesWhichCouldNotBeSpawned(),
+                        optimalSim.getNumOfVehiclesSpawned());
+        return BatchRunResult.completed(runCSV, globalStatsCSV);
+    }
+
+    private BasicSimSetup createBasicSimSetup(SweepCell cell) {
+        return new BasicSimSetup(
+                1, // columns
+                1, // rows
+                cell.getDouble("roundaboutDiameter"),
+                ENTRANCE_EXIT_RADIUS,
+                SPLIT_FACTOR,
+                LANE_WIDTH,
+                cell.getDouble("laneSpeedLimit"),
+                cell.getDouble("roundaboutSpeedLimit"),
+                (int) cell.getDouble("lanesPerRoad"),
+                MEDIAN_SIZE,
+                DISTANCE_BETWEEN,
+                TRAFFIC_LEVEL,
+                cell.getDouble("stopDistance")
+        );
+    }
+}
@@ -0,0 +1,48 @@
+package aim4.sim.batch;
+
+import aim4.sim.results.CoreMergeResult;
+import aim4.sim.setup.merge.S2SSimSetup;
+import aim4.sim.setup.merge.enums.ProtocolType;
+import aim4.sim.simulator.merge.MergeSimulator;
+
+/**
+ * Runs a single-to-single merge.  A run fails if some vehicle has not left
+ * the map by the time limit.
+ * <p>
+ * Parameters and settings: <code>protocol</code>, <code>trafficRate</code>
+ * (vehicles per hour), <code>targetSpeedLimit</code>,
+ * <code>mergeSpeedLimit</code>, <code>targetLeadIn</code>,
+ * <code>targetLeadOut</code>, <code>mergeLeadIn</code> and
+ * <code>mergeAngle</code>.  Schedules: <code>targetSchedule</code> and
+ * <code>mergeSchedule</code>.
+ */
+public class S2SMergeExperiment implements BatchExperiment {
+
+    @Override
+    public String getGlobalStatsCSVHeader() {
+        return CoreMergeResult.produceGlobalStatsCSVHeader();
+    }
+
+    @Override
+    public BatchRunResult run(SweepCell cell, double timeLimit) {
+        S2SSimSetup simSetup = new S2SSimSetup(
+                ProtocolType.valueOf(cell.getString("protocol")),
+                cell.getDouble("trafficRate") / 3600,
+                cell.getDouble("targetSpeedLimit"),
+                cell.getDouble("mergeSpeedLimit"),
+                cell.getDouble("targetLeadIn"),
+                cell.getDouble("targetLeadOut"),
+                cell.getDouble("mergeLeadIn"),
+                cell.getDouble("mergeAngle"),
+                cell.getSchedule("targetSchedule"),
+                cell.getSchedule("mergeSchedule")
+        );
+        MergeSimulator sim = simSetup.getSimulator();
+        BatchExperiment.stepUntil(sim, timeLimit);
+        if (!sim.getVinToVehicles().isEmpty())
+            return BatchRunResult.failed();
+        return BatchRunResult.completed(
+                sim.produceResultsCSV(),
+                sim.produceMergeResult().produceGlobalStatsCSV());
+    }
+}
@@ -0,0 +1,192 @@
+package aim4.sim.batch;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * A single run of a sweep: a point of the parameter grid and a repetition
+ * number.
+ */
+public class SweepCell {
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /**
+     * The sweep this run belongs to.
+     */
+    private final SweepSpec spec;
+
+    /**
+     * The values of the parameters, in the order of the sweep.
+     */
+    private final double[] point;
+
+    /**
+     * The repetition number, starting from 1.
+     */
+    private final int run;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a run of a sweep.
+     *
+     * @param spec   the sweep
+     * @param point  the values of the parameters
+     * @param run    the repetition number, starting from 1
+     */
+    SweepCell(SweepSpec spec, double[] point, int run) {
+        this.spec = spec;
+        this.point = point;
+        this.run = run;
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the repetition number.
+     *
+     * @return the repetition number, starting from 1
+     */
+    public int getRun() {
+        return run;
+    }
+
+    /**
+     * Get the values of the parameters, in the order of the sweep.
+     *
+     * @return the values of the parameters
+     */
+    public double[] getPoint() {
+        return point.clone();
+    }
+
+    /**
+     * Get the values of the parameters joined by underscores, e.g.
+     * <code>100_150</code>.  It names the results directory of the point.
+     *
+     * @return the parameter string
+     */
+    public String getParameterString() {
+        return join(point, "_");
+    }
+
+    /**
+     * Get the values of the parameters joined by commas.
+     *
+     * @return the parameter columns of a CSV row
+     */
+    public String getParameterColumns() {
+        return join(point, ",");
+    }
+
+    /**
+     * Get the seed of the simulation of this run.  It depends only on the
+     * seed of the sweep, the parameter values and the repetition number, so
+     * a run that is repeated after a crash is the same run.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return spec.getSeed() * 31 + (getParameterString() + "#" + run).hashCode();
+    }
+
+    /**
+     * Get the value of a parameter or of a numerical setting.
+     *
+     * @param name  the name of the parameter or setting
+     * @return the value
+     * @throws IllegalArgumentException  if there is no such parameter or
+     *                                   setting
+     */
+    public double getDouble(String name) {
+        return Double.parseDouble(getString(name));
+    }
+
+    /**
+     * Get the value of a parameter or of a setting as a string.
+     *
+     * @param name  the name of the parameter or setting
+     * @return the value
+     * @throws IllegalArgumentException  if there is no such parameter or
+     *                                   setting
+     */
+    public String getString(String name) {
+        List<String> names = spec.getParameterNames();
+        int i = names.indexOf(name);
+        if (i >= 0) {
+            return SweepSpec.formatValue(point[i]);
+        }
+        String value = spec.getSettings().get(name);
+        if (value == null) {
+            throw new IllegalArgumentException(
+                "Sweep " + spec.getTestType() + " has no parameter or setting "
+                + name);
+        }
+        return value;
+    }
+
+    /**
+     * Get a spawn schedule of this run.
+     *
+     * @param name  the name of the schedule template
+     * @return the schedule file
+     * @throws IllegalArgumentException  if there is no such template, or the
+     *                                   template refers to an unknown name
+     */
+    public File getSchedule(String name) {
+        String template = spec.getSchedules().get(name);
+        if (template == null) {
+            throw new IllegalArgumentException(
+                "Sweep " + spec.getTestType() + " has no schedule " + name);
+        }
+        StringBuilder sb = new StringBuilder();
+        int from = 0;
+        int start;
+        while ((start = template.indexOf("${", from)) >= 0) {
+            int end = template.indexOf('}', start);
+            if (end < 0) {
+                break;
+            }
+            String key = template.substring(start + 2, end);
+            sb.append(template, from, start);
+            sb.append(key.equals("run") ? Integer.toString(run) : getString(key));
+            from = end + 1;
+        }
+        sb.append(template.substring(from));
+        return new File(sb.toString());
+    }
+
+    @Override
+    public String toString() {
+        return spec.getTestType() + "_" + getParameterString() + "_" + run;
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Join values formatted as in file names.
+     *
+     * @param values     the values
+     * @param separator  the separator
+     * @return the joined values
+     */
+    private static String join(double[] values, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            sb.append(SweepSpec.formatValue(values[i]));
+        }
+        return sb.toString();
+    }
+}
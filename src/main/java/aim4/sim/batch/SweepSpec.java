@@ -0,0 +1,357 @@
+package aim4.sim.batch;
+
+import aim4.util.Util;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A declarative description of a batch of simulation runs: a grid of
+ * parameter values, the number of repetitions of every point of the grid,
+ * the settings shared by all runs and the spawn schedules of each run.
+ * <p>
+ * A sweep is normally loaded from a JSON file such as
+ * <pre>
+ * {
+ *   "testType": "SPEED_LIMIT",
+ *   "experiment": "S2S_MERGE",
+ *   "repetitions": 20,
+ *   "timeLimit": 5000,
+ *   "parameters": [
+ *     {"name": "mergeSpeedLimit", "values": [10, 20, 30, 40]},
+ *     {"name": "targetSpeedLimit", "values": [10, 20, 30, 40]}
+ *   ],
+ *   "settings": {"protocol": "QUEUE", "trafficRate": 1000},
+ *   "schedules": {
+ *     "targetSchedule": "schedules/speedLimit/T_${targetSpeedLimit}_${run}.json",
+ *     "mergeSchedule": "schedules/speedLimit/M_${mergeSpeedLimit}_${run}.json"
+ *   }
+ * }
+ * </pre>
+ * The schedule templates may refer to any parameter or setting, and to the
+ * repetition number as <code>${run}</code>.  The optional <code>seed</code>
+ * is the seed from which the seed of every run is derived.
+ */
+public class SweepSpec {
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /**
+     * The name of the test, which names the results directories.
+     */
+    private final String testType;
+
+    /**
+     * The experiment that performs each run.
+     */
+    private final ExperimentType experimentType;
+
+    /**
+     * The number of runs of each point of the grid.
+     */
+    private final int repetitions;
+
+    /**
+     * The simulation time after which a run that has not finished fails.
+     */
+    private final double timeLimit;
+
+    /**
+     * The seed from which the seed of every run is derived.
+     */
+    private final long seed;
+
+    /**
+     * The values of each parameter of the grid, in order.
+     */
+    private final Map<String, double[]> parameters;
+
+    /**
+     * The settings shared by all runs.
+     */
+    private final Map<String, String> settings;
+
+    /**
+     * The templates of the schedule files of each run.
+     */
+    private final Map<String, String> schedules;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a sweep specification.
+     *
+     * @param testType        the name of the test
+     * @param experimentType  the experiment that performs each run
+     * @param repetitions     the number of runs of each point of the grid
+     * @param timeLimit       the simulation time after which a run that has
+     *                        not finished fails
+     * @param seed            the seed from which the seed of every run is
+     *                        derived
+     * @param parameters      the values of each parameter of the grid, in
+     *                        order
+     * @param settings        the settings shared by all runs
+     * @param schedules       the templates of the schedule files
+     */
+    public SweepSpec(String testType, ExperimentType experimentType,
+                     int repetitions, double timeLimit, long seed,
+                     Map<String, double[]> parameters,
+                     Map<String, String> settings,
+                     Map<String, String> schedules) {
+        if (repetitions < 1) {
+            throw new IllegalArgumentException(
+                "The number of repetitions must be positive: " + repetitions);
+        }
+        for (Map.Entry<String, double[]> entry : parameters.entrySet()) {
+            if (entry.getValue().length == 0) {
+                throw new IllegalArgumentException(
+                    "Parameter " + entry.getKey() + " has no values");
+            }
+        }
+        this.testType = testType;
+        this.experimentType = experimentType;
+        this.repetitions = repetitions;
+        this.timeLimit = timeLimit;
+        this.seed = seed;
+        this.parameters = Collections.unmodifiableMap(
+            new LinkedHashMap<String, double[]>(parameters));
+        this.settings = Collections.unmodifiableMap(
+            new LinkedHashMap<String, String>(settings));
+        this.schedules = Collections.unmodifiableMap(
+            new LinkedHashMap<String, String>(schedules));
+    }
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Load a sweep specification from a JSON file.
+     *
+     * @param file  the JSON file
+     * @return the sweep specification
+     * @throws IOException  if the file cannot be read or is malformed
+     */
+    public static SweepSpec load(File file) throws IOException {
+        try (Reader reader = new FileReader(file)) {
+            return fromJSON((JSONObject) new JSONParser().parse(reader));
+        } catch (ParseException | ClassCastException | IllegalArgumentException e) {
+            throw new IOException("Malformed sweep specification " + file, e);
+        }
+    }
+
+    /**
+     * Create a sweep specification from its JSON representation.
+     *
+     * @param json  the JSON representation
+     * @return the sweep specification
+     */
+    public static SweepSpec fromJSON(JSONObject json) {
+        Map<String, double[]> parameters = new LinkedHashMap<String, double[]>();
+        JSONArray jsonParameters = (JSONArray) json.get("parameters");
+        if (jsonParameters != null) {
+            for (Object o : jsonParameters) {
+                JSONObject parameter = (JSONObject) o;
+                JSONArray jsonValues = (JSONArray) parameter.get("values");
+                double[] values = new double[jsonValues.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = ((Number) jsonValues.get(i)).doubleValue();
+                }
+                parameters.put((String) required(parameter, "name"), values);
+            }
+        }
+        Object seed = json.get("seed");
+        return new SweepSpec(
+            (String) required(json, "testType"),
+            ExperimentType.valueOf((String) required(json, "experiment")),
+            ((Number) required(json, "repetitions")).intValue(),
+            ((Number) required(json, "timeLimit")).doubleValue(),
+            seed == null ? Util.randSeed : ((Number) seed).longValue(),
+            parameters,
+            toStringMap((JSONObject) json.get("settings")),
+            toStringMap((JSONObject) json.get("schedules")));
+    }
+
+    /**
+     * Format a parameter value the way it appears in file names: without a
+     * fractional part if it is a whole number.
+     *
+     * @param value  the value
+     * @return the formatted value
+     */
+    public static String formatValue(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the name of the test.
+     *
+     * @return the name of the test
+     */
+    public String getTestType() {
+        return testType;
+    }
+
+    /**
+     * Get the experiment that performs each run.
+     *
+     * @return the experiment type
+     */
+    public ExperimentType getExperimentType() {
+        return experimentType;
+    }
+
+    /**
+     * Get the number of runs of each point of the grid.
+     *
+     * @return the number of repetitions
+     */
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    /**
+     * Get the simulation time after which a run that has not finished fails.
+     *
+     * @return the time limit
+     */
+    public double getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Get the seed from which the seed of every run is derived.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the names of the parameters of the grid, in order.
+     *
+     * @return the names of the parameters
+     */
+    public List<String> getParameterNames() {
+        return new ArrayList<String>(parameters.keySet());
+    }
+
+    /**
+     * Get the settings shared by all runs.
+     *
+     * @return the settings
+     */
+    public Map<String, String> getSettings() {
+        return settings;
+    }
+
+    /**
+     * Get the templates of the schedule files of each run.
+     *
+     * @return the schedule templates
+     */
+    public Map<String, String> getSchedules() {
+        return schedules;
+    }
+
+    /**
+     * Get the points of the grid.  The last parameter varies fastest.
+     *
+     * @return the values of the parameters at each point of the grid
+     */
+    public List<double[]> getPoints() {
+        List<double[]> points = new ArrayList<double[]>();
+        points.add(new double[0]);
+        for (double[] values : parameters.values()) {
+            List<double[]> extended = new ArrayList<double[]>();
+            for (double[] point : points) {
+                for (double value : values) {
+                    double[] p = new double[point.length + 1];
+                    System.arraycopy(point, 0, p, 0, point.length);
+                    p[point.length] = value;
+                    extended.add(p);
+                }
+            }
+            points = extended;
+        }
+        return points;
+    }
+
+    /**
+     * Get all the runs of the sweep, ordered by grid point and then by
+     * repetition.
+     *
+     * @return the runs of the sweep
+     */
+    public List<SweepCell> getCells() {
+        List<SweepCell> cells = new ArrayList<SweepCell>();
+        for (double[] point : getPoints()) {
+            for (int run = 1; run <= repetitions; run++) {
+                cells.add(new SweepCell(this, point, run));
+            }
+        }
+        return cells;
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Get a required field of a JSON object.
+     *
+     * @param json  the JSON object
+     * @param key   the name of the field
+     * @return the value of the field
+     */
+    private static Object required(JSONObject json, String key) {
+        Object value = json.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field " + key);
+        }
+        return value;
+    }
+
+    /**
+     * Convert a JSON object whose values are strings or numbers to a map of
+     * strings.
+     *
+     * @param json  the JSON object; may be <code>null</code>
+     * @return the map
+     */
+    private static Map<String, String> toStringMap(JSONObject json) {
+        Map<String, String> map = new LinkedHashMap<String, String>();
+        if (json != null) {
+            for (Object key : json.keySet()) {
+                Object value = json.get(key);
+                map.put((String) key, value instanceof Number
+                    ? formatValue(((Number) value).doubleValue())
+                    : (String) value);
+            }
+        }
+        return map;
+    }
+}
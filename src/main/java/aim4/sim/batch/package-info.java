@@ -0,0 +1,5 @@
+/**
+ * This package contains the batch runner, which executes sweeps of
+ * simulation runs in parallel and collects their results.
+ */
+package aim4.sim.batch;
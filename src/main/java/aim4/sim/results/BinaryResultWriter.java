@@ -0,0 +1,255 @@
+package aim4.sim.results;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A result sink that writes the results to a compact columnar binary file.
+ * The results are buffered in blocks of {@value #BLOCK_SIZE} vehicles, and
+ * each block is written column by column, so a block never takes more than
+ * a fixed amount of memory.  The file is gzipped if its name ends with
+ * {@value ResultSinks#GZIP_EXTENSION}.
+ * <p>
+ * The file starts with a magic number and the version of the format.  Each
+ * block is made of the number of vehicles in it, the names (of vehicle
+ * specifications and roads) first used in it, and the columns.  Names are
+ * numbered in the order they are first used.  The file ends with an empty
+ * block.
+ */
+public class BinaryResultWriter implements ResultSink {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The extension of binary result files */
+    public static final String EXTENSION = ".bin";
+
+    /** The number of vehicles in a block */
+    public static final int BLOCK_SIZE = 4096;
+
+    /** The first four bytes of a binary result file: "AVRS" */
+    private static final int MAGIC = 0x41565253;
+
+    /** The version of the binary format */
+    private static final int VERSION = 1;
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The output stream of the file */
+    private final DataOutputStream out;
+    /** The IDs of the names written so far */
+    private final Map<String, Integer> nameIds = new HashMap<String, Integer>();
+    /** The names first used in the current block */
+    private final List<String> newNames = new ArrayList<String>();
+    /** The number of vehicles in the current block */
+    private int size;
+
+    // the columns of the current block
+    private final int[] vins = new int[BLOCK_SIZE];
+    private final int[] specIds = new int[BLOCK_SIZE];
+    private final int[] roadIds = new int[BLOCK_SIZE];
+    private final double[] startTimes = new double[BLOCK_SIZE];
+    private final double[] finishTimes = new double[BLOCK_SIZE];
+    private final double[] delays = new double[BLOCK_SIZE];
+    private final double[] finalVelocities = new double[BLOCK_SIZE];
+    private final double[] maxVelocities = new double[BLOCK_SIZE];
+    private final double[] minVelocities = new double[BLOCK_SIZE];
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a writer of a binary result file.
+     *
+     * @param file  the file, which is created or truncated
+     * @throws IOException  if the file cannot be opened
+     */
+    public BinaryResultWriter(File file) throws IOException {
+        out = new DataOutputStream(ResultSinks.openOutput(file));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+    }
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Read the results of a binary result file.  The results with a
+     * starting road or a delay are read as {@link MergeVehicleResult}s
+     * whose final positions are NaN.
+     *
+     * @param file  the file
+     * @return the results, in the order they were written
+     * @throws IOException  if the file cannot be read or is not a binary
+     *                      result file
+     */
+    public static List<VehicleResult> read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(ResultSinks.openInput(file));
+        try {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Not a binary result file: " + file);
+            }
+            List<String> names = new ArrayList<String>();
+            List<VehicleResult> results = new ArrayList<VehicleResult>();
+            for (int n = in.readInt(); n > 0; n = in.readInt()) {
+                for (int i = in.readShort(); i > 0; i--) {
+                    names.add(in.readUTF());
+                }
+                int[] vins = readInts(in, n);
+                int[] specIds = readInts(in, n);
+                int[] roadIds = readInts(in, n);
+                double[] startTimes = readDoubles(in, n);
+                double[] finishTimes = readDoubles(in, n);
+                double[] delays = readDoubles(in, n);
+                double[] finalVelocities = readDoubles(in, n);
+                double[] maxVelocities = readDoubles(in, n);
+                double[] minVelocities = readDoubles(in, n);
+                for (int i = 0; i < n; i++) {
+                    String spec = names.get(specIds[i]);
+                    if (roadIds[i] < 0 && Double.isNaN(delays[i])) {
+                        results.add(new VehicleResult(vins[i], spec,
+                            startTimes[i], finishTimes[i], finalVelocities[i],
+                            maxVelocities[i], minVelocities[i]));
+                    } else {
+                        results.add(new MergeVehicleResult(vins[i],
+                            roadIds[i] < 0 ? null : names.get(roadIds[i]), spec,
+                            startTimes[i], finishTimes[i], delays[i],
+                            finalVelocities[i], maxVelocities[i],
+                            minVelocities[i], Double.NaN, Double.NaN));
+                    }
+                }
+            }
+            return results;
+        } finally {
+            in.close();
+        }
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void vehicleCompleted(VehicleResult result) {
+        vins[size] = result.getVin();
+        specIds[size] = nameId(result.getSpecType());
+        roadIds[size] = result.getStartingRoad() == null
+                        ? -1 : nameId(result.getStartingRoad());
+        startTimes[size] = result.getStartTime();
+        finishTimes[size] = result.getFinishTime();
+        delays[size] = result.getDelayTime();
+        finalVelocities[size] = result.getFinalVelocity();
+        maxVelocities[size] = result.getMaxVelocity();
+        minVelocities[size] = result.getMinVelocity();
+        size++;
+        if (size == BLOCK_SIZE) {
+            try {
+                writeBlock();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (size > 0) {
+                writeBlock();
+            }
+            out.writeInt(0);
+        } finally {
+            out.close();
+        }
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the ID of a name, numbering it if it is new.
+     *
+     * @param name  the name
+     * @return the ID of the name
+     */
+    private int nameId(String name) {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = nameIds.size();
+            nameIds.put(name, id);
+            newNames.add(name);
+        }
+        return id;
+    }
+
+    /**
+     * Write the current block and empty it.
+     *
+     * @throws IOException  if the block cannot be written
+     */
+    private void writeBlock() throws IOException {
+        out.writeInt(size);
+        out.writeShort(newNames.size());
+        for (String name : newNames) {
+            out.writeUTF(name);
+        }
+        newNames.clear();
+        writeInts(vins);
+        writeInts(specIds);
+        writeInts(roadIds);
+        writeDoubles(startTimes);
+        writeDoubles(finishTimes);
+        writeDoubles(delays);
+        writeDoubles(finalVelocities);
+        writeDoubles(maxVelocities);
+        writeDoubles(minVelocities);
+        size = 0;
+    }
+
+    private void writeInts(int[] column) throws IOException {
+        for (int i = 0; i < size; i++) {
+            out.writeInt(column[i]);
+        }
+    }
+
+    private void writeDoubles(double[] column) throws IOException {
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(column[i]);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in, int n) throws IOException {
+        int[] column = new int[n];
+        for (int i = 0; i < n; i++) {
+            column[i] = in.readInt();
+        }
+        return column;
+    }
+
+    private static double[] readDoubles(DataInputStream in, int n) throws IOException {
+        double[] column = new double[n];
+        for (int i = 0; i < n; i++) {
+            column[i] = in.readDouble();
+        }
+        return column;
+    }
+}
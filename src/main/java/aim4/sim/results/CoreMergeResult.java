@@ -53,7 +53,7 @@ public class CoreMergeResult implements SimulatorResult {
 
         for(CoreMergeVehicleResult result : vehicleResults) {
             //Split Vehicles
-            if(result.getStartingRoad() == RoadNames.TARGET_ROAD.toString()) {
+            if(RoadNames.TARGET_ROAD.toString().equals(result.getStartingRoad())) {
                 targetVehicleResults.add(result);
                 //Completed Vehicles
                 this.completedTargetVehicles++;
@@ -68,7 +68,7 @@ public class CoreMergeResult implements SimulatorResult {
                 totalTargetDelay += result.getDelayTime();
 
             }
-            else if(result.getStartingRoad() == RoadNames.MERGING_ROAD.toString()) {
+            else if(RoadNames.MERGING_ROAD.toString().equals(result.getStartingRoad())) {
                 mergeVehicleResults.add(result);
                 //Completed Vehicles
                 this.completedMergeVehicles++;
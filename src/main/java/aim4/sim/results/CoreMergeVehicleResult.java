@@ -1,71 +1,36 @@
 package aim4.sim.results;
 
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+
 /**
  * Created by Callum on 21/04/2017.
  */ //Nested Class
-public class CoreMergeVehicleResult {
-    private int vin;
+public class CoreMergeVehicleResult extends VehicleResult {
     private String startingRoad;
-    private String specType;
-    private double startTime;
-    private double finishTime;
     private double delayTime;
-    private double finalVelocity;
-    private double maxVelocity;
-    private double minVelocity;
     private double finalXPos;
     private double finalYPos;
 
     public CoreMergeVehicleResult(int vin, String startingRoad, String specType, double startTime, double finishTime, double delayTime, double finalVelocity, double maxVelocity, double minVelocity, double finalXPos, double finalYPos) {
-        this.vin = vin;
+        super(vin, specType, startTime, finishTime, finalVelocity, maxVelocity, minVelocity);
         this.startingRoad = startingRoad;
-        this.specType = specType;
-        this.startTime = startTime;
-        this.finishTime = finishTime;
         this.delayTime = delayTime;
-        this.finalVelocity = finalVelocity;
-        this.maxVelocity = maxVelocity;
-        this.minVelocity = minVelocity;
         this.finalXPos = finalXPos;
         this.finalYPos = finalYPos;
     }
 
-    public int getVin() {
-        return vin;
-    }
-
+    @Override
     public String getStartingRoad() {
         return startingRoad;
     }
 
-    public String getSpecType() {
-        return specType;
-    }
-
-    public double getStartTime() {
-        return startTime;
-    }
-
-    public double getFinishTime() {
-        return finishTime;
-    }
-
+    @Override
     public double getDelayTime() {
         return delayTime;
     }
 
-    public double getFinalVelocity() {
-        return finalVelocity;
-    }
-
-    public double getMaxVelocity() {
-        return maxVelocity;
-    }
-
-    public double getMinVelocity() {
-        return minVelocity;
-    }
-
     public double getFinalXPos() {
         return finalXPos;
     }
@@ -73,4 +38,46 @@ public class CoreMergeVehicleResult {
     public double getFinalYPos() {
         return finalYPos;
     }
+
+    @Override
+    public StateRecord toState() {
+        StateRecord state = new StateRecord(CoreMergeVehicleResult.class.getName(), 1);
+        state.putInt("vin", getVin());
+        state.putString("startingRoad", startingRoad);
+        state.putString("specType", getSpecType());
+        state.putDouble("startTime", getStartTime());
+        state.putDouble("finishTime", getFinishTime());
+        state.putDouble("delayTime", delayTime);
+        state.putDouble("finalVelocity", getFinalVelocity());
+        state.putDouble("maxVelocity", getMaxVelocity());
+        state.putDouble("minVelocity", getMinVelocity());
+        state.putDouble("finalXPos", finalXPos);
+        state.putDouble("finalYPos", finalYPos);
+        return state;
+    }
+
+    /**
+     * Restore a result saved by {@link #toState()}.
+     *
+     * @param state  the state of the result
+     * @return the result
+     * @throws IOException  if the state is not the state of a result
+     */
+    public static CoreMergeVehicleResult fromState(StateRecord state) throws IOException {
+        state.check(CoreMergeVehicleResult.class.getName(), 1);
+        CoreMergeVehicleResult result = new CoreMergeVehicleResult(
+                state.getInt("vin"),
+                state.getString("startingRoad"),
+                state.getString("specType"),
+                state.getDouble("startTime"),
+                state.getDouble("finishTime"),
+                state.getDouble("delayTime"),
+                state.getDouble("finalVelocity"),
+                state.getDouble("maxVelocity"),
+                state.getDouble("minVelocity"),
+                state.getDouble("finalXPos"),
+                state.getDouble("finalYPos"));
+        state.checkAllRead();
+        return result;
+    }
 }
@@ -0,0 +1,100 @@
+package aim4.sim.results;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * A result sink that appends a CSV row to a file for each completed
+ * vehicle.  The file is gzipped if its name ends with
+ * {@value ResultSinks#GZIP_EXTENSION}.  The starting road and the delay are
+ * left empty for the simulators that do not record them.
+ */
+public class CsvResultWriter implements ResultSink {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The header of the CSV file */
+    public static final String HEADER = "VIN,Starting Road,Vehicle Spec,"
+        + "Start Time,Finish Time,Delay,Final Velocity,Max Velocity,Min Velocity";
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The writer of the file */
+    private final Writer out;
+    /** The buffer of a row */
+    private final StringBuilder row = new StringBuilder();
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a writer of a CSV file and write the header.
+     *
+     * @param file  the file, which is created or truncated
+     * @throws IOException  if the file cannot be opened
+     */
+    public CsvResultWriter(File file) throws IOException {
+        out = new BufferedWriter(new OutputStreamWriter(
+            ResultSinks.openOutput(file), Charset.forName("UTF-8")),
+            ResultSinks.BUFFER_SIZE);
+        out.write(HEADER);
+        out.write('\n');
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void vehicleCompleted(VehicleResult result) {
+        row.setLength(0);
+        row.append(result.getVin());
+        row.append(',');
+        if (result.getStartingRoad() != null) {
+            row.append(result.getStartingRoad());
+        }
+        row.append(',');
+        row.append(result.getSpecType());
+        row.append(',');
+        row.append(result.getStartTime());
+        row.append(',');
+        row.append(result.getFinishTime());
+        row.append(',');
+        if (!Double.isNaN(result.getDelayTime())) {
+            row.append(result.getDelayTime());
+        }
+        row.append(',');
+        row.append(result.getFinalVelocity());
+        row.append(',');
+        row.append(result.getMaxVelocity());
+        row.append(',');
+        row.append(result.getMinVelocity());
+        row.append('\n');
+        try {
+            out.append(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
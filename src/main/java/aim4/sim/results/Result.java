@@ -116,7 +116,16 @@ public class Result implements SimulatorResult{
         return sb.toString();
     }
 
-    private static String calculateAverageDelay(List<VehicleResult> vehicleResults, Result firstProtocolResult, Result secondProtocolResult) {
+    /**
+     * Calculate the mean difference in finish time between the vehicles of
+     * two protocols that were spawned at the same time.
+     *
+     * @param vehicleResults         the vehicles to compare
+     * @param firstProtocolResult    the result of the first protocol
+     * @param secondProtocolResult   the result of the second protocol
+     * @return the mean delay of the first protocol over the second one
+     */
+    public static String calculateAverageDelay(List<VehicleResult> vehicleResults, Result firstProtocolResult, Result secondProtocolResult) {
         double sum = 0.0;
         int count = 0;
         for (VehicleResult vr : vehicleResults) {
@@ -0,0 +1,22 @@
+package aim4.sim.results;
+
+import java.io.Closeable;
+
+/**
+ * A destination for the results of the vehicles, which receives each result
+ * as soon as the vehicle completes.  Unlike the lists of results behind
+ * {@link SimulatorResult}, a sink does not need to keep the results in
+ * memory, so a long simulation can write its results as it goes.
+ * <p>
+ * Sinks are called from the simulation thread.  A sink that fails to write
+ * throws an {@link java.io.UncheckedIOException}.
+ */
+public interface ResultSink extends Closeable {
+
+    /**
+     * Receive the result of a completed vehicle.
+     *
+     * @param result  the result of the vehicle
+     */
+    void vehicleCompleted(VehicleResult result);
+}
@@ -0,0 +1,104 @@
+package aim4.sim.results;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Factory methods of the result sinks that write to files.
+ */
+public final class ResultSinks {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The extension of gzipped files */
+    public static final String GZIP_EXTENSION = ".gz";
+
+    /** The size of the buffers of the files, in bytes */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /** This class should never be instantiated. */
+    private ResultSinks() {}
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Open a sink that writes the results to a file, in the format given by
+     * the name of the file: CSV for <code>.csv</code> and
+     * {@link BinaryResultWriter binary} for <code>.bin</code>, either of
+     * which may be followed by {@value #GZIP_EXTENSION} to gzip the file.
+     *
+     * @param file  the file
+     * @return the sink
+     * @throws IOException  if the file cannot be opened
+     */
+    public static ResultSink open(File file) throws IOException {
+        String name = file.getName();
+        if (name.endsWith(GZIP_EXTENSION)) {
+            name = name.substring(0, name.length() - GZIP_EXTENSION.length());
+        }
+        if (name.endsWith(".csv")) {
+            return new CsvResultWriter(file);
+        } else if (name.endsWith(BinaryResultWriter.EXTENSION)) {
+            return new BinaryResultWriter(file);
+        } else {
+            throw new IllegalArgumentException(
+                "Unknown format of results file: " + file);
+        }
+    }
+
+    /////////////////////////////////
+    // PACKAGE STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Open a buffered stream to a file through a file channel, gzipped if
+     * the name of the file ends with {@value #GZIP_EXTENSION}.
+     *
+     * @param file  the file, which is created or truncated
+     * @return the stream
+     * @throws IOException  if the file cannot be opened
+     */
+    static OutputStream openOutput(File file) throws IOException {
+        OutputStream out = Channels.newOutputStream(FileChannel.open(
+            file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING));
+        if (file.getName().endsWith(GZIP_EXTENSION)) {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedOutputStream(out, BUFFER_SIZE);
+    }
+
+    /**
+     * Open a buffered stream from a file through a file channel, gunzipped
+     * if the name of the file ends with {@value #GZIP_EXTENSION}.
+     *
+     * @param file  the file
+     * @return the stream
+     * @throws IOException  if the file cannot be opened
+     */
+    static InputStream openInput(File file) throws IOException {
+        InputStream in = Channels.newInputStream(
+            FileChannel.open(file.toPath(), StandardOpenOption.READ));
+        if (file.getName().endsWith(GZIP_EXTENSION)) {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        return new BufferedInputStream(in, BUFFER_SIZE);
+    }
+}
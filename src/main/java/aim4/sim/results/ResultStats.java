@@ -0,0 +1,131 @@
+package aim4.sim.results;
+
+import java.io.IOException;
+
+/**
+ * A result sink that keeps running statistics of the results instead of
+ * the results themselves, so its memory does not grow with the length of
+ * the simulation.  The results can also be passed on to another sink, such
+ * as a {@link CsvResultWriter}.
+ */
+public class ResultStats implements ResultSink {
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The sink the results are passed on to; null if none */
+    private final ResultSink next;
+    /** The number of completed vehicles */
+    private int completedVehicles;
+    /** The latest finish time */
+    private double lastFinishTime;
+    /** The sum of the journey times */
+    private double totalJourneyTime;
+    /** The longest journey time */
+    private double maxJourneyTime;
+    /** The number of vehicles with a recorded delay */
+    private int delayedVehicles;
+    /** The sum of the recorded delays */
+    private double totalDelay;
+    /** The longest recorded delay */
+    private double maxDelay;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create statistics that do not pass the results on.
+     */
+    public ResultStats() {
+        this(null);
+    }
+
+    /**
+     * Create statistics that pass the results on to another sink.
+     *
+     * @param next  the sink the results are passed on to; null if none
+     */
+    public ResultStats(ResultSink next) {
+        this.next = next;
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void vehicleCompleted(VehicleResult result) {
+        completedVehicles++;
+        if (lastFinishTime < result.getFinishTime()) {
+            lastFinishTime = result.getFinishTime();
+        }
+        double journeyTime = result.getFinishTime() - result.getStartTime();
+        totalJourneyTime += journeyTime;
+        maxJourneyTime = Math.max(maxJourneyTime, journeyTime);
+        double delay = result.getDelayTime();
+        // the merge simulators use Double.MAX_VALUE for an unknown delay
+        if (!Double.isNaN(delay) && delay != Double.MAX_VALUE) {
+            delayedVehicles++;
+            totalDelay += delay;
+            maxDelay = Math.max(maxDelay, delay);
+        }
+        if (next != null) {
+            next.vehicleCompleted(result);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        if (next != null) {
+            next.close();
+        }
+    }
+
+    /** @return the number of completed vehicles */
+    public int getCompletedVehicles() {
+        return completedVehicles;
+    }
+
+    /**
+     * Get the throughput, computed like {@link Result#getThroughput()}.
+     *
+     * @return the number of completed vehicles per second up to the latest
+     *         finish time; 0 if no vehicle has completed
+     */
+    public double getThroughput() {
+        return completedVehicles == 0 ? 0.0 : completedVehicles / lastFinishTime;
+    }
+
+    /** @return the mean journey time, in seconds; 0 if no vehicle has completed */
+    public double getAverageJourneyTime() {
+        return completedVehicles == 0 ? 0.0 : totalJourneyTime / completedVehicles;
+    }
+
+    /** @return the longest journey time, in seconds */
+    public double getMaxJourneyTime() {
+        return maxJourneyTime;
+    }
+
+    /** @return the number of vehicles with a recorded delay */
+    public int getDelayedVehicles() {
+        return delayedVehicles;
+    }
+
+    /** @return the mean recorded delay, in seconds; NaN if none is recorded */
+    public double getAverageDelay() {
+        return delayedVehicles == 0 ? Double.NaN : totalDelay / delayedVehicles;
+    }
+
+    /** @return the longest recorded delay, in seconds; NaN if none is recorded */
+    public double getMaxDelay() {
+        return delayedVehicles == 0 ? Double.NaN : maxDelay;
+    }
+}
@@ -1,5 +1,10 @@
 package aim4.sim.results;
 
+import aim4.sim.snapshot.StateRecord;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+
 public class VehicleResult {
     private int vin;
     private String specType;
@@ -46,4 +51,68 @@ public class VehicleResult {
     public double getMinVelocity() {
         return minVelocity;
     }
+
+    /**
+     * Get the name of the road on which the vehicle started.
+     *
+     * @return the name of the starting road; null if it is not recorded
+     */
+    public String getStartingRoad() {
+        return null;
+    }
+
+    /**
+     * Get the delay of the vehicle over its expected journey time.
+     *
+     * @return the delay; NaN if it is not recorded
+     */
+    public double getDelayTime() {
+        return Double.NaN;
+    }
+
+    // snapshots
+
+    /**
+     * Save this result.  Subclasses keep more data, so a subclass supports
+     * snapshots only if it overrides this method.
+     *
+     * @return the state of this result
+     * @throws NotSerializableException  if this result is of a subclass that
+     *                                   does not override this method
+     */
+    public StateRecord toState() throws NotSerializableException {
+        if (getClass() != VehicleResult.class) {
+            throw new NotSerializableException(getClass().getName());
+        }
+        StateRecord state = new StateRecord(VehicleResult.class.getName(), 1);
+        state.putInt("vin", vin);
+        state.putString("specType", specType);
+        state.putDouble("startTime", startTime);
+        state.putDouble("finishTime", finishTime);
+        state.putDouble("finalVelocity", finalVelocity);
+        state.putDouble("maxVelocity", maxVelocity);
+        state.putDouble("minVelocity", minVelocity);
+        return state;
+    }
+
+    /**
+     * Restore a result saved by {@link #toState()}.
+     *
+     * @param state  the state of the result
+     * @return the result
+     * @throws IOException  if the state is not the state of a result
+     */
+    public static VehicleResult fromState(StateRecord state) throws IOException {
+        state.check(VehicleResult.class.getName(), 1);
+        VehicleResult result = new VehicleResult(
+                state.getInt("vin"),
+                state.getString("specType"),
+                state.getDouble("startTime"),
+                state.getDouble("finishTime"),
+                state.getDouble("finalVelocity"),
+                state.getDouble("maxVelocity"),
+                state.getDouble("minVelocity"));
+        state.checkAllRead();
+        return result;
+    }
 }
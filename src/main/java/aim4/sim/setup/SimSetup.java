@@ -1,10 +1,29 @@
 package aim4.sim.setup;
 
+import aim4.sim.SimulationContext;
 import aim4.sim.Simulator;
 
 /**
  * Created by Callum on 15/11/2016.
  */
 public interface SimSetup {
+    /**
+     * Create a simulator in the current simulation context.
+     *
+     * @return the simulator
+     */
     Simulator getSimulator();
+
+    /**
+     * Create a simulator in the given simulation context.  The map, the VINs
+     * and the random numbers of the simulator all come from the context, and
+     * the simulator binds the context whenever it is stepped, so simulators
+     * created in different contexts can run concurrently.
+     *
+     * @param context  the simulation context
+     * @return the simulator
+     */
+    default Simulator getSimulator(SimulationContext context) {
+        return context.call(this::getSimulator);
+    }
 }
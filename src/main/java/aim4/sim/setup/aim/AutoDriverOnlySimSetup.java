@@ -33,6 +33,7 @@ package aim4.sim.setup.aim;
 import aim4.config.Constants;
 import aim4.config.Debug;
 import aim4.config.SimConfig;
+import aim4.driver.aim.navigator.CongestionRouter;
 import aim4.driver.aim.pilot.V2IPilot;
 import aim4.im.aim.v2i.batch.RoadBasedReordering;
 import aim4.im.aim.v2i.reservation.ReservationGridManager;
@@ -86,6 +87,27 @@ public class AutoDriverOnlySimSetup extends BasicSimSetup implements AIMSimSetup
   private boolean isEdgeTileTimeBufferEnabled = true;
   /** The granularity of the reservation grid */
   private double granularity = 1.0;
+  /** Whether the footprints of the internal simulations are cached */
+  private boolean isFootprintCacheEnabled = false;
+  /** Whether the proposals of a request are queried concurrently */
+  private boolean isParallelQueryEnabled = false;
+  /**
+   * Whether the per-vehicle phases of a step and the intersection managers
+   * are run in parallel
+   */
+  private boolean isParallelStepEnabled = false;
+  /** Whether the vehicles are routed around busy intersections */
+  private boolean isCongestionRoutingEnabled = false;
+  /**
+   * Whether the intersection managers send the earliest feasible arrival
+   * time back when they reject a request
+   */
+  private boolean isCounterProposalEnabled = false;
+  /**
+   * Whether the intersection managers plan the reservations of the
+   * approaching vehicles before their requests arrive
+   */
+  private boolean isPrePlanningEnabled = false;
   /** The processing interval for the batch mode */
   private double processingInterval = RoadBasedReordering.DEFAULT_PROCESSING_INTERVAL;
   /** The JSON file with schedules */
@@ -227,6 +249,79 @@ public class AutoDriverOnlySimSetup extends BasicSimSetup implements AIMSimSetup
     this.granularity = granularity;
   }
 
+  /**
+   * Turn on or off the caching of the footprints of the internal
+   * simulations in the reservation grid managers.  The cached footprints
+   * are computed for bucketed arrival velocities and arrival times, and
+   * cover the trajectories of all the arrivals in a bucket, so they reserve
+   * a little more than the internal simulation of each query would.
+   *
+   * @param b  Whether the footprint cache is on
+   */
+  public void setIsFootprintCacheEnabled(boolean b) {
+    isFootprintCacheEnabled = b;
+  }
+
+  /**
+   * Turn on or off the concurrent evaluation of the proposals of a request
+   * by the intersection managers.  The first feasible proposal in the list
+   * is still the one accepted.
+   *
+   * @param b  Whether the proposals are queried concurrently
+   */
+  public void setIsParallelQueryEnabled(boolean b) {
+    isParallelQueryEnabled = b;
+  }
+
+  /**
+   * Turn on or off the parallel execution of the per-vehicle phases of a
+   * simulation step and of the intersection managers.  The results are the
+   * same in both modes.
+   *
+   * @param b  Whether the per-vehicle phases and the intersection managers
+   *           are run in parallel
+   */
+  public void setIsParallelStepEnabled(boolean b) {
+    isParallelStepEnabled = b;
+  }
+
+  /**
+   * Turn on or off the routing of the vehicles around busy intersections.
+   * When it is off, the vehicles take the fastest free-flow routes.
+   *
+   * @param b  Whether the vehicles are routed around busy intersections
+   */
+  public void setIsCongestionRoutingEnabled(boolean b) {
+    isCongestionRoutingEnabled = b;
+  }
+
+  /**
+   * Turn on or off the counter-proposals of the intersection managers.
+   * When it is on, an intersection manager that rejects a request for lack
+   * of a clear path searches its reservation grid for the earliest arrival
+   * time at which the intersection is clear, and the vehicle asks for that
+   * time in its next request instead of trying again and again.
+   *
+   * @param b  Whether the intersection managers send counter-proposals
+   */
+  public void setIsCounterProposalEnabled(boolean b) {
+    isCounterProposalEnabled = b;
+  }
+
+  /**
+   * Turn on or off the planning of the reservations ahead of the requests.
+   * When it is on, the footprints of the vehicles approaching an
+   * intersection are computed on idle cores before their requests arrive,
+   * so the requests only have to be checked against the reservation grid.
+   * The footprints are put in the footprint cache, so this requires the
+   * footprint cache to be on.
+   *
+   * @param b  Whether the reservations are planned ahead of the requests
+   */
+  public void setIsPrePlanningEnabled(boolean b) {
+    isPrePlanningEnabled = b;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -262,7 +357,11 @@ public class AutoDriverOnlySimSetup extends BasicSimSetup implements AIMSimSetup
                     internalTileTimeBufferSize,
                     edgeTileTimeBufferSize,
                     isEdgeTileTimeBufferEnabled,
-                    granularity);  // granularity
+                    granularity,  // granularity
+                    isFootprintCacheEnabled,
+                    isParallelQueryEnabled,
+                    isCounterProposalEnabled,
+                    isPrePlanningEnabled);
 
 /* for demo */
 /*
@@ -322,7 +421,12 @@ public class AutoDriverOnlySimSetup extends BasicSimSetup implements AIMSimSetup
 
     V2IPilot.DEFAULT_STOP_DISTANCE_BEFORE_INTERSECTION =
             stopDistBeforeIntersection;
-    return new AutoDriverOnlySimulator(layout);
+    AutoDriverOnlySimulator sim = new AutoDriverOnlySimulator(layout);
+    sim.setIsParallelStepEnabled(isParallelStepEnabled);
+    if (isCongestionRoutingEnabled) {
+      CongestionRouter.install(layout);
+    }
+    return sim;
   }
 
   private void setSpawnSpecs(GridAIMIntersectionMap layout) {
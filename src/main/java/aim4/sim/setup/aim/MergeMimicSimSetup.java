@@ -8,6 +8,7 @@ import aim4.map.Road;
 import aim4.map.aim.AIMSpawnPoint;
 import aim4.map.aim.GridAIMIntersectionMap;
 import aim4.map.aim.GridMapUtil;
+import aim4.sim.SimulationContext;
 import aim4.sim.simulator.aim.AIMSimulator;
 import aim4.sim.simulator.aim.AutoDriverOnlySimulator;
 import aim4.vehicle.VehicleSpec;
@@ -100,7 +101,7 @@ public class MergeMimicSimSetup implements AIMSimSetup {
 
         Map<String, Double> specToExpectedTimeMergeLane = simulateExpectedMergeLaneTimes(layout);
         Map<String, Double> specToExpectedTimeTargetLane = simulateExpectedTargetLaneTimes(layout);
-        Debug.currentAimMap = layout;
+        SimulationContext.current().setAimMap(layout);
 
         return new AutoDriverOnlySimulator(layout, true, specToExpectedTimeMergeLane,specToExpectedTimeTargetLane);
     }
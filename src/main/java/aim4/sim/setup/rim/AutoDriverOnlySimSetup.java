@@ -55,6 +55,8 @@ public class AutoDriverOnlySimSetup extends BasicSimSetup implements RIMSimSetup
     private double granularity = 8.0;
     /** The name of the file about the traffic volume */
     private String trafficVolumeFileName = null;
+    /** Whether the intersection managers act in parallel */
+    private boolean isParallelStepEnabled = false;
 
     //Set Json files
     private File uploadTrafficSchedule;
@@ -129,6 +131,16 @@ public class AutoDriverOnlySimSetup extends BasicSimSetup implements RIMSimSetup
         isStopSignMode = b;
     }
 
+    /**
+     * Turn on or off the parallel execution of the intersection managers.
+     * The results are the same in both modes.
+     *
+     * @param b  Whether the intersection managers act in parallel
+     */
+    public void setIsParallelStepEnabled(boolean b) {
+        isParallelStepEnabled = b;
+    }
+
     /**
      * Set the uniform random traffic.
      *
@@ -274,7 +286,9 @@ public class AutoDriverOnlySimSetup extends BasicSimSetup implements RIMSimSetup
 
         V2IPilot.DEFAULT_STOP_DISTANCE_BEFORE_INTERSECTION =
                 stopDistBeforeIntersection;
-        return new AutoDriverOnlySimulator(layout);
+        AutoDriverOnlySimulator sim = new AutoDriverOnlySimulator(layout);
+        sim.setIsParallelStepEnabled(isParallelStepEnabled);
+        return sim;
     }
 
     private void setSpawnSpecs(BasicRIMIntersectionMap layout) {
@@ -4,6 +4,8 @@ import aim4.config.Debug;
 import aim4.config.DebugPoint;
 import aim4.driver.aim.AIMAutoDriver;
 import aim4.driver.aim.ProxyDriver;
+import aim4.driver.aim.navigator.CongestionRouter;
+import aim4.driver.aim.navigator.RouteTable;
 import aim4.driver.aim.pilot.V2IPilot;
 import aim4.im.aim.IntersectionManager;
 import aim4.im.aim.v2i.V2IManager;
@@ -12,14 +14,22 @@ import aim4.map.DataCollectionLine;
 import aim4.map.Road;
 import aim4.map.aim.AIMSpawnPoint;
 import aim4.map.lane.Lane;
+import aim4.map.lane.LaneBoundsIndex;
+import aim4.map.lane.LaneOccupancyIndex;
 import aim4.map.merge.RoadNames;
 import aim4.msg.aim.i2v.I2VMessage;
+import aim4.msg.aim.i2v.Reject;
 import aim4.msg.aim.v2i.V2IMessage;
+import aim4.sim.SimulationContext;
+import aim4.sim.StepPhaseTimer;
 import aim4.sim.results.MergeResult;
 import aim4.sim.results.MergeVehicleResult;
 import aim4.sim.results.Result;
+import aim4.sim.results.ResultSink;
 import aim4.sim.results.VehicleResult;
+import aim4.sim.trace.TraceRecorder;
 import aim4.util.Util;
+import aim4.vehicle.MaxTurnVelocityTable;
 import aim4.vehicle.VehicleSpec;
 import aim4.vehicle.VehicleSpecDatabase;
 import aim4.vehicle.VehicleUtil;
@@ -81,6 +91,14 @@ public class AIMOptimalSimulator implements AIMSimulator {
      * All active vehicles, in form of a map from VINs to vehicle objects.
      */
     private Map<Integer, AIMVehicleSimModel> vinToVehicles;
+    /**
+     * The vehicles on each lane, updated whenever a vehicle moves
+     */
+    private LaneOccupancyIndex<AIMVehicleSimModel> laneOccupancy;
+    /**
+     * The bounding boxes of the lanes of the map
+     */
+    private LaneBoundsIndex laneBoundsIndex;
     /**
      * The current time
      */
@@ -104,6 +122,10 @@ public class AIMOptimalSimulator implements AIMSimulator {
 
     //Results aids//
     private List<VehicleResult> vehiclesRecord;
+    /** The sink of the results; null if they are kept in memory */
+    private ResultSink resultSink;
+    /** The recorder of the trace; null if no trace is recorded */
+    private TraceRecorder traceRecorder;
 
     //Results Merge aids//
     private List<MergeVehicleResult> mergeVehiclesRecord;
@@ -113,6 +135,15 @@ public class AIMOptimalSimulator implements AIMSimulator {
     //Merge aids//
     private boolean mergeMode;
 
+    /**
+     * The context of the simulation, which is bound to the thread that steps
+     * the simulator.
+     */
+    private final SimulationContext context = SimulationContext.current();
+
+    /** The time spent in the phases of the steps */
+    private final StepPhaseTimer stepPhaseTimer = new StepPhaseTimer();
+
     /////////////////////////////////
     // CLASS CONSTRUCTORS
     /////////////////////////////////
@@ -138,7 +169,15 @@ public class AIMOptimalSimulator implements AIMSimulator {
         this.mergeMode = mergeMode;
         this.basicAIMIntersectionMap = basicAIMIntersectionMap;
         this.vinToVehicles = new HashMap<Integer, AIMVehicleSimModel>();
+        List<Lane> lanes = new ArrayList<Lane>();
+        for (Road road : basicAIMIntersectionMap.getRoads()) {
+            lanes.addAll(road.getLanes());
+        }
+        this.laneOccupancy = new LaneOccupancyIndex<AIMVehicleSimModel>(lanes);
+        this.laneBoundsIndex = new LaneBoundsIndex(lanes);
         this.vehiclesRecord = new ArrayList<VehicleResult>();
+        MaxTurnVelocityTable.install(basicAIMIntersectionMap, context.getTurnTablesDirectory());
+        RouteTable.install(basicAIMIntersectionMap);
         if (mergeMode) {
             Map<String, Double> fakeDelayTimes = new HashMap<String, Double>();
             for (int specID = 0; specID < VehicleSpecDatabase.getNumOfSpec(); specID++)
@@ -174,31 +213,56 @@ public class AIMOptimalSimulator implements AIMSimulator {
      */
     @Override
     public synchronized AIMOptimalSimulatorSimStepResult step(double timeStep) {
+        return context.call(() -> stepInContext(timeStep));
+    }
+
+    /**
+     * Move the simulator a time step forward with the context of the
+     * simulation bound to the current thread.
+     *
+     * @param timeStep  the amount of time the simulation should run in
+     *                  this time step
+     * @return the result of the time step
+     */
+    private AIMOptimalSimulatorSimStepResult stepInContext(double timeStep) {
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("--------------------------------------\n");
             System.err.printf("------SIM:spawnVehicles---------------\n");
         }
+        CongestionRouter router = basicAIMIntersectionMap.getCongestionRouter();
+        if (router != null) {
+            router.refresh(currentTime);
+        }
+        long phaseStart = stepPhaseTimer.start();
         spawnVehicles(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SPAWN, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:provideSensorInput---------------\n");
         }
         provideSensorInput();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SENSOR, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:letDriversAct---------------\n");
         }
         letDriversAct();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.DRIVERS, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:letIntersectionManagersAct--------------\n");
         }
         letIntersectionManagersAct(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.INTERSECTION_MANAGERS,
+                phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:communication---------------\n");
         }
         communication();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.COMMUNICATION,
+                phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:moveVehicles---------------\n");
         }
         moveVehicles(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.MOVE, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:cleanUpCompletedVehicles---------------\n");
         }
@@ -214,7 +278,11 @@ public class AIMOptimalSimulator implements AIMSimulator {
         }
 
         List<Integer> completedVINs = cleanUpCompletedVehicles();
+        stepPhaseTimer.stop(StepPhaseTimer.CLEAN_UP, phaseStart);
         currentTime += timeStep;
+        if (traceRecorder != null) {
+            recordTrace();
+        }
         // debug
         checkClocks();
 
@@ -227,6 +295,30 @@ public class AIMOptimalSimulator implements AIMSimulator {
 
     // information retrieval
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StepPhaseTimer getStepPhaseTimer() {
+        return stepPhaseTimer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setResultSink(ResultSink resultSink) {
+        this.resultSink = resultSink;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTraceRecorder(TraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -326,6 +418,7 @@ public class AIMOptimalSimulator implements AIMSimulator {
         }
 
         vinToVehicles.put(vehicle.getVIN(), vehicle);
+        updateVehicleLists(vehicle);
     }
 
 
@@ -370,6 +463,7 @@ public class AIMOptimalSimulator implements AIMSimulator {
                                 AIMVehicleSimModel vehicle = makeVehicle(spawnPoint, spawnSpec);
                                 VinRegistry.registerVehicle(vehicle); // Get vehicle a VIN number
                                 vinToVehicles.put(vehicle.getVIN(), vehicle);
+                                updateVehicleLists(vehicle);
                                 numOfVehicleSpawned++;
                             } // otherwise there is not enough space to slow down so don't spawn this vehicle
                         }
@@ -378,6 +472,7 @@ public class AIMOptimalSimulator implements AIMSimulator {
                             AIMVehicleSimModel vehicle = makeVehicle(spawnPoint, spawnSpec);
                             VinRegistry.registerVehicle(vehicle); // Get vehicle a VIN number
                             vinToVehicles.put(vehicle.getVIN(), vehicle);
+                            updateVehicleLists(vehicle);
                             numOfVehicleSpawned++;
                         }
                         break; // Only the first vehicle needed. TODO: FIX THIS
@@ -461,63 +556,48 @@ public class AIMOptimalSimulator implements AIMSimulator {
      * distance on their lanes
      */
     private Map<Lane, SortedMap<Double, AIMVehicleSimModel>> computeVehicleLists() {
-        // Set up the structure that will hold all the Vehicles as they are
-        // currently ordered in the Lanes
-        Map<Lane, SortedMap<Double, AIMVehicleSimModel>> vehicleLists =
-                new HashMap<Lane, SortedMap<Double, AIMVehicleSimModel>>();
-        for (Road road : basicAIMIntersectionMap.getRoads()) {
-            for (Lane lane : road.getLanes()) {
-                vehicleLists.put(lane, new TreeMap<Double, AIMVehicleSimModel>());
-            }
-        }
-        // Now add each of the Vehicles, but make sure to exclude those that are
-        // already inside (partially or entirely) the intersection
+        // Proxy vehicles are moved by their remote counterparts rather than
+        // by moveVehicles(), so refresh them here
         for (AIMVehicleSimModel vehicle : vinToVehicles.values()) {
-            // Find out what lanes it is in.
-            Set<Lane> lanes = vehicle.getDriver().getCurrentlyOccupiedLanes();
-            for (Lane lane : lanes) {
-                // Find out what IntersectionManager is coming up for this vehicle
-                IntersectionManager im =
-                        lane.getLaneIM().nextIntersectionManager(vehicle.getPosition());
-                // Only include this Vehicle if it is not entirely in the intersection.
-                if (im == null ||
-                        !(im.intersectsPoint(vehicle.getPosition()) && im.intersectsPoint(vehicle.getPointAtRear()))) {
-                    // Now find how far along the lane it is.
-                    double dst = lane.distanceAlongLane(vehicle.getPosition());
-                    // Now add it to the map.
-                    vehicleLists.get(lane).put(dst, vehicle);
-                    // Now check if this vehicle intersects any other lanes
-                    for (Road road : Debug.currentAimMap.getRoads()) {
-                        for (Lane otherLane : road.getLanes()) {
-                            if (otherLane.getId() != lane.getId()) {
-                                if (otherLane.getShape().getBounds2D().intersects(vehicle.getShape().getBounds2D())) {
-                                    double dstAlongOtherLane = otherLane.distanceAlongLane(vehicle.getPosition());
-                                    vehicleLists.get(otherLane).put(dstAlongOtherLane, vehicle);
-                                }
-                            }
-                        }
-                    }
-                }
+            if (vehicle instanceof ProxyVehicleSimModel) {
+                updateVehicleLists(vehicle);
             }
         }
-        // Now consolidate the lists based on lanes
-        for (Road road : basicAIMIntersectionMap.getRoads()) {
-            for (Lane lane : road.getLanes()) {
-                // We may have already removed this Lane from the map
-                if (vehicleLists.containsKey(lane)) {
-                    Lane currLane = lane;
-                    // Now run through the lanes
-                    while (currLane.hasNextLane()) {
-                        currLane = currLane.getNextLane();
-                        // Put everything from the next lane into the original lane
-                        // and remove the mapping for the next lane
-                        vehicleLists.get(lane).putAll(vehicleLists.remove(currLane));
+        return laneOccupancy.getVehicleLists();
+    }
+
+    /**
+     * Update the positions of a vehicle in the lists of vehicles of all
+     * lanes.  Vehicles that are entirely inside the intersection are left
+     * out.
+     *
+     * @param vehicle the vehicle
+     */
+    private void updateVehicleLists(AIMVehicleSimModel vehicle) {
+        laneOccupancy.remove(vehicle);
+        // Find out what lanes it is in.
+        Set<Lane> lanes = vehicle.getDriver().getCurrentlyOccupiedLanes();
+        for (Lane lane : lanes) {
+            // Find out what IntersectionManager is coming up for this vehicle
+            IntersectionManager im =
+                    lane.getLaneIM().nextIntersectionManager(vehicle.getPosition());
+            // Only include this Vehicle if it is not entirely in the intersection.
+            if (im == null ||
+                    !(im.intersectsPoint(vehicle.getPosition()) && im.intersectsPoint(vehicle.getPointAtRear()))) {
+                // Now find how far along the lane it is.
+                double dst = lane.distanceAlongLane(vehicle.getPosition());
+                // Now add it to the map.
+                laneOccupancy.put(vehicle, lane, dst);
+                // Now check if this vehicle intersects any other lanes
+                Rectangle2D vehicleBounds = vehicle.getShape().getBounds2D();
+                for (Lane otherLane : laneBoundsIndex.findIntersectingLanes(vehicleBounds)) {
+                    if (otherLane.getId() != lane.getId()) {
+                        double dstAlongOtherLane = otherLane.distanceAlongLane(vehicle.getPosition());
+                        laneOccupancy.put(vehicle, otherLane, dstAlongOtherLane);
                     }
                 }
             }
         }
-
-        return vehicleLists;
     }
 
     /**
@@ -822,6 +902,16 @@ public class AIMOptimalSimulator implements AIMSimulator {
 //    deliverV2VMessages();
     }
 
+    /**
+     * Record the vehicles at the end of the step in the trace.
+     */
+    private void recordTrace() {
+        for (AIMVehicleSimModel vehicle : vinToVehicles.values()) {
+            traceRecorder.recordVehicle(vehicle);
+        }
+        traceRecorder.endStep(currentTime);
+    }
+
     /**
      * Deliver the V2I messages.
      */
@@ -841,11 +931,17 @@ public class AIMOptimalSimulator implements AIMSimulator {
                             sender.getPosition().distance(
                                     receiver.getIntersection().getCentroid());
                     // Find out if the message will make it that far
-                    if (transmit(txDistance, sender.getTransmissionPower())) {
+                    boolean delivered =
+                            transmit(txDistance, sender.getTransmissionPower());
+                    if (delivered) {
                         // Actually deliver the message
                         receiver.receive(msg);
                         // Add the delivery to the debugging information
                     }
+                    if (traceRecorder != null) {
+                        traceRecorder.recordV2IMessage(msg.getVin(), msg.getImId(),
+                                msg.getMessageType().ordinal(), delivered);
+                    }
                     // Either way, we increment the number of transmitted messages
                 }
             }
@@ -870,10 +966,18 @@ public class AIMOptimalSimulator implements AIMSimulator {
                         senderIM.getIntersection().getCentroid().distance(
                                 vehicle.getPosition());
                 // Find out if the message will make it that far
-                if (transmit(txDistance, senderIM.getTransmissionPower())) {
+                boolean delivered =
+                        transmit(txDistance, senderIM.getTransmissionPower());
+                if (delivered) {
                     // Actually deliver the message
                     vehicle.receive(msg);
                 }
+                if (traceRecorder != null) {
+                    traceRecorder.recordI2VMessage(msg.getVin(), msg.getImId(),
+                            msg.getMessageType().ordinal(),
+                            msg instanceof Reject ? ((Reject) msg).getReason().ordinal() : -1,
+                            delivered);
+                }
             }
             // Done delivering the IntersectionManager's messages, so clear the
             // outbox.
@@ -982,6 +1086,7 @@ public class AIMOptimalSimulator implements AIMSimulator {
             Point2D p1 = vehicle.getPosition();
             vehicle.move(timeStep);
             Point2D p2 = vehicle.getPosition();
+            updateVehicleLists(vehicle);
             for (DataCollectionLine line : basicAIMIntersectionMap.getDataCollectionLines()) {
                 line.intersect(vehicle, currentTime, p1, p2);
             }
@@ -995,18 +1100,12 @@ public class AIMOptimalSimulator implements AIMSimulator {
      * Detects collisions. Currently not used because vehicles collide - Go figure.
      */
     private void checkForCollisions() {
-        Integer[] keys = vinToVehicles.keySet().toArray(new Integer[]{});
-        for (int i = 0; i < keys.length - 1; i++) { //-1 because we won't compare the last element with anything.
-            Integer[] keysToCompare = Arrays.copyOfRange(keys, i + 1, keys.length);
-            AIMVehicleSimModel vehicle1 = vinToVehicles.get(keys[i]);
-            for (int j = 0; j < keysToCompare.length; j++) {
-                AIMVehicleSimModel vehicle2 = vinToVehicles.get(keysToCompare[j]);
-                if (VehicleUtil.collision(vehicle1, vehicle2)) {
-                    throw new RuntimeException(String.format("There was a collision between vehicles %d and %d",
-                            vehicle1.getVIN(),
-                            vehicle2.getVIN()));
-                }
-            }
+        List<AIMVehicleSimModel> vehicles = new ArrayList<AIMVehicleSimModel>(vinToVehicles.values());
+        int[] collision = VehicleUtil.findCollision(vehicles);
+        if (collision != null) {
+            throw new RuntimeException(String.format("There was a collision between vehicles %d and %d",
+                    vehicles.get(collision[0]).getVIN(),
+                    vehicles.get(collision[1]).getVIN()));
         }
     }
 
@@ -1042,7 +1141,7 @@ public class AIMOptimalSimulator implements AIMSimulator {
         }
         // Remove the marked vehicles
         for (int vin : removedVINs) {
-            vinToVehicles.remove(vin);
+            laneOccupancy.remove(vinToVehicles.remove(vin));
             completedVINs.add(vin);
             numOfCompletedVehicles++;
         }
@@ -1065,7 +1164,7 @@ public class AIMOptimalSimulator implements AIMSimulator {
 
     private void recordCompletedVehicles(List<AIMVehicleSimModel> completedVehicles) {
         for (AIMVehicleSimModel vehicle : completedVehicles) {
-            vehiclesRecord.add(new VehicleResult(
+            VehicleResult result = new VehicleResult(
                     vehicle.getVIN(),
                     vehicle.getSpec().getName(),
                     vehicle.getStartTime(),
@@ -1073,13 +1172,18 @@ public class AIMOptimalSimulator implements AIMSimulator {
                     vehicle.getFinalVelocity(),
                     vehicle.getMaxVelocity(),
                     vehicle.getMinVelocity()
-            ));
+            );
+            if (resultSink == null) {
+                vehiclesRecord.add(result);
+            } else if (!mergeMode) {
+                resultSink.vehicleCompleted(result);
+            }
         }
     }
 
     private void recordMergeCompletedVehicles(List<AIMVehicleSimModel> completedVehicles) {
         for (AIMVehicleSimModel vehicle : completedVehicles) {
-            mergeVehiclesRecord.add(new MergeVehicleResult(
+            MergeVehicleResult result = new MergeVehicleResult(
                     vehicle.getVIN(),
                     vehicle.getStartingRoad().toString(),
                     vehicle.getSpec().getName(),
@@ -1091,7 +1195,12 @@ public class AIMOptimalSimulator implements AIMSimulator {
                     vehicle.getMinVelocity(),
                     vehicle.getFinalXPos(),
                     vehicle.getFinalYPos()
-            ));
+            );
+            if (resultSink == null) {
+                mergeVehiclesRecord.add(result);
+            } else {
+                resultSink.vehicleCompleted(result);
+            }
         }
     }
 
@@ -34,8 +34,12 @@ import aim4.config.Debug;
 import aim4.config.DebugPoint;
 import aim4.driver.aim.AIMAutoDriver;
 import aim4.driver.aim.ProxyDriver;
+import aim4.driver.aim.coordinator.V2ICoordinator;
+import aim4.driver.aim.navigator.CongestionRouter;
+import aim4.driver.aim.navigator.RouteTable;
 import aim4.driver.aim.pilot.V2IPilot;
 import aim4.im.aim.IntersectionManager;
+import aim4.im.aim.v2i.ReservationPrePlanner;
 import aim4.im.aim.v2i.V2IManager;
 import aim4.map.BasicAIMIntersectionMap;
 import aim4.map.DataCollectionLine;
@@ -43,14 +47,25 @@ import aim4.map.Road;
 import aim4.map.aim.AIMSpawnPoint;
 import aim4.map.aim.AIMSpawnPoint.AIMSpawnSpec;
 import aim4.map.lane.Lane;
+import aim4.map.lane.LaneBoundsIndex;
+import aim4.map.lane.LaneOccupancyIndex;
 import aim4.map.merge.RoadNames;
 import aim4.msg.aim.i2v.I2VMessage;
+import aim4.msg.aim.i2v.Reject;
+import aim4.msg.aim.v2i.Request;
 import aim4.msg.aim.v2i.V2IMessage;
+import aim4.sim.SimulationContext;
+import aim4.sim.StepPhaseTimer;
 import aim4.sim.results.MergeResult;
 import aim4.sim.results.MergeVehicleResult;
 import aim4.sim.results.Result;
+import aim4.sim.results.ResultSink;
 import aim4.sim.results.VehicleResult;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
+import aim4.sim.trace.TraceRecorder;
 import aim4.util.Util;
+import aim4.vehicle.MaxTurnVelocityTable;
 import aim4.vehicle.VehicleSpec;
 import aim4.vehicle.VehicleSpecDatabase;
 import aim4.vehicle.VehicleUtil;
@@ -61,14 +76,19 @@ import java.awt.*;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.*;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
 
 /**
  * The autonomous drivers only simulator.
  */
-public class AutoDriverOnlySimulator implements AIMSimulator {
+public class AutoDriverOnlySimulator implements AIMSimulator, Restorable {
 
     /////////////////////////////////
     // NESTED CLASSES
@@ -101,6 +121,13 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
         }
     }
 
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The name of the collision check phase in the step phase timer */
+    public static final String COLLISION_CHECK_PHASE = StepPhaseTimer.COLLISION;
+
     /////////////////////////////////
     // PRIVATE FIELDS
     /////////////////////////////////
@@ -109,6 +136,17 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
     private BasicAIMIntersectionMap basicAIMIntersectionMap;
     /** All active vehicles, in form of a map from VINs to vehicle objects. */
     private Map<Integer,AIMVehicleSimModel> vinToVehicles;
+    /**
+     * The largest number of active vehicles so far, which determines the
+     * capacity of vinToVehicles and thus the order of its vehicles
+     */
+    private int peakNumOfVehicles;
+    /** The vehicles on each lane, updated whenever a vehicle moves */
+    private LaneOccupancyIndex<AIMVehicleSimModel> laneOccupancy;
+    /** The bounding boxes of the lanes of the map */
+    private LaneBoundsIndex laneBoundsIndex;
+    /** The time spent in the phases of the steps */
+    private final StepPhaseTimer stepPhaseTimer = new StepPhaseTimer();
     /** The current time */
     private double currentTime;
     /** The number of completed vehicles */
@@ -124,6 +162,10 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
 
     //Results aids//
     private List<VehicleResult> vehiclesRecord;
+    /** The sink of the results; null if they are kept in memory */
+    private ResultSink resultSink;
+    /** The recorder of the trace; null if no trace is recorded */
+    private TraceRecorder traceRecorder;
 
     //Results Merge aids//
     private List<MergeVehicleResult> mergeVehiclesRecord;
@@ -133,6 +175,27 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
     //Merge aids//
     private boolean mergeMode;
 
+    /**
+     * Whether the per-vehicle phases of a step (the drivers acting and the
+     * vehicles moving) and the intersection managers acting are run in
+     * parallel.
+     */
+    private boolean isParallelStepEnabled;
+
+    /**
+     * The context of the simulation, which is bound to the thread that steps
+     * the simulator.
+     */
+    private final SimulationContext context = SimulationContext.current();
+
+    /**
+     * The executor on which the reservation planners of the intersection
+     * managers compute the footprints; created when a planner is first
+     * used.  Its threads end when they are idle, so it goes away with the
+     * simulator.
+     */
+    private ExecutorService prePlanningExecutor;
+
     /////////////////////////////////
     // CLASS CONSTRUCTORS
     /////////////////////////////////
@@ -158,7 +221,15 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
         this.mergeMode = mergeMode;
         this.basicAIMIntersectionMap = basicAIMIntersectionMap;
         this.vinToVehicles = new HashMap<Integer,AIMVehicleSimModel>();
+        List<Lane> lanes = new ArrayList<Lane>();
+        for(Road road : basicAIMIntersectionMap.getRoads()) {
+            lanes.addAll(road.getLanes());
+        }
+        this.laneOccupancy = new LaneOccupancyIndex<AIMVehicleSimModel>(lanes);
+        this.laneBoundsIndex = new LaneBoundsIndex(lanes);
         this.vehiclesRecord = new ArrayList<VehicleResult>();
+        MaxTurnVelocityTable.install(basicAIMIntersectionMap, context.getTurnTablesDirectory());
+        RouteTable.install(basicAIMIntersectionMap);
         if(mergeMode) {
             Map<String, Double> fakeDelayTimes = new HashMap<String, Double>();
             for(int specID = 0; specID < VehicleSpecDatabase.getNumOfSpec(); specID++)
@@ -194,34 +265,62 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
      */
     @Override
     public synchronized AutoDriverOnlySimStepResult step(double timeStep) {
+        return context.call(() -> stepInContext(timeStep));
+    }
+
+    /**
+     * Move the simulator a time step forward with the context of the
+     * simulation bound to the current thread.
+     *
+     * @param timeStep  the amount of time the simulation should run in
+     *                  this time step
+     * @return the result of the time step
+     */
+    private AutoDriverOnlySimStepResult stepInContext(double timeStep) {
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("--------------------------------------\n");
             System.err.printf("------SIM:spawnVehicles---------------\n");
         }
+        CongestionRouter router = basicAIMIntersectionMap.getCongestionRouter();
+        if (router != null) {
+            router.refresh(currentTime);
+        }
+        long phaseStart = stepPhaseTimer.start();
         spawnVehicles(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SPAWN, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:provideSensorInput---------------\n");
         }
         provideSensorInput();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SENSOR, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:letDriversAct---------------\n");
         }
         letDriversAct();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.DRIVERS, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:letIntersectionManagersAct--------------\n");
         }
         letIntersectionManagersAct(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.INTERSECTION_MANAGERS,
+                                         phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:communication---------------\n");
         }
         communication();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.COMMUNICATION, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:moveVehicles---------------\n");
         }
         moveVehicles(timeStep);
+        anticipateRequests();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.MOVE, phaseStart);
         if (Debug.CHECK_FOR_COLLISIONS) {
-            System.err.printf("------SIM:checkForCollisions---------------\n");
+            if (Debug.PRINT_SIMULATOR_STAGE) {
+                System.err.printf("------SIM:checkForCollisions---------------\n");
+            }
             checkForCollisions();
+            phaseStart = stepPhaseTimer.stop(COLLISION_CHECK_PHASE, phaseStart);
         }
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:cleanUpCompletedVehicles---------------\n");
@@ -238,7 +337,11 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
         }
 
         List<Integer> completedVINs = cleanUpCompletedVehicles();
+        stepPhaseTimer.stop(StepPhaseTimer.CLEAN_UP, phaseStart);
         currentTime += timeStep;
+        if (traceRecorder != null) {
+            recordTrace();
+        }
         // debug
         checkClocks();
 
@@ -322,6 +425,45 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
     // PUBLIC METHODS
     /////////////////////////////////
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StepPhaseTimer getStepPhaseTimer() {
+        return stepPhaseTimer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setResultSink(ResultSink resultSink) {
+        this.resultSink = resultSink;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTraceRecorder(TraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
+
+    /**
+     * Turn on or off the parallel execution of the per-vehicle phases of a
+     * step and of the intersection managers.  The drivers act, the
+     * intersection managers act and the vehicles move on the common
+     * ForkJoinPool; everything that is shared between vehicles or
+     * intersection managers is still updated on the simulation thread in a
+     * fixed order, so the results do not depend on the mode.
+     *
+     * @param b  whether the per-vehicle phases and the intersection managers
+     *           are run in parallel
+     */
+    public synchronized void setIsParallelStepEnabled(boolean b) {
+        isParallelStepEnabled = b;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -349,7 +491,166 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
             driver.setDestination(null);
         }
 
-        vinToVehicles.put(vehicle.getVIN(), vehicle);
+        putVehicle(vehicle);
+        updateVehicleLists(vehicle);
+    }
+
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The state includes the one of the {@link SimulationContext} of the
+     * simulator.  The map, which is rebuilt by the setup of the simulation,
+     * is saved as the states of its intersection managers, spawn points,
+     * data collection lines and congestion router.  Only the vehicles
+     * created by this simulator are supported, and the results must be kept
+     * in memory.
+     */
+    @Override
+    public synchronized StateRecord saveState() throws NotSerializableException {
+        if (resultSink != null) {
+            throw new NotSerializableException(resultSink.getClass().getName());
+        }
+        if (traceRecorder != null) {
+            throw new NotSerializableException(traceRecorder.getClass().getName());
+        }
+        if (mergeMode) {
+            throw new NotSerializableException(MergeVehicleResult.class.getName());
+        }
+        StateRecord state = new StateRecord(AutoDriverOnlySimulator.class.getName(), 1);
+        state.putRecord("context", context.saveState(basicAIMIntersectionMap));
+        state.putDouble("currentTime", currentTime);
+        state.putInt("numOfCompletedVehicles", numOfCompletedVehicles);
+        state.putInt("numOfVehicleWhichCouldNotBeSpawned", numOfVehicleWhichCouldNotBeSpawned);
+        state.putInt("numOfVehicleSpawned", numOfVehicleSpawned);
+        state.putInt("totalBitsTransmittedByCompletedVehicles",
+                totalBitsTransmittedByCompletedVehicles);
+        state.putInt("totalBitsReceivedByCompletedVehicles",
+                totalBitsReceivedByCompletedVehicles);
+        List<StateRecord> results = new ArrayList<StateRecord>(vehiclesRecord.size());
+        for(VehicleResult result : vehiclesRecord) {
+            results.add(result.toState());
+        }
+        state.putRecords("vehiclesRecord", results);
+        // the map
+        state.putRecords("intersectionManagers",
+                saveAll(basicAIMIntersectionMap.getIntersectionManagers()));
+        state.putRecords("spawnPoints", saveAll(basicAIMIntersectionMap.getSpawnPoints()));
+        state.putRecords("dataCollectionLines",
+                saveAll(basicAIMIntersectionMap.getDataCollectionLines()));
+        CongestionRouter router = basicAIMIntersectionMap.getCongestionRouter();
+        state.putRecord("congestionRouter", router == null ? null : router.saveState());
+        // the vehicles, in the order of vinToVehicles
+        state.putInt("peakNumOfVehicles", peakNumOfVehicles);
+        int[] vins = new int[vinToVehicles.size()];
+        String[] specs = new String[vins.length];
+        List<StateRecord> vehicles = new ArrayList<StateRecord>(vins.length);
+        List<StateRecord> drivers = new ArrayList<StateRecord>(vins.length);
+        int i = 0;
+        for(AIMVehicleSimModel vehicle : vinToVehicles.values()) {
+            if (vehicle.getClass() != AIMBasicAutoVehicle.class) {
+                throw new NotSerializableException(vehicle.getClass().getName());
+            }
+            AIMBasicAutoVehicle v = (AIMBasicAutoVehicle) vehicle;
+            if (v.getDriver().getClass() != AIMAutoDriver.class) {
+                throw new NotSerializableException(v.getDriver().getClass().getName());
+            }
+            vins[i] = v.getVIN();
+            specs[i] = v.getSpec().getName();
+            vehicles.add(v.saveState());
+            drivers.add(v.getDriver().saveState(basicAIMIntersectionMap));
+            i++;
+        }
+        state.putInts("vins", vins);
+        state.putStrings("specs", specs);
+        state.putRecords("vehicles", vehicles);
+        state.putRecords("drivers", drivers);
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The simulator must have been created by the same setup as the saved
+     * one, and its {@link SimulationContext} must be bound to the current
+     * thread, since the vehicles register again with their VINs.
+     */
+    @Override
+    public synchronized void restoreState(StateRecord state) throws IOException {
+        state.check(AutoDriverOnlySimulator.class.getName(), 1);
+        // first, since it forgets the active vehicles
+        context.restoreState(state.getRecord("context"), basicAIMIntersectionMap);
+        currentTime = state.getDouble("currentTime");
+        numOfCompletedVehicles = state.getInt("numOfCompletedVehicles");
+        numOfVehicleWhichCouldNotBeSpawned = state.getInt("numOfVehicleWhichCouldNotBeSpawned");
+        numOfVehicleSpawned = state.getInt("numOfVehicleSpawned");
+        totalBitsTransmittedByCompletedVehicles =
+                state.getInt("totalBitsTransmittedByCompletedVehicles");
+        totalBitsReceivedByCompletedVehicles =
+                state.getInt("totalBitsReceivedByCompletedVehicles");
+        vehiclesRecord.clear();
+        for(StateRecord result : state.getRecords("vehiclesRecord")) {
+            vehiclesRecord.add(VehicleResult.fromState(result));
+        }
+        // the map
+        restoreAll(basicAIMIntersectionMap.getIntersectionManagers(),
+                state.getRecords("intersectionManagers"), "intersection managers");
+        restoreAll(basicAIMIntersectionMap.getSpawnPoints(),
+                state.getRecords("spawnPoints"), "spawn points");
+        restoreAll(basicAIMIntersectionMap.getDataCollectionLines(),
+                state.getRecords("dataCollectionLines"), "data collection lines");
+        CongestionRouter router = basicAIMIntersectionMap.getCongestionRouter();
+        StateRecord routerState = state.getRecordOrNull("congestionRouter");
+        if ((routerState == null) != (router == null)) {
+            throw new StreamCorruptedException("Congestion router mismatch");
+        }
+        if (router != null) {
+            router.restoreState(routerState);
+        }
+        // the vehicles
+        int peak = state.getInt("peakNumOfVehicles");
+        int[] vins = state.getInts("vins");
+        String[] specs = state.getStrings("specs");
+        List<StateRecord> vehicles = state.getRecords("vehicles");
+        List<StateRecord> drivers = state.getRecords("drivers");
+        if (specs.length != vins.length || vehicles.size() != vins.length
+                || drivers.size() != vins.length || peak < vins.length) {
+            throw new StreamCorruptedException("Malformed vehicles");
+        }
+        // the capacity vinToVehicles had, so that the vehicles keep their
+        // order
+        int capacity = 16;
+        while (peak > capacity * 3 / 4) {
+            capacity *= 2;
+        }
+        peakNumOfVehicles = peak;
+        vinToVehicles = new HashMap<Integer,AIMVehicleSimModel>(capacity);
+        laneOccupancy.retainAll(Collections.emptySet());
+        for(int i = 0; i < vins.length; i++) {
+            VehicleSpec spec = VehicleSpecDatabase.getVehicleSpecByName(specs[i]);
+            if (spec == null) {
+                throw new StreamCorruptedException("Unknown vehicle specification " + specs[i]);
+            }
+            // the movement is replaced by the saved one
+            AIMBasicAutoVehicle vehicle = new AIMBasicAutoVehicle(spec,
+                    new Point2D.Double(), 0.0, 0.0, 0.0, 0.0, 0.0, currentTime);
+            vehicle.restoreState(vehicles.get(i), basicAIMIntersectionMap);
+            AIMAutoDriver driver = new AIMAutoDriver(vehicle, basicAIMIntersectionMap);
+            vehicle.setDriver(driver);
+            driver.restoreState(drivers.get(i), basicAIMIntersectionMap);
+            if (!VinRegistry.registerVehicleWithExistingVIN(vehicle, vins[i])) {
+                throw new StreamCorruptedException("Duplicate VIN " + vins[i]);
+            }
+            vinToVehicles.put(vins[i], vehicle);
+        }
+        // the lists of vehicles, updated in the order in which the vehicles
+        // were last moved
+        for(AIMVehicleSimModel vehicle : isParallelStepEnabled ?
+                getVehiclesOrderedByVin() : vinToVehicles.values()) {
+            updateVehicleLists(vehicle);
+        }
+        state.checkAllRead();
     }
 
 
@@ -357,6 +658,56 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
     // PRIVATE METHODS
     /////////////////////////////////
 
+    /**
+     * Add a vehicle to the active vehicles.
+     *
+     * @param vehicle  the vehicle
+     */
+    private void putVehicle(AIMVehicleSimModel vehicle) {
+        vinToVehicles.put(vehicle.getVIN(), vehicle);
+        peakNumOfVehicles = Math.max(peakNumOfVehicles, vinToVehicles.size());
+    }
+
+    /**
+     * Save the states of the parts of the map.
+     *
+     * @param parts  the parts of the map
+     * @return the states of the parts
+     * @throws NotSerializableException  if a part does not support snapshots
+     */
+    private static List<StateRecord> saveAll(List<?> parts)
+            throws NotSerializableException {
+        List<StateRecord> states = new ArrayList<StateRecord>(parts.size());
+        for(Object part : parts) {
+            if (!(part instanceof Restorable)) {
+                throw new NotSerializableException(part.getClass().getName());
+            }
+            states.add(((Restorable) part).saveState());
+        }
+        return states;
+    }
+
+    /**
+     * Restore the states of the parts of the map.
+     *
+     * @param parts   the parts of the map
+     * @param states  the states saved by {@link #saveAll(List)}
+     * @param what    what the parts are, for the error message
+     * @throws IOException  if the states are not the states of the parts
+     */
+    private static void restoreAll(List<?> parts, List<StateRecord> states,
+                                   String what) throws IOException {
+        if (states.size() != parts.size()) {
+            throw new StreamCorruptedException("Mismatched " + what);
+        }
+        for(int i = 0; i < parts.size(); i++) {
+            if (!(parts.get(i) instanceof Restorable)) {
+                throw new NotSerializableException(parts.get(i).getClass().getName());
+            }
+            ((Restorable) parts.get(i)).restoreState(states.get(i));
+        }
+    }
+
     /////////////////////////////////
     // STEP 1
     /////////////////////////////////
@@ -393,7 +744,8 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
                                     followingDistance){
                                 AIMVehicleSimModel vehicle = makeVehicle(spawnPoint, spawnSpec);
                                 VinRegistry.registerVehicle(vehicle); // Get vehicle a VIN number
-                                vinToVehicles.put(vehicle.getVIN(), vehicle);
+                                putVehicle(vehicle);
+                                updateVehicleLists(vehicle);
                                 numOfVehicleSpawned++;
                             } // otherwise there is not enough space to slow down so don't spawn this vehicle
                             else numOfVehicleWhichCouldNotBeSpawned++;
@@ -402,7 +754,8 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
                         else {
                             AIMVehicleSimModel vehicle = makeVehicle(spawnPoint, spawnSpec);
                             VinRegistry.registerVehicle(vehicle); // Get vehicle a VIN number
-                            vinToVehicles.put(vehicle.getVIN(), vehicle);
+                            putVehicle(vehicle);
+                            updateVehicleLists(vehicle);
                             numOfVehicleSpawned++;
                         }
                         break; // Only the first vehicle needed. TODO: FIX THIS
@@ -486,63 +839,48 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
      *         distance on their lanes
      */
     private Map<Lane,SortedMap<Double,AIMVehicleSimModel>> computeVehicleLists() {
-        // Set up the structure that will hold all the Vehicles as they are
-        // currently ordered in the Lanes
-        Map<Lane,SortedMap<Double,AIMVehicleSimModel>> vehicleLists =
-                new HashMap<Lane,SortedMap<Double,AIMVehicleSimModel>>();
-        for(Road road : basicAIMIntersectionMap.getRoads()) {
-            for(Lane lane : road.getLanes()) {
-                vehicleLists.put(lane, new TreeMap<Double,AIMVehicleSimModel>());
-            }
-        }
-        // Now add each of the Vehicles, but make sure to exclude those that are
-        // already inside (partially or entirely) the intersection
+        // Proxy vehicles are moved by their remote counterparts rather than
+        // by moveVehicles(), so refresh them here
         for(AIMVehicleSimModel vehicle : vinToVehicles.values()) {
-            // Find out what lanes it is in.
-            Set<Lane> lanes = vehicle.getDriver().getCurrentlyOccupiedLanes();
-            for(Lane lane : lanes) {
-                // Find out what IntersectionManager is coming up for this vehicle
-                IntersectionManager im =
-                        lane.getLaneIM().nextIntersectionManager(vehicle.getPosition());
-                // Only include this Vehicle if it is not entirely in the intersection.
-                if(im == null ||
-                        !(im.intersectsPoint(vehicle.getPosition()) && im.intersectsPoint(vehicle.getPointAtRear()))) {
-                    // Now find how far along the lane it is.
-                    double dst = lane.distanceAlongLane(vehicle.getPosition());
-                    // Now add it to the map.
-                    vehicleLists.get(lane).put(dst, vehicle);
-                    // Now check if this vehicle intersects any other lanes
-                    for (Road road : Debug.currentAimMap.getRoads()) {
-                        for (Lane otherLane : road.getLanes()) {
-                            if (otherLane.getId() != lane.getId()) {
-                                if (otherLane.getShape().getBounds2D().intersects(vehicle.getShape().getBounds2D())) {
-                                    double dstAlongOtherLane = otherLane.distanceAlongLane(vehicle.getPosition());
-                                    vehicleLists.get(otherLane).put(dstAlongOtherLane, vehicle);
-                                }
-                            }
-                        }
-                    }
-                }
+            if (vehicle instanceof ProxyVehicleSimModel) {
+                updateVehicleLists(vehicle);
             }
         }
-        // Now consolidate the lists based on lanes
-        for(Road road : basicAIMIntersectionMap.getRoads()) {
-            for(Lane lane : road.getLanes()) {
-                // We may have already removed this Lane from the map
-                if(vehicleLists.containsKey(lane)) {
-                    Lane currLane = lane;
-                    // Now run through the lanes
-                    while(currLane.hasNextLane()) {
-                        currLane = currLane.getNextLane();
-                        // Put everything from the next lane into the original lane
-                        // and remove the mapping for the next lane
-                        vehicleLists.get(lane).putAll(vehicleLists.remove(currLane));
+        return laneOccupancy.getVehicleLists();
+    }
+
+    /**
+     * Update the positions of a vehicle in the lists of vehicles of all
+     * lanes.  Vehicles that are entirely inside the intersection are left
+     * out.
+     *
+     * @param vehicle  the vehicle
+     */
+    private void updateVehicleLists(AIMVehicleSimModel vehicle) {
+        laneOccupancy.remove(vehicle);
+        // Find out what lanes it is in.
+        Set<Lane> lanes = vehicle.getDriver().getCurrentlyOccupiedLanes();
+        for(Lane lane : lanes) {
+            // Find out what IntersectionManager is coming up for this vehicle
+            IntersectionManager im =
+                    lane.getLaneIM().nextIntersectionManager(vehicle.getPosition());
+            // Only include this Vehicle if it is not entirely in the intersection.
+            if(im == null ||
+                    !(im.intersectsPoint(vehicle.getPosition()) && im.intersectsPoint(vehicle.getPointAtRear()))) {
+                // Now find how far along the lane it is.
+                double dst = lane.distanceAlongLane(vehicle.getPosition());
+                // Now add it to the map.
+                laneOccupancy.put(vehicle, lane, dst);
+                // Now check if this vehicle intersects any other lanes
+                Rectangle2D vehicleBounds = vehicle.getShape().getBounds2D();
+                for (Lane otherLane : laneBoundsIndex.findIntersectingLanes(vehicleBounds)) {
+                    if (otherLane.getId() != lane.getId()) {
+                        double dstAlongOtherLane = otherLane.distanceAlongLane(vehicle.getPosition());
+                        laneOccupancy.put(vehicle, otherLane, dstAlongOtherLane);
                     }
                 }
             }
         }
-
-        return vehicleLists;
     }
 
     /**
@@ -814,8 +1152,15 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
      * Allow each driver to act.
      */
     private void letDriversAct() {
-        for(AIMVehicleSimModel vehicle : vinToVehicles.values()) {
-            vehicle.getDriver().act();
+        if (isParallelStepEnabled) {
+            // A driver only writes to its own vehicle and outbox; the
+            // outboxes are drained in communication()
+            getVehiclesOrderedByVin().parallelStream()
+                    .forEach(vehicle -> context.run(() -> vehicle.getDriver().act()));
+        } else {
+            for(AIMVehicleSimModel vehicle : vinToVehicles.values()) {
+                vehicle.getDriver().act();
+            }
         }
     }
 
@@ -829,8 +1174,16 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
      * @param timeStep  the time step
      */
     private void letIntersectionManagersAct(double timeStep) {
-        for(IntersectionManager im : basicAIMIntersectionMap.getIntersectionManagers()) {
-            im.act(timeStep);
+        if (isParallelStepEnabled) {
+            // Each intersection manager only works on its own inbox, outbox,
+            // reservation grid and ACZs; the outboxes are drained in the
+            // order of the intersection managers in deliverI2VMessages()
+            basicAIMIntersectionMap.getIntersectionManagers().parallelStream()
+                    .forEach(im -> context.run(() -> im.act(timeStep)));
+        } else {
+            for(IntersectionManager im : basicAIMIntersectionMap.getIntersectionManagers()) {
+                im.act(timeStep);
+            }
         }
     }
 
@@ -866,11 +1219,17 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
                             sender.getPosition().distance(
                                     receiver.getIntersection().getCentroid());
                     // Find out if the message will make it that far
-                    if(transmit(txDistance, sender.getTransmissionPower())) {
+                    boolean delivered =
+                            transmit(txDistance, sender.getTransmissionPower());
+                    if(delivered) {
                         // Actually deliver the message
                         receiver.receive(msg);
                         // Add the delivery to the debugging information
                     }
+                    if (traceRecorder != null) {
+                        traceRecorder.recordV2IMessage(msg.getVin(), msg.getImId(),
+                                msg.getMessageType().ordinal(), delivered);
+                    }
                     // Either way, we increment the number of transmitted messages
                 }
             }
@@ -895,10 +1254,18 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
                         senderIM.getIntersection().getCentroid().distance(
                                 vehicle.getPosition());
                 // Find out if the message will make it that far
-                if(transmit(txDistance, senderIM.getTransmissionPower())) {
+                boolean delivered =
+                        transmit(txDistance, senderIM.getTransmissionPower());
+                if(delivered) {
                     // Actually deliver the message
                     vehicle.receive(msg);
                 }
+                if (traceRecorder != null) {
+                    traceRecorder.recordI2VMessage(msg.getVin(), msg.getImId(),
+                            msg.getMessageType().ordinal(),
+                            msg instanceof Reject ? ((Reject) msg).getReason().ordinal() : -1,
+                            delivered);
+                }
             }
             // Done delivering the IntersectionManager's messages, so clear the
             // outbox.
@@ -1003,10 +1370,15 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
      * @param timeStep  the time step
      */
     private void moveVehicles(double timeStep) {
+        if (isParallelStepEnabled) {
+            moveVehiclesInParallel(timeStep);
+            return;
+        }
         for(AIMVehicleSimModel vehicle : vinToVehicles.values()) {
             Point2D p1 = vehicle.getPosition();
             vehicle.move(timeStep);
             Point2D p2 = vehicle.getPosition();
+            updateVehicleLists(vehicle);
             for(DataCollectionLine line : basicAIMIntersectionMap.getDataCollectionLines()) {
                 line.intersect(vehicle, currentTime, p1, p2);
             }
@@ -1017,24 +1389,109 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
     }
 
     /**
-     * Detects collisions. Currently not used because vehicles collide - Go figure.
+     * Give the reservation planners of the intersection managers the
+     * requests the vehicles within their lookahead distance are about to
+     * send, so that the reservations are planned before the requests
+     * arrive.  The vehicles have just moved, so they are in the state in
+     * which they prepare their requests in the next time step.
      */
-    private void checkForCollisions() {
-        Integer[] keys = vinToVehicles.keySet().toArray(new Integer[]{});
-        for(int i = 0; i < keys.length - 1; i++) { //-1 because we won't compare the last element with anything.
-            Integer[] keysToCompare = Arrays.copyOfRange(keys, i + 1, keys.length);
-            AIMVehicleSimModel vehicle1 = vinToVehicles.get(keys[i]);
-            for(int j = 0; j < keysToCompare.length; j++) {
-                AIMVehicleSimModel vehicle2 = vinToVehicles.get(keysToCompare[j]);
-                if(VehicleUtil.collision(vehicle1, vehicle2)) {
-                    throw new RuntimeException(String.format("There was a collision between vehicles %d and %d",
-                            vehicle1.getVIN(),
-                            vehicle2.getVIN()));
+    private void anticipateRequests() {
+        for(AIMVehicleSimModel vehicle : vinToVehicles.values()) {
+            if (!(vehicle instanceof AIMAutoVehicleSimModel)) {
+                continue;
+            }
+            AIMAutoDriver driver = ((AIMAutoVehicleSimModel)vehicle).getDriver();
+            IntersectionManager im = driver.getCurrentIM();
+            if (!(im instanceof V2IManager)
+                    || ((V2IManager) im).getPrePlanner() == null
+                    || !(driver.getCurrentCoordinator() instanceof V2ICoordinator)) {
+                continue;
+            }
+            ReservationPrePlanner planner = ((V2IManager) im).getPrePlanner();
+            // the memoized distances are those before the move
+            driver.clearMemoizationCaches();
+            if (driver.distanceToNextIntersection() > planner.getLookaheadDistance()) {
+                continue;
+            }
+            List<Request.Proposal> proposals =
+                    ((V2ICoordinator) driver.getCurrentCoordinator()).previewProposals();
+            if (proposals != null) {
+                if (prePlanningExecutor == null) {
+                    prePlanningExecutor = ReservationPrePlanner.createExecutor();
                 }
+                planner.anticipate(prePlanningExecutor, vehicle.getVIN(),
+                        new Request.VehicleSpecForRequestMsg(vehicle.getSpec()),
+                        proposals);
             }
         }
     }
 
+    /**
+     * Move all the vehicles in parallel, then update the lists of vehicles and
+     * record the crossings of the data collection lines in the order of the
+     * VINs.
+     *
+     * @param timeStep  the time step
+     */
+    private void moveVehiclesInParallel(double timeStep) {
+        List<AIMVehicleSimModel> vehicles = getVehiclesOrderedByVin();
+        Point2D[] startPositions = new Point2D[vehicles.size()];
+        Point2D[] endPositions = new Point2D[vehicles.size()];
+        IntStream.range(0, vehicles.size()).parallel().forEach(i -> context.run(() -> {
+            AIMVehicleSimModel vehicle = vehicles.get(i);
+            startPositions[i] = vehicle.getPosition();
+            vehicle.move(timeStep);
+            endPositions[i] = vehicle.getPosition();
+        }));
+        for(int i = 0; i < vehicles.size(); i++) {
+            AIMVehicleSimModel vehicle = vehicles.get(i);
+            updateVehicleLists(vehicle);
+            for(DataCollectionLine line : basicAIMIntersectionMap.getDataCollectionLines()) {
+                line.intersect(vehicle, currentTime, startPositions[i], endPositions[i]);
+            }
+            if (Debug.isPrintVehicleStateOfVIN(vehicle.getVIN())) {
+                vehicle.printState();
+            }
+        }
+    }
+
+    /**
+     * Get the active vehicles in the order of their VINs.
+     *
+     * @return the active vehicles in the order of their VINs
+     */
+    private List<AIMVehicleSimModel> getVehiclesOrderedByVin() {
+        List<AIMVehicleSimModel> vehicles =
+                new ArrayList<AIMVehicleSimModel>(vinToVehicles.size());
+        for(int vin : new TreeSet<Integer>(vinToVehicles.keySet())) {
+            vehicles.add(vinToVehicles.get(vin));
+        }
+        return vehicles;
+    }
+
+    /**
+     * Record the vehicles at the end of the step in the trace.
+     */
+    private void recordTrace() {
+        for(AIMVehicleSimModel vehicle : getVehiclesOrderedByVin()) {
+            traceRecorder.recordVehicle(vehicle);
+        }
+        traceRecorder.endStep(currentTime);
+    }
+
+    /**
+     * Detects collisions. Currently not used because vehicles collide - Go figure.
+     */
+    private void checkForCollisions() {
+        List<AIMVehicleSimModel> vehicles = new ArrayList<AIMVehicleSimModel>(vinToVehicles.values());
+        int[] collision = VehicleUtil.findCollision(vehicles);
+        if (collision != null) {
+            throw new RuntimeException(String.format("There was a collision between vehicles %d and %d",
+                    vehicles.get(collision[0]).getVIN(),
+                    vehicles.get(collision[1]).getVIN()));
+        }
+    }
+
 
     /////////////////////////////////
     // STEP 7
@@ -1067,7 +1524,7 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
         }
         // Remove the marked vehicles
         for(int vin : removedVINs) {
-            vinToVehicles.remove(vin);
+            laneOccupancy.remove(vinToVehicles.remove(vin));
             completedVINs.add(vin);
             numOfCompletedVehicles++;
         }
@@ -1090,7 +1547,7 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
 
     private void recordCompletedVehicles(List<AIMVehicleSimModel> completedVehicles) {
         for(AIMVehicleSimModel vehicle : completedVehicles) {
-            vehiclesRecord.add(new VehicleResult(
+            VehicleResult result = new VehicleResult(
                     vehicle.getVIN(),
                     vehicle.getSpec().getName(),
                     vehicle.getStartTime(),
@@ -1098,13 +1555,18 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
                     vehicle.getFinalVelocity(),
                     vehicle.getMaxVelocity(),
                     vehicle.getMinVelocity()
-            ));
+            );
+            if (resultSink == null) {
+                vehiclesRecord.add(result);
+            } else if (!mergeMode) {
+                resultSink.vehicleCompleted(result);
+            }
         }
     }
 
     private void recordMergeCompletedVehicles(List<AIMVehicleSimModel> completedVehicles) {
         for(AIMVehicleSimModel vehicle : completedVehicles) {
-            mergeVehiclesRecord.add(new MergeVehicleResult(
+            MergeVehicleResult result = new MergeVehicleResult(
                     vehicle.getVIN(),
                     vehicle.getStartingRoad().toString(),
                     vehicle.getSpec().getName(),
@@ -1116,7 +1578,12 @@ public class AutoDriverOnlySimulator implements AIMSimulator {
                     vehicle.getMinVelocity(),
                     vehicle.getFinalXPos(),
                     vehicle.getFinalYPos()
-            ));
+            );
+            if (resultSink == null) {
+                mergeVehiclesRecord.add(result);
+            } else {
+                resultSink.vehicleCompleted(result);
+            }
         }
     }
 
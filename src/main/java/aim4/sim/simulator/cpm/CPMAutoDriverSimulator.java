@@ -11,8 +11,13 @@ import aim4.map.cpm.parking.ParkingLane;
 import aim4.map.cpm.parking.SensoredLine;
 import aim4.map.cpm.parking.StatusMonitor;
 import aim4.map.lane.Lane;
+import aim4.map.lane.LaneOccupancyIndex;
+import aim4.sim.SimulationContext;
 import aim4.sim.Simulator;
+import aim4.sim.StepPhaseTimer;
+import aim4.sim.results.ResultSink;
 import aim4.sim.results.SimulatorResult;
+import aim4.sim.trace.TraceRecorder;
 import aim4.vehicle.VehicleSimModel;
 import aim4.vehicle.VehicleSpec;
 import aim4.vehicle.VinRegistry;
@@ -72,6 +77,8 @@ public class CPMAutoDriverSimulator implements Simulator {
     protected CPMBasicMap map;
     /** All active vehicles, in form of a map from VINs to vehicle objects. */
     protected Map<Integer,CPMBasicAutoVehicle> vinToVehicles;
+    /** The vehicles on each lane */
+    private LaneOccupancyIndex<CPMBasicAutoVehicle> laneOccupancy;
     /** The current time */
     protected double currentTime;
     /** The number of completed vehicles */
@@ -82,10 +89,19 @@ public class CPMAutoDriverSimulator implements Simulator {
     private int totalBitsTransmittedByCompletedVehicles;
     /** The total number of bits received by the completed vehicles */
     private int totalBitsReceivedByCompletedVehicles;
+    /** The context of the simulation, bound to the thread that steps the simulator */
+    private final SimulationContext context = SimulationContext.current();
+    /** The time spent in the phases of the steps */
+    private final StepPhaseTimer stepPhaseTimer = new StepPhaseTimer();
 
     public CPMAutoDriverSimulator(CPMBasicMap map){
         this.map = map;
         this.vinToVehicles = new HashMap<Integer,CPMBasicAutoVehicle>();
+        List<Lane> lanes = new ArrayList<Lane>();
+        for(Road road : map.getRoads()) {
+            lanes.addAll(road.getLanes());
+        }
+        this.laneOccupancy = new LaneOccupancyIndex<CPMBasicAutoVehicle>(lanes);
         this.parkedVehicles = new ArrayList<CPMBasicAutoVehicle>();
 
         currentTime = 0.0;
@@ -98,14 +114,32 @@ public class CPMAutoDriverSimulator implements Simulator {
 
     @Override
     public SimStepResult step(double timeStep) {
+        return context.call(() -> stepInContext(timeStep));
+    }
+
+    /**
+     * Move the simulator a time step forward with the context of the
+     * simulation bound to the current thread.
+     *
+     * @param timeStep  the amount of time the simulation should run in
+     *                  this time step
+     * @return the result of the time step
+     */
+    private SimStepResult stepInContext(double timeStep) {
+        long phaseStart = stepPhaseTimer.start();
         spawnVehicles(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SPAWN, phaseStart);
         provideSensorInput();
         findNextVehicles();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SENSOR, phaseStart);
         letDriversAct();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.DRIVERS, phaseStart);
         moveVehicles(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.MOVE, phaseStart);
         observeParkedVehicles();
         observeNumberOfVehiclesInCarPark();
         List<CPMBasicAutoVehicle> completedVehicles = cleanUpCompletedVehicles();
+        stepPhaseTimer.stop(StepPhaseTimer.CLEAN_UP, phaseStart);
         currentTime += timeStep;
         return new CPMAutoDriverSimStepResult(completedVehicles);
     }
@@ -227,51 +261,28 @@ public class CPMAutoDriverSimulator implements Simulator {
     }
 
     /**
-     * Compute the lists of vehicles of all lanes.
+     * Compute the lists of vehicles of all lanes.  The lists are kept between
+     * time steps and only the entries of each vehicle are updated, since
+     * subclasses add and move vehicles without going through a common hook.
      *
      * @return a mapping from lanes to lists of vehicles sorted by their
      *         distance on their lanes
      */
     private Map<Lane,SortedMap<Double,CPMBasicAutoVehicle>> computeVehicleLists() {
-        // Set up the structure that will hold all the Vehicles as they are
-        // currently ordered in the Lanes
-        Map<Lane,SortedMap<Double,CPMBasicAutoVehicle>> vehicleLists =
-                new HashMap<Lane,SortedMap<Double,CPMBasicAutoVehicle>>();
-        for(Road road : map.getRoads()) {
-            for(Lane lane : road.getLanes()) {
-                vehicleLists.put(lane, new TreeMap<Double,CPMBasicAutoVehicle>());
-            }
-        }
-        // Now add each of the Vehicles, but make sure to exclude those that are
-        // already inside (partially or entirely) the intersection
+        // Forget the vehicles that have left the simulation
+        laneOccupancy.retainAll(new HashSet<CPMBasicAutoVehicle>(vinToVehicles.values()));
         for(CPMBasicAutoVehicle vehicle : vinToVehicles.values()) {
+            laneOccupancy.remove(vehicle);
             // Find out what lanes it is in.
             Set<Lane> lanes = vehicle.getDriver().getCurrentlyOccupiedLanes();
             for(Lane lane : lanes) {
                 // Now find how far along the lane it is.
                 double dst = lane.distanceAlongLane(vehicle.getPosition());
                 // Now add it to the map.
-                vehicleLists.get(lane).put(dst, vehicle);
+                laneOccupancy.put(vehicle, lane, dst);
             }
         }
-        // Now consolidate the lists based on lanes
-        for(Road road : map.getRoads()) {
-            for(Lane lane : road.getLanes()) {
-                // We may have already removed this Lane from the map
-                if(vehicleLists.containsKey(lane)) {
-                    Lane currLane = lane;
-                    // Now run through the lanes
-                    while(currLane.hasNextLane()) {
-                        currLane = currLane.getNextLane();
-                        // Put everything from the next lane into the original lane
-                        // and remove the mapping for the next lane
-                        vehicleLists.get(lane).putAll(vehicleLists.remove(currLane));
-                    }
-                }
-            }
-        }
-
-        return vehicleLists;
+        return laneOccupancy.getVehicleLists();
     }
 
     /**
@@ -643,6 +654,28 @@ public class CPMAutoDriverSimulator implements Simulator {
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StepPhaseTimer getStepPhaseTimer() {
+        return stepPhaseTimer;
+    }
+
+    @Override
+    public void setResultSink(ResultSink resultSink) {
+        //Sorry, CPM does not produce results in this way.
+        throw new UnsupportedOperationException(
+            "CPM does not stream the results of the vehicles");
+    }
+
+    @Override
+    public void setTraceRecorder(TraceRecorder traceRecorder) {
+        //Sorry, CPM does not record traces.
+        throw new UnsupportedOperationException(
+            "CPM does not record traces");
+    }
+
     @Override
     public CPMMap getMap() {
         return map;
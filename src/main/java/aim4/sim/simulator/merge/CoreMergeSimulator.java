@@ -1,26 +1,42 @@
 package aim4.sim.simulator.merge;
 
+import aim4.driver.merge.MergeAutoDriver;
+import aim4.driver.merge.MergeV2IAutoDriver;
 import aim4.map.DataCollectionLine;
 import aim4.map.merge.MergeMap;
 import aim4.map.merge.RoadNames;
+import aim4.sim.SimulationContext;
+import aim4.sim.StepPhaseTimer;
 import aim4.sim.results.CoreMergeResult;
 import aim4.sim.results.CoreMergeVehicleResult;
+import aim4.sim.results.ResultSink;
 import aim4.sim.results.SimulatorResult;
 import aim4.sim.setup.merge.enums.ProtocolType;
+import aim4.sim.trace.TraceRecorder;
 import aim4.sim.simulator.merge.helper.SensorInputHelper;
 import aim4.sim.simulator.merge.helper.SpawnHelper;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
+import aim4.vehicle.VehicleSpec;
+import aim4.vehicle.VehicleSpecDatabase;
 import aim4.vehicle.VehicleUtil;
+import aim4.vehicle.VinRegistry;
+import aim4.vehicle.merge.MergeBasicAutoVehicle;
+import aim4.vehicle.merge.MergeV2IAutoVehicle;
 import aim4.vehicle.merge.MergeVehicleSimModel;
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.*;
 
 /**
  * Created by Callum on 08/03/2017.
  */
-public class CoreMergeSimulator implements MergeSimulator {
+public class CoreMergeSimulator implements MergeSimulator, Restorable {
     //NESTED CLASSES//
     public static class CoreMergeSimStepResult implements SimStepResult {
         private Map<Integer, MergeVehicleSimModel> completedVehicles;
@@ -41,14 +57,26 @@ public class CoreMergeSimulator implements MergeSimulator {
     private double currentTime;
     /* The number of vehicles that passed through the merge zone */
     private int numberOfCompletedVehicles;
+    /* The largest number of active vehicles so far */
+    private int peakNumOfVehicles;
     /* The protocol type */
     protected ProtocolType protocolType;
 
     //RESULTS//
     protected List<CoreMergeVehicleResult> vehiclesRecord;
+    /* The sink of the results; null if they are kept in memory */
+    protected ResultSink resultSink;
+    /* The recorder of the trace; null if no trace is recorded */
+    protected TraceRecorder traceRecorder;
     protected Map<String, Double> specToExpectedTimeMergeLane;
     protected Map<String, Double> specToExpectedTimeTargetLane;
 
+    //CONTEXT//
+    /* The context of the simulation, bound to the thread that steps the simulator */
+    protected final SimulationContext context = SimulationContext.current();
+    /* The time spent in the phases of the steps */
+    protected final StepPhaseTimer stepPhaseTimer = new StepPhaseTimer();
+
     //HELPERS//
     SpawnHelper spawnHelper;
     SensorInputHelper sensorInputHelper;
@@ -78,21 +106,55 @@ public class CoreMergeSimulator implements MergeSimulator {
 
     @Override
     public synchronized CoreMergeSimStepResult step(double timeStep) {
-        spawnHelper.spawnVehicles(timeStep, protocolType);
+        return context.call(() -> stepInContext(timeStep));
+    }
+
+    /**
+     * Move the simulator a time step forward with the context of the
+     * simulation bound to the current thread.
+     *
+     * @param timeStep  the amount of time the simulation should run in
+     *                  this time step
+     * @return the result of the time step
+     */
+    private CoreMergeSimStepResult stepInContext(double timeStep) {
+        long phaseStart = stepPhaseTimer.start();
+        spawnVehicles(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SPAWN, phaseStart);
         sensorInputHelper.provideSensorInput();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SENSOR, phaseStart);
         letDriversAct();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.DRIVERS, phaseStart);
         moveVehicles(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.MOVE, phaseStart);
         //checkForCollisions(); TODO: Fix collision prevention so that this can be run.
 
         Map<Integer, MergeVehicleSimModel> completedVehicles = cleanUpCompletedVehicles();
         provideCompletedVehiclesWithResultsInfo(completedVehicles);
         recordCompletedVehicles(completedVehicles);
         updateMaxMinVelocities();
+        stepPhaseTimer.stop(StepPhaseTimer.CLEAN_UP, phaseStart);
         incrementCurrentTime(timeStep);
+        recordTrace();
 
         return new CoreMergeSimStepResult(completedVehicles);
     }
 
+    @Override
+    public StepPhaseTimer getStepPhaseTimer() {
+        return stepPhaseTimer;
+    }
+
+    @Override
+    public void setResultSink(ResultSink resultSink) {
+        this.resultSink = resultSink;
+    }
+
+    @Override
+    public void setTraceRecorder(TraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
+
     @Override
     public MergeMap getMap() {
         return map;
@@ -128,10 +190,33 @@ public class CoreMergeSimulator implements MergeSimulator {
         return this.vinToVehicles;
     }
 
+    /**
+     * Spawn the vehicles of the spawn points.
+     *
+     * @param timeStep  the time step
+     */
+    protected void spawnVehicles(double timeStep) {
+        spawnHelper.spawnVehicles(timeStep, protocolType);
+        peakNumOfVehicles = Math.max(peakNumOfVehicles, vinToVehicles.size());
+    }
+
     protected void incrementCurrentTime(double timeStep) {
         currentTime += timeStep;
     }
 
+    /**
+     * Record the vehicles at the end of the step in the trace, if one is
+     * recorded.  The messages of the merge managers are not recorded.
+     */
+    protected void recordTrace() {
+        if (traceRecorder != null) {
+            for(MergeVehicleSimModel vehicle : vinToVehicles.values()) {
+                traceRecorder.recordVehicle(vehicle);
+            }
+            traceRecorder.endStep(currentTime);
+        }
+    }
+
     //STEP DRIVERS//
     protected void letDriversAct() {
         for(MergeVehicleSimModel vehicle : vinToVehicles.values()) {
@@ -246,7 +331,7 @@ public class CoreMergeSimulator implements MergeSimulator {
     protected void recordCompletedVehicles(Map<Integer, MergeVehicleSimModel> completedVehicles) {
         for(int vin : completedVehicles.keySet()) {
             MergeVehicleSimModel vehicle = completedVehicles.get(vin);
-            vehiclesRecord.add(new CoreMergeVehicleResult(
+            CoreMergeVehicleResult result = new CoreMergeVehicleResult(
                     vin,
                     vehicle.getStartingRoad().toString(),
                     vehicle.getSpec().getName(),
@@ -258,7 +343,12 @@ public class CoreMergeSimulator implements MergeSimulator {
                     vehicle.getMinVelocity(),
                     vehicle.getFinalXPos(),
                     vehicle.getFinalYPos()
-            ));
+            );
+            if (resultSink == null) {
+                vehiclesRecord.add(result);
+            } else {
+                resultSink.vehicleCompleted(result);
+            }
         }
     }
 
@@ -273,4 +363,186 @@ public class CoreMergeSimulator implements MergeSimulator {
         }
     }
 
+    // SNAPSHOTS //
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The context of the simulation is saved with the state of the
+     * simulator.  The map, which is rebuilt by the setup of the simulation,
+     * is saved as the states of its merge managers, spawn points and data
+     * collection lines.  Only the vehicles created by this simulator are
+     * supported, and the results must be kept in memory.
+     */
+    @Override
+    public synchronized StateRecord saveState() throws NotSerializableException {
+        if (resultSink != null) {
+            throw new NotSerializableException(resultSink.getClass().getName());
+        }
+        if (traceRecorder != null) {
+            throw new NotSerializableException(traceRecorder.getClass().getName());
+        }
+        StateRecord state = new StateRecord(CoreMergeSimulator.class.getName(), 1);
+        state.putRecord("context", context.saveState(map));
+        state.putDouble("currentTime", currentTime);
+        state.putInt("numberOfCompletedVehicles", numberOfCompletedVehicles);
+        List<StateRecord> results = new ArrayList<StateRecord>(vehiclesRecord.size());
+        for(CoreMergeVehicleResult result : vehiclesRecord) {
+            results.add(result.toState());
+        }
+        state.putRecords("vehiclesRecord", results);
+        // the map
+        state.putRecords("mergeManagers", saveAll(map.getMergeManagers()));
+        state.putRecords("spawnPoints", saveAll(map.getSpawnPoints()));
+        state.putRecords("dataCollectionLines", saveAll(map.getDataCollectionLines()));
+        // the vehicles, in the order of vinToVehicles
+        state.putInt("peakNumOfVehicles", peakNumOfVehicles);
+        int[] vins = new int[vinToVehicles.size()];
+        String[] specs = new String[vins.length];
+        List<StateRecord> vehicles = new ArrayList<StateRecord>(vins.length);
+        List<StateRecord> drivers = new ArrayList<StateRecord>(vins.length);
+        int i = 0;
+        for(MergeVehicleSimModel vehicle : vinToVehicles.values()) {
+            if (vehicle.getClass() == MergeV2IAutoVehicle.class) {
+                MergeV2IAutoVehicle v = (MergeV2IAutoVehicle) vehicle;
+                if (v.getDriver().getClass() != MergeV2IAutoDriver.class) {
+                    throw new NotSerializableException(v.getDriver().getClass().getName());
+                }
+                vehicles.add(v.saveState());
+                drivers.add(v.getDriver().saveState(map));
+            } else if (vehicle.getClass() == MergeBasicAutoVehicle.class) {
+                MergeBasicAutoVehicle v = (MergeBasicAutoVehicle) vehicle;
+                if (v.getDriver().getClass() != MergeAutoDriver.class) {
+                    throw new NotSerializableException(v.getDriver().getClass().getName());
+                }
+                vehicles.add(v.saveState());
+                drivers.add(v.getDriver().saveState(map));
+            } else {
+                throw new NotSerializableException(vehicle.getClass().getName());
+            }
+            vins[i] = vehicle.getVIN();
+            specs[i] = vehicle.getSpec().getName();
+            i++;
+        }
+        state.putInts("vins", vins);
+        state.putStrings("specs", specs);
+        state.putRecords("vehicles", vehicles);
+        state.putRecords("drivers", drivers);
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The simulator must have been created by the same setup as the saved
+     * one, and its {@link SimulationContext} must be bound to the current
+     * thread, since the vehicles register again with their VINs.
+     */
+    @Override
+    public synchronized void restoreState(StateRecord state) throws IOException {
+        state.check(CoreMergeSimulator.class.getName(), 1);
+        // first, since it forgets the active vehicles
+        context.restoreState(state.getRecord("context"), map);
+        currentTime = state.getDouble("currentTime");
+        numberOfCompletedVehicles = state.getInt("numberOfCompletedVehicles");
+        vehiclesRecord.clear();
+        for(StateRecord result : state.getRecords("vehiclesRecord")) {
+            vehiclesRecord.add(CoreMergeVehicleResult.fromState(result));
+        }
+        // the map
+        restoreAll(map.getMergeManagers(), state.getRecords("mergeManagers"), "merge managers");
+        restoreAll(map.getSpawnPoints(), state.getRecords("spawnPoints"), "spawn points");
+        restoreAll(map.getDataCollectionLines(),
+                state.getRecords("dataCollectionLines"), "data collection lines");
+        // the vehicles
+        int peak = state.getInt("peakNumOfVehicles");
+        int[] vins = state.getInts("vins");
+        String[] specs = state.getStrings("specs");
+        List<StateRecord> vehicles = state.getRecords("vehicles");
+        List<StateRecord> drivers = state.getRecords("drivers");
+        if (specs.length != vins.length || vehicles.size() != vins.length
+                || drivers.size() != vins.length || peak < vins.length) {
+            throw new StreamCorruptedException("Malformed vehicles");
+        }
+        // the capacity vinToVehicles had, so that the vehicles keep their
+        // order
+        int capacity = 16;
+        while (peak > capacity * 3 / 4) {
+            capacity *= 2;
+        }
+        peakNumOfVehicles = peak;
+        vinToVehicles = new HashMap<Integer, MergeVehicleSimModel>(capacity);
+        spawnHelper = new SpawnHelper(map, vinToVehicles);
+        sensorInputHelper = new SensorInputHelper(map, vinToVehicles);
+        for(int i = 0; i < vins.length; i++) {
+            VehicleSpec spec = VehicleSpecDatabase.getVehicleSpecByName(specs[i]);
+            if (spec == null) {
+                throw new StreamCorruptedException("Unknown vehicle specification " + specs[i]);
+            }
+            // the movement is replaced by the saved one
+            MergeVehicleSimModel vehicle;
+            if (vehicles.get(i).getType().equals(MergeV2IAutoVehicle.class.getName())) {
+                MergeV2IAutoVehicle v = new MergeV2IAutoVehicle(spec,
+                        new Point2D.Double(), 0.0, 0.0, 0.0, 0.0, 0.0, currentTime);
+                v.restoreState(vehicles.get(i), map);
+                MergeV2IAutoDriver driver = new MergeV2IAutoDriver(v, map, protocolType);
+                v.setDriver(driver);
+                driver.restoreState(drivers.get(i), map);
+                vehicle = v;
+            } else {
+                MergeBasicAutoVehicle v = new MergeBasicAutoVehicle(spec,
+                        new Point2D.Double(), 0.0, 0.0, 0.0, 0.0, 0.0, currentTime);
+                v.restoreState(vehicles.get(i), map);
+                MergeAutoDriver driver = new MergeAutoDriver(v, map);
+                v.setDriver(driver);
+                driver.restoreState(drivers.get(i), map);
+                vehicle = v;
+            }
+            if (!VinRegistry.registerVehicleWithExistingVIN(vehicle, vins[i])) {
+                throw new StreamCorruptedException("Duplicate VIN " + vins[i]);
+            }
+            vinToVehicles.put(vins[i], vehicle);
+        }
+        state.checkAllRead();
+    }
+
+    // PRIVATE STATIC METHODS //
+    /**
+     * Save the states of the parts of the map.
+     *
+     * @param parts  the parts of the map
+     * @return the states of the parts
+     * @throws NotSerializableException  if a part does not support snapshots
+     */
+    private static List<StateRecord> saveAll(List<?> parts)
+            throws NotSerializableException {
+        List<StateRecord> states = new ArrayList<StateRecord>(parts.size());
+        for(Object part : parts) {
+            if (!(part instanceof Restorable)) {
+                throw new NotSerializableException(part.getClass().getName());
+            }
+            states.add(((Restorable) part).saveState());
+        }
+        return states;
+    }
+
+    /**
+     * Restore the states of the parts of the map.
+     *
+     * @param parts   the parts of the map
+     * @param states  the states saved by {@link #saveAll(List)}
+     * @param what    what the parts are, for the error message
+     * @throws IOException  if the states are not the states of the parts
+     */
+    private static void restoreAll(List<?> parts, List<StateRecord> states,
+                                   String what) throws IOException {
+        if (states.size() != parts.size()) {
+            throw new StreamCorruptedException("Mismatched " + what);
+        }
+        for(int i = 0; i < parts.size(); i++) {
+            if (!(parts.get(i) instanceof Restorable)) {
+                throw new NotSerializableException(parts.get(i).getClass().getName());
+            }
+            ((Restorable) parts.get(i)).restoreState(states.get(i));
+        }
+    }
 }
@@ -5,6 +5,7 @@ import aim4.im.merge.V2IEnabledMergeManager;
 import aim4.map.merge.MergeMap;
 import aim4.msg.merge.i2v.I2VMergeMessage;
 import aim4.msg.merge.v2i.V2IMergeMessage;
+import aim4.sim.StepPhaseTimer;
 import aim4.sim.setup.merge.enums.ProtocolType;
 import aim4.vehicle.VinRegistry;
 import aim4.vehicle.merge.MergeV2IAutoVehicleSimModel;
@@ -34,19 +35,42 @@ public class V2IMergeSimulator extends CoreMergeSimulator {
     // ACTION //
     @Override
     public synchronized CoreMergeSimStepResult step(double timeStep) {
-        spawnHelper.spawnVehicles(timeStep, protocolType);
+        return context.call(() -> stepInContext(timeStep));
+    }
+
+    /**
+     * Move the simulator a time step forward with the context of the
+     * simulation bound to the current thread.
+     *
+     * @param timeStep  the amount of time the simulation should run in
+     *                  this time step
+     * @return the result of the time step
+     */
+    private CoreMergeSimStepResult stepInContext(double timeStep) {
+        long phaseStart = stepPhaseTimer.start();
+        spawnVehicles(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SPAWN, phaseStart);
         sensorInputHelper.provideSensorInput();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SENSOR, phaseStart);
         letDriversAct();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.DRIVERS, phaseStart);
         letMergeManagersAct(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.INTERSECTION_MANAGERS,
+                phaseStart);
         communication();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.COMMUNICATION,
+                phaseStart);
         moveVehicles(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.MOVE, phaseStart);
         //checkForCollisions(); TODO: Fix collision prevention so that this can be run.
 
         Map<Integer, MergeVehicleSimModel> completedVehicles = cleanUpCompletedVehicles();
         provideCompletedVehiclesWithResultsInfo(completedVehicles);
         recordCompletedVehicles(completedVehicles);
         updateMaxMinVelocities();
+        stepPhaseTimer.stop(StepPhaseTimer.CLEAN_UP, phaseStart);
         incrementCurrentTime(timeStep);
+        recordTrace();
 
         return new CoreMergeSimStepResult(completedVehicles);
     }
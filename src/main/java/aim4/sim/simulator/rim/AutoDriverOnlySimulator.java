@@ -11,23 +11,38 @@ import aim4.map.DataCollectionLine;
 import aim4.map.Road;
 import aim4.map.lane.ArcSegmentLane;
 import aim4.map.lane.Lane;
+import aim4.map.lane.LaneBoundsIndex;
 import aim4.map.lane.LineSegmentLane;
 import aim4.msg.rim.i2v.I2VMessage;
+import aim4.msg.rim.i2v.Reject;
 import aim4.msg.rim.v2i.V2IMessage;
+import aim4.sim.SimulationContext;
+import aim4.sim.StepPhaseTimer;
 import aim4.sim.results.Result;
+import aim4.sim.results.ResultSink;
 import aim4.sim.results.VehicleResult;
+import aim4.sim.snapshot.Restorable;
+import aim4.sim.snapshot.StateRecord;
+import aim4.sim.trace.TraceRecorder;
 import aim4.sim.simulator.rim.helper.SpawnHelper;
 import aim4.util.Util;
+import aim4.vehicle.MaxTurnVelocityTable;
+import aim4.vehicle.VehicleSpec;
+import aim4.vehicle.VehicleSpecDatabase;
 import aim4.vehicle.VehicleUtil;
 import aim4.vehicle.VinRegistry;
 import aim4.vehicle.rim.ProxyVehicleSimModel;
 import aim4.vehicle.rim.RIMAutoVehicleSimModel;
+import aim4.vehicle.rim.RIMBasicAutoVehicle;
 import aim4.vehicle.rim.RIMVehicleSimModel;
 
 import java.awt.*;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.*;
 import java.util.List;
 import java.util.Queue;
@@ -35,7 +50,7 @@ import java.util.Queue;
 /**
  * The autonomous drivers only simulator.
  */
-public class AutoDriverOnlySimulator implements RIMSimulator{
+public class AutoDriverOnlySimulator implements RIMSimulator, Restorable {
 
     /////////////////////////////////
     // NESTED CLASSES
@@ -68,6 +83,13 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
         }
     }
 
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The name of the collision check phase in the step phase timer */
+    public static final String COLLISION_CHECK_PHASE = StepPhaseTimer.COLLISION;
+
     /////////////////////////////////
     // PRIVATE FIELDS
     /////////////////////////////////
@@ -76,6 +98,13 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
     private BasicRIMIntersectionMap basicRIMIntersectionMap;
     /** All active vehicles, in form of a map from VINs to vehicle objects. */
     public Map<Integer,RIMVehicleSimModel> vinToVehicles;
+    /**
+     * The largest number of active vehicles so far, which determines the
+     * capacity of vinToVehicles and thus the order of its vehicles
+     */
+    private int peakNumOfVehicles;
+    /** The time spent in the phases of the steps */
+    private final StepPhaseTimer stepPhaseTimer = new StepPhaseTimer();
     /** The current time */
     private double currentTime;
     /** The number of completed vehicles */
@@ -87,10 +116,28 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
 
     //Results aids//
     private List<VehicleResult> vehiclesRecord;
+    /** The sink of the results; null if they are kept in memory */
+    private ResultSink resultSink;
+    /** The recorder of the trace; null if no trace is recorded */
+    private TraceRecorder traceRecorder;
+
+    /** The bounding boxes of the continuous lanes of the map */
+    private LaneBoundsIndex laneBoundsIndex;
+    /** The bounding boxes of the line lanes that make up the arc lanes */
+    private LaneBoundsIndex arcLineLaneBoundsIndex;
 
     //HELPERS//
     SpawnHelper spawnHelper;
 
+    /** Whether the intersection managers act in parallel */
+    private boolean isParallelStepEnabled;
+
+    /**
+     * The context of the simulation, which is bound to the thread that steps
+     * the simulator.
+     */
+    private final SimulationContext context = SimulationContext.current();
+
     /////////////////////////////////
     // CLASS CONSTRUCTORS
     /////////////////////////////////
@@ -103,8 +150,21 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
     public AutoDriverOnlySimulator(BasicRIMIntersectionMap basicRIMIntersectionMap) {
         this.basicRIMIntersectionMap = basicRIMIntersectionMap;
         this.vinToVehicles = new HashMap<Integer,RIMVehicleSimModel>();
+        List<Lane> continuousLanes = new ArrayList<Lane>();
+        List<Lane> arcLineLanes = new ArrayList<Lane>();
+        for (Road road : basicRIMIntersectionMap.getRoads()) {
+            for (Lane lane : road.getAllContinuousLanes()) {
+                continuousLanes.add(lane);
+                if (lane instanceof ArcSegmentLane) {
+                    arcLineLanes.addAll(((ArcSegmentLane) lane).getArcLaneDecomposition());
+                }
+            }
+        }
+        this.laneBoundsIndex = new LaneBoundsIndex(continuousLanes);
+        this.arcLineLaneBoundsIndex = new LaneBoundsIndex(arcLineLanes);
         this.spawnHelper = new SpawnHelper(basicRIMIntersectionMap, vinToVehicles);
         this.vehiclesRecord = new ArrayList<VehicleResult>();
+        MaxTurnVelocityTable.install(basicRIMIntersectionMap, context.getTurnTablesDirectory());
 
         currentTime = 0.0;
         numOfCompletedVehicles = 0;
@@ -124,37 +184,61 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
      */
     @Override
     public synchronized AutoDriverOnlySimStepResult step(double timeStep) {
+        return context.call(() -> stepInContext(timeStep));
+    }
+
+    /**
+     * Move the simulator a time step forward with the context of the
+     * simulation bound to the current thread.
+     *
+     * @param timeStep  the amount of time the simulation should run in
+     *                  this time step
+     * @return the result of the time step
+     */
+    private AutoDriverOnlySimStepResult stepInContext(double timeStep) {
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("--------------------------------------\n");
             System.err.printf("------SIM:spawnVehicles---------------\n");
         }
+        long phaseStart = stepPhaseTimer.start();
         spawnHelper.spawnVehicles(timeStep);
+        peakNumOfVehicles = Math.max(peakNumOfVehicles, vinToVehicles.size());
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SPAWN, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:provideSensorInput---------------\n");
         }
         provideSensorInput();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SENSOR, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:letDriversAct---------------\n");
         }
         letDriversAct();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.DRIVERS, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:letIntersectionManagersAct--------------\n");
         }
         letIntersectionManagersAct(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.INTERSECTION_MANAGERS,
+                phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:communication---------------\n");
         }
         communication();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.COMMUNICATION, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:moveVehicles---------------\n");
         }
         moveVehicles(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.MOVE, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:cleanUpCompletedVehicles---------------\n");
         }
         if (Debug.CHECK_FOR_COLLISIONS) {
-            System.err.printf("------SIM:checkForCollisions---------------\n");
+            if (Debug.PRINT_SIMULATOR_STAGE) {
+                System.err.printf("------SIM:checkForCollisions---------------\n");
+            }
             checkForCollisions();
+            phaseStart = stepPhaseTimer.stop(COLLISION_CHECK_PHASE, phaseStart);
         }
         if (Debug.PRINT_SIMULATOR_STAGE){
             System.err.printf("------SIM:calculateCompletedVehicles---------------\n");
@@ -167,8 +251,12 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
             System.err.printf("------SIM:cleanUpCompletedVehicles---------------\n");
         }
         List<Integer> completedVINs = cleanUpCompletedVehicles();
+        stepPhaseTimer.stop(StepPhaseTimer.CLEAN_UP, phaseStart);
 
         currentTime += timeStep;
+        if (traceRecorder != null) {
+            recordTrace();
+        }
         // debug
         checkClocks();
 
@@ -251,6 +339,42 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
     // PUBLIC METHODS
     /////////////////////////////////
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StepPhaseTimer getStepPhaseTimer() {
+        return stepPhaseTimer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setResultSink(ResultSink resultSink) {
+        this.resultSink = resultSink;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTraceRecorder(TraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
+
+    /**
+     * Turn on or off the parallel execution of the intersection managers.
+     * The intersection managers act on the common ForkJoinPool and their
+     * outboxes are drained afterwards in a fixed order, so the results do
+     * not depend on the mode.
+     *
+     * @param b  whether the intersection managers act in parallel
+     */
+    public synchronized void setIsParallelStepEnabled(boolean b) {
+        isParallelStepEnabled = b;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -279,12 +403,193 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
         }
 
         vinToVehicles.put(vehicle.getVIN(), vehicle);
+        peakNumOfVehicles = Math.max(peakNumOfVehicles, vinToVehicles.size());
+    }
+
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The state includes the one of the {@link SimulationContext} of the
+     * simulator.  The map, which is rebuilt by the setup of the simulation,
+     * is saved as the states of its intersection managers, spawn points and
+     * data collection lines.  Only the vehicles created by this simulator
+     * are supported, and the results must be kept in memory.
+     */
+    @Override
+    public synchronized StateRecord saveState() throws NotSerializableException {
+        if (resultSink != null) {
+            throw new NotSerializableException(resultSink.getClass().getName());
+        }
+        if (traceRecorder != null) {
+            throw new NotSerializableException(traceRecorder.getClass().getName());
+        }
+        StateRecord state = new StateRecord(AutoDriverOnlySimulator.class.getName(), 1);
+        state.putRecord("context", context.saveState(basicRIMIntersectionMap));
+        state.putDouble("currentTime", currentTime);
+        state.putInt("numOfCompletedVehicles", numOfCompletedVehicles);
+        state.putInt("numOfVehicleWhichCouldNotBeSpawned",
+                spawnHelper.getNumOfVehicleWhichCouldNotBeSpawned());
+        state.putInt("numOfVehicleSpawned", spawnHelper.getNumOfVehiclesSpawned());
+        state.putInt("totalBitsTransmittedByCompletedVehicles",
+                totalBitsTransmittedByCompletedVehicles);
+        state.putInt("totalBitsReceivedByCompletedVehicles",
+                totalBitsReceivedByCompletedVehicles);
+        List<StateRecord> results = new ArrayList<StateRecord>(vehiclesRecord.size());
+        for(VehicleResult result : vehiclesRecord) {
+            results.add(result.toState());
+        }
+        state.putRecords("vehiclesRecord", results);
+        // the map
+        state.putRecords("intersectionManagers",
+                saveAll(basicRIMIntersectionMap.getIntersectionManagers()));
+        state.putRecords("spawnPoints", saveAll(basicRIMIntersectionMap.getSpawnPoints()));
+        state.putRecords("dataCollectionLines",
+                saveAll(basicRIMIntersectionMap.getDataCollectionLines()));
+        // the vehicles, in the order of vinToVehicles
+        state.putInt("peakNumOfVehicles", peakNumOfVehicles);
+        int[] vins = new int[vinToVehicles.size()];
+        String[] specs = new String[vins.length];
+        List<StateRecord> vehicles = new ArrayList<StateRecord>(vins.length);
+        List<StateRecord> drivers = new ArrayList<StateRecord>(vins.length);
+        int i = 0;
+        for(RIMVehicleSimModel vehicle : vinToVehicles.values()) {
+            if (vehicle.getClass() != RIMBasicAutoVehicle.class) {
+                throw new NotSerializableException(vehicle.getClass().getName());
+            }
+            RIMBasicAutoVehicle v = (RIMBasicAutoVehicle) vehicle;
+            if (v.getDriver().getClass() != RIMAutoDriver.class) {
+                throw new NotSerializableException(v.getDriver().getClass().getName());
+            }
+            vins[i] = v.getVIN();
+            specs[i] = v.getSpec().getName();
+            vehicles.add(v.saveState());
+            drivers.add(v.getDriver().saveState(basicRIMIntersectionMap));
+            i++;
+        }
+        state.putInts("vins", vins);
+        state.putStrings("specs", specs);
+        state.putRecords("vehicles", vehicles);
+        state.putRecords("drivers", drivers);
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The simulator must have been created by the same setup as the saved
+     * one, and its {@link SimulationContext} must be bound to the current
+     * thread, since the vehicles register again with their VINs.
+     */
+    @Override
+    public synchronized void restoreState(StateRecord state) throws IOException {
+        state.check(AutoDriverOnlySimulator.class.getName(), 1);
+        // first, since it forgets the active vehicles
+        context.restoreState(state.getRecord("context"), basicRIMIntersectionMap);
+        currentTime = state.getDouble("currentTime");
+        numOfCompletedVehicles = state.getInt("numOfCompletedVehicles");
+        int numOfVehicleWhichCouldNotBeSpawned = state.getInt("numOfVehicleWhichCouldNotBeSpawned");
+        int numOfVehicleSpawned = state.getInt("numOfVehicleSpawned");
+        totalBitsTransmittedByCompletedVehicles =
+                state.getInt("totalBitsTransmittedByCompletedVehicles");
+        totalBitsReceivedByCompletedVehicles =
+                state.getInt("totalBitsReceivedByCompletedVehicles");
+        vehiclesRecord.clear();
+        for(StateRecord result : state.getRecords("vehiclesRecord")) {
+            vehiclesRecord.add(VehicleResult.fromState(result));
+        }
+        // the map
+        restoreAll(basicRIMIntersectionMap.getIntersectionManagers(),
+                state.getRecords("intersectionManagers"), "intersection managers");
+        restoreAll(basicRIMIntersectionMap.getSpawnPoints(),
+                state.getRecords("spawnPoints"), "spawn points");
+        restoreAll(basicRIMIntersectionMap.getDataCollectionLines(),
+                state.getRecords("dataCollectionLines"), "data collection lines");
+        // the vehicles
+        int peak = state.getInt("peakNumOfVehicles");
+        int[] vins = state.getInts("vins");
+        String[] specs = state.getStrings("specs");
+        List<StateRecord> vehicles = state.getRecords("vehicles");
+        List<StateRecord> drivers = state.getRecords("drivers");
+        if (specs.length != vins.length || vehicles.size() != vins.length
+                || drivers.size() != vins.length || peak < vins.length) {
+            throw new StreamCorruptedException("Malformed vehicles");
+        }
+        // the capacity vinToVehicles had, so that the vehicles keep their
+        // order
+        int capacity = 16;
+        while (peak > capacity * 3 / 4) {
+            capacity *= 2;
+        }
+        peakNumOfVehicles = peak;
+        vinToVehicles = new HashMap<Integer,RIMVehicleSimModel>(capacity);
+        spawnHelper = new SpawnHelper(basicRIMIntersectionMap, vinToVehicles);
+        spawnHelper.setSpawnCounts(numOfVehicleSpawned, numOfVehicleWhichCouldNotBeSpawned);
+        for(int i = 0; i < vins.length; i++) {
+            VehicleSpec spec = VehicleSpecDatabase.getVehicleSpecByName(specs[i]);
+            if (spec == null) {
+                throw new StreamCorruptedException("Unknown vehicle specification " + specs[i]);
+            }
+            // the movement is replaced by the saved one
+            RIMBasicAutoVehicle vehicle = new RIMBasicAutoVehicle(spec,
+                    new Point2D.Double(), 0.0, 0.0, 0.0, 0.0, 0.0, currentTime);
+            vehicle.restoreState(vehicles.get(i), basicRIMIntersectionMap);
+            RIMAutoDriver driver = new RIMAutoDriver(vehicle, basicRIMIntersectionMap);
+            vehicle.setDriver(driver);
+            driver.restoreState(drivers.get(i), basicRIMIntersectionMap);
+            if (!VinRegistry.registerVehicleWithExistingVIN(vehicle, vins[i])) {
+                throw new StreamCorruptedException("Duplicate VIN " + vins[i]);
+            }
+            vinToVehicles.put(vins[i], vehicle);
+        }
+        state.checkAllRead();
     }
 
     /////////////////////////////////
     // PRIVATE METHODS
     /////////////////////////////////
 
+    /**
+     * Save the states of the parts of the map.
+     *
+     * @param parts  the parts of the map
+     * @return the states of the parts
+     * @throws NotSerializableException  if a part does not support snapshots
+     */
+    private static List<StateRecord> saveAll(List<?> parts)
+            throws NotSerializableException {
+        List<StateRecord> states = new ArrayList<StateRecord>(parts.size());
+        for(Object part : parts) {
+            if (!(part instanceof Restorable)) {
+                throw new NotSerializableException(part.getClass().getName());
+            }
+            states.add(((Restorable) part).saveState());
+        }
+        return states;
+    }
+
+    /**
+     * Restore the states of the parts of the map.
+     *
+     * @param parts   the parts of the map
+     * @param states  the states saved by {@link #saveAll(List)}
+     * @param what    what the parts are, for the error message
+     * @throws IOException  if the states are not the states of the parts
+     */
+    private static void restoreAll(List<?> parts, List<StateRecord> states,
+                                   String what) throws IOException {
+        if (states.size() != parts.size()) {
+            throw new StreamCorruptedException("Mismatched " + what);
+        }
+        for(int i = 0; i < parts.size(); i++) {
+            if (!(parts.get(i) instanceof Restorable)) {
+                throw new NotSerializableException(parts.get(i).getClass().getName());
+            }
+            ((Restorable) parts.get(i)).restoreState(states.get(i));
+        }
+    }
+
 
     /////////////////////////////////
     // STEP 2
@@ -329,40 +634,39 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
                     // Now add it to the map.
                     vehicleLists.get(lane).put(dst, vehicle);
                     // Now check if this vehicle intersects any other lanes
-                    for (Road road : Debug.currentRimMap.getRoads()) {
-                        for (Lane otherLane : road.getAllContinuousLanes()) {
-                            if (otherLane.getId() != lane.getId() && otherLane.getShape().getBounds2D().intersects(vehicle.getShape().getBounds2D())) {
-                                if (otherLane instanceof ArcSegmentLane) {
-                                    for (LineSegmentLane otherLineLane : ((ArcSegmentLane) otherLane).getArcLaneDecomposition()){
-                                        if (otherLineLane.getId() != lane.getId() && otherLineLane.getShape().getBounds2D().intersects(vehicle.getShape().getBounds2D())){
-                                            double interval = Double.MAX_VALUE ;
-                                            for(Line2D edge : vehicle.getEdges()) {
-                                                double dstAlongOtherLane = edge.ptSegDist(otherLineLane.getStartPoint());
-                                                if(dstAlongOtherLane < interval){
-                                                    interval = dstAlongOtherLane;
-                                                }
-                                            }
-                                            if (interval < Double.MAX_VALUE) {
-                                                vehicleLists.get(otherLineLane).put(interval, vehicle);
-                                            }
-                                        }
-                                    }
-                                }
-                                else if (otherLane instanceof LineSegmentLane) {
-                                    if (otherLane.getId() != lane.getId() && otherLane.getShape().getBounds2D().intersects(vehicle.getShape().getBounds2D())){
+                    Rectangle2D vehicleBounds = vehicle.getShape().getBounds2D();
+                    Set<Lane> arcLineLanesHit =
+                            new HashSet<Lane>(arcLineLaneBoundsIndex.findIntersectingLanes(vehicleBounds));
+                    for (Lane otherLane : laneBoundsIndex.findIntersectingLanes(vehicleBounds)) {
+                        if (otherLane.getId() != lane.getId()) {
+                            if (otherLane instanceof ArcSegmentLane) {
+                                for (LineSegmentLane otherLineLane : ((ArcSegmentLane) otherLane).getArcLaneDecomposition()){
+                                    if (otherLineLane.getId() != lane.getId() && arcLineLanesHit.contains(otherLineLane)){
                                         double interval = Double.MAX_VALUE ;
                                         for(Line2D edge : vehicle.getEdges()) {
-                                            double dstAlongOtherLane = edge.ptSegDist(otherLane.getStartPoint());
+                                            double dstAlongOtherLane = edge.ptSegDist(otherLineLane.getStartPoint());
                                             if(dstAlongOtherLane < interval){
                                                 interval = dstAlongOtherLane;
                                             }
                                         }
                                         if (interval < Double.MAX_VALUE) {
-                                            vehicleLists.get(otherLane).put(interval, vehicle);
+                                            vehicleLists.get(otherLineLane).put(interval, vehicle);
                                         }
                                     }
                                 }
                             }
+                            else if (otherLane instanceof LineSegmentLane) {
+                                double interval = Double.MAX_VALUE ;
+                                for(Line2D edge : vehicle.getEdges()) {
+                                    double dstAlongOtherLane = edge.ptSegDist(otherLane.getStartPoint());
+                                    if(dstAlongOtherLane < interval){
+                                        interval = dstAlongOtherLane;
+                                    }
+                                }
+                                if (interval < Double.MAX_VALUE) {
+                                    vehicleLists.get(otherLane).put(interval, vehicle);
+                                }
+                            }
                         }
                     }
                 }
@@ -664,8 +968,16 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
      * @param timeStep  the time step
      */
     private void letIntersectionManagersAct(double timeStep) {
-        for(IntersectionManager im : basicRIMIntersectionMap.getIntersectionManagers()) {
-            im.act(timeStep);
+        if (isParallelStepEnabled) {
+            // Each intersection manager only works on its own inbox, outbox,
+            // reservation grid and ACZs; the outboxes are drained in the
+            // order of the intersection managers in deliverI2VMessages()
+            basicRIMIntersectionMap.getIntersectionManagers().parallelStream()
+                    .forEach(im -> context.run(() -> im.act(timeStep)));
+        } else {
+            for(IntersectionManager im : basicRIMIntersectionMap.getIntersectionManagers()) {
+                im.act(timeStep);
+            }
         }
     }
     /////////////////////////////////
@@ -681,6 +993,16 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
 //    deliverV2VMessages();
     }
 
+    /**
+     * Record the vehicles at the end of the step in the trace.
+     */
+    private void recordTrace() {
+        for(RIMVehicleSimModel vehicle : vinToVehicles.values()) {
+            traceRecorder.recordVehicle(vehicle);
+        }
+        traceRecorder.endStep(currentTime);
+    }
+
     /**
      * Deliver the V2I messages.
      */
@@ -700,11 +1022,17 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
                             sender.getPosition().distance(
                                     receiver.getIntersection().getCentroid());
                     // Find out if the message will make it that far
-                    if(transmit(txDistance, sender.getTransmissionPower())) {
+                    boolean delivered =
+                            transmit(txDistance, sender.getTransmissionPower());
+                    if(delivered) {
                         // Actually deliver the message
                         receiver.receive(msg);
                         // Add the delivery to the debugging information
                     }
+                    if (traceRecorder != null) {
+                        traceRecorder.recordV2IMessage(msg.getVin(), msg.getImId(),
+                                msg.getMessageType().ordinal(), delivered);
+                    }
                     // Either way, we increment the number of transmitted messages
                 }
             }
@@ -729,10 +1057,18 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
                         senderIM.getIntersection().getCentroid().distance(
                                 vehicle.getPosition());
                 // Find out if the message will make it that far
-                if(transmit(txDistance, senderIM.getTransmissionPower())) {
+                boolean delivered =
+                        transmit(txDistance, senderIM.getTransmissionPower());
+                if(delivered) {
                     // Actually deliver the message
                     vehicle.receive(msg);
                 }
+                if (traceRecorder != null) {
+                    traceRecorder.recordI2VMessage(msg.getVin(), msg.getImId(),
+                            msg.getMessageType().ordinal(),
+                            msg instanceof Reject ? ((Reject) msg).getReason().ordinal() : -1,
+                            delivered);
+                }
             }
             // Done delivering the IntersectionManager's messages, so clear the
             // outbox.
@@ -779,18 +1115,12 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
      * Detects collisions. Currently not used because vehicles collide - Go figure.
      */
     private void checkForCollisions() {
-        Integer[] keys = vinToVehicles.keySet().toArray(new Integer[]{});
-        for(int i = 0; i < keys.length - 1; i++) { //-1 because we won't compare the last element with anything.
-            Integer[] keysToCompare = Arrays.copyOfRange(keys, i + 1, keys.length);
-            RIMVehicleSimModel vehicle1 = vinToVehicles.get(keys[i]);
-            for(int j = 0; j < keysToCompare.length; j++) {
-                RIMVehicleSimModel vehicle2 = vinToVehicles.get(keysToCompare[j]);
-                if(VehicleUtil.collision(vehicle1, vehicle2)) {
-                    throw new RuntimeException(String.format("There was a collision between vehicles %d and %d",
-                            vehicle1.getVIN(),
-                            vehicle2.getVIN()));
-                }
-            }
+        List<RIMVehicleSimModel> vehicles = new ArrayList<RIMVehicleSimModel>(vinToVehicles.values());
+        int[] collision = VehicleUtil.findCollision(vehicles);
+        if (collision != null) {
+            throw new RuntimeException(String.format("There was a collision between vehicles %d and %d",
+                    vehicles.get(collision[0]).getVIN(),
+                    vehicles.get(collision[1]).getVIN()));
         }
     }
 
@@ -848,7 +1178,7 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
 
     private void recordCompletedVehicles(List<RIMVehicleSimModel> completedVehicles) {
         for(RIMVehicleSimModel vehicle : completedVehicles) {
-            vehiclesRecord.add(new VehicleResult(
+            VehicleResult result = new VehicleResult(
                     vehicle.getVIN(),
                     vehicle.getSpec().getName(),
                     vehicle.getStartTime(),
@@ -856,7 +1186,12 @@ public class AutoDriverOnlySimulator implements RIMSimulator{
                     vehicle.getFinalVelocity(),
                     vehicle.getMaxVelocity(),
                     vehicle.getMinVelocity()
-            ));
+            );
+            if (resultSink == null) {
+                vehiclesRecord.add(result);
+            } else {
+                resultSink.vehicleCompleted(result);
+            }
         }
     }
 
@@ -11,13 +11,20 @@ import aim4.map.DataCollectionLine;
 import aim4.map.Road;
 import aim4.map.lane.ArcSegmentLane;
 import aim4.map.lane.Lane;
+import aim4.map.lane.LaneBoundsIndex;
 import aim4.map.lane.LineSegmentLane;
 import aim4.msg.rim.i2v.I2VMessage;
+import aim4.msg.rim.i2v.Reject;
 import aim4.msg.rim.v2i.V2IMessage;
+import aim4.sim.SimulationContext;
+import aim4.sim.StepPhaseTimer;
 import aim4.sim.results.Result;
+import aim4.sim.results.ResultSink;
 import aim4.sim.results.VehicleResult;
+import aim4.sim.trace.TraceRecorder;
 import aim4.sim.simulator.rim.helper.SpawnHelper;
 import aim4.util.Util;
+import aim4.vehicle.MaxTurnVelocityTable;
 import aim4.vehicle.VehicleUtil;
 import aim4.vehicle.VinRegistry;
 import aim4.vehicle.rim.ProxyVehicleSimModel;
@@ -87,10 +94,28 @@ public class RIMOptimalSimulator implements RIMSimulator{
 
     //Results aids//
     private List<VehicleResult> vehiclesRecord;
+    /** The sink of the results; null if they are kept in memory */
+    private ResultSink resultSink;
+    /** The recorder of the trace; null if no trace is recorded */
+    private TraceRecorder traceRecorder;
+
+    /** The bounding boxes of the continuous lanes of the map */
+    private LaneBoundsIndex laneBoundsIndex;
+    /** The bounding boxes of the line lanes that make up the arc lanes */
+    private LaneBoundsIndex arcLineLaneBoundsIndex;
 
     //HELPERS//
     SpawnHelper spawnHelper;
 
+    /**
+     * The context of the simulation, which is bound to the thread that steps
+     * the simulator.
+     */
+    private final SimulationContext context = SimulationContext.current();
+
+    /** The time spent in the phases of the steps */
+    private final StepPhaseTimer stepPhaseTimer = new StepPhaseTimer();
+
     /////////////////////////////////
     // CLASS CONSTRUCTORS
     /////////////////////////////////
@@ -103,8 +128,21 @@ public class RIMOptimalSimulator implements RIMSimulator{
     public RIMOptimalSimulator(BasicRIMIntersectionMap basicRIMIntersectionMap) {
         this.basicRIMIntersectionMap = basicRIMIntersectionMap;
         this.vinToVehicles = new HashMap<Integer,RIMVehicleSimModel>();
+        List<Lane> continuousLanes = new ArrayList<Lane>();
+        List<Lane> arcLineLanes = new ArrayList<Lane>();
+        for (Road road : basicRIMIntersectionMap.getRoads()) {
+            for (Lane lane : road.getAllContinuousLanes()) {
+                continuousLanes.add(lane);
+                if (lane instanceof ArcSegmentLane) {
+                    arcLineLanes.addAll(((ArcSegmentLane) lane).getArcLaneDecomposition());
+                }
+            }
+        }
+        this.laneBoundsIndex = new LaneBoundsIndex(continuousLanes);
+        this.arcLineLaneBoundsIndex = new LaneBoundsIndex(arcLineLanes);
         this.spawnHelper = new SpawnHelper(basicRIMIntersectionMap, vinToVehicles);
         this.vehiclesRecord = new ArrayList<VehicleResult>();
+        MaxTurnVelocityTable.install(basicRIMIntersectionMap, context.getTurnTablesDirectory());
 
         currentTime = 0.0;
         numOfCompletedVehicles = 0;
@@ -124,31 +162,52 @@ public class RIMOptimalSimulator implements RIMSimulator{
      */
     @Override
     public synchronized RIMOptimalSimulatorSimStepResult step(double timeStep) {
+        return context.call(() -> stepInContext(timeStep));
+    }
+
+    /**
+     * Move the simulator a time step forward with the context of the
+     * simulation bound to the current thread.
+     *
+     * @param timeStep  the amount of time the simulation should run in
+     *                  this time step
+     * @return the result of the time step
+     */
+    private RIMOptimalSimulatorSimStepResult stepInContext(double timeStep) {
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("--------------------------------------\n");
             System.err.printf("------SIM:spawnVehicles---------------\n");
         }
+        long phaseStart = stepPhaseTimer.start();
         spawnHelper.spawnVehicles(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SPAWN, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:provideSensorInput---------------\n");
         }
         provideSensorInput();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.SENSOR, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:letDriversAct---------------\n");
         }
         letDriversAct();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.DRIVERS, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:letIntersectionManagersAct--------------\n");
         }
         letIntersectionManagersAct(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.INTERSECTION_MANAGERS,
+                phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:communication---------------\n");
         }
         communication();
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.COMMUNICATION,
+                phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE) {
             System.err.printf("------SIM:moveVehicles---------------\n");
         }
         moveVehicles(timeStep);
+        phaseStart = stepPhaseTimer.stop(StepPhaseTimer.MOVE, phaseStart);
         if (Debug.PRINT_SIMULATOR_STAGE){
             System.err.printf("------SIM:calculateCompletedVehicles---------------\n");
         }
@@ -160,8 +219,12 @@ public class RIMOptimalSimulator implements RIMSimulator{
             System.err.printf("------SIM:cleanUpCompletedVehicles---------------\n");
         }
         List<Integer> completedVINs = cleanUpCompletedVehicles();
+        stepPhaseTimer.stop(StepPhaseTimer.CLEAN_UP, phaseStart);
 
         currentTime += timeStep;
+        if (traceRecorder != null) {
+            recordTrace();
+        }
         // debug
         checkClocks();
 
@@ -174,6 +237,30 @@ public class RIMOptimalSimulator implements RIMSimulator{
 
     // information retrieval
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StepPhaseTimer getStepPhaseTimer() {
+        return stepPhaseTimer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setResultSink(ResultSink resultSink) {
+        this.resultSink = resultSink;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTraceRecorder(TraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -322,46 +409,39 @@ public class RIMOptimalSimulator implements RIMSimulator{
                     // Now add it to the map.
                     vehicleLists.get(lane).put(dst, vehicle);
                     // Now check if this vehicle intersects any other lanes
-                    for (Road road : Debug.currentRimMap.getRoads()) {
-                        for (Lane otherLane : road.getAllContinuousLanes()) {
-                            if (otherLane.getId() != lane.getId() && otherLane.getShape().getBounds2D().intersects(vehicle.getShape().getBounds2D())) {
-                                if (otherLane instanceof ArcSegmentLane) {
-                                    for (LineSegmentLane otherLineLane : ((ArcSegmentLane) otherLane).getArcLaneDecomposition()){
-                                        if (otherLineLane.getId() != lane.getId() && otherLineLane.getShape().getBounds2D().intersects(vehicle.getShape().getBounds2D())){
-                                            double interval = Double.MAX_VALUE ;
-                                            for(Line2D edge : vehicle.getEdges()) {
-                                                double dstAlongOtherLane = edge.ptSegDist(otherLineLane.getStartPoint());
-                                                if(dstAlongOtherLane < interval){
-                                                    interval = dstAlongOtherLane;
-                                                }
-                                            }
-                                            if (interval < 0) {
-                                                int i = 2;
-                                            }
-                                            if (interval < Double.MAX_VALUE) {
-                                                vehicleLists.get(otherLineLane).put(interval, vehicle);
-                                            }
-                                        }
-                                    }
-                                }
-                                else if (otherLane instanceof LineSegmentLane) {
-                                    if (otherLane.getId() != lane.getId() && otherLane.getShape().getBounds2D().intersects(vehicle.getShape().getBounds2D())){
+                    Rectangle2D vehicleBounds = vehicle.getShape().getBounds2D();
+                    Set<Lane> arcLineLanesHit =
+                            new HashSet<Lane>(arcLineLaneBoundsIndex.findIntersectingLanes(vehicleBounds));
+                    for (Lane otherLane : laneBoundsIndex.findIntersectingLanes(vehicleBounds)) {
+                        if (otherLane.getId() != lane.getId()) {
+                            if (otherLane instanceof ArcSegmentLane) {
+                                for (LineSegmentLane otherLineLane : ((ArcSegmentLane) otherLane).getArcLaneDecomposition()){
+                                    if (otherLineLane.getId() != lane.getId() && arcLineLanesHit.contains(otherLineLane)){
                                         double interval = Double.MAX_VALUE ;
                                         for(Line2D edge : vehicle.getEdges()) {
-                                            double dstAlongOtherLane = edge.ptSegDist(otherLane.getStartPoint());
+                                            double dstAlongOtherLane = edge.ptSegDist(otherLineLane.getStartPoint());
                                             if(dstAlongOtherLane < interval){
                                                 interval = dstAlongOtherLane;
                                             }
                                         }
-                                        if (interval < 0) {
-                                            int i = 2;
-                                        }
                                         if (interval < Double.MAX_VALUE) {
-                                            vehicleLists.get(otherLane).put(interval, vehicle);
+                                            vehicleLists.get(otherLineLane).put(interval, vehicle);
                                         }
                                     }
                                 }
                             }
+                            else if (otherLane instanceof LineSegmentLane) {
+                                double interval = Double.MAX_VALUE ;
+                                for(Line2D edge : vehicle.getEdges()) {
+                                    double dstAlongOtherLane = edge.ptSegDist(otherLane.getStartPoint());
+                                    if(dstAlongOtherLane < interval){
+                                        interval = dstAlongOtherLane;
+                                    }
+                                }
+                                if (interval < Double.MAX_VALUE) {
+                                    vehicleLists.get(otherLane).put(interval, vehicle);
+                                }
+                            }
                         }
                     }
                 }
@@ -707,6 +787,16 @@ public class RIMOptimalSimulator implements RIMSimulator{
 //    deliverV2VMessages();
     }
 
+    /**
+     * Record the vehicles at the end of the step in the trace.
+     */
+    private void recordTrace() {
+        for(RIMVehicleSimModel vehicle : vinToVehicles.values()) {
+            traceRecorder.recordVehicle(vehicle);
+        }
+        traceRecorder.endStep(currentTime);
+    }
+
     /**
      * Deliver the V2I messages.
      */
@@ -726,11 +816,17 @@ public class RIMOptimalSimulator implements RIMSimulator{
                             sender.getPosition().distance(
                                     receiver.getIntersection().getCentroid());
                     // Find out if the message will make it that far
-                    if(transmit(txDistance, sender.getTransmissionPower())) {
+                    boolean delivered =
+                            transmit(txDistance, sender.getTransmissionPower());
+                    if(delivered) {
                         // Actually deliver the message
                         receiver.receive(msg);
                         // Add the delivery to the debugging information
                     }
+                    if (traceRecorder != null) {
+                        traceRecorder.recordV2IMessage(msg.getVin(), msg.getImId(),
+                                msg.getMessageType().ordinal(), delivered);
+                    }
                     // Either way, we increment the number of transmitted messages
                 }
             }
@@ -755,10 +851,18 @@ public class RIMOptimalSimulator implements RIMSimulator{
                         senderIM.getIntersection().getCentroid().distance(
                                 vehicle.getPosition());
                 // Find out if the message will make it that far
-                if(transmit(txDistance, senderIM.getTransmissionPower())) {
+                boolean delivered =
+                        transmit(txDistance, senderIM.getTransmissionPower());
+                if(delivered) {
                     // Actually deliver the message
                     vehicle.receive(msg);
                 }
+                if (traceRecorder != null) {
+                    traceRecorder.recordI2VMessage(msg.getVin(), msg.getImId(),
+                            msg.getMessageType().ordinal(),
+                            msg instanceof Reject ? ((Reject) msg).getReason().ordinal() : -1,
+                            delivered);
+                }
             }
             // Done delivering the IntersectionManager's messages, so clear the
             // outbox.
@@ -805,18 +909,12 @@ public class RIMOptimalSimulator implements RIMSimulator{
      * Detects collisions. Currently not used because vehicles collide - Go figure.
      */
     private void checkForCollisions() {
-        Integer[] keys = vinToVehicles.keySet().toArray(new Integer[]{});
-        for(int i = 0; i < keys.length - 1; i++) { //-1 because we won't compare the last element with anything.
-            Integer[] keysToCompare = Arrays.copyOfRange(keys, i + 1, keys.length);
-            RIMVehicleSimModel vehicle1 = vinToVehicles.get(keys[i]);
-            for(int j = 0; j < keysToCompare.length; j++) {
-                RIMVehicleSimModel vehicle2 = vinToVehicles.get(keysToCompare[j]);
-                if(VehicleUtil.collision(vehicle1, vehicle2)) {
-                    throw new RuntimeException(String.format("There was a collision between vehicles %d and %d",
-                            vehicle1.getVIN(),
-                            vehicle2.getVIN()));
-                }
-            }
+        List<RIMVehicleSimModel> vehicles = new ArrayList<RIMVehicleSimModel>(vinToVehicles.values());
+        int[] collision = VehicleUtil.findCollision(vehicles);
+        if (collision != null) {
+            throw new RuntimeException(String.format("There was a collision between vehicles %d and %d",
+                    vehicles.get(collision[0]).getVIN(),
+                    vehicles.get(collision[1]).getVIN()));
         }
     }
 
@@ -874,7 +972,7 @@ public class RIMOptimalSimulator implements RIMSimulator{
 
     private void recordCompletedVehicles(List<RIMVehicleSimModel> completedVehicles) {
         for(RIMVehicleSimModel vehicle : completedVehicles) {
-            vehiclesRecord.add(new VehicleResult(
+            VehicleResult result = new VehicleResult(
                     vehicle.getVIN(),
                     vehicle.getSpec().getName(),
                     vehicle.getStartTime(),
@@ -882,7 +980,12 @@ public class RIMOptimalSimulator implements RIMSimulator{
                     vehicle.getFinalVelocity(),
                     vehicle.getMaxVelocity(),
                     vehicle.getMinVelocity()
-            ));
+            );
+            if (resultSink == null) {
+                vehiclesRecord.add(result);
+            } else {
+                resultSink.vehicleCompleted(result);
+            }
         }
     }
 
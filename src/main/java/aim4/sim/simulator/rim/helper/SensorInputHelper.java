@@ -1,23 +1,29 @@
 package aim4.sim.simulator.rim.helper;
 
-import aim4.config.Debug;
 import aim4.driver.rim.RIMAutoDriver;
 import aim4.im.rim.IntersectionManager;
 import aim4.map.BasicRIMIntersectionMap;
 import aim4.map.Road;
 import aim4.map.lane.ArcSegmentLane;
 import aim4.map.lane.Lane;
+import aim4.map.lane.LaneBoundsIndex;
 import aim4.map.lane.LineSegmentLane;
+import aim4.sim.SimulationContext;
 import aim4.vehicle.rim.RIMAutoVehicleSimModel;
 import aim4.vehicle.rim.RIMVehicleSimModel;
 
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.*;
 
 public class SensorInputHelper {
     BasicRIMIntersectionMap map;
     Map<Integer, RIMVehicleSimModel> vinToVehicles;
+    /** The bounding boxes of the continuous lanes of the map */
+    private LaneBoundsIndex laneBoundsIndex;
+    /** The bounding boxes of the line lanes that make up the arc lanes */
+    private LaneBoundsIndex arcLineLaneBoundsIndex;
 
     /**
      * Provides sensor input for the
@@ -28,6 +34,18 @@ public class SensorInputHelper {
     public SensorInputHelper(BasicRIMIntersectionMap map, Map<Integer, RIMVehicleSimModel> vinToVehicles) {
         this.map = map;
         this.vinToVehicles = vinToVehicles;
+        List<Lane> continuousLanes = new ArrayList<Lane>();
+        List<Lane> arcLineLanes = new ArrayList<Lane>();
+        for (Road road : map.getRoads()) {
+            for (Lane lane : road.getAllContinuousLanes()) {
+                continuousLanes.add(lane);
+                if (lane instanceof ArcSegmentLane) {
+                    arcLineLanes.addAll(((ArcSegmentLane) lane).getArcLaneDecomposition());
+                }
+            }
+        }
+        this.laneBoundsIndex = new LaneBoundsIndex(continuousLanes);
+        this.arcLineLaneBoundsIndex = new LaneBoundsIndex(arcLineLanes);
     }
 
     /**
@@ -53,7 +71,7 @@ public class SensorInputHelper {
         // currently ordered in the Lanes
         Map<Lane,SortedMap<Double,RIMVehicleSimModel>> vehicleLists =
                 new HashMap<Lane,SortedMap<Double,RIMVehicleSimModel>>();
-        for(Road road : Debug.currentRimMap.getRoads()) {
+        for(Road road : SimulationContext.current().getRimMap().getRoads()) {
             for (Lane lane : road.getAllContinuousLanes()) {
                 if (lane instanceof ArcSegmentLane) {
                     ((ArcSegmentLane) lane).getArcLaneDecomposition().forEach(lineSegmentLane -> {
@@ -81,40 +99,39 @@ public class SensorInputHelper {
                     // Now add it to the map.
                     vehicleLists.get(lane).put(dst, vehicle);
                     // Now check if this vehicle intersects any other lanes
-                    for (Road road : Debug.currentRimMap.getRoads()) {
-                        for (Lane otherLane : road.getAllContinuousLanes()) {
-                            if (otherLane.getId() != lane.getId() && otherLane.getShape().getBounds2D().intersects(vehicle.getShape().getBounds2D())) {
-                                if (otherLane instanceof ArcSegmentLane) {
-                                    for (LineSegmentLane otherLineLane : ((ArcSegmentLane) otherLane).getArcLaneDecomposition()){
-                                        if (otherLineLane.getId() != lane.getId() && otherLineLane.getShape().getBounds2D().intersects(vehicle.getShape().getBounds2D())){
-                                            double interval = Double.MAX_VALUE ;
-                                            for(Line2D edge : vehicle.getEdges()) {
-                                                double dstAlongOtherLane = edge.ptSegDist(otherLineLane.getStartPoint());
-                                                if(dstAlongOtherLane < interval){
-                                                    interval = dstAlongOtherLane;
-                                                }
-                                            }
-                                            if (interval < Double.MAX_VALUE) {
-                                                vehicleLists.get(otherLineLane).put(interval, vehicle);
-                                            }
-                                        }
-                                    }
-                                }
-                                else if (otherLane instanceof LineSegmentLane) {
-                                    if (otherLane.getId() != lane.getId() && otherLane.getShape().getBounds2D().intersects(vehicle.getShape().getBounds2D())){
+                    Rectangle2D vehicleBounds = vehicle.getShape().getBounds2D();
+                    Set<Lane> arcLineLanesHit =
+                            new HashSet<Lane>(arcLineLaneBoundsIndex.findIntersectingLanes(vehicleBounds));
+                    for (Lane otherLane : laneBoundsIndex.findIntersectingLanes(vehicleBounds)) {
+                        if (otherLane.getId() != lane.getId()) {
+                            if (otherLane instanceof ArcSegmentLane) {
+                                for (LineSegmentLane otherLineLane : ((ArcSegmentLane) otherLane).getArcLaneDecomposition()){
+                                    if (otherLineLane.getId() != lane.getId() && arcLineLanesHit.contains(otherLineLane)){
                                         double interval = Double.MAX_VALUE ;
                                         for(Line2D edge : vehicle.getEdges()) {
-                                            double dstAlongOtherLane = edge.ptSegDist(otherLane.getStartPoint());
+                                            double dstAlongOtherLane = edge.ptSegDist(otherLineLane.getStartPoint());
                                             if(dstAlongOtherLane < interval){
                                                 interval = dstAlongOtherLane;
                                             }
                                         }
                                         if (interval < Double.MAX_VALUE) {
-                                            vehicleLists.get(otherLane).put(interval, vehicle);
+                                            vehicleLists.get(otherLineLane).put(interval, vehicle);
                                         }
                                     }
                                 }
                             }
+                            else if (otherLane instanceof LineSegmentLane) {
+                                double interval = Double.MAX_VALUE ;
+                                for(Line2D edge : vehicle.getEdges()) {
+                                    double dstAlongOtherLane = edge.ptSegDist(otherLane.getStartPoint());
+                                    if(dstAlongOtherLane < interval){
+                                        interval = dstAlongOtherLane;
+                                    }
+                                }
+                                if (interval < Double.MAX_VALUE) {
+                                    vehicleLists.get(otherLane).put(interval, vehicle);
+                                }
+                            }
                         }
                     }
                 }
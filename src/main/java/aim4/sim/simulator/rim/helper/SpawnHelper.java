@@ -1,6 +1,5 @@
 package aim4.sim.simulator.rim.helper;
 
-import aim4.config.Debug;
 import aim4.driver.rim.RIMAutoDriver;
 import aim4.driver.rim.pilot.V2IPilot;
 import aim4.im.rim.IntersectionManager;
@@ -10,6 +9,7 @@ import aim4.map.lane.ArcSegmentLane;
 import aim4.map.lane.Lane;
 import aim4.map.lane.LineSegmentLane;
 import aim4.map.rim.RIMSpawnPoint;
+import aim4.sim.SimulationContext;
 import aim4.vehicle.VehicleSpec;
 import aim4.vehicle.VehicleUtil;
 import aim4.vehicle.VinRegistry;
@@ -170,7 +170,7 @@ public class SpawnHelper {
         // currently ordered in the Lanes
         Map<Lane, SortedMap<Double, RIMVehicleSimModel>> vehicleLists =
                 new HashMap<Lane, SortedMap<Double, RIMVehicleSimModel>>();
-        for (Road road : Debug.currentRimMap.getRoads()) {
+        for (Road road : SimulationContext.current().getRimMap().getRoads()) {
             for (Lane lane : road.getAllContinuousLanes()) {
                 if (lane instanceof ArcSegmentLane) {
                     ((ArcSegmentLane) lane).getArcLaneDecomposition().forEach(lineSegmentLane -> {
@@ -198,7 +198,7 @@ public class SpawnHelper {
                     // Now add it to the map.
                     vehicleLists.get(lane).put(dst, vehicle);
                     // Now check if this vehicle intersects any other lanes
-                    for (Road road : Debug.currentRimMap.getRoads()) {
+                    for (Road road : SimulationContext.current().getRimMap().getRoads()) {
                         for (Lane otherLane : road.getAllContinuousLanes()) {
                             if (otherLane.getId() != lane.getId() &&
                                     otherLane.getShape().getBounds2D().intersects(vehicle.getShape().getBounds2D())) {
@@ -283,4 +283,17 @@ public class SpawnHelper {
     public int getNumOfVehiclesSpawned() {
         return numOfVehiclesSpawned;
     }
+
+    /**
+     * Set the numbers of vehicles spawned and not spawned, when a snapshot
+     * of the simulation is restored.
+     *
+     * @param numOfVehiclesSpawned               the number of vehicles spawned
+     * @param numOfVehicleWhichCouldNotBeSpawned the number of vehicles which
+     *                                           could not be spawned
+     */
+    public void setSpawnCounts(int numOfVehiclesSpawned, int numOfVehicleWhichCouldNotBeSpawned) {
+        this.numOfVehiclesSpawned = numOfVehiclesSpawned;
+        this.numOfVehicleWhichCouldNotBeSpawned = numOfVehicleWhichCouldNotBeSpawned;
+    }
 }
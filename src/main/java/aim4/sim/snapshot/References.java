@@ -0,0 +1,218 @@
+package aim4.sim.snapshot;
+
+import aim4.map.BasicMap;
+import aim4.map.Road;
+import aim4.map.lane.ArcSegmentLane;
+import aim4.map.lane.Lane;
+import aim4.util.Registry;
+
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
+import java.util.List;
+
+/**
+ * Helpers that save references to the parts of a map, which are rebuilt by
+ * the setup of a simulation, as IDs or indices, and resolve them when a
+ * snapshot is restored.  The ID or the index of <code>null</code> is -1.
+ * Constants of enum types are saved by their names.
+ * <p>
+ * The line lanes that approximate an arc lane have no ID, so the lanes a
+ * driver is on are saved as references: the ID of a lane, or the ID of an
+ * arc lane and the index of the line lane in its decomposition, as in
+ * <code>"12:3"</code>.
+ */
+public final class References {
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /** This class should never be instantiated. */
+    private References() {}
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the ID of a lane.
+     *
+     * @param lane  the lane; it can be <code>null</code>
+     * @return the ID of the lane; -1 if the lane is <code>null</code>
+     */
+    public static int idOf(Lane lane) {
+        return lane == null ? -1 : lane.getId();
+    }
+
+    /**
+     * Get the reference of a lane, which is also a line lane that
+     * approximates an arc lane.
+     *
+     * @param map   the map of the lane
+     * @param lane  the lane; it can be <code>null</code>
+     * @return the reference of the lane; <code>null</code> if the lane is
+     *         <code>null</code>
+     * @throws NotSerializableException  if the lane is not in the map
+     */
+    public static String refOf(BasicMap map, Lane lane)
+            throws NotSerializableException {
+        if (lane == null) {
+            return null;
+        }
+        if (lane.getId() >= 0) {
+            return Integer.toString(lane.getId());
+        }
+        for (Road road : map.getRoads()) {
+            for (Lane arcLane : road.getAllContinuousLanes()) {
+                if (arcLane instanceof ArcSegmentLane) {
+                    int i = identityIndexOf(((ArcSegmentLane) arcLane).getArcLaneDecomposition(), lane);
+                    if (i >= 0) {
+                        return arcLane.getId() + ":" + i;
+                    }
+                }
+            }
+        }
+        throw new NotSerializableException(lane.getClass().getName());
+    }
+
+    /**
+     * Get the lane with the given reference.
+     *
+     * @param map  the map of the lane
+     * @param ref  the reference of the lane; <code>null</code> for
+     *             <code>null</code>
+     * @return the lane; <code>null</code> if the reference is
+     *         <code>null</code>
+     * @throws StreamCorruptedException  if there is no lane with the
+     *                                   reference
+     */
+    public static Lane getLane(BasicMap map, String ref)
+            throws StreamCorruptedException {
+        if (ref == null) {
+            return null;
+        }
+        int i = ref.indexOf(':');
+        try {
+            if (i < 0) {
+                return get(map.getLaneRegistry(), Integer.parseInt(ref), "lane");
+            }
+            Lane arcLane = get(map.getLaneRegistry(), Integer.parseInt(ref.substring(0, i)), "lane");
+            if (arcLane instanceof ArcSegmentLane) {
+                return get(((ArcSegmentLane) arcLane).getArcLaneDecomposition(),
+                           Integer.parseInt(ref.substring(i + 1)), "lane");
+            }
+        } catch (NumberFormatException e) {
+            // not a reference
+        }
+        throw new StreamCorruptedException("Unknown lane " + ref);
+    }
+
+    /**
+     * Get the object with the given ID in a registry.
+     *
+     * @param registry  the registry
+     * @param id        the ID; -1 for <code>null</code>
+     * @param what      what the object is, for the error message
+     * @param <T>       the type of the objects
+     * @return the object; <code>null</code> if the ID is -1
+     * @throws StreamCorruptedException  if there is no object with the ID
+     */
+    public static <T> T get(Registry<T> registry, int id, String what)
+            throws StreamCorruptedException {
+        if (id == -1) {
+            return null;
+        }
+        T obj = registry.isIdExist(id) ? registry.get(id) : null;
+        if (obj == null) {
+            throw new StreamCorruptedException("Unknown " + what + " " + id);
+        }
+        return obj;
+    }
+
+    /**
+     * Get the index of an object in a list.
+     *
+     * @param list  the list
+     * @param obj   the object; it can be <code>null</code>
+     * @param <T>   the type of the objects
+     * @return the index of the object; -1 if the object is <code>null</code>
+     * @throws NotSerializableException  if the object is not in the list
+     */
+    public static <T> int indexOf(List<? extends T> list, T obj)
+            throws NotSerializableException {
+        if (obj == null) {
+            return -1;
+        }
+        int i = identityIndexOf(list, obj);
+        if (i < 0) {
+            throw new NotSerializableException(obj.getClass().getName());
+        }
+        return i;
+    }
+
+    /**
+     * Get the object at the given index of a list.
+     *
+     * @param list   the list
+     * @param index  the index; -1 for <code>null</code>
+     * @param what   what the object is, for the error message
+     * @param <T>    the type of the objects
+     * @return the object; <code>null</code> if the index is -1
+     * @throws StreamCorruptedException  if the index is out of range
+     */
+    public static <T> T get(List<? extends T> list, int index, String what)
+            throws StreamCorruptedException {
+        if (index == -1) {
+            return null;
+        }
+        if (index < 0 || index >= list.size()) {
+            throw new StreamCorruptedException("Unknown " + what + " " + index);
+        }
+        return list.get(index);
+    }
+
+    /**
+     * Get the constant of an enum type with the given name.
+     *
+     * @param type  the enum type
+     * @param name  the name of the constant; <code>null</code> for
+     *              <code>null</code>
+     * @param <E>   the enum type
+     * @return the constant; <code>null</code> if the name is
+     *         <code>null</code>
+     * @throws StreamCorruptedException  if there is no constant with the
+     *                                   name
+     */
+    public static <E extends Enum<E>> E valueOf(Class<E> type, String name)
+            throws StreamCorruptedException {
+        if (name == null) {
+            return null;
+        }
+        for (E e : type.getEnumConstants()) {
+            if (e.name().equals(name)) {
+                return e;
+            }
+        }
+        throw new StreamCorruptedException("Unknown " + type.getSimpleName() + " " + name);
+    }
+
+    /////////////////////////////////
+    // PRIVATE STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the index of an object in a list, compared by identity.
+     *
+     * @param list  the list
+     * @param obj   the object
+     * @return the index of the object; -1 if the object is not in the list
+     */
+    private static int identityIndexOf(List<?> list, Object obj) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == obj) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,30 @@
+package aim4.sim.snapshot;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+
+/**
+ * A component of a simulation whose state can be saved in a
+ * {@link StateRecord} and restored into a component created the same way,
+ * for instance by the same {@link aim4.sim.setup.SimSetup}.
+ */
+public interface Restorable {
+
+    /**
+     * Save the state of this component.
+     *
+     * @return the state
+     * @throws NotSerializableException  if the component, or a part of it,
+     *                                   does not support snapshots
+     */
+    StateRecord saveState() throws NotSerializableException;
+
+    /**
+     * Restore the state of this component.
+     *
+     * @param state  the state saved by {@link #saveState()}
+     * @throws IOException  if the state is not a state of this component, or
+     *                      has missing or unknown fields
+     */
+    void restoreState(StateRecord state) throws IOException;
+}
@@ -0,0 +1,307 @@
+package aim4.sim.snapshot;
+
+import aim4.sim.SimulationContext;
+import aim4.sim.Simulator;
+import aim4.sim.setup.SimSetup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Snapshots of the full state of a simulator: its intersection managers
+ * with their reservations and admission control zones, the spawn points,
+ * the vehicles with their drivers and acceleration schedules, the
+ * simulation time and the {@link SimulationContext} with its random number
+ * generator.  A restored simulator continues exactly as the saved one would
+ * have.
+ * <p>
+ * A snapshot is taken once traffic has reached a steady state, and restored
+ * as many times as needed to run variants of an experiment from the same
+ * warm state, for instance after replacing the policies of the intersection
+ * managers of each copy.
+ * <p>
+ * The map is not saved: a snapshot records the options of the setup and the
+ * seed of the simulation, the setup is run again to restore it, and the
+ * saved state of each component is restored into the component it creates.
+ * Each component saves its fields explicitly in a {@link StateRecord} with
+ * its own version, so a missing or unknown field, or a component whose
+ * version has changed, makes the restore fail.  Simulators with a
+ * {@link aim4.sim.results.ResultSink} or a
+ * {@link aim4.sim.trace.TraceRecorder} cannot be saved.
+ */
+public final class SimSnapshot {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The first four bytes of a snapshot: "AVSN" */
+    private static final int MAGIC = 0x4156534e;
+
+    /** The version of the format */
+    private static final int VERSION = 2;
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The options of the setup of the simulation */
+    private final List<String> setup;
+    /** The seed of the simulation */
+    private final long seed;
+    /**
+     * The encoded state of the simulator, which is decoded again by every
+     * restore
+     */
+    private final byte[] simulator;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a snapshot.
+     *
+     * @param setup      the options of the setup of the simulation
+     * @param seed       the seed of the simulation
+     * @param simulator  the encoded state of the simulator
+     */
+    private SimSnapshot(List<String> setup, long seed, byte[] simulator) {
+        this.setup = Collections.unmodifiableList(setup);
+        this.seed = seed;
+        this.simulator = simulator;
+    }
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Take a snapshot of a simulator.  It should not be called while the
+     * simulator is stepping.
+     *
+     * @param sim    the simulator
+     * @param setup  the options of the setup that created the simulator, as
+     *               <code>key=value</code> arguments
+     * @param seed   the seed of the {@link SimulationContext} of the
+     *               simulator
+     * @return the snapshot
+     * @throws NotSerializableException  if the simulator, or a part of it,
+     *                                   does not support snapshots
+     */
+    public static SimSnapshot take(Simulator sim, List<String> setup, long seed)
+            throws NotSerializableException {
+        if (!(sim instanceof Restorable)) {
+            throw new NotSerializableException(sim.getClass().getName());
+        }
+        StateRecord state = ((Restorable) sim).saveState();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            state.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // never thrown by the array
+        }
+        return new SimSnapshot(Arrays.asList(setup.toArray(new String[setup.size()])),
+                               seed, bytes.toByteArray());
+    }
+
+    /**
+     * Read a snapshot from a file.
+     *
+     * @param file  the file
+     * @return the snapshot
+     * @throws IOException  if the file is not a snapshot or cannot be read
+     */
+    public static SimSnapshot load(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            return read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Read a snapshot from an array of bytes.
+     *
+     * @param bytes  the bytes written by {@link #toBytes()}
+     * @return the snapshot
+     * @throws IOException  if the bytes are not a snapshot
+     */
+    public static SimSnapshot fromBytes(byte[] bytes) throws IOException {
+        return read(new ByteArrayInputStream(bytes));
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the options of the setup of the simulation.
+     *
+     * @return the options of the setup, as <code>key=value</code> arguments
+     */
+    public List<String> getSetup() {
+        return setup;
+    }
+
+    /**
+     * Get the seed of the simulation.
+     *
+     * @return the seed of the simulation
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Restore the simulator.  A new {@link SimulationContext} with the saved
+     * seed is created for it.
+     *
+     * @param simSetup  the setup created from the options returned by
+     *                  {@link #getSetup()}
+     * @return the restored simulator
+     * @throws IOException  if the setup does not create the saved simulator,
+     *                      or a saved state has a missing or unknown field
+     */
+    public Simulator restore(SimSetup simSetup) throws IOException {
+        return restore(simSetup, null);
+    }
+
+    /**
+     * Restore the simulator.  A new {@link SimulationContext} with the saved
+     * seed and the given directory of turn tables is created for it.
+     *
+     * @param simSetup    the setup created from the options returned by
+     *                    {@link #getSetup()}
+     * @param turnTables  the directory of the maximum turn velocities of the
+     *                    maps; null if they are not saved
+     * @return the restored simulator
+     * @throws IOException  if the setup does not create the saved simulator,
+     *                      or a saved state has a missing or unknown field
+     */
+    public Simulator restore(SimSetup simSetup, File turnTables) throws IOException {
+        SimulationContext context = new SimulationContext(seed);
+        context.setTurnTablesDirectory(turnTables);
+        Simulator sim = simSetup.getSimulator(context);
+        if (!(sim instanceof Restorable)) {
+            throw new NotSerializableException(sim.getClass().getName());
+        }
+        StateRecord state = StateRecord.read(
+            new DataInputStream(new ByteArrayInputStream(simulator)));
+        try {
+            context.run(() -> {
+                try {
+                    ((Restorable) sim).restoreState(state);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return sim;
+    }
+
+    /**
+     * Write this snapshot to a file.
+     *
+     * @param file  the file
+     * @throws IOException  if the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            write(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Write this snapshot to an array of bytes.
+     *
+     * @return the bytes
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // never thrown by the array
+        }
+        return out.toByteArray();
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Write the header and the compressed state of the snapshot.
+     */
+    private void write(OutputStream out) throws IOException {
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeShort(VERSION);
+        header.flush();
+        StateRecord state = new StateRecord(SimSnapshot.class.getName(), 1);
+        state.putStrings("setup", setup.toArray(new String[setup.size()]));
+        state.putLong("seed", seed);
+        state.putRecord("simulator", StateRecord.read(
+            new DataInputStream(new ByteArrayInputStream(simulator))));
+        DeflaterOutputStream deflater = new DeflaterOutputStream(out);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(deflater));
+        state.write(data);
+        data.flush();
+        deflater.finish();
+    }
+
+    /////////////////////////////////
+    // PRIVATE STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Check the header and read the compressed state of a snapshot.
+     */
+    private static SimSnapshot read(InputStream in) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        if (header.readInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a snapshot of a simulator");
+        }
+        int version = header.readShort();
+        if (version != VERSION) {
+            throw new InvalidClassException(
+                SimSnapshot.class.getName(), "unsupported version " + version);
+        }
+        DataInputStream data = new DataInputStream(
+            new BufferedInputStream(new InflaterInputStream(in)));
+        StateRecord state = StateRecord.read(data);
+        state.check(SimSnapshot.class.getName(), 1);
+        List<String> setup = Arrays.asList(state.getStrings("setup"));
+        long seed = state.getLong("seed");
+        ByteArrayOutputStream simulator = new ByteArrayOutputStream();
+        state.getRecord("simulator").write(new DataOutputStream(simulator));
+        state.checkAllRead();
+        return new SimSnapshot(setup, seed, simulator.toByteArray());
+    }
+}
@@ -0,0 +1,618 @@
+package aim4.sim.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The saved state of one component of a simulation: the type and the version
+ * of the component and its named fields.  A field is an int, a long, a double,
+ * a boolean, a string, an array of them, a nested record or a list of
+ * records.
+ * <p>
+ * Records are strict.  Reading a field that is missing or has another type
+ * throws an exception, and so does {@link #checkAllRead()} if some fields have
+ * never been read, so a snapshot written by another version of a component
+ * is rejected instead of being restored with default values.
+ */
+public final class StateRecord {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The tag of a null string or record */
+    private static final byte NULL = 0;
+    /** The tag of an int */
+    private static final byte INT = 1;
+    /** The tag of a long */
+    private static final byte LONG = 2;
+    /** The tag of a double */
+    private static final byte DOUBLE = 3;
+    /** The tag of a boolean */
+    private static final byte BOOLEAN = 4;
+    /** The tag of a string */
+    private static final byte STRING = 5;
+    /** The tag of an array of ints */
+    private static final byte INTS = 6;
+    /** The tag of an array of longs */
+    private static final byte LONGS = 7;
+    /** The tag of an array of doubles */
+    private static final byte DOUBLES = 8;
+    /** The tag of an array of strings */
+    private static final byte STRINGS = 9;
+    /** The tag of a record */
+    private static final byte RECORD = 10;
+    /** The tag of a list of records */
+    private static final byte RECORDS = 11;
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The type of the component */
+    private final String type;
+    /** The version of the state of the component */
+    private final int version;
+    /** The fields, in the order in which they have been put */
+    private final Map<String, Object> fields = new LinkedHashMap<String, Object>();
+    /** The names of the fields read so far */
+    private final Set<String> read = new HashSet<String>();
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create an empty record.
+     *
+     * @param type     the type of the component
+     * @param version  the version of the state of the component
+     */
+    public StateRecord(String type, int version) {
+        this.type = type;
+        this.version = version;
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the type of the component.
+     *
+     * @return the type of the component
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Get the version of the state of the component.
+     *
+     * @return the version of the state of the component
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Check that this record is the state of the given type and version of a
+     * component.
+     *
+     * @param type     the expected type
+     * @param version  the expected version
+     * @throws InvalidClassException  if the type or the version differs
+     */
+    public void check(String type, int version) throws InvalidClassException {
+        if (!this.type.equals(type)) {
+            throw new InvalidClassException(type, "found the state of " + this.type);
+        }
+        if (this.version != version) {
+            throw new InvalidClassException(type,
+                "unsupported version " + this.version + ", expected " + version);
+        }
+    }
+
+    /**
+     * Check that every field of this record has been read.
+     *
+     * @throws StreamCorruptedException  if some fields have never been read
+     */
+    public void checkAllRead() throws StreamCorruptedException {
+        if (read.size() < fields.size()) {
+            Set<String> unknown = new TreeSet<String>(fields.keySet());
+            unknown.removeAll(read);
+            throw new StreamCorruptedException("Unknown fields of " + type + ": " + unknown);
+        }
+    }
+
+    // putters
+
+    /**
+     * Put an int.
+     *
+     * @param name   the name of the field
+     * @param value  the value
+     * @return this record
+     */
+    public StateRecord putInt(String name, int value) {
+        return put(name, value);
+    }
+
+    /**
+     * Put a long.
+     *
+     * @param name   the name of the field
+     * @param value  the value
+     * @return this record
+     */
+    public StateRecord putLong(String name, long value) {
+        return put(name, value);
+    }
+
+    /**
+     * Put a double.
+     *
+     * @param name   the name of the field
+     * @param value  the value
+     * @return this record
+     */
+    public StateRecord putDouble(String name, double value) {
+        return put(name, value);
+    }
+
+    /**
+     * Put a boolean.
+     *
+     * @param name   the name of the field
+     * @param value  the value
+     * @return this record
+     */
+    public StateRecord putBoolean(String name, boolean value) {
+        return put(name, value);
+    }
+
+    /**
+     * Put a string.
+     *
+     * @param name   the name of the field
+     * @param value  the value; it can be <code>null</code>
+     * @return this record
+     */
+    public StateRecord putString(String name, String value) {
+        return put(name, value);
+    }
+
+    /**
+     * Put an array of ints.
+     *
+     * @param name    the name of the field
+     * @param values  the values
+     * @return this record
+     */
+    public StateRecord putInts(String name, int[] values) {
+        return put(name, values.clone());
+    }
+
+    /**
+     * Put an array of longs.
+     *
+     * @param name    the name of the field
+     * @param values  the values
+     * @return this record
+     */
+    public StateRecord putLongs(String name, long[] values) {
+        return put(name, values.clone());
+    }
+
+    /**
+     * Put an array of doubles.
+     *
+     * @param name    the name of the field
+     * @param values  the values
+     * @return this record
+     */
+    public StateRecord putDoubles(String name, double[] values) {
+        return put(name, values.clone());
+    }
+
+    /**
+     * Put an array of strings.
+     *
+     * @param name    the name of the field
+     * @param values  the values; none of them can be <code>null</code>
+     * @return this record
+     */
+    public StateRecord putStrings(String name, String[] values) {
+        return put(name, values.clone());
+    }
+
+    /**
+     * Put a nested record.
+     *
+     * @param name   the name of the field
+     * @param value  the record; it can be <code>null</code>
+     * @return this record
+     */
+    public StateRecord putRecord(String name, StateRecord value) {
+        return put(name, value);
+    }
+
+    /**
+     * Put a list of nested records.
+     *
+     * @param name    the name of the field
+     * @param values  the records; none of them can be <code>null</code>
+     * @return this record
+     */
+    public StateRecord putRecords(String name, List<StateRecord> values) {
+        return put(name, new ArrayList<StateRecord>(values));
+    }
+
+    // getters
+
+    /**
+     * Get an int.
+     *
+     * @param name  the name of the field
+     * @return the value
+     * @throws StreamCorruptedException  if the field is missing or is not an
+     *                                   int
+     */
+    public int getInt(String name) throws StreamCorruptedException {
+        return get(name, Integer.class, false);
+    }
+
+    /**
+     * Get a long.
+     *
+     * @param name  the name of the field
+     * @return the value
+     * @throws StreamCorruptedException  if the field is missing or is not a
+     *                                   long
+     */
+    public long getLong(String name) throws StreamCorruptedException {
+        return get(name, Long.class, false);
+    }
+
+    /**
+     * Get a double.
+     *
+     * @param name  the name of the field
+     * @return the value
+     * @throws StreamCorruptedException  if the field is missing or is not a
+     *                                   double
+     */
+    public double getDouble(String name) throws StreamCorruptedException {
+        return get(name, Double.class, false);
+    }
+
+    /**
+     * Get a boolean.
+     *
+     * @param name  the name of the field
+     * @return the value
+     * @throws StreamCorruptedException  if the field is missing or is not a
+     *                                   boolean
+     */
+    public boolean getBoolean(String name) throws StreamCorruptedException {
+        return get(name, Boolean.class, false);
+    }
+
+    /**
+     * Get a string.
+     *
+     * @param name  the name of the field
+     * @return the value; it can be <code>null</code>
+     * @throws StreamCorruptedException  if the field is missing or is not a
+     *                                   string
+     */
+    public String getString(String name) throws StreamCorruptedException {
+        return get(name, String.class, true);
+    }
+
+    /**
+     * Get an array of ints.
+     *
+     * @param name  the name of the field
+     * @return the values
+     * @throws StreamCorruptedException  if the field is missing or is not an
+     *                                   array of ints
+     */
+    public int[] getInts(String name) throws StreamCorruptedException {
+        return get(name, int[].class, false).clone();
+    }
+
+    /**
+     * Get an array of longs.
+     *
+     * @param name  the name of the field
+     * @return the values
+     * @throws StreamCorruptedException  if the field is missing or is not an
+     *                                   array of longs
+     */
+    public long[] getLongs(String name) throws StreamCorruptedException {
+        return get(name, long[].class, false).clone();
+    }
+
+    /**
+     * Get an array of doubles.
+     *
+     * @param name  the name of the field
+     * @return the values
+     * @throws StreamCorruptedException  if the field is missing or is not an
+     *                                   array of doubles
+     */
+    public double[] getDoubles(String name) throws StreamCorruptedException {
+        return get(name, double[].class, false).clone();
+    }
+
+    /**
+     * Get an array of strings.
+     *
+     * @param name  the name of the field
+     * @return the values
+     * @throws StreamCorruptedException  if the field is missing or is not an
+     *                                   array of strings
+     */
+    public String[] getStrings(String name) throws StreamCorruptedException {
+        return get(name, String[].class, false).clone();
+    }
+
+    /**
+     * Get a nested record.
+     *
+     * @param name  the name of the field
+     * @return the record
+     * @throws StreamCorruptedException  if the field is missing or is not a
+     *                                   record
+     */
+    public StateRecord getRecord(String name) throws StreamCorruptedException {
+        return get(name, StateRecord.class, false);
+    }
+
+    /**
+     * Get a nested record that can be <code>null</code>.
+     *
+     * @param name  the name of the field
+     * @return the record; it can be <code>null</code>
+     * @throws StreamCorruptedException  if the field is missing or is neither
+     *                                   a record nor <code>null</code>
+     */
+    public StateRecord getRecordOrNull(String name) throws StreamCorruptedException {
+        return get(name, StateRecord.class, true);
+    }
+
+    /**
+     * Get a list of nested records.
+     *
+     * @param name  the name of the field
+     * @return the records
+     * @throws StreamCorruptedException  if the field is missing or is not a
+     *                                   list of records
+     */
+    @SuppressWarnings("unchecked")
+    public List<StateRecord> getRecords(String name) throws StreamCorruptedException {
+        return Collections.unmodifiableList(get(name, List.class, false));
+    }
+
+    // binary form
+
+    /**
+     * Write this record and its nested records.
+     *
+     * @param out  the output
+     * @throws IOException  if the record cannot be written
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeUTF(type);
+        out.writeShort(version);
+        out.writeInt(fields.size());
+        for (Map.Entry<String, Object> e : fields.entrySet()) {
+            out.writeUTF(e.getKey());
+            writeValue(out, e.getValue());
+        }
+    }
+
+    /**
+     * Read a record and its nested records.
+     *
+     * @param in  the input
+     * @return the record
+     * @throws IOException  if the input is not a record
+     */
+    public static StateRecord read(DataInput in) throws IOException {
+        StateRecord record = new StateRecord(in.readUTF(), in.readUnsignedShort());
+        int size = in.readInt();
+        if (size < 0) {
+            throw new StreamCorruptedException("Negative size of " + record.type);
+        }
+        for (int i = 0; i < size; i++) {
+            String name = in.readUTF();
+            if (record.fields.containsKey(name)) {
+                throw new StreamCorruptedException(
+                    "Duplicate field " + record.type + "." + name);
+            }
+            record.fields.put(name, readValue(in, record.type + "." + name));
+        }
+        return record;
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Put a field.
+     */
+    private StateRecord put(String name, Object value) {
+        if (fields.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate field " + type + "." + name);
+        }
+        fields.put(name, value);
+        return this;
+    }
+
+    /**
+     * Get a field and mark it as read.
+     */
+    private <T> T get(String name, Class<T> c, boolean nullable)
+            throws StreamCorruptedException {
+        if (!fields.containsKey(name)) {
+            throw new StreamCorruptedException("Missing field " + type + "." + name);
+        }
+        Object value = fields.get(name);
+        if (value == null ? !nullable : !c.isInstance(value)) {
+            throw new StreamCorruptedException(
+                "Field " + type + "." + name + " is not a " + c.getSimpleName());
+        }
+        read.add(name);
+        return c.cast(value);
+    }
+
+    /**
+     * Write the tag and the value of a field.
+     */
+    @SuppressWarnings("unchecked")
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            out.writeUTF((String) value);
+        } else if (value instanceof int[]) {
+            int[] values = (int[]) value;
+            out.writeByte(INTS);
+            out.writeInt(values.length);
+            for (int v : values) {
+                out.writeInt(v);
+            }
+        } else if (value instanceof long[]) {
+            long[] values = (long[]) value;
+            out.writeByte(LONGS);
+            out.writeInt(values.length);
+            for (long v : values) {
+                out.writeLong(v);
+            }
+        } else if (value instanceof double[]) {
+            double[] values = (double[]) value;
+            out.writeByte(DOUBLES);
+            out.writeInt(values.length);
+            for (double v : values) {
+                out.writeDouble(v);
+            }
+        } else if (value instanceof String[]) {
+            String[] values = (String[]) value;
+            out.writeByte(STRINGS);
+            out.writeInt(values.length);
+            for (String v : values) {
+                out.writeUTF(v);
+            }
+        } else if (value instanceof StateRecord) {
+            out.writeByte(RECORD);
+            ((StateRecord) value).write(out);
+        } else {
+            List<StateRecord> values = (List<StateRecord>) value;
+            out.writeByte(RECORDS);
+            out.writeInt(values.size());
+            for (StateRecord v : values) {
+                v.write(out);
+            }
+        }
+    }
+
+    /**
+     * Read the tag and the value of a field.
+     */
+    private static Object readValue(DataInput in, String field) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+        case NULL:
+            return null;
+        case INT:
+            return in.readInt();
+        case LONG:
+            return in.readLong();
+        case DOUBLE:
+            return in.readDouble();
+        case BOOLEAN:
+            return in.readBoolean();
+        case STRING:
+            return in.readUTF();
+        case INTS: {
+            int[] values = new int[readLength(in, field)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readInt();
+            }
+            return values;
+        }
+        case LONGS: {
+            long[] values = new long[readLength(in, field)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readLong();
+            }
+            return values;
+        }
+        case DOUBLES: {
+            double[] values = new double[readLength(in, field)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readDouble();
+            }
+            return values;
+        }
+        case STRINGS: {
+            String[] values = new String[readLength(in, field)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readUTF();
+            }
+            return values;
+        }
+        case RECORD:
+            return read(in);
+        case RECORDS: {
+            int length = readLength(in, field);
+            List<StateRecord> values = new ArrayList<StateRecord>(length);
+            for (int i = 0; i < length; i++) {
+                values.add(read(in));
+            }
+            return values;
+        }
+        default:
+            throw new StreamCorruptedException("Unknown tag " + tag + " of " + field);
+        }
+    }
+
+    /**
+     * Read the length of an array or a list.
+     */
+    private static int readLength(DataInput in, String field) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new StreamCorruptedException("Negative length of " + field);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * This package contains the snapshots of simulators, which save the full
+ * state of a simulation so that it can be restored and continued later.
+ */
+package aim4.sim.snapshot;
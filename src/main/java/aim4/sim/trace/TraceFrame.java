@@ -0,0 +1,310 @@
+package aim4.sim.trace;
+
+import aim4.msg.aim.i2v.I2VMessage;
+import aim4.msg.aim.i2v.Reject;
+import aim4.msg.aim.v2i.V2IMessage;
+
+/**
+ * The state of a simulation at the end of a step, read from a trace: the
+ * vehicles and the messages sent during the step.  Messages are V2I or I2V
+ * messages; their types and the reasons of rejections are the ordinals of
+ * {@link V2IMessage.Type}, {@link I2VMessage.Type} and
+ * {@link Reject.Reason}, which are the same for the AIM and RIM messages.
+ */
+public final class TraceFrame {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The kind of the messages from a vehicle to an intersection manager */
+    public static final byte V2I = 0;
+
+    /** The kind of the messages from an intersection manager to a vehicle */
+    public static final byte I2V = 1;
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The simulation time at the end of the step */
+    private final double time;
+
+    // the vehicles
+    private final int[] vins;
+    private final double[] xs;
+    private final double[] ys;
+    private final float[] headings;
+    private final float[] velocities;
+    private final float[] lengths;
+    private final float[] widths;
+
+    // the messages
+    private final int[] messageVins;
+    private final int[] messageImIds;
+    private final byte[] messageKinds;
+    private final byte[] messageTypes;
+    private final byte[] messageReasons;
+    private final boolean[] messageDelivered;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create an empty frame to be filled by a {@link TraceReader}.
+     *
+     * @param time            the simulation time at the end of the step
+     * @param numOfVehicles   the number of vehicles
+     * @param numOfMessages   the number of messages
+     */
+    TraceFrame(double time, int numOfVehicles, int numOfMessages) {
+        this.time = time;
+        vins = new int[numOfVehicles];
+        xs = new double[numOfVehicles];
+        ys = new double[numOfVehicles];
+        headings = new float[numOfVehicles];
+        velocities = new float[numOfVehicles];
+        lengths = new float[numOfVehicles];
+        widths = new float[numOfVehicles];
+        messageVins = new int[numOfMessages];
+        messageImIds = new int[numOfMessages];
+        messageKinds = new byte[numOfMessages];
+        messageTypes = new byte[numOfMessages];
+        messageReasons = new byte[numOfMessages];
+        messageDelivered = new boolean[numOfMessages];
+    }
+
+    /////////////////////////////////
+    // PACKAGE METHODS
+    /////////////////////////////////
+
+    /**
+     * Set the state of a vehicle.
+     */
+    void setVehicle(int i, int vin, double x, double y, float heading,
+                    float velocity, float length, float width) {
+        vins[i] = vin;
+        xs[i] = x;
+        ys[i] = y;
+        headings[i] = heading;
+        velocities[i] = velocity;
+        lengths[i] = length;
+        widths[i] = width;
+    }
+
+    /**
+     * Set a message.
+     */
+    void setMessage(int i, int vin, int imId, byte kind, byte type,
+                    byte reason, boolean delivered) {
+        messageVins[i] = vin;
+        messageImIds[i] = imId;
+        messageKinds[i] = kind;
+        messageTypes[i] = type;
+        messageReasons[i] = reason;
+        messageDelivered[i] = delivered;
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the simulation time at the end of the step.
+     *
+     * @return the simulation time
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Get the number of vehicles.
+     *
+     * @return the number of vehicles
+     */
+    public int getNumOfVehicles() {
+        return vins.length;
+    }
+
+    /**
+     * Find a vehicle by its VIN.
+     *
+     * @param vin  the VIN
+     * @return the index of the vehicle; -1 if the vehicle is not in the frame
+     */
+    public int indexOfVehicle(int vin) {
+        for (int i = 0; i < vins.length; i++) {
+            if (vins[i] == vin) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the VIN of a vehicle.
+     *
+     * @param i  the index of the vehicle
+     * @return the VIN
+     */
+    public int getVin(int i) {
+        return vins[i];
+    }
+
+    /**
+     * Get the x-coordinate of the middle of the front of a vehicle.
+     *
+     * @param i  the index of the vehicle
+     * @return the x-coordinate
+     */
+    public double getX(int i) {
+        return xs[i];
+    }
+
+    /**
+     * Get the y-coordinate of the middle of the front of a vehicle.
+     *
+     * @param i  the index of the vehicle
+     * @return the y-coordinate
+     */
+    public double getY(int i) {
+        return ys[i];
+    }
+
+    /**
+     * Get the heading of a vehicle.
+     *
+     * @param i  the index of the vehicle
+     * @return the heading in radians
+     */
+    public double getHeading(int i) {
+        return headings[i];
+    }
+
+    /**
+     * Get the velocity of a vehicle.
+     *
+     * @param i  the index of the vehicle
+     * @return the velocity in meters per second
+     */
+    public double getVelocity(int i) {
+        return velocities[i];
+    }
+
+    /**
+     * Get the length of a vehicle.
+     *
+     * @param i  the index of the vehicle
+     * @return the length in meters
+     */
+    public double getLength(int i) {
+        return lengths[i];
+    }
+
+    /**
+     * Get the width of a vehicle.
+     *
+     * @param i  the index of the vehicle
+     * @return the width in meters
+     */
+    public double getWidth(int i) {
+        return widths[i];
+    }
+
+    /**
+     * Get the number of messages.
+     *
+     * @return the number of messages
+     */
+    public int getNumOfMessages() {
+        return messageVins.length;
+    }
+
+    /**
+     * Get the VIN of the sender or the receiver of a message.
+     *
+     * @param i  the index of the message
+     * @return the VIN
+     */
+    public int getMessageVin(int i) {
+        return messageVins[i];
+    }
+
+    /**
+     * Get the ID of the intersection manager that sent or received a
+     * message.
+     *
+     * @param i  the index of the message
+     * @return the ID of the intersection manager
+     */
+    public int getMessageImId(int i) {
+        return messageImIds[i];
+    }
+
+    /**
+     * Get the kind of a message.
+     *
+     * @param i  the index of the message
+     * @return {@link #V2I} or {@link #I2V}
+     */
+    public byte getMessageKind(int i) {
+        return messageKinds[i];
+    }
+
+    /**
+     * Get the ordinal of the type of a message.
+     *
+     * @param i  the index of the message
+     * @return the ordinal of the type
+     */
+    public int getMessageType(int i) {
+        return messageTypes[i];
+    }
+
+    /**
+     * Get the ordinal of the reason of a rejection.
+     *
+     * @param i  the index of the message
+     * @return the ordinal of the reason; -1 if the message is not a rejection
+     */
+    public int getMessageReason(int i) {
+        return messageReasons[i];
+    }
+
+    /**
+     * Whether a message was delivered.
+     *
+     * @param i  the index of the message
+     * @return whether the message was delivered
+     */
+    public boolean isMessageDelivered(int i) {
+        return messageDelivered[i];
+    }
+
+    /**
+     * Describe a message, for instance "I2V REJECT(NO_CLEAR_PATH) 0 -> 12"
+     * for a rejection sent by the intersection manager 0 to the vehicle 12.
+     *
+     * @param i  the index of the message
+     * @return the description of the message
+     */
+    public String describeMessage(int i) {
+        StringBuilder sb = new StringBuilder();
+        if (messageKinds[i] == V2I) {
+            sb.append("V2I ").append(V2IMessage.Type.values()[messageTypes[i]]);
+            sb.append(' ').append(messageVins[i]).append(" -> ").append(messageImIds[i]);
+        } else {
+            sb.append("I2V ").append(I2VMessage.Type.values()[messageTypes[i]]);
+            if (messageReasons[i] >= 0) {
+                sb.append('(').append(Reject.Reason.values()[messageReasons[i]]).append(')');
+            }
+            sb.append(' ').append(messageImIds[i]).append(" -> ").append(messageVins[i]);
+        }
+        if (!messageDelivered[i]) {
+            sb.append(" (lost)");
+        }
+        return sb.toString();
+    }
+}
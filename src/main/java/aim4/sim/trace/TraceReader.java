@@ -0,0 +1,236 @@
+package aim4.sim.trace;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Reads a trace written by a {@link TraceRecorder}.  The segments of the
+ * trace that are left are mapped in memory and indexed when the reader is
+ * created, so that any frame can be read at once, in any order.
+ */
+public class TraceReader implements Closeable {
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The description of the simulation */
+    private final String description;
+    /** The mapped segments, in order */
+    private final List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+    /** The number of frames */
+    private int numOfFrames;
+    /** The segment of each frame */
+    private int[] frameSegments = new int[1024];
+    /** The offset of each frame in its segment, after its length */
+    private int[] frameOffsets = new int[1024];
+    /** The simulation time of each frame */
+    private double[] frameTimes = new double[1024];
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Open a trace.
+     *
+     * @param file  the trace, as given to the {@link TraceRecorder}
+     * @throws IOException  if no segment of the trace is found or a segment
+     *                      is not valid
+     */
+    public TraceReader(File file) throws IOException {
+        String text = null;
+        for (File segmentFile : findSegments(file)) {
+            ByteBuffer segment = map(segmentFile);
+            if (segment.getInt() != TraceRecorder.MAGIC) {
+                throw new StreamCorruptedException("Not a trace: " + segmentFile);
+            }
+            int version = segment.getShort();
+            if (version != TraceRecorder.VERSION) {
+                throw new InvalidClassException(
+                    TraceReader.class.getName(), "unsupported version " + version);
+            }
+            segment.getInt(); // the sequence number
+            byte[] bytes = new byte[segment.getInt()];
+            segment.get(bytes);
+            if (text == null) {
+                text = new String(bytes, TraceRecorder.CHARSET);
+            }
+            indexFrames(segment, segments.size());
+            segments.add(segment);
+        }
+        description = text;
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the description of the simulation.
+     *
+     * @return the description given to the {@link TraceRecorder}
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Get the number of frames.
+     *
+     * @return the number of frames
+     */
+    public int getNumOfFrames() {
+        return numOfFrames;
+    }
+
+    /**
+     * Get the simulation time of a frame.
+     *
+     * @param i  the index of the frame
+     * @return the simulation time at the end of the step of the frame
+     */
+    public double getFrameTime(int i) {
+        if (i < 0 || i >= numOfFrames) {
+            throw new IndexOutOfBoundsException("No frame " + i);
+        }
+        return frameTimes[i];
+    }
+
+    /**
+     * Find the last frame at or before a simulation time.
+     *
+     * @param time  the simulation time
+     * @return the index of the frame; 0 if the time is before the first
+     *         frame
+     */
+    public int findFrame(double time) {
+        int i = Arrays.binarySearch(frameTimes, 0, numOfFrames, time);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return Math.max(i, 0);
+    }
+
+    /**
+     * Read a frame.
+     *
+     * @param i  the index of the frame
+     * @return the frame
+     */
+    public TraceFrame readFrame(int i) {
+        if (i < 0 || i >= numOfFrames) {
+            throw new IndexOutOfBoundsException("No frame " + i);
+        }
+        ByteBuffer in = segments.get(frameSegments[i]).duplicate();
+        in.position(frameOffsets[i]);
+        TraceFrame frame = new TraceFrame(in.getDouble(), in.getInt(), in.getInt());
+        for (int j = 0; j < frame.getNumOfVehicles(); j++) {
+            frame.setVehicle(j, in.getInt(), in.getDouble(), in.getDouble(),
+                             in.getFloat(), in.getFloat(), in.getFloat(), in.getFloat());
+        }
+        for (int j = 0; j < frame.getNumOfMessages(); j++) {
+            frame.setMessage(j, in.getInt(), in.getInt(), in.get(), in.get(),
+                             in.get(), in.get() != 0);
+        }
+        return frame;
+    }
+
+    /**
+     * Release the segments.  They are unmapped once they are no longer
+     * referred to.
+     */
+    @Override
+    public void close() {
+        segments.clear();
+        numOfFrames = 0;
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Find the segments of a trace, in order.
+     *
+     * @param file  the trace
+     * @return the segment files
+     * @throws FileNotFoundException  if there is no segment
+     */
+    private static List<File> findSegments(File file) throws FileNotFoundException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        String prefix = file.getName() + ".";
+        TreeMap<Integer, File> bySequence = new TreeMap<Integer, File>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                String name = f.getName();
+                if (name.startsWith(prefix)) {
+                    try {
+                        bySequence.put(Integer.valueOf(name.substring(prefix.length())), f);
+                    } catch (NumberFormatException e) {
+                        // not a segment
+                    }
+                }
+            }
+        }
+        if (bySequence.isEmpty()) {
+            throw new FileNotFoundException("No segment of the trace " + file);
+        }
+        return new ArrayList<File>(bySequence.values());
+    }
+
+    /**
+     * Map a segment in memory.
+     */
+    private static MappedByteBuffer map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Index the frames of a segment, up to the first empty frame.
+     *
+     * @param segment  the segment, positioned at its first frame
+     * @param index    the index of the segment
+     */
+    private void indexFrames(ByteBuffer segment, int index) throws IOException {
+        while (segment.remaining() >= 4) {
+            int length = segment.getInt();
+            if (length == 0) {
+                break;
+            }
+            if (length < TraceRecorder.FRAME_HEADER_SIZE || length > segment.remaining()) {
+                throw new StreamCorruptedException("Truncated frame in a trace");
+            }
+            if (numOfFrames == frameOffsets.length) {
+                int n = 2 * numOfFrames;
+                frameSegments = Arrays.copyOf(frameSegments, n);
+                frameOffsets = Arrays.copyOf(frameOffsets, n);
+                frameTimes = Arrays.copyOf(frameTimes, n);
+            }
+            frameSegments[numOfFrames] = index;
+            frameOffsets[numOfFrames] = segment.position();
+            frameTimes[numOfFrames] = segment.getDouble(segment.position());
+            numOfFrames++;
+            segment.position(segment.position() + length);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package aim4.sim.trace;
+
+import aim4.vehicle.VehicleSimModel;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Records a trace of a simulation: at each step, the position, heading and
+ * velocity of every vehicle, the V2I and I2V messages sent during the step,
+ * and so the decisions of the intersection managers, which are their
+ * confirm and reject messages.  The trace is replayed by a
+ * {@link TraceReader} without running the simulation again.
+ * <p>
+ * The trace is written to a series of segment files of a fixed size, each
+ * mapped in memory, named after the trace with the sequence number of the
+ * segment appended (<code>run.trace.0</code>, <code>run.trace.1</code>,
+ * ...).  When the maximum number of segments is reached, the oldest segment
+ * is deleted, so the segments form a ring that keeps the end of the longest
+ * runs.
+ * <p>
+ * A simulator records a step by calling the <code>record</code> methods
+ * during the step and {@link #endStep(double)} at the end of it.  The
+ * methods throw an {@link UncheckedIOException} if the trace cannot be
+ * written.
+ */
+public class TraceRecorder implements Closeable {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The default size of a segment: 64 MB */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    /** The first four bytes of a segment: "AVTR" */
+    static final int MAGIC = 0x41565452;
+
+    /** The version of the format */
+    static final int VERSION = 1;
+
+    /** The size of the header of a frame, after its length */
+    static final int FRAME_HEADER_SIZE = 8 + 4 + 4;
+
+    /** The size of the record of a vehicle */
+    static final int VEHICLE_SIZE = 4 + 8 + 8 + 4 + 4 + 4 + 4;
+
+    /** The size of the record of a message */
+    static final int MESSAGE_SIZE = 4 + 4 + 1 + 1 + 1 + 1;
+
+    /** The charset of the description */
+    static final Charset CHARSET = Charset.forName("UTF-8");
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The path of the trace, to which the sequence numbers are appended */
+    private final String path;
+    /** The size of a segment */
+    private final int segmentSize;
+    /** The maximum number of segments kept; 0 if all of them are kept */
+    private final int maxSegments;
+    /** The description of the simulation, written in each segment */
+    private final byte[] description;
+    /** The segments kept, oldest first */
+    private final Deque<File> segments = new ArrayDeque<File>();
+    /** The sequence number of the next segment */
+    private int nextSequence;
+    /** The channel of the current segment */
+    private FileChannel channel;
+    /** The mapped buffer of the current segment */
+    private MappedByteBuffer buffer;
+
+    // the vehicles of the current step
+    private int numOfVehicles;
+    private int[] vins = new int[64];
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private float[] headings = new float[64];
+    private float[] velocities = new float[64];
+    private float[] lengths = new float[64];
+    private float[] widths = new float[64];
+
+    // the messages of the current step
+    private int numOfMessages;
+    private int[] messageVins = new int[64];
+    private int[] messageImIds = new int[64];
+    private byte[] messageKinds = new byte[64];
+    private byte[] messageTypes = new byte[64];
+    private byte[] messageReasons = new byte[64];
+    private byte[] messageDelivered = new byte[64];
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a recorder that keeps all the segments of the trace.
+     *
+     * @param file         the trace
+     * @param description  the description of the simulation
+     * @throws IOException  if the first segment cannot be created
+     */
+    public TraceRecorder(File file, String description) throws IOException {
+        this(file, description, DEFAULT_SEGMENT_SIZE, 0);
+    }
+
+    /**
+     * Create a recorder.
+     *
+     * @param file         the trace
+     * @param description  the description of the simulation, such as the
+     *                     options it was set up with
+     * @param segmentSize  the size of a segment in bytes
+     * @param maxSegments  the maximum number of segments kept; 0 to keep all
+     *                     of them
+     * @throws IOException  if the first segment cannot be created
+     */
+    public TraceRecorder(File file, String description, int segmentSize,
+                         int maxSegments) throws IOException {
+        this.path = file.getPath();
+        this.description = description.getBytes(CHARSET);
+        if (segmentSize < 4 + 2 + 4 + 4 + this.description.length + 4) {
+            throw new IllegalArgumentException("Segment too small: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.nextSequence = 0;
+        openSegment();
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Record the state of a vehicle at the end of the current step.
+     *
+     * @param vehicle  the vehicle
+     */
+    public void recordVehicle(VehicleSimModel vehicle) {
+        if (numOfVehicles == vins.length) {
+            int n = 2 * numOfVehicles;
+            vins = Arrays.copyOf(vins, n);
+            xs = Arrays.copyOf(xs, n);
+            ys = Arrays.copyOf(ys, n);
+            headings = Arrays.copyOf(headings, n);
+            velocities = Arrays.copyOf(velocities, n);
+            lengths = Arrays.copyOf(lengths, n);
+            widths = Arrays.copyOf(widths, n);
+        }
+        int i = numOfVehicles++;
+        vins[i] = vehicle.getVIN();
+        xs[i] = vehicle.getPosition().getX();
+        ys[i] = vehicle.getPosition().getY();
+        headings[i] = (float) vehicle.getHeading();
+        velocities[i] = (float) vehicle.getVelocity();
+        lengths[i] = (float) vehicle.getSpec().getLength();
+        widths[i] = (float) vehicle.getSpec().getWidth();
+    }
+
+    /**
+     * Record a V2I message sent during the current step.
+     *
+     * @param vin        the VIN of the sender
+     * @param imId       the ID of the receiving intersection manager
+     * @param type       the ordinal of the type of the message
+     * @param delivered  whether the message was delivered
+     */
+    public void recordV2IMessage(int vin, int imId, int type, boolean delivered) {
+        recordMessage(TraceFrame.V2I, vin, imId, type, -1, delivered);
+    }
+
+    /**
+     * Record an I2V message sent during the current step.
+     *
+     * @param vin        the VIN of the receiver
+     * @param imId       the ID of the sending intersection manager
+     * @param type       the ordinal of the type of the message
+     * @param reason     the ordinal of the reason of a rejection; -1 if the
+     *                   message is not a rejection
+     * @param delivered  whether the message was delivered
+     */
+    public void recordI2VMessage(int vin, int imId, int type, int reason,
+                                 boolean delivered) {
+        recordMessage(TraceFrame.I2V, vin, imId, type, reason, delivered);
+    }
+
+    /**
+     * Write the frame of the current step, and start the next one.
+     *
+     * @param time  the simulation time at the end of the step
+     */
+    public void endStep(double time) {
+        int frameSize = 4 + FRAME_HEADER_SIZE + numOfVehicles * VEHICLE_SIZE
+                        + numOfMessages * MESSAGE_SIZE;
+        try {
+            // keep room for the length of the empty frame that ends a segment
+            if (buffer.remaining() < frameSize + 4) {
+                closeSegment();
+                openSegment();
+                if (buffer.remaining() < frameSize + 4) {
+                    throw new IOException("A frame of " + frameSize
+                                          + " bytes does not fit in a segment");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.putInt(frameSize - 4);
+        buffer.putDouble(time);
+        buffer.putInt(numOfVehicles);
+        buffer.putInt(numOfMessages);
+        for (int i = 0; i < numOfVehicles; i++) {
+            buffer.putInt(vins[i]);
+            buffer.putDouble(xs[i]);
+            buffer.putDouble(ys[i]);
+            buffer.putFloat(headings[i]);
+            buffer.putFloat(velocities[i]);
+            buffer.putFloat(lengths[i]);
+            buffer.putFloat(widths[i]);
+        }
+        for (int i = 0; i < numOfMessages; i++) {
+            buffer.putInt(messageVins[i]);
+            buffer.putInt(messageImIds[i]);
+            buffer.put(messageKinds[i]);
+            buffer.put(messageTypes[i]);
+            buffer.put(messageReasons[i]);
+            buffer.put(messageDelivered[i]);
+        }
+        numOfVehicles = 0;
+        numOfMessages = 0;
+    }
+
+    /**
+     * Close the current segment.  The frames of a step that has not ended
+     * are dropped.
+     *
+     * @throws IOException  if the segment cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            closeSegment();
+        }
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Record a message sent during the current step.
+     */
+    private void recordMessage(byte kind, int vin, int imId, int type,
+                               int reason, boolean delivered) {
+        if (numOfMessages == messageVins.length) {
+            int n = 2 * numOfMessages;
+            messageVins = Arrays.copyOf(messageVins, n);
+            messageImIds = Arrays.copyOf(messageImIds, n);
+            messageKinds = Arrays.copyOf(messageKinds, n);
+            messageTypes = Arrays.copyOf(messageTypes, n);
+            messageReasons = Arrays.copyOf(messageReasons, n);
+            messageDelivered = Arrays.copyOf(messageDelivered, n);
+        }
+        int i = numOfMessages++;
+        messageVins[i] = vin;
+        messageImIds[i] = imId;
+        messageKinds[i] = kind;
+        messageTypes[i] = (byte) type;
+        messageReasons[i] = (byte) reason;
+        messageDelivered[i] = (byte) (delivered ? 1 : 0);
+    }
+
+    /**
+     * Create and map the next segment, and delete the oldest one if there
+     * are too many.
+     */
+    private void openSegment() throws IOException {
+        File file = new File(path + "." + nextSequence);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        channel = raf.getChannel();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putInt(nextSequence);
+        buffer.putInt(description.length);
+        buffer.put(description);
+        nextSequence++;
+        segments.addLast(file);
+        if (maxSegments > 0 && segments.size() > maxSegments) {
+            File oldest = segments.removeFirst();
+            if (!oldest.delete()) {
+                throw new IOException("Cannot delete the segment " + oldest);
+            }
+        }
+    }
+
+    /**
+     * Flush the current segment and cut off its unused end.  The unused end
+     * stays in place, filled with zeros, where a mapped file cannot be
+     * truncated.
+     */
+    private void closeSegment() throws IOException {
+        int end = buffer.position();
+        buffer.force();
+        buffer = null;
+        try {
+            channel.truncate(end + 4);
+        } catch (IOException e) {
+            // the reader stops at the first empty frame anyway
+        }
+        channel.close();
+        channel = null;
+    }
+}
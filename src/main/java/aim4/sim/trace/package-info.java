@@ -0,0 +1,6 @@
+/**
+ * This package contains the traces of simulations, which record the state
+ * of the vehicles and the messages at every step so that a simulation can be
+ * replayed without running it again.
+ */
+package aim4.sim.trace;
@@ -0,0 +1,245 @@
+package aim4.util;
+
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An area together with a decomposition of it into convex polygons, which
+ * allows testing whether a convex polygon overlaps the area without the
+ * boolean operations of {@link Area}.
+ * <p>
+ * The decomposition is built from the pieces the area was assembled from.
+ * It is only used if every piece is a convex polygon and the union of the
+ * pieces is exactly the area; otherwise {@link #isExact()} is
+ * <code>false</code> and callers must fall back to the area itself.
+ */
+public class ConvexDecomposition {
+
+  /////////////////////////////////
+  // PRIVATE FIELDS
+  /////////////////////////////////
+
+  /** The area */
+  private final Area area;
+  /** The bounding box of the area */
+  private final Rectangle2D bounds;
+  /** Whether the convex polygons make up exactly the area */
+  private final boolean isExact;
+  /** The x-coordinates of the vertices of the convex polygons */
+  private final double[][] xs;
+  /** The y-coordinates of the vertices of the convex polygons */
+  private final double[][] ys;
+  /** The smallest x-coordinate of each convex polygon */
+  private final double[] minX;
+  /** The largest x-coordinate of each convex polygon */
+  private final double[] maxX;
+  /** The smallest y-coordinate of each convex polygon */
+  private final double[] minY;
+  /** The largest y-coordinate of each convex polygon */
+  private final double[] maxY;
+
+  /////////////////////////////////
+  // CLASS CONSTRUCTORS
+  /////////////////////////////////
+
+  /**
+   * Create a decomposition of an area.
+   *
+   * @param area    the area
+   * @param pieces  the shapes whose union is the area
+   */
+  public ConvexDecomposition(Area area, List<? extends Shape> pieces) {
+    this.area = area;
+    this.bounds = area.getBounds2D();
+    List<double[]> polygons = new ArrayList<double[]>(pieces.size());
+    Area union = new Area();
+    boolean allConvex = true;
+    for(Shape piece : pieces) {
+      double[] polygon = toConvexPolygon(piece);
+      if (polygon == null) {
+        allConvex = false;
+        break;
+      }
+      polygons.add(polygon);
+      union.add(new Area(piece));
+    }
+    isExact = allConvex && union.equals(area);
+    int n = isExact ? polygons.size() : 0;
+    xs = new double[n][];
+    ys = new double[n][];
+    minX = new double[n];
+    maxX = new double[n];
+    minY = new double[n];
+    maxY = new double[n];
+    for(int i = 0; i < n; i++) {
+      double[] polygon = polygons.get(i);
+      int vertices = polygon.length / 2;
+      xs[i] = new double[vertices];
+      ys[i] = new double[vertices];
+      minX[i] = minY[i] = Double.POSITIVE_INFINITY;
+      maxX[i] = maxY[i] = Double.NEGATIVE_INFINITY;
+      for(int k = 0; k < vertices; k++) {
+        xs[i][k] = polygon[2 * k];
+        ys[i][k] = polygon[2 * k + 1];
+        minX[i] = Math.min(minX[i], xs[i][k]);
+        maxX[i] = Math.max(maxX[i], xs[i][k]);
+        minY[i] = Math.min(minY[i], ys[i][k]);
+        maxY[i] = Math.max(maxY[i], ys[i][k]);
+      }
+    }
+  }
+
+  /////////////////////////////////
+  // PUBLIC METHODS
+  /////////////////////////////////
+
+  /**
+   * Get the area.
+   *
+   * @return the area
+   */
+  public Area getArea() {
+    return area;
+  }
+
+  /**
+   * Get the bounding box of the area.
+   *
+   * @return the bounding box of the area
+   */
+  public Rectangle2D getBounds() {
+    return bounds;
+  }
+
+  /**
+   * Whether the convex polygons make up exactly the area.  If not, there are
+   * no convex polygons and {@link #overlapsConvexPolygon} must not be used.
+   *
+   * @return whether the convex polygons make up exactly the area
+   */
+  public boolean isExact() {
+    return isExact;
+  }
+
+  /**
+   * Get the number of convex polygons.
+   *
+   * @return the number of convex polygons
+   */
+  public int getNumberOfPolygons() {
+    return xs.length;
+  }
+
+  /**
+   * Determine whether a convex polygon overlaps the area, in the sense that
+   * the intersection of their {@link Area}s is not empty.  No objects are
+   * allocated.
+   *
+   * @param pxs  the x-coordinates of the vertices of the polygon, in order
+   *             around the polygon
+   * @param pys  the y-coordinates of the vertices of the polygon
+   * @param n    the number of vertices of the polygon
+   * @return whether the polygon overlaps the area
+   */
+  public boolean overlapsConvexPolygon(double[] pxs, double[] pys, int n) {
+    assert isExact;
+    double pMinX = Double.POSITIVE_INFINITY;
+    double pMaxX = Double.NEGATIVE_INFINITY;
+    double pMinY = Double.POSITIVE_INFINITY;
+    double pMaxY = Double.NEGATIVE_INFINITY;
+    for(int k = 0; k < n; k++) {
+      pMinX = Math.min(pMinX, pxs[k]);
+      pMaxX = Math.max(pMaxX, pxs[k]);
+      pMinY = Math.min(pMinY, pys[k]);
+      pMaxY = Math.max(pMaxY, pys[k]);
+    }
+    for(int i = 0; i < xs.length; i++) {
+      if (pMaxX > minX[i] && maxX[i] > pMinX &&
+          pMaxY > minY[i] && maxY[i] > pMinY &&
+          GeomMath.convexPolygonsOverlap(pxs, pys, n,
+                                         xs[i], ys[i], xs[i].length)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /////////////////////////////////
+  // PRIVATE METHODS
+  /////////////////////////////////
+
+  /**
+   * Get the vertices of a shape that is a single convex polygon.
+   *
+   * @param shape  the shape
+   * @return the coordinates of the vertices, x and y alternating; or
+   *         <code>null</code> if the shape is not a single convex polygon
+   */
+  private static double[] toConvexPolygon(Shape shape) {
+    List<Double> coords = new ArrayList<Double>();
+    double[] segment = new double[6];
+    boolean closed = false;
+    for(PathIterator iter = shape.getPathIterator(null); !iter.isDone();
+        iter.next()) {
+      int type = iter.currentSegment(segment);
+      if (closed) {
+        return null;  // more than one subpath
+      } else if (type == PathIterator.SEG_MOVETO) {
+        if (!coords.isEmpty()) {
+          return null;
+        }
+        coords.add(segment[0]);
+        coords.add(segment[1]);
+      } else if (type == PathIterator.SEG_LINETO) {
+        coords.add(segment[0]);
+        coords.add(segment[1]);
+      } else if (type == PathIterator.SEG_CLOSE) {
+        closed = true;
+      } else {
+        return null;  // curves
+      }
+    }
+    int n = coords.size() / 2;
+    // The closing vertex may be repeated
+    if (n > 1 && coords.get(0).equals(coords.get(2 * n - 2)) &&
+        coords.get(1).equals(coords.get(2 * n - 1))) {
+      n--;
+    }
+    if (n < 3) {
+      return null;
+    }
+    double[] polygon = new double[2 * n];
+    for(int i = 0; i < 2 * n; i++) {
+      polygon[i] = coords.get(i);
+    }
+    // All the turns must be in the same direction and add up to a single
+    // revolution, which rules out self-intersecting polygons such as stars
+    int sign = 0;
+    double totalTurn = 0.0;
+    for(int i = 0; i < n; i++) {
+      int j = (i + 1) % n;
+      int k = (i + 2) % n;
+      double ux = polygon[2 * j] - polygon[2 * i];
+      double uy = polygon[2 * j + 1] - polygon[2 * i + 1];
+      double vx = polygon[2 * k] - polygon[2 * j];
+      double vy = polygon[2 * k + 1] - polygon[2 * j + 1];
+      double cross = ux * vy - uy * vx;
+      int s = cross > 0 ? 1 : (cross < 0 ? -1 : 0);
+      if (s != 0) {
+        if (sign != 0 && s != sign) {
+          return null;
+        }
+        sign = s;
+      }
+      totalTurn += Math.atan2(cross, ux * vx + uy * vy);
+    }
+    if (sign == 0 || Math.abs(Math.abs(totalTurn) - GeomMath.TWO_PI) > 1e-6) {
+      return null;
+    }
+    return polygon;
+  }
+}
@@ -33,6 +33,8 @@ package aim4.util;
 import java.awt.*;
 import java.awt.geom.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -603,6 +605,124 @@ public final class GeomMath {
                 (t1start >= t2start && t1start <= t2end));
     }
 
+    /**
+     * Determine whether two convex polygons overlap by the separating axis
+     * theorem.  Polygons that merely touch along an edge or at a vertex do not
+     * overlap, which agrees with the intersection of their {@link Area}s being
+     * empty.  No objects are allocated.
+     *
+     * @param xs1 the x-coordinates of the vertices of the first polygon, in
+     *            order around the polygon
+     * @param ys1 the y-coordinates of the vertices of the first polygon
+     * @param n1  the number of vertices of the first polygon
+     * @param xs2 the x-coordinates of the vertices of the second polygon, in
+     *            order around the polygon
+     * @param ys2 the y-coordinates of the vertices of the second polygon
+     * @param n2  the number of vertices of the second polygon
+     * @return whether the interiors of the two polygons overlap
+     */
+    public static boolean convexPolygonsOverlap(double[] xs1, double[] ys1, int n1,
+                                                double[] xs2, double[] ys2, int n2) {
+        return !hasSeparatingEdgeNormal(xs1, ys1, n1, xs2, ys2, n2) &&
+               !hasSeparatingEdgeNormal(xs2, ys2, n2, xs1, ys1, n1);
+    }
+
+    /**
+     * Find the convex hull of a set of points by Andrew's monotone chain
+     * algorithm.
+     *
+     * @param points the points
+     * @return the vertices of the convex hull, in counterclockwise order
+     */
+    public static Point2D[] convexHull(Point2D[] points) {
+        Point2D[] sorted = points.clone();
+        Arrays.sort(sorted, new Comparator<Point2D>() {
+            @Override
+            public int compare(Point2D p1, Point2D p2) {
+                int c = Double.compare(p1.getX(), p2.getX());
+                return c != 0 ? c : Double.compare(p1.getY(), p2.getY());
+            }
+        });
+        if (sorted.length < 3) {
+            return sorted;
+        }
+        Point2D[] hull = new Point2D[2 * sorted.length];
+        int k = 0;
+        // the lower hull
+        for (int i = 0; i < sorted.length; i++) {
+            while (k >= 2 && turn(hull[k - 2], hull[k - 1], sorted[i]) <= 0) {
+                k--;
+            }
+            hull[k++] = sorted[i];
+        }
+        // the upper hull
+        for (int i = sorted.length - 2, lower = k + 1; i >= 0; i--) {
+            while (k >= lower && turn(hull[k - 2], hull[k - 1], sorted[i]) <= 0) {
+                k--;
+            }
+            hull[k++] = sorted[i];
+        }
+        // the first point is repeated at the end
+        return Arrays.copyOf(hull, k - 1);
+    }
+
+    /**
+     * The cross product of the vectors from one point to two others; positive
+     * if the three points make a counterclockwise turn.
+     *
+     * @param o the first point
+     * @param a the second point
+     * @param b the third point
+     * @return the cross product of the vectors from o to a and from o to b
+     */
+    private static double turn(Point2D o, Point2D a, Point2D b) {
+        return (a.getX() - o.getX()) * (b.getY() - o.getY()) -
+               (a.getY() - o.getY()) * (b.getX() - o.getX());
+    }
+
+    /**
+     * Determine whether the normal of any edge of the first polygon separates
+     * the two polygons.
+     *
+     * @param xs1 the x-coordinates of the vertices of the first polygon
+     * @param ys1 the y-coordinates of the vertices of the first polygon
+     * @param n1  the number of vertices of the first polygon
+     * @param xs2 the x-coordinates of the vertices of the second polygon
+     * @param ys2 the y-coordinates of the vertices of the second polygon
+     * @param n2  the number of vertices of the second polygon
+     * @return whether an edge normal of the first polygon separates the two
+     *         polygons
+     */
+    private static boolean hasSeparatingEdgeNormal(double[] xs1, double[] ys1, int n1,
+                                                   double[] xs2, double[] ys2, int n2) {
+        for (int i = 0; i < n1; i++) {
+            int j = (i + 1 == n1) ? 0 : i + 1;
+            double axisX = ys1[i] - ys1[j];
+            double axisY = xs1[j] - xs1[i];
+            if (axisX == 0.0 && axisY == 0.0) {
+                continue; // a degenerate edge has no normal
+            }
+            double min1 = Double.POSITIVE_INFINITY;
+            double max1 = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < n1; k++) {
+                double p = xs1[k] * axisX + ys1[k] * axisY;
+                min1 = Math.min(min1, p);
+                max1 = Math.max(max1, p);
+            }
+            double min2 = Double.POSITIVE_INFINITY;
+            double max2 = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < n2; k++) {
+                double p = xs2[k] * axisX + ys2[k] * axisY;
+                min2 = Math.min(min2, p);
+                max2 = Math.max(max2, p);
+            }
+            if (max1 <= min2 || max2 <= min1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Determine the angle between two angles.  This includes the cases where
      * the shortest angle between the two crosses the positive X axis.
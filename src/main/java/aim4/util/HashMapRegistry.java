@@ -30,7 +30,9 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.util;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * A registry based on HashMap
@@ -105,4 +107,49 @@ public class HashMapRegistry<T> implements Registry<T> {
   public void setNull(int id) {
     idToObj.remove(id);  // remove both key and object to save space
   }
+
+  // snapshots
+
+  /**
+   * Get the next ID.
+   *
+   * @return the next ID
+   */
+  public int getNextId() {
+    return nextId;
+  }
+
+  /**
+   * Get the objects in the registry, including the IDs whose objects are
+   * still null.
+   *
+   * @return an unmodifiable mapping from IDs to objects
+   */
+  public Map<Integer,T> getObjects() {
+    return Collections.unmodifiableMap(idToObj);
+  }
+
+  /**
+   * Replace the next ID and the objects of the registry; used to restore a
+   * snapshot of the registry.
+   *
+   * @param nextId   the next ID
+   * @param objects  a mapping from IDs to objects
+   * @throws IllegalArgumentException  if an ID is not between the initial ID
+   *                                   and the next ID
+   */
+  public void restore(int nextId, Map<Integer,T> objects) {
+    if (nextId < initId) {
+      throw new IllegalArgumentException("Next ID " + nextId +
+                                         " before initial ID " + initId);
+    }
+    for(int id : objects.keySet()) {
+      if (id < initId || id >= nextId) {
+        throw new IllegalArgumentException("Unknown ID " + id);
+      }
+    }
+    this.nextId = nextId;
+    idToObj.clear();
+    idToObj.putAll(objects);
+  }
 }
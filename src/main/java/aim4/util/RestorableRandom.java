@@ -0,0 +1,140 @@
+package aim4.util;
+
+import java.util.Random;
+
+/**
+ * A random number generator whose state can be read and set, so that it can
+ * be saved in a snapshot of a simulation.  It produces exactly the same
+ * sequences as {@link Random} with the same seed.
+ */
+public class RestorableRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The multiplier of the linear congruential generator of Random */
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    /** The addend of the linear congruential generator of Random */
+    private static final long ADDEND = 0xBL;
+    /** The mask of the 48 bits of the state */
+    private static final long MASK = (1L << 48) - 1;
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    // These fields have no initializers: Random(long) sets them through
+    // setSeed() before the initializers would run.
+
+    /** The 48 bits of the state */
+    private long seed;
+    /** Whether the second Gaussian of the last pair is pending */
+    private boolean haveNextNextGaussian;
+    /** The second Gaussian of the last pair */
+    private double nextNextGaussian;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a random number generator.
+     *
+     * @param seed  the seed
+     */
+    public RestorableRandom(long seed) {
+        super(seed);
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void setSeed(long seed) {
+        this.seed = (seed ^ MULTIPLIER) & MASK;
+        this.haveNextNextGaussian = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized double nextGaussian() {
+        if (haveNextNextGaussian) {
+            haveNextNextGaussian = false;
+            return nextNextGaussian;
+        }
+        double v1, v2, s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        nextNextGaussian = v2 * multiplier;
+        haveNextNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    /**
+     * Get the 48 bits of the state of this generator.
+     *
+     * @return the 48 bits of the state
+     */
+    public synchronized long getState() {
+        return seed;
+    }
+
+    /**
+     * Get the second Gaussian of the last pair.
+     *
+     * @return the second Gaussian of the last pair; meaningful only if
+     *         {@link #hasNextNextGaussian()} is <code>true</code>
+     */
+    public synchronized double getNextNextGaussian() {
+        return nextNextGaussian;
+    }
+
+    /**
+     * Whether the second Gaussian of the last pair is pending.
+     *
+     * @return whether the second Gaussian of the last pair is pending
+     */
+    public synchronized boolean hasNextNextGaussian() {
+        return haveNextNextGaussian;
+    }
+
+    /**
+     * Set the state of this generator.
+     *
+     * @param state                 the 48 bits of the state
+     * @param nextNextGaussian      the second Gaussian of the last pair
+     * @param haveNextNextGaussian  whether the second Gaussian is pending
+     */
+    public synchronized void setState(long state, double nextNextGaussian,
+                                      boolean haveNextNextGaussian) {
+        this.seed = state & MASK;
+        this.nextNextGaussian = nextNextGaussian;
+        this.haveNextNextGaussian = haveNextNextGaussian;
+    }
+
+    /////////////////////////////////
+    // PROTECTED METHODS
+    /////////////////////////////////
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected synchronized int next(int bits) {
+        seed = (seed * MULTIPLIER + ADDEND) & MASK;
+        return (int) (seed >>> (48 - bits));
+    }
+}
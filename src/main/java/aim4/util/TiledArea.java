@@ -32,6 +32,7 @@ package aim4.util;
 
 import java.awt.Shape;
 import java.awt.geom.Area;
+import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.List;
@@ -376,4 +377,93 @@ public class TiledArea {
     return occupiedTiles;
   }
 
+  /**
+   * Find the tiles that are occupied by the convex polygon with the given
+   * corner points, and write their IDs into a buffer provided by the
+   * caller.  The polygon is rasterized column by column: the part of the
+   * polygon within a column of tiles is convex, so the occupied tiles in
+   * the column are exactly the tiles whose y-range overlaps the y-extent of
+   * that part.  The tiles are written in the same order as
+   * {@link #findOccupiedTiles(Shape)}, column by column and then row by
+   * row, since callers take the time of the last tile of a trajectory as
+   * its exit time.  No object is allocated by this method.
+   *
+   * @param corners  the corner points of a convex polygon, in order
+   * @param tileIds  the buffer to which the IDs of the occupied tiles are
+   *                 written; it should be able to hold
+   *                 {@link #getNumberOfTiles()} IDs
+   * @return the number of tile IDs written into the buffer
+   */
+  public int findOccupiedTiles(Point2D[] corners, int[] tileIds) {
+    double minX = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    for(Point2D p : corners) {
+      minX = Math.min(minX, p.getX());
+      maxX = Math.max(maxX, p.getX());
+    }
+    int firstColumn =
+      Math.max(0, (int)((minX - rectangle.getMinX()) / xLength));
+    int lastColumn =
+      Math.min(xNum - 1, (int)((maxX - rectangle.getMinX()) / xLength));
+
+    int count = 0;
+    for(int c = firstColumn; c <= lastColumn; c++) {
+      // The part of the polygon within the column
+      double columnMinX = rectangle.getMinX() + c * xLength;
+      double columnMaxX =
+        columnMinX + Math.min(xLength, rectangle.getWidth() - c * xLength);
+      double x0 = Math.max(columnMinX, minX);
+      double x1 = Math.min(columnMaxX, maxX);
+      if (x0 >= x1) {
+        continue;
+      }
+      // The y-extent of the part of the polygon within the column consists
+      // of the corners in the column and the crossings of the edges with
+      // the boundaries of the column.
+      double minY = Double.POSITIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+      for(int i = 0; i < corners.length; i++) {
+        double px = corners[i].getX();
+        double py = corners[i].getY();
+        if (x0 <= px && px <= x1) {
+          minY = Math.min(minY, py);
+          maxY = Math.max(maxY, py);
+        }
+        Point2D q = corners[(i + 1) % corners.length];
+        double qx = q.getX();
+        double qy = q.getY();
+        if (px != qx) {
+          double lowX = Math.min(px, qx);
+          double highX = Math.max(px, qx);
+          if (lowX <= x0 && x0 <= highX) {
+            double y = py + (qy - py) * (x0 - px) / (qx - px);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+          }
+          if (lowX <= x1 && x1 <= highX) {
+            double y = py + (qy - py) * (x1 - px) / (qx - px);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+          }
+        }
+      }
+      if (minY >= maxY) {
+        continue;
+      }
+      int firstRow =
+        Math.max(0, (int)((minY - rectangle.getMinY()) / yLength));
+      int lastRow =
+        Math.min(yNum - 1, (int)((maxY - rectangle.getMinY()) / yLength));
+      for(int r = firstRow; r <= lastRow; r++) {
+        Tile tile = tiles[c][r];
+        if (tile != null
+            && tile.getRectangle().getMinY() < maxY
+            && tile.getRectangle().getMaxY() > minY) {
+          tileIds[count++] = tile.getId();
+        }
+      }
+    }
+    return count;
+  }
+
 }
@@ -1,12 +1,13 @@
 package aim4.util;
 
-import aim4.config.Debug;
 import aim4.map.Road;
 import aim4.map.lane.ArcSegmentLane;
+import aim4.sim.SimulationContext;
 
 import java.awt.*;
 import java.awt.geom.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -65,6 +66,17 @@ public class TiledRimArea {
 		}
 	}
 
+	/////////////////////////////////
+	// PRIVATE CONSTANTS
+	/////////////////////////////////
+
+	/**
+	 * The distance, relative to the outer radius of the ring, within which a
+	 * point is considered close to a tile boundary. Such points are resolved by
+	 * the tile's area, which approximates the arcs by cubic curves.
+	 */
+	private static final double RING_BOUNDARY_TOLERANCE = 1e-3;
+
 	/////////////////////////////////
 	// PRIVATE FIELDS
 	/////////////////////////////////
@@ -85,6 +97,36 @@ public class TiledRimArea {
 	private int numberOfTiles;
 	/** The number of inner tiles */
 	private int numberOfInnerTiles; 
+	/** The x-coordinate of the center of the ring */
+	private double ringCenterX;
+	/** The y-coordinate of the center of the ring */
+	private double ringCenterY;
+	/** The radius of the minimal circle */
+	private double ringMinimalRadius;
+	/** The radius of the central circle */
+	private double ringCentralRadius;
+	/** The radius of the maximal circle */
+	private double ringMaximalRadius;
+	/** The angle in degrees of each sector of the ring */
+	private double sectorAngle;
+	/** The number of sectors of the ring */
+	private int numberOfSectors;
+	/** The distance within which a point is close to a ring tile boundary */
+	private double ringTolerance;
+	/** The x-coordinate of the lower left corner of the approach tile grid */
+	private double approachGridMinX;
+	/** The y-coordinate of the lower left corner of the approach tile grid */
+	private double approachGridMinY;
+	/** The size of a cell of the approach tile grid */
+	private double approachGridCellSize;
+	/** The number of columns of the approach tile grid */
+	private int approachGridColumns;
+	/** The number of rows of the approach tile grid */
+	private int approachGridRows;
+	/** The indices of the approach tiles whose bounds overlap each cell */
+	private int[][] approachGridCells;
+	/** The largest number of tiles in a cell of the approach tile grid */
+	private int approachGridMaxTiles;
 	/////////////////////////////////
 	// CLASS CONSTRUCTORS
 	/////////////////////////////////
@@ -169,13 +211,118 @@ public class TiledRimArea {
 		}
 
 		// Construct approach & merging entry tiles
-		for (Road road : Debug.currentRimMap.getRoads()) {
+		for (Road road : SimulationContext.current().getRimMap().getRoads()) {
 			createEntryTiles(27.0, road);
 			createExitTiles(27.0, road);
 		}
 //		if (laneNum == 2) {
 //			formatTiles();	
 //		}
+		createRingIndex(angle, origin, minimalRadius, centralRadius, maximalRadius);
+		createApproachGrid();
+	}
+
+	/**
+	 * Record the geometry of the ring so that the ring tile containing a point
+	 * can be computed from the point's radius and angle.
+	 *
+	 * @param angle         the angle in degrees of each sector
+	 * @param origin        the center of the ring
+	 * @param minimalRadius the radius of the minimal circle
+	 * @param centralRadius the radius of the central circle
+	 * @param maximalRadius the radius of the maximal circle
+	 */
+	private void createRingIndex(double angle, Point2D origin, double minimalRadius,
+			double centralRadius, double maximalRadius) {
+		ringCenterX = origin.getX();
+		ringCenterY = origin.getY();
+		ringMinimalRadius = minimalRadius;
+		ringCentralRadius = centralRadius;
+		ringMaximalRadius = maximalRadius;
+		sectorAngle = angle;
+		numberOfSectors = numberOfInnerTiles / laneNum;
+		ringTolerance = RING_BOUNDARY_TOLERANCE * getRingOuterRadius();
+	}
+
+	/**
+	 * Bucket the entry and exit tiles into a uniform grid of cells according
+	 * to their bounding boxes.
+	 */
+	private void createApproachGrid() {
+		int first = numberOfInnerTiles;
+		if (first >= idToTiles.size()) {
+			approachGridCells = new int[0][];
+			return;
+		}
+		// Size the cells after the average tile so that each cell only
+		// overlaps a handful of tiles
+		Rectangle2D bounds = null;
+		double totalSize = 0;
+		for (int i = first; i < idToTiles.size(); i++) {
+			Rectangle2D tileBounds = idToTiles.get(i).getArea().getBounds2D();
+			if (bounds == null) {
+				bounds = (Rectangle2D) tileBounds.clone();
+			} else {
+				bounds.add(tileBounds);
+			}
+			totalSize += Math.max(tileBounds.getWidth(), tileBounds.getHeight());
+		}
+		approachGridMinX = bounds.getMinX();
+		approachGridMinY = bounds.getMinY();
+		approachGridCellSize = totalSize / (idToTiles.size() - first) / 2;
+		approachGridColumns = (int) Math.floor(bounds.getWidth() / approachGridCellSize) + 1;
+		approachGridRows = (int) Math.floor(bounds.getHeight() / approachGridCellSize) + 1;
+
+		List<List<Integer>> cells = new ArrayList<List<Integer>>(approachGridColumns * approachGridRows);
+		for (int c = 0; c < approachGridColumns * approachGridRows; c++) {
+			cells.add(new ArrayList<Integer>());
+		}
+		for (int i = first; i < idToTiles.size(); i++) {
+			Rectangle2D tileBounds = idToTiles.get(i).getArea().getBounds2D();
+			int minCol = getApproachGridColumn(tileBounds.getMinX());
+			int maxCol = getApproachGridColumn(tileBounds.getMaxX());
+			int minRow = getApproachGridRow(tileBounds.getMinY());
+			int maxRow = getApproachGridRow(tileBounds.getMaxY());
+			for (int row = minRow; row <= maxRow; row++) {
+				for (int col = minCol; col <= maxCol; col++) {
+					cells.get(row * approachGridColumns + col).add(i);
+				}
+			}
+		}
+		approachGridCells = new int[cells.size()][];
+		for (int c = 0; c < cells.size(); c++) {
+			List<Integer> cell = cells.get(c);
+			approachGridCells[c] = new int[cell.size()];
+			for (int k = 0; k < cell.size(); k++) {
+				approachGridCells[c][k] = cell.get(k);
+			}
+			approachGridMaxTiles = Math.max(approachGridMaxTiles, cell.size());
+		}
+	}
+
+	/**
+	 * Get the column of the approach tile grid containing an x-coordinate,
+	 * clamped to the grid.
+	 */
+	private int getApproachGridColumn(double x) {
+		int col = (int) Math.floor((x - approachGridMinX) / approachGridCellSize);
+		return Math.max(0, Math.min(approachGridColumns - 1, col));
+	}
+
+	/**
+	 * Get the row of the approach tile grid containing a y-coordinate,
+	 * clamped to the grid.
+	 */
+	private int getApproachGridRow(double y) {
+		int row = (int) Math.floor((y - approachGridMinY) / approachGridCellSize);
+		return Math.max(0, Math.min(approachGridRows - 1, row));
+	}
+
+	/**
+	 * Get the radius of the outer border of the ring.
+	 */
+	private double getRingOuterRadius() {
+		return laneNum == 2 ? ringMaximalRadius : ringCentralRadius;
 	}
 
 	private void formatTiles() {
@@ -494,20 +641,108 @@ public class TiledRimArea {
 
 	/**
 	 * Get the list of tiles that are occupied by the given Shape.
+	 * A tile appears once for every corner it contains, in the order of the
+	 * tile ids.
 	 *
 	 * @param points the four corners of the vehicle for which to find occupied tiles
 	 * @return the List of tiles that are occupied by the given Shape
 	 */
 	public List<Tile> findOccupiedTiles(Point2D[] points) {
-		List<Tile> occupiedTiles = new ArrayList<Tile>();
-		// Check four corners for position within tile for accurate intersection 
-		idToTiles.forEach(tile -> {
-			for (int i = 0; i < points.length; i++) {
-				if (tile.getArea().contains(points[i])) {
-					occupiedTiles.add(tile);
+		// A point lies in at most three sectors per lane and in the tiles of
+		// one cell of the approach tile grid
+		int[] indices = new int[points.length * (3 * laneNum + approachGridMaxTiles)];
+		int num = 0;
+		for (int i = 0; i < points.length; i++) {
+			num = findRingTiles(points[i], indices, num);
+			num = findApproachTiles(points[i], indices, num);
+		}
+		Arrays.sort(indices, 0, num);
+		List<Tile> occupiedTiles = new ArrayList<Tile>(num);
+		for (int i = 0; i < num; i++) {
+			occupiedTiles.add(idToTiles.get(indices[i]));
+		}
+		return occupiedTiles;
+	}
+
+	/////////////////////////////////
+	// PRIVATE METHODS
+	/////////////////////////////////
+
+	/**
+	 * Find the ring tiles containing a point. The sector and the lane are
+	 * computed from the polar coordinates of the point; only points close to a
+	 * tile boundary are tested against the areas of the neighbouring tiles.
+	 *
+	 * @param p       the point
+	 * @param indices the array to which the indices of the tiles are written
+	 * @param num     the number of indices already in the array
+	 * @return the number of indices in the array
+	 */
+	private int findRingTiles(Point2D p, int[] indices, int num) {
+		double dx = p.getX() - ringCenterX;
+		// Arc angles grow counterclockwise on screen, where y points down
+		double dy = ringCenterY - p.getY();
+		double r = Math.sqrt(dx * dx + dy * dy);
+		if (r < ringMinimalRadius - ringTolerance || r > getRingOuterRadius() + ringTolerance) {
+			return num;
+		}
+		double theta = Math.toDegrees(Math.atan2(dy, dx));
+		if (theta < 0) {
+			theta += 360.0;
+		}
+		int sector = (int) Math.floor(theta / sectorAngle);
+		if (sector >= numberOfSectors) {
+			sector = numberOfSectors - 1;
+		}
+		// The distances to the straight edges of the sector
+		boolean nearEdge =
+				Math.toRadians(theta - sector * sectorAngle) * r < ringTolerance
+				|| Math.toRadians((sector + 1) * sectorAngle - theta) * r < ringTolerance;
+
+		for (int lane = 0; lane < laneNum; lane++) {
+			double innerRadius = lane == 0 ? ringMinimalRadius : ringCentralRadius;
+			double outerRadius = lane == 0 ? ringCentralRadius : ringMaximalRadius;
+			if (r < innerRadius - ringTolerance || r > outerRadius + ringTolerance) {
+				continue;
+			}
+			if (!nearEdge && r > innerRadius + ringTolerance && r < outerRadius - ringTolerance) {
+				indices[num++] = sector * laneNum + lane;
+				continue;
+			}
+			for (int k = -1; k <= 1; k++) {
+				int index = ((sector + k + numberOfSectors) % numberOfSectors) * laneNum + lane;
+				if (idToTiles.get(index).getArea().contains(p)) {
+					indices[num++] = index;
 				}
 			}
-		});
-		return occupiedTiles;
+		}
+		return num;
+	}
+
+	/**
+	 * Find the entry and exit tiles containing a point using the approach tile
+	 * grid.
+	 *
+	 * @param p       the point
+	 * @param indices the array to which the indices of the tiles are written
+	 * @param num     the number of indices already in the array
+	 * @return the number of indices in the array
+	 */
+	private int findApproachTiles(Point2D p, int[] indices, int num) {
+		if (approachGridCells.length == 0
+				|| p.getX() < approachGridMinX
+				|| p.getY() < approachGridMinY
+				|| p.getX() > approachGridMinX + approachGridColumns * approachGridCellSize
+				|| p.getY() > approachGridMinY + approachGridRows * approachGridCellSize) {
+			return num;
+		}
+		int[] cell = approachGridCells[getApproachGridRow(p.getY()) * approachGridColumns
+				+ getApproachGridColumn(p.getX())];
+		for (int index : cell) {
+			if (idToTiles.get(index).getArea().contains(p)) {
+				indices[num++] = index;
+			}
+		}
+		return num;
 	}
 }
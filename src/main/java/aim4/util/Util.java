@@ -36,6 +36,7 @@ import java.util.Random;
 
 import aim4.config.Condor;
 import aim4.config.Constants;
+import aim4.sim.SimulationContext;
 import java.io.BufferedReader;
 import java.io.DataInputStream;
 import java.io.IOException;
@@ -53,13 +54,13 @@ public class Util {
   // PUBLIC METHODS
   /////////////////////////////////
 
-  /** The random seed for all random number generators in the simulation */
+  /**
+   * The random seed of the random number generator of the default
+   * simulation context
+   */
   public static long randSeed = (new Random()).nextLong();
   // public static final long randSeed = -6397397808339168785L;
 
-  /** The global random number generator */
-  public static final Random random = new Random(randSeed);
-
   static {
     if (Condor.IS_CONDOR_EXIST) {
       // To make sure different processes on Condor receives different random
@@ -69,8 +70,7 @@ public class Util {
       } catch(InterruptedException e){
         // ignore the interruption by another thread
       }
-      randSeed = Util.random.nextLong() + Condor.CONDOR_ID;
-      Util.random.setSeed(randSeed);
+      randSeed = new Random(randSeed).nextLong() + Condor.CONDOR_ID;
     }
 
 //    if (Debug.IS_PRINT_RANDOM_SEED) {
@@ -283,7 +283,7 @@ public class Util {
    *         to the distribution
    */
   public static int randomIndex(double[] distribution) {
-    double a = Util.random.nextDouble();
+    double a = SimulationContext.current().getRandom().nextDouble();
     for(int i=0; i<distribution.length; i++) {
       a -= distribution[i];
       if (a<0.0) {
@@ -301,7 +301,7 @@ public class Util {
    *         to the distribution
    */
   public static int randomIndex(List<Double> distribution) {
-    double a = Util.random.nextDouble();
+    double a = SimulationContext.current().getRandom().nextDouble();
     for(int i=0; i<distribution.size(); i++) {
       a -= distribution.get(i);
       if (a<0.0) {
@@ -1,7 +1,6 @@
 package aim4.util.rimTestApplets;
 
 import aim4.config.Constants;
-import aim4.config.Debug;
 import aim4.config.SimConfig;
 import aim4.driver.Driver;
 import aim4.driver.rim.CrashTestDummy;
@@ -13,6 +12,7 @@ import aim4.map.lane.ArcSegmentLane;
 import aim4.map.lane.Lane;
 import aim4.map.rim.RimIntersectionMap;
 import aim4.msg.rim.v2i.Request;
+import aim4.sim.SimulationContext;
 import aim4.util.TiledRimArea;
 import aim4.vehicle.VehicleSpec;
 import aim4.vehicle.VehicleSpecDatabase;
@@ -241,19 +241,19 @@ public class ReservationGridManagerTestApplet extends Applet implements Runnable
     }
 
     private Road getNorthRoad(){
-        return Debug.currentRimMap.getRoads().get(2);
+        return SimulationContext.current().getRimMap().getRoads().get(2);
     }
 
     private Road getEastRoad(){
-        return Debug.currentRimMap.getRoads().get(0);
+        return SimulationContext.current().getRimMap().getRoads().get(0);
     }
 
     private Road getSouthRoad(){
-        return Debug.currentRimMap.getRoads().get(3);
+        return SimulationContext.current().getRimMap().getRoads().get(3);
     }
 
     private Road getWestRoad(){
-        return Debug.currentRimMap.getRoads().get(1);
+        return SimulationContext.current().getRimMap().getRoads().get(1);
     }
 
     private AIMBasicAutoVehicle createTestVehicle(
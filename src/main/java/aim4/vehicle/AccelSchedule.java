@@ -30,10 +30,13 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.vehicle;
 
+import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.util.LinkedList;
 import java.util.List;
 
 import aim4.config.Constants;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.Util;
 
 /**
@@ -359,6 +362,51 @@ public class AccelSchedule {
   }
 
 
+  // snapshots
+
+  /**
+   * Save this acceleration schedule.
+   *
+   * @return the state of this acceleration schedule
+   */
+  public StateRecord toState() {
+    double[] times = new double[timeAccelList.size()];
+    double[] accels = new double[times.length];
+    int i = 0;
+    for(TimeAccel ta : timeAccelList) {
+      times[i] = ta.getTime();
+      accels[i] = ta.getAcceleration();
+      i++;
+    }
+    StateRecord state = new StateRecord(AccelSchedule.class.getName(), 1);
+    state.putDoubles("times", times);
+    state.putDoubles("accelerations", accels);
+    return state;
+  }
+
+  /**
+   * Restore an acceleration schedule.
+   *
+   * @param state  the state saved by {@link #toState()}
+   * @return the acceleration schedule
+   * @throws IOException  if the state is not the state of an acceleration
+   *                      schedule
+   */
+  public static AccelSchedule fromState(StateRecord state) throws IOException {
+    state.check(AccelSchedule.class.getName(), 1);
+    double[] times = state.getDoubles("times");
+    double[] accels = state.getDoubles("accelerations");
+    state.checkAllRead();
+    if (accels.length != times.length) {
+      throw new StreamCorruptedException("Mismatched times and accelerations");
+    }
+    AccelSchedule as = new AccelSchedule();
+    for(int i = 0; i < times.length; i++) {
+      as.add(times[i], accels[i]);
+    }
+    return as;
+  }
+
   /////////////////////////////////
   // DEBUG
   /////////////////////////////////
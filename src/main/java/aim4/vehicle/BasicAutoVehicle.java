@@ -3,10 +3,15 @@ package aim4.vehicle;
 import aim4.driver.AutoDriver;
 import aim4.driver.BasicDriver;
 import aim4.driver.Driver;
+import aim4.map.BasicMap;
 import aim4.map.lane.Lane;
 import aim4.noise.DoubleGauge;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
 
 import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
 
 /**
  * Created by Callum on 17/11/2016.
@@ -293,5 +298,55 @@ public abstract class BasicAutoVehicle extends BasicVehicle implements AutoVehic
         return intervalometer;
     }
 
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StateRecord saveState() throws NotSerializableException {
+        StateRecord state = new StateRecord(BasicAutoVehicle.class.getName(), 1);
+        state.putRecord("vehicle", super.saveState());
+        state.putDouble("intervalometer", intervalometer.read());
+        state.putString("lrfMode", lrfMode.name());
+        state.putBoolean("lrfSensing", lrfSensing);
+        state.putDouble("lrfAngle", lrfAngle.read());
+        state.putDouble("lrfDistance", lrfDistance.read());
+        state.putBoolean("vehicleTracking", vehicleTracking);
+        state.putInt("vehicleTrackingTargetLane", References.idOf(vehicleTrackingTargetLane));
+        state.putDouble("frontVehicleDistanceSensor", frontVehicleDistanceSensor.read());
+        state.putDouble("rearVehicleDistanceSensor", rearVehicleDistanceSensor.read());
+        state.putDouble("frontVehicleSpeedSensor", frontVehicleSpeedSensor.read());
+        state.putDouble("rearVehicleSpeedSensor", rearVehicleSpeedSensor.read());
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state, BasicMap map) throws IOException {
+        state.check(BasicAutoVehicle.class.getName(), 1);
+        super.restoreState(state.getRecord("vehicle"), map);
+        intervalometer.restore(state.getDouble("intervalometer"));
+        lrfMode = References.valueOf(AutoVehicleDriverModel.LRFMode.class,
+                                     state.getString("lrfMode"));
+        lrfSensing = state.getBoolean("lrfSensing");
+        lrfAngle.restore(state.getDouble("lrfAngle"));
+        lrfDistance.restore(state.getDouble("lrfDistance"));
+        vehicleTracking = state.getBoolean("vehicleTracking");
+        vehicleTrackingTargetLane = References.get(
+                map.getLaneRegistry(), state.getInt("vehicleTrackingTargetLane"), "lane");
+        frontVehicleDistanceSensor.restore(state.getDouble("frontVehicleDistanceSensor"));
+        rearVehicleDistanceSensor.restore(state.getDouble("rearVehicleDistanceSensor"));
+        frontVehicleSpeedSensor.restore(state.getDouble("frontVehicleSpeedSensor"));
+        rearVehicleSpeedSensor.restore(state.getDouble("rearVehicleSpeedSensor"));
+        state.checkAllRead();
+    }
+
 
 }
@@ -33,6 +33,9 @@ package aim4.vehicle;
 import java.awt.Shape;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.util.Iterator;
 import java.util.List;
 
@@ -40,8 +43,10 @@ import aim4.config.Constants;
 import aim4.config.Debug;
 import aim4.driver.BasicDriver;
 import aim4.driver.Driver;
+import aim4.map.BasicMap;
 import aim4.map.track.TrackPosition;
 import aim4.noise.DoubleGauge;
+import aim4.sim.snapshot.StateRecord;
 import aim4.util.GeomMath;
 import aim4.util.GeomUtil;
 import aim4.util.Util;
@@ -700,6 +705,15 @@ public abstract class BasicVehicle implements VehicleSimModel {
     // PUBLIC METHODS
     /////////////////////////////////
 
+    /**
+     * Get the target velocity.
+     *
+     * @return the target velocity
+     */
+    public double getTargetVelocity() {
+      return targetVelocity;
+    }
+
     // control
 
     /**
@@ -1653,10 +1667,118 @@ public abstract class BasicVehicle implements VehicleSimModel {
   }
 
 
+  // snapshots
+
+  /**
+   * Save the state of this vehicle.  The VIN and the specification of the
+   * vehicle are not part of its state, since they are needed to create the
+   * vehicle before it is restored.
+   *
+   * @return the state of this vehicle
+   * @throws NotSerializableException  if the movement of the vehicle does not
+   *                                   support snapshots
+   */
+  public StateRecord saveState() throws NotSerializableException {
+    StateRecord state = new StateRecord(BasicVehicle.class.getName(), 1);
+    state.putDouble("currentTime", currentTime);
+    state.putRecord("movement", saveMovement(movement));
+    return state;
+  }
+
+  /**
+   * Restore the state of this vehicle.
+   *
+   * @param state  the state saved by {@link #saveState()}
+   * @param map    the map in which the vehicle is
+   * @throws IOException  if the state is not the state of this vehicle
+   */
+  public void restoreState(StateRecord state, BasicMap map) throws IOException {
+    state.check(BasicVehicle.class.getName(), 1);
+    currentTime = state.getDouble("currentTime");
+    movement = restoreMovement(state.getRecord("movement"));
+    state.checkAllRead();
+    updateGaugesAndMemos();
+  }
+
+
   /////////////////////////////////
   // PRIVATE METHODS
   /////////////////////////////////
 
+  /**
+   * Save a movement.  Only the movements that vehicles use in simulations
+   * are supported.
+   *
+   * @param movement  the movement
+   * @return the state of the movement
+   * @throws NotSerializableException  if the movement is not supported
+   */
+  private static StateRecord saveMovement(Movement movement)
+      throws NotSerializableException {
+    if (movement.getClass() == AccelScheduleMovement.class) {
+      AccelScheduleMovement m = (AccelScheduleMovement) movement;
+      StateRecord state =
+        new StateRecord(AccelScheduleMovement.class.getName(), 1);
+      state.putRecord("baseMovement", saveMovement(m.getBaseMovement()));
+      state.putRecord("accelSchedule", m.getAccelSchedule() == null ?
+                                       null : m.getAccelSchedule().toState());
+      return state;
+    } else if (movement.getClass() == MoveToTargetVelocityMovement.class
+               && ((MoveToTargetVelocityMovement) movement)
+                    .getNonAccelMovement().getClass() == SteeringMovement.class) {
+      MoveToTargetVelocityMovement m = (MoveToTargetVelocityMovement) movement;
+      SteeringMovement m2 = (SteeringMovement) m.getNonAccelMovement();
+      StateRecord state =
+        new StateRecord(MoveToTargetVelocityMovement.class.getName(), 1);
+      state.putDouble("x", m2.getPosition().getX());
+      state.putDouble("y", m2.getPosition().getY());
+      state.putDouble("heading", m2.getHeading());
+      state.putDouble("velocity", m2.getVelocity());
+      state.putDouble("steeringAngle", m2.getSteeringAngle());
+      state.putDouble("acceleration", m.getAcceleration());
+      state.putDouble("targetVelocity", m.getTargetVelocity());
+      return state;
+    } else {
+      throw new NotSerializableException(movement.getClass().getName());
+    }
+  }
+
+  /**
+   * Restore a movement of this vehicle.
+   *
+   * @param state  the state saved by {@link #saveMovement(Movement)}
+   * @return the movement
+   * @throws IOException  if the state is not the state of a supported
+   *                      movement
+   */
+  private Movement restoreMovement(StateRecord state) throws IOException {
+    if (state.getType().equals(AccelScheduleMovement.class.getName())) {
+      state.check(AccelScheduleMovement.class.getName(), 1);
+      Movement base = restoreMovement(state.getRecord("baseMovement"));
+      if (!(base instanceof MoveToTargetVelocityMovement)) {
+        throw new StreamCorruptedException(
+          "Unsupported base movement " + base.getClass().getName());
+      }
+      StateRecord accelSchedule = state.getRecordOrNull("accelSchedule");
+      state.checkAllRead();
+      return new AccelScheduleMovement(
+        (MovementWithAccel) base,
+        accelSchedule == null ? null : AccelSchedule.fromState(accelSchedule));
+    } else {
+      state.check(MoveToTargetVelocityMovement.class.getName(), 1);
+      Movement m = new MoveToTargetVelocityMovement(
+        spec,
+        new Point2D.Double(state.getDouble("x"), state.getDouble("y")),
+        state.getDouble("heading"),
+        state.getDouble("velocity"),
+        state.getDouble("steeringAngle"),
+        state.getDouble("acceleration"),
+        state.getDouble("targetVelocity"));
+      state.checkAllRead();
+      return m;
+    }
+  }
+
   /**
    * Switch to acceleration schedule movement
    *
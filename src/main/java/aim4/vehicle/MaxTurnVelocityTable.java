@@ -0,0 +1,568 @@
+package aim4.vehicle;
+
+import aim4.config.Constants.TurnDirection;
+import aim4.config.SimConfig;
+import aim4.im.aim.IntersectionManager;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.BasicRIMIntersectionMap;
+import aim4.map.lane.Lane;
+import aim4.sim.SimulationContext;
+
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ * The maximum turn velocities of every vehicle specification for every turn
+ * through the intersections of a map.  The velocities are kept in a flat
+ * array indexed by the intersection, the vehicle specification, the arrival
+ * lane and the departure lane.  A velocity is computed by the turn
+ * simulations of {@link VehicleUtil} the first time it is needed, so only
+ * the turns and the vehicle specifications that are actually used cost
+ * anything.
+ * <p>
+ * The velocities only depend on the geometry of the map and on the vehicle
+ * specifications, so the tables of the maps with the same hash of these
+ * share their velocities in memory: the simulations of a map after the
+ * first one, in the same process, find the velocities already computed.
+ * <p>
+ * If the {@link aim4.sim.SimulationContext} of the simulator has a
+ * directory of turn tables, the table is saved there under the same hash,
+ * and later simulations of the same map load it instead of computing it
+ * again.  Since only a whole table can be saved, a table that is not saved
+ * yet is then computed in full, in parallel, when the simulator of the map
+ * is created.
+ */
+public final class MaxTurnVelocityTable {
+
+    /////////////////////////////////
+    // CONSTANTS
+    /////////////////////////////////
+
+    /** The first four bytes of a saved table: "AMTV" */
+    private static final int MAGIC = 0x414d5456;
+
+    /** The version of the format, and of the computation of the velocities */
+    private static final int VERSION = 1;
+
+    /////////////////////////////////
+    // PRIVATE STATIC FIELDS
+    /////////////////////////////////
+
+    /** The velocities shared by the tables, by the hash of their map */
+    private static final Map<Long, AtomicReferenceArray<Double>> sharedVelocities =
+            new ConcurrentHashMap<Long, AtomicReferenceArray<Double>>();
+
+    /////////////////////////////////
+    // NESTED CLASSES
+    /////////////////////////////////
+
+    /**
+     * Calculates the maximum turn velocity of a turn through an
+     * intersection.
+     */
+    private interface TurnVelocityFunction {
+        double calculate(VehicleSpec spec, Lane arrivalLane,
+                         Lane departureLane, int intersection);
+    }
+
+    /////////////////////////////////
+    // PRIVATE FIELDS
+    /////////////////////////////////
+
+    /** The vehicle specifications, indexed by their IDs */
+    private final VehicleSpec[] specs;
+    /** The ID of each vehicle specification */
+    private final Map<VehicleSpec, Integer> specIds;
+    /** The index of each intersection manager, by its ID; -1 if none */
+    private final int[] imIndices;
+    /** The index of each lane among the entry lanes of each intersection */
+    private final int[][] arrivalIndices;
+    /** The index of each lane among the exit lanes of each intersection */
+    private final int[][] departureIndices;
+    /** The maximum number of entry lanes of an intersection */
+    private final int numOfArrivals;
+    /** The maximum number of exit lanes of an intersection */
+    private final int numOfDepartures;
+    /** The entry lanes of each intersection */
+    private final List<List<Lane>> entryLanes;
+    /** The exit lanes of each intersection */
+    private final List<List<Lane>> exitLanes;
+    /** The function calculating the velocities */
+    private final TurnVelocityFunction function;
+    /**
+     * The velocities, which may be shared with the tables of other maps
+     * with the same geometry; null for the velocities not computed yet, and
+     * NaN for the pairs of lanes that are not turns
+     */
+    private final AtomicReferenceArray<Double> velocities;
+
+    /////////////////////////////////
+    // CLASS CONSTRUCTORS
+    /////////////////////////////////
+
+    /**
+     * Create a table whose velocities are computed when they are needed.
+     *
+     * @param specs       the vehicle specifications
+     * @param imIds       the IDs of the intersection managers
+     * @param entryLanes  the entry lanes of each intersection
+     * @param exitLanes   the exit lanes of each intersection
+     * @param function    the function calculating the velocities
+     * @param hash        the hash of the map, by which the velocities are
+     *                    shared
+     */
+    private MaxTurnVelocityTable(VehicleSpec[] specs, int[] imIds,
+                                 List<List<Lane>> entryLanes,
+                                 List<List<Lane>> exitLanes,
+                                 TurnVelocityFunction function, long hash) {
+        this.specs = specs;
+        this.specIds = new IdentityHashMap<VehicleSpec, Integer>();
+        for (int i = 0; i < specs.length; i++) {
+            specIds.put(specs[i], i);
+        }
+        this.entryLanes = entryLanes;
+        this.exitLanes = exitLanes;
+        this.function = function;
+        int maxImId = -1;
+        int maxLaneId = -1;
+        int maxEntries = 0;
+        int maxExits = 0;
+        for (int i = 0; i < imIds.length; i++) {
+            maxImId = Math.max(maxImId, imIds[i]);
+            maxEntries = Math.max(maxEntries, entryLanes.get(i).size());
+            maxExits = Math.max(maxExits, exitLanes.get(i).size());
+            for (Lane lane : entryLanes.get(i)) {
+                maxLaneId = Math.max(maxLaneId, lane.getId());
+            }
+            for (Lane lane : exitLanes.get(i)) {
+                maxLaneId = Math.max(maxLaneId, lane.getId());
+            }
+        }
+        imIndices = new int[maxImId + 1];
+        Arrays.fill(imIndices, -1);
+        arrivalIndices = new int[imIds.length][];
+        departureIndices = new int[imIds.length][];
+        for (int i = 0; i < imIds.length; i++) {
+            imIndices[imIds[i]] = i;
+            arrivalIndices[i] = indexLanes(entryLanes.get(i), maxLaneId);
+            departureIndices[i] = indexLanes(exitLanes.get(i), maxLaneId);
+        }
+        numOfArrivals = maxEntries;
+        numOfDepartures = maxExits;
+        int size = imIds.length * specs.length * maxEntries * maxExits;
+        velocities = sharedVelocities.computeIfAbsent(hash,
+                h -> new AtomicReferenceArray<Double>(size));
+    }
+
+    /////////////////////////////////
+    // PUBLIC STATIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Compute the table of an AIM map, or load it from a directory, and
+     * give it to the intersection managers of the map.  Nothing is done if
+     * they already have a table.
+     *
+     * @param map  the map
+     * @param dir  the directory in which the tables are saved, and from
+     *             which they are loaded; null if tables are not saved
+     */
+    public static void install(BasicAIMIntersectionMap map, File dir) {
+        final List<IntersectionManager> ims = map.getIntersectionManagers();
+        if (ims.isEmpty() || ims.get(0).getMaxTurnVelocityTable() != null) {
+            return;
+        }
+        int[] imIds = new int[ims.size()];
+        List<List<Lane>> entryLanes = new ArrayList<List<Lane>>();
+        List<List<Lane>> exitLanes = new ArrayList<List<Lane>>();
+        List<Rectangle2D> bounds = new ArrayList<Rectangle2D>();
+        for (int i = 0; i < ims.size(); i++) {
+            imIds[i] = ims.get(i).getId();
+            entryLanes.add(ims.get(i).getIntersection().getEntryLanes());
+            exitLanes.add(ims.get(i).getIntersection().getExitLanes());
+            bounds.add(ims.get(i).getIntersection().getArea().getBounds2D());
+        }
+        MaxTurnVelocityTable table = obtain("aim", dir, imIds, entryLanes, exitLanes,
+            bounds, new TurnVelocityFunction() {
+                @Override
+                public double calculate(VehicleSpec spec, Lane arrivalLane,
+                                        Lane departureLane, int intersection) {
+                    IntersectionManager im = ims.get(intersection);
+                    if (im.getIntersection().calcTurnDirection(arrivalLane,
+                            departureLane) == TurnDirection.U_TURN) {
+                        return Double.NaN;
+                    }
+                    return VehicleUtil.calculateMaxTurnVelocity(spec,
+                            arrivalLane, departureLane, im);
+                }
+            });
+        for (IntersectionManager im : ims) {
+            im.setMaxTurnVelocityTable(table);
+        }
+    }
+
+    /**
+     * Compute the table of a RIM map, or load it from a directory, and
+     * give it to the intersection managers of the map.  Nothing is done if
+     * they already have a table.
+     *
+     * @param map  the map
+     * @param dir  the directory in which the tables are saved, and from
+     *             which they are loaded; null if tables are not saved
+     */
+    public static void install(BasicRIMIntersectionMap map, File dir) {
+        final List<aim4.im.rim.IntersectionManager> ims =
+                map.getIntersectionManagers();
+        if (ims.isEmpty() || ims.get(0).getMaxTurnVelocityTable() != null) {
+            return;
+        }
+        int[] imIds = new int[ims.size()];
+        List<List<Lane>> entryLanes = new ArrayList<List<Lane>>();
+        List<List<Lane>> exitLanes = new ArrayList<List<Lane>>();
+        List<Rectangle2D> bounds = new ArrayList<Rectangle2D>();
+        for (int i = 0; i < ims.size(); i++) {
+            imIds[i] = ims.get(i).getId();
+            entryLanes.add(ims.get(i).getIntersection().getEntryLanes());
+            exitLanes.add(ims.get(i).getIntersection().getExitLanes());
+            bounds.add(ims.get(i).getIntersection().getArea().getBounds2D());
+        }
+        MaxTurnVelocityTable table = obtain("rim", dir, imIds, entryLanes, exitLanes,
+            bounds, new TurnVelocityFunction() {
+                @Override
+                public double calculate(VehicleSpec spec, Lane arrivalLane,
+                                        Lane departureLane, int intersection) {
+                    return VehicleUtil.calculateMaxTurnVelocity(spec,
+                            arrivalLane, departureLane, ims.get(intersection));
+                }
+            });
+        for (aim4.im.rim.IntersectionManager im : ims) {
+            im.setMaxTurnVelocityTable(table);
+        }
+    }
+
+    /////////////////////////////////
+    // PUBLIC METHODS
+    /////////////////////////////////
+
+    /**
+     * Get the maximum turn velocity of a turn, as calculated by
+     * {@link VehicleUtil}.  The velocity is calculated the first time it is
+     * needed, with the simulation context of the current thread.
+     *
+     * @param spec           the vehicle specification
+     * @param arrivalLane    the lane from which the vehicle is turning
+     * @param departureLane  the lane into which the vehicle is turning
+     * @param imId           the ID of the intersection manager
+     * @return the maximum turn velocity; NaN if the turn or the vehicle
+     *         specification is not in the table
+     */
+    public double get(VehicleSpec spec, Lane arrivalLane, Lane departureLane,
+                      int imId) {
+        int index = indexOf(spec, arrivalLane, departureLane, imId);
+        if (index < 0) {
+            return Double.NaN;
+        }
+        Double velocity = velocities.get(index);
+        if (velocity == null) {
+            // computing a velocity twice at the same time is harmless, since
+            // both get the same value
+            velocity = calculate(index);
+            velocities.set(index, velocity);
+        }
+        return velocity;
+    }
+
+    /**
+     * Get whether the velocity of a turn has been computed.
+     *
+     * @return whether the velocity of the turn has been computed; false if
+     *         the turn or the vehicle specification is not in the table
+     */
+    boolean isComputed(VehicleSpec spec, Lane arrivalLane, Lane departureLane,
+                       int imId) {
+        int index = indexOf(spec, arrivalLane, departureLane, imId);
+        return index >= 0 && velocities.get(index) != null;
+    }
+
+    /////////////////////////////////
+    // PRIVATE METHODS
+    /////////////////////////////////
+
+    /**
+     * Create the table of a map, sharing the velocities computed for the
+     * maps with the same geometry, and load it from the directory or
+     * compute it in full and save it there.
+     */
+    private static MaxTurnVelocityTable obtain(String kind, File dir, int[] imIds,
+                                               List<List<Lane>> entryLanes,
+                                               List<List<Lane>> exitLanes,
+                                               List<Rectangle2D> bounds,
+                                               TurnVelocityFunction function) {
+        VehicleSpec[] specs = new VehicleSpec[VehicleSpecDatabase.getNumOfSpec()];
+        for (int i = 0; i < specs.length; i++) {
+            specs[i] = VehicleSpecDatabase.getVehicleSpecById(i);
+        }
+        long hash = hash(kind, specs, imIds, entryLanes, exitLanes, bounds);
+        MaxTurnVelocityTable table = new MaxTurnVelocityTable(
+                specs, imIds, entryLanes, exitLanes, function, hash);
+        if (dir == null) {
+            return table;
+        }
+        File file = new File(dir, String.format("mtv-%016x.bin", hash));
+        try {
+            if (file.exists() && table.load(file, hash)) {
+                return table;
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot load the max turn velocities " + file
+                    + ": " + e);
+        }
+        table.computeAll();
+        try {
+            table.save(file, hash);
+        } catch (IOException e) {
+            System.err.println("Cannot save the max turn velocities " + file
+                    + ": " + e);
+        }
+        return table;
+    }
+
+    /**
+     * Compute the velocities of every turn that are not computed yet, in
+     * parallel.  The simulation context of the current thread, which holds
+     * the map, is bound to the threads of the computation.
+     */
+    private void computeAll() {
+        final SimulationContext context = SimulationContext.current();
+        IntStream.range(0, velocities.length()).parallel().forEach(index -> {
+            if (velocities.get(index) == null && isTurn(index)) {
+                context.run(() -> velocities.set(index, calculate(index)));
+            }
+        });
+    }
+
+    /**
+     * Calculate the velocity at an index of the flat array.
+     */
+    private double calculate(int index) {
+        int departure = index % numOfDepartures;
+        int arrival = index / numOfDepartures % numOfArrivals;
+        int specId = index / numOfDepartures / numOfArrivals % specs.length;
+        int i = index / numOfDepartures / numOfArrivals / specs.length;
+        return function.calculate(specs[specId], entryLanes.get(i).get(arrival),
+                exitLanes.get(i).get(departure), i);
+    }
+
+    /**
+     * Whether an index of the flat array is the index of a pair of lanes,
+     * rather than padding for the intersections with fewer lanes.
+     */
+    private boolean isTurn(int index) {
+        int departure = index % numOfDepartures;
+        int arrival = index / numOfDepartures % numOfArrivals;
+        int i = index / numOfDepartures / numOfArrivals / specs.length;
+        return arrival < entryLanes.get(i).size()
+                && departure < exitLanes.get(i).size();
+    }
+
+    /**
+     * Get the index of the velocity of a turn in the flat array.
+     *
+     * @return the index; -1 if the turn or the vehicle specification is not
+     *         in the table
+     */
+    private int indexOf(VehicleSpec spec, Lane arrivalLane, Lane departureLane,
+                        int imId) {
+        Integer specId = specIds.get(spec);
+        if (specId == null || imId < 0 || imId >= imIndices.length
+                || imIndices[imId] < 0) {
+            return -1;
+        }
+        int i = imIndices[imId];
+        int arrival = laneIndex(arrivalIndices[i], arrivalLane);
+        int departure = laneIndex(departureIndices[i], departureLane);
+        if (arrival < 0 || departure < 0) {
+            return -1;
+        }
+        return index(i, specId, arrival, departure);
+    }
+
+    /**
+     * Load the velocities from a file.
+     *
+     * @return whether the file holds the velocities of this table
+     */
+    private boolean load(File file, long hash) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != hash
+                    || in.readInt() != velocities.length()) {
+                return false;
+            }
+            for (int i = 0; i < velocities.length(); i++) {
+                velocities.set(i, in.readDouble());
+            }
+            return true;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Save the velocities to a file.  The file is written under another
+     * name first, so that simulations running at the same time never read
+     * a partial table.
+     */
+    private void save(File file, long hash) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create the directory " + dir);
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(hash);
+            out.writeInt(velocities.length());
+            for (int i = 0; i < velocities.length(); i++) {
+                Double velocity = velocities.get(i);
+                out.writeDouble(velocity == null ? Double.NaN : velocity);
+            }
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            if (!file.exists()) {
+                throw new IOException("Cannot rename " + tmp + " to " + file);
+            }
+        }
+    }
+
+    /**
+     * Hash the geometry of the intersections and their lanes, and the
+     * vehicle specifications, on which the velocities depend.
+     */
+    private static long hash(String kind, VehicleSpec[] specs, int[] imIds,
+                             List<List<Lane>> entryLanes,
+                             List<List<Lane>> exitLanes,
+                             List<Rectangle2D> bounds) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(kind);
+            out.writeInt(VERSION);
+            out.writeDouble(SimConfig.TIME_STEP);
+            for (VehicleSpec spec : specs) {
+                out.writeUTF(spec.getName());
+                out.writeDouble(spec.getMaxAcceleration());
+                out.writeDouble(spec.getMaxDeceleration());
+                out.writeDouble(spec.getMaxVelocity());
+                out.writeDouble(spec.getMinVelocity());
+                out.writeDouble(spec.getLength());
+                out.writeDouble(spec.getWidth());
+                out.writeDouble(spec.getFrontAxleDisplacement());
+                out.writeDouble(spec.getRearAxleDisplacement());
+                out.writeDouble(spec.getWheelSpan());
+                out.writeDouble(spec.getWheelRadius());
+                out.writeDouble(spec.getWheelWidth());
+                out.writeDouble(spec.getMaxSteeringAngle());
+                out.writeDouble(spec.getMaxTurnPerSecond());
+            }
+            for (int i = 0; i < imIds.length; i++) {
+                out.writeInt(imIds[i]);
+                Rectangle2D r = bounds.get(i);
+                out.writeDouble(r.getX());
+                out.writeDouble(r.getY());
+                out.writeDouble(r.getWidth());
+                out.writeDouble(r.getHeight());
+                hashLanes(out, entryLanes.get(i));
+                hashLanes(out, exitLanes.get(i));
+            }
+            out.close();
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes.toByteArray());
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Write the geometry of lanes for hashing.
+     */
+    private static void hashLanes(DataOutputStream out, List<Lane> lanes)
+            throws IOException {
+        out.writeInt(lanes.size());
+        for (Lane lane : lanes) {
+            out.writeInt(lane.getId());
+            out.writeDouble(lane.getStartPoint().getX());
+            out.writeDouble(lane.getStartPoint().getY());
+            out.writeDouble(lane.getEndPoint().getX());
+            out.writeDouble(lane.getEndPoint().getY());
+            out.writeDouble(lane.getLength());
+            out.writeDouble(lane.getWidth());
+            out.writeDouble(lane.getSpeedLimit());
+        }
+    }
+
+    /**
+     * Index lanes by their IDs.
+     *
+     * @return the index of each lane ID among the lanes; -1 for the other
+     *         IDs
+     */
+    private static int[] indexLanes(List<Lane> lanes, int maxLaneId) {
+        int[] indices = new int[maxLaneId + 1];
+        Arrays.fill(indices, -1);
+        for (int i = 0; i < lanes.size(); i++) {
+            indices[lanes.get(i).getId()] = i;
+        }
+        return indices;
+    }
+
+    /**
+     * Get the index of a lane.
+     *
+     * @return the index of the lane; -1 if it is not indexed
+     */
+    private static int laneIndex(int[] indices, Lane lane) {
+        int id = lane.getId();
+        return id >= 0 && id < indices.length ? indices[id] : -1;
+    }
+
+    /**
+     * Get the index of a velocity in the flat array.
+     */
+    private int index(int intersection, int specId, int arrival, int departure) {
+        return ((intersection * specs.length + specId) * numOfArrivals + arrival)
+                * numOfDepartures + departure;
+    }
+}
@@ -35,39 +35,86 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import aim4.sim.SimulationContext;
+
 /**
- * The vehicle specification database.
+ * The vehicle specification database.  The specifications are looked up in
+ * the database of the current {@link SimulationContext}.  Every database
+ * starts with the predefined specifications, but a specification registered
+ * in one simulation context is not seen by the others.
  */
 public class VehicleSpecDatabase {
 
   /////////////////////////////////
-  // PRIVATE FIELDS
+  // NESTED CLASSES
   /////////////////////////////////
 
   /**
-   * A list of VehicleSpecs
+   * The vehicle specifications of a simulation.
    */
-  private static List<VehicleSpec> vehicleSpecs =
-    new ArrayList<VehicleSpec>();
+  public static final class Database {
+
+    /**
+     * A list of VehicleSpecs
+     */
+    private final List<VehicleSpec> vehicleSpecs;
+
+    /**
+     * A map from VehicleSpecs' name to VehicleSpecs' id.
+     */
+    private final Map<String, Integer> nameToId;
+
+    /**
+     * Create an empty database.
+     */
+    private Database() {
+      vehicleSpecs = new ArrayList<VehicleSpec>();
+      nameToId = new HashMap<String,Integer>();
+    }
+
+    /**
+     * Create a database with the same specifications as another database.
+     * The specifications themselves are shared.
+     *
+     * @param database  the other database
+     */
+    public Database(Database database) {
+      vehicleSpecs = new ArrayList<VehicleSpec>(database.vehicleSpecs);
+      nameToId = new HashMap<String,Integer>(database.nameToId);
+    }
+  }
+
+  /////////////////////////////////
+  // PRIVATE FIELDS
+  /////////////////////////////////
 
   /**
-   * A map from VehicleSpecs' name to VehicleSpecs' id.
+   * The predefined vehicle specifications.
    */
-  private static Map<String, Integer> nameToId =
-    new HashMap<String,Integer>();
+  private static final Database predefined = new Database();
 
 
   /////////////////////////////////
   // PUBLIC METHODS
   /////////////////////////////////
 
+  /**
+   * Get the database of the predefined vehicle specifications, from which
+   * the databases of the simulation contexts are created.
+   *
+   * @return the database of the predefined vehicle specifications
+   */
+  public static Database getPredefinedDatabase() {
+    return predefined;
+  }
+
   /**
    * Get the total number of vehicle specifications in the database
    *
    * @return the total number of vehicle specifications.
    */
   public static int getNumOfSpec() {
-    return vehicleSpecs.size();
+    return database().vehicleSpecs.size();
   }
 
   /**
@@ -78,10 +125,7 @@ public class VehicleSpecDatabase {
    * @param spec  the vehicle specification
    */
   public static void registerSpec(VehicleSpec spec) {
-    assert !nameToId.containsKey(spec.getName());
-    int id = vehicleSpecs.size();
-    nameToId.put(spec.getName(), id);
-    vehicleSpecs.add(spec);
+    registerSpec(database(), spec);
   }
 
   /**
@@ -92,9 +136,10 @@ public class VehicleSpecDatabase {
    *         as the new one; false if otherwise.
    */
   public static boolean replaceSpec(VehicleSpec spec) {
-    if (nameToId.containsKey(spec.getName())) {
-      int id = nameToId.get(spec.getName());
-      VehicleSpec oldSpec = vehicleSpecs.get(id);
+    Database db = database();
+    if (db.nameToId.containsKey(spec.getName())) {
+      int id = db.nameToId.get(spec.getName());
+      VehicleSpec oldSpec = db.vehicleSpecs.get(id);
       oldSpec.assign(spec);
       return true;
     } else {
@@ -112,7 +157,7 @@ public class VehicleSpecDatabase {
    *              specification has not been registered.
    */
   public static int getIdOfVehicleSpec(VehicleSpec spec) {
-    Integer id = nameToId.get(spec.getName());
+    Integer id = database().nameToId.get(spec.getName());
     return (id!=null)?id:(-1);
   }
 
@@ -125,7 +170,7 @@ public class VehicleSpecDatabase {
    *              specification has not been registered.
    */
   public static int getIdByName(String name) {
-    Integer id = nameToId.get(name);
+    Integer id = database().nameToId.get(name);
     return (id!=null)?id:(-1);
   }
 
@@ -138,7 +183,7 @@ public class VehicleSpecDatabase {
    *            id does not exist.
    */
   public static VehicleSpec getVehicleSpecById(int id) {
-    return vehicleSpecs.get(id);
+    return database().vehicleSpecs.get(id);
   }
 
   /**
@@ -150,8 +195,35 @@ public class VehicleSpecDatabase {
    *         id does not exist.
    */
   public static VehicleSpec getVehicleSpecByName(String name) {
-    Integer id = nameToId.get(name);
-    return (id != null)?vehicleSpecs.get(id):null;
+    Database db = database();
+    Integer id = db.nameToId.get(name);
+    return (id != null)?db.vehicleSpecs.get(id):null;
+  }
+
+  /////////////////////////////////
+  // PRIVATE METHODS
+  /////////////////////////////////
+
+  /**
+   * Get the database of the current simulation.
+   *
+   * @return the database of the current simulation context
+   */
+  private static Database database() {
+    return SimulationContext.current().getVehicleSpecDatabase();
+  }
+
+  /**
+   * Register a vehicle specification in a database.
+   *
+   * @param db    the database
+   * @param spec  the vehicle specification
+   */
+  private static void registerSpec(Database db, VehicleSpec spec) {
+    assert !db.nameToId.containsKey(spec.getName());
+    int id = db.vehicleSpecs.size();
+    db.nameToId.put(spec.getName(), id);
+    db.vehicleSpecs.add(spec);
   }
 
   /////////////////////////////////
@@ -163,72 +235,72 @@ public class VehicleSpecDatabase {
    */
   static {
     /** A small vehicle with short wheelbase and good performance. */
-    registerSpec(new VehicleSpec("COUPE",
-                                 4.5,       // maxAcceleration (m/s/s)
-                               -45.0,       // maxDeceleration (m/s/s)
-                               //-15.0,       // maxDeceleration (m/s/s)
-                                60.0,       // maxVelocity (m/s)
-                               -17.0,       // minVelocity (m/s)
-                                 4.0,       // length (meters)
-                                 1.75,      // width (meters)
-                                 1.0,       // frontAxleDisplacement (meters)
-                                 3.5,       // rearAxleDisplacement (meters)
-                               (1.75-0.25)/2, // wheelSpan (meters)
-                                 0.3,       // wheelRadius (meters)
-                                 0.25,      // wheelWidth (meters)
-                               Math.PI/3,   // maxSteeringAngle (radian)
-                               Math.PI/2)); // maxTurnPerSecond (radian)
+    registerSpec(predefined, new VehicleSpec("COUPE",
+                                             4.5,       // maxAcceleration (m/s/s)
+                                           -45.0,       // maxDeceleration (m/s/s)
+                                           //-15.0,       // maxDeceleration (m/s/s)
+                                            60.0,       // maxVelocity (m/s)
+                                           -17.0,       // minVelocity (m/s)
+                                             4.0,       // length (meters)
+                                             1.75,      // width (meters)
+                                             1.0,       // frontAxleDisplacement (meters)
+                                             3.5,       // rearAxleDisplacement (meters)
+                                           (1.75-0.25)/2, // wheelSpan (meters)
+                                             0.3,       // wheelRadius (meters)
+                                             0.25,      // wheelWidth (meters)
+                                           Math.PI/3,   // maxSteeringAngle (radian)
+                                           Math.PI/2)); // maxTurnPerSecond (radian)
 
     /** A medium vehicle with medium wheelbase and moderate performance. */
-    registerSpec(new VehicleSpec("SEDAN",
-                                 3.25,      // maxAcceleration (m/s/s)
-                               -39.0,       // maxDeceleration (m/s/s)
-                               //-13.0,       // maxDeceleration (m/s/s)
-                                55.0,       // maxVelocity (m/s)
-                               -15.0,       // minVelocity (m/s)
-                                 5.0,       // length (meters)
-                                 1.85,      // width (meters)
-                                 1.2,       // frontAxleDisplacement (meters)
-                                 4.0,       // rearAxleDisplacement (meters)
-                               (1.85-0.25)/2, // wheelSpan (meters)
-                                 0.33,      // wheelRadius (meters)
-                                 0.25,      // wheelWidth (meters)
-                               Math.PI/3,   // maxSteeringAngle (radian)
-                               Math.PI/3)); // maxTurnPerSecond (radian)
+    registerSpec(predefined, new VehicleSpec("SEDAN",
+                                             3.25,      // maxAcceleration (m/s/s)
+                                           -39.0,       // maxDeceleration (m/s/s)
+                                           //-13.0,       // maxDeceleration (m/s/s)
+                                            55.0,       // maxVelocity (m/s)
+                                           -15.0,       // minVelocity (m/s)
+                                             5.0,       // length (meters)
+                                             1.85,      // width (meters)
+                                             1.2,       // frontAxleDisplacement (meters)
+                                             4.0,       // rearAxleDisplacement (meters)
+                                           (1.85-0.25)/2, // wheelSpan (meters)
+                                             0.33,      // wheelRadius (meters)
+                                             0.25,      // wheelWidth (meters)
+                                           Math.PI/3,   // maxSteeringAngle (radian)
+                                           Math.PI/3)); // maxTurnPerSecond (radian)
 
     /** A large vehicle with medium wheelbase and moderate performance. */
-    registerSpec(new VehicleSpec("SUV",
-                                 3.83,      // maxAcceleration (m/s/s)
-                               -39.0,       // maxDeceleration (m/s/s)
-                               //-13.0,       // maxDeceleration (m/s/s)
-                                52.0,       // maxVelocity (m/s)
-                               -13.0,       // minVelocity (m/s)
-                                 5.131,     // length (meters)
-                                 2.007,     // width (meters)
-                                 1.18,      // frontAxleDisplacement (meters)
-                                 4.126,     // rearAxleDisplacement (meters)
-                               (2.007-0.33)/2, // wheelSpan (meters)
-                                 0.375,     // wheelRadius (meters)
-                                 0.33,      // wheelWidth (meters)
-                               Math.PI/3,   // maxSteeringAngle (radian)
-                               Math.PI/3)); // maxTurnPerSecond (radian)
+    registerSpec(predefined, new VehicleSpec("SUV",
+                                             3.83,      // maxAcceleration (m/s/s)
+                                           -39.0,       // maxDeceleration (m/s/s)
+                                           //-13.0,       // maxDeceleration (m/s/s)
+                                            52.0,       // maxVelocity (m/s)
+                                           -13.0,       // minVelocity (m/s)
+                                             5.131,     // length (meters)
+                                             2.007,     // width (meters)
+                                             1.18,      // frontAxleDisplacement (meters)
+                                             4.126,     // rearAxleDisplacement (meters)
+                                           (2.007-0.33)/2, // wheelSpan (meters)
+                                             0.375,     // wheelRadius (meters)
+                                             0.33,      // wheelWidth (meters)
+                                           Math.PI/3,   // maxSteeringAngle (radian)
+                                           Math.PI/3)); // maxTurnPerSecond (radian)
 
     /** A large vehicle with long wheelbase and poor performance. */
-    registerSpec(new VehicleSpec("VAN",
-                                 3.08,      // maxAcceleration (m/s/s)
-                               -30.0,       // maxDeceleration (m/s/s)
-                               //-10.0,       // maxDeceleration (m/s/s)
-                                45.0,       // maxVelocity (m/s)
-                               -10.0,       // minVelocity (m/s)
-                                 5.385,     // length (meters)
-                                 2.014,     // width (meters)
-                                 0.58,      // frontAxleDisplacement (meters)
-                                 4.085,     // rearAxleDisplacement (meters)
-                               (2.014-0.33)/2, // wheelSpan (meters)
-                                 0.375,     // wheelRadius (meters)
-                                 0.33,      // wheelWidth (meters)
-                               Math.PI/3,   // maxSteeringAngle (radian)
-                               Math.PI/3)); // maxTurnPerSecond (radian)
+    registerSpec(predefined, new VehicleSpec("VAN",
+                                             3.08,      // maxAcceleration (m/s/s)
+                                           -30.0,       // maxDeceleration (m/s/s)
+                                           //-10.0,       // maxDeceleration (m/s/s)
+                                            45.0,       // maxVelocity (m/s)
+                                           -10.0,       // minVelocity (m/s)
+                                             5.385,     // length (meters)
+                                             2.014,     // width (meters)
+                                             0.58,      // frontAxleDisplacement (meters)
+                                             4.085,     // rearAxleDisplacement (meters)
+                                           (2.014-0.33)/2, // wheelSpan (meters)
+                                             0.375,     // wheelRadius (meters)
+                                             0.33,      // wheelWidth (meters)
+                                           Math.PI/3,   // maxSteeringAngle (radian)
+                                           Math.PI/3)); // maxTurnPerSecond (radian)
 
     /** MARVIN */
 //    registerSpec(new VehicleSpec("MARVIN",
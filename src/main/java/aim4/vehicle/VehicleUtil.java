@@ -40,6 +40,7 @@ import aim4.im.merge.MergeManager;
 import aim4.map.lane.ArcSegmentLane;
 import aim4.map.lane.Lane;
 import aim4.map.merge.MergeMap;
+import aim4.util.ConvexDecomposition;
 import aim4.util.GeomMath;
 import aim4.util.Util;
 import aim4.vehicle.aim.AIMBasicAutoVehicle;
@@ -47,10 +48,11 @@ import aim4.vehicle.merge.MergeBasicAutoVehicle;
 import aim4.vehicle.rim.RIMBasicAutoVehicle;
 
 import java.awt.geom.Area;
+import java.awt.geom.Point2D;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The utility functions for vehicles.
@@ -104,12 +106,13 @@ public class VehicleUtil {
 
     /**
      * Memoization caches for max turn velocities for various vehicle
-     * specification.
+     * specification.  Drivers may act concurrently, so the caches are
+     * concurrent maps.
      */
     private static Map<String,Map<List<Integer>, Double>>
-            memoMaxTurnVelocity = new HashMap<String,Map<List<Integer>,Double>>();
+            memoMaxTurnVelocity = new ConcurrentHashMap<String,Map<List<Integer>,Double>>();
     private static Map<String,Map<List<Integer>, Double>>
-            memoMaxTurnVelocityMerge = new HashMap<String,Map<List<Integer>,Double>>();
+            memoMaxTurnVelocityMerge = new ConcurrentHashMap<String,Map<List<Integer>,Double>>();
 
 
     /////////////////////////////////
@@ -118,11 +121,10 @@ public class VehicleUtil {
 
     /**
      * Get the maximum velocity that this Vehicle should make the
-     * turn between lanes through an intersection.  This method relies heavily
-     * on two types of caches.  First, there is a cache for each instance
-     * that is used if the vehicle is a CUSTOM type.  Second, there is a
-     * cache that belongs to the whole Vehicle class that is indexed by
-     * VehicleType, which essentially keeps a shared cache for each VehicleType.
+     * turn between lanes through an intersection.  The velocity is looked up
+     * in the {@link MaxTurnVelocityTable} of the map if it has been computed;
+     * otherwise, and for the turns that are not in the table, it is
+     * calculated once for each vehicle specification and memoized.
      *
      * @param spec          the vehicle's specification
      * @param arrivalLane   the Lane from which the Vehicle is turning
@@ -138,11 +140,20 @@ public class VehicleUtil {
                                          Lane departureLane,
                                          IntersectionManager im) {
 
+        // look the turn up in the table of the map, if it has been computed
+        MaxTurnVelocityTable table = im.getMaxTurnVelocityTable();
+        if (table != null) {
+            double mtv = table.get(spec, arrivalLane, departureLane, im.getId());
+            if (!Double.isNaN(mtv)) {
+                return Math.max(mtv, MIN_MAX_TURN_VELOCITY);
+            }
+        }
+
         // check to see if the spec has been seem before.
         if (!memoMaxTurnVelocity.containsKey(spec.getName())) {
             // if not, create a map for it
-            memoMaxTurnVelocity.put(spec.getName(),
-                    new HashMap<List<Integer>,Double>());
+            memoMaxTurnVelocity.putIfAbsent(spec.getName(),
+                    new ConcurrentHashMap<List<Integer>,Double>());
         }
 
         // check to see if the max turn velocity has been stored in the cache
@@ -165,11 +176,10 @@ public class VehicleUtil {
 
     /**
      * Get the maximum velocity that this Vehicle should make the
-     * turn between lanes through an intersection.  This method relies heavily
-     * on two types of caches.  First, there is a cache for each instance
-     * that is used if the vehicle is a CUSTOM type.  Second, there is a
-     * cache that belongs to the whole Vehicle class that is indexed by
-     * VehicleType, which essentially keeps a shared cache for each VehicleType.
+     * turn between lanes through an intersection.  The velocity is looked up
+     * in the {@link MaxTurnVelocityTable} of the map if it has been computed;
+     * otherwise, and for the turns that are not in the table, it is
+     * calculated once for each vehicle specification and memoized.
      *
      * @param spec          the vehicle's specification
      * @param arrivalLane   the Lane from which the Vehicle is turning
@@ -185,11 +195,20 @@ public class VehicleUtil {
                                          Lane departureLane,
                                          aim4.im.rim.IntersectionManager im) {
 
+        // look the turn up in the table of the map, if it has been computed
+        MaxTurnVelocityTable table = im.getMaxTurnVelocityTable();
+        if (table != null) {
+            double mtv = table.get(spec, arrivalLane, departureLane, im.getId());
+            if (!Double.isNaN(mtv)) {
+                return Math.max(mtv, MIN_MAX_TURN_VELOCITY);
+            }
+        }
+
         // check to see if the spec has been seem before.
         if (!memoMaxTurnVelocity.containsKey(spec.getName())) {
             // if not, create a map for it
-            memoMaxTurnVelocity.put(spec.getName(),
-                    new HashMap<List<Integer>,Double>());
+            memoMaxTurnVelocity.putIfAbsent(spec.getName(),
+                    new ConcurrentHashMap<List<Integer>,Double>());
         }
 
         // check to see if the max turn velocity has been stored in the cache
@@ -236,8 +255,8 @@ public class VehicleUtil {
         // check to see if the spec has been seem before.
         if (!memoMaxTurnVelocityMerge.containsKey(spec.getName())) {
             // if not, create a map for it
-            memoMaxTurnVelocityMerge.put(spec.getName(),
-                    new HashMap<List<Integer>,Double>());
+            memoMaxTurnVelocityMerge.putIfAbsent(spec.getName(),
+                    new ConcurrentHashMap<List<Integer>,Double>());
         }
 
         // check to see if the max turn velocity has been stored in the cache
@@ -258,6 +277,15 @@ public class VehicleUtil {
         return Math.max(mmtvs.get(key), MIN_MAX_TURN_VELOCITY);
     }
 
+    /**
+     * Forget the memoized max turn velocities, so that each of them is
+     * calculated again the next time it is needed.
+     */
+    public static void clearMaxTurnVelocityMemos() {
+        memoMaxTurnVelocity.clear();
+        memoMaxTurnVelocityMerge.clear();
+    }
+
 
     /**
      * Determine whether or not it is safe to cross the intersection governed
@@ -331,7 +359,7 @@ public class VehicleUtil {
             // Record whether or not we've entered the intersection
             if(!enteredIntersection &&
                     VehicleUtil.intersects(testVehicle,
-                            im.getIntersection().getAreaPlus())) {
+                            im.getIntersection().getAreaPlusDecomposition())) {
                 enteredIntersection = true;
             }
             // Increment our simulated time
@@ -809,10 +837,10 @@ public class VehicleUtil {
      * @return               the maximum safe velocity at which the Vehicle
      *                       should make the turn
      */
-    private static double calculateMaxTurnVelocity(VehicleSpec spec,
-                                                   Lane arrivalLane,
-                                                   Lane departureLane,
-                                                   IntersectionManager im) {
+    static double calculateMaxTurnVelocity(VehicleSpec spec,
+                                           Lane arrivalLane,
+                                           Lane departureLane,
+                                           IntersectionManager im) {
         // Start the search with a minimum of 0
         double lowerBound = 0;
         // and a maximum of the smallest of the Vehicle's maximum velocity,
@@ -939,13 +967,7 @@ public class VehicleUtil {
         if (area.contains(v.getPosition()) || area.contains(v.getPointAtRear())) {
             return true;
         } else {
-            // We actually have to check to see if the Area of the
-            // Vehicle and the Area of the IntersectionManager have a nonempty
-            // intersection
-            Area vehicleArea = new Area(v.getShape());
-            // Important that it is in this order, as it is destructive to the caller
-            vehicleArea.intersect(area);
-            return !vehicleArea.isEmpty();
+            return shapeIntersects(v, area);
         }
     }
 
@@ -963,16 +985,64 @@ public class VehicleUtil {
         if (area.contains(v.getPointAtMiddleFront(Constants.DOUBLE_EQUAL_PRECISION)) || area.contains(v.getPointAtRear())) {
             return true;
         } else {
-            // We actually have to check to see if the Area of the
-            // Vehicle and the Area of the IntersectionManager have a nonempty
-            // intersection
-            Area vehicleArea = new Area(v.getShape());
-            // Important that it is in this order, as it is destructive to the caller
-            vehicleArea.intersect(area);
-            return !vehicleArea.isEmpty();
+            return shapeIntersects(v, area);
         }
     }
 
+    /**
+     * Determine whether the given Vehicle is currently inside an area that has
+     * been decomposed into convex polygons.  This gives the same answer as
+     * {@link #intersects(VehicleSimModel, Area)} on the decomposed area, but
+     * tests the shape of the vehicle against the convex polygons instead of
+     * intersecting Areas.
+     *
+     * @param v              the Vehicle
+     * @param decomposition  the decomposition of the area
+     * @return      whether the Vehicle is currently in the area
+     */
+    public static boolean intersects(VehicleSimModel v,
+                                     ConvexDecomposition decomposition) {
+        Area area = decomposition.getArea();
+        if (area.contains(v.getPosition()) || area.contains(v.getPointAtRear())) {
+            return true;
+        } else if (!decomposition.isExact()) {
+            return shapeIntersects(v, area);
+        } else {
+            // The shape of the vehicle is a path through its corner points
+            // rounded to floats, so test the same polygon
+            Point2D[] corners = v.getCornerPoints();
+            double[] xs = new double[corners.length];
+            double[] ys = new double[corners.length];
+            for (int i = 0; i < corners.length; i++) {
+                xs[i] = (float) corners[i].getX();
+                ys[i] = (float) corners[i].getY();
+            }
+            return decomposition.overlapsConvexPolygon(xs, ys, corners.length);
+        }
+    }
+
+    /**
+     * Determine whether the shape of a vehicle and an area have a nonempty
+     * intersection.
+     *
+     * @param v     the Vehicle
+     * @param area  the area
+     * @return      whether the shape of the vehicle intersects the area
+     */
+    private static boolean shapeIntersects(VehicleSimModel v, Area area) {
+        // Shapes whose bounding boxes do not overlap cannot intersect
+        if (!v.getShape().getBounds2D().intersects(area.getBounds2D())) {
+            return false;
+        }
+        // We actually have to check to see if the Area of the
+        // Vehicle and the Area of the IntersectionManager have a nonempty
+        // intersection
+        Area vehicleArea = new Area(v.getShape());
+        // Important that it is in this order, as it is destructive to the caller
+        vehicleArea.intersect(area);
+        return !vehicleArea.isEmpty();
+    }
+
     /**
      * Determines whether or not two vehicles have collided
      *
@@ -981,11 +1051,92 @@ public class VehicleUtil {
      * @return      true if the two vehicles have collided, false otherwise
      */
     public static boolean collision(VehicleSimModel v1, VehicleSimModel v2) {
-        Area vehicle1Area = new Area(v1.getShape());
-        Area vehicle2Area = new Area(v2.getShape());
+        Point2D[] corners1 = v1.getCornerPoints();
+        Point2D[] corners2 = v2.getCornerPoints();
+        double[] xs1 = new double[corners1.length];
+        double[] ys1 = new double[corners1.length];
+        double[] xs2 = new double[corners2.length];
+        double[] ys2 = new double[corners2.length];
+        for (int i = 0; i < corners1.length; i++) {
+            xs1[i] = corners1[i].getX();
+            ys1[i] = corners1[i].getY();
+        }
+        for (int i = 0; i < corners2.length; i++) {
+            xs2[i] = corners2[i].getX();
+            ys2[i] = corners2[i].getY();
+        }
+        return GeomMath.convexPolygonsOverlap(xs1, ys1, xs1.length,
+                                              xs2, ys2, xs2.length);
+    }
 
-        vehicle1Area.intersect(vehicle2Area);
-        return !vehicle1Area.isEmpty();
+    /**
+     * Find the first pair of colliding vehicles in a list of vehicles.  The
+     * candidate pairs are found by sweeping the bounding boxes of the vehicles
+     * along the x-axis, and only those are tested with
+     * {@link GeomMath#convexPolygonsOverlap}, so the cost grows with the
+     * number of vehicles that are close to each other rather than with the
+     * number of all pairs.
+     *
+     * @param vehicles  the vehicles
+     * @return the indices <code>{i, j}</code>, <code>i &lt; j</code>, of the
+     *         colliding pair that comes first in the order of the list, or
+     *         <code>null</code> if no two vehicles collide
+     */
+    public static int[] findCollision(List<? extends VehicleSimModel> vehicles) {
+        int n = vehicles.size();
+        double[][] xs = new double[n][];
+        double[][] ys = new double[n][];
+        double[] minX = new double[n];
+        double[] maxX = new double[n];
+        double[] minY = new double[n];
+        double[] maxY = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            Point2D[] corners = vehicles.get(i).getCornerPoints();
+            xs[i] = new double[corners.length];
+            ys[i] = new double[corners.length];
+            minX[i] = minY[i] = Double.POSITIVE_INFINITY;
+            maxX[i] = maxY[i] = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < corners.length; k++) {
+                xs[i][k] = corners[k].getX();
+                ys[i][k] = corners[k].getY();
+                minX[i] = Math.min(minX[i], xs[i][k]);
+                maxX[i] = Math.max(maxX[i], xs[i][k]);
+                minY[i] = Math.min(minY[i], ys[i][k]);
+                maxY[i] = Math.max(maxY[i], ys[i][k]);
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(minX[a], minX[b]));
+
+        int[] result = null;
+        int[] active = new int[n];
+        int activeCount = 0;
+        for (int i : order) {
+            // Drop the vehicles that end before this one starts
+            int kept = 0;
+            for (int k = 0; k < activeCount; k++) {
+                if (maxX[active[k]] > minX[i]) {
+                    active[kept++] = active[k];
+                }
+            }
+            activeCount = kept;
+            for (int k = 0; k < activeCount; k++) {
+                int j = active[k];
+                if (maxY[j] > minY[i] && maxY[i] > minY[j] &&
+                    GeomMath.convexPolygonsOverlap(xs[i], ys[i], xs[i].length,
+                                                   xs[j], ys[j], xs[j].length)) {
+                    int first = Math.min(i, j);
+                    int second = Math.max(i, j);
+                    if (result == null || first < result[0] ||
+                        (first == result[0] && second < result[1])) {
+                        result = new int[]{first, second};
+                    }
+                }
+            }
+            active[activeCount++] = i;
+        }
+        return result;
     }
 
 
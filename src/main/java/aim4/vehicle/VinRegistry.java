@@ -30,54 +30,173 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package aim4.vehicle;
 
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
 import java.lang.ref.WeakReference;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import aim4.driver.aim.AIMDriver;
 import aim4.driver.cpm.CPMV2VDriver;
+import aim4.map.BasicMap;
 import aim4.map.Road;
 import aim4.map.SpawnPoint;
+import aim4.sim.SimulationContext;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
 
 /**
- * The Vehicle Registry, the class that issues VIN to vehicles.
+ * The Vehicle Registry, the class that issues VIN to vehicles.  The VINs
+ * are issued by the registry of the current {@link SimulationContext}, so
+ * that simulations running in different contexts do not share VINs.
  */
 public class VinRegistry {
 
   /////////////////////////////////
-  // PRIVATE FIELDS
+  // NESTED CLASSES
   /////////////////////////////////
 
   /**
-   * This generates a unique identifier for each vehicle, starting with 1000.
+   * The registry of a simulation.
    */
-  private static int vinGenerator = 1000;
-
-  /**
-   * A map from VINs to Vehicles.
-   */
-  private static Map<Integer,WeakReference<VehicleSimModel>> vinToVehicle =
-    new HashMap<Integer,WeakReference<VehicleSimModel>>();
+  public static final class Registry {
+
+    /**
+     * This generates a unique identifier for each vehicle, starting with 1000.
+     */
+    private int vinGenerator = 1000;
+
+    /**
+     * A map from VINs to Vehicles.
+     */
+    private Map<Integer,WeakReference<VehicleSimModel>> vinToVehicle =
+      new HashMap<Integer,WeakReference<VehicleSimModel>>();
+
+    /**
+     * A map from VINs to VehicleSpec.
+     */
+    private Map<Integer,VehicleSpec> vinToVehicleSpec =
+      new HashMap<Integer,VehicleSpec>();
+
+    // TODO: remove the following in the future
+
+    /**
+     * A map from VINs to spawn points.
+     */
+    private Map<Integer,SpawnPoint> vinToSpawnPoint =
+      new HashMap<Integer,SpawnPoint>();
+
+    /**
+     * A map from VINs to destination roads.
+     */
+    private Map<Integer,Road> vinToDestRoad =
+      new HashMap<Integer,Road>();
+
+    /**
+     * Create an empty registry.
+     */
+    public Registry() {
+    }
 
-  /**
-   * A map from VINs to VehicleSpec.
-   */
-  private static Map<Integer,VehicleSpec> vinToVehicleSpec =
-    new HashMap<Integer,VehicleSpec>();
+    /**
+     * Save the state of this registry.  The vehicles themselves are not
+     * saved; they register again with their VINs when they are restored.
+     *
+     * @param map  the map whose spawn points and roads are referred to
+     * @return the state of this registry
+     * @throws NotSerializableException  if a spawn point or a road is not
+     *                                   part of the map
+     */
+    public StateRecord saveState(BasicMap map) throws NotSerializableException {
+      StateRecord state = new StateRecord(Registry.class.getName(), 1);
+      state.putInt("vinGenerator", vinGenerator);
+      int[] vins = new int[vinToVehicleSpec.size()];
+      String[] specs = new String[vins.length];
+      int i = 0;
+      for (Map.Entry<Integer,VehicleSpec> e : vinToVehicleSpec.entrySet()) {
+        vins[i] = e.getKey();
+        specs[i] = e.getValue().getName();
+        i++;
+      }
+      state.putInts("vins", vins);
+      state.putStrings("specs", specs);
+      putIndices(state, "spawnPoint", vinToSpawnPoint, map.getSpawnPoints());
+      putIndices(state, "destRoad", vinToDestRoad, map.getRoads());
+      return state;
+    }
 
-  // TODO: remove the following in the future
+    /**
+     * Restore the state of this registry.
+     *
+     * @param state  the state saved by {@link #saveState(BasicMap)}
+     * @param map    the map whose spawn points and roads are referred to
+     * @throws IOException  if the state is not the state of a registry
+     */
+    public void restoreState(StateRecord state, BasicMap map) throws IOException {
+      state.check(Registry.class.getName(), 1);
+      vinGenerator = state.getInt("vinGenerator");
+      int[] vins = state.getInts("vins");
+      String[] specs = state.getStrings("specs");
+      if (specs.length != vins.length) {
+        throw new StreamCorruptedException("Mismatched VINs and specifications");
+      }
+      vinToVehicle = new HashMap<Integer,WeakReference<VehicleSimModel>>();
+      vinToVehicleSpec = new HashMap<Integer,VehicleSpec>();
+      for (int i = 0; i < vins.length; i++) {
+        VehicleSpec spec = VehicleSpecDatabase.getVehicleSpecByName(specs[i]);
+        if (spec == null) {
+          throw new StreamCorruptedException(
+            "Unknown vehicle specification " + specs[i]);
+        }
+        vinToVehicleSpec.put(vins[i], spec);
+      }
+      vinToSpawnPoint = getIndices(state, "spawnPoint", map.getSpawnPoints());
+      vinToDestRoad = getIndices(state, "destRoad", map.getRoads());
+      state.checkAllRead();
+    }
 
-  /**
-   * A map from VINs to spawn points.
-   */
-  private static Map<Integer,SpawnPoint> vinToSpawnPoint =
-    new HashMap<Integer,SpawnPoint>();
+    /**
+     * Put a map from VINs to objects as the VINs and the indices of the
+     * objects in a list.
+     */
+    private static <T> void putIndices(StateRecord state, String name,
+                                       Map<Integer,T> vinToObj,
+                                       List<? extends T> objs)
+        throws NotSerializableException {
+      int[] vins = new int[vinToObj.size()];
+      int[] indices = new int[vins.length];
+      int i = 0;
+      for (Map.Entry<Integer,T> e : vinToObj.entrySet()) {
+        vins[i] = e.getKey();
+        indices[i] = References.indexOf(objs, e.getValue());
+        i++;
+      }
+      state.putInts(name + "Vins", vins);
+      state.putInts(name + "s", indices);
+    }
 
-  /**
-   * A map from VINs to destination roads.
-   */
-  private static Map<Integer,Road> vinToDestRoad =
-    new HashMap<Integer,Road>();
+    /**
+     * Get a map from VINs to objects put by
+     * {@link #putIndices(StateRecord, String, Map, List)}.
+     */
+    private static <T> Map<Integer,T> getIndices(StateRecord state,
+                                                 String name,
+                                                 List<? extends T> objs)
+        throws StreamCorruptedException {
+      int[] vins = state.getInts(name + "Vins");
+      int[] indices = state.getInts(name + "s");
+      if (indices.length != vins.length) {
+        throw new StreamCorruptedException("Mismatched VINs and " + name + "s");
+      }
+      Map<Integer,T> vinToObj = new HashMap<Integer,T>();
+      for (int i = 0; i < vins.length; i++) {
+        vinToObj.put(vins[i], References.get(objs, indices[i], name));
+      }
+      return vinToObj;
+    }
+  }
 
 
   /////////////////////////////////
@@ -88,11 +207,12 @@ public class VinRegistry {
    * Reset the registry.
    */
   public static void reset() {
-    vinGenerator = 1000;
-    vinToVehicle = new HashMap<Integer,WeakReference<VehicleSimModel>>();
-    vinToVehicleSpec = new HashMap<Integer,VehicleSpec>();
-    vinToSpawnPoint = new HashMap<Integer,SpawnPoint>();
-    vinToDestRoad = new HashMap<Integer,Road>();
+    Registry r = registry();
+    r.vinGenerator = 1000;
+    r.vinToVehicle = new HashMap<Integer,WeakReference<VehicleSimModel>>();
+    r.vinToVehicleSpec = new HashMap<Integer,VehicleSpec>();
+    r.vinToSpawnPoint = new HashMap<Integer,SpawnPoint>();
+    r.vinToDestRoad = new HashMap<Integer,Road>();
   }
 
   /**
@@ -102,22 +222,23 @@ public class VinRegistry {
    * @return  a new VIN for the vehicle
    */
   public static int registerVehicle(VehicleSimModel vehicle) {
-    assert vinToVehicle.get(vinGenerator) == null;
-    int vin = vinGenerator;
-    vinToVehicle.put(vin, new WeakReference<VehicleSimModel>(vehicle));
-    vinToVehicleSpec.put(vin, vehicle.getSpec());
+    Registry r = registry();
+    assert r.vinToVehicle.get(r.vinGenerator) == null;
+    int vin = r.vinGenerator;
+    r.vinToVehicle.put(vin, new WeakReference<VehicleSimModel>(vehicle));
+    r.vinToVehicleSpec.put(vin, vehicle.getSpec());
     if(vehicle.getDriver() instanceof AIMDriver) { //TODO: Ugly, fix.
-      vinToSpawnPoint.put(vin, ((AIMDriver) vehicle.getDriver()).getSpawnPoint());
-      vinToDestRoad.put(vin, ((AIMDriver) vehicle.getDriver()).getDestination());
+      r.vinToSpawnPoint.put(vin, ((AIMDriver) vehicle.getDriver()).getSpawnPoint());
+      r.vinToDestRoad.put(vin, ((AIMDriver) vehicle.getDriver()).getDestination());
     }
     if(vehicle.getDriver() instanceof CPMV2VDriver) { //TODO: Ugly, fix.
-      vinToSpawnPoint.put(vin, ((CPMV2VDriver) vehicle.getDriver()).getSpawnPoint());
+      r.vinToSpawnPoint.put(vin, ((CPMV2VDriver) vehicle.getDriver()).getSpawnPoint());
     }
 
 
     vehicle.setVIN(vin);
 
-    vinGenerator++;
+    r.vinGenerator++;
     return vin;
   }
 
@@ -132,27 +253,28 @@ public class VinRegistry {
   public static boolean registerVehicleWithExistingVIN(VehicleSimModel vehicle,
                                                        int vin) {
     assert vin >= 0;
-    if (vinToVehicle.containsKey(vin)) {
+    Registry r = registry();
+    if (r.vinToVehicle.containsKey(vin)) {
       return false;  // the VIN has been used by some other vehicle
     } else {
       assert vehicle.getVIN() < 0;
 
-      vinToVehicle.put(vin, new WeakReference<VehicleSimModel>(vehicle));
-      vinToVehicleSpec.put(vin, vehicle.getSpec());
+      r.vinToVehicle.put(vin, new WeakReference<VehicleSimModel>(vehicle));
+      r.vinToVehicleSpec.put(vin, vehicle.getSpec());
       // TODO: think how to resolve the problem.
       if(vehicle.getDriver() instanceof AIMDriver) { //TODO: Ugly, fix.
           if (vehicle.getDriver() != null) {
-              vinToSpawnPoint.put(vin, ((AIMDriver) vehicle.getDriver()).getSpawnPoint());
-              vinToDestRoad.put(vin, ((AIMDriver) vehicle.getDriver()).getDestination());
+              r.vinToSpawnPoint.put(vin, ((AIMDriver) vehicle.getDriver()).getSpawnPoint());
+              r.vinToDestRoad.put(vin, ((AIMDriver) vehicle.getDriver()).getDestination());
           } else {
-              vinToSpawnPoint.put(vin, null);
-              vinToDestRoad.put(vin, null);
+              r.vinToSpawnPoint.put(vin, null);
+              r.vinToDestRoad.put(vin, null);
           }
       }
 
       vehicle.setVIN(vin);
-      if (vin >= vinGenerator) {
-        vinGenerator = vin + 1;
+      if (vin >= r.vinGenerator) {
+        r.vinGenerator = vin + 1;
       }  // else vin < vinGenerator and it would not affect the next vehicle
       return true;
     }
@@ -165,8 +287,9 @@ public class VinRegistry {
    * @param vin  the VIN of the vehicle
    */
   public static void unregisterVehicle(int vin) {
-    if (vinToVehicle.containsKey(vin)) {
-      vinToVehicle.remove(vin);
+    Registry r = registry();
+    if (r.vinToVehicle.containsKey(vin)) {
+      r.vinToVehicle.remove(vin);
       // do not remove the following
 //      vinToVehicleSpec.remove(vin);
 //      vinToSpawnPoint.remove(vin);
@@ -184,7 +307,7 @@ public class VinRegistry {
    * @return whether of not the VIN has been issued.
    */
   public static boolean isVINexist(int vin) {
-    return vinToVehicleSpec.containsKey(vin);
+    return registry().vinToVehicleSpec.containsKey(vin);
   }
 
   /**
@@ -195,7 +318,8 @@ public class VinRegistry {
    *         has been destroyed.
    */
   public static VehicleSimModel getVehicleFromVIN(int vin) {
-    WeakReference<VehicleSimModel> wr = vinToVehicle.get(vin);
+    Registry r = registry();
+    WeakReference<VehicleSimModel> wr = r.vinToVehicle.get(vin);
     if(wr == null) {
       return null;
     }
@@ -203,7 +327,7 @@ public class VinRegistry {
     VehicleSimModel v = wr.get();
     // If it's null, then the Vehicle no longer exists
     if(v == null) {
-      vinToVehicle.remove(vin);
+      r.vinToVehicle.remove(vin);
     }
     return v;
   }
@@ -215,7 +339,7 @@ public class VinRegistry {
    * @return the corresponding vehicle specification
    */
   public static VehicleSpec getVehicleSpecFromVIN(int vin) {
-    return vinToVehicleSpec.get(vin);
+    return registry().vinToVehicleSpec.get(vin);
   }
 
   /**
@@ -225,7 +349,7 @@ public class VinRegistry {
    * @return the spawn point
    */
   public static SpawnPoint getSpawnPointFromVIN(int vin) {
-    return vinToSpawnPoint.get(vin);
+    return registry().vinToSpawnPoint.get(vin);
   }
 
   /**
@@ -235,7 +359,20 @@ public class VinRegistry {
    * @return the destination road
    */
   public static Road getDestRoadFromVIN(int vin) {
-    return vinToDestRoad.get(vin);
+    return registry().vinToDestRoad.get(vin);
+  }
+
+  /////////////////////////////////
+  // PRIVATE METHODS
+  /////////////////////////////////
+
+  /**
+   * Get the registry of the current simulation.
+   *
+   * @return the registry of the current simulation context
+   */
+  private static Registry registry() {
+    return SimulationContext.current().getVinRegistry();
   }
 
   /////////////////////////////////
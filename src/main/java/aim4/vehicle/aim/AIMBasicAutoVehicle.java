@@ -33,13 +33,18 @@ package aim4.vehicle.aim;
 import aim4.config.Debug;
 import aim4.driver.Driver;
 import aim4.driver.aim.AIMAutoDriver;
+import aim4.map.BasicMap;
 import aim4.map.merge.RoadNames;
 import aim4.msg.aim.i2v.I2VMessage;
 import aim4.msg.aim.v2i.V2IMessage;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.BasicAutoVehicle;
 import aim4.vehicle.VehicleSpec;
 
 import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -375,4 +380,72 @@ public class AIMBasicAutoVehicle extends BasicAutoVehicle
         this.finalYPos = finalYPos;
     }
 
+    // snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The driver is not part of the state of the vehicle.
+     */
+    @Override
+    public StateRecord saveState() throws NotSerializableException {
+        StateRecord state = new StateRecord(AIMBasicAutoVehicle.class.getName(), 1);
+        state.putRecord("autoVehicle", super.saveState());
+        state.putDouble("transmissionPower", transmissionPower);
+        List<StateRecord> outbox = new ArrayList<StateRecord>(v2iOutbox.size());
+        for (V2IMessage msg : v2iOutbox) {
+            outbox.add(msg.toState());
+        }
+        state.putRecords("v2iOutbox", outbox);
+        List<StateRecord> inbox = new ArrayList<StateRecord>(i2vInbox.size());
+        for (I2VMessage msg : i2vInbox) {
+            inbox.add(msg.toState());
+        }
+        state.putRecords("i2vInbox", inbox);
+        state.putInt("bitsReceived", bitsReceived);
+        state.putInt("bitsTransmitted", bitsTransmitted);
+        state.putRecord("lastV2IMessage", lastV2IMessage == null ? null : lastV2IMessage.toState());
+        state.putString("startingRoad", startingRoad == null ? null : startingRoad.name());
+        state.putDouble("startTime", startTime);
+        state.putDouble("finishTime", finishTime);
+        state.putDouble("delayTime", delayTime);
+        state.putDouble("finalVelocity", finalVelocity);
+        state.putDouble("maxVelocity", maxVelocity);
+        state.putDouble("minVelocity", minVelocity);
+        state.putDouble("finalXPos", finalXPos);
+        state.putDouble("finalYPos", finalYPos);
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state, BasicMap map) throws IOException {
+        state.check(AIMBasicAutoVehicle.class.getName(), 1);
+        super.restoreState(state.getRecord("autoVehicle"), map);
+        transmissionPower = state.getDouble("transmissionPower");
+        v2iOutbox.clear();
+        for (StateRecord msg : state.getRecords("v2iOutbox")) {
+            v2iOutbox.add(V2IMessage.fromState(msg));
+        }
+        i2vInbox.clear();
+        for (StateRecord msg : state.getRecords("i2vInbox")) {
+            i2vInbox.add(I2VMessage.fromState(msg));
+        }
+        bitsReceived = state.getInt("bitsReceived");
+        bitsTransmitted = state.getInt("bitsTransmitted");
+        StateRecord lastMsg = state.getRecordOrNull("lastV2IMessage");
+        lastV2IMessage = lastMsg == null ? null : V2IMessage.fromState(lastMsg);
+        startingRoad = References.valueOf(RoadNames.class, state.getString("startingRoad"));
+        startTime = state.getDouble("startTime");
+        finishTime = state.getDouble("finishTime");
+        delayTime = state.getDouble("delayTime");
+        finalVelocity = state.getDouble("finalVelocity");
+        maxVelocity = state.getDouble("maxVelocity");
+        minVelocity = state.getDouble("minVelocity");
+        finalXPos = state.getDouble("finalXPos");
+        finalYPos = state.getDouble("finalYPos");
+        state.checkAllRead();
+    }
 }
@@ -2,11 +2,16 @@ package aim4.vehicle.merge;
 
 import aim4.driver.Driver;
 import aim4.driver.merge.MergeAutoDriver;
+import aim4.map.BasicMap;
 import aim4.map.merge.RoadNames;
+import aim4.sim.snapshot.References;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.BasicAutoVehicle;
 import aim4.vehicle.VehicleSpec;
 
 import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
 
 /**
  * Created by Callum on 14/03/2017.
@@ -158,4 +163,48 @@ public class MergeBasicAutoVehicle extends BasicAutoVehicle implements MergeAuto
     public void setStartTime(double startTime) {
         this.startTime = startTime;
     }
+
+    //Snapshots
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The driver is not part of the state of the vehicle.
+     */
+    @Override
+    public StateRecord saveState() throws NotSerializableException {
+        StateRecord state = new StateRecord(MergeBasicAutoVehicle.class.getName(), 1);
+        state.putRecord("autoVehicle", super.saveState());
+        state.putString("startingRoad", startingRoad == null ? null : startingRoad.name());
+        state.putDouble("startTime", startTime);
+        state.putDouble("finishTime", finishTime);
+        state.putDouble("delayTime", delayTime);
+        state.putDouble("finalVelocity", finalVelocity);
+        state.putDouble("maxVelocity", maxVelocity);
+        state.putDouble("minVelocity", minVelocity);
+        state.putDouble("finalXPos", finalXPos);
+        state.putDouble("finalYPos", finalYPos);
+        state.putInt("precedingVehicleVIN", precedingVehicleVIN);
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state, BasicMap map) throws IOException {
+        state.check(MergeBasicAutoVehicle.class.getName(), 1);
+        super.restoreState(state.getRecord("autoVehicle"), map);
+        startingRoad = References.valueOf(RoadNames.class, state.getString("startingRoad"));
+        startTime = state.getDouble("startTime");
+        finishTime = state.getDouble("finishTime");
+        delayTime = state.getDouble("delayTime");
+        finalVelocity = state.getDouble("finalVelocity");
+        maxVelocity = state.getDouble("maxVelocity");
+        minVelocity = state.getDouble("minVelocity");
+        finalXPos = state.getDouble("finalXPos");
+        finalYPos = state.getDouble("finalYPos");
+        precedingVehicleVIN = state.getInt("precedingVehicleVIN");
+        state.checkAllRead();
+    }
 }
@@ -2,11 +2,15 @@ package aim4.vehicle.merge;
 
 import aim4.driver.Driver;
 import aim4.driver.merge.MergeV2IAutoDriver;
+import aim4.map.BasicMap;
 import aim4.msg.merge.i2v.I2VMergeMessage;
 import aim4.msg.merge.v2i.V2IMergeMessage;
+import aim4.sim.snapshot.StateRecord;
 import aim4.vehicle.VehicleSpec;
 
 import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.NotSerializableException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -134,4 +138,46 @@ public class MergeV2IAutoVehicle extends MergeBasicAutoVehicle implements MergeV
         i2vInbox.add(msg);
     }
 
+    // SNAPSHOTS
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The driver is not part of the state of the vehicle.
+     */
+    @Override
+    public StateRecord saveState() throws NotSerializableException {
+        StateRecord state = new StateRecord(MergeV2IAutoVehicle.class.getName(), 1);
+        state.putRecord("mergeVehicle", super.saveState());
+        state.putDouble("transmissionPower", transmissionPower);
+        List<StateRecord> outbox = new ArrayList<StateRecord>(v2iOutbox.size());
+        for (V2IMergeMessage msg : v2iOutbox) {
+            outbox.add(msg.toState());
+        }
+        state.putRecords("v2iOutbox", outbox);
+        List<StateRecord> inbox = new ArrayList<StateRecord>(i2vInbox.size());
+        for (I2VMergeMessage msg : i2vInbox) {
+            inbox.add(msg.toState());
+        }
+        state.putRecords("i2vInbox", inbox);
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreState(StateRecord state, BasicMap map) throws IOException {
+        state.check(MergeV2IAutoVehicle.class.getName(), 1);
+        super.restoreState(state.getRecord("mergeVehicle"), map);
+        transmissionPower = state.getDouble("transmissionPower");
+        v2iOutbox.clear();
+        for (StateRecord msg : state.getRecords("v2iOutbox")) {
+            v2iOutbox.add(V2IMergeMessage.fromState(msg));
+        }
+        i2vInbox.clear();
+        for (StateRecord msg : state.getRecords("i2vInbox")) {
+            i2vInbox.add(I2VMergeMessage.fromState(msg));
+        }
+        state.checkAllRead();
+    }
 }
@@ -0,0 +1,143 @@
+package aim4.cli;
+
+import aim4.sim.Simulator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HeadlessMainTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parse_withPropertiesAndArguments_argumentsOverrideProperties() throws IOException {
+        //arrange
+        File properties = folder.newFile("sim.properties");
+        Files.write(properties.toPath(), Collections.singletonList("time=10\nrows=2"),
+                    Charset.forName("UTF-8"));
+
+        //act
+        SimOptions options = SimOptions.parse(
+                new String[]{"--properties=" + properties, "time=20"});
+
+        //assert
+        assertEquals(20, options.getDouble("time", 0), 0);
+        assertEquals(2, options.getInt("rows", 1));
+        assertEquals(1, options.getInt("columns", 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void run_withMisspeltOption_throwsIllegalArgumentException() throws IOException {
+        //arrange
+        SimOptions options = SimOptions.parse(new String[]{"steps=1", "trafficLevle=0.1"});
+
+        //act
+        HeadlessMain.run(options);
+    }
+
+    @Test
+    public void run_withOutput_stepsAndWritesResults() throws IOException {
+        //arrange
+        File output = new File(folder.getRoot(), "results.csv");
+        SimOptions options = SimOptions.parse(
+                new String[]{"steps=100", "seed=1", "output=" + output});
+
+        //act
+        Simulator sim = HeadlessMain.run(options);
+
+        //assert
+        assertEquals(2.0, sim.getSimulationTime(), 1e-9);
+        assertTrue(output.length() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void run_withOutputAndResults_throwsIllegalArgumentException() throws IOException {
+        //arrange
+        SimOptions options = SimOptions.parse(new String[]{"steps=1",
+                "output=" + new File(folder.getRoot(), "results.csv"),
+                "results=" + new File(folder.getRoot(), "vehicles.csv")});
+
+        //act
+        HeadlessMain.run(options);
+    }
+
+    @Test
+    public void run_withResultsForCpm_throwsBeforeOpeningTheResults() throws IOException {
+        //arrange
+        File results = new File(folder.getRoot(), "vehicles.csv");
+        SimOptions options = SimOptions.parse(new String[]{"steps=1", "type=cpm", "results=" + results});
+
+        //act
+        try {
+            HeadlessMain.run(options);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //assert
+            assertFalse(results.exists());
+        }
+    }
+
+    @Test
+    public void run_withTraceForCpm_throwsBeforeOpeningTheTrace() throws IOException {
+        //arrange
+        File trace = new File(folder.getRoot(), "trace");
+        SimOptions options = SimOptions.parse(new String[]{"steps=1", "type=cpm", "trace=" + trace});
+
+        //act
+        try {
+            HeadlessMain.run(options);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //assert
+            assertEquals(0, folder.getRoot().list().length);
+        }
+    }
+
+    @Test
+    public void run_withSnapshotAndResults_throwsBeforeRunning() throws IOException {
+        //arrange
+        SimOptions options = SimOptions.parse(new String[]{"steps=1",
+                "results=" + new File(folder.getRoot(), "vehicles.csv"),
+                "snapshot=" + new File(folder.getRoot(), "warm.snapshot")});
+
+        //act
+        try {
+            HeadlessMain.run(options);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //assert
+            assertEquals(0, folder.getRoot().list().length);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void run_withSnapshotForOptimalRim_throwsIllegalArgumentException() throws IOException {
+        //arrange
+        SimOptions options = SimOptions.parse(new String[]{"steps=1", "type=rim-optimal",
+                "snapshot=" + new File(folder.getRoot(), "warm.snapshot")});
+
+        //act
+        HeadlessMain.run(options);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void run_withSnapshotForQueueMerge_throwsIllegalArgumentException() throws IOException {
+        //arrange
+        SimOptions options = SimOptions.parse(new String[]{"steps=1", "type=merge", "protocol=QUEUE",
+                "snapshot=" + new File(folder.getRoot(), "warm.snapshot")});
+
+        //act
+        HeadlessMain.run(options);
+    }
+}
@@ -0,0 +1,103 @@
+package aim4.driver.aim.navigator;
+
+import aim4.cli.HeadlessMain;
+import aim4.cli.SimOptions;
+import aim4.im.aim.IntersectionManager;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.Road;
+import aim4.sim.SimulationContext;
+import aim4.sim.Simulator;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class CongestionRouterTests {
+    @Test
+    public void updateTimes_withChangedDelays_matchesComputeTimes() throws IOException {
+        //arrange
+        final BasicAIMIntersectionMap map = (BasicAIMIntersectionMap) HeadlessMain.run(
+                SimOptions.parse(new String[]{"steps=1", "seed=1", "rows=3", "columns=3"})).getMap();
+        SimulationContext context = new SimulationContext(1);
+        context.setAimMap(map);
+        RoadGraph graph = context.call(() -> new RoadGraph(map));
+        Random random = new Random(1);
+        double[] delays = new double[graph.getNumOfIms()];
+
+        for (int d = 0; d < graph.getNumOfRoads(); d++) {
+            double[] times = new double[graph.getNumOfStates()];
+            graph.computeTimes(0, d, delays, times);
+            for (int round = 0; round < 5; round++) {
+                double[] oldDelays = delays.clone();
+                for (int i = 0; i < delays.length; i++) {
+                    if (random.nextBoolean()) {
+                        delays[i] = 10 * random.nextDouble();
+                    }
+                }
+
+                //act
+                graph.updateTimes(0, d, oldDelays, delays, times);
+
+                //assert
+                double[] expected = new double[graph.getNumOfStates()];
+                graph.computeTimes(0, d, delays, expected);
+                assertArrayEquals(expected, times, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void nextRoad_withDelayOnTheStraightRoute_turnsAway() throws IOException {
+        //arrange
+        final BasicAIMIntersectionMap map = (BasicAIMIntersectionMap) HeadlessMain.run(
+                SimOptions.parse(new String[]{"steps=1", "seed=1", "rows=3", "columns=3"})).getMap();
+        SimulationContext context = new SimulationContext(1);
+        context.setAimMap(map);
+        RoadGraph graph = context.call(() -> new RoadGraph(map));
+        // a road through the three intersections of the first row, to the
+        // next row
+        IntersectionManager first = map.getIntersectionManagers().get(0);
+        Road road = null;
+        for (Road r : first.getIntersection().getEntryRoads()) {
+            IntersectionManager next = r.getIndexLane().getLaneIM().nextIntersectionManager(first);
+            if (next != null && next.getIntersection().getEntryRoads().contains(r)) {
+                road = r;
+                break;
+            }
+        }
+        assertNotNull(road);
+        IntersectionManager second = road.getIndexLane().getLaneIM().nextIntersectionManager(first);
+        int r = graph.roadIndex(road);
+        int state = graph.imIndex(first) * graph.getNumOfRoads() + r;
+        double[] delays = new double[graph.getNumOfIms()];
+        double[] times = new double[graph.getNumOfStates()];
+        graph.computeTimes(0, r, delays, times);
+        int freeFlow = graph.nextRoad(0, r, state, delays, times);
+        double[] oldDelays = delays.clone();
+        delays[graph.imIndex(second)] = 1000;
+
+        //act
+        graph.updateTimes(0, r, oldDelays, delays, times);
+
+        //assert
+        assertTrue(freeFlow == r);
+        assertNotEquals(r, graph.nextRoad(0, r, state, delays, times));
+    }
+
+    @Test
+    public void run_withCongestionRouting_routesTheVehicles() throws IOException {
+        //act
+        Simulator sim = HeadlessMain.run(SimOptions.parse(new String[]{
+                "time=120", "seed=1", "rows=2", "columns=2", "trafficLevel=0.4",
+                "congestionRouting=true"}));
+
+        //assert
+        assertNotNull(((BasicAIMIntersectionMap) sim.getMap()).getCongestionRouter());
+        assertTrue(sim.getNumCompletedVehicles() > 0);
+    }
+}
@@ -0,0 +1,123 @@
+package aim4.driver.aim.navigator;
+
+import aim4.cli.HeadlessMain;
+import aim4.cli.SimOptions;
+import aim4.im.aim.IntersectionManager;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.Road;
+import aim4.map.SpawnPoint;
+import aim4.sim.SimulationContext;
+import aim4.vehicle.VehicleSpec;
+import aim4.vehicle.VehicleSpecDatabase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RouteTableTests {
+    @Test
+    public void nextRoad_followedFromEveryIntersection_reachesTheDestination() throws IOException {
+        //arrange
+        BasicAIMIntersectionMap map = (BasicAIMIntersectionMap) HeadlessMain.run(
+                SimOptions.parse(new String[]{"steps=1", "seed=1", "rows=3", "columns=3"})).getMap();
+        RouteTable table = map.getRouteTable();
+        VehicleSpec spec = VehicleSpecDatabase.getVehicleSpecById(0);
+
+        //assert
+        assertNotNull(table);
+        for (IntersectionManager start : map.getIntersectionManagers()) {
+            for (Road road : start.getIntersection().getEntryRoads()) {
+                for (Road destination : map.getDestinationRoads()) {
+                    IntersectionManager im = start;
+                    Road current = road;
+                    int hops = 0;
+                    while (im != null) {
+                        //act
+                        current = table.nextRoad(spec, current, im, destination);
+
+                        assertNotNull(current);
+                        assertTrue(++hops <= map.getIntersectionManagers().size());
+                        im = current.getIndexLane().getLaneIM().nextIntersectionManager(im);
+                    }
+                    assertSame(destination, current);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void nextRoad_fromEveryRoad_matchesTheSearchExceptOnUnreachableReversals() throws IOException {
+        //arrange
+        final BasicAIMIntersectionMap map = (BasicAIMIntersectionMap) HeadlessMain.run(
+                SimOptions.parse(new String[]{"steps=1", "seed=1", "rows=3", "columns=3"})).getMap();
+        RouteTable table = map.getRouteTable();
+        map.setRouteTable(null);
+        SimulationContext context = new SimulationContext(1);
+        context.setAimMap(map);
+        Set<List<Integer>> divergences = new HashSet<List<Integer>>();
+        int matches = 0;
+
+        for (int specId = 0; specId < VehicleSpecDatabase.getNumOfSpec(); specId++) {
+            VehicleSpec spec = VehicleSpecDatabase.getVehicleSpecById(specId);
+            final BasicNavigator navigator = new BasicNavigator(spec, map);
+            for (final IntersectionManager im : map.getIntersectionManagers()) {
+                for (final Road road : im.getIntersection().getEntryRoads()) {
+                    for (final Road destination : map.getDestinationRoads()) {
+                        //act
+                        Road searched = context.call(() -> navigator.navigate(road, im, destination));
+                        Road tabled = table.nextRoad(spec, road, im, destination);
+
+                        //assert
+                        assertNotNull(tabled);
+                        if (tabled == searched) {
+                            matches++;
+                        } else {
+                            // Reversing needs a loop around a block, and the
+                            // loops on either side are equally fast, so the
+                            // search and the table may break the tie apart
+                            assertSame(road.getDual(), destination);
+                            divergences.add(state(specId, im, road, destination));
+                        }
+                    }
+                }
+            }
+        }
+
+        // No vehicle ever reaches a state in which they diverge: a vehicle
+        // is never sent to the reverse of the road it spawns on, and a
+        // fastest route never turns onto the reverse of its destination
+        for (int specId = 0; specId < VehicleSpecDatabase.getNumOfSpec(); specId++) {
+            VehicleSpec spec = VehicleSpecDatabase.getVehicleSpecById(specId);
+            for (SpawnPoint spawnPoint : map.getSpawnPoints()) {
+                Road start = map.getRoad(spawnPoint.getLane());
+                for (Road destination : map.getDestinationRoads()) {
+                    if (destination == start.getDual()) {
+                        continue;
+                    }
+                    IntersectionManager im = spawnPoint.getLane().getLaneIM().firstIntersectionManager();
+                    Road current = start;
+                    while (im != null) {
+                        assertFalse(divergences.contains(state(specId, im, current, destination)));
+                        current = table.nextRoad(spec, current, im, destination);
+                        im = current.getIndexLane().getLaneIM().nextIntersectionManager(im);
+                    }
+                    assertSame(destination, current);
+                }
+            }
+        }
+        assertTrue(matches > 0);
+    }
+
+    private static List<Integer> state(int specId, IntersectionManager im, Road road, Road destination) {
+        return Arrays.asList(specId, im.getId(), road.getIndexLane().getId(),
+                destination.getIndexLane().getId());
+    }
+}
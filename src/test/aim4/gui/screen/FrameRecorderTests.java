@@ -0,0 +1,99 @@
+package aim4.gui.screen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrameRecorderTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void record_withPngAndBlock_encodesEveryFrame() throws IOException {
+        //arrange
+        File dir = folder.newFolder("frames");
+        FrameRecorder recorder = new FrameRecorder(dir, FrameRecorder.Format.PNG,
+                FrameRecorder.OverflowPolicy.BLOCK, 2);
+
+        //act
+        for (int i = 0; i < 10; i++) {
+            assertTrue(recorder.record(frame(i)));
+        }
+        recorder.close();
+
+        //assert
+        assertEquals(10, recorder.getNumOfEncodedFrames());
+        assertEquals(0, recorder.getNumOfDroppedFrames());
+        assertEquals(10, dir.listFiles().length);
+        assertTrue(new File(dir, "00000009.png").exists());
+    }
+
+    @Test
+    public void record_withMjpeg_appendsOneJpegPerFrame() throws IOException {
+        //arrange
+        File file = new File(folder.getRoot(), "frames.mjpeg");
+        FrameRecorder recorder = new FrameRecorder(file, FrameRecorder.Format.MJPEG,
+                FrameRecorder.OverflowPolicy.BLOCK, 2);
+
+        //act
+        for (int i = 0; i < 5; i++) {
+            recorder.record(frame(i));
+        }
+        recorder.close();
+
+        //assert
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int images = 0;
+        for (int i = 0; i + 2 < bytes.length; i++) {
+            // the start of image marker followed by the start of a segment
+            if (bytes[i] == (byte) 0xFF && bytes[i + 1] == (byte) 0xD8
+                    && bytes[i + 2] == (byte) 0xFF) {
+                images++;
+            }
+        }
+        assertEquals(5, images);
+        assertEquals(5, recorder.getNumOfEncodedFrames());
+    }
+
+    @Test
+    public void record_withDrop_accountsForEveryFrame() throws IOException {
+        //arrange
+        File dir = folder.newFolder("frames");
+        FrameRecorder recorder = new FrameRecorder(dir, FrameRecorder.Format.PNG,
+                FrameRecorder.OverflowPolicy.DROP, 1);
+
+        //act
+        int recorded = 0;
+        for (int i = 0; i < 50; i++) {
+            if (recorder.record(frame(i))) {
+                recorded++;
+            }
+        }
+        recorder.close();
+
+        //assert
+        assertEquals(recorded, recorder.getNumOfEncodedFrames());
+        assertEquals(50, recorder.getNumOfEncodedFrames() + recorder.getNumOfDroppedFrames());
+        assertFalse(recorder.record(frame(0)));
+    }
+
+    private static BufferedImage frame(int i) {
+        BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        Graphics g = image.getGraphics();
+        g.setColor(new Color(i * 5, 100, 200));
+        g.fillRect(0, 0, 320, 240);
+        g.dispose();
+        return image;
+    }
+}
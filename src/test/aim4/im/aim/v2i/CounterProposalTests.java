@@ -0,0 +1,100 @@
+package aim4.im.aim.v2i;
+
+import aim4.cli.HeadlessMain;
+import aim4.cli.SimOptions;
+import aim4.config.Constants;
+import aim4.im.aim.IntersectionManager;
+import aim4.im.aim.v2i.reservation.ReservationGridManager;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.lane.Lane;
+import aim4.msg.aim.i2v.Reject;
+import aim4.msg.aim.v2i.Request;
+import aim4.sim.SimulationContext;
+import aim4.sim.Simulator;
+import aim4.vehicle.VehicleSpecDatabase;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CounterProposalTests {
+    @Test
+    public void new_withEarliestArrivalTime_sendsTheTime() {
+        //act
+        Reject plain = new Reject(0, 1, 2, 3.0, Reject.Reason.NO_CLEAR_PATH);
+        Reject counter = new Reject(0, 1, 2, 3.0, Reject.Reason.NO_CLEAR_PATH, 5.0);
+
+        //assert
+        assertFalse(plain.hasEarliestArrivalTime());
+        assertTrue(counter.hasEarliestArrivalTime());
+        assertEquals(5.0, counter.getEarliestArrivalTime(), 0.0);
+        assertEquals(plain.getSize() + Constants.DOUBLE_SIZE, counter.getSize());
+    }
+
+    @Test
+    public void findEarliestArrivalTime_withReservations_returnsTheFirstClearTime() throws IOException {
+        //arrange
+        Simulator sim = HeadlessMain.run(SimOptions.parse(new String[]{
+                "time=30", "seed=1", "trafficLevel=0.5"}));
+        BasicAIMIntersectionMap map = (BasicAIMIntersectionMap) sim.getMap();
+        SimulationContext context = new SimulationContext(1);
+        context.setAimMap(map);
+        IntersectionManager im = map.getIntersectionManagers().get(0);
+        final ReservationGridManager gridManager = ((V2IManager) im).getReservationGridManager();
+        Lane lane = im.getIntersection().getEntryLanes().get(0);
+        Request.VehicleSpecForRequestMsg spec =
+                new Request.VehicleSpecForRequestMsg(VehicleSpecDatabase.getVehicleSpecById(0));
+        double gridTimeStep = ((V2IManager) im).getReservationGrid().getGridTimeStep();
+        double now = sim.getSimulationTime();
+
+        for (int i = 0; i < 50; i++) {
+            double arrivalTime = now + 0.1 + i * 0.13;
+            final ReservationGridManager.Query query = new ReservationGridManager.Query(
+                    -1, arrivalTime, lane.getSpeedLimit(), lane.getId(), lane.getId(),
+                    spec, lane.getSpeedLimit(), true);
+
+            //act
+            double t = context.call(() -> gridManager.findEarliestArrivalTime(query, now + 10.0));
+
+            //assert
+            assertFalse(Double.isNaN(t));
+            assertTrue(t >= arrivalTime);
+            assertNotNull(context.call(() -> gridManager.query(shift(query, t))));
+            if (t > arrivalTime) {
+                assertNull(context.call(() -> gridManager.query(shift(query, t - gridTimeStep))));
+            }
+        }
+    }
+
+    @Test
+    public void run_withCounterProposals_sendsFewerRequests() throws IOException {
+        //act
+        Simulator plain = HeadlessMain.run(SimOptions.parse(new String[]{
+                "time=60", "seed=1", "trafficLevel=0.35"}));
+        Simulator counter = HeadlessMain.run(SimOptions.parse(new String[]{
+                "time=60", "seed=1", "trafficLevel=0.35", "counterProposals=true"}));
+
+        //assert
+        assertTrue(counter.getNumCompletedVehicles() > 0);
+        assertTrue(bitsReceived(counter) < bitsReceived(plain));
+    }
+
+    private static ReservationGridManager.Query shift(ReservationGridManager.Query q, double arrivalTime) {
+        return new ReservationGridManager.Query(q.getVin(), arrivalTime, q.getArrivalVelocity(),
+                q.getArrivalLaneId(), q.getDepartureLaneId(), q.getSpec(), q.getMaxTurnVelocity(),
+                q.isAccelerating());
+    }
+
+    private static long bitsReceived(Simulator sim) {
+        long bits = 0;
+        for (IntersectionManager im : ((BasicAIMIntersectionMap) sim.getMap()).getIntersectionManagers()) {
+            bits += ((V2IManager) im).getBitsReceived();
+        }
+        return bits;
+    }
+}
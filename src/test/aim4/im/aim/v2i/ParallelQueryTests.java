@@ -0,0 +1,51 @@
+package aim4.im.aim.v2i;
+
+import aim4.cli.HeadlessMain;
+import aim4.cli.SimOptions;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.sim.Simulator;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+public class ParallelQueryTests {
+    @Test
+    public void run_withParallelQueries_completesLikeSequentialQueries() throws IOException {
+        //act
+        Simulator sequential = HeadlessMain.run(SimOptions.parse(new String[]{
+                "time=60", "seed=1", "columns=2"}));
+        Simulator parallel = HeadlessMain.run(SimOptions.parse(new String[]{
+                "time=60", "seed=1", "columns=2", "parallelQuery=true"}));
+
+        //assert
+        assertEquals(sequential.getNumCompletedVehicles(), parallel.getNumCompletedVehicles());
+        assertEquals(sequential.produceResultsCSV(), parallel.produceResultsCSV());
+    }
+
+    @Test
+    public void getQueryExecutor_withParallelQueries_isOwnedByEachManager() throws IOException {
+        //arrange
+        Simulator sequential = HeadlessMain.run(SimOptions.parse(new String[]{
+                "steps=1", "columns=2"}));
+        Simulator parallel = HeadlessMain.run(SimOptions.parse(new String[]{
+                "steps=1", "columns=2", "parallelQuery=true"}));
+
+        //act
+        V2IManager sequentialIM =
+                (V2IManager) ((BasicAIMIntersectionMap) sequential.getMap()).getIntersectionManagers().get(0);
+        V2IManager first =
+                (V2IManager) ((BasicAIMIntersectionMap) parallel.getMap()).getIntersectionManagers().get(0);
+        V2IManager second =
+                (V2IManager) ((BasicAIMIntersectionMap) parallel.getMap()).getIntersectionManagers().get(1);
+
+        //assert
+        assertNull(sequentialIM.getQueryExecutor());
+        assertNotNull(first.getQueryExecutor());
+        assertNotSame(first.getQueryExecutor(), second.getQueryExecutor());
+    }
+}
@@ -0,0 +1,121 @@
+package aim4.im.aim.v2i;
+
+import aim4.cli.HeadlessMain;
+import aim4.cli.SimOptions;
+import aim4.cli.SimSetups;
+import aim4.im.aim.IntersectionManager;
+import aim4.im.aim.v2i.reservation.ReservationGridManager;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.lane.Lane;
+import aim4.msg.aim.v2i.Request;
+import aim4.sim.SimulationContext;
+import aim4.sim.Simulator;
+import aim4.vehicle.VehicleSpecDatabase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReservationPrePlannerTests {
+    @Test
+    public void precomputeFootprint_beforeTheQuery_isReusedByTheQuery() throws IOException {
+        //arrange
+        BasicAIMIntersectionMap map = (BasicAIMIntersectionMap) HeadlessMain.run(
+                SimOptions.parse(new String[]{"steps=1", "seed=1", "footprintCache=true", "prePlanning=true"})).getMap();
+        SimulationContext context = new SimulationContext(1);
+        context.setAimMap(map);
+        V2IManager im = (V2IManager) map.getIntersectionManagers().get(0);
+        final ReservationGridManager gridManager = im.getReservationGridManager();
+        Lane lane = im.getIntersection().getEntryLanes().get(0);
+        final ReservationGridManager.Query query = new ReservationGridManager.Query(
+                -1, 5.0, lane.getSpeedLimit(), lane.getId(), lane.getId(),
+                new Request.VehicleSpecForRequestMsg(VehicleSpecDatabase.getVehicleSpecById(0)),
+                lane.getSpeedLimit(), true);
+        int size = gridManager.getFootprintCacheSize();
+
+        //act
+        boolean computed = context.call(() -> gridManager.precomputeFootprint(query));
+
+        //assert
+        assertNotNull(im.getPrePlanner());
+        assertTrue(computed);
+        assertEquals(size + 1, gridManager.getFootprintCacheSize());
+        assertFalse(context.call(() -> gridManager.precomputeFootprint(query)));
+        assertNotNull(context.call(() -> gridManager.query(query)));
+        assertEquals(size + 1, gridManager.getFootprintCacheSize());
+    }
+
+    @Test
+    public void run_withPrePlanning_matchesTheFootprintCache() throws IOException {
+        //act
+        Simulator cached = HeadlessMain.run(SimOptions.parse(new String[]{
+                "time=60", "seed=1", "rows=2", "columns=2", "trafficLevel=0.35",
+                "footprintCache=true"}));
+        Simulator planned = HeadlessMain.run(SimOptions.parse(new String[]{
+                "time=60", "seed=1", "rows=2", "columns=2", "trafficLevel=0.35",
+                "footprintCache=true", "prePlanning=true"}));
+
+        //assert
+        int anticipated = 0;
+        for (IntersectionManager im : ((BasicAIMIntersectionMap) planned.getMap()).getIntersectionManagers()) {
+            anticipated += ((V2IManager) im).getPrePlanner().getNumOfAnticipatedRequests();
+        }
+        assertTrue(anticipated > 0);
+        assertTrue(planned.getNumCompletedVehicles() > 0);
+        assertEquals(cached.getNumCompletedVehicles(), planned.getNumCompletedVehicles());
+        assertEquals(bitsReceived(cached), bitsReceived(planned));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_withPrePlanningWithoutFootprintCache_throwsIllegalArgumentException() throws IOException {
+        //act
+        SimSetups.create(SimOptions.parse(new String[]{"prePlanning=true"}));
+    }
+
+    @Test
+    public void createExecutor_withFullQueue_dropsTheOldestTask() throws InterruptedException {
+        //arrange
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReservationPrePlanner.createExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger run = new AtomicInteger();
+        int blocked = executor.getMaximumPoolSize();
+        for (int i = 0; i < blocked; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        int capacity = executor.getQueue().remainingCapacity();
+
+        //act
+        for (int i = 0; i < capacity + 10; i++) {
+            executor.execute(run::incrementAndGet);
+        }
+
+        //assert
+        assertEquals(capacity, executor.getQueue().size());
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(capacity, run.get());
+    }
+
+    private static long bitsReceived(Simulator sim) {
+        long bits = 0;
+        for (IntersectionManager im : ((BasicAIMIntersectionMap) sim.getMap()).getIntersectionManagers()) {
+            bits += ((V2IManager) im).getBitsReceived();
+        }
+        return bits;
+    }
+}
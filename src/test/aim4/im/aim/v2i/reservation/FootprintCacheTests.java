@@ -0,0 +1,86 @@
+package aim4.im.aim.v2i.reservation;
+
+import aim4.cli.HeadlessMain;
+import aim4.cli.SimOptions;
+import aim4.im.aim.Intersection;
+import aim4.im.aim.v2i.V2IManager;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.lane.Lane;
+import aim4.msg.aim.v2i.Request;
+import aim4.sim.SimulationContext;
+import aim4.util.GeomMath;
+import aim4.vehicle.VehicleSpecDatabase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class FootprintCacheTests {
+    private static final double ARRIVAL_TIME = 50.0;
+    private static final double MAX_TURN_VELOCITY = 10.0;
+
+    @Test
+    public void query_withCachedFootprint_coversTheExactTrajectoriesOfTheBucket() throws IOException {
+        //arrange
+        V2IManager im = intersectionManager("footprintCache=false");
+        final ReservationGridManager exact = im.getReservationGridManager();
+        final ReservationGridManager cached = intersectionManager("footprintCache=true").getReservationGridManager();
+        SimulationContext context = new SimulationContext(1);
+        Intersection intersection = im.getIntersection();
+        Request.VehicleSpecForRequestMsg spec =
+                new Request.VehicleSpecForRequestMsg(VehicleSpecDatabase.getVehicleSpecById(0));
+        int checked = 0;
+
+        for (Lane arrivalLane : intersection.getEntryLanes()) {
+            for (Lane departureLane : intersection.getExitLanes()) {
+                double turn = GeomMath.angleDiff(intersection.getEntryHeading(arrivalLane),
+                        intersection.getExitHeading(departureLane));
+                if (Math.abs(turn) > 3 * Math.PI / 4) {
+                    continue; // no U-turns
+                }
+                for (boolean accelerating : new boolean[]{true, false}) {
+                    // arrival velocities and arrival times within one bucket
+                    for (int i = 0; i <= 8; i++) {
+                        final ReservationGridManager.Query query = new ReservationGridManager.Query(
+                                1, ARRIVAL_TIME + 0.0042 + 0.0002 * i, 8.01 + 0.01 * i,
+                                arrivalLane.getId(), departureLane.getId(), spec, MAX_TURN_VELOCITY,
+                                accelerating);
+
+                        //act
+                        ReservationGridManager.Plan exactPlan = context.call(() -> exact.query(query));
+                        ReservationGridManager.Plan cachedPlan = context.call(() -> cached.query(query));
+
+                        //assert
+                        assertNotNull(exactPlan);
+                        assertNotNull(cachedPlan);
+                        Set<Long> cachedTiles = timeTiles(cachedPlan);
+                        for (Long timeTile : timeTiles(exactPlan)) {
+                            assertTrue(cachedTiles.contains(timeTile));
+                        }
+                        assertTrue(cachedPlan.getExitVelocity() >= exactPlan.getExitVelocity());
+                        checked++;
+                    }
+                }
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    private static V2IManager intersectionManager(String footprintCache) throws IOException {
+        BasicAIMIntersectionMap map = (BasicAIMIntersectionMap) HeadlessMain.run(
+                SimOptions.parse(new String[]{"steps=1", "seed=1", footprintCache})).getMap();
+        return (V2IManager) map.getIntersectionManagers().get(0);
+    }
+
+    private static Set<Long> timeTiles(ReservationGridManager.Plan plan) {
+        Set<Long> timeTiles = new HashSet<Long>();
+        for (ReservationGrid.TimeTile timeTile : plan.getWorkingList()) {
+            timeTiles.add(((long) timeTile.getDiscreteTime() << 32) | timeTile.getTileId());
+        }
+        return timeTiles;
+    }
+}
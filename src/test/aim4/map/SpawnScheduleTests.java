@@ -0,0 +1,117 @@
+package aim4.map;
+
+import org.json.simple.parser.ParseException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SpawnScheduleTests {
+    private static final String SCHEDULE = "["
+            + "{\"specName\":\"SEDAN\",\"spawnTime\":3.5,\"arrivalRoadName\":\"1st Street E\","
+            + "\"laneIndex\":\"0\",\"destinationRoadName\":\"1st Avenue N\"},"
+            + "{\"specName\":\"BUS\",\"spawnTime\":1.25,\"arrivalRoadName\":\"1st Avenue N\","
+            + "\"laneIndex\":\"1\",\"destinationRoadName\":\"1st Street E\"},"
+            + "{\"specName\":\"COUPE\",\"spawnTime\":2.0,\"arrivalRoadName\":\"1st Street E\","
+            + "\"laneIndex\":0,\"destinationRoadName\":\"1st Street E\"}"
+            + "]";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void getPartition_withSpawnsOnSeveralLanes_returnsSpawnsOfLaneInTimeOrder()
+            throws IOException, ParseException {
+        //arrange
+        SpawnSchedule schedule = SpawnSchedule.read(write("schedule.json", SCHEDULE));
+
+        //act
+        SpawnSchedule.Partition partition = schedule.getPartition("1st Street E", 0);
+
+        //assert
+        assertEquals(2, partition.size());
+        assertEquals(2.0, partition.getSpawnTime(0), 0);
+        assertEquals("COUPE", partition.getSpecName(0));
+        assertEquals("1st Street E",
+                     schedule.getRoadNames()[partition.getDestinationId(0)]);
+        assertEquals(3.5, partition.getSpawnTime(1), 0);
+        assertEquals("SEDAN", partition.getSpecName(1));
+        assertEquals(0, schedule.getPartition("1st Street E", 1).size());
+        assertEquals(0, schedule.getPartition("2nd Street E", 0).size());
+    }
+
+    @Test
+    public void getAll_withMergeSchedule_returnsAllSpawnsWithoutDestination()
+            throws IOException, ParseException {
+        //arrange
+        File file = write("merge.json", "["
+                + "{\"specName\":\"SEDAN\",\"spawnTime\":0.5},"
+                + "{\"specName\":\"SEDAN\",\"spawnTime\":0.25}]");
+
+        //act
+        SpawnSchedule.Partition all = SpawnSchedule.read(file).getAll();
+
+        //assert
+        assertEquals(2, all.size());
+        assertEquals(0.25, all.getSpawnTime(0), 0);
+        assertEquals(0.5, all.getSpawnTime(1), 0);
+        assertEquals(-1, all.getDestinationId(0));
+    }
+
+    @Test
+    public void read_withBinaryConversion_returnsSameSchedule() throws IOException, ParseException {
+        //arrange
+        File json = write("schedule.json", SCHEDULE);
+        SpawnSchedule expected = SpawnSchedule.read(json);
+        File binary = SpawnSchedule.getBinaryFile(json);
+        expected.writeBinary(binary);
+
+        //act
+        SpawnSchedule actual = SpawnSchedule.read(binary);
+
+        //assert
+        assertEquals(new File(folder.getRoot(), "schedule.bin"), binary);
+        assertArrayEquals(expected.getRoadNames(), actual.getRoadNames());
+        assertEquals(expected.size(), actual.size());
+        for (String road : Arrays.asList("1st Street E", "1st Avenue N")) {
+            for (int lane = 0; lane < 2; lane++) {
+                SpawnSchedule.Partition e = expected.getPartition(road, lane);
+                SpawnSchedule.Partition a = actual.getPartition(road, lane);
+                assertEquals(e.size(), a.size());
+                for (int i = 0; i < e.size(); i++) {
+                    assertEquals(e.getSpawnTime(i), a.getSpawnTime(i), 0);
+                    assertEquals(e.getSpecName(i), a.getSpecName(i));
+                    assertEquals(e.getDestinationId(i), a.getDestinationId(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void load_withUnchangedFile_returnsCachedSchedule() throws IOException, ParseException {
+        //arrange
+        File json = write("schedule.json", SCHEDULE);
+
+        //act
+        SpawnSchedule first = SpawnSchedule.load(json);
+        SpawnSchedule second = SpawnSchedule.load(json);
+
+        //assert
+        assertSame(first, second);
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(Charset.forName("UTF-8")));
+        return file;
+    }
+}
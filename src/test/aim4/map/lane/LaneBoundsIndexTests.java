@@ -0,0 +1,51 @@
+package aim4.map.lane;
+
+import org.junit.Test;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class LaneBoundsIndexTests {
+    private static final double WIDTH = 4;
+    private static final double SPEED_LIMIT = 10;
+    private static final int TRIALS = 5000;
+
+    @Test
+    public void findIntersectingLanes_withRandomRectangles_matchesBoundsScan() {
+        //arrange
+        Random random = new Random(3);
+        List<Lane> lanes = new ArrayList<Lane>();
+        for (int i = 0; i < 30; i++) {
+            lanes.add(new LineSegmentLane(new Line2D.Double(
+                    new Point2D.Double(random.nextDouble() * 200, random.nextDouble() * 200),
+                    new Point2D.Double(random.nextDouble() * 200, random.nextDouble() * 200)),
+                    WIDTH,
+                    SPEED_LIMIT));
+        }
+        LaneBoundsIndex index = new LaneBoundsIndex(lanes, 7.0);
+
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Rectangle2D rect = new Rectangle2D.Double(
+                    random.nextDouble() * 240 - 20, random.nextDouble() * 240 - 20,
+                    random.nextDouble() * 10, random.nextDouble() * 10);
+
+            //act
+            List<Lane> result = index.findIntersectingLanes(rect);
+
+            //assert
+            List<Lane> expected = new ArrayList<Lane>();
+            for (Lane lane : lanes) {
+                if (lane.getShape().getBounds2D().intersects(rect)) {
+                    expected.add(lane);
+                }
+            }
+            assertEquals(expected, result);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package aim4.map.lane;
+
+import org.junit.Test;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.SortedMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LaneOccupancyIndexTests {
+    private static final double WIDTH = 4;
+    private static final double SPEED_LIMIT = 10;
+
+    @Test
+    public void put_withChainOfNextLanes_sharesTheListOfTheFirstLane() {
+        //arrange
+        Lane first = createLane(0, 50);
+        Lane second = createLane(50, 100);
+        first.setNextLane(second);
+        second.setPrevLane(first);
+        LaneOccupancyIndex<String> index = new LaneOccupancyIndex<String>(Arrays.asList(first, second));
+
+        //act
+        index.put("a", first, 10.0);
+        index.put("b", second, 20.0);
+
+        //assert
+        assertEquals(1, index.getVehicleLists().size());
+        assertSame(index.getVehicleList(first), index.getVehicleList(second));
+        assertEquals(Arrays.asList("a", "b"), Arrays.asList(index.getVehicleList(first).values().toArray()));
+    }
+
+    @Test
+    public void remove_afterVehicleMoved_keepsOnlyTheNewPosition() {
+        //arrange
+        Lane lane = createLane(0, 100);
+        LaneOccupancyIndex<String> index = new LaneOccupancyIndex<String>(Arrays.asList(lane));
+        index.put("a", lane, 10.0);
+        index.put("b", lane, 30.0);
+
+        //act
+        index.remove("a");
+        index.put("a", lane, 40.0);
+
+        //assert
+        SortedMap<Double, String> vehicles = index.getVehicleList(lane);
+        assertEquals(2, vehicles.size());
+        assertEquals("b", vehicles.get(30.0));
+        assertEquals("a", vehicles.get(40.0));
+    }
+
+    @Test
+    public void retainAll_withDepartedVehicle_removesItsRecords() {
+        //arrange
+        Lane lane = createLane(0, 100);
+        LaneOccupancyIndex<String> index = new LaneOccupancyIndex<String>(Arrays.asList(lane));
+        index.put("a", lane, 10.0);
+        index.put("b", lane, 30.0);
+
+        //act
+        index.retainAll(new HashSet<String>(Arrays.asList("b")));
+
+        //assert
+        assertEquals(1, index.getVehicleList(lane).size());
+        assertTrue(index.getVehicleList(lane).containsValue("b"));
+    }
+
+    private Lane createLane(double startX, double endX) {
+        return new LineSegmentLane(new Line2D.Double(
+                new Point2D.Double(startX, 0),
+                new Point2D.Double(endX, 0)),
+                WIDTH,
+                SPEED_LIMIT);
+    }
+}
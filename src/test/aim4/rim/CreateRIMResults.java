@@ -6,6 +6,8 @@ import aim4.map.Road;
 import aim4.map.lane.Lane;
 import aim4.map.rim.RimMapUtil;
 import aim4.sim.Simulator;
+import aim4.sim.batch.BatchRunner;
+import aim4.sim.batch.SweepSpec;
 import aim4.sim.results.Result;
 import aim4.sim.results.VehicleResult;
 import aim4.sim.setup.rim.*;
@@ -148,190 +150,9 @@ public class CreateRIMResults {
     }
     
     @Test
-    public void chooseDiameterSimulations_withTrafficVolumesCsv_savesJCSVs() {
-    	
-    	int laneNum = 2;
-    	
-    	String laneNumString = getLaneNumString(laneNum);
-    	
-    	double roundaboutDiameterArray[] = getRoundaboutDiameterArray(laneNum);
-    	double roundaboutSpeedLimit = getRoundaboutSpeedLimit(laneNum);
-    	
-        //For every roundabout diameter
-    	for (int roundaboutDiameterIndex = 0; roundaboutDiameterIndex < roundaboutDiameterArray.length; roundaboutDiameterIndex++) {
-            StringBuilder sb = new StringBuilder();
-            //Global Stats for the overall csv
-            sb.append("Traffic Volume");
-            sb.append(',');
-            sb.append("Repetition No.");
-            sb.append(',');
-            sb.append("Average Delay");
-            sb.append('\n');
-            //For every traffic volume
-            for (int trafficVolumeIndex = 0; trafficVolumeIndex < VOLUMES.length; trafficVolumeIndex++) {
-                for (int repetition = 1; repetition <= 10; repetition++) {
-                	File uploadTrafficSchedule = new File("C:\\Users\\Caleb\\Documents\\Uni\\volumes\\" +
-                			laneNumString + "lane_" + Integer.toString(VOLUMES[trafficVolumeIndex]) +
-                            "_"+Double.toString(LANE_SPEED_LIMIT)+"ls_10.0rs_1800.0s_unbalanced" + "_" +Integer.toString(repetition)+ ".json");
-                    RIMSimSetupPanel rimSimSetupPanel = new RIMSimSetupPanel(new BasicSimSetup(
-                            1, // columns
-                            1, // rows
-                            roundaboutDiameterArray[roundaboutDiameterIndex], // roundabout diameter
-                            20.0, // entrance & exit circle radius
-                            8, // split factor
-                            3.014, // lane width
-                            LANE_SPEED_LIMIT, // speed limit
-                            roundaboutSpeedLimit, // roundabout speed limit
-                            laneNum, // lanes per road
-                            1, // median size
-                            150, // distance between
-                            0.28, // traffic level
-                            1.0 // stop distance before intersection
-                    ), new aim4.sim.setup.aim.BasicSimSetup(1, // columns
-                            1, // rows
-                            4, // lane width
-                            LANE_SPEED_LIMIT, // speed limit
-                            laneNum, // lanes per road
-                            1, // median size
-                            150, // distance between
-                            0.28, // traffic level
-                            1.0 // stop distance before intersection
-                    ));
-                    
-                    // Set up RIM Simulator
-                    AutoDriverOnlySimSetup rimProtocolSimSetup = new AutoDriverOnlySimSetup(rimSimSetupPanel.getRimSimSetup());
-                    rimProtocolSimSetup.setRoundaboutDiameter(roundaboutDiameterArray[roundaboutDiameterIndex]);
-                    rimProtocolSimSetup.setLaneSpeedLimit(LANE_SPEED_LIMIT);
-                    rimProtocolSimSetup.setRoundaboutSpeedLimit(roundaboutSpeedLimit);
-                    rimProtocolSimSetup.setStopDistBeforeIntersection(STOP_DISTANCE);
-                    rimProtocolSimSetup.setNumOfColumns(1);
-                    rimProtocolSimSetup.setNumOfRows(1);
-                    rimProtocolSimSetup.setLanesPerRoad(laneNum);
-                    rimProtocolSimSetup.setUploadTrafficSchedule(uploadTrafficSchedule);
-
-                    // Set up rim Optimal policy Simulator
-                    RIMOptimalSimSetup rimOptimalProtocolSimSetup = new RIMOptimalSimSetup(rimSimSetupPanel.getRimSimSetup());
-                    rimOptimalProtocolSimSetup.setRoundaboutDiameter(roundaboutDiameterArray[roundaboutDiameterIndex]);
-                    rimOptimalProtocolSimSetup.setLaneSpeedLimit(LANE_SPEED_LIMIT);
-                    rimOptimalProtocolSimSetup.setRoundaboutSpeedLimit(roundaboutSpeedLimit);
-                    rimOptimalProtocolSimSetup.setStopDistBeforeIntersection(STOP_DISTANCE);
-                    rimOptimalProtocolSimSetup.setNumOfColumns(1);
-                    rimOptimalProtocolSimSetup.setNumOfRows(1);
-                    rimOptimalProtocolSimSetup.setLanesPerRoad(laneNum);
-                    rimOptimalProtocolSimSetup.setUploadTrafficSchedule(uploadTrafficSchedule);
-
-                    // Set up AIM Cross Intersection Simulator
-                    AIMCrossSimSetup aimCrossIntersectionSimulator = new AIMCrossSimSetup(rimSimSetupPanel.getAimSimSetup());
-                    aimCrossIntersectionSimulator.setSpeedLimit(LANE_SPEED_LIMIT);
-                    aimCrossIntersectionSimulator.setStopDistBeforeIntersection(STOP_DISTANCE);
-                    aimCrossIntersectionSimulator.setNumOfColumns(1);
-                    aimCrossIntersectionSimulator.setNumOfRows(1);
-                    aimCrossIntersectionSimulator.setLanesPerRoad(laneNum);
-                    aimCrossIntersectionSimulator.setUploadTrafficSchedule(uploadTrafficSchedule);
-
-                    // Set up AIM Cross Optimal Intersection Simulator
-                    AIMCrossOptimalSimSetup aimCrossOptimalIntersectionSimulator = new AIMCrossOptimalSimSetup(rimSimSetupPanel.getAimSimSetup());
-                    aimCrossOptimalIntersectionSimulator.setSpeedLimit(LANE_SPEED_LIMIT);
-                    aimCrossOptimalIntersectionSimulator.setStopDistBeforeIntersection(STOP_DISTANCE);
-                    aimCrossOptimalIntersectionSimulator.setNumOfColumns(1);
-                    aimCrossOptimalIntersectionSimulator.setNumOfRows(1);
-                    aimCrossOptimalIntersectionSimulator.setLanesPerRoad(laneNum);
-                    aimCrossOptimalIntersectionSimulator.setUploadTrafficSchedule(uploadTrafficSchedule);
-                    
-                    //Run the rim simulator and store the result
-                    Simulator rimSimSetup = rimProtocolSimSetup.getSimulator();
-                    while (rimSimSetup.getSimulationTime() < (TIME_LIMIT)) {
-                        rimSimSetup.step(SimConfig.TIME_STEP);
-                    }
-                    Result result = ((AutoDriverOnlySimulator) rimSimSetup).produceResult();
-                    int numOfVehiclesWhichCouldNotBeSpawned = ((AutoDriverOnlySimulator) rimSimSetup).getNumOfVehiclesWhichCouldNotBeSpawned();
-                    int numOfVehiclesSpawned = ((AutoDriverOnlySimulator) rimSimSetup).getNumOfVehiclesSpawned();
-
-                    //Run the rim Optimal simulator and store the results
-                    Simulator optimalSimSetup = rimOptimalProtocolSimSetup.getSimulator();
-                    while (optimalSimSetup.getSimulationTime() < (TIME_LIMIT)) {
-                        optimalSimSetup.step(SimConfig.TIME_STEP);
-                    }
-                    Result optimalResult = ((RIMOptimalSimulator) optimalSimSetup).produceResult();
-                    int optimalNumOfVehiclesWhichCouldNotBeSpawned = ((RIMOptimalSimulator) optimalSimSetup).getNoOfVehiclesWhichCouldNotBeSpawned();
-                    int optimalNumOfVehiclesSpawned = ((RIMOptimalSimulator) optimalSimSetup).getNumOfVehiclesSpawned();
-                    
-//                  //Run AIM Cross simulator
-//                    Simulator aimCrossSimSetup = aimCrossIntersectionSimulator.getSimulator();
-//                    while (aimCrossSimSetup.getSimulationTime() < (TIME_LIMIT)) {
-//                        aimCrossSimSetup.step(SimConfig.TIME_STEP);
-//                    }
-//                    Result result = ((aim4.sim.simulator.aim.AutoDriverOnlySimulator) aimCrossSimSetup).produceResult();
-//                    int numOfVehiclesWhichCouldNotBeSpawned = ((aim4.sim.simulator.aim.AutoDriverOnlySimulator) aimCrossSimSetup).getNumOfVehiclesWhichCouldNotBeSpawned();
-//                    int numOfVehiclesSpawned = ((aim4.sim.simulator.aim.AutoDriverOnlySimulator) aimCrossSimSetup).getNumOfVehiclesSpawned();
-//
-//                    //Run AIM Cross optimal simulator
-//                    Simulator aimCrossOptimalSimSetup = aimCrossOptimalIntersectionSimulator.getSimulator();
-//                    while (aimCrossOptimalSimSetup.getSimulationTime() < (TIME_LIMIT)) {
-//                        aimCrossOptimalSimSetup.step(SimConfig.TIME_STEP);
-//                    }
-//                    Result optimalResult = ((AIMOptimalSimulator) aimCrossOptimalSimSetup).produceResult();
-//                    int optimalNumOfVehiclesWhichCouldNotBeSpawned = ((AIMOptimalSimulator) aimCrossOptimalSimSetup).getNumOfVehiclesWhichCouldNotBeSpawned();
-//                    int optimalNumOfVehiclesSpawned = ((AIMOptimalSimulator) aimCrossOptimalSimSetup).getNumOfVehiclesSpawned();
-                    
-
-                    // Combine the results in one csv
-                    Result combinedResult = new Result(null);
-                    String combinedCsv = combinedResult.produceRIMVsRIMOptimalCSVString(
-                            "RIM",
-                            result,
-                            numOfVehiclesWhichCouldNotBeSpawned,
-                            numOfVehiclesSpawned,
-                            "RIM-Optimal",
-                            optimalResult,
-                            optimalNumOfVehiclesWhichCouldNotBeSpawned,
-                            optimalNumOfVehiclesSpawned);
-                    List<String> csvResultAsList = new ArrayList<String>();
-                    csvResultAsList.add(combinedCsv);
-
-                    //Save
-                    final JFileChooser fc = new JFileChooser();
-                    fc.setSelectedFile(new File("C:\\Users\\Caleb\\Documents\\Uni\\Project\\Results\\Double_Lane\\New_Geometry\\Granularity8\\65m\\" +
-                    		laneNumString + "lane" + 
-                    		Integer.toString(VOLUMES[trafficVolumeIndex]) + "veh_lane_hour" +
-                            "_" + Double.toString(roundaboutDiameterArray[roundaboutDiameterIndex]) +
-                            "m_" + Double.toString(LANE_SPEED_LIMIT) + "ls_" + Double.toString(roundaboutSpeedLimit) + "s_1800.0s_unbalanced" + "_" +
-                            Integer.toString(repetition)+ ".csv"));
-                    File file = fc.getSelectedFile();
-                    try {
-                        Files.write(Paths.get(file.getAbsolutePath()), csvResultAsList, Charset.forName("UTF-8"));
-                    } catch (IOException e1) {
-                        //nothing
-                    }
-
-                    //Append to final overall csv
-                    sb.append(Integer.toString(VOLUMES[trafficVolumeIndex]));
-                    sb.append(',');
-                    sb.append(Integer.toString(repetition));
-                    sb.append(',');
-                    sb.append(calculateAverageDelay(result.getVehicleResults(), result, optimalResult));
-                    sb.append('\n');
-                }
-            }
-            String finalCSV = sb.toString();
-            List<String> csvResultAsList = new ArrayList<String>();
-            csvResultAsList.add(finalCSV);
-
-            //Save the overall csv
-            final JFileChooser fc = new JFileChooser();
-            fc.setSelectedFile(new File("C:\\Users\\Caleb\\Documents\\Uni\\Project\\Results\\Double_Lane\\New_Geometry\\Granularity8\\" +
-            		laneNumString + "lane" + 
-            		Double.toString(roundaboutDiameterArray[roundaboutDiameterIndex]) +
-                    "m_"+Double.toString(LANE_SPEED_LIMIT)+"ls_"+Double.toString(roundaboutSpeedLimit)+"rs_1800.0s_unbalanced" + ".csv"));
-            File file = fc.getSelectedFile();
-            try {
-                Files.write(Paths.get(file.getAbsolutePath()), csvResultAsList, Charset.forName("UTF-8"));
-            } catch (IOException e1) {
-                //nothing
-            }
-
-        }
-
+    public void chooseDiameterSimulations_withTrafficVolumesCsv_savesJCSVs() throws IOException {
+        SweepSpec spec = SweepSpec.load(Paths.get("sweeps", "RIM_CHOOSE_DIAMETER.json").toFile());
+        new BatchRunner(spec, Paths.get("results").toFile(), Runtime.getRuntime().availableProcessors()).run();
     }
 
     @Ignore
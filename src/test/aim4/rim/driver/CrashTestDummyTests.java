@@ -1,6 +1,5 @@
 package aim4.rim.driver;
 
-import aim4.config.Debug;
 import aim4.config.SimConfig;
 import aim4.driver.Driver;
 import aim4.driver.rim.CrashTestDummy;
@@ -9,6 +8,7 @@ import aim4.map.lane.ArcSegmentLane;
 import aim4.map.lane.Lane;
 import aim4.map.rim.RimIntersectionMap;
 import aim4.msg.rim.v2i.Request;
+import aim4.sim.SimulationContext;
 import aim4.vehicle.VehicleSpec;
 import aim4.vehicle.VehicleSpecDatabase;
 import aim4.vehicle.aim.AIMBasicAutoVehicle;
@@ -34,8 +34,8 @@ public class CrashTestDummyTests {
     public void act_withArrivalEastAndDepartureEast_setsCurrentLaneAndSteering(){
         //arrange
         Query query = setupQuery(0,0);
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getDepartureLaneId());
         AIMBasicAutoVehicle testVehicle =
                 createTestVehicle(query.getSpec(),
                         query.getArrivalVelocity(),
@@ -56,8 +56,8 @@ public class CrashTestDummyTests {
     public void act_withArrivalEastAndDepartureSouth_setsCurrentLaneAndSteering(){
         //arrange
         Query query = setupQuery(0,3);
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getDepartureLaneId());
         AIMBasicAutoVehicle testVehicle =
                 createTestVehicle(query.getSpec(),
                         query.getArrivalVelocity(),
@@ -78,8 +78,8 @@ public class CrashTestDummyTests {
     public void act_withArrivalEastAndDepartureNorth_setsCurrentLaneAndSteering(){
         //arrange
         Query query = setupQuery(0,2);
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getDepartureLaneId());
         AIMBasicAutoVehicle testVehicle =
                 createTestVehicle(query.getSpec(),
                         query.getArrivalVelocity(),
@@ -100,8 +100,8 @@ public class CrashTestDummyTests {
     public void act_withArrivalNorthAndDepartureEast_setsCurrentLaneAndSteering(){
         //arrange
         Query query = setupQuery(2,0);
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getDepartureLaneId());
         AIMBasicAutoVehicle testVehicle =
                 createTestVehicle(query.getSpec(),
                         query.getArrivalVelocity(),
@@ -122,8 +122,8 @@ public class CrashTestDummyTests {
     public void act_withArrivalNorthAndDepartureNorth_setsCurrentLaneAndSteering(){
         //arrange
         Query query = setupQuery(2,2);
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getDepartureLaneId());
         AIMBasicAutoVehicle testVehicle =
                 createTestVehicle(query.getSpec(),
                         query.getArrivalVelocity(),
@@ -143,8 +143,8 @@ public class CrashTestDummyTests {
     public void act_withArrivalNorthAndDepartureWest_setsCurrentLaneAndSteering(){
         //arrange
         Query query = setupQuery(2,1);
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getDepartureLaneId());
         AIMBasicAutoVehicle testVehicle =
                 createTestVehicle(query.getSpec(),
                         query.getArrivalVelocity(),
@@ -165,8 +165,8 @@ public class CrashTestDummyTests {
     public void act_withArrivalWestAndDepartureWest_setsCurrentLaneAndSteering(){
         //arrange
         Query query = setupQuery(1,1);
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getDepartureLaneId());
         AIMBasicAutoVehicle testVehicle =
                 createTestVehicle(query.getSpec(),
                         query.getArrivalVelocity(),
@@ -186,8 +186,8 @@ public class CrashTestDummyTests {
     public void act_withArrivalWestAndDepartureNorth_setsCurrentLaneAndSteering(){
         //arrange
         Query query = setupQuery(1,2);
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getDepartureLaneId());
         AIMBasicAutoVehicle testVehicle =
                 createTestVehicle(query.getSpec(),
                         query.getArrivalVelocity(),
@@ -207,8 +207,8 @@ public class CrashTestDummyTests {
     public void act_withArrivalWestAndDepartureSouth_setsCurrentLaneAndSteering(){
         //arrange
         Query query = setupQuery(1,3);
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getDepartureLaneId());
         AIMBasicAutoVehicle testVehicle =
                 createTestVehicle(query.getSpec(),
                         query.getArrivalVelocity(),
@@ -229,8 +229,8 @@ public class CrashTestDummyTests {
     public void act_withArrivalSouthAndDepartureSouth_setsCurrentLaneAndSteering(){
         //arrange
         Query query = setupQuery(3,3);
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getDepartureLaneId());
         AIMBasicAutoVehicle testVehicle =
                 createTestVehicle(query.getSpec(),
                         query.getArrivalVelocity(),
@@ -251,8 +251,8 @@ public class CrashTestDummyTests {
     public void act_withArrivalSouthAndDepartureEast_setsCurrentLaneAndSteering(){
         //arrange
         Query query = setupQuery(3,0);
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getDepartureLaneId());
         AIMBasicAutoVehicle testVehicle =
                 createTestVehicle(query.getSpec(),
                         query.getArrivalVelocity(),
@@ -272,8 +272,8 @@ public class CrashTestDummyTests {
     public void act_withArrivalSouthAndDepartureWest_setsCurrentLaneAndSteering(){
         //arrange
         Query query = setupQuery(3,1);
-        ArcSegmentLane arrivalLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getArrivalLaneId());
-        ArcSegmentLane departureLane = (ArcSegmentLane) Debug.currentRimMap.getLaneRegistry().get(query.getDepartureLaneId());
+        ArcSegmentLane arrivalLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getArrivalLaneId());
+        ArcSegmentLane departureLane = (ArcSegmentLane) SimulationContext.current().getRimMap().getLaneRegistry().get(query.getDepartureLaneId());
         AIMBasicAutoVehicle testVehicle =
                 createTestVehicle(query.getSpec(),
                         query.getArrivalVelocity(),
@@ -1,12 +1,12 @@
 package aim4.rim.im;
 
-import aim4.config.Debug;
 import aim4.im.rim.IntersectionManager;
 import aim4.im.rim.RoadBasedIntersection;
 import aim4.im.rim.RoadBasedTrackModel;
 import aim4.map.Road;
 import aim4.map.lane.ArcSegmentLane;
 import aim4.map.rim.RimIntersectionMap;
+import aim4.sim.SimulationContext;
 import aim4.util.ArrayListRegistry;
 import aim4.util.Registry;
 import org.junit.Test;
@@ -127,18 +127,18 @@ public class IntersectionManagerTests {
                 0);
     }
     private Road getNorthRoad(){
-        return Debug.currentRimMap.getRoads().get(2);
+        return SimulationContext.current().getRimMap().getRoads().get(2);
     }
 
     private Road getEastRoad(){
-        return Debug.currentRimMap.getRoads().get(0);
+        return SimulationContext.current().getRimMap().getRoads().get(0);
     }
 
     private Road getSouthRoad(){
-        return Debug.currentRimMap.getRoads().get(3);
+        return SimulationContext.current().getRimMap().getRoads().get(3);
     }
 
     private Road getWestRoad(){
-        return Debug.currentRimMap.getRoads().get(1);
+        return SimulationContext.current().getRimMap().getRoads().get(1);
     }
 }
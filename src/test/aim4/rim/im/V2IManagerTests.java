@@ -1,6 +1,5 @@
 package aim4.rim.im;
 
-import aim4.config.Debug;
 import aim4.config.SimConfig;
 import aim4.im.rim.RoadBasedIntersection;
 import aim4.im.rim.RoadBasedTrackModel;
@@ -19,6 +18,7 @@ import aim4.msg.rim.v2i.Cancel;
 import aim4.msg.rim.v2i.Request;
 import aim4.msg.rim.v2i.Request.Proposal;
 import aim4.msg.rim.v2i.Request.VehicleSpecForRequestMsg;
+import aim4.sim.SimulationContext;
 import aim4.util.ArrayListRegistry;
 import aim4.vehicle.VehicleSpecDatabase;
 import org.junit.Test;
@@ -701,17 +701,17 @@ public class V2IManagerTests {
                 GRANULARITY);
     }
 
-    private Road getNorthRoad(){ return Debug.currentRimMap.getRoads().get(2); }
+    private Road getNorthRoad(){ return SimulationContext.current().getRimMap().getRoads().get(2); }
 
     private Road getEastRoad(){
-        return Debug.currentRimMap.getRoads().get(0);
+        return SimulationContext.current().getRimMap().getRoads().get(0);
     }
 
     private Road getSouthRoad(){
-        return Debug.currentRimMap.getRoads().get(3);
+        return SimulationContext.current().getRimMap().getRoads().get(3);
     }
 
     private Road getWestRoad(){
-        return Debug.currentRimMap.getRoads().get(1);
+        return SimulationContext.current().getRimMap().getRoads().get(1);
     }
 }
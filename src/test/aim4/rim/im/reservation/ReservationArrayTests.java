@@ -0,0 +1,163 @@
+package aim4.rim.im.reservation;
+
+import aim4.im.rim.v2i.reservation.ReservationArray;
+import aim4.im.rim.v2i.reservation.ReservationArray.TimeTile;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReservationArrayTests {
+    private static final int NUMBER_OF_TILES = 16;
+    private static final int VIN = 1;
+    private static final int OTHER_VIN = 2;
+
+    @Test
+    public void reserve_withFreeTimeTiles_reservesAllTimeTiles() {
+        //arrange
+        ReservationArray reservationArray = new ReservationArray(NUMBER_OF_TILES);
+
+        //act
+        boolean reserved = reservationArray.reserve(VIN, Arrays.asList(
+                new TimeTile(10, 3), new TimeTile(11, 4), new TimeTile(12, 5)));
+
+        //assert
+        assertTrue(reserved);
+        assertTrue(reservationArray.isReserved(10, 3));
+        assertTrue(reservationArray.isReserved(11, 4));
+        assertTrue(reservationArray.isReserved(12, 5));
+        assertFalse(reservationArray.isReserved(10, 4));
+        assertEquals(VIN, reservationArray.getReservationId(11, 4));
+        assertEquals(12, reservationArray.getLastReservedDiscreteTime());
+        assertEquals(12, reservationArray.getLastReservedDiscreteTime(VIN));
+        assertTrue(reservationArray.hasReservation(VIN));
+    }
+
+    @Test
+    public void reserve_withReservedTimeTile_reservesNothing() {
+        //arrange
+        ReservationArray reservationArray = new ReservationArray(NUMBER_OF_TILES);
+        reservationArray.reserve(VIN, Arrays.asList(new TimeTile(10, 3)));
+
+        //act
+        boolean reserved = reservationArray.reserve(OTHER_VIN, Arrays.asList(
+                new TimeTile(9, 3), new TimeTile(10, 3)));
+
+        //assert
+        assertFalse(reserved);
+        assertFalse(reservationArray.isReserved(9, 3));
+        assertEquals(VIN, reservationArray.getReservationId(10, 3));
+        assertFalse(reservationArray.hasReservation(OTHER_VIN));
+    }
+
+    @Test
+    public void reserve_withTimeTileBeforeFirstReservedTime_ignoresTimeTile() {
+        //arrange
+        ReservationArray reservationArray = new ReservationArray(NUMBER_OF_TILES);
+        reservationArray.reserve(VIN, Arrays.asList(new TimeTile(10, 3)));
+
+        //act
+        boolean reserved = reservationArray.reserve(OTHER_VIN, Arrays.asList(
+                new TimeTile(5, 3), new TimeTile(15, 3)));
+
+        //assert
+        assertTrue(reserved);
+        assertFalse(reservationArray.isReserved(5, 3));
+        assertTrue(reservationArray.isReserved(15, 3));
+    }
+
+    @Test
+    public void reserve_withTimeWindowLongerThanRing_growsRing() {
+        //arrange
+        ReservationArray reservationArray = new ReservationArray(NUMBER_OF_TILES);
+        List<TimeTile> workingList = new ArrayList<TimeTile>();
+        for (int dt = 100; dt < 2100; dt++) {
+            workingList.add(new TimeTile(dt, dt % NUMBER_OF_TILES));
+        }
+
+        //act
+        boolean reserved = reservationArray.reserve(VIN, workingList);
+
+        //assert
+        assertTrue(reserved);
+        for (int dt = 100; dt < 2100; dt++) {
+            assertTrue(reservationArray.isReserved(dt, dt % NUMBER_OF_TILES));
+            assertFalse(reservationArray.isReserved(dt, (dt + 1) % NUMBER_OF_TILES));
+        }
+        assertEquals(2099, reservationArray.getLastReservedDiscreteTime());
+    }
+
+    @Test
+    public void cancel_withExistingReservation_freesTimeTiles() {
+        //arrange
+        ReservationArray reservationArray = new ReservationArray(NUMBER_OF_TILES);
+        reservationArray.reserve(VIN, Arrays.asList(new TimeTile(10, 3), new TimeTile(11, 4)));
+        reservationArray.reserve(OTHER_VIN, Arrays.asList(new TimeTile(10, 4)));
+
+        //act
+        boolean cancelled = reservationArray.cancel(VIN);
+
+        //assert
+        assertTrue(cancelled);
+        assertFalse(reservationArray.isReserved(10, 3));
+        assertFalse(reservationArray.isReserved(11, 4));
+        assertTrue(reservationArray.isReserved(10, 4));
+        assertFalse(reservationArray.hasReservation(VIN));
+        assertFalse(reservationArray.cancel(VIN));
+    }
+
+    @Test
+    public void cleanUp_withReservationsBeforeTime_removesOnlyThoseReservations() {
+        //arrange
+        ReservationArray reservationArray = new ReservationArray(NUMBER_OF_TILES);
+        reservationArray.reserve(VIN, Arrays.asList(new TimeTile(10, 3), new TimeTile(11, 3)));
+        reservationArray.reserve(OTHER_VIN, Arrays.asList(new TimeTile(20, 3), new TimeTile(21, 3)));
+
+        //act
+        reservationArray.cleanUp(15);
+
+        //assert
+        assertFalse(reservationArray.isReserved(10, 3));
+        assertFalse(reservationArray.isReserved(11, 3));
+        assertTrue(reservationArray.isReserved(20, 3));
+        assertFalse(reservationArray.hasReservation(VIN));
+        assertTrue(reservationArray.hasReservation(OTHER_VIN));
+        assertEquals(21, reservationArray.getLastReservedDiscreteTime());
+    }
+
+    @Test
+    public void cleanUp_withAllReservationsBeforeTime_emptiesArray() {
+        //arrange
+        ReservationArray reservationArray = new ReservationArray(NUMBER_OF_TILES);
+        reservationArray.reserve(VIN, Arrays.asList(new TimeTile(10, 3)));
+
+        //act
+        reservationArray.cleanUp(300);
+        boolean reserved = reservationArray.reserve(OTHER_VIN, Arrays.asList(new TimeTile(5, 3)));
+
+        //assert
+        assertTrue(reserved);
+        assertTrue(reservationArray.isReserved(5, 3));
+        assertFalse(reservationArray.isReserved(10, 3));
+        assertEquals(5, reservationArray.getLastReservedDiscreteTime());
+    }
+
+    @Test
+    public void getReservedTilesAtTime_withReservations_returnsReservedTilesAndVins() {
+        //arrange
+        ReservationArray reservationArray = new ReservationArray(NUMBER_OF_TILES);
+        reservationArray.reserve(VIN, Arrays.asList(new TimeTile(10, 3), new TimeTile(10, 4)));
+        reservationArray.reserve(OTHER_VIN, Arrays.asList(new TimeTile(10, 7)));
+
+        //act
+        List<Integer> tiles = reservationArray.getReservedTilesAtTime(10);
+
+        //assert
+        assertEquals(Arrays.asList(3, 4, 7), tiles);
+        assertEquals(2, reservationArray.getVinOfReservedTilesAtTime(10).size());
+        assertTrue(reservationArray.getReservedTilesAtTime(11).isEmpty());
+    }
+}
@@ -1,6 +1,5 @@
 package aim4.rim.im.reservation;
 
-import aim4.config.Debug;
 import aim4.config.SimConfig;
 import aim4.im.rim.RoadBasedIntersection;
 import aim4.im.rim.v2i.reservation.ReservationGrid;
@@ -11,6 +10,7 @@ import aim4.map.lane.Lane;
 import aim4.map.rim.RimIntersectionMap;
 import aim4.msg.rim.v2i.Request;
 import aim4.msg.rim.v2i.Request.VehicleSpecForRequestMsg;
+import aim4.sim.SimulationContext;
 import aim4.util.TiledRimArea;
 import aim4.vehicle.VehicleSpecDatabase;
 import org.junit.Test;
@@ -820,17 +820,17 @@ public class ReservationGridManagerTests {
                     0);
     }
 
-    private Road getNorthRoad(){ return Debug.currentRimMap.getRoads().get(2); }
+    private Road getNorthRoad(){ return SimulationContext.current().getRimMap().getRoads().get(2); }
 
     private Road getEastRoad(){
-        return Debug.currentRimMap.getRoads().get(0);
+        return SimulationContext.current().getRimMap().getRoads().get(0);
     }
 
     private Road getSouthRoad(){
-        return Debug.currentRimMap.getRoads().get(3);
+        return SimulationContext.current().getRimMap().getRoads().get(3);
     }
 
     private Road getWestRoad(){
-        return Debug.currentRimMap.getRoads().get(1);
+        return SimulationContext.current().getRimMap().getRoads().get(1);
     }
 }
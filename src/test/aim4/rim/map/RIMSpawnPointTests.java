@@ -1,10 +1,10 @@
 package aim4.rim.map;
 
-import aim4.config.Debug;
 import aim4.config.SimConfig;
 import aim4.im.rim.v2i.reservation.ReservationGridManager;
 import aim4.map.Road;
 import aim4.map.rim.RimIntersectionMap;
+import aim4.sim.SimulationContext;
 import org.junit.Test;
 
 import java.util.Arrays;
@@ -58,17 +58,17 @@ public class RIMSpawnPointTests {
                 GRANULARITY);
     }
 
-    private Road getNorthRoad(){ return Debug.currentRimMap.getRoads().get(2); }
+    private Road getNorthRoad(){ return SimulationContext.current().getRimMap().getRoads().get(2); }
 
     private Road getEastRoad(){
-        return Debug.currentRimMap.getRoads().get(0);
+        return SimulationContext.current().getRimMap().getRoads().get(0);
     }
 
     private Road getSouthRoad(){
-        return Debug.currentRimMap.getRoads().get(3);
+        return SimulationContext.current().getRimMap().getRoads().get(3);
     }
 
     private Road getWestRoad(){
-        return Debug.currentRimMap.getRoads().get(1);
+        return SimulationContext.current().getRimMap().getRoads().get(1);
     }
 }
@@ -1,6 +1,5 @@
 package aim4.rim.vehicle;
 
-import aim4.config.Debug;
 import aim4.im.rim.IntersectionManager;
 import aim4.im.rim.RoadBasedIntersection;
 import aim4.im.rim.RoadBasedTrackModel;
@@ -8,6 +7,7 @@ import aim4.im.rim.TrackModel;
 import aim4.map.Road;
 import aim4.map.lane.Lane;
 import aim4.map.rim.RimIntersectionMap;
+import aim4.sim.SimulationContext;
 import aim4.util.ArrayListRegistry;
 import aim4.util.Registry;
 import aim4.vehicle.VehicleSpec;
@@ -606,17 +606,17 @@ public class VehicleUtilTests {
                 0);
     }
 
-    private Road getNorthRoad(){ return Debug.currentRimMap.getRoads().get(2); }
+    private Road getNorthRoad(){ return SimulationContext.current().getRimMap().getRoads().get(2); }
 
     private Road getEastRoad(){
-        return Debug.currentRimMap.getRoads().get(0);
+        return SimulationContext.current().getRimMap().getRoads().get(0);
     }
 
     private Road getSouthRoad(){
-        return Debug.currentRimMap.getRoads().get(3);
+        return SimulationContext.current().getRimMap().getRoads().get(3);
     }
 
     private Road getWestRoad(){
-        return Debug.currentRimMap.getRoads().get(1);
+        return SimulationContext.current().getRimMap().getRoads().get(1);
     }
 }
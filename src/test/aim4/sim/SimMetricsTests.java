@@ -0,0 +1,106 @@
+package aim4.sim;
+
+import aim4.cli.HeadlessMain;
+import aim4.cli.SimOptions;
+import aim4.im.RequestStats;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SimMetricsTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void new_afterAimSteps_timesEveryPhaseOfEveryStep() throws IOException {
+        //arrange
+        SimOptions options = SimOptions.parse(new String[]{"steps=500", "seed=1"});
+
+        //act
+        SimMetrics metrics = new SimMetrics(HeadlessMain.run(options));
+
+        //assert
+        List<String> phases = new ArrayList<String>();
+        for (SimMetrics.PhaseMetrics p : metrics.getPhases()) {
+            phases.add(p.getPhase());
+            assertEquals(500, p.getCount());
+        }
+        assertEquals(Arrays.asList(StepPhaseTimer.SPAWN, StepPhaseTimer.SENSOR,
+                                   StepPhaseTimer.DRIVERS,
+                                   StepPhaseTimer.INTERSECTION_MANAGERS,
+                                   StepPhaseTimer.COMMUNICATION, StepPhaseTimer.MOVE,
+                                   StepPhaseTimer.COLLISION, StepPhaseTimer.CLEAN_UP),
+                     phases);
+    }
+
+    @Test
+    public void new_afterAimSteps_countsTheRequestsOfTheIntersectionManager() throws IOException {
+        //arrange
+        SimOptions options = SimOptions.parse(new String[]{"steps=500", "seed=1"});
+
+        //act
+        SimMetrics metrics = new SimMetrics(HeadlessMain.run(options));
+
+        //assert
+        assertEquals(1, metrics.getManagers().size());
+        SimMetrics.ManagerMetrics im = metrics.getManagers().get(0);
+        RequestStats stats = im.getRequestStats();
+        assertTrue(stats.getRequests() > 0);
+        assertEquals(stats.getRequests(), stats.getAccepted() + stats.getRejected());
+        assertTrue(stats.getQueries() > 0);
+        assertTrue(im.getMessagesReceived() >= stats.getRequests());
+        assertTrue(im.getBitsTransmitted() > 0);
+    }
+
+    @Test
+    public void run_withJsonMetrics_writesASnapshotEveryInterval()
+            throws IOException, ParseException {
+        //arrange
+        File metrics = new File(folder.getRoot(), "metrics.json");
+        SimOptions options = SimOptions.parse(new String[]{
+                "steps=100", "seed=1", "metrics=" + metrics, "metricsInterval=0.5"});
+
+        //act
+        HeadlessMain.run(options);
+
+        //assert
+        List<String> lines = Files.readAllLines(metrics.toPath(), Charset.forName("UTF-8"));
+        assertEquals(4, lines.size());
+        JSONObject last = (JSONObject) new JSONParser().parse(lines.get(3));
+        assertEquals(2.0, (Double) last.get("time"), 1e-9);
+        JSONObject spawn = (JSONObject) ((JSONObject) last.get("phases"))
+                .get(StepPhaseTimer.SPAWN);
+        assertEquals(100L, spawn.get("count"));
+    }
+
+    @Test
+    public void getLatencyPercentile_withRecordedQueries_returnsUpperEndOfBucket() {
+        //arrange
+        RequestStats stats = new RequestStats();
+
+        //act
+        for (int i = 0; i < 99; i++) {
+            stats.recordQuery(1500);      // 1.5 us, bucket 0
+        }
+        stats.recordQuery(5000000);       // 5 ms, bucket 12
+
+        //assert
+        assertEquals(2e-6, stats.getLatencyPercentile(0.5), 1e-12);
+        assertEquals(2e-6, stats.getLatencyPercentile(0.99), 1e-12);
+        assertEquals(8.192e-3, stats.getLatencyPercentile(1.0), 1e-12);
+    }
+}
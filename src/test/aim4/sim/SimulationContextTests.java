@@ -0,0 +1,104 @@
+package aim4.sim;
+
+import aim4.config.SimConfig;
+import aim4.sim.setup.aim.AutoDriverOnlySimSetup;
+import aim4.sim.simulator.aim.AIMSimulator;
+import aim4.vehicle.VehicleSpec;
+import aim4.vehicle.VehicleSpecDatabase;
+import aim4.vehicle.aim.AIMVehicleSimModel;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SimulationContextTests {
+    private static final double SIMULATION_TIME = 30.0;
+
+    @Test
+    public void current_insideRun_returnsBoundContextAndRestoresDefault() {
+        //arrange
+        SimulationContext context = new SimulationContext(1);
+        SimulationContext[] seen = new SimulationContext[1];
+
+        //act
+        context.run(() -> seen[0] = SimulationContext.current());
+
+        //assert
+        assertSame(context, seen[0]);
+        assertSame(SimulationContext.getDefault(), SimulationContext.current());
+    }
+
+    @Test
+    public void registerSpec_inContext_isNotSeenByOtherContexts() {
+        //arrange
+        SimulationContext context = new SimulationContext(1);
+        VehicleSpec spec = new VehicleSpec("TEST_CONTEXT_SPEC", 1, -1, 10, -1, 4, 2, 1, 3, 0.8, 0.3, 0.25, 1, 1);
+
+        //act
+        context.run(() -> VehicleSpecDatabase.registerSpec(spec));
+
+        //assert
+        assertSame(spec, context.call(() -> VehicleSpecDatabase.getVehicleSpecByName("TEST_CONTEXT_SPEC")));
+        assertNull(VehicleSpecDatabase.getVehicleSpecByName("TEST_CONTEXT_SPEC"));
+        assertEquals(VehicleSpecDatabase.getNumOfSpec() + 1,
+                (int) context.call(VehicleSpecDatabase::getNumOfSpec));
+    }
+
+    @Test
+    public void getSimulator_withConcurrentContexts_matchesSerialRuns() throws Exception {
+        //arrange
+        String serial1 = runSimulation(2);
+        String serial2 = runSimulation(3);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //act
+        List<Future<String>> futures = new ArrayList<Future<String>>();
+        for (final long seed : new long[]{2, 3, 2, 3}) {
+            futures.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return runSimulation(seed);
+                }
+            }));
+        }
+        List<String> results = new ArrayList<String>();
+        for (Future<String> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+
+        //assert
+        assertEquals(serial1, results.get(0));
+        assertEquals(serial2, results.get(1));
+        assertEquals(serial1, results.get(2));
+        assertEquals(serial2, results.get(3));
+    }
+
+    private String runSimulation(long seed) {
+        AutoDriverOnlySimSetup setup = new AutoDriverOnlySimSetup(1, 1, 4, 25, 1, 0, 150, 0.28, 1);
+        setup.setUniformRandomTraffic(0.3);
+        SimulationContext context = new SimulationContext(seed);
+        AIMSimulator sim = (AIMSimulator) setup.getSimulator(context);
+        assertNotSame(SimulationContext.getDefault().getAimMap(), sim.getMap());
+        while (sim.getSimulationTime() < SIMULATION_TIME) {
+            sim.step(SimConfig.TIME_STEP);
+        }
+        Map<Integer, Point2D> positions = new TreeMap<Integer, Point2D>();
+        for (AIMVehicleSimModel vehicle : sim.getActiveVehicles()) {
+            positions.put(vehicle.getVIN(), vehicle.getPosition());
+        }
+        return positions + " " + sim.getNumCompletedVehicles();
+    }
+}
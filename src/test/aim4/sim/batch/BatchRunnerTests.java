@@ -0,0 +1,180 @@
+package aim4.sim.batch;
+
+import aim4.sim.SimulationContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchRunnerTests {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void run_withGrid_writesRunFilesAndGlobalRowsWithMeans() throws IOException {
+        //arrange
+        File results = folder.getRoot();
+        BatchRunner runner = new BatchRunner(createSpec(3), new FakeExperiment(0), results, 4);
+
+        //act
+        int runs = runner.run();
+
+        //assert
+        assertEquals(12, runs);
+        assertTrue(Files.exists(results.toPath().resolve("FAKE/100_10/FAKE_100_10_3.csv")));
+        assertFalse(Files.exists(results.toPath().resolve("FAKE/200_20/FAKE_200_20_2.csv")));
+        List<String> lines = Files.readAllLines(runner.getGlobalResultsFile(), UTF8);
+        assertEquals("merge,target,Run,Sum,Run Number", lines.get(0));
+        assertEquals(1 + 12 + 4, lines.size());
+        assertTrue(lines.contains("100,10,MEAN ROW,110.0,2.0"));
+        assertTrue(lines.contains("200,20,2,FAILED TO COMPLETE AFTER 50.0 SECONDS"));
+        assertTrue(lines.contains("200,20,MEAN ROW,220.0,2.0"));
+    }
+
+    @Test
+    public void run_afterCrash_skipsCompletedRuns() throws IOException {
+        //arrange
+        File results = folder.getRoot();
+        SweepSpec spec = createSpec(3);
+        try {
+            new BatchRunner(spec, new FakeExperiment(3), results, 1).run();
+            fail("the crashing run should abort the sweep");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        BatchRunner runner = new BatchRunner(spec, new FakeExperiment(0), results, 2);
+        int completedBefore = Files.readAllLines(runner.getGlobalResultsFile(), UTF8).size() - 1;
+        Files.write(runner.getGlobalResultsFile(), "100,20,3,12".getBytes(UTF8),
+                    StandardOpenOption.APPEND);
+
+        //act
+        int runs = runner.run();
+
+        //assert
+        assertEquals(2, completedBefore);
+        assertEquals(10, runs);
+        List<String> lines = Files.readAllLines(runner.getGlobalResultsFile(), UTF8);
+        assertEquals(1 + 12 + 4, lines.size());
+        assertEquals(1, Collections.frequency(lines, "100,10,1,110.0,1"));
+        assertEquals(1, Collections.frequency(lines, "100,20,3,120.0,3"));
+        assertEquals(0, runner.run());
+    }
+
+    @Test(expected = IOException.class)
+    public void run_withResultsOfDifferentSweep_throwsIOException() throws IOException {
+        //arrange
+        File results = folder.getRoot();
+        new BatchRunner(createSpec(1), new FakeExperiment(0), results, 1).run();
+        Map<String, double[]> parameters = new LinkedHashMap<String, double[]>();
+        parameters.put("angle", new double[]{45});
+        SweepSpec other = new SweepSpec("FAKE", ExperimentType.S2S_MERGE, 1, 50, 1,
+                parameters, Collections.<String, String>emptyMap(),
+                Collections.<String, String>emptyMap());
+
+        //act
+        new BatchRunner(other, new FakeExperiment(0), results, 1).run();
+    }
+
+    @Test
+    public void run_withTurnTablesDirectory_givesItToTheContextOfEachRun() throws IOException {
+        //arrange
+        final File dir = folder.newFolder("turnTables");
+        final List<File> directories = Collections.synchronizedList(new ArrayList<File>());
+        BatchRunner runner = new BatchRunner(createSpec(1), new FakeExperiment(0) {
+            @Override
+            public BatchRunResult run(SweepCell cell, double timeLimit) {
+                directories.add(SimulationContext.current().getTurnTablesDirectory());
+                return super.run(cell, timeLimit);
+            }
+        }, folder.newFolder("results"), 2);
+        runner.setTurnTablesDirectory(dir);
+
+        //act
+        runner.run();
+
+        //assert
+        assertEquals(4, directories.size());
+        assertEquals(4, Collections.frequency(directories, dir));
+        assertNull(SimulationContext.current().getTurnTablesDirectory());
+    }
+
+    @Test
+    public void getSchedule_withTemplate_substitutesParametersSettingsAndRun() {
+        //arrange
+        Map<String, double[]> parameters = new LinkedHashMap<String, double[]>();
+        parameters.put("speed", new double[]{10, 2.5});
+        Map<String, String> settings = Collections.singletonMap("rate", "1000");
+        Map<String, String> schedules = Collections.singletonMap(
+                "target", "schedules/T_${speed}_${rate}_${run}.json");
+        SweepSpec spec = new SweepSpec("FAKE", ExperimentType.S2S_MERGE, 2, 50, 1,
+                parameters, settings, schedules);
+
+        //act
+        List<SweepCell> cells = spec.getCells();
+
+        //assert
+        assertEquals(4, cells.size());
+        assertEquals(new File("schedules/T_10_1000_1.json"), cells.get(0).getSchedule("target"));
+        assertEquals(new File("schedules/T_2.5_1000_2.json"), cells.get(3).getSchedule("target"));
+        assertEquals(1000, cells.get(3).getDouble("rate"), 0);
+    }
+
+    private SweepSpec createSpec(int repetitions) {
+        Map<String, double[]> parameters = new LinkedHashMap<String, double[]>();
+        parameters.put("merge", new double[]{100, 200});
+        parameters.put("target", new double[]{10, 20});
+        return new SweepSpec("FAKE", ExperimentType.S2S_MERGE, repetitions, 50, 1,
+                parameters, Collections.<String, String>emptyMap(),
+                Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * An experiment that sums the parameters and fails the second run of the
+     * point (200, 20).  It crashes from the given run on, if any.
+     */
+    private static class FakeExperiment implements BatchExperiment {
+        private final int crashAt;
+        private final AtomicInteger started = new AtomicInteger();
+
+        FakeExperiment(int crashAt) {
+            this.crashAt = crashAt;
+        }
+
+        @Override
+        public String getGlobalStatsCSVHeader() {
+            return "Sum,Run Number";
+        }
+
+        @Override
+        public BatchRunResult run(SweepCell cell, double timeLimit) {
+            if (crashAt > 0 && started.incrementAndGet() >= crashAt) {
+                throw new RuntimeException("crash");
+            }
+            double[] point = cell.getPoint();
+            if (point[0] == 200 && point[1] == 20 && cell.getRun() == 2) {
+                return BatchRunResult.failed();
+            }
+            return BatchRunResult.completed(cell.toString(),
+                    (point[0] + point[1]) + "," + cell.getRun());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package aim4.sim.results;
+
+import aim4.cli.HeadlessMain;
+import aim4.cli.SimOptions;
+import aim4.sim.simulator.aim.AutoDriverOnlySimulator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResultSinkTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void open_withGzippedCsv_writesHeaderAndOneRowPerVehicle() throws IOException {
+        //arrange
+        File file = new File(folder.getRoot(), "results.csv.gz");
+        ResultSink sink = ResultSinks.open(file);
+
+        //act
+        sink.vehicleCompleted(new VehicleResult(1, "SEDAN", 1.5, 9.0, 10.0, 12.0, 0.0));
+        sink.vehicleCompleted(new CoreMergeVehicleResult(2, "TARGET_ROAD", "BUS", 2.0, 12.5,
+                                                         0.75, 8.0, 9.0, 1.0, 3.0, 4.0));
+        sink.close();
+
+        //assert
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(file)), Charset.forName("UTF-8")));
+        List<String> lines = new ArrayList<String>();
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lines.add(line);
+        }
+        reader.close();
+        assertEquals(3, lines.size());
+        assertEquals(CsvResultWriter.HEADER, lines.get(0));
+        assertEquals("1,,SEDAN,1.5,9.0,,10.0,12.0,0.0", lines.get(1));
+        assertEquals("2,TARGET_ROAD,BUS,2.0,12.5,0.75,8.0,9.0,1.0", lines.get(2));
+    }
+
+    @Test
+    public void read_withSeveralBlocks_returnsWrittenResults() throws IOException {
+        //arrange
+        File file = new File(folder.getRoot(), "results.bin");
+        int n = BinaryResultWriter.BLOCK_SIZE * 2 + 10;
+        ResultSink sink = ResultSinks.open(file);
+
+        //act
+        for (int i = 0; i < n; i++) {
+            if (i % 2 == 0) {
+                sink.vehicleCompleted(new VehicleResult(i, "SEDAN", i, i + 10, 5, 6, 1));
+            } else {
+                sink.vehicleCompleted(new MergeVehicleResult(i, "MERGING_ROAD", "VAN", i, i + 20,
+                                                             0.5 * i, 5, 6, 1, 0, 0));
+            }
+        }
+        sink.close();
+        List<VehicleResult> results = BinaryResultWriter.read(file);
+
+        //assert
+        assertEquals(n, results.size());
+        for (int i = 0; i < n; i++) {
+            VehicleResult result = results.get(i);
+            assertEquals(i, result.getVin());
+            assertEquals(i, result.getStartTime(), 0);
+            if (i % 2 == 0) {
+                assertEquals("SEDAN", result.getSpecType());
+                assertNull(result.getStartingRoad());
+                assertTrue(Double.isNaN(result.getDelayTime()));
+            } else {
+                assertEquals("VAN", result.getSpecType());
+                assertEquals("MERGING_ROAD", result.getStartingRoad());
+                assertEquals(0.5 * i, result.getDelayTime(), 0);
+                assertEquals(i + 20, result.getFinishTime(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void vehicleCompleted_withResults_keepsRunningStatistics() {
+        //arrange
+        ResultStats stats = new ResultStats();
+
+        //act
+        stats.vehicleCompleted(new VehicleResult(1, "SEDAN", 0, 10, 0, 0, 0));
+        stats.vehicleCompleted(new CoreMergeVehicleResult(2, "TARGET_ROAD", "SEDAN", 5, 20,
+                                                          3, 0, 0, 0, 0, 0));
+        stats.vehicleCompleted(new CoreMergeVehicleResult(3, "TARGET_ROAD", "SEDAN", 6, 16,
+                                                          Double.MAX_VALUE, 0, 0, 0, 0, 0));
+
+        //assert
+        assertEquals(3, stats.getCompletedVehicles());
+        assertEquals(3 / 20.0, stats.getThroughput(), 1e-12);
+        assertEquals(35 / 3.0, stats.getAverageJourneyTime(), 1e-12);
+        assertEquals(15, stats.getMaxJourneyTime(), 0);
+        assertEquals(1, stats.getDelayedVehicles());
+        assertEquals(3, stats.getAverageDelay(), 0);
+        assertEquals(3, stats.getMaxDelay(), 0);
+    }
+
+    @Test
+    public void run_withResults_streamsEveryCompletedVehicle() throws IOException {
+        //arrange
+        File file = new File(folder.getRoot(), "results.bin.gz");
+        SimOptions options = SimOptions.parse(
+                new String[]{"steps=3000", "seed=1", "results=" + file});
+
+        //act
+        AutoDriverOnlySimulator sim = (AutoDriverOnlySimulator) HeadlessMain.run(options);
+
+        //assert
+        assertTrue(sim.getNumCompletedVehicles() > 0);
+        assertEquals(sim.getNumCompletedVehicles(), BinaryResultWriter.read(file).size());
+        assertEquals(0, sim.produceResult().getVehicleResults().size());
+    }
+}
@@ -0,0 +1,195 @@
+package aim4.sim.snapshot;
+
+import aim4.cli.HeadlessMain;
+import aim4.cli.SimOptions;
+import aim4.cli.SimSetups;
+import aim4.config.SimConfig;
+import aim4.sim.Simulator;
+import aim4.sim.results.ResultSinks;
+import aim4.sim.simulator.merge.MergeSimulator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SimSnapshotTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final List<String> SETUP = Arrays.asList("time=30", "seed=1");
+
+    @Test
+    public void restore_withWarmSimulator_continuesLikeTheOriginal() throws IOException {
+        //arrange
+        Simulator original = HeadlessMain.run(SimOptions.parse(toArray(SETUP)));
+        byte[] snapshot = SimSnapshot.take(original, SETUP, 1).toBytes();
+
+        //act
+        Simulator first = restore(SimSnapshot.fromBytes(snapshot));
+        Simulator second = restore(SimSnapshot.fromBytes(snapshot));
+        step(original, 1500);
+        step(first, 1500);
+        step(second, 1500);
+
+        //assert
+        assertTrue(original.getNumCompletedVehicles() > 0);
+        assertEquals(original.getSimulationTime(), first.getSimulationTime(), 0);
+        assertEquals(original.getNumCompletedVehicles(), first.getNumCompletedVehicles());
+        assertEquals(original.produceResultsCSV(), first.produceResultsCSV());
+        assertEquals(original.produceResultsCSV(), second.produceResultsCSV());
+    }
+
+    @Test
+    public void restore_withWarmMergeSimulator_continuesLikeTheOriginal() throws IOException {
+        //arrange
+        List<String> setup = Arrays.asList("type=merge", "protocol=TEST_MERGE", "time=30", "seed=1");
+        Simulator original = HeadlessMain.run(SimOptions.parse(toArray(setup)));
+        byte[] snapshot = SimSnapshot.take(original, setup, 1).toBytes();
+
+        //act
+        Simulator first = restore(SimSnapshot.fromBytes(snapshot));
+        Simulator second = restore(SimSnapshot.fromBytes(snapshot));
+        step(original, 1500);
+        step(first, 1500);
+        step(second, 1500);
+
+        //assert
+        assertTrue(original.getNumCompletedVehicles() > 0);
+        assertEquals(original.getSimulationTime(), first.getSimulationTime(), 0);
+        assertEquals(original.getNumCompletedVehicles(), first.getNumCompletedVehicles());
+        assertEquals(original.getNumCompletedVehicles(), second.getNumCompletedVehicles());
+        assertEquals(original.produceResultsCSV(), first.produceResultsCSV());
+        assertEquals(original.produceResultsCSV(), second.produceResultsCSV());
+    }
+
+    @Test
+    public void restore_withV2IMergeSimulator_savesTheSameState() throws IOException {
+        //arrange
+        List<String> setup = Arrays.asList("type=merge", "protocol=AIM_GRID", "time=4", "seed=1");
+        Simulator original = HeadlessMain.run(SimOptions.parse(toArray(setup)));
+        byte[] snapshot = SimSnapshot.take(original, setup, 1).toBytes();
+
+        //act
+        Simulator restored = restore(SimSnapshot.fromBytes(snapshot));
+
+        //assert
+        assertTrue(((MergeSimulator) original).getVinToVehicles().size() > 0);
+        assertEquals(original.getSimulationTime(), restored.getSimulationTime(), 0);
+        assertArrayEquals(snapshot, SimSnapshot.take(restored, setup, 1).toBytes());
+    }
+
+    @Test
+    public void run_withSnapshotThenRestore_continuesLikeOneRun() throws IOException {
+        //arrange
+        File file = new File(folder.getRoot(), "warm.snapshot");
+        HeadlessMain.run(SimOptions.parse(
+                new String[]{"type=rim", "steps=1000", "seed=2", "snapshot=" + file}));
+
+        //act
+        Simulator restored = HeadlessMain.run(SimOptions.parse(
+                new String[]{"steps=1000", "restore=" + file}));
+        Simulator whole = HeadlessMain.run(SimOptions.parse(
+                new String[]{"type=rim", "steps=2000", "seed=2"}));
+
+        //assert
+        assertEquals(whole.getSimulationTime(), restored.getSimulationTime(), 1e-9);
+        assertEquals(whole.produceResultsCSV(), restored.produceResultsCSV());
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void fromBytes_withoutMagic_throwsStreamCorruptedException() throws IOException {
+        //act
+        SimSnapshot.fromBytes(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+    }
+
+    @Test(expected = InvalidClassException.class)
+    public void fromBytes_withOtherVersion_throwsInvalidClassException() throws IOException {
+        //arrange
+        Simulator sim = HeadlessMain.run(SimOptions.parse(new String[]{"steps=10", "seed=1"}));
+        byte[] snapshot = SimSnapshot.take(sim, SETUP, 1).toBytes();
+        snapshot[5]++;
+
+        //act
+        SimSnapshot.fromBytes(snapshot);
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void fromBytes_withMissingField_throwsStreamCorruptedException() throws IOException {
+        //arrange
+        StateRecord state = new StateRecord(SimSnapshot.class.getName(), 1);
+        state.putStrings("setup", toArray(SETUP));
+        state.putRecord("simulator", new StateRecord(Simulator.class.getName(), 1));
+
+        //act
+        SimSnapshot.fromBytes(encode(state));
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void restore_withUnknownField_throwsStreamCorruptedException() throws IOException {
+        //arrange
+        Simulator sim = HeadlessMain.run(SimOptions.parse(new String[]{"steps=100", "seed=1"}));
+        StateRecord state = decode(SimSnapshot.take(sim, SETUP, 1).toBytes());
+        state.getRecord("simulator").putInt("unknownField", 1);
+        SimSnapshot snapshot = SimSnapshot.fromBytes(encode(state));
+
+        //act
+        restore(snapshot);
+    }
+
+    @Test(expected = NotSerializableException.class)
+    public void take_withResultSink_throwsNotSerializableException() throws IOException {
+        //arrange
+        Simulator sim = HeadlessMain.run(SimOptions.parse(new String[]{"steps=10", "seed=1"}));
+        sim.setResultSink(ResultSinks.open(new File(folder.getRoot(), "results.csv")));
+
+        //act
+        SimSnapshot.take(sim, SETUP, 1);
+    }
+
+    private static Simulator restore(SimSnapshot snapshot) throws IOException {
+        return snapshot.restore(SimSetups.create(SimOptions.parse(toArray(snapshot.getSetup()))));
+    }
+
+    private static String[] toArray(List<String> args) {
+        return args.toArray(new String[args.size()]);
+    }
+
+    private static StateRecord decode(byte[] snapshot) throws IOException {
+        return StateRecord.read(new DataInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(snapshot, 6, snapshot.length - 6))));
+    }
+
+    private static byte[] encode(StateRecord state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(0x4156534e);
+        header.writeShort(2);
+        DeflaterOutputStream deflater = new DeflaterOutputStream(bytes);
+        state.write(new DataOutputStream(deflater));
+        deflater.finish();
+        return bytes.toByteArray();
+    }
+
+    private static void step(Simulator sim, int steps) {
+        for (int i = 0; i < steps; i++) {
+            sim.step(SimConfig.TIME_STEP);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package aim4.sim.trace;
+
+import aim4.cli.HeadlessMain;
+import aim4.cli.SimOptions;
+import aim4.config.SimConfig;
+import aim4.msg.aim.i2v.I2VMessage;
+import aim4.msg.aim.v2i.V2IMessage;
+import aim4.sim.Simulator;
+import aim4.vehicle.VehicleSimModel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class TraceTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readFrame_afterRecording_matchesTheSimulator() throws IOException {
+        //arrange
+        File file = new File(folder.getRoot(), "run.trace");
+        Simulator sim = HeadlessMain.run(SimOptions.parse(new String[]{"time=30", "seed=1"}));
+        TraceRecorder recorder = new TraceRecorder(file, "time=30\nseed=1");
+        sim.setTraceRecorder(recorder);
+
+        //act
+        for (int i = 0; i < 100; i++) {
+            sim.step(SimConfig.TIME_STEP);
+        }
+        recorder.close();
+        TraceReader reader = new TraceReader(file);
+
+        //assert
+        assertEquals("time=30\nseed=1", reader.getDescription());
+        assertEquals(100, reader.getNumOfFrames());
+        assertEquals(sim.getSimulationTime(), reader.getFrameTime(99), 1e-9);
+        TraceFrame frame = reader.readFrame(99);
+        assertTrue(frame.getNumOfVehicles() > 0);
+        for (int i = 0; i < frame.getNumOfVehicles(); i++) {
+            VehicleSimModel vehicle = sim.getActiveVehicle(frame.getVin(i));
+            assertNotNull(vehicle);
+            assertEquals(vehicle.getPosition().getX(), frame.getX(i), 0);
+            assertEquals(vehicle.getPosition().getY(), frame.getY(i), 0);
+            assertEquals(vehicle.getVelocity(), frame.getVelocity(i), 1e-5);
+        }
+    }
+
+    @Test
+    public void run_withTrace_recordsRequestsAndDecisions() throws IOException {
+        //arrange
+        File file = new File(folder.getRoot(), "run.trace");
+
+        //act
+        HeadlessMain.run(SimOptions.parse(new String[]{"time=60", "seed=1", "trace=" + file}));
+        TraceReader reader = new TraceReader(file);
+
+        //assert
+        assertTrue(reader.getDescription().contains("seed=1"));
+        boolean request = false;
+        boolean confirm = false;
+        for (int i = 0; i < reader.getNumOfFrames(); i++) {
+            TraceFrame frame = reader.readFrame(i);
+            for (int j = 0; j < frame.getNumOfMessages(); j++) {
+                if (frame.getMessageKind(j) == TraceFrame.V2I) {
+                    request |= frame.getMessageType(j) == V2IMessage.Type.REQUEST.ordinal();
+                } else {
+                    confirm |= frame.getMessageType(j) == I2VMessage.Type.CONFIRM.ordinal();
+                }
+            }
+        }
+        assertTrue(request);
+        assertTrue(confirm);
+    }
+
+    @Test
+    public void findFrame_withTime_returnsTheLastFrameBefore() throws IOException {
+        //arrange
+        File file = new File(folder.getRoot(), "run.trace");
+        HeadlessMain.run(SimOptions.parse(new String[]{"steps=50", "seed=1", "trace=" + file}));
+
+        //act
+        TraceReader reader = new TraceReader(file);
+
+        //assert
+        assertEquals(0, reader.findFrame(-1.0));
+        assertEquals(9, reader.findFrame(reader.getFrameTime(9)));
+        assertEquals(9, reader.findFrame(reader.getFrameTime(9) + SimConfig.TIME_STEP / 2));
+        assertEquals(49, reader.findFrame(1000.0));
+    }
+
+    @Test
+    public void endStep_withRing_keepsTheLastSegments() throws IOException {
+        //arrange
+        File file = new File(folder.getRoot(), "ring.trace");
+        TraceRecorder recorder = new TraceRecorder(file, "ring", 1024, 2);
+
+        //act
+        for (int i = 0; i < 200; i++) {
+            recorder.recordV2IMessage(i, 0, 0, true);
+            recorder.endStep(i);
+        }
+        recorder.close();
+        TraceReader reader = new TraceReader(file);
+
+        //assert
+        assertFalse(new File(file.getPath() + ".0").exists());
+        assertEquals("ring", reader.getDescription());
+        assertEquals(199.0, reader.getFrameTime(reader.getNumOfFrames() - 1), 0);
+        assertTrue(reader.getNumOfFrames() < 200);
+        TraceFrame frame = reader.readFrame(reader.getNumOfFrames() - 1);
+        assertEquals(199, frame.getMessageVin(0));
+    }
+}
@@ -0,0 +1,113 @@
+package aim4.util;
+
+import org.junit.Test;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConvexDecompositionTests {
+    private static final int TRIALS = 20000;
+
+    @Test
+    public void overlapsConvexPolygon_withCrossOfLanes_matchesAreaIntersection() {
+        //arrange
+        List<Shape> pieces = Arrays.<Shape>asList(
+                new Rectangle2D.Double(0, 8, 20, 4),
+                new Rectangle2D.Double(8, 0, 4, 20),
+                AffineTransform.getRotateInstance(Math.PI / 4, 10, 10)
+                        .createTransformedShape(new Rectangle2D.Double(0, 9, 20, 2)));
+        ConvexDecomposition decomposition = new ConvexDecomposition(union(pieces), pieces);
+        Random random = new Random(7);
+        assertTrue(decomposition.isExact());
+        assertEquals(3, decomposition.getNumberOfPolygons());
+        for (int trial = 0; trial < TRIALS; trial++) {
+            double[][] rect = randomRectangle(random);
+            Area area = new Area(toPath(rect));
+            area.intersect(decomposition.getArea());
+
+            //act
+            boolean overlap = decomposition.overlapsConvexPolygon(rect[0], rect[1], 4);
+
+            //assert
+            assertEquals(!area.isEmpty(), overlap);
+        }
+    }
+
+    @Test
+    public void constructor_withCurvedPiece_isNotExact() {
+        //arrange
+        List<Shape> pieces = Arrays.<Shape>asList(
+                new Rectangle2D.Double(0, 8, 20, 4),
+                new Ellipse2D.Double(5, 5, 10, 10));
+
+        //act
+        ConvexDecomposition decomposition = new ConvexDecomposition(union(pieces), pieces);
+
+        //assert
+        assertFalse(decomposition.isExact());
+        assertEquals(0, decomposition.getNumberOfPolygons());
+    }
+
+    @Test
+    public void constructor_withNonConvexPiece_isNotExact() {
+        //arrange
+        Path2D arrow = new Path2D.Double();
+        arrow.moveTo(0, 0);
+        arrow.lineTo(4, 2);
+        arrow.lineTo(0, 4);
+        arrow.lineTo(1, 2);
+        arrow.closePath();
+        List<Shape> pieces = Arrays.<Shape>asList(arrow);
+
+        //act
+        ConvexDecomposition decomposition = new ConvexDecomposition(union(pieces), pieces);
+
+        //assert
+        assertFalse(decomposition.isExact());
+    }
+
+    private Area union(List<Shape> pieces) {
+        Area area = new Area();
+        for (Shape piece : pieces) {
+            area.add(new Area(piece));
+        }
+        return area;
+    }
+
+    private double[][] randomRectangle(Random random) {
+        Rectangle2D rect = new Rectangle2D.Double(random.nextDouble() * 30 - 5, random.nextDouble() * 30 - 5,
+                1 + random.nextDouble() * 5, 1 + random.nextDouble() * 2);
+        AffineTransform rotation = AffineTransform.getRotateInstance(
+                random.nextDouble() * 2 * Math.PI, rect.getCenterX(), rect.getCenterY());
+        double[] corners = {rect.getMinX(), rect.getMinY(), rect.getMaxX(), rect.getMinY(),
+                rect.getMaxX(), rect.getMaxY(), rect.getMinX(), rect.getMaxY()};
+        rotation.transform(corners, 0, corners, 0, 4);
+        double[][] result = new double[2][4];
+        for (int i = 0; i < 4; i++) {
+            result[0][i] = corners[2 * i];
+            result[1][i] = corners[2 * i + 1];
+        }
+        return result;
+    }
+
+    private Path2D toPath(double[][] polygon) {
+        Path2D path = new Path2D.Double();
+        path.moveTo(polygon[0][0], polygon[1][0]);
+        for (int i = 1; i < 4; i++) {
+            path.lineTo(polygon[0][i], polygon[1][i]);
+        }
+        path.closePath();
+        return path;
+    }
+}
@@ -0,0 +1,75 @@
+package aim4.util;
+
+import org.junit.Test;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class GeomMathTests {
+    private static final int TRIALS = 20000;
+
+    @Test
+    public void convexPolygonsOverlap_withRandomRectangles_matchesAreaIntersection() {
+        //arrange
+        Random random = new Random(11);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            double[][] r1 = randomRectangle(random);
+            double[][] r2 = randomRectangle(random);
+            Area area = new Area(toPath(r1));
+            area.intersect(new Area(toPath(r2)));
+
+            //act
+            boolean overlap = GeomMath.convexPolygonsOverlap(r1[0], r1[1], 4, r2[0], r2[1], 4);
+
+            //assert
+            assertEquals(!area.isEmpty(), overlap);
+        }
+    }
+
+    @Test
+    public void convexPolygonsOverlap_withTouchingSquares_returnsFalse() {
+        //arrange
+        double[] xs1 = {0, 1, 1, 0};
+        double[] ys1 = {0, 0, 1, 1};
+        double[] xs2 = {1, 2, 2, 1};
+        double[] ys2 = {0, 0, 1, 1};
+
+        //act
+        boolean overlap = GeomMath.convexPolygonsOverlap(xs1, ys1, 4, xs2, ys2, 4);
+
+        //assert
+        assertFalse(overlap);
+    }
+
+    private double[][] randomRectangle(Random random) {
+        Rectangle2D rect = new Rectangle2D.Double(random.nextDouble() * 20, random.nextDouble() * 20,
+                1 + random.nextDouble() * 5, 1 + random.nextDouble() * 2);
+        AffineTransform rotation = AffineTransform.getRotateInstance(
+                random.nextDouble() * 2 * Math.PI, rect.getCenterX(), rect.getCenterY());
+        double[] corners = {rect.getMinX(), rect.getMinY(), rect.getMaxX(), rect.getMinY(),
+                rect.getMaxX(), rect.getMaxY(), rect.getMinX(), rect.getMaxY()};
+        rotation.transform(corners, 0, corners, 0, 4);
+        double[][] result = new double[2][4];
+        for (int i = 0; i < 4; i++) {
+            result[0][i] = corners[2 * i];
+            result[1][i] = corners[2 * i + 1];
+        }
+        return result;
+    }
+
+    private Path2D toPath(double[][] polygon) {
+        Path2D path = new Path2D.Double();
+        path.moveTo(polygon[0][0], polygon[1][0]);
+        for (int i = 1; i < 4; i++) {
+            path.lineTo(polygon[0][i], polygon[1][i]);
+        }
+        path.closePath();
+        return path;
+    }
+}
@@ -0,0 +1,109 @@
+package aim4.util;
+
+import org.junit.Test;
+
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TiledAreaTests {
+    private static final double GRANULARITY = 1.0;
+    private static final int TRIALS = 2000;
+
+    @Test
+    public void findOccupiedTiles_withAxisAlignedRectangle_returnsCoveredTiles() {
+        //arrange
+        TiledArea tiledArea = new TiledArea(new Area(new Rectangle2D.Double(0, 0, 10, 10)), GRANULARITY);
+        Point2D[] corners = new Point2D[]{
+                new Point2D.Double(2.5, 3.5), new Point2D.Double(2.5, 1.5),
+                new Point2D.Double(4.5, 1.5), new Point2D.Double(4.5, 3.5)};
+        int[] tileIds = new int[tiledArea.getNumberOfTiles()];
+
+        //act
+        int count = tiledArea.findOccupiedTiles(corners, tileIds);
+
+        //assert
+        assertEquals(9, count);
+        for (int i = 0; i < count; i++) {
+            TiledArea.Tile tile = tiledArea.getTileById(tileIds[i]);
+            assertTrue(tile.getX() >= 2 && tile.getX() <= 4);
+            assertTrue(tile.getY() >= 1 && tile.getY() <= 3);
+        }
+    }
+
+    @Test
+    public void findOccupiedTiles_withRotatedRectangles_matchesShapeIntersection() {
+        //arrange
+        TiledArea tiledArea = new TiledArea(new Area(new Ellipse2D.Double(-20, -15, 40, 30)), GRANULARITY);
+        int[] tileIds = new int[tiledArea.getNumberOfTiles()];
+        Random random = new Random(0);
+
+        for (int trial = 0; trial < TRIALS; trial++) {
+            double cx = -25 + 50 * random.nextDouble();
+            double cy = -20 + 40 * random.nextDouble();
+            double heading = 2 * Math.PI * random.nextDouble();
+            double length = 2 + 4 * random.nextDouble();
+            double width = 1 + 2 * random.nextDouble();
+            Point2D[] corners = rectangleCorners(cx, cy, heading, length, width);
+
+            //act
+            int count = tiledArea.findOccupiedTiles(corners, tileIds);
+
+            //assert
+            Set<Integer> expected = new HashSet<Integer>();
+            for (TiledArea.Tile tile : tiledArea.findOccupiedTiles(GeomUtil.convertPointsToShape(corners))) {
+                expected.add(tile.getId());
+            }
+            Set<Integer> actual = new HashSet<Integer>();
+            for (int i = 0; i < count; i++) {
+                actual.add(tileIds[i]);
+            }
+            assertEquals(count, actual.size());
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void findOccupiedTiles_withRotatedRectangles_keepsTheOrderOfShapeIntersection() {
+        //arrange
+        TiledArea tiledArea = new TiledArea(new Area(new Ellipse2D.Double(-20, -15, 40, 30)), GRANULARITY);
+        int[] tileIds = new int[tiledArea.getNumberOfTiles()];
+        Random random = new Random(1);
+
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Point2D[] corners = rectangleCorners(-25 + 50 * random.nextDouble(), -20 + 40 * random.nextDouble(),
+                    2 * Math.PI * random.nextDouble(), 2 + 4 * random.nextDouble(), 1 + 2 * random.nextDouble());
+
+            //act
+            int count = tiledArea.findOccupiedTiles(corners, tileIds);
+
+            //assert
+            List<Integer> expected = new ArrayList<Integer>();
+            for (TiledArea.Tile tile : tiledArea.findOccupiedTiles(GeomUtil.convertPointsToShape(corners))) {
+                expected.add(tile.getId());
+            }
+            List<Integer> actual = new ArrayList<Integer>();
+            for (int i = 0; i < count; i++) {
+                actual.add(tileIds[i]);
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static Point2D[] rectangleCorners(double cx, double cy, double heading, double length, double width) {
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        double[][] offsets = {{length / 2, width / 2}, {-length / 2, width / 2},
+                {-length / 2, -width / 2}, {length / 2, -width / 2}};
+        Point2D[] corners = new Point2D[4];
+        for (int i = 0; i < 4; i++) {
+            corners[i] = new Point2D.Double(cx + offsets[i][0] * cos - offsets[i][1] * sin,
+                    cy + offsets[i][0] * sin + offsets[i][1] * cos);
+        }
+        return corners;
+    }
+}
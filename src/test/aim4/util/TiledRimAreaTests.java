@@ -0,0 +1,111 @@
+package aim4.util;
+
+import aim4.im.rim.RoadBasedIntersection;
+import aim4.map.rim.RimIntersectionMap;
+import aim4.sim.SimulationContext;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TiledRimAreaTests {
+    private static final double ROUNDABOUT_DIAMETER = 45.0;
+    private static final double ENTRANCE_EXIT_RADIUS = 20.0;
+    private static final double LANE_WIDTH = 3.014;
+    private static final double LANE_SPEED_LIMIT = 19.44;
+    private static final double ROUNDABOUT_SPEED_LIMIT = 6.04;
+    private static final int TRIALS = 20000;
+
+    @Test
+    public void findOccupiedTiles_withOneLane_matchesAreaContainment() {
+        assertMatchesAreaContainment(getTiledRimArea(1, 8));
+    }
+
+    @Test
+    public void findOccupiedTiles_withTwoLanes_matchesAreaContainment() {
+        assertMatchesAreaContainment(getTiledRimArea(2, 12));
+    }
+
+    @Test
+    public void findOccupiedTiles_withPointsOnSectorEdges_matchesAreaContainment() {
+        //arrange
+        TiledRimArea tiledRimArea = getTiledRimArea(2, 8);
+        double centerX = tiledRimArea.getMinimalCircle().getCenterX();
+        double centerY = tiledRimArea.getMinimalCircle().getCenterY();
+        double radius = (tiledRimArea.getMinimalCircle().getWidth()
+                + tiledRimArea.getMaximalCircle().getWidth()) / 4;
+
+        for (int sector = 0; sector < 16; sector++) {
+            double angle = Math.toRadians(sector * 180.0 / 8);
+            Point2D[] points = new Point2D[]{new Point2D.Double(
+                    centerX + radius * Math.cos(angle), centerY - radius * Math.sin(angle))};
+
+            //act
+            List<TiledRimArea.Tile> tiles = tiledRimArea.findOccupiedTiles(points);
+
+            //assert
+            assertEquals(findOccupiedTilesByScan(tiledRimArea, points), tiles);
+        }
+    }
+
+    private void assertMatchesAreaContainment(TiledRimArea tiledRimArea) {
+        //arrange
+        Random random = new Random(7);
+        Rectangle2D bounds = tiledRimArea.getAllTilesById().get(0).getArea().getBounds2D();
+        for (TiledRimArea.Tile tile : tiledRimArea.getAllTilesById()) {
+            bounds.add(tile.getArea().getBounds2D());
+        }
+
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Point2D[] points = new Point2D[4];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = new Point2D.Double(
+                        bounds.getMinX() + random.nextDouble() * bounds.getWidth(),
+                        bounds.getMinY() + random.nextDouble() * bounds.getHeight());
+            }
+
+            //act
+            List<TiledRimArea.Tile> tiles = tiledRimArea.findOccupiedTiles(points);
+
+            //assert
+            assertEquals(findOccupiedTilesByScan(tiledRimArea, points), tiles);
+        }
+    }
+
+    private List<TiledRimArea.Tile> findOccupiedTilesByScan(TiledRimArea tiledRimArea, Point2D[] points) {
+        List<TiledRimArea.Tile> occupiedTiles = new ArrayList<TiledRimArea.Tile>();
+        for (TiledRimArea.Tile tile : tiledRimArea.getAllTilesById()) {
+            for (Point2D point : points) {
+                if (tile.getArea().contains(point)) {
+                    occupiedTiles.add(tile);
+                }
+            }
+        }
+        return occupiedTiles;
+    }
+
+    private TiledRimArea getTiledRimArea(int lanesPerRoad, double granularity) {
+        RimIntersectionMap map = new RimIntersectionMap(
+                0,
+                1,
+                1,
+                ROUNDABOUT_DIAMETER,
+                ENTRANCE_EXIT_RADIUS,
+                4,
+                LANE_WIDTH,
+                LANE_SPEED_LIMIT,
+                ROUNDABOUT_SPEED_LIMIT,
+                lanesPerRoad,
+                0,
+                0);
+        SimulationContext.current().setRimMap(map);
+        RoadBasedIntersection intersection = new RoadBasedIntersection(map.getRoads());
+        return new TiledRimArea(intersection.getMinimalCircle(), intersection.getCentralCircle(),
+                intersection.getMaximalCircle(), granularity, intersection.getLaneNum());
+    }
+}
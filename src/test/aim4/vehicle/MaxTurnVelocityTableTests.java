@@ -0,0 +1,147 @@
+package aim4.vehicle;
+
+import aim4.cli.HeadlessMain;
+import aim4.cli.SimOptions;
+import aim4.config.Constants.TurnDirection;
+import aim4.im.aim.IntersectionManager;
+import aim4.map.BasicAIMIntersectionMap;
+import aim4.map.lane.Lane;
+import aim4.sim.SimulationContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class MaxTurnVelocityTableTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void get_afterRun_matchesTheCalculatedVelocities() throws IOException {
+        //arrange
+        final BasicAIMIntersectionMap map = (BasicAIMIntersectionMap)
+                HeadlessMain.run(SimOptions.parse(new String[]{"steps=1", "seed=1"})).getMap();
+        SimulationContext context = new SimulationContext(1);
+        context.setAimMap(map);
+
+        for (final IntersectionManager im : map.getIntersectionManagers()) {
+            //act
+            final MaxTurnVelocityTable table = im.getMaxTurnVelocityTable();
+
+            //assert
+            assertNotNull(table);
+            for (final VehicleSpec spec : specs()) {
+                for (final Lane arrival : im.getIntersection().getEntryLanes()) {
+                    for (final Lane departure : im.getIntersection().getExitLanes()) {
+                        if (context.call(() -> im.getIntersection().calcTurnDirection(
+                                arrival, departure)) == TurnDirection.U_TURN) {
+                            continue;
+                        }
+                        double expected = context.call(() ->
+                                VehicleUtil.calculateMaxTurnVelocity(spec, arrival, departure, im));
+                        assertEquals(expected, (double) context.call(() ->
+                                table.get(spec, arrival, departure, im.getId())), 0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void install_withCacheDirectory_loadsTheSavedTable() throws IOException {
+        //arrange
+        File dir = folder.newFolder("turnTables");
+        String[] args = {"steps=1", "seed=1", "turnTables=" + dir};
+        IntersectionManager computed = ((BasicAIMIntersectionMap)
+                HeadlessMain.run(SimOptions.parse(args)).getMap()).getIntersectionManagers().get(0);
+
+        //act
+        IntersectionManager loaded = ((BasicAIMIntersectionMap)
+                HeadlessMain.run(SimOptions.parse(args)).getMap()).getIntersectionManagers().get(0);
+
+        //assert
+        File[] files = dir.listFiles();
+        assertEquals(1, files.length);
+        assertTrue(files[0].getName().matches("mtv-[0-9a-f]{16}\\.bin"));
+        assertNotSame(computed.getMaxTurnVelocityTable(), loaded.getMaxTurnVelocityTable());
+        Lane arrival = loaded.getIntersection().getEntryLanes().get(0);
+        for (VehicleSpec spec : specs()) {
+            for (Lane departure : loaded.getIntersection().getExitLanes()) {
+                assertEquals(
+                        computed.getMaxTurnVelocityTable().get(spec, arrival, departure, computed.getId()),
+                        loaded.getMaxTurnVelocityTable().get(spec, arrival, departure, loaded.getId()),
+                        0);
+            }
+        }
+    }
+
+    @Test
+    public void get_withTurnNotUsedYet_computesTheVelocityOnDemand() throws IOException {
+        //arrange
+        final BasicAIMIntersectionMap map = (BasicAIMIntersectionMap)
+                HeadlessMain.run(SimOptions.parse(new String[]{"steps=1", "seed=1", "laneWidth=3.9"})).getMap();
+        SimulationContext context = new SimulationContext(1);
+        context.setAimMap(map);
+        final IntersectionManager im = map.getIntersectionManagers().get(0);
+        final MaxTurnVelocityTable table = im.getMaxTurnVelocityTable();
+        final VehicleSpec spec = VehicleSpecDatabase.getVehicleSpecById(0);
+        // the turns between the lanes the routes are planned on are computed
+        // with the routes, but not those between the other lanes
+        final Lane arrival = im.getIntersection().getEntryLanes().get(1);
+        final Lane departure = im.getIntersection().getExitLanes().get(2);
+        boolean computedBefore = table.isComputed(spec, arrival, departure, im.getId());
+
+        //act
+        double velocity = context.call(() -> table.get(spec, arrival, departure, im.getId()));
+
+        //assert
+        assertFalse(computedBefore);
+        assertTrue(table.isComputed(spec, arrival, departure, im.getId()));
+        assertEquals(context.call(() -> VehicleUtil.calculateMaxTurnVelocity(spec, arrival, departure, im)),
+                velocity, 0);
+    }
+
+    @Test
+    public void install_withSameMap_sharesTheComputedVelocities() throws IOException {
+        //arrange
+        String[] args = {"steps=1", "seed=1", "laneWidth=3.8"};
+        BasicAIMIntersectionMap map = (BasicAIMIntersectionMap)
+                HeadlessMain.run(SimOptions.parse(args)).getMap();
+        SimulationContext context = new SimulationContext(1);
+        context.setAimMap(map);
+        final IntersectionManager first = map.getIntersectionManagers().get(0);
+        final VehicleSpec spec = VehicleSpecDatabase.getVehicleSpecById(0);
+        final Lane arrival = first.getIntersection().getEntryLanes().get(1);
+        final Lane departure = first.getIntersection().getExitLanes().get(2);
+        context.call(() ->
+                first.getMaxTurnVelocityTable().get(spec, arrival, departure, first.getId()));
+
+        //act
+        IntersectionManager second = ((BasicAIMIntersectionMap)
+                HeadlessMain.run(SimOptions.parse(args)).getMap()).getIntersectionManagers().get(0);
+
+        //assert
+        assertNotSame(first.getMaxTurnVelocityTable(), second.getMaxTurnVelocityTable());
+        assertTrue(second.getMaxTurnVelocityTable().isComputed(
+                spec,
+                second.getIntersection().getEntryLanes().get(1),
+                second.getIntersection().getExitLanes().get(2),
+                second.getId()));
+    }
+
+    private static VehicleSpec[] specs() {
+        VehicleSpec[] specs = new VehicleSpec[VehicleSpecDatabase.getNumOfSpec()];
+        for (int i = 0; i < specs.length; i++) {
+            specs[i] = VehicleSpecDatabase.getVehicleSpecById(i);
+        }
+        return specs;
+    }
+}